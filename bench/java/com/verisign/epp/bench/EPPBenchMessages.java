@@ -0,0 +1,833 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.bench;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.Vector;
+
+import com.verisign.epp.codec.balance.EPPBalanceInfoCmd;
+import com.verisign.epp.codec.balance.EPPBalanceInfoResp;
+import com.verisign.epp.codec.balance.EPPCreditThreshold;
+import com.verisign.epp.codec.contact.EPPContactAddress;
+import com.verisign.epp.codec.contact.EPPContactCreateCmd;
+import com.verisign.epp.codec.contact.EPPContactCreateResp;
+import com.verisign.epp.codec.contact.EPPContactPostalDefinition;
+import com.verisign.epp.codec.defReg.EPPDefRegCreateCmd;
+import com.verisign.epp.codec.defReg.EPPDefRegName;
+import com.verisign.epp.codec.defReg.EPPDefRegPeriod;
+import com.verisign.epp.codec.domain.EPPDomainCheckCmd;
+import com.verisign.epp.codec.domain.EPPDomainCheckResp;
+import com.verisign.epp.codec.domain.EPPDomainCheckResult;
+import com.verisign.epp.codec.domain.EPPDomainContact;
+import com.verisign.epp.codec.domain.EPPDomainCreateCmd;
+import com.verisign.epp.codec.domain.EPPDomainInfoCmd;
+import com.verisign.epp.codec.domain.EPPDomainInfoResp;
+import com.verisign.epp.codec.domain.EPPDomainPeriod;
+import com.verisign.epp.codec.domain.EPPDomainRenewCmd;
+import com.verisign.epp.codec.domain.EPPDomainStatus;
+import com.verisign.epp.codec.domain.EPPDomainUpdateCmd;
+import com.verisign.epp.codec.emailFwd.EPPEmailFwdContact;
+import com.verisign.epp.codec.emailFwd.EPPEmailFwdCreateCmd;
+import com.verisign.epp.codec.emailFwd.EPPEmailFwdPeriod;
+import com.verisign.epp.codec.gen.EPPAuthInfo;
+import com.verisign.epp.codec.gen.EPPCodec;
+import com.verisign.epp.codec.gen.EPPCodecException;
+import com.verisign.epp.codec.gen.EPPFactory;
+import com.verisign.epp.codec.gen.EPPLoginCmd;
+import com.verisign.epp.codec.gen.EPPMessage;
+import com.verisign.epp.codec.gen.EPPMsgQueue;
+import com.verisign.epp.codec.gen.EPPPollCmd;
+import com.verisign.epp.codec.gen.EPPResponse;
+import com.verisign.epp.codec.gen.EPPResult;
+import com.verisign.epp.codec.gen.EPPService;
+import com.verisign.epp.codec.gen.EPPTransId;
+import com.verisign.epp.codec.host.EPPHostAddress;
+import com.verisign.epp.codec.host.EPPHostCreateCmd;
+import com.verisign.epp.codec.host.EPPHostCreateResp;
+import com.verisign.epp.codec.idnext.EPPIdnLangTag;
+import com.verisign.epp.codec.lowbalancepoll.EPPLowBalancePollResponse;
+import com.verisign.epp.codec.lowbalancepoll.EPPLowBalancePollThreshold;
+import com.verisign.epp.codec.namestoreext.EPPNamestoreExtNamestoreExt;
+import com.verisign.epp.codec.nameWatch.EPPNameWatchCreateCmd;
+import com.verisign.epp.codec.nameWatch.EPPNameWatchPeriod;
+import com.verisign.epp.codec.nameWatch.EPPNameWatchRptTo;
+import com.verisign.epp.codec.premiumdomain.EPPPremiumDomainCheck;
+import com.verisign.epp.codec.premiumdomain.EPPPremiumDomainCheckResp;
+import com.verisign.epp.codec.premiumdomain.EPPPremiumDomainCheckResult;
+import com.verisign.epp.codec.registry.EPPRegistryCheckCmd;
+import com.verisign.epp.codec.registry.EPPRegistryCheckResp;
+import com.verisign.epp.codec.registry.EPPRegistryCheckResult;
+import com.verisign.epp.codec.rgpext.EPPRgpExtInfData;
+import com.verisign.epp.codec.rgpext.EPPRgpExtRestore;
+import com.verisign.epp.codec.rgpext.EPPRgpExtStatus;
+import com.verisign.epp.codec.rgpext.EPPRgpExtUpdate;
+import com.verisign.epp.codec.secdnsext.v11.EPPSecDNSAlgorithm;
+import com.verisign.epp.codec.secdnsext.v11.EPPSecDNSExtCreate;
+import com.verisign.epp.codec.secdnsext.v11.EPPSecDNSExtDsData;
+import com.verisign.epp.codec.secdnsext.v11.EPPSecDNSExtInfData;
+import com.verisign.epp.codec.secdnsext.v11.EPPSecDNSExtKeyData;
+import com.verisign.epp.codec.suggestion.util.InvalidValueException;
+import com.verisign.epp.codec.suggestion.util.RandomHelper;
+import com.verisign.epp.codec.syncext.EPPSyncExtUpdate;
+import com.verisign.epp.codec.whowas.EPPWhoWasConstants;
+import com.verisign.epp.codec.whowas.EPPWhoWasHistory;
+import com.verisign.epp.codec.whowas.EPPWhoWasInfoCmd;
+import com.verisign.epp.codec.whowas.EPPWhoWasInfoResp;
+import com.verisign.epp.codec.whowas.EPPWhoWasRecord;
+
+/**
+ * Catalog of the representative messages used by the benchmarks.  Each
+ * message has a name of the form &quot;&lt;module&gt;.&lt;message&gt;&quot;,
+ * like &quot;domain.create&quot; or &quot;secdns11.infoResp&quot;, and is
+ * created with the same attribute values as the codec unit test of the
+ * module.  The names are listed in {@link #NAMES}, which must be kept in
+ * sync with the <code>message</code> parameter of
+ * {@link EPPCodecBenchmark}.<br>
+ * <br>
+ * The launch, relateddomain, coa, whois, persreg, and jobsContact modules
+ * are not in the catalog, since their jars do not build: their test
+ * sources do not compile against the current <code>EPPResponse</code>
+ * API.<br>
+ * <br>
+ * {@link #initCodec()} must be called before encoding or decoding the
+ * messages, which adds the map and extension factories of all of the
+ * benchmarked modules to <code>EPPFactory</code>.
+ */
+public class EPPBenchMessages {
+
+	/** Names of all of the messages in the catalog */
+	public static final String[] NAMES = {
+			"gen.login", "gen.poll", "gen.response", 
+			"domain.check", "domain.checkResp", "domain.info", "domain.infoResp",
+			"domain.create", "domain.renew", 
+			"host.create", "host.createResp", 
+			"contact.create", "contact.createResp",
+			"secdns10.create", "secdns11.create", "secdns11.infoResp",
+			"rgp.restore", "rgp.infoResp", 
+			"registry.check", "registry.checkResp",
+			"idn.create", "namestoreext.create", "sync.update",
+			"premiumdomain.check", "premiumdomain.checkResp", 
+			"emailfwd.create", "defreg.create", "namewatch.create",
+			"balance.info", "balance.infoResp", "lowbalance.poll",
+			"whowas.info", "whowas.infoResp", 
+			"suggestion.info", "suggestion.infoResp" };
+
+	/** <code>EPPMapFactory</code> classes of the benchmarked modules */
+	public static final String[] MAP_FACTORIES = {
+			"com.verisign.epp.codec.host.EPPHostMapFactory",
+			"com.verisign.epp.codec.domain.EPPDomainMapFactory",
+			"com.verisign.epp.codec.contact.EPPContactMapFactory",
+			"com.verisign.epp.codec.registry.EPPRegistryMapFactory",
+			"com.verisign.epp.codec.emailFwd.EPPEmailFwdMapFactory",
+			"com.verisign.epp.codec.defReg.EPPDefRegMapFactory",
+			"com.verisign.epp.codec.nameWatch.EPPNameWatchMapFactory",
+			"com.verisign.epp.codec.rgppoll.EPPRgpPollMapFactory",
+			"com.verisign.epp.codec.balance.EPPBalanceMapFactory",
+			"com.verisign.epp.codec.lowbalancepoll.EPPLowBalancePollMapFactory",
+			"com.verisign.epp.codec.whowas.EPPWhoWasMapFactory",
+			"com.verisign.epp.codec.suggestion.EPPSuggestionMapFactory" };
+
+	/** <code>EPPExtFactory</code> classes of the benchmarked modules */
+	public static final String[] EXT_FACTORIES = {
+			"com.verisign.epp.codec.secdnsext.v10.EPPSecDNSExtFactory",
+			"com.verisign.epp.codec.secdnsext.v11.EPPSecDNSExtFactory",
+			"com.verisign.epp.codec.rgpext.EPPRgpExtFactory",
+			"com.verisign.epp.codec.idnext.EPPIdnExtFactory",
+			"com.verisign.epp.codec.namestoreext.EPPNamestoreExtExtFactory",
+			"com.verisign.epp.codec.syncext.EPPSyncExtFactory",
+			"com.verisign.epp.codec.premiumdomain.EPPPremiumDomainExtFactory" };
+
+	/** Public key used for the secDNS key data */
+	private static final String PUB_KEY = "AQPmsXk3Q1ngNSzsH1lrX63mRIhtwkkK+5Zj"
+			+ "vxykBCV1NYne83+8RXkBElGb/YJ1n4TacMUs"
+			+ "poZap7caJj7MdOaADKmzB2ci0vwpubNyW0t2"
+			+ "AnaQqpy1ce+07Y8RkbTC6xCeEw1UQZ73PzIO"
+			+ "OvJDdjwPxWaO9F7zSxnGpGt0WtuItQ==";
+
+	/**
+	 * Utility class that can not be instantiated.
+	 */
+	private EPPBenchMessages() {
+	}
+
+	/**
+	 * Adds the map and extension factories of all of the benchmarked
+	 * modules to <code>EPPFactory</code>.  Factories that were already
+	 * added are skipped.
+	 * 
+	 * @throws EPPCodecException Error adding a factory
+	 */
+	public static void initCodec() throws EPPCodecException {
+		// Initialize the codec singleton before adding the factories
+		EPPCodec.getInstance();
+
+		for (int i = 0; i < MAP_FACTORIES.length; i++) {
+			EPPFactory.getInstance().addMapFactory(MAP_FACTORIES[i]);
+		}
+		for (int i = 0; i < EXT_FACTORIES.length; i++) {
+			EPPFactory.getInstance().addExtFactory(EXT_FACTORIES[i]);
+		}
+	}
+
+	/**
+	 * Creates a message of the catalog.
+	 * 
+	 * @param aName Name of the message from {@link #NAMES}
+	 * @return New message instance
+	 * @throws EPPCodecException Error creating the message
+	 * @throws IllegalArgumentException <code>aName</code> is not a known
+	 * message name
+	 */
+	public static EPPMessage createMessage(String aName) throws EPPCodecException {
+		switch (aName) {
+			case "gen.login":
+				return createLogin();
+			case "gen.poll":
+				return new EPPPollCmd("ABC-12345", EPPPollCmd.OP_REQ);
+			case "gen.response":
+				return createResponse(new EPPResponse());
+			case "domain.check":
+				return createDomainCheck();
+			case "domain.checkResp":
+				return createDomainCheckResp();
+			case "domain.info":
+				return createDomainInfo();
+			case "domain.infoResp":
+				return createDomainInfoResp();
+			case "domain.create":
+				return createDomainCreate();
+			case "domain.renew":
+				return new EPPDomainRenewCmd("ABC-12345", "example.com",
+						createDate(2000, Calendar.JULY, 22), new EPPDomainPeriod(5));
+			case "host.create":
+				return createHostCreate();
+			case "host.createResp":
+				return createResponse(new EPPHostCreateResp(null, "ns1.example.com", new Date()));
+			case "contact.create":
+				return createContactCreate();
+			case "contact.createResp":
+				return createResponse(new EPPContactCreateResp(null, "sh8013", new Date()));
+			case "secdns10.create":
+				return createSecDNS10Create();
+			case "secdns11.create":
+				return createSecDNS11Create();
+			case "secdns11.infoResp":
+				return createSecDNS11InfoResp();
+			case "rgp.restore":
+				return createRgpRestore();
+			case "rgp.infoResp":
+				return createRgpInfoResp();
+			case "registry.check":
+				return createRegistryCheck();
+			case "registry.checkResp":
+				return createRegistryCheckResp();
+			case "idn.create":
+				return createIdnCreate();
+			case "namestoreext.create":
+				return createNamestoreExtCreate();
+			case "sync.update":
+				return createSyncUpdate();
+			case "premiumdomain.check":
+				return createPremiumDomainCheck();
+			case "premiumdomain.checkResp":
+				return createPremiumDomainCheckResp();
+			case "emailfwd.create":
+				return createEmailFwdCreate();
+			case "defreg.create":
+				return new EPPDefRegCreateCmd("ABC-12345", new EPPDefRegName("premium", "ibm"), 
+						"XYZ", "ibm", "US", createDate(2000, Calendar.JULY, 22),
+						"registrant", new EPPDefRegPeriod(10), new EPPAuthInfo("2fooBAR"));
+			case "namewatch.create":
+				return createNameWatchCreate();
+			case "balance.info":
+				return new EPPBalanceInfoCmd("ABC-12345");
+			case "balance.infoResp":
+				return createBalanceInfoResp();
+			case "lowbalance.poll":
+				return createLowBalancePoll();
+			case "whowas.info":
+				return createWhoWasInfo();
+			case "whowas.infoResp":
+				return createWhoWasInfoResp();
+			case "suggestion.info":
+				return createSuggestionInfo();
+			case "suggestion.infoResp":
+				return createSuggestionInfoResp();
+			default:
+				throw new IllegalArgumentException("Unknown message name " + aName);
+		}
+	}
+
+	/**
+	 * Sets the transaction identifier and the success result of a response.
+	 * 
+	 * @param aResponse Response to set
+	 * @return <code>aResponse</code>
+	 */
+	private static EPPResponse createResponse(EPPResponse aResponse) {
+		aResponse.setTransId(new EPPTransId("ABC-12345", "54321-XYZ"));
+		aResponse.setResult(EPPResult.SUCCESS);
+		return aResponse;
+	}
+
+	/**
+	 * Creates a UTC date.
+	 * 
+	 * @param aYear Year
+	 * @param aMonth Month, like <code>Calendar.JULY</code>
+	 * @param aDay Day of the month
+	 * @return UTC date
+	 */
+	private static Date createDate(int aYear, int aMonth, int aDay) {
+		Calendar theCal = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+		theCal.clear();
+		theCal.set(aYear, aMonth, aDay);
+		return theCal.getTime();
+	}
+
+	/**
+	 * Creates a login command with object and extension services.
+	 * 
+	 * @return Login command
+	 */
+	private static EPPMessage createLogin() {
+		EPPLoginCmd theCommand = new EPPLoginCmd("ABC-12345", "ClientX",
+				"foo-BAR2", "bar-FOO2");
+
+		Vector theServices = new Vector();
+		EPPService theService = new EPPService("domain",
+				"urn:ietf:params:xml:ns:domain-1.0",
+				"urn:iana:xml:ns:domain-1.0 domain-1.0.xsd");
+		theService.setServiceType(EPPService.OBJ_SERVICE);
+		theServices.addElement(theService);
+		theService = new EPPService("host", "urn:ietf:params:xml:ns:host-1.0",
+				"urn:iana:xml:ns:host-1.0 host-1.0.xsd");
+		theService.setServiceType(EPPService.OBJ_SERVICE);
+		theServices.addElement(theService);
+		theCommand.setServices(theServices);
+
+		Vector theExtServices = new Vector();
+		theService = new EPPService("secDNS", "urn:ietf:params:xml:ns:secDNS-1.1",
+				"urn:ietf:params:xml:ns:secDNS-1.1 secDNS-1.1.xsd");
+		theService.setServiceType(EPPService.EXT_SERVICE);
+		theExtServices.addElement(theService);
+		theCommand.setExtensionServices(theExtServices);
+
+		return theCommand;
+	}
+
+	/**
+	 * Creates a domain check command of three domain names.
+	 * 
+	 * @return Domain check command
+	 */
+	private static EPPDomainCheckCmd createDomainCheck() {
+		Vector theDomains = new Vector();
+		theDomains.addElement("example1.com");
+		theDomains.addElement("example2.com");
+		theDomains.addElement("example3.com");
+		return new EPPDomainCheckCmd("ABC-12345", theDomains);
+	}
+
+	/**
+	 * Creates a domain check response of three domain names.
+	 * 
+	 * @return Domain check response
+	 */
+	private static EPPMessage createDomainCheckResp() {
+		Vector theResults = new Vector();
+		theResults.addElement(new EPPDomainCheckResult("example1.com", true));
+		EPPDomainCheckResult theResult = new EPPDomainCheckResult("example2.com", false);
+		theResult.setDomainReason("In Use");
+		theResult.setLanguage("fr");
+		theResults.addElement(theResult);
+		theResults.addElement(new EPPDomainCheckResult("example3.com", true));
+
+		return createResponse(new EPPDomainCheckResp(null, theResults));
+	}
+
+	/**
+	 * Creates a domain info command with authorization information.
+	 * 
+	 * @return Domain info command
+	 */
+	private static EPPMessage createDomainInfo() {
+		EPPDomainInfoCmd theCommand = new EPPDomainInfoCmd("ABC-12345", "example.com");
+		theCommand.setHosts(EPPDomainInfoCmd.HOSTS_DELEGATED);
+		theCommand.setAuthInfo(new EPPAuthInfo("2fooBAR"));
+		return theCommand;
+	}
+
+	/**
+	 * Creates a domain info response with all of the attributes set.
+	 * 
+	 * @return Domain info response
+	 */
+	private static EPPDomainInfoResp createDomainInfoResp() {
+		Vector theStatuses = new Vector();
+		theStatuses.addElement(new EPPDomainStatus(EPPDomainStatus.ELM_STATUS_OK));
+
+		EPPDomainInfoResp theResponse = new EPPDomainInfoResp(null,
+				"EXAMPLE1-VRSN", "example.com", "ClientX", theStatuses,
+				"ClientY", createDate(2011, Calendar.JANUARY, 1),
+				new EPPAuthInfo("2fooBAR"));
+		theResponse.setRegistrant("JD1234-VRSN");
+
+		Vector theServers = new Vector();
+		theServers.addElement("ns1.example.com");
+		theServers.addElement("ns2.example.com");
+		theResponse.setNses(theServers);
+
+		Vector theHosts = new Vector();
+		theHosts.addElement("ns1.example.com");
+		theHosts.addElement("ns2.example.com");
+		theResponse.setHosts(theHosts);
+
+		Vector theContacts = new Vector();
+		theContacts.addElement(new EPPDomainContact("SH8013-VRSN",
+				EPPDomainContact.TYPE_ADMINISTRATIVE));
+		theContacts.addElement(new EPPDomainContact("SH8013-VRSN",
+				EPPDomainContact.TYPE_TECHNICAL));
+		theResponse.setContacts(theContacts);
+
+		theResponse.setLastUpdatedBy("ClientX");
+		theResponse.setLastUpdatedDate(createDate(2012, Calendar.JANUARY, 1));
+		theResponse.setExpirationDate(createDate(2013, Calendar.JANUARY, 1));
+
+		createResponse(theResponse);
+		return theResponse;
+	}
+
+	/**
+	 * Creates a domain create command with name servers, contacts, and a
+	 * period.
+	 * 
+	 * @return Domain create command
+	 */
+	private static EPPDomainCreateCmd createDomainCreate() {
+		Vector theServers = new Vector();
+		theServers.addElement("ns1.example.com");
+		theServers.addElement("ns2.example.com");
+
+		Vector theContacts = new Vector();
+		theContacts.addElement(new EPPDomainContact("SH8013-VRSN",
+				EPPDomainContact.TYPE_ADMINISTRATIVE));
+		theContacts.addElement(new EPPDomainContact("SH8013-VRSN",
+				EPPDomainContact.TYPE_TECHNICAL));
+
+		return new EPPDomainCreateCmd("ABC-12345", "example.com", theServers,
+				theContacts, new EPPDomainPeriod(2), new EPPAuthInfo("2fooBAR"));
+	}
+
+	/**
+	 * Creates a host create command with IPv4 and IPv6 addresses.
+	 * 
+	 * @return Host create command
+	 */
+	private static EPPMessage createHostCreate() {
+		Vector theAddresses = new Vector();
+		theAddresses.addElement(new EPPHostAddress("192.1.2.3"));
+		theAddresses.addElement(new EPPHostAddress("198.1.2.3", EPPHostAddress.IPV4));
+		theAddresses.addElement(new EPPHostAddress("1080:0:0:0:8:800:200C:417A",
+				EPPHostAddress.IPV6));
+		return new EPPHostCreateCmd("ABC-12345", "ns1.example.com", theAddresses);
+	}
+
+	/**
+	 * Creates a contact create command with a postal address and phone
+	 * numbers.
+	 * 
+	 * @return Contact create command
+	 */
+	private static EPPMessage createContactCreate() {
+		Vector theStreets = new Vector();
+		theStreets.addElement("123 Example Dr.");
+		theStreets.addElement("Suite 100");
+
+		EPPContactAddress theAddress = new EPPContactAddress(theStreets,
+				"Dulles", "VA", "20166-6503", "US");
+		EPPContactPostalDefinition thePostal = new EPPContactPostalDefinition(
+				"John Doe", "Example Inc.",
+				EPPContactPostalDefinition.ATTR_TYPE_LOC, theAddress);
+
+		EPPContactCreateCmd theCommand = new EPPContactCreateCmd("ABC-12345",
+				"sh8013", thePostal, "jdoe@example.com", new EPPAuthInfo("2fooBAR"));
+		theCommand.setVoice("+1.7035555555");
+		theCommand.setVoiceExt("456");
+		theCommand.setFax("+1.7035555556");
+		return theCommand;
+	}
+
+	/**
+	 * Creates a domain create command with the secDNS 1.0 extension of two
+	 * DS records.
+	 * 
+	 * @return Domain create command with the secDNS 1.0 extension
+	 */
+	private static EPPMessage createSecDNS10Create() {
+		EPPDomainCreateCmd theCommand = createDomainCreate();
+
+		com.verisign.epp.codec.secdnsext.v10.EPPSecDNSExtKeyData theKeyData = 
+			new com.verisign.epp.codec.secdnsext.v10.EPPSecDNSExtKeyData(
+				com.verisign.epp.codec.secdnsext.v10.EPPSecDNSExtKeyData.FLAGS_ZONE_KEY_SEP,
+				com.verisign.epp.codec.secdnsext.v10.EPPSecDNSExtKeyData.DEFAULT_PROTOCOL,
+				com.verisign.epp.codec.secdnsext.v10.EPPSecDNSAlgorithm.RSASHA1, PUB_KEY);
+
+		Vector theDsData = new Vector();
+		theDsData.add(new com.verisign.epp.codec.secdnsext.v10.EPPSecDNSExtDsData(
+				34095, com.verisign.epp.codec.secdnsext.v10.EPPSecDNSAlgorithm.RSASHA1,
+				com.verisign.epp.codec.secdnsext.v10.EPPSecDNSExtDsData.SHA1_DIGEST_TYPE,
+				"6BD4FFFF11566D6E6A5BA44ED0018797564AA289", 604800, theKeyData));
+		theDsData.add(new com.verisign.epp.codec.secdnsext.v10.EPPSecDNSExtDsData(
+				10563, com.verisign.epp.codec.secdnsext.v10.EPPSecDNSAlgorithm.RSASHA1,
+				com.verisign.epp.codec.secdnsext.v10.EPPSecDNSExtDsData.SHA1_DIGEST_TYPE,
+				"9C20674BFF957211D129B0DFE9410AF753559D4B", 604800, theKeyData));
+
+		com.verisign.epp.codec.secdnsext.v10.EPPSecDNSExtCreate theCreate = 
+			new com.verisign.epp.codec.secdnsext.v10.EPPSecDNSExtCreate();
+		theCreate.setDsData(theDsData);
+		theCommand.addExtension(theCreate);
+
+		return theCommand;
+	}
+
+	/**
+	 * Creates the secDNS 1.1 DS records used by the secDNS 1.1 messages.
+	 * 
+	 * @return <code>List</code> of two <code>EPPSecDNSExtDsData</code>
+	 * instances
+	 */
+	private static List createSecDNS11DsData() {
+		EPPSecDNSExtKeyData theKeyData = new EPPSecDNSExtKeyData(
+				EPPSecDNSExtKeyData.FLAGS_ZONE_KEY_SEP,
+				EPPSecDNSExtKeyData.DEFAULT_PROTOCOL, EPPSecDNSAlgorithm.RSASHA1,
+				PUB_KEY);
+
+		List theDsData = new ArrayList();
+		theDsData.add(new EPPSecDNSExtDsData(34095, EPPSecDNSAlgorithm.RSASHA1,
+				EPPSecDNSExtDsData.SHA1_DIGEST_TYPE,
+				"6BD4FFFF11566D6E6A5BA44ED0018797564AA289", theKeyData));
+		theDsData.add(new EPPSecDNSExtDsData(10563, EPPSecDNSAlgorithm.RSASHA1,
+				EPPSecDNSExtDsData.SHA1_DIGEST_TYPE,
+				"9C20674BFF957211D129B0DFE9410AF753559D4B", theKeyData));
+		return theDsData;
+	}
+
+	/**
+	 * Creates a domain create command with the secDNS 1.1 extension of two
+	 * DS records.
+	 * 
+	 * @return Domain create command with the secDNS 1.1 extension
+	 */
+	private static EPPMessage createSecDNS11Create() {
+		EPPDomainCreateCmd theCommand = createDomainCreate();
+
+		EPPSecDNSExtCreate theCreate = new EPPSecDNSExtCreate();
+		theCreate.setMaxSigLife(604800);
+		theCreate.setDsData(createSecDNS11DsData());
+		theCommand.addExtension(theCreate);
+
+		return theCommand;
+	}
+
+	/**
+	 * Creates a domain info response with the secDNS 1.1 info data of two DS
+	 * records.
+	 * 
+	 * @return Domain info response with the secDNS 1.1 extension
+	 */
+	private static EPPMessage createSecDNS11InfoResp() {
+		EPPDomainInfoResp theResponse = createDomainInfoResp();
+
+		EPPSecDNSExtInfData theInfData = new EPPSecDNSExtInfData();
+		theInfData.setMaxSigLife(604800);
+		theInfData.setDsData(createSecDNS11DsData());
+		theResponse.addExtension(theInfData);
+
+		return theResponse;
+	}
+
+	/**
+	 * Creates a domain update command with the RGP restore request.
+	 * 
+	 * @return Domain update command with the RGP extension
+	 */
+	private static EPPMessage createRgpRestore() {
+		EPPDomainUpdateCmd theCommand = new EPPDomainUpdateCmd("ABC-12345",
+				"example.com", null, null, null);
+		theCommand.addExtension(new EPPRgpExtUpdate(new EPPRgpExtRestore()));
+		return theCommand;
+	}
+
+	/**
+	 * Creates a domain info response with the RGP info data.
+	 * 
+	 * @return Domain info response with the RGP extension
+	 */
+	private static EPPMessage createRgpInfoResp() {
+		EPPDomainInfoResp theResponse = createDomainInfoResp();
+
+		EPPRgpExtStatus theStatus = new EPPRgpExtStatus();
+		theStatus.setStatus(EPPRgpExtStatus.AUTO_RENEW_PERIOD);
+		EPPRgpExtInfData theInfData = new EPPRgpExtInfData();
+		theInfData.addStatus(theStatus);
+		theResponse.addExtension(theInfData);
+
+		return theResponse;
+	}
+
+	/**
+	 * Creates a registry check command of two zones.
+	 * 
+	 * @return Registry check command
+	 */
+	private static EPPMessage createRegistryCheck() {
+		EPPRegistryCheckCmd theCommand = new EPPRegistryCheckCmd("ABC-12345", "com");
+		theCommand.addName("availtld");
+		return theCommand;
+	}
+
+	/**
+	 * Creates a registry check response of two zones.
+	 * 
+	 * @return Registry check response
+	 */
+	private static EPPMessage createRegistryCheckResp() {
+		List theResults = new ArrayList();
+		EPPRegistryCheckResult theResult = new EPPRegistryCheckResult("com", Boolean.FALSE);
+		theResult.setReason("Already taken");
+		theResults.add(theResult);
+		theResults.add(new EPPRegistryCheckResult("availtld", Boolean.TRUE));
+
+		return createResponse(new EPPRegistryCheckResp(null, theResults));
+	}
+
+	/**
+	 * Creates a domain create command with the IDN language tag extension.
+	 * 
+	 * @return Domain create command with the IDN extension
+	 */
+	private static EPPMessage createIdnCreate() {
+		EPPDomainCreateCmd theCommand = createDomainCreate();
+		theCommand.addExtension(new EPPIdnLangTag("en"));
+		return theCommand;
+	}
+
+	/**
+	 * Creates a domain create command with the NameStore extension.
+	 * 
+	 * @return Domain create command with the NameStore extension
+	 */
+	private static EPPMessage createNamestoreExtCreate() {
+		EPPDomainCreateCmd theCommand = createDomainCreate();
+		theCommand.addExtension(new EPPNamestoreExtNamestoreExt("dotCOM"));
+		return theCommand;
+	}
+
+	/**
+	 * Creates a domain update command with the ConsoliDate sync extension.
+	 * 
+	 * @return Domain update command with the sync extension
+	 */
+	private static EPPMessage createSyncUpdate() {
+		EPPDomainUpdateCmd theCommand = new EPPDomainUpdateCmd("example.com");
+		theCommand.setTransId("ABC-12345");
+
+		EPPSyncExtUpdate theSync = new EPPSyncExtUpdate();
+		theSync.setMonth(Calendar.DECEMBER);
+		theSync.setDay(30);
+		theCommand.addExtension(theSync);
+
+		return theCommand;
+	}
+
+	/**
+	 * Creates a domain check command with the premium domain extension.
+	 * 
+	 * @return Domain check command with the premium domain extension
+	 */
+	private static EPPMessage createPremiumDomainCheck() {
+		EPPDomainCheckCmd theCommand = createDomainCheck();
+		theCommand.addExtension(new EPPPremiumDomainCheck(true));
+		return theCommand;
+	}
+
+	/**
+	 * Creates a domain check response with the premium domain extension.
+	 * 
+	 * @return Domain check response with the premium domain extension
+	 */
+	private static EPPMessage createPremiumDomainCheckResp() {
+		EPPResponse theResponse = createResponse(new EPPDomainCheckResp(null,
+				new EPPDomainCheckResult("example.tv", true)));
+
+		EPPPremiumDomainCheckResult theResult = new EPPPremiumDomainCheckResult(
+				"example.tv", true);
+		theResult.setPrice(new BigDecimal("125.00"));
+		theResult.setRenewalPrice(new BigDecimal("75.00"));
+		theResult.setPriceUnit(EPPPremiumDomainCheckResult.PRICE_UNIT_USD);
+		theResponse.addExtension(new EPPPremiumDomainCheckResp(theResult));
+
+		return theResponse;
+	}
+
+	/**
+	 * Creates an email forwarding create command with contacts and a period.
+	 * 
+	 * @return Email forwarding create command
+	 */
+	private static EPPMessage createEmailFwdCreate() {
+		Vector theContacts = new Vector();
+		theContacts.addElement(new EPPEmailFwdContact("SH8013-VRSN",
+				EPPEmailFwdContact.TYPE_ADMINISTRATIVE));
+		theContacts.addElement(new EPPEmailFwdContact("SH8013-VRSN",
+				EPPEmailFwdContact.TYPE_TECHNICAL));
+
+		return new EPPEmailFwdCreateCmd("ABC-12345", "john@example.name",
+				"john@yahoo.com", theContacts, new EPPEmailFwdPeriod(2),
+				new EPPAuthInfo("2fooBAR"));
+	}
+
+	/**
+	 * Creates a name watch create command with a period.
+	 * 
+	 * @return Name watch create command
+	 */
+	private static EPPMessage createNameWatchCreate() {
+		EPPNameWatchCreateCmd theCommand = new EPPNameWatchCreateCmd(
+				"ABC-12345", "doe", "jd1234", new EPPNameWatchRptTo("weekly",
+						"jdoe@example.com"), new EPPAuthInfo("2fooBAR"));
+		theCommand.setPeriod(new EPPNameWatchPeriod(1));
+		return theCommand;
+	}
+
+	/**
+	 * Creates a balance info response with a fixed credit threshold.
+	 * 
+	 * @return Balance info response
+	 */
+	private static EPPMessage createBalanceInfoResp() {
+		return createResponse(new EPPBalanceInfoResp(null,
+				new BigDecimal("1000.00"), new BigDecimal("200.00"),
+				new BigDecimal("800.00"), new EPPCreditThreshold(
+						EPPCreditThreshold.FIXED, new BigDecimal("500.00"))));
+	}
+
+	/**
+	 * Creates a low balance poll response.
+	 * 
+	 * @return Low balance poll response
+	 */
+	private static EPPMessage createLowBalancePoll() {
+		EPPLowBalancePollResponse theResponse = new EPPLowBalancePollResponse();
+		theResponse.setTransId(new EPPTransId("ABC-12345", "54321-XYZ"));
+		theResponse.setResult(EPPResult.SUCCESS_POLL_MSG);
+		theResponse.setMsgQueue(new EPPMsgQueue(new Long(5), "12345",
+				createDate(2012, Calendar.JANUARY, 1), "Low Account Balance (SRS)"));
+		theResponse.setRegistrarName("Test Registar");
+		theResponse.setCreditLimit("1000");
+		theResponse.setCreditThreshold(new EPPLowBalancePollThreshold(
+				EPPLowBalancePollThreshold.FIXED, "50"));
+		theResponse.setAvailableCredit("40");
+		return theResponse;
+	}
+
+	/**
+	 * Creates a Who Was info command of a domain name.
+	 * 
+	 * @return Who Was info command
+	 */
+	private static EPPMessage createWhoWasInfo() {
+		EPPWhoWasInfoCmd theCommand = new EPPWhoWasInfoCmd("ABC-12345",
+				EPPWhoWasConstants.TYPE_DOMAIN);
+		theCommand.setName("example.com");
+		return theCommand;
+	}
+
+	/**
+	 * Creates a Who Was info response with one history record.
+	 * 
+	 * @return Who Was info response
+	 */
+	private static EPPMessage createWhoWasInfoResp() {
+		EPPWhoWasRecord theRecord = new EPPWhoWasRecord();
+		theRecord.setTransactionDate(createDate(2012, Calendar.JANUARY, 1));
+		theRecord.setName("example.com");
+		theRecord.setOperation("CREATE");
+		theRecord.setRoid("EXAMPLE1-REP");
+		theRecord.setClientID("ClientX");
+		theRecord.setClientName("Client X Corp");
+
+		EPPWhoWasHistory theHistory = new EPPWhoWasHistory();
+		theHistory.addRecord(theRecord);
+
+		EPPWhoWasInfoResp theResponse = new EPPWhoWasInfoResp(new EPPTransId(
+				"ABC-12345", "54321-XYZ"), EPPWhoWasConstants.TYPE_DOMAIN);
+		theResponse.setName("example.com");
+		theResponse.setHistory(theHistory);
+		theResponse.setResult(EPPResult.SUCCESS);
+		return theResponse;
+	}
+
+	/**
+	 * Creates a suggestion info command with the generator of the
+	 * suggestion codec unit test, which is reset to the same seed so that
+	 * every benchmark run gets the same command.
+	 * 
+	 * @return Suggestion info command
+	 * @throws EPPCodecException Error creating the command
+	 */
+	private static EPPMessage createSuggestionInfo() throws EPPCodecException {
+		try {
+			RandomHelper.reset(0);
+			return RandomHelper.getCommand();
+		}
+		catch (InvalidValueException ex) {
+			throw new EPPCodecException("Error creating suggestion info command: " + ex);
+		}
+	}
+
+	/**
+	 * Creates a suggestion info response with a table of suggestions, with
+	 * the generator of the suggestion codec unit test reset to the same
+	 * seed.
+	 * 
+	 * @return Suggestion info response
+	 * @throws EPPCodecException Error creating the response
+	 */
+	private static EPPMessage createSuggestionInfoResp() throws EPPCodecException {
+		try {
+			RandomHelper.reset(0);
+			return RandomHelper.getResponse("ABC-12345");
+		}
+		catch (InvalidValueException ex) {
+			throw new EPPCodecException("Error creating suggestion info response: " + ex);
+		}
+	}
+
+}
+
+// End class EPPBenchMessages
@@ -0,0 +1,208 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.bench;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.varia.NullAppender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+
+import com.verisign.epp.codec.gen.EPPCodec;
+import com.verisign.epp.codec.gen.EPPMessage;
+import com.verisign.epp.exception.EPPException;
+import com.verisign.epp.util.EPPObjectPool;
+import com.verisign.epp.util.EPPSchemaCachingParser;
+import com.verisign.epp.util.EPPTransformer;
+import com.verisign.epp.util.EPPXMLByteArray;
+import com.verisign.epp.util.Environment;
+
+/**
+ * JMH benchmark of the encode and decode of the messages of
+ * {@link EPPBenchMessages}, which covers the path of a message between the
+ * <code>EPPMessage</code> and the packet bytes:<br>
+ * <br>
+ * <ul>
+ * <li><code>encode</code> - <code>EPPCodec.encode</code> of the message
+ * and the serialization of the DOM <code>Document</code> to bytes.</li>
+ * <li><code>decode</code> - Parsing of the packet bytes with the
+ * <code>EPPSchemaCachingParser</code> and <code>EPPCodec.decode</code> of
+ * the DOM <code>Document</code>.</li>
+ * <li><code>roundTrip</code> - <code>encode</code> followed by
+ * <code>decode</code>.</li>
+ * </ul>
+ * <br>
+ * Each message is run with a validating and a non-validating parser based
+ * on the <code>validating</code> parameter.  The parser and the transformer
+ * are taken from <code>EPPObjectPool</code> pools like with
+ * <code>EPPApplication</code>.  The <code>EPP.Validating</code> setting is
+ * read when a parser is created, so each trial must run in a fork of its
+ * own, which is the default.  The bytes allocated per operation are reported
+ * by the JMH GC profiler (<code>-prof gc</code>) as
+ * <code>gc.alloc.rate.norm</code>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class EPPCodecBenchmark {
+
+	/** Number of parsers and transformers in the pools */
+	private static final int POOL_SIZE = 4;
+
+	/**
+	 * Name of the message to benchmark from <code>EPPBenchMessages</code>,
+	 * which must match the names in <code>EPPBenchMessages.NAMES</code>.
+	 */
+	@Param({ "gen.login", "gen.poll", "gen.response", 
+			"domain.check", "domain.checkResp", "domain.info", "domain.infoResp",
+			"domain.create", "domain.renew", 
+			"host.create", "host.createResp", 
+			"contact.create", "contact.createResp",
+			"secdns10.create", "secdns11.create", "secdns11.infoResp",
+			"rgp.restore", "rgp.infoResp", 
+			"registry.check", "registry.checkResp",
+			"idn.create", "namestoreext.create", "sync.update",
+			"premiumdomain.check", "premiumdomain.checkResp", 
+			"emailfwd.create", "defreg.create", "namewatch.create",
+			"balance.info", "balance.infoResp", "lowbalance.poll",
+			"whowas.info", "whowas.infoResp", 
+			"suggestion.info", "suggestion.infoResp" })
+	public String message;
+
+	/** Use a validating parser? */
+	@Param({ "true", "false" })
+	public boolean validating;
+
+	/** Codec used to encode and decode the message */
+	private EPPCodec codec;
+
+	/** Byte array assembler using the parser and transformer pools */
+	private EPPXMLByteArray byteArray;
+
+	/** Message to encode */
+	private EPPMessage eppMessage;
+
+	/** Encoded packet of <code>eppMessage</code> to decode */
+	private byte[] packet;
+
+	/**
+	 * Initializes the SDK environment, the codec, the pools, and the
+	 * message of the trial.  The message is encoded and decoded once to
+	 * fail the trial up front when the message is not valid.
+	 * 
+	 * @throws Exception Error initializing the trial
+	 */
+	@Setup
+	public void setUp() throws Exception {
+		// Turn logging off, so that only the codec is measured
+		Logger theRoot = Logger.getRootLogger();
+		theRoot.removeAllAppenders();
+		theRoot.addAppender(new NullAppender());
+		theRoot.getLoggerRepository().setThreshold(Level.OFF);
+
+		Properties theProps = new Properties();
+		theProps.setProperty("EPP.Validating", String.valueOf(this.validating));
+		theProps.setProperty("EPP.FullSchemaChecking", String.valueOf(this.validating));
+		Environment.setProperties(theProps);
+
+		EPPBenchMessages.initCodec();
+		this.codec = EPPCodec.getInstance();
+
+		if (EPPObjectPool.getPool(EPPSchemaCachingParser.POOL) == null) {
+			EPPObjectPool.addPool(new EPPObjectPool<EPPSchemaCachingParser>(
+					EPPSchemaCachingParser.POOL,
+					"com.verisign.epp.util.EPPSchemaCachingParser", POOL_SIZE,
+					POOL_SIZE, POOL_SIZE, 0));
+		}
+		if (EPPObjectPool.getPool(EPPTransformer.POOL) == null) {
+			EPPObjectPool.addPool(new EPPObjectPool<EPPTransformer>(
+					EPPTransformer.POOL, "com.verisign.epp.util.EPPTransformer",
+					POOL_SIZE, POOL_SIZE, POOL_SIZE, 0));
+		}
+		this.byteArray = new EPPXMLByteArray(EPPSchemaCachingParser.POOL,
+				EPPTransformer.POOL);
+
+		this.eppMessage = EPPBenchMessages.createMessage(this.message);
+		this.packet = this.encode();
+
+		EPPMessage theDecoded = this.decode();
+		if (!this.eppMessage.getClass().equals(theDecoded.getClass())) {
+			throw new EPPException("Message " + this.message + " decoded to "
+					+ theDecoded.getClass().getName() + " instead of "
+					+ this.eppMessage.getClass().getName());
+		}
+	}
+
+	/**
+	 * Benchmark of the encode of the message to the packet bytes.
+	 * 
+	 * @return Encoded packet
+	 * @throws EPPException Error encoding the message
+	 */
+	@Benchmark
+	public byte[] encode() throws EPPException {
+		Document theDoc = this.codec.encode(this.eppMessage);
+		return this.byteArray.encode(theDoc);
+	}
+
+	/**
+	 * Benchmark of the decode of the packet bytes to the message.
+	 * 
+	 * @return Decoded message
+	 * @throws Exception Error decoding the packet
+	 */
+	@Benchmark
+	public EPPMessage decode() throws Exception {
+		Document theDoc = this.byteArray.decode(this.packet);
+		return this.codec.decode(theDoc);
+	}
+
+	/**
+	 * Benchmark of the encode of the message followed by the decode of the
+	 * encoded packet.
+	 * 
+	 * @return Decoded message
+	 * @throws Exception Error encoding or decoding the message
+	 */
+	@Benchmark
+	public EPPMessage roundTrip() throws Exception {
+		Document theDoc = this.byteArray.decode(this.encode());
+		return this.codec.decode(theDoc);
+	}
+
+}
+
+// End class EPPCodecBenchmark
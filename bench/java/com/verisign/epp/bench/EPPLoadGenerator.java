@@ -0,0 +1,487 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.bench;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.verisign.epp.codec.gen.EPPResponse;
+import com.verisign.epp.interfaces.EPPApplicationSingle;
+import com.verisign.epp.interfaces.EPPCommandException;
+import com.verisign.epp.interfaces.EPPDomain;
+import com.verisign.epp.interfaces.EPPSession;
+import com.verisign.epp.pool.EPPSessionPool;
+import com.verisign.epp.pool.EPPSessionPoolException;
+import com.verisign.epp.util.Environment;
+
+/**
+ * End-to-end load generator that drives a weighted mix of domain check,
+ * info, create, renew, and poll commands through <code>EPPSessionPool</code>
+ * against an EPP server, which is normally the stub server
+ * (<code>com.verisign.epp.serverstub.Server</code>) started with the same
+ * configuration file.  The transport (plain or SSL) is selected by
+ * <code>EPP.ClientSocketName</code> in the configuration file.<br>
+ * <br>
+ * The load is generated by <code>load.threads</code> worker threads that
+ * share <code>load.sessions</code> pooled sessions, so with more threads than
+ * sessions the threads wait on the pool like the threads of a registrar
+ * application.  Each worker borrows a session, executes the next command of
+ * the profile, records the latency, and returns the session.  A command that
+ * fails with a response from the server is recorded as an error of the
+ * command and session, while a command that fails without a response
+ * (connection error) also invalidates the session.  The commands executed
+ * during the warm-up period are not recorded.<br>
+ * <br>
+ * The following system properties are supported:<br>
+ * <ul>
+ * <li><code>EPP.ConfigFile</code> - Configuration file. The default is
+ * <code>epp-load.config</code>, and it can also be passed as the first
+ * argument.</li>
+ * <li><code>load.sessions</code> - Number of sessions in the pool. The default
+ * is 10.</li>
+ * <li><code>load.threads</code> - Number of worker threads. The default is 20.</li>
+ * <li><code>load.warmup</code> - Warm-up period in seconds. The default is 10.</li>
+ * <li><code>load.duration</code> - Measured period in seconds. The default is 60.</li>
+ * <li><code>load.profile</code> - Command mix as defined by
+ * <code>EPPLoadProfile</code>. The default is
+ * <code>check=40,info=30,create=10,renew=10,poll=10</code>.</li>
+ * <li><code>load.csv</code> - CSV file to write the results to. No CSV file is
+ * written if not set.</li>
+ * <li><code>load.json</code> - JSON file to write the results to. No JSON file
+ * is written if not set.</li>
+ * </ul>
+ *
+ * @see EPPLoadProfile
+ * @see EPPLoadStats
+ */
+public class EPPLoadGenerator {
+
+	/** Default configuration file */
+	public static final String DEFAULT_CONFIG_FILE = "epp-load.config";
+
+	/** Default command mix */
+	public static final String DEFAULT_PROFILE = "check=40,info=30,create=10,renew=10,poll=10";
+
+	/** Domain name used for the check, info, and renew commands */
+	private static final String DOMAIN_NAME = "example.com";
+
+	/** Authorization information set in the create command */
+	private static final String AUTH_INFO = "2fooBAR";
+
+	/** Configuration file */
+	private String configFile;
+
+	/** Number of sessions in the pool */
+	private int sessions;
+
+	/** Number of worker threads */
+	private int threads;
+
+	/** Warm-up period in seconds */
+	private int warmup;
+
+	/** Measured period in seconds */
+	private int duration;
+
+	/** Command mix */
+	private EPPLoadProfile profile;
+
+	/** Client socket class of the transport, which is set once the configuration is loaded */
+	private String clientSocket = null;
+
+	/**
+	 * Statistics the workers record to.  Replaced at the end of the warm-up
+	 * period, so that the warm-up commands are discarded.
+	 */
+	private volatile EPPLoadStats stats = new EPPLoadStats();
+
+	/** Are the workers running? */
+	private volatile boolean running = true;
+
+	/** Current expiration date of <code>DOMAIN_NAME</code> used in the renew command */
+	private java.util.Date expirationDate;
+
+	/**
+	 * Worker thread that executes the commands of the profile until the run
+	 * is stopped.
+	 */
+	private class Worker extends Thread {
+
+		/** Random number generator of the worker */
+		private Random random;
+
+		/** Worker index used to create unique domain names and transaction ids */
+		private int index;
+
+		/** Sequence of the commands executed by the worker */
+		private long sequence = 0;
+
+		/**
+		 * Creates a worker.
+		 *
+		 * @param aIndex Worker index
+		 */
+		Worker(int aIndex) {
+			super("EPPLoadGenerator-" + aIndex);
+			this.index = aIndex;
+			this.random = new Random(aIndex);
+			this.setDaemon(true);
+		}
+
+		/**
+		 * Executes commands until the run is stopped.
+		 */
+		public void run() {
+			while (running) {
+				String theCommand = profile.nextCommand(this.random);
+
+				EPPSession theSession;
+				try {
+					theSession = EPPSessionPool.getInstance().borrowObject();
+				}
+				catch (EPPSessionPoolException ex) {
+					stats.recordBorrowError();
+					continue;
+				}
+
+				boolean isInvalid = false;
+				try {
+					execute(theCommand, theSession);
+				}
+				catch (EPPCommandException ex) {
+					stats.recordError(theCommand, getSessionId(theSession));
+					isInvalid = !ex.hasResponse();
+				}
+				catch (RuntimeException ex) {
+					stats.recordError(theCommand, getSessionId(theSession));
+					isInvalid = true;
+				}
+				finally {
+					release(theSession, isInvalid);
+				}
+			}
+		}
+
+		/**
+		 * Executes a command with a session and records its latency.
+		 *
+		 * @param aCommand Command to execute
+		 * @param aSession Session to execute the command with
+		 *
+		 * @throws EPPCommandException Error executing the command
+		 */
+		private void execute(String aCommand, EPPSession aSession) throws EPPCommandException {
+			String theTransId = "LOAD-" + this.index + "-" + (++this.sequence);
+			long theStart = System.nanoTime();
+
+			if (aCommand.equals(EPPLoadProfile.CMD_POLL)) {
+				aSession.setTransId(theTransId);
+				aSession.setPollOp(EPPSession.OP_REQ);
+				EPPResponse theResponse = aSession.sendPoll();
+				stats.recordLatency(aCommand, System.nanoTime() - theStart);
+
+				// Acknowledge the returned message, recorded as a separate command
+				if (theResponse.getMsgQueue() != null && theResponse.getMsgQueue().getId() != null) {
+					String theAckCommand = EPPLoadProfile.CMD_ACK;
+					try {
+						theStart = System.nanoTime();
+						aSession.setTransId(theTransId + "-ACK");
+						aSession.setPollOp(EPPSession.OP_ACK);
+						aSession.setMsgID(theResponse.getMsgQueue().getId());
+						aSession.sendPoll();
+						stats.recordLatency(theAckCommand, System.nanoTime() - theStart);
+					}
+					catch (EPPCommandException ex) {
+						stats.recordError(theAckCommand, getSessionId(aSession));
+						if (!ex.hasResponse()) {
+							throw ex;
+						}
+					}
+				}
+				return;
+			}
+
+			EPPDomain theDomain = new EPPDomain(aSession);
+			theDomain.setTransId(theTransId);
+
+			if (aCommand.equals(EPPLoadProfile.CMD_CHECK)) {
+				theDomain.addDomainName(DOMAIN_NAME);
+				theDomain.sendCheck();
+			}
+			else if (aCommand.equals(EPPLoadProfile.CMD_INFO)) {
+				theDomain.addDomainName(DOMAIN_NAME);
+				theDomain.sendInfo();
+			}
+			else if (aCommand.equals(EPPLoadProfile.CMD_CREATE)) {
+				theDomain.addDomainName("load-" + this.index + "-" + this.sequence + ".com");
+				theDomain.setAuthString(AUTH_INFO);
+				theDomain.sendCreate();
+			}
+			else if (aCommand.equals(EPPLoadProfile.CMD_RENEW)) {
+				theDomain.addDomainName(DOMAIN_NAME);
+				theDomain.setExpirationDate(expirationDate);
+				theDomain.setPeriodLength(1);
+				theDomain.sendRenew();
+			}
+			else {
+				throw new IllegalArgumentException("EPPLoadGenerator: Unsupported command " + aCommand);
+			}
+
+			stats.recordLatency(aCommand, System.nanoTime() - theStart);
+		}
+
+		/**
+		 * Returns a session to the pool or invalidates it.
+		 *
+		 * @param aSession Session to release
+		 * @param aInvalid Invalidate the session?
+		 */
+		private void release(EPPSession aSession, boolean aInvalid) {
+			try {
+				if (aInvalid) {
+					stats.recordInvalidatedSession();
+					EPPSessionPool.getInstance().invalidateObject(aSession);
+				}
+				else {
+					EPPSessionPool.getInstance().returnObject(aSession);
+				}
+			}
+			catch (EPPSessionPoolException ex) {
+				System.err.println(this.getName() + ": Error releasing session "
+						+ getSessionId(aSession) + ": " + ex);
+			}
+		}
+	}
+
+	/**
+	 * Creates the load generator from the system properties.
+	 *
+	 * @param aConfigFile Configuration file to use or <code>null</code> to use
+	 * the <code>EPP.ConfigFile</code> system property.
+	 *
+	 * @throws IllegalArgumentException Invalid system property
+	 */
+	public EPPLoadGenerator(String aConfigFile) throws IllegalArgumentException {
+		this.configFile = aConfigFile;
+		if (this.configFile == null) {
+			this.configFile = System.getProperty("EPP.ConfigFile", DEFAULT_CONFIG_FILE);
+		}
+		this.sessions = getIntProperty("load.sessions", 10, 1);
+		this.threads = getIntProperty("load.threads", 20, 1);
+		this.warmup = getIntProperty("load.warmup", 10, 0);
+		this.duration = getIntProperty("load.duration", 60, 1);
+		this.profile = new EPPLoadProfile(System.getProperty("load.profile", DEFAULT_PROFILE));
+
+		GregorianCalendar theCal = new GregorianCalendar();
+		theCal.set(Calendar.MILLISECOND, 0);
+		theCal.add(Calendar.YEAR, 1);
+		this.expirationDate = theCal.getTime();
+	}
+
+	/**
+	 * Gets an integer system property.
+	 *
+	 * @param aName Property name
+	 * @param aDefault Default value if the property is not set
+	 * @param aMin Minimum value
+	 *
+	 * @return Property value
+	 *
+	 * @throws IllegalArgumentException The property is not a valid integer or
+	 * is less than <code>aMin</code>
+	 */
+	private static int getIntProperty(String aName, int aDefault, int aMin) throws IllegalArgumentException {
+		String theValue = System.getProperty(aName);
+		if (theValue == null || theValue.trim().length() == 0) {
+			return aDefault;
+		}
+
+		int theInt;
+		try {
+			theInt = Integer.parseInt(theValue.trim());
+		}
+		catch (NumberFormatException ex) {
+			throw new IllegalArgumentException("EPPLoadGenerator: Invalid " + aName + " value " + theValue);
+		}
+		if (theInt < aMin) {
+			throw new IllegalArgumentException("EPPLoadGenerator: " + aName + " must be at least " + aMin);
+		}
+		return theInt;
+	}
+
+	/**
+	 * Gets an identifier of a session used to count the errors per session.
+	 *
+	 * @param aSession Session
+	 *
+	 * @return Identifier of the session instance
+	 */
+	private static String getSessionId(EPPSession aSession) {
+		return "session-" + Integer.toHexString(System.identityHashCode(aSession));
+	}
+
+	/**
+	 * Gets the settings of the run, which are included in the JSON results.
+	 *
+	 * @return Settings by name
+	 */
+	private Map<String, String> getSettings() {
+		Map<String, String> theSettings = new LinkedHashMap<String, String>();
+		theSettings.put("config", this.configFile);
+		if (this.clientSocket != null) {
+			theSettings.put("clientSocket", this.clientSocket);
+		}
+		theSettings.put("sessions", Integer.toString(this.sessions));
+		theSettings.put("threads", Integer.toString(this.threads));
+		theSettings.put("warmupSeconds", Integer.toString(this.warmup));
+		theSettings.put("durationSeconds", Integer.toString(this.duration));
+		theSettings.put("profile", this.profile.toString());
+		return theSettings;
+	}
+
+	/**
+	 * Runs the load by initializing the application and the session pool,
+	 * running the workers for the warm-up and measured periods, and closing
+	 * the session pool.
+	 *
+	 * @return Statistics of the measured period
+	 *
+	 * @throws EPPCommandException Error initializing the application
+	 * @throws EPPSessionPoolException Error initializing the session pool
+	 * @throws InterruptedException Interrupted while waiting for the run to complete
+	 */
+	public EPPLoadStats run() throws EPPCommandException, EPPSessionPoolException, InterruptedException {
+		EPPApplicationSingle theApp = EPPApplicationSingle.getInstance();
+		theApp.initialize(this.configFile);
+		this.clientSocket = Environment.getProperty("EPP.ClientSocketName");
+
+		// Size the pool to hold exactly the sessions under test
+		String theSessions = Integer.toString(this.sessions);
+		Environment.setProperty("EPP.SessionPool.minIdle", theSessions);
+		Environment.setProperty("EPP.SessionPool.maxIdle", theSessions);
+		Environment.setProperty("EPP.SessionPool.maxActive", theSessions);
+		EPPSessionPool.getInstance().init();
+
+		try {
+			Worker[] theWorkers = new Worker[this.threads];
+			for (int i = 0; i < theWorkers.length; i++) {
+				theWorkers[i] = new Worker(i);
+				theWorkers[i].start();
+			}
+
+			if (this.warmup > 0) {
+				Thread.sleep(TimeUnit.SECONDS.toMillis(this.warmup));
+				this.stats = new EPPLoadStats();
+			}
+
+			Thread.sleep(TimeUnit.SECONDS.toMillis(this.duration));
+			EPPLoadStats theStats = this.stats;
+			theStats.stop();
+			this.running = false;
+
+			// Wait for the in-flight commands, which are still counted
+			for (int i = 0; i < theWorkers.length; i++) {
+				theWorkers[i].join(TimeUnit.SECONDS.toMillis(60));
+			}
+
+			return theStats;
+		}
+		finally {
+			this.running = false;
+			EPPSessionPool.getInstance().close();
+			theApp.endApplication();
+		}
+	}
+
+	/**
+	 * Writes the statistics to a file.
+	 *
+	 * @param aStats Statistics to write
+	 * @param aFileName Name of the file
+	 * @param aIsJson Write JSON (<code>true</code>) or CSV (<code>false</code>)?
+	 *
+	 * @throws IOException Error writing the file
+	 */
+	private void writeFile(EPPLoadStats aStats, String aFileName, boolean aIsJson) throws IOException {
+		File theFile = new File(aFileName);
+		if (theFile.getParentFile() != null) {
+			theFile.getParentFile().mkdirs();
+		}
+
+		Writer theWriter = new OutputStreamWriter(new FileOutputStream(theFile), "UTF-8");
+		try {
+			if (aIsJson) {
+				aStats.writeJson(theWriter, getSettings());
+			}
+			else {
+				aStats.writeCsv(theWriter);
+			}
+		}
+		finally {
+			theWriter.close();
+		}
+		System.out.println("Results written to " + theFile.getPath());
+	}
+
+	/**
+	 * Runs the load generator with the settings defined by the system
+	 * properties and prints the summary of the results.
+	 *
+	 * @param args Optional configuration file name
+	 */
+	public static void main(String[] args) {
+		try {
+			EPPLoadGenerator theGenerator = new EPPLoadGenerator(args.length > 0 ? args[0] : null);
+
+			System.out.println("EPPLoadGenerator: " + theGenerator.getSettings());
+			EPPLoadStats theStats = theGenerator.run();
+
+			theStats.writeSummary(new PrintWriter(System.out));
+
+			String theCsvFile = System.getProperty("load.csv");
+			if (theCsvFile != null && theCsvFile.trim().length() > 0) {
+				theGenerator.writeFile(theStats, theCsvFile.trim(), false);
+			}
+			String theJsonFile = System.getProperty("load.json");
+			if (theJsonFile != null && theJsonFile.trim().length() > 0) {
+				theGenerator.writeFile(theStats, theJsonFile.trim(), true);
+			}
+		}
+		catch (Exception ex) {
+			ex.printStackTrace();
+			System.exit(1);
+		}
+
+		System.exit(0);
+	}
+
+}
+
+// End class EPPLoadGenerator
@@ -0,0 +1,217 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Weighted mix of the commands executed by <code>EPPLoadGenerator</code>. The
+ * profile is defined by a comma separated list of
+ * <code>&lt;command&gt;=&lt;weight&gt;</code> pairs, like
+ * <code>"check=40,info=30,create=10,renew=10,poll=10"</code>, where the
+ * probability of a command is its weight divided by the sum of the weights.
+ * The supported commands are defined by the <code>CMD_</code> constants.
+ */
+public class EPPLoadProfile {
+
+	/** Domain check command */
+	public static final String CMD_CHECK = "check";
+
+	/** Domain info command */
+	public static final String CMD_INFO = "info";
+
+	/** Domain create command */
+	public static final String CMD_CREATE = "create";
+
+	/** Domain renew command */
+	public static final String CMD_RENEW = "renew";
+
+	/**
+	 * Poll request command, which is followed by a poll acknowledge command
+	 * when a message is returned.
+	 */
+	public static final String CMD_POLL = "poll";
+
+	/**
+	 * Poll acknowledge command.  It is not part of a profile, but is recorded
+	 * separately when a poll request returns a message.
+	 */
+	public static final String CMD_ACK = "ack";
+
+	/** Supported profile commands */
+	public static final String[] COMMANDS = { CMD_CHECK, CMD_INFO, CMD_CREATE, CMD_RENEW, CMD_POLL };
+
+	/** Commands of the profile in the order defined */
+	private String[] commands;
+
+	/** Cumulative weights that match <code>commands</code> */
+	private int[] cumulativeWeights;
+
+	/** Sum of the weights */
+	private int totalWeight;
+
+	/** Profile string the profile was created from */
+	private String profile;
+
+	/**
+	 * Creates the profile by parsing a profile string.
+	 *
+	 * @param aProfile Comma separated list of <code>&lt;command&gt;=&lt;weight&gt;</code>
+	 * pairs.
+	 *
+	 * @throws IllegalArgumentException The profile is empty, includes an
+	 * unsupported command, or includes an invalid weight
+	 */
+	public EPPLoadProfile(String aProfile) throws IllegalArgumentException {
+		if (aProfile == null || aProfile.trim().length() == 0) {
+			throw new IllegalArgumentException("EPPLoadProfile: Empty profile");
+		}
+
+		List<String> theCommands = new ArrayList<String>();
+		List<Integer> theWeights = new ArrayList<Integer>();
+
+		String[] thePairs = aProfile.split(",");
+		for (int i = 0; i < thePairs.length; i++) {
+			String thePair = thePairs[i].trim();
+			if (thePair.length() == 0) {
+				continue;
+			}
+
+			int theSep = thePair.indexOf('=');
+			if (theSep == -1) {
+				throw new IllegalArgumentException("EPPLoadProfile: Missing weight in \"" + thePair + "\"");
+			}
+
+			String theCommand = thePair.substring(0, theSep).trim();
+			if (!isSupported(theCommand)) {
+				throw new IllegalArgumentException("EPPLoadProfile: Unsupported command \"" + theCommand + "\"");
+			}
+			if (theCommands.contains(theCommand)) {
+				throw new IllegalArgumentException("EPPLoadProfile: Duplicate command \"" + theCommand + "\"");
+			}
+
+			int theWeight;
+			try {
+				theWeight = Integer.parseInt(thePair.substring(theSep + 1).trim());
+			}
+			catch (NumberFormatException ex) {
+				throw new IllegalArgumentException("EPPLoadProfile: Invalid weight in \"" + thePair + "\"");
+			}
+			if (theWeight < 0) {
+				throw new IllegalArgumentException("EPPLoadProfile: Negative weight in \"" + thePair + "\"");
+			}
+
+			// Commands with a weight of 0 are never selected
+			if (theWeight > 0) {
+				theCommands.add(theCommand);
+				theWeights.add(new Integer(theWeight));
+			}
+		}
+
+		if (theCommands.isEmpty()) {
+			throw new IllegalArgumentException("EPPLoadProfile: No command with a positive weight in \""
+					+ aProfile + "\"");
+		}
+
+		this.commands = theCommands.toArray(new String[theCommands.size()]);
+		this.cumulativeWeights = new int[this.commands.length];
+		for (int i = 0; i < this.commands.length; i++) {
+			this.totalWeight += theWeights.get(i).intValue();
+			this.cumulativeWeights[i] = this.totalWeight;
+		}
+		this.profile = aProfile.trim();
+	}
+
+	/**
+	 * Is the command supported in a profile?
+	 *
+	 * @param aCommand Command name
+	 *
+	 * @return <code>true</code> if <code>aCommand</code> is one of
+	 * <code>COMMANDS</code>; <code>false</code> otherwise.
+	 */
+	public static boolean isSupported(String aCommand) {
+		for (int i = 0; i < COMMANDS.length; i++) {
+			if (COMMANDS[i].equals(aCommand)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Selects the next command to execute based on the weights.
+	 *
+	 * @param aRandom Random number generator of the calling thread
+	 *
+	 * @return One of the profile commands
+	 */
+	public String nextCommand(Random aRandom) {
+		int theValue = aRandom.nextInt(this.totalWeight);
+		for (int i = 0; i < this.cumulativeWeights.length; i++) {
+			if (theValue < this.cumulativeWeights[i]) {
+				return this.commands[i];
+			}
+		}
+
+		// Not reached, since theValue is less than the total weight
+		return this.commands[this.commands.length - 1];
+	}
+
+	/**
+	 * Gets the commands of the profile with a positive weight.
+	 *
+	 * @return Commands in the order defined in the profile
+	 */
+	public String[] getCommands() {
+		return this.commands.clone();
+	}
+
+	/**
+	 * Does the profile include the command?
+	 *
+	 * @param aCommand Command name
+	 *
+	 * @return <code>true</code> if <code>aCommand</code> has a positive weight;
+	 * <code>false</code> otherwise.
+	 */
+	public boolean hasCommand(String aCommand) {
+		for (int i = 0; i < this.commands.length; i++) {
+			if (this.commands[i].equals(aCommand)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the profile string.
+	 *
+	 * @return Profile string the profile was created from
+	 */
+	public String toString() {
+		return this.profile;
+	}
+
+}
+
+// End class EPPLoadProfile
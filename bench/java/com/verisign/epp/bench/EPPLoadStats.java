@@ -0,0 +1,510 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.bench;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Statistics of a load generator run.  The latency of the successful
+ * commands is recorded in microseconds in a HdrHistogram per command, plus a
+ * histogram of all commands, so that the percentiles are exact to three
+ * significant digits regardless of the number of samples.  The errors are
+ * counted per command and per session.  All of the record methods can be
+ * called concurrently by the worker threads.<br>
+ * <br>
+ * The statistics can be exported with {@link #writeCsv(Writer)} and
+ * {@link #writeJson(Writer, Map)}.
+ */
+public class EPPLoadStats {
+
+	/** Name used for the statistics across all commands */
+	public static final String TOTAL = "total";
+
+	/**
+	 * Highest latency that can be recorded in microseconds.  Higher latencies
+	 * are recorded as this value.
+	 */
+	private static final long HIGHEST_LATENCY = TimeUnit.MINUTES.toMicros(10);
+
+	/** Number of significant digits of the histograms */
+	private static final int SIGNIFICANT_DIGITS = 3;
+
+	/** Percentiles exported */
+	private static final double[] PERCENTILES = { 50.0, 90.0, 99.0, 99.9 };
+
+	/** Names of the exported percentiles */
+	private static final String[] PERCENTILE_NAMES = { "p50", "p90", "p99", "p999" };
+
+	/** Latency histograms by command */
+	private ConcurrentHashMap<String, Histogram> latencies = new ConcurrentHashMap<String, Histogram>();
+
+	/** Latency histogram of all commands */
+	private Histogram totalLatency = newHistogram();
+
+	/** Error counts by command */
+	private ConcurrentHashMap<String, AtomicLong> commandErrors = new ConcurrentHashMap<String, AtomicLong>();
+
+	/** Error counts by session */
+	private ConcurrentHashMap<String, AtomicLong> sessionErrors = new ConcurrentHashMap<String, AtomicLong>();
+
+	/** Number of failures to borrow a session from the pool */
+	private AtomicLong borrowErrors = new AtomicLong();
+
+	/** Number of sessions invalidated due to a connection error */
+	private AtomicLong invalidatedSessions = new AtomicLong();
+
+	/** Start time of the recording in milliseconds */
+	private long startTime;
+
+	/** Stop time of the recording in milliseconds or <code>0</code> if still recording */
+	private volatile long stopTime = 0;
+
+	/**
+	 * Creates the statistics with the recording started.
+	 */
+	public EPPLoadStats() {
+		this.startTime = System.currentTimeMillis();
+	}
+
+	/**
+	 * Creates an empty latency histogram.
+	 *
+	 * @return Histogram safe for concurrent recording
+	 */
+	private static Histogram newHistogram() {
+		return new ConcurrentHistogram(HIGHEST_LATENCY, SIGNIFICANT_DIGITS);
+	}
+
+	/**
+	 * Records the latency of a successful command.
+	 *
+	 * @param aCommand Command name
+	 * @param aNanos Latency of the command in nanoseconds
+	 */
+	public void recordLatency(String aCommand, long aNanos) {
+		long theMicros = Math.min(Math.max(TimeUnit.NANOSECONDS.toMicros(aNanos), 1), HIGHEST_LATENCY);
+
+		Histogram theHistogram = this.latencies.get(aCommand);
+		if (theHistogram == null) {
+			theHistogram = newHistogram();
+			Histogram theExisting = this.latencies.putIfAbsent(aCommand, theHistogram);
+			if (theExisting != null) {
+				theHistogram = theExisting;
+			}
+		}
+
+		theHistogram.recordValue(theMicros);
+		this.totalLatency.recordValue(theMicros);
+	}
+
+	/**
+	 * Records a failed command.
+	 *
+	 * @param aCommand Command name
+	 * @param aSession Identifier of the session that executed the command
+	 */
+	public void recordError(String aCommand, String aSession) {
+		increment(this.commandErrors, aCommand);
+		increment(this.sessionErrors, aSession);
+	}
+
+	/**
+	 * Records a failure to borrow a session from the pool.
+	 */
+	public void recordBorrowError() {
+		this.borrowErrors.incrementAndGet();
+	}
+
+	/**
+	 * Records a session that was invalidated due to a connection error.
+	 */
+	public void recordInvalidatedSession() {
+		this.invalidatedSessions.incrementAndGet();
+	}
+
+	/**
+	 * Increments the counter of a key.
+	 *
+	 * @param aCounters Counters by key
+	 * @param aKey Key of the counter to increment
+	 */
+	private static void increment(ConcurrentHashMap<String, AtomicLong> aCounters, String aKey) {
+		AtomicLong theCounter = aCounters.get(aKey);
+		if (theCounter == null) {
+			theCounter = new AtomicLong();
+			AtomicLong theExisting = aCounters.putIfAbsent(aKey, theCounter);
+			if (theExisting != null) {
+				theCounter = theExisting;
+			}
+		}
+		theCounter.incrementAndGet();
+	}
+
+	/**
+	 * Stops the recording, which fixes the elapsed time used to calculate the
+	 * commands per second.  Commands recorded after the stop are still
+	 * counted.
+	 */
+	public void stop() {
+		if (this.stopTime == 0) {
+			this.stopTime = System.currentTimeMillis();
+		}
+	}
+
+	/**
+	 * Gets the elapsed time of the recording.
+	 *
+	 * @return Milliseconds between the creation and the stop of the
+	 * recording, or the current time if not stopped.
+	 */
+	public long getElapsedMillis() {
+		long theStop = this.stopTime;
+		if (theStop == 0) {
+			theStop = System.currentTimeMillis();
+		}
+		return Math.max(theStop - this.startTime, 1);
+	}
+
+	/**
+	 * Gets the number of successful commands.
+	 *
+	 * @return Number of successful commands across all commands
+	 */
+	public long getCommandCount() {
+		return this.totalLatency.getTotalCount();
+	}
+
+	/**
+	 * Gets the number of failed commands.
+	 *
+	 * @return Number of failed commands across all commands
+	 */
+	public long getErrorCount() {
+		long theCount = 0;
+		for (AtomicLong theErrors : this.commandErrors.values()) {
+			theCount += theErrors.get();
+		}
+		return theCount;
+	}
+
+	/**
+	 * Gets the number of failures to borrow a session.
+	 *
+	 * @return Number of borrow failures
+	 */
+	public long getBorrowErrorCount() {
+		return this.borrowErrors.get();
+	}
+
+	/**
+	 * Gets the number of sessions invalidated due to a connection error.
+	 *
+	 * @return Number of invalidated sessions
+	 */
+	public long getInvalidatedSessionCount() {
+		return this.invalidatedSessions.get();
+	}
+
+	/**
+	 * Gets the number of successful commands per second.
+	 *
+	 * @return Successful commands across all commands per second
+	 */
+	public double getCommandsPerSecond() {
+		return perSecond(getCommandCount());
+	}
+
+	/**
+	 * Gets the error counts by session.
+	 *
+	 * @return Sorted copy of the error counts by session identifier
+	 */
+	public Map<String, Long> getSessionErrors() {
+		Map<String, Long> theErrors = new TreeMap<String, Long>();
+		for (Map.Entry<String, AtomicLong> theEntry : this.sessionErrors.entrySet()) {
+			theErrors.put(theEntry.getKey(), new Long(theEntry.getValue().get()));
+		}
+		return theErrors;
+	}
+
+	/**
+	 * Converts a count to a rate per second over the elapsed time.
+	 *
+	 * @param aCount Count to convert
+	 *
+	 * @return Count per second
+	 */
+	private double perSecond(long aCount) {
+		return (aCount * 1000.0) / getElapsedMillis();
+	}
+
+	/**
+	 * Gets the names of the commands with samples or errors.
+	 *
+	 * @return Sorted command names
+	 */
+	private List<String> getCommandNames() {
+		TreeMap<String, String> theNames = new TreeMap<String, String>();
+		for (String theName : this.latencies.keySet()) {
+			theNames.put(theName, theName);
+		}
+		for (String theName : this.commandErrors.keySet()) {
+			theNames.put(theName, theName);
+		}
+		return new ArrayList<String>(theNames.keySet());
+	}
+
+	/**
+	 * Gets the latency histogram of a command.
+	 *
+	 * @param aCommand Command name or <code>TOTAL</code>
+	 *
+	 * @return Histogram of the command, which is empty if there are no samples
+	 */
+	private Histogram getHistogram(String aCommand) {
+		if (TOTAL.equals(aCommand)) {
+			return this.totalLatency;
+		}
+		Histogram theHistogram = this.latencies.get(aCommand);
+		if (theHistogram == null) {
+			theHistogram = newHistogram();
+		}
+		return theHistogram;
+	}
+
+	/**
+	 * Gets the number of errors of a command.
+	 *
+	 * @param aCommand Command name or <code>TOTAL</code>
+	 *
+	 * @return Number of errors
+	 */
+	private long getErrors(String aCommand) {
+		if (TOTAL.equals(aCommand)) {
+			return getErrorCount();
+		}
+		AtomicLong theErrors = this.commandErrors.get(aCommand);
+		return theErrors == null ? 0 : theErrors.get();
+	}
+
+	/**
+	 * Writes the statistics in CSV format.  The first column is the row type,
+	 * which is <code>command</code> for the rows of the commands and the total,
+	 * and <code>session</code> for the error counts of the sessions with errors.
+	 *
+	 * @param aWriter Writer to write to.  The writer is flushed but not closed.
+	 *
+	 * @throws IOException Error writing the statistics
+	 */
+	public void writeCsv(Writer aWriter) throws IOException {
+		PrintWriter theWriter = new PrintWriter(aWriter);
+
+		theWriter.print("type,name,count,errors,commands_per_sec,mean_us");
+		for (int i = 0; i < PERCENTILE_NAMES.length; i++) {
+			theWriter.print("," + PERCENTILE_NAMES[i] + "_us");
+		}
+		theWriter.println(",max_us");
+
+		List<String> theNames = getCommandNames();
+		theNames.add(TOTAL);
+		for (String theName : theNames) {
+			Histogram theHistogram = getHistogram(theName);
+			theWriter.print("command," + theName + "," + theHistogram.getTotalCount() + ","
+					+ getErrors(theName) + "," + format(perSecond(theHistogram.getTotalCount())) + ","
+					+ format(theHistogram.getMean()));
+			for (int i = 0; i < PERCENTILES.length; i++) {
+				theWriter.print("," + theHistogram.getValueAtPercentile(PERCENTILES[i]));
+			}
+			theWriter.println("," + theHistogram.getMaxValue());
+		}
+
+		for (Map.Entry<String, Long> theEntry : getSessionErrors().entrySet()) {
+			theWriter.println("session," + theEntry.getKey() + ",," + theEntry.getValue() + ",,,,,,,");
+		}
+
+		theWriter.flush();
+		if (theWriter.checkError()) {
+			throw new IOException("EPPLoadStats.writeCsv(): Error writing statistics");
+		}
+	}
+
+	/**
+	 * Writes the statistics in JSON format.
+	 *
+	 * @param aWriter Writer to write to.  The writer is flushed but not closed.
+	 * @param aSettings Settings of the run included as the <code>settings</code>
+	 * object, where the values are written as JSON strings.
+	 *
+	 * @throws IOException Error writing the statistics
+	 */
+	public void writeJson(Writer aWriter, Map<String, String> aSettings) throws IOException {
+		PrintWriter theWriter = new PrintWriter(aWriter);
+
+		theWriter.println("{");
+
+		theWriter.println("  \"settings\": {");
+		int theIndex = 0;
+		for (Map.Entry<String, String> theEntry : aSettings.entrySet()) {
+			theWriter.print("    " + quote(theEntry.getKey()) + ": " + quote(theEntry.getValue()));
+			theWriter.println(++theIndex < aSettings.size() ? "," : "");
+		}
+		theWriter.println("  },");
+
+		theWriter.println("  \"elapsedMillis\": " + getElapsedMillis() + ",");
+		theWriter.println("  \"borrowErrors\": " + getBorrowErrorCount() + ",");
+		theWriter.println("  \"invalidatedSessions\": " + getInvalidatedSessionCount() + ",");
+
+		theWriter.println("  \"commands\": [");
+		List<String> theNames = getCommandNames();
+		theNames.add(TOTAL);
+		theIndex = 0;
+		for (String theName : theNames) {
+			Histogram theHistogram = getHistogram(theName);
+			theWriter.print("    { \"name\": " + quote(theName) + ", \"count\": " + theHistogram.getTotalCount()
+					+ ", \"errors\": " + getErrors(theName) + ", \"commandsPerSec\": "
+					+ format(perSecond(theHistogram.getTotalCount())) + ", \"meanUs\": "
+					+ format(theHistogram.getMean()));
+			for (int i = 0; i < PERCENTILES.length; i++) {
+				theWriter.print(", \"" + PERCENTILE_NAMES[i] + "Us\": "
+						+ theHistogram.getValueAtPercentile(PERCENTILES[i]));
+			}
+			theWriter.print(", \"maxUs\": " + theHistogram.getMaxValue() + " }");
+			theWriter.println(++theIndex < theNames.size() ? "," : "");
+		}
+		theWriter.println("  ],");
+
+		theWriter.println("  \"sessionErrors\": {");
+		Map<String, Long> theSessionErrors = getSessionErrors();
+		theIndex = 0;
+		for (Map.Entry<String, Long> theEntry : theSessionErrors.entrySet()) {
+			theWriter.print("    " + quote(theEntry.getKey()) + ": " + theEntry.getValue());
+			theWriter.println(++theIndex < theSessionErrors.size() ? "," : "");
+		}
+		theWriter.println("  }");
+
+		theWriter.println("}");
+
+		theWriter.flush();
+		if (theWriter.checkError()) {
+			throw new IOException("EPPLoadStats.writeJson(): Error writing statistics");
+		}
+	}
+
+	/**
+	 * Writes a summary table of the commands.
+	 *
+	 * @param aWriter Writer to write to.  The writer is flushed but not closed.
+	 */
+	public void writeSummary(Writer aWriter) {
+		PrintWriter theWriter = new PrintWriter(aWriter);
+
+		theWriter.println(String.format(Locale.ROOT, "%-8s %10s %8s %10s %10s %10s %10s %10s %10s",
+				"command", "count", "errors", "cmd/s", "mean(us)", "p50(us)", "p99(us)", "p99.9(us)", "max(us)"));
+
+		List<String> theNames = getCommandNames();
+		theNames.add(TOTAL);
+		for (String theName : theNames) {
+			Histogram theHistogram = getHistogram(theName);
+			theWriter.println(String.format(Locale.ROOT, "%-8s %10d %8d %10.1f %10.1f %10d %10d %10d %10d",
+					theName, theHistogram.getTotalCount(), getErrors(theName),
+					perSecond(theHistogram.getTotalCount()), theHistogram.getMean(),
+					theHistogram.getValueAtPercentile(50.0), theHistogram.getValueAtPercentile(99.0),
+					theHistogram.getValueAtPercentile(99.9), theHistogram.getMaxValue()));
+		}
+
+		theWriter.println("elapsed = " + getElapsedMillis() + " ms, borrow errors = " + getBorrowErrorCount()
+				+ ", invalidated sessions = " + getInvalidatedSessionCount());
+		Map<String, Long> theSessionErrors = getSessionErrors();
+		if (!theSessionErrors.isEmpty()) {
+			theWriter.println("session errors = " + theSessionErrors);
+		}
+
+		theWriter.flush();
+	}
+
+	/**
+	 * Formats a decimal value with a fixed number of fraction digits and a
+	 * locale independent decimal separator.
+	 *
+	 * @param aValue Value to format
+	 *
+	 * @return Formatted value
+	 */
+	private static String format(double aValue) {
+		return String.format(Locale.ROOT, "%.3f", aValue);
+	}
+
+	/**
+	 * Quotes a JSON string value.
+	 *
+	 * @param aValue Value to quote
+	 *
+	 * @return Quoted and escaped value
+	 */
+	private static String quote(String aValue) {
+		StringBuilder theBuf = new StringBuilder(aValue.length() + 2);
+		theBuf.append('"');
+		for (int i = 0; i < aValue.length(); i++) {
+			char theChar = aValue.charAt(i);
+			switch (theChar) {
+				case '"':
+					theBuf.append("\\\"");
+					break;
+				case '\\':
+					theBuf.append("\\\\");
+					break;
+				case '\n':
+					theBuf.append("\\n");
+					break;
+				case '\r':
+					theBuf.append("\\r");
+					break;
+				case '\t':
+					theBuf.append("\\t");
+					break;
+				default:
+					if (theChar < 0x20) {
+						theBuf.append(String.format("\\u%04x", new Integer(theChar)));
+					}
+					else {
+						theBuf.append(theChar);
+					}
+			}
+		}
+		theBuf.append('"');
+		return theBuf.toString();
+	}
+
+}
+
+// End class EPPLoadStats
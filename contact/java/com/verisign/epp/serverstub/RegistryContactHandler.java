@@ -0,0 +1,480 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.serverstub;
+
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Vector;
+
+import org.apache.log4j.Logger;
+
+import com.verisign.epp.codec.contact.EPPContactAddChange;
+import com.verisign.epp.codec.contact.EPPContactAddress;
+import com.verisign.epp.codec.contact.EPPContactCheckCmd;
+import com.verisign.epp.codec.contact.EPPContactCheckResp;
+import com.verisign.epp.codec.contact.EPPContactCheckResult;
+import com.verisign.epp.codec.contact.EPPContactCreateCmd;
+import com.verisign.epp.codec.contact.EPPContactCreateResp;
+import com.verisign.epp.codec.contact.EPPContactDeleteCmd;
+import com.verisign.epp.codec.contact.EPPContactInfoCmd;
+import com.verisign.epp.codec.contact.EPPContactInfoResp;
+import com.verisign.epp.codec.contact.EPPContactMapFactory;
+import com.verisign.epp.codec.contact.EPPContactPostalDefinition;
+import com.verisign.epp.codec.contact.EPPContactStatus;
+import com.verisign.epp.codec.contact.EPPContactTransferCmd;
+import com.verisign.epp.codec.contact.EPPContactTransferResp;
+import com.verisign.epp.codec.contact.EPPContactUpdateCmd;
+import com.verisign.epp.codec.gen.EPPAuthInfo;
+import com.verisign.epp.codec.gen.EPPCommand;
+import com.verisign.epp.codec.gen.EPPResponse;
+import com.verisign.epp.codec.gen.EPPResult;
+import com.verisign.epp.codec.gen.EPPTransId;
+import com.verisign.epp.framework.EPPContactHandler;
+import com.verisign.epp.framework.EPPEvent;
+import com.verisign.epp.framework.EPPEventResponse;
+import com.verisign.epp.framework.EPPHandleEventException;
+import com.verisign.epp.framework.EPPPollQueueException;
+import com.verisign.epp.framework.EPPPollQueueMgr;
+import com.verisign.epp.util.EPPCatFactory;
+
+/**
+ * The <code>RegistryContactHandler</code> class is a concrete implementation
+ * of the abstract <code>com.verisign.epp.framework.EPPContactHandler</code>
+ * class that executes the EPP Contact Commands against the
+ * <code>Registry</code> of the Stub Server, in place of the fixed responses
+ * of <code>ContactHandler</code>.  The transfer requests and actions are
+ * inserted in the poll queue, and the disclose element is not stored.  A
+ * command rejected by the <code>Registry</code> gets the result code of the
+ * <code>RegistryException</code>, with its description as the reason.<br>
+ * <br>
+ *
+ * @see com.verisign.epp.serverstub.Registry
+ * @see com.verisign.epp.serverstub.ContactHandler
+ */
+public class RegistryContactHandler extends EPPContactHandler {
+
+	/** Server transaction identifier of the responses */
+	private static final String svrTransId = "54322-XYZ";
+
+	/** Log4j category for logging */
+	private static Logger cat = Logger.getLogger(RegistryContactHandler.class.getName(), EPPCatFactory.getInstance()
+			.getFactory());
+
+	/** Registry of the Stub Server */
+	private Registry registry = Registry.getInstance();
+
+	/**
+	 * Constructs an instance of <code>RegistryContactHandler</code>
+	 */
+	public RegistryContactHandler() {
+	}
+
+	/**
+	 * Checks that the client has established a session, since the
+	 * <code>Registry</code> commands are executed on behalf of the logged in
+	 * client.
+	 *
+	 * @param aEvent The <code>EPPEvent</code> that is being handled
+	 * @param aData Any data that a Server needs to send to this
+	 *        <code>EPPContactHandler</code> This is assumed to be an instance
+	 *        of SessionData here.
+	 *
+	 * @exception EPPHandleEventException Thrown if the client is not logged in
+	 */
+	protected void preHandleEvent(EPPEvent aEvent, Object aData) throws EPPHandleEventException {
+		SessionData theSessionData = (SessionData) aData;
+		EPPCommand theMessage = (EPPCommand) aEvent.getMessage();
+
+		if (!theSessionData.isLoggedIn()) {
+			EPPResponse theResponse = new EPPResponse(new EPPTransId(theMessage.getTransId(), svrTransId));
+			theResponse.setResult(EPPResult.COMMAND_FAILED_END);
+			throw new EPPHandleEventException("The client has not established a session", theResponse);
+		}
+	}
+
+	/**
+	 * Handles any common behavior that all Contact commands need to execute
+	 * after they execute their command specific behavior.
+	 *
+	 * @param aEvent The <code>EPPEvent</code> that is being handled
+	 * @param aData Any data that a Server needs to send to this
+	 *        <code>EPPContactHandler</code>
+	 *
+	 * @exception EPPHandleEventException Thrown if an error condition occurs.
+	 *            It must contain an <code>EPPEventResponse</code>
+	 */
+	protected void postHandleEvent(EPPEvent aEvent, Object aData) throws EPPHandleEventException {
+	}
+
+	/**
+	 * Invoked when a Contact Check command is received, where a contact is
+	 * available when it does not exist in the <code>Registry</code>.
+	 *
+	 * @param aEvent The <code>EPPEvent</code> that is being handled
+	 * @param aData Any data that a Server needs to send to this
+	 *        <code>EPPContactHandler</code>
+	 *
+	 * @return EPPEventResponse The response that should be sent back to the
+	 *         client.
+	 */
+	protected EPPEventResponse doContactCheck(EPPEvent aEvent, Object aData) {
+		EPPContactCheckCmd theMessage = (EPPContactCheckCmd) aEvent.getMessage();
+
+		Vector theResults = new Vector();
+		for (Enumeration theIds = theMessage.getIds().elements(); theIds.hasMoreElements();) {
+			String theId = (String) theIds.nextElement();
+			theResults.addElement(new EPPContactCheckResult(theId, this.registry.isContactAvailable(theId)));
+		}
+
+		EPPResponse theResponse = new EPPContactCheckResp(new EPPTransId(theMessage.getTransId(), svrTransId),
+				theResults);
+		theResponse.setResult(EPPResult.SUCCESS);
+
+		return new EPPEventResponse(theResponse);
+	}
+
+	/**
+	 * Invoked when a Contact Create command is received.
+	 *
+	 * @param aEvent The <code>EPPEvent</code> that is being handled
+	 * @param aData Any data that a Server needs to send to this
+	 *        <code>EPPContactHandler</code>
+	 *
+	 * @return EPPEventResponse The response that should be sent back to the
+	 *         client.
+	 */
+	protected EPPEventResponse doContactCreate(EPPEvent aEvent, Object aData) {
+		EPPContactCreateCmd theMessage = (EPPContactCreateCmd) aEvent.getMessage();
+		EPPTransId theTransId = new EPPTransId(theMessage.getTransId(), svrTransId);
+
+		try {
+			RegistryContact theContact = new RegistryContact(theMessage.getId());
+			theContact.setPostalInfo(toPostalInfo(theMessage.getPostalInfo()));
+			theContact.setVoice(theMessage.getVoice());
+			theContact.setVoiceExt(theMessage.getVoiceExt());
+			theContact.setFax(theMessage.getFax());
+			theContact.setFaxExt(theMessage.getFaxExt());
+			theContact.setEmail(theMessage.getEmail());
+			theContact.setAuthInfo(getPassword(theMessage.getAuthInfo()));
+
+			theContact = this.registry.createContact(getClientId(aData), theContact);
+
+			EPPResponse theResponse = new EPPContactCreateResp(theTransId, theMessage.getId(), theContact
+					.getCreatedDate());
+			theResponse.setResult(EPPResult.SUCCESS);
+
+			return new EPPEventResponse(theResponse);
+		}
+		catch (RegistryException ex) {
+			return createErrorResponse(theTransId, ex);
+		}
+	}
+
+	/**
+	 * Invoked when a Contact Delete command is received.
+	 *
+	 * @param aEvent The <code>EPPEvent</code> that is being handled
+	 * @param aData Any data that a Server needs to send to this
+	 *        <code>EPPContactHandler</code>
+	 *
+	 * @return EPPEventResponse The response that should be sent back to the
+	 *         client.
+	 */
+	protected EPPEventResponse doContactDelete(EPPEvent aEvent, Object aData) {
+		EPPContactDeleteCmd theMessage = (EPPContactDeleteCmd) aEvent.getMessage();
+		EPPTransId theTransId = new EPPTransId(theMessage.getTransId(), svrTransId);
+
+		try {
+			this.registry.deleteContact(getClientId(aData), theMessage.getId());
+
+			EPPResponse theResponse = new EPPResponse(theTransId);
+			theResponse.setResult(EPPResult.SUCCESS);
+
+			return new EPPEventResponse(theResponse);
+		}
+		catch (RegistryException ex) {
+			return createErrorResponse(theTransId, ex);
+		}
+	}
+
+	/**
+	 * Invoked when a Contact Update command is received.
+	 *
+	 * @param aEvent The <code>EPPEvent</code> that is being handled
+	 * @param aData Any data that a Server needs to send to this
+	 *        <code>EPPContactHandler</code>
+	 *
+	 * @return EPPEventResponse The response that should be sent back to the
+	 *         client.
+	 */
+	protected EPPEventResponse doContactUpdate(EPPEvent aEvent, Object aData) {
+		EPPContactUpdateCmd theMessage = (EPPContactUpdateCmd) aEvent.getMessage();
+		EPPTransId theTransId = new EPPTransId(theMessage.getTransId(), svrTransId);
+
+		try {
+			RegistryContact theChange = null;
+			EPPContactAddChange theMessageChange = theMessage.getChange();
+			if (theMessageChange != null) {
+				theChange = new RegistryContact();
+				theChange.setPostalInfo(toPostalInfo(theMessageChange.getPostalInfo()));
+				theChange.setVoice(theMessageChange.getVoice());
+				theChange.setVoiceExt(theMessageChange.getVoiceExt());
+				theChange.setFax(theMessageChange.getFax());
+				theChange.setFaxExt(theMessageChange.getFaxExt());
+				theChange.setEmail(theMessageChange.getEmail());
+				theChange.setAuthInfo(getPassword(theMessageChange.getAuthInfo()));
+			}
+
+			this.registry.updateContact(getClientId(aData), theMessage.getId(), toStatusContact(theMessage.getAdd()),
+					toStatusContact(theMessage.getRemove()), theChange);
+
+			EPPResponse theResponse = new EPPResponse(theTransId);
+			theResponse.setResult(EPPResult.SUCCESS);
+
+			return new EPPEventResponse(theResponse);
+		}
+		catch (RegistryException ex) {
+			return createErrorResponse(theTransId, ex);
+		}
+	}
+
+	/**
+	 * Invoked when a Contact Info command is received, where the
+	 * authorization information is only returned to the sponsoring client or
+	 * when it matches the authorization information of the command.
+	 *
+	 * @param aEvent The <code>EPPEvent</code> that is being handled
+	 * @param aData Any data that a Server needs to send to this
+	 *        <code>EPPContactHandler</code>
+	 *
+	 * @return EPPEventResponse The response that should be sent back to the
+	 *         client.
+	 */
+	protected EPPEventResponse doContactInfo(EPPEvent aEvent, Object aData) {
+		EPPContactInfoCmd theMessage = (EPPContactInfoCmd) aEvent.getMessage();
+		EPPTransId theTransId = new EPPTransId(theMessage.getTransId(), svrTransId);
+
+		try {
+			RegistryContact theContact = this.registry.getContact(getClientId(aData), theMessage.getId(),
+					getPassword(theMessage.getAuthInfo()));
+
+			Vector theStatuses = new Vector();
+			for (String theStatus : theContact.getStatuses()) {
+				theStatuses.addElement(new EPPContactStatus(theStatus));
+			}
+
+			Vector<EPPContactPostalDefinition> thePostalInfo = new Vector<EPPContactPostalDefinition>();
+			for (RegistryContact.PostalInfo theInfo : theContact.getPostalInfo()) {
+				thePostalInfo.addElement(new EPPContactPostalDefinition(theInfo.getName(), theInfo.getOrg(), theInfo
+						.getType(), new EPPContactAddress(new Vector<String>(theInfo.getStreets()), theInfo
+						.getCity(), theInfo.getStateProvince(), theInfo.getPostalCode(), theInfo.getCountryCode())));
+			}
+
+			EPPContactInfoResp theResponse = new EPPContactInfoResp();
+			theResponse.setTransId(theTransId);
+			theResponse.setId(theContact.getId());
+			theResponse.setRoid(theContact.getRoid());
+			theResponse.setStatuses(theStatuses);
+			theResponse.setPostalInfo(thePostalInfo);
+			theResponse.setVoice(theContact.getVoice());
+			theResponse.setVoiceExt(theContact.getVoiceExt());
+			theResponse.setFax(theContact.getFax());
+			theResponse.setFaxExt(theContact.getFaxExt());
+			theResponse.setEmail(theContact.getEmail());
+			theResponse.setClientId(theContact.getClientId());
+			theResponse.setCreatedBy(theContact.getCreatedBy());
+			theResponse.setCreatedDate(theContact.getCreatedDate());
+			theResponse.setLastUpdatedBy(theContact.getUpdatedBy());
+			theResponse.setLastUpdatedDate(theContact.getUpdatedDate());
+			theResponse.setLastTransferDate(theContact.getTransferDate());
+			if (theContact.getAuthInfo() != null) {
+				theResponse.setAuthInfo(new EPPAuthInfo(theContact.getAuthInfo()));
+			}
+
+			theResponse.setResult(EPPResult.SUCCESS);
+
+			return new EPPEventResponse(theResponse);
+		}
+		catch (RegistryException ex) {
+			return createErrorResponse(theTransId, ex);
+		}
+	}
+
+	/**
+	 * Invoked when a Contact Transfer command is received.  A transfer request
+	 * and the approve, reject, and cancel actions insert a transfer message in
+	 * the poll queue.
+	 *
+	 * @param aEvent The <code>EPPEvent</code> that is being handled
+	 * @param aData Any data that a Server needs to send to this
+	 *        <code>EPPContactHandler</code>
+	 *
+	 * @return EPPEventResponse The response that should be sent back to the
+	 *         client.
+	 */
+	protected EPPEventResponse doContactTransfer(EPPEvent aEvent, Object aData) {
+		EPPContactTransferCmd theMessage = (EPPContactTransferCmd) aEvent.getMessage();
+		EPPTransId theTransId = new EPPTransId(theMessage.getTransId(), svrTransId);
+
+		try {
+			RegistryContact theContact = this.registry.transferContact(getClientId(aData), theMessage.getOp(),
+					theMessage.getId(), getPassword(theMessage.getAuthInfo()));
+
+			if (!theMessage.getOp().equals(EPPCommand.OP_QUERY)) {
+				EPPContactTransferResp thePollMsg = toTransferResp(new EPPContactTransferResp(), theContact);
+				thePollMsg.setResult(EPPResult.SUCCESS);
+
+				try {
+					EPPPollQueueMgr.getInstance().put(theContact.getTransferRecipient(getClientId(aData)),
+							EPPContactMapFactory.NS, thePollMsg, null);
+				}
+				catch (EPPPollQueueException ex) {
+					// The transfer is done, so only the poll message is lost
+					cat.error("doContactTransfer: Error putting message [" + thePollMsg + "]", ex);
+				}
+			}
+
+			EPPContactTransferResp theResponse = toTransferResp(new EPPContactTransferResp(theTransId, theContact
+					.getId()), theContact);
+			theResponse.setResult(EPPResult.SUCCESS);
+
+			return new EPPEventResponse(theResponse);
+		}
+		catch (RegistryException ex) {
+			return createErrorResponse(theTransId, ex);
+		}
+	}
+
+	/**
+	 * Sets the transfer attributes of a transfer response from a contact.
+	 *
+	 * @param aResponse Transfer response or poll message
+	 * @param aContact Contact with the transfer attributes
+	 *
+	 * @return <code>aResponse</code>
+	 */
+	private static EPPContactTransferResp toTransferResp(EPPContactTransferResp aResponse, RegistryContact aContact) {
+		aResponse.setId(aContact.getId());
+		aResponse.setTransferStatus(aContact.getTransferStatus());
+		aResponse.setRequestClient(aContact.getRequestClient());
+		aResponse.setRequestDate(aContact.getRequestDate());
+		aResponse.setActionClient(aContact.getActionClient());
+		aResponse.setActionDate(aContact.getActionDate());
+
+		return aResponse;
+	}
+
+	/**
+	 * Converts the <code>add</code> or <code>rem</code> element of an update
+	 * command to a <code>RegistryContact</code> with the statuses.
+	 *
+	 * @param aAddRemove Element of the update command or <code>null</code>
+	 *
+	 * @return Contact with the statuses of the element, or <code>null</code>
+	 *
+	 * @exception RegistryException If a status is not a client status
+	 */
+	private static RegistryContact toStatusContact(EPPContactAddChange aAddRemove) throws RegistryException {
+		if (aAddRemove == null || aAddRemove.getStatuses() == null) {
+			return null;
+		}
+
+		Vector<String> theStatuses = new Vector<String>();
+		for (Object theStatus : aAddRemove.getStatuses()) {
+			theStatuses.addElement(((EPPContactStatus) theStatus).getStatus());
+		}
+
+		RegistryContact theContact = new RegistryContact();
+		theContact.setStatusBits(Registry.getClientStatusBits(theStatuses));
+
+		return theContact;
+	}
+
+	/**
+	 * Converts the postal information of a command.
+	 *
+	 * @param aPostalInfo <code>EPPContactPostalDefinition</code> instances or
+	 *        <code>null</code>
+	 *
+	 * @return List of <code>RegistryContact.PostalInfo</code> instances
+	 */
+	private static List<RegistryContact.PostalInfo> toPostalInfo(Vector aPostalInfo) {
+		List<RegistryContact.PostalInfo> thePostalInfo = new ArrayList<RegistryContact.PostalInfo>();
+
+		if (aPostalInfo != null) {
+			for (Object theElement : aPostalInfo) {
+				EPPContactPostalDefinition theDefinition = (EPPContactPostalDefinition) theElement;
+				EPPContactAddress theAddress = theDefinition.getAddress();
+
+				thePostalInfo.add(new RegistryContact.PostalInfo(theDefinition.getType(), theDefinition.getName(),
+						theDefinition.getOrg(), theAddress.getStreets(), theAddress.getCity(), theAddress
+								.getStateProvince(), theAddress.getPostalCode(), theAddress.getCountry()));
+			}
+		}
+
+		return thePostalInfo;
+	}
+
+	/**
+	 * Gets the password of an authorization information.
+	 *
+	 * @param aAuthInfo Authorization information or <code>null</code>
+	 *
+	 * @return Password or <code>null</code>
+	 */
+	private static String getPassword(EPPAuthInfo aAuthInfo) {
+		return aAuthInfo == null ? null : aAuthInfo.getPassword();
+	}
+
+	/**
+	 * Gets the identifier of the logged in client.
+	 *
+	 * @param aData <code>SessionData</code> of the session
+	 *
+	 * @return Client identifier
+	 */
+	private static String getClientId(Object aData) {
+		return ((SessionData) aData).getLoginCmd().getClientId();
+	}
+
+	/**
+	 * Creates the response of a command that is rejected by the
+	 * <code>Registry</code>.
+	 *
+	 * @param aTransId Transaction identifier of the response
+	 * @param aException Error of the <code>Registry</code>
+	 *
+	 * @return Response with the result code and description of the error
+	 */
+	private static EPPEventResponse createErrorResponse(EPPTransId aTransId, RegistryException aException) {
+		if (cat.isDebugEnabled()) {
+			cat.debug("createErrorResponse(): " + aException.getMessage());
+		}
+
+		EPPResult theResult = new EPPResult(aException.getCode());
+		theResult.addExtValueReason(aException.getMessage());
+
+		return new EPPEventResponse(new EPPResponse(aTransId, theResult));
+	}
+
+}
+
+// End class RegistryContactHandler
@@ -264,6 +264,46 @@ public class EPPDomainCheckCmd extends EPPCheckCmd {
 
 	// End EPPDomainCheckCmd.doEncode(Document)
 
+	/**
+	 * Writes the <code>EPPDomainCheckCmd</code> instance directly to an
+	 * <code>EPPXMLWriter</code> with the same elements as
+	 * <code>doEncode(Document)</code>.
+	 *
+	 * @param aWriter Writer to write the &ltdomain:check&gt element to
+	 *
+	 * @exception EPPEncodeException Unable to encode
+	 * 			  <code>EPPDomainCheckCmd</code> instance.
+	 */
+	protected void doEncode(EPPXMLWriter aWriter) throws EPPEncodeException {
+		if (names.size() == 0) {
+			throw new EPPEncodeException("No domains names specified in EPPDomainCheckCmd");
+		}
+
+		if (names.size() > MAX_DOMAINS) {
+			throw new EPPEncodeException(names.size()
+										 + " domain names is greater than the maximum of "
+										 + MAX_DOMAINS);
+		}
+
+		aWriter.writeStartElement(EPPDomainMapFactory.NS, ELM_NAME);
+
+		aWriter.writeAttribute("xmlns:domain", EPPDomainMapFactory.NS);
+		aWriter.writeAttribute(
+							   EPPCodec.NS_XSI, "xsi:schemaLocation",
+							   EPPDomainMapFactory.NS_SCHEMA);
+
+		// Names
+		for (int i = 0; i < names.size(); i++) {
+			aWriter.writeString(
+								EPPDomainMapFactory.NS, ELM_DOMAIN_NAME,
+								names.elementAt(i).toString());
+		}
+
+		aWriter.writeEndElement();
+	}
+
+	// End EPPDomainCheckCmd.doEncode(EPPXMLWriter)
+
 	/**
 	 * Decode the <code>EPPDomainCheckCmd</code> attributes from the aElement
 	 * DOM Element tree.
@@ -32,6 +32,9 @@ import org.w3c.dom.Element;
 // Java Core Imports
 import java.util.Vector;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 // EPP Imports
 import com.verisign.epp.codec.gen.*;
 
@@ -269,6 +272,34 @@ public class EPPDomainCheckResp extends EPPResponse {
 
 	// End EPPDomainCheckResp.doEncode(Document)
 
+	/**
+	 * Writes the &ltresData&gt element with the attributes of the
+	 * <code>EPPDomainCheckResp</code> instance directly to an
+	 * <code>EPPXMLWriter</code>.
+	 *
+	 * @param aWriter Writer to write the &ltresData&gt element to
+	 *
+	 * @exception EPPEncodeException Unable to encode
+	 * 			  <code>EPPDomainCheckResp</code> instance.
+	 */
+	protected void doEncode(EPPXMLWriter aWriter) throws EPPEncodeException {
+		aWriter.writeStartElement(EPPCodec.NS, ELM_RESPONSE_DATA);
+		aWriter.writeStartElement(EPPDomainMapFactory.NS, ELM_NAME);
+
+		aWriter.writeAttribute("xmlns:domain", EPPDomainMapFactory.NS);
+		aWriter.writeAttribute(
+							   EPPCodec.NS_XSI, "xsi:schemaLocation",
+							   EPPDomainMapFactory.NS_SCHEMA);
+
+		// Results
+		aWriter.writeCompVector(results);
+
+		aWriter.writeEndElement();
+		aWriter.writeEndElement();
+	}
+
+	// End EPPDomainCheckResp.doEncode(EPPXMLWriter)
+
 	/**
 	 * Decode the <code>EPPDomainCheckResp</code> attributes from the aElement
 	 * DOM Element tree.
@@ -288,4 +319,35 @@ public class EPPDomainCheckResp extends EPPResponse {
 	}
 
 	// End EPPDomainCheckResp.doDecode(Element)
+
+	/**
+	 * Decode the <code>EPPDomainCheckResp</code> attributes from the
+	 * &lt;domain:chkData&gt; element with an <code>XMLStreamReader</code>.
+	 *
+	 * @param aReader Reader positioned on the &lt;domain:chkData&gt; element
+	 *
+	 * @exception EPPDecodeException Error decoding the element
+	 * @exception XMLStreamException Error reading from <code>aReader</code>
+	 */
+	protected void doDecode(XMLStreamReader aReader)
+					 throws EPPDecodeException, XMLStreamException {
+		// Results
+		results = new Vector();
+
+		while (EPPStreamUtil.nextChild(aReader)) {
+			if (
+				EPPStreamUtil.isElement(
+										aReader, EPPDomainMapFactory.NS,
+										EPPDomainCheckResult.ELM_NAME)) {
+				EPPStreamUtil.addComp(
+									  aReader, results,
+									  EPPDomainCheckResult.class);
+			}
+			else {
+				EPPStreamUtil.skipElement(aReader);
+			}
+		}
+	}
+
+	// End EPPDomainCheckResp.doDecode(XMLStreamReader)
 }
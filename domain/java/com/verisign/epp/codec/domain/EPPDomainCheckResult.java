@@ -32,6 +32,9 @@ import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
 import org.w3c.dom.Text;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 // EPP Imports
 import com.verisign.epp.codec.gen.*;
 
@@ -45,7 +48,8 @@ import com.verisign.epp.codec.gen.*;
  * <code>false</code>.
  * @see com.verisign.epp.codec.domain.EPPDomainCheckResp
  */
-public class EPPDomainCheckResult implements EPPCodecComponent {
+public class EPPDomainCheckResult implements EPPCodecComponent, EPPStreamDecodable,
+		EPPStreamEncodable {
 	/** XML root tag name for <code>EPPDomainCheckResult</code>. */
 	final static String ELM_NAME = "domain:cd";
 
@@ -291,6 +295,53 @@ public class EPPDomainCheckResult implements EPPCodecComponent {
 
 	// End EPPDomainCheckResult.encode(Document)
 
+	/**
+	 * Writes the <code>EPPDomainCheckResult</code> instance directly to an
+	 * <code>EPPXMLWriter</code> with the same elements as
+	 * <code>encode(Document)</code>.
+	 *
+	 * @param aWriter Writer to write the &ltdomain:cd&gt element to
+	 *
+	 * @exception EPPEncodeException Unable to encode
+	 * 			  <code>EPPDomainCheckResult</code> instance.
+	 */
+	public void encode(EPPXMLWriter aWriter) throws EPPEncodeException {
+		// Validate state
+		if (name == null) {
+			throw new EPPEncodeException("name required attribute is not set");
+		}
+
+		aWriter.writeStartElement(EPPDomainMapFactory.NS, ELM_NAME);
+
+		// Domain Name
+		aWriter.writeStartElement(EPPDomainMapFactory.NS, ELM_DOMAIN_NAME);
+
+		// Available
+		aWriter.writeAttribute(ATTR_AVAIL, this.available ? "1" : "0");
+
+		// Name
+		aWriter.writeCharacters(name);
+		aWriter.writeEndElement();
+
+		// Domain Reason
+		if (reason != null) {
+			aWriter.writeStartElement(EPPDomainMapFactory.NS, ELM_DOMAIN_REASON);
+
+			// Language
+			if (!language.equals(VALUE_LANG)) {
+				aWriter.writeAttribute(ATTR_LANG, language);
+			}
+
+			// Domain Reason
+			aWriter.writeCharacters(reason);
+			aWriter.writeEndElement();
+		}
+
+		aWriter.writeEndElement();
+	}
+
+	// End EPPDomainCheckResult.encode(EPPXMLWriter)
+
 	/**
 	 * Decode the <code>EPPDomainCheckResult</code> attributes from the
 	 * aElement DOM Element tree.
@@ -326,6 +377,64 @@ public class EPPDomainCheckResult implements EPPCodecComponent {
 
 	// End EPPDomainCheckResult.decode(Element)
 
+	/**
+	 * Decode the <code>EPPDomainCheckResult</code> attributes from the
+	 * &lt;domain:cd&gt; element with an <code>XMLStreamReader</code>.
+	 *
+	 * @param aReader Reader positioned on the &lt;domain:cd&gt; element
+	 *
+	 * @exception EPPDecodeException Error decoding the element
+	 * @exception XMLStreamException Error reading from <code>aReader</code>
+	 */
+	public void decode(XMLStreamReader aReader)
+				throws EPPDecodeException, XMLStreamException {
+		while (EPPStreamUtil.nextChild(aReader)) {
+			// Name and Available
+			if (
+				EPPStreamUtil.isElement(
+										aReader, EPPDomainMapFactory.NS,
+										ELM_DOMAIN_NAME)) {
+				String theAvail =
+					EPPStreamUtil.getAttribute(aReader, ATTR_AVAIL);
+
+				if (theAvail.equals("1") || theAvail.equals("true")) {
+					this.available = true;
+				}
+				else if (theAvail.equals("0") || theAvail.equals("false")) {
+					this.available = false;
+				}
+				else {
+					throw new EPPDecodeException("EPPDomainCheckResult.decode: Invalid boolean attr "
+												 + ATTR_AVAIL + " value of "
+												 + theAvail);
+				}
+
+				this.name = EPPStreamUtil.getText(aReader);
+			}
+
+			// Domain Reason
+			else if (
+				EPPStreamUtil.isElement(
+										aReader, EPPDomainMapFactory.NS,
+										ELM_DOMAIN_REASON)) {
+				String theLang = EPPStreamUtil.getAttribute(aReader, ATTR_LANG);
+
+				this.reason = EPPStreamUtil.getText(aReader);
+
+				if (theLang.length() > 0) {
+					if (!theLang.equals(VALUE_LANG)) {
+						setLanguage(theLang);
+					}
+				}
+			}
+			else {
+				EPPStreamUtil.skipElement(aReader);
+			}
+		}
+	}
+
+	// End EPPDomainCheckResult.decode(XMLStreamReader)
+
 	/**
 	 * Compare an instance of <code>EPPDomainPingResp</code> with this
 	 * instance.
@@ -30,6 +30,9 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Text;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 // EPP Imports
 import com.verisign.epp.codec.gen.*;
 
@@ -42,7 +45,7 @@ import com.verisign.epp.codec.gen.*;
  * @author $Author: jim $
  * @version $Revision: 1.2 $
  */
-public class EPPDomainContact implements EPPCodecComponent {
+public class EPPDomainContact implements EPPCodecComponent, EPPStreamDecodable {
 	/** Administrative Domain Contact */
 	public final static String TYPE_ADMINISTRATIVE = "admin";
 
@@ -192,6 +195,26 @@ public class EPPDomainContact implements EPPCodecComponent {
 
 	// End EPPDomainContact.decode(Element)
 
+	/**
+	 * Decode the EPPDomainContact attributes from the &lt;domain:contact&gt;
+	 * element with an <code>XMLStreamReader</code>.
+	 *
+	 * @param aReader Reader positioned on the &lt;domain:contact&gt; element
+	 *
+	 * @exception EPPDecodeException Error decoding the element
+	 * @exception XMLStreamException Error reading from <code>aReader</code>
+	 */
+	public void decode(XMLStreamReader aReader)
+				throws EPPDecodeException, XMLStreamException {
+		// Type
+		type     = EPPStreamUtil.getAttribute(aReader, ATTR_TYPE);
+
+		// Name		
+		name = EPPStreamUtil.getText(aReader);
+	}
+
+	// End EPPDomainContact.decode(XMLStreamReader)
+
 	/**
 	 * implements a deep <code>EPPDomainContact</code> compare.
 	 *
@@ -32,6 +32,7 @@ import com.verisign.epp.codec.gen.EPPDecodeException;
 import com.verisign.epp.codec.gen.EPPEncodeException;
 import com.verisign.epp.codec.gen.EPPInfoCmd;
 import com.verisign.epp.codec.gen.EPPUtil;
+import com.verisign.epp.codec.gen.EPPXMLWriter;
 import com.verisign.epp.util.EPPCatFactory;
 
 
@@ -233,6 +234,45 @@ public class EPPDomainInfoCmd extends EPPInfoCmd {
 	}
 
 
+	/**
+	 * Writes the <code>EPPDomainInfoCmd</code> instance directly to an
+	 * <code>EPPXMLWriter</code> with the same elements as
+	 * <code>doEncode(Document)</code>.
+	 *
+	 * @param aWriter Writer to write the &ltdomain:info&gt element to
+	 *
+	 * @exception EPPEncodeException Unable to encode
+	 * 			  <code>EPPDomainInfoCmd</code> instance.
+	 */
+	protected void doEncode(EPPXMLWriter aWriter) throws EPPEncodeException {
+		// Validate state
+		if (name == null) {
+			throw new EPPEncodeException("required attribute name is not set");
+		}
+
+		aWriter.writeStartElement(EPPDomainMapFactory.NS, ELM_NAME);
+		aWriter.writeAttribute(
+							   EPPCodec.NS_XSI, "xsi:schemaLocation",
+							   EPPDomainMapFactory.NS_SCHEMA);
+
+		// Name
+		aWriter.writeStartElement(EPPDomainMapFactory.NS, ELM_DOMAIN_NAME);
+
+		// Non-default hosts option specified?
+		if (hosts != null) {
+			aWriter.writeAttribute(ATTR_HOSTS, hosts);
+		}
+
+		aWriter.writeCharacters(name);
+		aWriter.writeEndElement();
+
+		// Authorization Info
+		aWriter.writeComp(authInfo);
+
+		aWriter.writeEndElement();
+	}
+
+
 	/**
 	 * Decode the <code>EPPDomainInfoCmd</code> attributes from the aElement
 	 * DOM Element tree.
@@ -38,6 +38,9 @@ import java.util.Date;
 // Java Core Imports
 import java.util.Vector;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 // EPP Imports
 import com.verisign.epp.codec.gen.*;
 import com.verisign.epp.util.EPPCatFactory;
@@ -1183,6 +1186,138 @@ public class EPPDomainInfoResp extends EPPResponse {
 
 	// End EPPDomainInfoResp.doDecode(Element)
 
+	/**
+	 * Decode the <code>EPPDomainInfoResp</code> attributes from the
+	 * &lt;domain:infData&gt; element with an <code>XMLStreamReader</code>,
+	 * which avoids building a DOM tree for responses with many hosts and
+	 * contacts.
+	 *
+	 * @param aReader Reader positioned on the &lt;domain:infData&gt; element
+	 *
+	 * @exception EPPDecodeException Error decoding the element
+	 * @exception XMLStreamException Error reading from <code>aReader</code>
+	 */
+	protected void doDecode(XMLStreamReader aReader)
+					 throws EPPDecodeException, XMLStreamException {
+		String theNS = EPPDomainMapFactory.NS;
+
+		while (EPPStreamUtil.nextChild(aReader)) {
+			// Name
+			if (EPPStreamUtil.isElement(aReader, theNS, ELM_DOMAIN_NAME)) {
+				name = EPPStreamUtil.getText(aReader);
+			}
+
+			// roid
+			else if (EPPStreamUtil.isElement(aReader, theNS, ELM_ROID)) {
+				roid = EPPStreamUtil.getText(aReader);
+			}
+
+			// Statuses
+			else if (EPPStreamUtil.isElement(aReader, theNS, ELM_STATUS)) {
+				statuses =
+					EPPStreamUtil.addComp(
+										  aReader, statuses,
+										  EPPDomainStatus.class);
+			}
+
+			// registant
+			else if (EPPStreamUtil.isElement(aReader, theNS, ELM_REGISTRANT)) {
+				registrant = EPPStreamUtil.getText(aReader);
+			}
+
+			// Contacts
+			else if (EPPStreamUtil.isElement(aReader, theNS, ELM_CONTACT)) {
+				contacts =
+					EPPStreamUtil.addComp(
+										  aReader, contacts,
+										  EPPDomainContact.class);
+			}
+
+			// name servers
+			else if (EPPStreamUtil.isElement(aReader, theNS, ELM_NS)) {
+				Vector theServers = new Vector();
+
+				while (EPPStreamUtil.nextChild(aReader)) {
+					if (EPPStreamUtil.isElement(aReader, theNS, ELM_HOST_OBJ)) {
+						theServers.addElement(EPPStreamUtil.getText(aReader));
+					}
+					else if (
+						EPPStreamUtil.isElement(aReader, theNS, ELM_HOST_ATTR)) {
+						EPPStreamUtil.addComp(
+											  aReader, theServers,
+											  EPPHostAttr.class);
+					}
+					else {
+						throw new EPPDecodeException("EPPDomainInfoResp.doDecode: Invalid host child element "
+													 + aReader.getLocalName());
+					}
+				}
+
+				nses = theServers;
+			}
+
+			// Child Servers
+			else if (EPPStreamUtil.isElement(aReader, theNS, ELM_HOST)) {
+				hosts.addElement(EPPStreamUtil.getText(aReader));
+			}
+
+			// Client Id
+			else if (EPPStreamUtil.isElement(aReader, theNS, ELM_CLID)) {
+				clientId = EPPStreamUtil.getText(aReader);
+			}
+
+			// Created By
+			else if (EPPStreamUtil.isElement(aReader, theNS, ELM_CRID)) {
+				createdBy = EPPStreamUtil.getText(aReader);
+			}
+
+			// Created Date
+			else if (EPPStreamUtil.isElement(aReader, theNS, ELM_CRDATE)) {
+				createdDate =
+					EPPUtil.decodeTimeInstant(EPPStreamUtil.getText(aReader));
+			}
+
+			// Expiration Date
+			else if (EPPStreamUtil.isElement(aReader, theNS, ELM_EXDATE)) {
+				expirationDate =
+					EPPUtil.decodeTimeInstant(EPPStreamUtil.getText(aReader));
+			}
+
+			// Last Updated By
+			else if (EPPStreamUtil.isElement(aReader, theNS, ELM_UPID)) {
+				lastUpdatedBy = EPPStreamUtil.getText(aReader);
+			}
+
+			// Last Updated Date
+			else if (EPPStreamUtil.isElement(aReader, theNS, ELM_UPDATE)) {
+				lastUpdatedDate =
+					EPPUtil.decodeTimeInstant(EPPStreamUtil.getText(aReader));
+			}
+
+			// Last Transfer Date
+			else if (EPPStreamUtil.isElement(aReader, theNS, ELM_TRDATE)) {
+				lastTransferDate =
+					EPPUtil.decodeTimeInstant(EPPStreamUtil.getText(aReader));
+			}
+
+			// Authorization Info
+			else if (
+				EPPStreamUtil.isElement(
+										aReader, theNS,
+										EPPDomainMapFactory.ELM_DOMAIN_AUTHINFO)) {
+				authInfo =
+					(EPPAuthInfo) EPPStreamUtil.decodeComp(
+														   aReader,
+														   EPPAuthInfo.class);
+			}
+			else {
+				EPPStreamUtil.skipElement(aReader);
+			}
+		}
+	}
+
+	// End EPPDomainInfoResp.doDecode(XMLStreamReader)
+
 	/**
 	 * Validate the state of the <code>EPPDomainInfoResp</code> instance.  A
 	 * valid state means that all of the required attributes have been set. If
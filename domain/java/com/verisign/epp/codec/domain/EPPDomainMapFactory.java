@@ -191,6 +191,35 @@ public class EPPDomainMapFactory extends EPPMapFactory {
 		}
 	}
 
+	/**
+	 * Creates a concrete <code>EPPResponse</code> that supports the streaming
+	 * decode given the local name of the response data element.  The
+	 * &lt;domain:chkData&gt; and &lt;domain:infData&gt; responses support
+	 * streaming, and <code>null</code> is returned for the other responses
+	 * so that they are decoded with <code>createResponse(Element)</code>.
+	 *
+	 * @param aLocalName Local name of the response data element.  For example
+	 * 		  &quot;infData&quot;.
+	 *
+	 * @return Concrete <code>EPPResponse</code> that supports streaming if
+	 * 		   available; <code>null</code> otherwise.
+	 *
+	 * @exception EPPCodecException Error creating the concrete
+	 * 			  <code>EPPResponse</code>
+	 */
+	public EPPResponse createStreamResponse(String aLocalName)
+									 throws EPPCodecException {
+		if (aLocalName.equals(EPPUtil.getLocalName(EPPDomainCheckResp.ELM_NAME))) {
+			return new EPPDomainCheckResp();
+		}
+		else if (aLocalName.equals(EPPUtil.getLocalName(EPPDomainInfoResp.ELM_NAME))) {
+			return new EPPDomainInfoResp();
+		}
+		else {
+			return null;
+		}
+	}
+
 	/**
 	 * Gets the <code>EPPService</code> associated with
 	 * <code>EPPDomainMapFactory</code>.  The     <code>EPPService</code> is
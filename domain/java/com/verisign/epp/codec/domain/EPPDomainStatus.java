@@ -28,6 +28,9 @@ package com.verisign.epp.codec.domain;
 // W3C Imports
 import org.w3c.dom.*;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 // EPP Imports
 import com.verisign.epp.codec.gen.*;
 
@@ -95,7 +98,7 @@ import com.verisign.epp.codec.gen.*;
  * </ul>
  */
 public class EPPDomainStatus
-	implements com.verisign.epp.codec.gen.EPPCodecComponent {
+	implements com.verisign.epp.codec.gen.EPPCodecComponent, EPPStreamDecodable {
 	/** Value of the OK status in domain mapping */
 	public final static java.lang.String ELM_STATUS_OK = "ok";
 
@@ -285,6 +288,38 @@ public class EPPDomainStatus
 
 	// End EPPDomainStatus.doDecode(Element)
 
+	/**
+	 * Decode the EPPDomainStatus attributes from the &lt;domain:status&gt;
+	 * element with an <code>XMLStreamReader</code>.
+	 *
+	 * @param aReader Reader positioned on the &lt;domain:status&gt; element
+	 *
+	 * @exception EPPDecodeException Error decoding the element
+	 * @exception XMLStreamException Error reading from <code>aReader</code>
+	 */
+	public void decode(XMLStreamReader aReader)
+				throws EPPDecodeException, XMLStreamException {
+		// Status
+		status = EPPStreamUtil.getAttribute(aReader, ELM_STATUS);
+
+		String theLang = EPPStreamUtil.getAttribute(aReader, ELM_LANG);
+
+		// Description
+		String theDesc = EPPStreamUtil.getText(aReader);
+
+		if (theDesc.length() > 0) {
+			description = theDesc;
+
+			// Description Language
+			if (theLang.equals(""))
+				lang = ELM_DEFAULT_LANG;
+			else
+				lang = theLang;
+		}
+	}
+
+	// End EPPDomainStatus.decode(XMLStreamReader)
+
 	/**
 	 * Encode a DOM Element tree from the attributes of the EPPDomainStatus
 	 * instance.
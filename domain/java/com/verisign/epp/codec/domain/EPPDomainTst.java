@@ -161,6 +161,39 @@ public class EPPDomainTst extends TestCase {
 
 	// End EPPDomainTst.testDomainInfo()
 
+	/**
+	 * Unit test of the logging guards in the codec and transport paths with a
+	 * <code>EPPDomainInfoResp</code>, which runs the domain mapping with
+	 * <code>EPPCodecTst.testLogAllocation(EPPMessage)</code>.
+	 */
+	public void testDomainLogAllocation() {
+		EPPCodecTst.printStart("testDomainLogAllocation");
+
+		Vector statuses = new Vector();
+		statuses.addElement(new EPPDomainStatus(EPPDomainStatus.ELM_STATUS_OK));
+
+		EPPDomainInfoResp theResponse =
+			new EPPDomainInfoResp(
+								  new EPPTransId("ABC-12345", "54321-XYZ"),
+								  "EXAMPLE1-VRSN", "example.com", "ClientX", statuses,
+								  "ClientY", new Date(), new EPPAuthInfo("2fooBAR"));
+		theResponse.setRegistrant("JD1234-VRSN");
+
+		Vector servers = new Vector();
+		servers.addElement("ns1.example.com");
+		servers.addElement("ns2.example.com");
+		theResponse.setNses(servers);
+		theResponse.setLastUpdatedBy("ClientX");
+		theResponse.setLastUpdatedDate(new Date());
+		theResponse.setResult(EPPResult.SUCCESS);
+
+		EPPCodecTst.testLogAllocation(theResponse);
+
+		EPPCodecTst.printEnd("testDomainLogAllocation");
+	}
+
+	// End EPPDomainTst.testDomainLogAllocation()
+
 	/**
 	 * Unit test of <code>EPPDomainPendActionMsg</code>.<br>
 	 * This test will be invoked by JUNIT, since it is prefixed with "test"
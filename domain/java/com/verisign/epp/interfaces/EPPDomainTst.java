@@ -34,6 +34,7 @@ import org.apache.log4j.*;
 // Java Core Imports
 import java.util.GregorianCalendar;
 import java.util.Random;
+import java.util.Vector;
 
 import com.verisign.epp.codec.domain.*;
 import com.verisign.epp.codec.gen.EPPFactory;
@@ -44,6 +45,7 @@ import com.verisign.epp.codec.gen.EPPResult;
 import com.verisign.epp.interfaces.EPPApplicationSingle;
 import com.verisign.epp.interfaces.EPPCommandException;
 import com.verisign.epp.interfaces.EPPDomain;
+import com.verisign.epp.interfaces.EPPPollListener;
 import com.verisign.epp.transport.EPPClientCon;
 import com.verisign.epp.util.EPPCatFactory;
 import com.verisign.epp.util.Environment;
@@ -154,6 +156,8 @@ public class EPPDomainTst extends TestCase {
 
 			domainPoll();
 
+			domainDrainPoll();
+
 			printEnd("Test Suite");
 		}
 	}
@@ -888,6 +892,49 @@ public class EPPDomainTst extends TestCase {
 		printEnd("domainPoll");
 	}
 
+	/**
+	 * Unit test of <code>EPPSession.drainPoll</code>, which acknowledges the 
+	 * remaining poll messages with the ack pipelined with the next request.
+	 */
+	public void domainDrainPoll() {
+		printStart("domainDrainPoll");
+
+		final Vector theHandled = new Vector();
+		final Vector theAcked = new Vector();
+
+		try {
+			// Queue a message to drain
+			domain.setTransferOpCode(EPPDomain.TRANSFER_REQUEST);
+			domain.setTransId("ABC-12345-XYZ");
+			domain.setAuthString("ClientX");
+			domain.addDomainName(this.makeDomainName());
+			domain.sendTransfer();
+
+			int theCount = session.drainPoll(new EPPPollListener() {
+
+				public boolean handleMessage(EPPResponse aMessage) {
+					System.out.println("domainDrainPoll: Message = [" + aMessage + "]\n\n");
+					theHandled.addElement(aMessage.getMsgQueue().getId());
+					return true;
+				}
+
+				public void acknowledged(String aMsgID) {
+					theAcked.addElement(aMsgID);
+				}
+			}, 0);
+
+			System.out.println("domainDrainPoll: Acknowledged " + theCount + " messages");
+			Assert.assertTrue("domainDrainPoll: No messages drained", theCount > 0);
+			Assert.assertEquals(theHandled, theAcked);
+			Assert.assertEquals(theCount, theAcked.size());
+		}
+		 catch (EPPCommandException ex) {
+			handleException(ex);
+		}
+
+		printEnd("domainDrainPoll");
+	}
+
 	/**
 	 * Unit test of <code>EPPDomain.sendTransfer</code> for a transfer query.
 	 */
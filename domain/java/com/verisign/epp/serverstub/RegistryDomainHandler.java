@@ -0,0 +1,554 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.serverstub;
+
+import java.util.Date;
+import java.util.Enumeration;
+import java.util.Vector;
+
+import org.apache.log4j.Logger;
+
+import com.verisign.epp.codec.domain.EPPDomainAddRemove;
+import com.verisign.epp.codec.domain.EPPDomainCheckCmd;
+import com.verisign.epp.codec.domain.EPPDomainCheckResp;
+import com.verisign.epp.codec.domain.EPPDomainCheckResult;
+import com.verisign.epp.codec.domain.EPPDomainContact;
+import com.verisign.epp.codec.domain.EPPDomainCreateCmd;
+import com.verisign.epp.codec.domain.EPPDomainCreateResp;
+import com.verisign.epp.codec.domain.EPPDomainDeleteCmd;
+import com.verisign.epp.codec.domain.EPPDomainInfoCmd;
+import com.verisign.epp.codec.domain.EPPDomainInfoResp;
+import com.verisign.epp.codec.domain.EPPDomainMapFactory;
+import com.verisign.epp.codec.domain.EPPDomainPeriod;
+import com.verisign.epp.codec.domain.EPPDomainRenewCmd;
+import com.verisign.epp.codec.domain.EPPDomainRenewResp;
+import com.verisign.epp.codec.domain.EPPDomainStatus;
+import com.verisign.epp.codec.domain.EPPDomainTransferCmd;
+import com.verisign.epp.codec.domain.EPPDomainTransferResp;
+import com.verisign.epp.codec.domain.EPPDomainUpdateCmd;
+import com.verisign.epp.codec.gen.EPPAuthInfo;
+import com.verisign.epp.codec.gen.EPPCommand;
+import com.verisign.epp.codec.gen.EPPResponse;
+import com.verisign.epp.codec.gen.EPPResult;
+import com.verisign.epp.codec.gen.EPPTransId;
+import com.verisign.epp.framework.EPPDomainHandler;
+import com.verisign.epp.framework.EPPEvent;
+import com.verisign.epp.framework.EPPEventResponse;
+import com.verisign.epp.framework.EPPHandleEventException;
+import com.verisign.epp.framework.EPPPollQueueException;
+import com.verisign.epp.framework.EPPPollQueueMgr;
+import com.verisign.epp.util.EPPCatFactory;
+
+/**
+ * The <code>RegistryDomainHandler</code> class is a concrete implementation
+ * of the abstract <code>com.verisign.epp.framework.EPPDomainHandler</code>
+ * class that executes the EPP Domain Commands against the
+ * <code>Registry</code> of the Stub Server, in place of the fixed responses
+ * of <code>DomainHandler</code>.  The name servers must be host objects of
+ * the <code>Registry</code>, and the transfer requests and actions are
+ * inserted in the poll queue.  A command rejected by the
+ * <code>Registry</code> gets the result code of the
+ * <code>RegistryException</code>, with its description as the reason.<br>
+ * <br>
+ *
+ * @see com.verisign.epp.serverstub.Registry
+ * @see com.verisign.epp.serverstub.DomainHandler
+ */
+public class RegistryDomainHandler extends EPPDomainHandler {
+
+	/** Server transaction identifier of the responses */
+	private static final String svrTransId = "54322-XYZ";
+
+	/** Registration period in months when the command has no period */
+	private static final int DEFAULT_PERIOD = 12;
+
+	/** Log4j category for logging */
+	private static Logger cat = Logger.getLogger(RegistryDomainHandler.class.getName(), EPPCatFactory.getInstance()
+			.getFactory());
+
+	/** Registry of the Stub Server */
+	private Registry registry = Registry.getInstance();
+
+	/**
+	 * Constructs an instance of <code>RegistryDomainHandler</code>
+	 */
+	public RegistryDomainHandler() {
+	}
+
+	/**
+	 * Checks that the client has established a session, since the
+	 * <code>Registry</code> commands are executed on behalf of the logged in
+	 * client.
+	 *
+	 * @param aEvent The <code>EPPEvent</code> that is being handled
+	 * @param aData Any data that a Server needs to send to this
+	 *        <code>EPPDomainHandler</code> This is assumed to be an instance of
+	 *        SessionData here.
+	 *
+	 * @exception EPPHandleEventException Thrown if the client is not logged in
+	 */
+	protected void preHandleEvent(EPPEvent aEvent, Object aData) throws EPPHandleEventException {
+		SessionData theSessionData = (SessionData) aData;
+		EPPCommand theMessage = (EPPCommand) aEvent.getMessage();
+
+		if (!theSessionData.isLoggedIn()) {
+			EPPResponse theResponse = new EPPResponse(new EPPTransId(theMessage.getTransId(), svrTransId));
+			theResponse.setResult(EPPResult.COMMAND_FAILED_END);
+			throw new EPPHandleEventException("The client has not established a session", theResponse);
+		}
+	}
+
+	/**
+	 * Handles any common behavior that all Domain commands need to execute
+	 * after they execute their command specific behavior.
+	 *
+	 * @param aEvent The <code>EPPEvent</code> that is being handled
+	 * @param aData Any data that a Server needs to send to this
+	 *        <code>EPPDomainHandler</code>
+	 *
+	 * @exception EPPHandleEventException Thrown if an error condition occurs.
+	 *            It must contain an <code>EPPEventResponse</code>
+	 */
+	protected void postHandleEvent(EPPEvent aEvent, Object aData) throws EPPHandleEventException {
+	}
+
+	/**
+	 * Invoked when a Domain Check command is received, where a domain is
+	 * available when it does not exist in the <code>Registry</code>.
+	 *
+	 * @param aEvent The <code>EPPEvent</code> that is being handled
+	 * @param aData Any data that a Server needs to send to this
+	 *        <code>EPPDomainHandler</code>
+	 *
+	 * @return EPPEventResponse The response that should be sent back to the
+	 *         client.
+	 */
+	protected EPPEventResponse doDomainCheck(EPPEvent aEvent, Object aData) {
+		EPPDomainCheckCmd theMessage = (EPPDomainCheckCmd) aEvent.getMessage();
+
+		Vector theResults = new Vector();
+		for (Enumeration theNames = theMessage.getNames().elements(); theNames.hasMoreElements();) {
+			String theName = (String) theNames.nextElement();
+			theResults.addElement(new EPPDomainCheckResult(theName, this.registry.isDomainAvailable(theName)));
+		}
+
+		EPPResponse theResponse = new EPPDomainCheckResp(new EPPTransId(theMessage.getTransId(), svrTransId),
+				theResults);
+		theResponse.setResult(EPPResult.SUCCESS);
+
+		return new EPPEventResponse(theResponse);
+	}
+
+	/**
+	 * Invoked when a Domain Create command is received.
+	 *
+	 * @param aEvent The <code>EPPEvent</code> that is being handled
+	 * @param aData Any data that a Server needs to send to this
+	 *        <code>EPPDomainHandler</code>
+	 *
+	 * @return EPPEventResponse The response that should be sent back to the
+	 *         client.
+	 */
+	protected EPPEventResponse doDomainCreate(EPPEvent aEvent, Object aData) {
+		EPPDomainCreateCmd theMessage = (EPPDomainCreateCmd) aEvent.getMessage();
+		EPPTransId theTransId = new EPPTransId(theMessage.getTransId(), svrTransId);
+
+		try {
+			RegistryDomain theDomain = new RegistryDomain(theMessage.getName());
+			theDomain.setRegistrant(theMessage.getRegistrant());
+			addContacts(theDomain, theMessage.getContacts());
+			addServers(theDomain, theMessage.getServers());
+			theDomain.setAuthInfo(getPassword(theMessage.getAuthInfo()));
+
+			theDomain = this.registry.createDomain(getClientId(aData), theDomain, getMonths(theMessage.getPeriod()));
+
+			EPPResponse theResponse = new EPPDomainCreateResp(theTransId, theMessage.getName(), theDomain
+					.getCreatedDate(), theDomain.getExpirationDate());
+			theResponse.setResult(EPPResult.SUCCESS);
+
+			return new EPPEventResponse(theResponse);
+		}
+		catch (RegistryException ex) {
+			return createErrorResponse(theTransId, ex);
+		}
+	}
+
+	/**
+	 * Invoked when a Domain Delete command is received.
+	 *
+	 * @param aEvent The <code>EPPEvent</code> that is being handled
+	 * @param aData Any data that a Server needs to send to this
+	 *        <code>EPPDomainHandler</code>
+	 *
+	 * @return EPPEventResponse The response that should be sent back to the
+	 *         client.
+	 */
+	protected EPPEventResponse doDomainDelete(EPPEvent aEvent, Object aData) {
+		EPPDomainDeleteCmd theMessage = (EPPDomainDeleteCmd) aEvent.getMessage();
+		EPPTransId theTransId = new EPPTransId(theMessage.getTransId(), svrTransId);
+
+		try {
+			this.registry.deleteDomain(getClientId(aData), theMessage.getName());
+
+			EPPResponse theResponse = new EPPResponse(theTransId);
+			theResponse.setResult(EPPResult.SUCCESS);
+
+			return new EPPEventResponse(theResponse);
+		}
+		catch (RegistryException ex) {
+			return createErrorResponse(theTransId, ex);
+		}
+	}
+
+	/**
+	 * Invoked when a Domain Renew command is received.
+	 *
+	 * @param aEvent The <code>EPPEvent</code> that is being handled
+	 * @param aData Any data that a Server needs to send to this
+	 *        <code>EPPDomainHandler</code>
+	 *
+	 * @return EPPEventResponse The response that should be sent back to the
+	 *         client.
+	 */
+	protected EPPEventResponse doDomainRenew(EPPEvent aEvent, Object aData) {
+		EPPDomainRenewCmd theMessage = (EPPDomainRenewCmd) aEvent.getMessage();
+		EPPTransId theTransId = new EPPTransId(theMessage.getTransId(), svrTransId);
+
+		try {
+			RegistryDomain theDomain = this.registry.renewDomain(getClientId(aData), theMessage.getName(),
+					theMessage.getCurExpDate(), getMonths(theMessage.getPeriod()));
+
+			EPPResponse theResponse = new EPPDomainRenewResp(theTransId, theMessage.getName(), theDomain
+					.getExpirationDate());
+			theResponse.setResult(EPPResult.SUCCESS);
+
+			return new EPPEventResponse(theResponse);
+		}
+		catch (RegistryException ex) {
+			return createErrorResponse(theTransId, ex);
+		}
+	}
+
+	/**
+	 * Invoked when a Domain Update command is received.
+	 *
+	 * @param aEvent The <code>EPPEvent</code> that is being handled
+	 * @param aData Any data that a Server needs to send to this
+	 *        <code>EPPDomainHandler</code>
+	 *
+	 * @return EPPEventResponse The response that should be sent back to the
+	 *         client.
+	 */
+	protected EPPEventResponse doDomainUpdate(EPPEvent aEvent, Object aData) {
+		EPPDomainUpdateCmd theMessage = (EPPDomainUpdateCmd) aEvent.getMessage();
+		EPPTransId theTransId = new EPPTransId(theMessage.getTransId(), svrTransId);
+
+		try {
+			RegistryDomain theChange = null;
+			if (theMessage.getChange() != null) {
+				theChange = new RegistryDomain();
+				theChange.setRegistrant(theMessage.getChange().getRegistrant());
+				theChange.setAuthInfo(getPassword(theMessage.getChange().getAuthInfo()));
+			}
+
+			this.registry.updateDomain(getClientId(aData), theMessage.getName(), toRegistryDomain(theMessage
+					.getAdd()), toRegistryDomain(theMessage.getRemove()), theChange);
+
+			EPPResponse theResponse = new EPPResponse(theTransId);
+			theResponse.setResult(EPPResult.SUCCESS);
+
+			return new EPPEventResponse(theResponse);
+		}
+		catch (RegistryException ex) {
+			return createErrorResponse(theTransId, ex);
+		}
+	}
+
+	/**
+	 * Invoked when a Domain Info command is received, where the authorization
+	 * information is only returned to the sponsoring client or when it
+	 * matches the authorization information of the command.
+	 *
+	 * @param aEvent The <code>EPPEvent</code> that is being handled
+	 * @param aData Any data that a Server needs to send to this
+	 *        <code>EPPDomainHandler</code>
+	 *
+	 * @return EPPEventResponse The response that should be sent back to the
+	 *         client.
+	 */
+	protected EPPEventResponse doDomainInfo(EPPEvent aEvent, Object aData) {
+		EPPDomainInfoCmd theMessage = (EPPDomainInfoCmd) aEvent.getMessage();
+		EPPTransId theTransId = new EPPTransId(theMessage.getTransId(), svrTransId);
+
+		try {
+			RegistryDomain theDomain = this.registry.getDomain(getClientId(aData), theMessage.getName(),
+					getPassword(theMessage.getAuthInfo()));
+
+			Vector theStatuses = new Vector();
+			for (String theStatus : theDomain.getStatuses()) {
+				theStatuses.addElement(new EPPDomainStatus(theStatus));
+			}
+
+			EPPDomainInfoResp theResponse = new EPPDomainInfoResp();
+			theResponse.setTransId(theTransId);
+			theResponse.setName(theDomain.getName());
+			theResponse.setRoid(theDomain.getRoid());
+			theResponse.setStatuses(theStatuses);
+			theResponse.setRegistrant(theDomain.getRegistrant());
+
+			Vector theContacts = new Vector();
+			for (RegistryDomain.Contact theContact : theDomain.getContacts()) {
+				theContacts.addElement(new EPPDomainContact(theContact.getId(), theContact.getType()));
+			}
+			if (!theContacts.isEmpty()) {
+				theResponse.setContacts(theContacts);
+			}
+
+			String theHosts = theMessage.getHosts() == null ? EPPDomainInfoCmd.HOSTS_ALL : theMessage.getHosts();
+			if (!theDomain.getServers().isEmpty()
+					&& (theHosts.equals(EPPDomainInfoCmd.HOSTS_ALL) || theHosts
+							.equals(EPPDomainInfoCmd.HOSTS_DELEGATED))) {
+				theResponse.setNses(new Vector(theDomain.getServers()));
+			}
+			if (!theDomain.getHosts().isEmpty()
+					&& (theHosts.equals(EPPDomainInfoCmd.HOSTS_ALL) || theHosts
+							.equals(EPPDomainInfoCmd.HOSTS_SUBORDINATE))) {
+				theResponse.setHosts(new Vector(theDomain.getHosts()));
+			}
+
+			theResponse.setClientId(theDomain.getClientId());
+			theResponse.setCreatedBy(theDomain.getCreatedBy());
+			theResponse.setCreatedDate(theDomain.getCreatedDate());
+			theResponse.setLastUpdatedBy(theDomain.getUpdatedBy());
+			theResponse.setLastUpdatedDate(theDomain.getUpdatedDate());
+			theResponse.setExpirationDate(theDomain.getExpirationDate());
+			theResponse.setLastTransferDate(theDomain.getTransferDate());
+			if (theDomain.getAuthInfo() != null) {
+				theResponse.setAuthInfo(new EPPAuthInfo(theDomain.getAuthInfo()));
+			}
+
+			theResponse.setResult(EPPResult.SUCCESS);
+
+			return new EPPEventResponse(theResponse);
+		}
+		catch (RegistryException ex) {
+			return createErrorResponse(theTransId, ex);
+		}
+	}
+
+	/**
+	 * Invoked when a Domain Transfer command is received.  A transfer request
+	 * and the approve, reject, and cancel actions insert a transfer message in
+	 * the poll queue.
+	 *
+	 * @param aEvent The <code>EPPEvent</code> that is being handled
+	 * @param aData Any data that a Server needs to send to this
+	 *        <code>EPPDomainHandler</code>
+	 *
+	 * @return EPPEventResponse The response that should be sent back to the
+	 *         client.
+	 */
+	protected EPPEventResponse doDomainTransfer(EPPEvent aEvent, Object aData) {
+		EPPDomainTransferCmd theMessage = (EPPDomainTransferCmd) aEvent.getMessage();
+		EPPTransId theTransId = new EPPTransId(theMessage.getTransId(), svrTransId);
+
+		try {
+			RegistryDomain theDomain = this.registry.transferDomain(getClientId(aData), theMessage.getOp(),
+					theMessage.getName(), getPassword(theMessage.getAuthInfo()), getMonths(theMessage.getPeriod()));
+
+			if (!theMessage.getOp().equals(EPPCommand.OP_QUERY)) {
+				EPPDomainTransferResp thePollMsg = toTransferResp(new EPPDomainTransferResp(), theDomain);
+				thePollMsg.setResult(EPPResult.SUCCESS);
+
+				try {
+					EPPPollQueueMgr.getInstance().put(theDomain.getTransferRecipient(getClientId(aData)),
+							EPPDomainMapFactory.NS, thePollMsg, null);
+				}
+				catch (EPPPollQueueException ex) {
+					// The transfer is done, so only the poll message is lost
+					cat.error("doDomainTransfer: Error putting message [" + thePollMsg + "]", ex);
+				}
+			}
+
+			EPPDomainTransferResp theResponse = toTransferResp(new EPPDomainTransferResp(theTransId, theDomain
+					.getName()), theDomain);
+			theResponse.setResult(EPPResult.SUCCESS);
+
+			return new EPPEventResponse(theResponse);
+		}
+		catch (RegistryException ex) {
+			return createErrorResponse(theTransId, ex);
+		}
+	}
+
+	/**
+	 * Sets the transfer attributes of a transfer response from a domain.
+	 *
+	 * @param aResponse Transfer response or poll message
+	 * @param aDomain Domain with the transfer attributes
+	 *
+	 * @return <code>aResponse</code>
+	 */
+	private static EPPDomainTransferResp toTransferResp(EPPDomainTransferResp aResponse, RegistryDomain aDomain) {
+		aResponse.setName(aDomain.getName());
+		aResponse.setTransferStatus(aDomain.getTransferStatus());
+		aResponse.setRequestClient(aDomain.getRequestClient());
+		aResponse.setRequestDate(aDomain.getRequestDate());
+		aResponse.setActionClient(aDomain.getActionClient());
+		aResponse.setActionDate(aDomain.getActionDate());
+		aResponse.setExpirationDate(aDomain.getExpirationDate());
+
+		return aResponse;
+	}
+
+	/**
+	 * Converts the <code>add</code> or <code>rem</code> element of an update
+	 * command to a <code>RegistryDomain</code>.
+	 *
+	 * @param aAddRemove Element of the update command or <code>null</code>
+	 *
+	 * @return Domain with the name servers, contacts, and statuses of the
+	 *         element, or <code>null</code>
+	 *
+	 * @exception RegistryException If a name server is not a host object or a
+	 *            status is not a client status
+	 */
+	private static RegistryDomain toRegistryDomain(EPPDomainAddRemove aAddRemove) throws RegistryException {
+		if (aAddRemove == null) {
+			return null;
+		}
+
+		RegistryDomain theDomain = new RegistryDomain();
+		addServers(theDomain, aAddRemove.getServers());
+		addContacts(theDomain, aAddRemove.getContacts());
+
+		if (aAddRemove.getStatuses() != null) {
+			Vector<String> theStatuses = new Vector<String>();
+			for (Object theStatus : aAddRemove.getStatuses()) {
+				theStatuses.addElement(((EPPDomainStatus) theStatus).getStatus());
+			}
+			theDomain.setStatusBits(Registry.getClientStatusBits(theStatuses));
+		}
+
+		return theDomain;
+	}
+
+	/**
+	 * Adds the name servers of a command to a domain.
+	 *
+	 * @param aDomain Domain to add to
+	 * @param aServers Host names or <code>null</code>
+	 *
+	 * @exception RegistryException With <code>EPPResult.UNIMPLEMENTED_OPTION</code>
+	 *            if a name server is a host attribute
+	 */
+	private static void addServers(RegistryDomain aDomain, Vector aServers) throws RegistryException {
+		if (aServers != null) {
+			for (Object theServer : aServers) {
+				if (!(theServer instanceof String)) {
+					throw new RegistryException(EPPResult.UNIMPLEMENTED_OPTION,
+							"Only host objects are supported as name servers");
+				}
+				aDomain.addServer((String) theServer);
+			}
+		}
+	}
+
+	/**
+	 * Adds the contacts of a command to a domain.
+	 *
+	 * @param aDomain Domain to add to
+	 * @param aContacts <code>EPPDomainContact</code> instances or
+	 *        <code>null</code>
+	 */
+	private static void addContacts(RegistryDomain aDomain, Vector aContacts) {
+		if (aContacts != null) {
+			for (Object theContact : aContacts) {
+				aDomain.addContact(((EPPDomainContact) theContact).getName(), ((EPPDomainContact) theContact)
+						.getType());
+			}
+		}
+	}
+
+	/**
+	 * Converts the period of a command to months.
+	 *
+	 * @param aPeriod Period or <code>null</code>
+	 *
+	 * @return Number of months, with <code>DEFAULT_PERIOD</code> if the period
+	 *         is not set
+	 */
+	private static int getMonths(EPPDomainPeriod aPeriod) {
+		if (aPeriod == null || aPeriod.isPeriodUnspec()) {
+			return DEFAULT_PERIOD;
+		}
+		else if (EPPDomainPeriod.PERIOD_UNIT_MONTH.equals(aPeriod.getPUnit())) {
+			return aPeriod.getPeriod();
+		}
+		else {
+			return aPeriod.getPeriod() * 12;
+		}
+	}
+
+	/**
+	 * Gets the password of an authorization information.
+	 *
+	 * @param aAuthInfo Authorization information or <code>null</code>
+	 *
+	 * @return Password or <code>null</code>
+	 */
+	private static String getPassword(EPPAuthInfo aAuthInfo) {
+		return aAuthInfo == null ? null : aAuthInfo.getPassword();
+	}
+
+	/**
+	 * Gets the identifier of the logged in client.
+	 *
+	 * @param aData <code>SessionData</code> of the session
+	 *
+	 * @return Client identifier
+	 */
+	private static String getClientId(Object aData) {
+		return ((SessionData) aData).getLoginCmd().getClientId();
+	}
+
+	/**
+	 * Creates the response of a command that is rejected by the
+	 * <code>Registry</code>.
+	 *
+	 * @param aTransId Transaction identifier of the response
+	 * @param aException Error of the <code>Registry</code>
+	 *
+	 * @return Response with the result code and description of the error
+	 */
+	private static EPPEventResponse createErrorResponse(EPPTransId aTransId, RegistryException aException) {
+		if (cat.isDebugEnabled()) {
+			cat.debug("createErrorResponse(): " + aException.getMessage());
+		}
+
+		EPPResult theResult = new EPPResult(aException.getCode());
+		theResult.addExtValueReason(aException.getMessage());
+
+		return new EPPEventResponse(new EPPResponse(aTransId, theResult));
+	}
+
+}
+
+// End class RegistryDomainHandler
@@ -133,6 +133,27 @@ public abstract class EPPCheckCmd extends EPPCommand {
 
 	// End EPPCheckCmd.doGenEncode(Document)
 
+	/**
+	 * Writes the <code>EPPCheckCmd</code> general command directly to an
+	 * <code>EPPXMLWriter</code>, where the command mapping is written with
+	 * <code>doEncode(EPPXMLWriter)</code>.
+	 *
+	 * @param aWriter Writer to write the general command element to
+	 *
+	 * @exception EPPEncodeException Unable to encode <code>EPPCheckCmd</code>
+	 * 			  instance.
+	 */
+	protected void doGenEncode(EPPXMLWriter aWriter) throws EPPEncodeException {
+		aWriter.writeStartElement(EPPCodec.NS, ELM_NAME);
+
+		// Command Mapping
+		doEncode(aWriter);
+
+		aWriter.writeEndElement();
+	}
+
+	// End EPPCheckCmd.doGenEncode(EPPXMLWriter)
+
 	/**
 	 * Decodes the <code>EPPCheckCmd</code> attributes from the
 	 * <code>aElement</code> DOM Element tree.      This method is a member of
@@ -171,6 +192,24 @@ public abstract class EPPCheckCmd extends EPPCommand {
 	protected abstract Element doEncode(Document aDocument)
 								 throws EPPEncodeException;
 
+	/**
+	 * Writes the command mapping of the <code>EPPCheckCmd</code> to an
+	 * <code>EPPXMLWriter</code>.  The default implementation writes the DOM
+	 * element tree of <code>doEncode(Document)</code>, and can be overridden
+	 * by the command mappings to write the mapping directly.
+	 *
+	 * @param aWriter Writer to write the command mapping element to
+	 *
+	 * @exception EPPEncodeException Unable to encode the command mapping
+	 */
+	protected void doEncode(EPPXMLWriter aWriter) throws EPPEncodeException {
+		Element theMapping = doEncode(aWriter.getDocument());
+
+		if (theMapping != null) {
+			aWriter.writeElement(theMapping);
+		}
+	}
+
 	/**
 	 * Must be defined by <code>EPPCheckCmd</code> extensions (Command
 	 * Mappings) to decode     the attributes to a DOM Element tree.
@@ -21,13 +21,19 @@ package com.verisign.epp.codec.gen;
 
 
 // Log4j Imports
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Vector;
 
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 import org.apache.log4j.Logger;
 import org.apache.xerces.dom.DocumentImpl;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
 
 import com.verisign.epp.util.EPPCatFactory;
 
@@ -106,6 +112,38 @@ public class EPPCodec {
 	/** Name for the EPP root element. */
 	private final String ELM_EPP = "epp";
 
+	/** Message type of an <code>EPPGreeting</code> */
+	private static final int MSG_GREETING = 1;
+
+	/** Message type of an <code>EPPHello</code> */
+	private static final int MSG_HELLO = 2;
+
+	/** Message type of an <code>EPPCommand</code> */
+	private static final int MSG_COMMAND = 3;
+
+	/** Message type of an <code>EPPResponse</code> */
+	private static final int MSG_RESPONSE = 4;
+
+	/** Message type of an <code>EPPProtocolExtension</code> */
+	private static final int MSG_EXTENSION = 5;
+
+	/**
+	 * Message types by local name of the message element, used to dispatch
+	 * the decode of a message with a single lookup.  The map is never
+	 * modified, so it is read without locking.
+	 */
+	private static final Map<String, Integer> MESSAGE_TYPES;
+
+	static {
+		Map<String, Integer> theTypes = new HashMap<String, Integer>();
+		theTypes.put(EPPGreeting.ELM_NAME, Integer.valueOf(MSG_GREETING));
+		theTypes.put(EPPHello.ELM_NAME, Integer.valueOf(MSG_HELLO));
+		theTypes.put(EPPCommand.ELM_NAME, Integer.valueOf(MSG_COMMAND));
+		theTypes.put(EPPResponse.ELM_NAME, Integer.valueOf(MSG_RESPONSE));
+		theTypes.put(EPPProtocolExtension.ELM_NAME, Integer.valueOf(MSG_EXTENSION));
+		MESSAGE_TYPES = Collections.unmodifiableMap(theTypes);
+	}
+
 
 	/**
 	 * allocates the Singleton <code>EPPCodec</code> instance.  The XML Parser
@@ -234,6 +272,37 @@ public class EPPCodec {
 	}
 
 
+	/**
+	 * encodes a concrete <code>EPPMessage</code> directly to an
+	 * <code>EPPXMLWriter</code> as an EPP packet, including the XML
+	 * declaration.  The components that implement
+	 * <code>EPPStreamEncodable</code> are written without building a DOM
+	 * element tree, and the other components are encoded with
+	 * <code>encode(Document)</code> and written from the DOM element tree.
+	 * The bytes written are identical to the serialization of the DOM
+	 * Document returned by {@link #encode(EPPMessage)}.
+	 *
+	 * @param aMessage Concrete <code>EPPMessage</code> to encode.
+	 * @param aWriter Writer to write the packet to
+	 *
+	 * @exception EPPEncodeException Error encoding the
+	 * 			  <code>EPPMessage</code>.
+	 */
+	public void encode(EPPMessage aMessage, EPPXMLWriter aWriter)
+				throws EPPEncodeException {
+		aWriter.writeStartDocument();
+
+		// Root EPP element
+		aWriter.writeStartElement(EPPCodec.NS, ELM_EPP);
+		aWriter.writeAttribute("xmlns:xsi", NS_XSI);
+		aWriter.writeAttribute(NS_XSI, "xsi:schemaLocation", NS_SCHEMA);
+
+		aWriter.writeComp(aMessage);
+
+		aWriter.writeEndElement();
+	}
+
+
 	/**
 	 * decodes a DOM Document into a concrete <code>EPPMessage</code>.
 	 *
@@ -261,6 +330,31 @@ public class EPPCodec {
 	 * a command, response, or extension component.
 	 */
 	public EPPMessage decode(Element root) throws EPPDecodeException, EPPComponentNotFoundException {
+		EPPDecodeContext theContext = EPPDecodeContext.enter();
+
+		try {
+			return decodeMessage(root);
+		}
+		finally {
+			theContext.exit();
+		}
+	}
+
+
+	/**
+	 * decodes a DOM Element tree into a concrete <code>EPPMessage</code>
+	 * within the decode context entered by {@link #decode(Element)}, so the
+	 * child element lookups of the components use the
+	 * <code>EPPDecodeContext</code> index.
+	 *
+	 * @param root Root EPP element to decode from
+	 *
+	 * @return Encoded concrete <code>EPPMessage</code>.
+	 *
+	 * @exception EPPDecodeException Error decoding the DOM Document.
+	 * @exception EPPComponentNotFoundException A component could not be found
+	 */
+	private EPPMessage decodeMessage(Element root) throws EPPDecodeException, EPPComponentNotFoundException {
 		EPPMessage retVal = null;
 		
 
@@ -279,88 +373,84 @@ public class EPPCodec {
 			throw new EPPDecodeException("No element child was found from the root node");
 		}
 
-		// Greeting?
-		if (EPPCodec.NS.equals(root.getNamespaceURI())
-				&& messageType.getLocalName().equals(
-						EPPUtil.getLocalName(EPPGreeting.ELM_NAME))) {
-			retVal = new EPPGreeting();
-		}
+		// Dispatch on the message type.  The root element namespace was
+		// validated above.
+		Integer theMsgType = MESSAGE_TYPES.get(messageType.getLocalName());
 
-		// Hello?
-		else if (EPPCodec.NS.equals(root.getNamespaceURI())
-				&& messageType.getLocalName().equals(
-						EPPUtil.getLocalName(EPPHello.ELM_NAME))) {
-			retVal = new EPPHello();
-		}
+		switch ((theMsgType == null) ? 0 : theMsgType.intValue()) {
+			// Greeting?
+			case MSG_GREETING:
+				retVal = new EPPGreeting();
 
-		// Command?
-		else if (EPPCodec.NS.equals(root.getNamespaceURI())
-				&& messageType.getLocalName().equals(
-						EPPUtil.getLocalName(EPPCommand.ELM_NAME))) {
-			
-			Element commandType = EPPUtil.getFirstElementChild(messageType);
+				break;
 
-			if (commandType == null) {
-				throw new EPPDecodeException("Command Type Element could not be found");
-			}
+			// Hello?
+			case MSG_HELLO:
+				retVal = new EPPHello();
 
-			String  commandTypeName = commandType.getLocalName();
+				break;
 
-			Element commandMap = EPPUtil.getFirstElementChild(commandType);
+			// Command?
+			case MSG_COMMAND:
 
-			// Create Concrete Command
-			if ((commandMap != null)
-					&& (commandMap.getLocalName().startsWith(commandTypeName))) {
-				try {
-					retVal = EPPFactory.getInstance().createCommand(commandMap);
-				}
-				catch (EPPCodecException e) {
-					throw new EPPComponentNotFoundException(
-							EPPComponentNotFoundException.COMMAND,
-							"Unable to create concrete command for type "
-									+ commandTypeName + ": " + e);
+				Element commandType = EPPUtil.getFirstElementChild(messageType);
+
+				if (commandType == null) {
+					throw new EPPDecodeException("Command Type Element could not be found");
 				}
-			}
-			else {
-				String op = commandType.getAttribute(EPPCommand.ATT_OP);
 
-				try {
-					retVal = EPPFactory.getInstance().createCommand(
-							commandTypeName, op);
+				String  commandTypeName = commandType.getLocalName();
+
+				Element commandMap = EPPUtil.getFirstElementChild(commandType);
+
+				// Create Concrete Command
+				if ((commandMap != null)
+						&& (commandMap.getLocalName().startsWith(commandTypeName))) {
+					try {
+						retVal = EPPFactory.getInstance().createCommand(commandMap);
+					}
+					catch (EPPCodecException e) {
+						throw new EPPComponentNotFoundException(
+								EPPComponentNotFoundException.COMMAND,
+								"Unable to create concrete command for type "
+										+ commandTypeName + ": " + e);
+					}
 				}
-				catch (EPPCodecException e) {
-					throw new EPPComponentNotFoundException(
-							EPPComponentNotFoundException.COMMAND,
-							"Unable to create concrete command for type "
-									+ commandTypeName + " and op " + op + " : "
-									+ e);
+				else {
+					String op = commandType.getAttribute(EPPCommand.ATT_OP);
+
+					try {
+						retVal = EPPFactory.getInstance().createCommand(
+								commandTypeName, op);
+					}
+					catch (EPPCodecException e) {
+						throw new EPPComponentNotFoundException(
+								EPPComponentNotFoundException.COMMAND,
+								"Unable to create concrete command for type "
+										+ commandTypeName + " and op " + op + " : "
+										+ e);
+					}
 				}
-			}
-		}
 
-		// Response?
-		else if (EPPCodec.NS.equals(root.getNamespaceURI())
-				&& messageType.getLocalName().equals(
-						EPPUtil.getLocalName(EPPResponse.ELM_NAME))) {
-			
-			NodeList responseDataElm = messageType.getElementsByTagNameNS(
-					EPPCodec.NS, EPPUtil
-							.getLocalName(EPPResponse.ELM_RESPONSE_DATA));
+				break;
+
+			// Response?
+			case MSG_RESPONSE:
+
+				Element responseDataElm = EPPUtil.getElementByTagNameNS(
+						messageType, EPPCodec.NS, EPPResponse.ELM_RESPONSE_DATA);
 
-			switch (responseDataElm.getLength()) {
 				// No Response Extension?
-				case 0:
+				if (responseDataElm == null) {
 					retVal = new EPPResponse();
-
-					break;
+				}
 
 				// Response Extension?
-				default:
+				else {
 
 					// Create Concrete Response
 					Element responseMap =
-						EPPUtil.getFirstElementChild((Element) responseDataElm
-													 .item(0));
+						EPPUtil.getFirstElementChild(responseDataElm);
 
 					if (responseMap == null) {
 						throw new EPPDecodeException("No child element found for "
@@ -377,45 +467,332 @@ public class EPPCodec {
 								"Unable to create concrete response: "
 													 + e);
 					}
+				}
+
+				break;
+
+			// Protocol Extension
+			case MSG_EXTENSION:
 
-					break;
-			} // end switch (responseDataElm.getLength())
+				Element extensionElm = EPPUtil.getFirstElementChild(messageType); //ext element
+
+				// Is there a protocol extension Element?
+				if (extensionElm != null) {
+					try {
+						retVal =
+							EPPFactory.getInstance().createProtocolExtension(extensionElm);
+					}
+					 catch (EPPCodecException e) {
+						throw new EPPComponentNotFoundException(
+								EPPComponentNotFoundException.EXTENSION, 
+								"EPPCommand.decode unable to create protocol extension object: "
+													 + e);
+					}
+				}
+				else // No protocol extension Element
+				 {
+					throw new EPPDecodeException("No child element found for the protocol extension");
+				}
+
+				break;
+
+			default:
+				throw new EPPDecodeException("Invalid message tag name of "
+											 + messageType.getTagName());
+		} // end switch (theMsgType)
+
+		// Decode the message.
+		retVal.decode(messageType);
+
+		return retVal;
+	}
+
+
+	/**
+	 * decode an EPP packet with a StAX <code>XMLStreamReader</code> and
+	 * return a concrete <code>EPPMessage</code>, without building a DOM
+	 * Document of the packet.  A response is decoded directly from the reader
+	 * with the <code>EPPStreamDecodable</code> components, and the response
+	 * data and extensions are created with
+	 * <code>EPPFactory.createStreamResponse(String, String)</code> and
+	 * <code>EPPFactory.createStreamExtension(String, String)</code>.  Any
+	 * response data, extension, or child component that does not support
+	 * streaming is decoded from a DOM element tree of only that element.  The
+	 * other message types (greeting, hello, command, and protocol extension)
+	 * are converted to a DOM element tree and decoded with
+	 * {@link #decode(Element)}. <br>
+	 * <br>
+	 * The reader is not validated against the XML schemas, so this method
+	 * should only be used when XML schema validation is disabled.
+	 *
+	 * @param aReader Reader of an EPP packet positioned at the start of the
+	 * 		  document
+	 *
+	 * @return Decoded concrete <code>EPPMessage</code>.
+	 *
+	 * @exception EPPDecodeException Error decoding the packet.
+	 * @exception EPPComponentNotFoundException A component could not be found
+	 * 			  which could be a command, response, or extension component.
+	 */
+	public EPPMessage decode(XMLStreamReader aReader)
+					  throws EPPDecodeException, EPPComponentNotFoundException {
+		EPPDecodeContext theContext = EPPDecodeContext.enter();
+
+		try {
+			// Move to the root element
+			while (aReader.getEventType() != XMLStreamConstants.START_ELEMENT) {
+				if (!aReader.hasNext()) {
+					throw new EPPDecodeException("No root element was found");
+				}
+
+				aReader.next();
+			}
+
+			// Validate root element attribute values
+			if (
+				!EPPCodec.NS.equals(aReader.getNamespaceURI())
+					|| !aReader.getLocalName().equals("epp")) {
+				throw new EPPDecodeException("Invalid root element NS = "
+											 + aReader.getNamespaceURI()
+											 + ", name = "
+											 + aReader.getLocalName());
+			}
+
+			DocumentImpl theDoc  = new DocumentImpl();
+			Element		 theRoot = EPPStreamUtil.createElement(aReader, theDoc);
+			theDoc.appendChild(theRoot);
+
+			// Handle Message Type
+			if (!EPPStreamUtil.nextChild(aReader)) {
+				throw new EPPDecodeException("No element child was found from the root node");
+			}
+
+			// Response?
+			if (
+				EPPCodec.NS.equals(aReader.getNamespaceURI())
+					&& aReader.getLocalName().equals(EPPResponse.ELM_NAME)) {
+				return decodeResponseStream(aReader);
+			}
+
+			// Decode the other message types from DOM
+			EPPStreamUtil.toElement(aReader, theRoot);
+
+			return decode(theRoot);
 		}
+		 catch (XMLStreamException ex) {
+			cat.error("decode(XMLStreamReader): Error reading packet: " + ex);
+			throw new EPPDecodeException("Error reading packet: "
+										 + ex.getMessage());
+		}
+		finally {
+			theContext.exit();
+		}
+	}
 
-		// Protocol Extension
-		else if (EPPCodec.NS.equals(root.getNamespaceURI())
-				&& messageType.getLocalName().equals(
-						EPPUtil.getLocalName(EPPProtocolExtension.ELM_NAME))) // extension
-		{
-			Element extensionElm = EPPUtil.getFirstElementChild(messageType); //ext element
-
-			// Is there a protocol extension Element?
-			if (extensionElm != null) {
-				try {
-					retVal =
-						EPPFactory.getInstance().createProtocolExtension(extensionElm);
+	/**
+	 * decode the children of the &lt;response&gt; element with an
+	 * <code>XMLStreamReader</code>.  The elements are decoded in the order
+	 * defined by the EPP schema.  The concrete <code>EPPResponse</code> is
+	 * created when the &lt;resData&gt; element is reached, so the results and
+	 * message queue decoded before it are set after the response is created.
+	 *
+	 * @param aReader Reader positioned on the <code>START_ELEMENT</code> event
+	 * 		  of the &lt;response&gt; element
+	 *
+	 * @return Decoded concrete <code>EPPResponse</code>
+	 *
+	 * @exception EPPDecodeException Error decoding the response
+	 * @exception EPPComponentNotFoundException Response data or extension
+	 * 			  component could not be found
+	 * @exception XMLStreamException Error reading from <code>aReader</code>
+	 */
+	private EPPResponse decodeResponseStream(XMLStreamReader aReader)
+									  throws EPPDecodeException, 
+											 EPPComponentNotFoundException, 
+											 XMLStreamException {
+		EPPResponse theResponse   = null;
+		Vector	    theResults    = new Vector();
+		EPPMsgQueue theMsgQueue   = null;
+		Vector	    theExtensions = null;
+		EPPTransId  theTransId    = null;
+
+		while (EPPStreamUtil.nextChild(aReader)) {
+			String theName = aReader.getLocalName();
+
+			if (!EPPCodec.NS.equals(aReader.getNamespaceURI())) {
+				EPPStreamUtil.skipElement(aReader);
+			}
+
+			// Results
+			else if (theName.equals(EPPResult.ELM_NAME)) {
+				theResults.addElement(EPPStreamUtil.decodeComp(aReader, EPPResult.class));
+			}
+
+			// Message Queue
+			else if (theName.equals(EPPMsgQueue.ELM_NAME)) {
+				theMsgQueue =
+					(EPPMsgQueue) EPPStreamUtil.decodeComp(
+														   aReader,
+														   EPPMsgQueue.class);
+			}
+
+			// Response Data
+			else if (theName.equals(EPPResponse.ELM_RESPONSE_DATA)) {
+				if (!EPPStreamUtil.nextChild(aReader)) {
+					throw new EPPDecodeException("No child element found for "
+												 + EPPResponse.ELM_RESPONSE_DATA);
 				}
-				 catch (EPPCodecException e) {
-					throw new EPPComponentNotFoundException(
-							EPPComponentNotFoundException.EXTENSION, 
-							"EPPCommand.decode unable to create protocol extension object: "
-												 + e);
+
+				theResponse = decodeResponseData(aReader);
+
+				// Skip to the end of the response data element
+				while (EPPStreamUtil.nextChild(aReader)) {
+					EPPStreamUtil.skipElement(aReader);
 				}
 			}
-			else // No protocol extension Element
-			 {
-				throw new EPPDecodeException("No child element found for the protocol extension");
+
+			// Extensions
+			else if (theName.equals(EPPResponse.ELM_EXTENSION)) {
+				if (theExtensions == null) {
+					theExtensions = new Vector();
+				}
+
+				while (EPPStreamUtil.nextChild(aReader)) {
+					theExtensions.addElement(decodeExtension(aReader));
+				}
+			}
+
+			// Transaction Id
+			else if (theName.equals(EPPTransId.ELM_NAME)) {
+				theTransId =
+					(EPPTransId) EPPStreamUtil.decodeComp(
+														  aReader,
+														  EPPTransId.class);
+			}
+			else {
+				EPPStreamUtil.skipElement(aReader);
 			}
 		}
-		else {
-			throw new EPPDecodeException("Invalid message tag name of "
-										 + messageType.getTagName());
+
+		// No Response Data?
+		if (theResponse == null) {
+			theResponse = new EPPResponse();
 		}
 
-		// Decode the message.
-		retVal.decode(messageType);
+		theResponse.setResults(theResults);
+		theResponse.setMsgQueue(theMsgQueue);
+		theResponse.setTransId(theTransId);
 
-		return retVal;
+		if (theExtensions != null) {
+			for (int i = 0; i < theExtensions.size(); i++) {
+				theResponse.addExtension((EPPCodecComponent) theExtensions
+										 .elementAt(i));
+			}
+		}
+
+		return theResponse;
+	}
+
+	/**
+	 * create and decode the concrete <code>EPPResponse</code> of a response
+	 * data element.  The response is decoded directly from the reader if
+	 * the <code>EPPMapFactory</code> supports streaming for the element, and
+	 * from a DOM element tree of the element otherwise.
+	 *
+	 * @param aReader Reader positioned on the <code>START_ELEMENT</code> event
+	 * 		  of the response data element
+	 *
+	 * @return Decoded concrete <code>EPPResponse</code>
+	 *
+	 * @exception EPPDecodeException Error decoding the response data
+	 * @exception EPPComponentNotFoundException Concrete response could not be
+	 * 			  created
+	 * @exception XMLStreamException Error reading from <code>aReader</code>
+	 */
+	private EPPResponse decodeResponseData(XMLStreamReader aReader)
+									throws EPPDecodeException, 
+										   EPPComponentNotFoundException, 
+										   XMLStreamException {
+		EPPResponse theResponse;
+
+		try {
+			theResponse =
+				EPPFactory.getInstance().createStreamResponse(
+															  aReader
+															  .getNamespaceURI(),
+															  aReader
+															  .getLocalName());
+
+			if (theResponse != null) {
+				theResponse.doDecode(aReader);
+
+				return theResponse;
+			}
+
+			// Fall back to DOM
+			Element responseMap = EPPStreamUtil.toElement(aReader);
+			theResponse = EPPFactory.getInstance().createResponse(responseMap);
+			theResponse.doDecode(responseMap);
+		}
+		 catch (EPPCodecException e) {
+			throw new EPPComponentNotFoundException(
+													EPPComponentNotFoundException.RESPONSE,
+													"Unable to create concrete response: "
+													+ e);
+		}
+
+		return theResponse;
+	}
+
+	/**
+	 * create and decode a response extension.  The extension is decoded
+	 * directly from the reader if the <code>EPPExtFactory</code> supports
+	 * streaming for the element, and from a DOM element tree of the element
+	 * otherwise.
+	 *
+	 * @param aReader Reader positioned on the <code>START_ELEMENT</code> event
+	 * 		  of the extension element
+	 *
+	 * @return Decoded extension
+	 *
+	 * @exception EPPDecodeException Error decoding the extension
+	 * @exception EPPComponentNotFoundException Extension could not be created
+	 * @exception XMLStreamException Error reading from <code>aReader</code>
+	 */
+	private EPPCodecComponent decodeExtension(XMLStreamReader aReader)
+									   throws EPPDecodeException, 
+											  EPPComponentNotFoundException, 
+											  XMLStreamException {
+		EPPCodecComponent theExtension;
+
+		try {
+			theExtension =
+				EPPFactory.getInstance().createStreamExtension(
+															   aReader
+															   .getNamespaceURI(),
+															   aReader
+															   .getLocalName());
+
+			if (theExtension != null) {
+				EPPStreamUtil.decodeComp(aReader, theExtension);
+
+				return theExtension;
+			}
+
+			// Fall back to DOM
+			Element theExtensionElm = EPPStreamUtil.toElement(aReader);
+			theExtension =
+				EPPFactory.getInstance().createExtension(theExtensionElm);
+			theExtension.decode(theExtensionElm);
+		}
+		 catch (EPPCodecException e) {
+			throw new EPPComponentNotFoundException(
+													EPPComponentNotFoundException.EXTENSION,
+													"EPPResponse.decode unable to create extension object: "
+													+ e);
+		}
+
+		return theExtension;
 	}
 
 
@@ -470,6 +847,34 @@ public class EPPCodec {
 	}
 
 
+	/**
+	 * utility method that will decode an EPP packet with a StAX
+	 * <code>XMLStreamReader</code> and return an <code>EPPResponse</code>
+	 * instance.  An <code>EPPDecodeException</code> will be thrown if the
+	 * decoded <code>EPPMessage</code> is not an <code>EPPResponse</code>.
+	 *
+	 * @param aReader Reader of an EPP packet positioned at the start of the
+	 * 		  document
+	 *
+	 * @return Decoded concrete <code>EPPResponse</code>.
+	 *
+	 * @exception EPPDecodeException Error decoding the packet or
+	 * 			  <code>EPPMessage</code> is not an <code>EPPResponse</code>
+	 *
+	 * @see #decode(XMLStreamReader)
+	 */
+	public EPPResponse decodeResponse(XMLStreamReader aReader)
+							   throws EPPDecodeException {
+		EPPMessage theMessage = decode(aReader);
+
+		if (!(theMessage instanceof EPPResponse)) {
+			throw new EPPDecodeException("Decoded message is not an EPPResponse on call to decodeResponse");
+		}
+
+		return (EPPResponse) theMessage;
+	}
+
+
 	/**
 	 * utility method that will decode a DOM Document and return an
 	 * <code>EPPGreeting</code> instance.     An
@@ -26,11 +26,13 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.StringReader;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.Properties;
 import java.util.Vector;
 
 import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.transform.ErrorListener;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
@@ -57,6 +59,7 @@ import org.w3c.dom.Text;
 import org.xml.sax.ErrorHandler;
 
 import com.verisign.epp.util.EPPSchemaCachingParser;
+import com.verisign.epp.util.EPPXMLStream;
 import com.verisign.epp.util.Environment;
 import com.verisign.epp.util.TestErrorHandler;
 import com.verisign.epp.util.TestThread;
@@ -688,6 +691,10 @@ public class EPPCodecTst extends TestCase {
 	 * decodes the <code>EPPMessage</code> from XML
 	 * </li>
 	 * <li>
+	 * decodes an <code>EPPResponse</code> from XML with
+	 * <code>EPPCodec.decode(XMLStreamReader)</code>
+	 * </li>
+	 * <li>
 	 * Serializes <code>EPPMessage</code> using Java Serialization
 	 * </li>
 	 * <li>
@@ -725,6 +732,9 @@ public class EPPCodecTst extends TestCase {
 				// EPPMessage -> Document
 				doc = codec.encode(aMessage);
 
+				// Streaming encode not identical to DOM encode?
+				assertStreamEncode(aMessage, doc);
+
 				// Serialize XML
 				ByteArrayOutputStream byteOut = new ByteArrayOutputStream();
 				
@@ -757,6 +767,9 @@ public class EPPCodecTst extends TestCase {
 				// EPPMessage's not equal?
 				assertEquals(aMessage, decodedMessage);
 
+				// Streaming decode of response not equal?
+				assertStreamDecode(aMessage, byteOut.toByteArray());
+
 				// Write format to stats
 				if (retStats.getXmlFormat() == null) {
 					retStats.setXmlFormat(byteOut.toByteArray());
@@ -800,6 +813,9 @@ public class EPPCodecTst extends TestCase {
 				// EPPMessage's not equal?
 				assertEquals(aMessage, decodedMessage);
 
+				// Streaming decode of response not equal?
+				assertStreamDecode(aMessage, byteOut.toByteArray());
+
 				// Write format to stats
 				if (retStats.getXmlFormat() == null) {
 					retStats.setXmlFormat(byteOut.toByteArray());
@@ -870,6 +886,67 @@ public class EPPCodecTst extends TestCase {
 		return retStats;
 	} // End EPPCodecTst.testEncodeDecode(EPPMessage)
 
+	/**
+	 * Encodes a message with <code>EPPCodec.encode(EPPMessage, EPPXMLWriter)</code>
+	 * and asserts that the packet is byte for byte identical to the
+	 * serialization of the DOM Document of <code>EPPCodec.encode(EPPMessage)</code>
+	 * with a default <code>Transformer</code>, like in
+	 * <code>EPPXMLByteArray.encode(Document)</code>.  This verifies both the
+	 * streaming encode and the DOM fallback of the components that do not
+	 * support streaming.
+	 *
+	 * @param aMessage Message to encode
+	 * @param aDoc DOM Document encoded from <code>aMessage</code>
+	 *
+	 * @throws Exception Error encoding <code>aMessage</code>
+	 */
+	private static void assertStreamEncode(EPPMessage aMessage, Document aDoc)
+									throws Exception {
+		ByteArrayOutputStream theDomPacket = new ByteArrayOutputStream();
+		TransformerFactory.newInstance().newTransformer().transform(
+				new DOMSource(aDoc.getDocumentElement()), new StreamResult(theDomPacket));
+
+		EPPXMLWriter theWriter = new EPPXMLWriter();
+		EPPCodec.getInstance().encode(aMessage, theWriter);
+
+		assertEquals(theDomPacket.toString("UTF-8"), theWriter.toString());
+		assertTrue(Arrays.equals(theDomPacket.toByteArray(), theWriter.toByteArray()));
+	}
+
+	/**
+	 * Decodes an encoded <code>EPPResponse</code> with
+	 * <code>EPPCodec.decode(XMLStreamReader)</code> and asserts that it is
+	 * equal to the response decoded from a DOM Document of a non-validating
+	 * parser, which verifies both the streaming decode and the DOM fallback
+	 * of the components that do not support streaming.  A non-validating
+	 * parser is used for the comparison, since the streaming decode is only
+	 * used without XML schema validation, so XML schema default attribute
+	 * values are not set.  Other message types are ignored.
+	 *
+	 * @param aMessage Original message
+	 * @param aPacket Encoded message
+	 *
+	 * @throws Exception Error decoding <code>aPacket</code>
+	 */
+	private static void assertStreamDecode(EPPMessage aMessage, byte[] aPacket)
+									throws Exception {
+		if (!(aMessage instanceof EPPResponse)) {
+			return;
+		}
+
+		DocumentBuilderFactory theFactory = DocumentBuilderFactory.newInstance();
+		theFactory.setNamespaceAware(true);
+
+		EPPResponse theDomResponse =
+			EPPCodec.getInstance().decodeResponse(theFactory.newDocumentBuilder()
+												  .parse(new ByteArrayInputStream(aPacket)));
+
+		EPPResponse theStreamResponse =
+			EPPCodec.getInstance().decodeResponse(EPPStreamUtil.createReader(aPacket));
+
+		assertEquals(theDomResponse, theStreamResponse);
+	}
+
 	/**
 	 * Sets the number of iterations to run per test.
 	 *
@@ -1006,5 +1083,215 @@ public class EPPCodecTst extends TestCase {
 		
 		printEnd("testTimeInstantFormat");	
 	}
-	
+
+	/**
+	 * Test the date and time methods of <code>EPPUtil</code> against
+	 * <code>SimpleDateFormat</code> and <code>DatatypeConverter</code>, 
+	 * which were used before the <code>java.time</code> fast path, for 
+	 * dates in and out of the fast path range.
+	 */
+	public void testDateTimeCodec() {
+		printStart("testDateTimeCodec");
+
+		java.util.TimeZone theUTC = java.util.TimeZone.getTimeZone("UTC");
+		java.text.SimpleDateFormat theDateFormat = new java.text.SimpleDateFormat(EPPUtil.DATE_FORMAT);
+		theDateFormat.setTimeZone(theUTC);
+		java.text.SimpleDateFormat theTimeFormat = new java.text.SimpleDateFormat(EPPUtil.DEFAULT_TIME_INSTANT_FORMAT);
+		theTimeFormat.setTimeZone(theUTC);
+
+		long[] theTimes = { 0L, 1398368578588L, -1L, -2208988800001L,
+				-2208988800000L, 253402300799999L, 253402300800000L,
+				-62135596800000L, 951782400000L, 4102444799999L };
+		java.util.Random theRandom = new java.util.Random(42);
+
+		for (int i = 0; i < theTimes.length + 1000; i++) {
+			long theMillis = (i < theTimes.length) ? theTimes[i]
+					: (long) (theRandom.nextDouble() * 8000000000000L) - 2500000000000L;
+			Date theDate = new Date(theMillis);
+
+			String theTimeStr = theTimeFormat.format(theDate);
+			Assert.assertEquals(theTimeStr, EPPUtil.encodeTimeInstant(theDate));
+			Assert.assertEquals(javax.xml.bind.DatatypeConverter.parseDateTime(theTimeStr).getTime(),
+					EPPUtil.decodeTimeInstant(theTimeStr));
+
+			String theDateStr = theDateFormat.format(theDate);
+			Assert.assertEquals(theDateStr, EPPUtil.encodeDate(theDate));
+			Assert.assertEquals(theDateFormat.parse(theDateStr, new java.text.ParsePosition(0)),
+					EPPUtil.decodeDate(theDateStr));
+		}
+
+		// Time zone offsets, fractions and values without a time zone
+		String[] theTimeStrs = { "2014-04-24T19:42:58Z",
+				"2014-04-24T19:42:58.5Z", "2014-04-24T19:42:58.123456Z",
+				"2014-04-24T19:42:58.588+05:30", "2014-04-24T01:42:58-08:00",
+				"2014-04-24T19:42:58", "2014-04-24T24:00:00Z",
+				"2014-12-31T23:59:59.999-14:00" };
+		for (int i = 0; i < theTimeStrs.length; i++) {
+			Assert.assertEquals(theTimeStrs[i],
+					javax.xml.bind.DatatypeConverter.parseDateTime(theTimeStrs[i]).getTime(),
+					EPPUtil.decodeTimeInstant(theTimeStrs[i]));
+		}
+		Assert.assertNull(EPPUtil.decodeTimeInstant("invalid"));
+		Assert.assertNull(EPPUtil.decodeDate("invalid"));
+
+		// Custom formats with java.time and with SimpleDateFormat
+		String[] theFormats = { "yyyy-MM-dd'T'HH':'mm':'ss'Z'",
+				"yyyy-MM-dd'T'HH:mm:ss.SSSZ", "EEE, d MMM yyyy HH:mm:ss" };
+		Date theDate = new Date(1398368578588L);
+		for (int i = 0; i < theFormats.length; i++) {
+			java.text.SimpleDateFormat theFormat = new java.text.SimpleDateFormat(theFormats[i]);
+			theFormat.setTimeZone(theUTC);
+
+			EPPUtil.setTimeInstantFormat(theFormats[i]);
+			Assert.assertEquals(theFormat.format(theDate), EPPUtil.encodeTimeInstant(theDate));
+		}
+		EPPUtil.setTimeInstantFormat(EPPUtil.DEFAULT_TIME_INSTANT_FORMAT);
+
+		printEnd("testDateTimeCodec");
+	}
+
+	/**
+	 * Tolerance in bytes per message of the allocation difference measured by
+	 * <code>testLogAllocation</code>
+	 */
+	private static final long LOG_ALLOC_TOLERANCE = 16;
+
+	/**
+	 * Unit test of the logging guards in the codec and transport paths with a
+	 * login command.  See {@link #testLogAllocation(EPPMessage)}.
+	 */
+	public void testLogAllocation() {
+		printStart("testLogAllocation");
+
+		testLogAllocation(createLoginCmd());
+
+		printEnd("testLogAllocation");
+	}
+
+	/**
+	 * Tests the logging guards in the codec and transport paths for a message.
+	 * The bytes allocated by the current thread for an encode, write, read, and
+	 * decode of the message are measured with logging turned off and with the
+	 * root logger at <code>INFO</code>, alternating the modes on every message
+	 * after a warm-up, and the median of each mode is compared.  There should
+	 * be no difference, since the debug statements must not build their
+	 * messages when debug is disabled.  The test is skipped when the JVM does
+	 * not support the measurement of the thread allocated bytes.
+	 *
+	 * @param aMessage Message to round trip
+	 */
+	public static void testLogAllocation(EPPMessage aMessage) {
+		String theName = aMessage.getClass().getName();
+		theName = theName.substring(theName.lastIndexOf('.') + 1);
+
+		java.lang.management.ThreadMXBean theBean = java.lang.management.ManagementFactory.getThreadMXBean();
+		if (!(theBean instanceof com.sun.management.ThreadMXBean)
+				|| !((com.sun.management.ThreadMXBean) theBean).isThreadAllocatedMemorySupported()) {
+			System.out.println("testLogAllocation: Thread allocated bytes not supported, skipping");
+			return;
+		}
+		com.sun.management.ThreadMXBean theAllocBean = (com.sun.management.ThreadMXBean) theBean;
+		theAllocBean.setThreadAllocatedMemoryEnabled(true);
+
+		Logger theRoot = Logger.getRootLogger();
+		Level theRootLevel = theRoot.getLevel();
+		org.apache.log4j.spi.LoggerRepository theRepository = theRoot.getLoggerRepository();
+		Level theThreshold = theRepository.getThreshold();
+
+		final int warmupMessages = 500;
+		final int messages = 1000;
+		long[] theOff = new long[messages];
+		long[] theInfo = new long[messages];
+		try {
+			EPPXMLStream theStream = new EPPXMLStream();
+			long theThreadId = Thread.currentThread().getId();
+
+			// Alternate the modes on every message, so that the GC and the
+			// growth of the pooled buffers are spread across both of them.
+			// The warm-up messages are not measured.
+			for (int i = -warmupMessages; i < 2 * messages; i++) {
+				boolean isOff = (i % 2) == 0;
+				if (isOff) {
+					theRepository.setThreshold(Level.OFF);
+				}
+				else {
+					theRepository.setThreshold(Level.ALL);
+					theRoot.setLevel(Level.INFO);
+				}
+
+				long theStart = theAllocBean.getThreadAllocatedBytes(theThreadId);
+				roundTrip(theStream, aMessage);
+				long theAllocated = theAllocBean.getThreadAllocatedBytes(theThreadId) - theStart;
+
+				if (i < 0) {
+					continue;
+				}
+				if (isOff) {
+					theOff[i / 2] = theAllocated;
+				}
+				else {
+					theInfo[i / 2] = theAllocated;
+				}
+			}
+		}
+		catch (Exception ex) {
+			ex.printStackTrace();
+			Assert.fail("testLogAllocation(" + theName + "): Exception " + ex);
+		}
+		finally {
+			theRepository.setThreshold(theThreshold);
+			theRoot.setLevel(theRootLevel);
+		}
+
+		// The thread allocated bytes of a message jump by a few hundred KB
+		// around a GC, so the medians of the modes are compared
+		Arrays.sort(theOff);
+		Arrays.sort(theInfo);
+		long theMedianOff = theOff[messages / 2];
+		long thePerMessage = theInfo[messages / 2] - theMedianOff;
+		System.out.println("testLogAllocation(" + theName + "): bytes per message with logging off = "
+				+ theMedianOff + ", INFO overhead = " + thePerMessage);
+
+		// Even a short log message built per message allocates above the
+		// tolerance.
+		Assert.assertTrue("testLogAllocation(" + theName + "): INFO logging allocated "
+				+ thePerMessage + " bytes per message", thePerMessage <= LOG_ALLOC_TOLERANCE);
+	}
+
+	/**
+	 * Creates the login command used by the round trip tests.
+	 *
+	 * @return Login command with the domain object service
+	 */
+	public static EPPLoginCmd createLoginCmd() {
+		EPPLoginCmd theCommand =
+			new EPPLoginCmd("ABC-12345", "ClientX", "foo-BAR2", "bar-FOO2");
+		Vector services = new Vector();
+		EPPService service =
+			new EPPService(
+						   "domain", "urn:ietf:params:xml:ns:domain-1.0",
+						   "urn:iana:xml:ns:domain-1.0 domain-1.0.xsd");
+		service.setServiceType(EPPService.OBJ_SERVICE);
+		services.addElement(service);
+		theCommand.setServices(services);
+		return theCommand;
+	}
+
+	/**
+	 * Encodes, writes, reads, and decodes a message, which is the codec and
+	 * transport path of a message.
+	 *
+	 * @param aStream Stream used to write and read the packet
+	 * @param aMessage Message to round trip
+	 *
+	 * @throws Exception Error with the round trip
+	 */
+	public static void roundTrip(EPPXMLStream aStream, EPPMessage aMessage) throws Exception {
+		Document theDoc = EPPCodec.getInstance().encode(aMessage);
+		ByteArrayOutputStream theOut = new ByteArrayOutputStream();
+		aStream.write(theDoc, theOut);
+		Document theReadDoc = aStream.read(new ByteArrayInputStream(theOut.toByteArray()));
+		EPPCodec.getInstance().decode(theReadDoc);
+	}
+
 } // End class EPPCodeecTst
@@ -44,7 +44,7 @@ import com.verisign.epp.util.EPPCatFactory;
  * respectively.  There is one     derived <code>EPPCommand</code> for each
  * type of command defined in the general EPP     Specification.
  */
-public abstract class EPPCommand implements EPPMessage {
+public abstract class EPPCommand implements EPPMessage, EPPStreamEncodable {
 	/** command type associated with the general EPP &ltlogin&gt command. */
 	public final static String TYPE_LOGIN = "login";
 
@@ -412,18 +412,7 @@ public abstract class EPPCommand implements EPPMessage {
 	 */
 	public Element encode(Document aDocument) throws EPPEncodeException {
 		// Check pre-conditions
-		if (
-			(transId != null)
-				&& (
-					(transId.length() < EPPTransId.MIN_TRANSID_LEN)
-					|| (transId.length() > EPPTransId.MAX_TRANSID_LEN)
-				)) {
-			throw new EPPEncodeException("EPPCommand transaction id length of "
-										 + transId.length()
-										 + "is out of range, must be between "
-										 + EPPTransId.MIN_TRANSID_LEN + " and "
-										 + EPPTransId.MAX_TRANSID_LEN);
-		}
+		this.validateTransId();
 
 		// <command>
 		Element root = aDocument.createElementNS(EPPCodec.NS, ELM_NAME);
@@ -451,6 +440,60 @@ public abstract class EPPCommand implements EPPMessage {
 		return root;
 	} // End EPPCommand.encode(Document)
 
+	/**
+	 * encode <code>EPPCommand</code> directly to an <code>EPPXMLWriter</code>
+	 * with the same elements as <code>encode(Document)</code>.  The general
+	 * command is written with <code>doGenEncode(EPPXMLWriter)</code>, which
+	 * uses <code>doGenEncode(Document)</code> unless it is overridden.
+	 *
+	 * @param aWriter Writer to write the &ltcommand&gt element to
+	 *
+	 * @exception EPPEncodeException Error encoding the command
+	 */
+	public void encode(EPPXMLWriter aWriter) throws EPPEncodeException {
+		// Check pre-conditions
+		this.validateTransId();
+
+		// <command>
+		aWriter.writeStartElement(EPPCodec.NS, ELM_NAME);
+
+		// EPP General Command (e.g. EPPCreateCmd).
+		doGenEncode(aWriter);
+
+		// Extension Element
+		if (extensions != null) {
+			aWriter.writeStartElement(EPPCodec.NS, ELM_EXTENSION);
+			aWriter.writeCompVector(extensions);
+			aWriter.writeEndElement();
+		}
+
+		// Transaction ID
+		aWriter.writeString(EPPCodec.NS, ELM_TRANS_ID, transId);
+
+		aWriter.writeEndElement();
+	} // End EPPCommand.encode(EPPXMLWriter)
+
+	/**
+	 * Validates the length of the client transaction identifier.
+	 *
+	 * @exception EPPEncodeException The client transaction identifier length
+	 * 			  is out of range
+	 */
+	private void validateTransId() throws EPPEncodeException {
+		if (
+			(transId != null)
+				&& (
+					(transId.length() < EPPTransId.MIN_TRANSID_LEN)
+					|| (transId.length() > EPPTransId.MAX_TRANSID_LEN)
+				)) {
+			throw new EPPEncodeException("EPPCommand transaction id length of "
+										 + transId.length()
+										 + "is out of range, must be between "
+										 + EPPTransId.MIN_TRANSID_LEN + " and "
+										 + EPPTransId.MAX_TRANSID_LEN);
+		}
+	}
+
 	/**
 	 * decode <code>EPPCommand</code> from a DOM element tree.  The "command"
 	 * element needs to be the value of the <code>aElement</code> argument.
@@ -590,6 +633,24 @@ public abstract class EPPCommand implements EPPMessage {
 	protected abstract Element doGenEncode(Document aDocument)
 									throws EPPEncodeException;
 
+	/**
+	 * Writes the general extension of <code>EPPCommand</code> to an
+	 * <code>EPPXMLWriter</code>.  The default implementation writes the DOM
+	 * element tree of <code>doGenEncode(Document)</code>, and can be
+	 * overridden to write the general command directly.
+	 *
+	 * @param aWriter Writer to write the general command element to
+	 *
+	 * @exception EPPEncodeException Error encoding the general command
+	 */
+	protected void doGenEncode(EPPXMLWriter aWriter) throws EPPEncodeException {
+		Element theMapping = doGenEncode(aWriter.getDocument());
+
+		if (theMapping != null) {
+			aWriter.writeElement(theMapping);
+		}
+	}
+
 	/**
 	 * Decodes the atributes of a general extension of <code>EPPCommand</code>.
 	 * An example of a     general extension is <code>EPPCreateCmd</code>.
@@ -0,0 +1,550 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.codec.gen;
+
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.TimeZone;
+
+import javax.xml.bind.DatatypeConverter;
+
+/**
+ * Date and time codec used by the <code>EPPUtil</code> date methods.  The
+ * fixed EPP formats, which are the XML Schema <code>date</code> type and the
+ * XML Schema <code>dateTime</code> type with the
+ * {@link EPPUtil#DEFAULT_TIME_INSTANT_FORMAT} format, are encoded and decoded
+ * directly with <code>java.time</code> arithmetic, without creating a
+ * formatter or a <code>Calendar</code>.  The other time instant formats set
+ * with {@link EPPUtil#setTimeInstantFormat(String)} use a cached immutable
+ * <code>DateTimeFormatter</code> when the <code>SimpleDateFormat</code>
+ * pattern has the same meaning for <code>DateTimeFormatter</code>, and a
+ * cached per thread <code>SimpleDateFormat</code> otherwise.<br>
+ * <br>
+ * Values outside of the fast path, like dates before 1900, dates after 9999,
+ * time instants without a time zone and invalid values, are handled by the
+ * <code>SimpleDateFormat</code> and <code>DatatypeConverter</code> code used
+ * previously, so the results are identical in all cases.
+ */
+final class EPPDateTimeCodec {
+
+	/** Milliseconds per day */
+	private static final long MILLIS_PER_DAY = 24L * 60L * 60L * 1000L;
+
+	/** Lowest time of the fast path, which is 1900-01-01T00:00:00Z */
+	private static final long MIN_FAST_MILLIS = -2208988800000L;
+
+	/** Highest time of the fast path, which is 9999-12-31T23:59:59.999Z */
+	private static final long MAX_FAST_MILLIS = 253402300799999L;
+
+	/** UTC time zone */
+	private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+	/**
+	 * Cached formatter of a time instant format.  Immutable and shared by
+	 * all threads.
+	 */
+	private static final class TimeInstantFormatter {
+
+		/** <code>SimpleDateFormat</code> pattern */
+		final String pattern;
+
+		/** Is the pattern the default EPP format? */
+		final boolean isDefault;
+
+		/**
+		 * Equivalent <code>DateTimeFormatter</code> if the pattern has the
+		 * same meaning for <code>DateTimeFormatter</code>;
+		 * <code>null</code> otherwise.
+		 */
+		final DateTimeFormatter formatter;
+
+		/**
+		 * Per thread <code>SimpleDateFormat</code> used when
+		 * <code>formatter</code> is <code>null</code>.
+		 */
+		final ThreadLocal<SimpleDateFormat> simpleFormat;
+
+		/**
+		 * Creates the formatter of a <code>SimpleDateFormat</code> pattern.
+		 * 
+		 * @param aPattern
+		 *            <code>SimpleDateFormat</code> pattern
+		 */
+		TimeInstantFormatter(final String aPattern) {
+			this.pattern = aPattern;
+			this.isDefault = EPPUtil.DEFAULT_TIME_INSTANT_FORMAT
+					.equals(aPattern);
+
+			DateTimeFormatter theFormatter = null;
+			if (!this.isDefault && isCompatiblePattern(aPattern)) {
+				try {
+					theFormatter = DateTimeFormatter.ofPattern(aPattern)
+							.withZone(ZoneOffset.UTC);
+				}
+				catch (IllegalArgumentException ex) {
+					theFormatter = null;
+				}
+			}
+			this.formatter = theFormatter;
+
+			this.simpleFormat = new ThreadLocal<SimpleDateFormat>() {
+
+				protected SimpleDateFormat initialValue() {
+					SimpleDateFormat theFormat = new SimpleDateFormat(
+							aPattern);
+					theFormat.setTimeZone(UTC);
+					return theFormat;
+				}
+			};
+		}
+	}
+
+	/** Formatter of the current time instant format */
+	private static volatile TimeInstantFormatter timeInstantFormatter = new TimeInstantFormatter(
+			EPPUtil.DEFAULT_TIME_INSTANT_FORMAT);
+
+	/**
+	 * Static methods only.
+	 */
+	private EPPDateTimeCodec() {
+	}
+
+	/**
+	 * Encodes a <code>Date</code> into an XML Schema <code>date</code> data
+	 * type string (YYYY-MM-DD) in UTC.
+	 * 
+	 * @param aDate
+	 *            Date to encode
+	 * 
+	 * @return Encoded date
+	 */
+	static String encodeDate(Date aDate) {
+		long theMillis = aDate.getTime();
+
+		if ((theMillis < MIN_FAST_MILLIS) || (theMillis > MAX_FAST_MILLIS)) {
+			SimpleDateFormat formatter = new SimpleDateFormat(
+					EPPUtil.DATE_FORMAT);
+			formatter.setTimeZone(UTC);
+			return formatter.format(aDate);
+		}
+
+		LocalDate theDate = LocalDate.ofEpochDay(Math.floorDiv(theMillis,
+				MILLIS_PER_DAY));
+
+		char[] theChars = new char[10];
+		appendDate(theChars, theDate);
+		return new String(theChars);
+	}
+
+	/**
+	 * Decodes an XML Schema <code>date</code> data type string (YYYY-MM-DD)
+	 * into a <code>Date</code> at midnight UTC.
+	 * 
+	 * @param aDateValue
+	 *            Date to decode
+	 * 
+	 * @return Decoded date if <code>aDateValue</code> is valid;
+	 *         <code>null</code> otherwise.
+	 */
+	static Date decodeDate(String aDateValue) {
+		if ((aDateValue != null) && (aDateValue.length() >= 10)
+				&& (aDateValue.charAt(4) == '-')
+				&& (aDateValue.charAt(7) == '-')) {
+			int theYear = parseDigits(aDateValue, 0, 4);
+			int theMonth = parseDigits(aDateValue, 5, 2);
+			int theDay = parseDigits(aDateValue, 8, 2);
+			long theEpochDay = toEpochDay(theYear, theMonth, theDay);
+
+			if (theEpochDay != Long.MIN_VALUE) {
+				return new Date(theEpochDay * MILLIS_PER_DAY);
+			}
+		}
+
+		SimpleDateFormat formatter = new SimpleDateFormat(EPPUtil.DATE_FORMAT);
+
+		// Set to UTC with no time element
+		Calendar theCal = Calendar.getInstance(UTC);
+		theCal.set(Calendar.HOUR_OF_DAY, 0);
+		theCal.set(Calendar.MINUTE, 0);
+		theCal.set(Calendar.SECOND, 0);
+		theCal.set(Calendar.MILLISECOND, 0);
+		formatter.setCalendar(theCal);
+
+		return formatter.parse(aDateValue, new ParsePosition(0));
+	}
+
+	/**
+	 * Encodes a <code>Date</code> into an XML Schema <code>dateTime</code>
+	 * data type string in UTC with the format defined by
+	 * {@link EPPUtil#getTimeInstantFormat()}.
+	 * 
+	 * @param aDate
+	 *            Date to encode
+	 * 
+	 * @return Encoded date and time
+	 */
+	static String encodeTimeInstant(Date aDate) {
+		TimeInstantFormatter theFormatter = getTimeInstantFormatter();
+		long theMillis = aDate.getTime();
+
+		if ((theMillis >= MIN_FAST_MILLIS) && (theMillis <= MAX_FAST_MILLIS)) {
+			if (theFormatter.isDefault) {
+				long theEpochDay = Math.floorDiv(theMillis, MILLIS_PER_DAY);
+				int theMillisOfDay = (int) Math.floorMod(theMillis,
+						MILLIS_PER_DAY);
+
+				// yyyy-MM-ddTHH:mm:ss.SSSZ
+				char[] theChars = new char[24];
+				appendDate(theChars, LocalDate.ofEpochDay(theEpochDay));
+				theChars[10] = 'T';
+				appendDigits(theChars, 11, theMillisOfDay / 3600000, 2);
+				theChars[13] = ':';
+				appendDigits(theChars, 14, (theMillisOfDay / 60000) % 60, 2);
+				theChars[16] = ':';
+				appendDigits(theChars, 17, (theMillisOfDay / 1000) % 60, 2);
+				theChars[19] = '.';
+				appendDigits(theChars, 20, theMillisOfDay % 1000, 3);
+				theChars[23] = 'Z';
+				return new String(theChars);
+			}
+			else if (theFormatter.formatter != null) {
+				return theFormatter.formatter.format(Instant
+						.ofEpochMilli(theMillis));
+			}
+		}
+
+		return theFormatter.simpleFormat.get().format(aDate);
+	}
+
+	/**
+	 * Decodes an XML Schema <code>dateTime</code> data type string into a
+	 * <code>Date</code>.  Values with a time zone (<code>Z</code> or an
+	 * offset) are decoded directly, and the other values are decoded with
+	 * <code>DatatypeConverter</code>.
+	 * 
+	 * @param aTimeInstant
+	 *            Date and time to decode
+	 * 
+	 * @return Decoded date
+	 * 
+	 * @throws IllegalArgumentException
+	 *             <code>aTimeInstant</code> is not a valid XML Schema
+	 *             <code>dateTime</code>
+	 */
+	static Date decodeTimeInstant(String aTimeInstant) {
+		long theMillis = parseTimeInstant(aTimeInstant);
+
+		if (theMillis != Long.MIN_VALUE) {
+			return new Date(theMillis);
+		}
+
+		return DatatypeConverter.parseDateTime(aTimeInstant).getTime();
+	}
+
+	/**
+	 * Sets the <code>SimpleDateFormat</code> pattern used by
+	 * {@link #encodeTimeInstant(Date)}.  The formatter is created once per
+	 * pattern.
+	 * 
+	 * @param aPattern
+	 *            <code>SimpleDateFormat</code> pattern
+	 */
+	static void setTimeInstantFormat(String aPattern) {
+		if (!timeInstantFormatter.pattern.equals(aPattern)) {
+			timeInstantFormatter = new TimeInstantFormatter(aPattern);
+		}
+	}
+
+	/**
+	 * Gets the formatter of the current time instant format.
+	 * 
+	 * @return Formatter of {@link EPPUtil#getTimeInstantFormat()}
+	 */
+	private static TimeInstantFormatter getTimeInstantFormatter() {
+		TimeInstantFormatter theFormatter = timeInstantFormatter;
+		String thePattern = EPPUtil.getTimeInstantFormat();
+
+		if (theFormatter.pattern != thePattern
+				&& !theFormatter.pattern.equals(thePattern)) {
+			theFormatter = new TimeInstantFormatter(thePattern);
+			timeInstantFormatter = theFormatter;
+		}
+
+		return theFormatter;
+	}
+
+	/**
+	 * Parses an XML Schema <code>dateTime</code> with the
+	 * <code>yyyy-MM-ddTHH:mm:ss[.S*](Z|(+|-)hh:mm)</code> format.
+	 * 
+	 * @param aValue
+	 *            Value to parse
+	 * 
+	 * @return Milliseconds since the epoch if <code>aValue</code> is in the
+	 *         supported format and in the fast path range;
+	 *         <code>Long.MIN_VALUE</code> otherwise.
+	 */
+	private static long parseTimeInstant(String aValue) {
+		if ((aValue == null) || (aValue.length() < 20)
+				|| (aValue.charAt(4) != '-') || (aValue.charAt(7) != '-')
+				|| (aValue.charAt(10) != 'T') || (aValue.charAt(13) != ':')
+				|| (aValue.charAt(16) != ':')) {
+			return Long.MIN_VALUE;
+		}
+
+		long theEpochDay = toEpochDay(parseDigits(aValue, 0, 4), parseDigits(
+				aValue, 5, 2), parseDigits(aValue, 8, 2));
+		int theHour = parseDigits(aValue, 11, 2);
+		int theMinute = parseDigits(aValue, 14, 2);
+		int theSecond = parseDigits(aValue, 17, 2);
+
+		if ((theEpochDay == Long.MIN_VALUE) || (theHour < 0) || (theHour > 23)
+				|| (theMinute < 0) || (theMinute > 59) || (theSecond < 0)
+				|| (theSecond > 59)) {
+			return Long.MIN_VALUE;
+		}
+
+		// Fraction of second, truncated to milliseconds
+		int thePos = 19;
+		int theFraction = 0;
+		if (aValue.charAt(thePos) == '.') {
+			thePos++;
+			int theStart = thePos;
+			while ((thePos < aValue.length())
+					&& Character.isDigit(aValue.charAt(thePos))) {
+				if (thePos - theStart < 3) {
+					theFraction = (theFraction * 10)
+							+ (aValue.charAt(thePos) - '0');
+				}
+				thePos++;
+			}
+			if (thePos == theStart) {
+				return Long.MIN_VALUE;
+			}
+			for (int i = thePos - theStart; i < 3; i++) {
+				theFraction *= 10;
+			}
+		}
+
+		// Time zone
+		int theOffset;
+		int theRemaining = aValue.length() - thePos;
+		if ((theRemaining == 1) && (aValue.charAt(thePos) == 'Z')) {
+			theOffset = 0;
+		}
+		else if ((theRemaining == 6) && (aValue.charAt(thePos + 3) == ':')
+				&& ((aValue.charAt(thePos) == '+') || (aValue.charAt(thePos) == '-'))) {
+			int theOffsetHour = parseDigits(aValue, thePos + 1, 2);
+			int theOffsetMinute = parseDigits(aValue, thePos + 4, 2);
+
+			if ((theOffsetHour < 0) || (theOffsetHour > 14)
+					|| (theOffsetMinute < 0) || (theOffsetMinute > 59)) {
+				return Long.MIN_VALUE;
+			}
+
+			theOffset = ((theOffsetHour * 60) + theOffsetMinute) * 60000;
+			if (aValue.charAt(thePos) == '-') {
+				theOffset = -theOffset;
+			}
+		}
+		else {
+			return Long.MIN_VALUE;
+		}
+
+		long theMillis = (theEpochDay * MILLIS_PER_DAY)
+				+ (((theHour * 60L + theMinute) * 60L + theSecond) * 1000L)
+				+ theFraction - theOffset;
+
+		if ((theMillis < MIN_FAST_MILLIS) || (theMillis > MAX_FAST_MILLIS)) {
+			return Long.MIN_VALUE;
+		}
+
+		return theMillis;
+	}
+
+	/**
+	 * Gets the epoch day of a date in the fast path range.
+	 * 
+	 * @param aYear
+	 *            Year or a negative value if invalid
+	 * @param aMonth
+	 *            Month of the year or a negative value if invalid
+	 * @param aDay
+	 *            Day of the month or a negative value if invalid
+	 * 
+	 * @return Epoch day if the date is valid and in the fast path range;
+	 *         <code>Long.MIN_VALUE</code> otherwise.
+	 */
+	private static long toEpochDay(int aYear, int aMonth, int aDay) {
+		if ((aYear < 1900) || (aMonth < 1) || (aMonth > 12) || (aDay < 1)) {
+			return Long.MIN_VALUE;
+		}
+
+		try {
+			return LocalDate.of(aYear, aMonth, aDay).toEpochDay();
+		}
+		catch (DateTimeException ex) {
+			return Long.MIN_VALUE;
+		}
+	}
+
+	/**
+	 * Parses a fixed number of decimal digits.
+	 * 
+	 * @param aValue
+	 *            Value to parse
+	 * @param aOffset
+	 *            Offset of the first digit
+	 * @param aLength
+	 *            Number of digits
+	 * 
+	 * @return Parsed value if all of the characters are digits;
+	 *         <code>-1</code> otherwise.
+	 */
+	private static int parseDigits(String aValue, int aOffset, int aLength) {
+		int theValue = 0;
+		for (int i = aOffset; i < aOffset + aLength; i++) {
+			char theChar = aValue.charAt(i);
+			if ((theChar < '0') || (theChar > '9')) {
+				return -1;
+			}
+			theValue = (theValue * 10) + (theChar - '0');
+		}
+		return theValue;
+	}
+
+	/**
+	 * Writes a date as YYYY-MM-DD at the start of a character array.
+	 * 
+	 * @param aChars
+	 *            Character array with at least 10 characters
+	 * @param aDate
+	 *            Date with a 4 digit year
+	 */
+	private static void appendDate(char[] aChars, LocalDate aDate) {
+		appendDigits(aChars, 0, aDate.getYear(), 4);
+		aChars[4] = '-';
+		appendDigits(aChars, 5, aDate.getMonthValue(), 2);
+		aChars[7] = '-';
+		appendDigits(aChars, 8, aDate.getDayOfMonth(), 2);
+	}
+
+	/**
+	 * Writes a zero padded decimal value in a character array.
+	 * 
+	 * @param aChars
+	 *            Character array
+	 * @param aOffset
+	 *            Offset of the first digit
+	 * @param aValue
+	 *            Non-negative value
+	 * @param aLength
+	 *            Number of digits
+	 */
+	private static void appendDigits(char[] aChars, int aOffset, int aValue,
+			int aLength) {
+		for (int i = aOffset + aLength - 1; i >= aOffset; i--) {
+			aChars[i] = (char) ('0' + (aValue % 10));
+			aValue /= 10;
+		}
+	}
+
+	/**
+	 * Is a <code>SimpleDateFormat</code> pattern formatted the same by
+	 * <code>DateTimeFormatter</code>?  Only the year, month, day, hour,
+	 * minute, second and millisecond fields in numeric form along with
+	 * quoted text and other literal characters are supported.
+	 * 
+	 * @param aPattern
+	 *            <code>SimpleDateFormat</code> pattern
+	 * 
+	 * @return <code>true</code> if the pattern is formatted the same;
+	 *         <code>false</code> otherwise.
+	 */
+	private static boolean isCompatiblePattern(String aPattern) {
+		int thePos = 0;
+		while (thePos < aPattern.length()) {
+			char theChar = aPattern.charAt(thePos);
+
+			// Quoted text
+			if (theChar == '\'') {
+				thePos = aPattern.indexOf('\'', thePos + 1);
+				if (thePos == -1) {
+					return false;
+				}
+				thePos++;
+				continue;
+			}
+
+			// Literal character other than the characters reserved by
+			// DateTimeFormatter
+			if (!(((theChar >= 'a') && (theChar <= 'z')) || ((theChar >= 'A') && (theChar <= 'Z')))) {
+				if ((theChar == '[') || (theChar == ']') || (theChar == '{')
+						|| (theChar == '}') || (theChar == '#')) {
+					return false;
+				}
+				thePos++;
+				continue;
+			}
+
+			// Pattern letter
+			int theCount = 1;
+			while ((thePos + theCount < aPattern.length())
+					&& (aPattern.charAt(thePos + theCount) == theChar)) {
+				theCount++;
+			}
+
+			switch (theChar) {
+				case 'y':
+					if ((theCount != 2) && (theCount != 4)) {
+						return false;
+					}
+					break;
+				case 'M':
+				case 'd':
+				case 'H':
+				case 'm':
+				case 's':
+					if (theCount > 2) {
+						return false;
+					}
+					break;
+				case 'S':
+					if (theCount != 3) {
+						return false;
+					}
+					break;
+				default:
+					return false;
+			}
+
+			thePos += theCount;
+		}
+
+		return true;
+	}
+}
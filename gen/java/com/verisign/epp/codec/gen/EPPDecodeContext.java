@@ -0,0 +1,228 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.codec.gen;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Index of the child elements looked up with
+ * <code>EPPUtil.getElementByTagNameNS(Element, String, String)</code> and
+ * <code>EPPUtil.getElementsByTagNameNS(Element, String, String)</code>
+ * while decoding a message.  The children of an element are scanned once on
+ * the first lookup and indexed by local name, so the following lookups of
+ * the other fields of the element do not scan the children again.<br>
+ * <br>
+ * A context is entered on the current thread with {@link #enter()} by
+ * <code>EPPCodec</code> for the duration of a decode, and the indexes are
+ * released by the matching {@link #exit()}.  The DOM tree must not be
+ * changed while the context is entered, other than the changes to the text
+ * nodes, which are not indexed.  Outside of a context, <code>EPPUtil</code>
+ * scans the children on each lookup.
+ */
+final class EPPDecodeContext {
+
+	/** Context of the current thread */
+	private static final ThreadLocal<EPPDecodeContext> current = new ThreadLocal<EPPDecodeContext>();
+
+	/** Number of nested {@link #enter()} calls not exited */
+	private int depth = 0;
+
+	/**
+	 * Child element indexes by parent element.  The value of each index
+	 * entry is either an <code>Element</code> or a <code>List</code> of
+	 * <code>Element</code>'s in document order when there is more than one
+	 * child with the local name.
+	 */
+	private Map<Element, Map<String, Object>> indexes = new IdentityHashMap<Element, Map<String, Object>>();
+
+	/**
+	 * Created by {@link #enter()} only.
+	 */
+	private EPPDecodeContext() {
+	}
+
+	/**
+	 * Enters the decode context of the current thread.  Every call must be
+	 * followed by a call to {@link #exit()} in a <code>finally</code> block.
+	 *
+	 * @return Context of the current thread
+	 */
+	static EPPDecodeContext enter() {
+		EPPDecodeContext theContext = current.get();
+
+		if (theContext == null) {
+			theContext = new EPPDecodeContext();
+			current.set(theContext);
+		}
+
+		theContext.depth++;
+
+		return theContext;
+	}
+
+	/**
+	 * Exits the decode context, which releases the indexes when the
+	 * outermost {@link #enter()} call is exited.
+	 */
+	void exit() {
+		if (--this.depth == 0) {
+			this.indexes.clear();
+		}
+	}
+
+	/**
+	 * Gets the entered decode context of the current thread.
+	 *
+	 * @return Context if entered; <code>null</code> otherwise.
+	 */
+	static EPPDecodeContext getCurrent() {
+		EPPDecodeContext theContext = current.get();
+
+		if ((theContext == null) || (theContext.depth == 0)) {
+			return null;
+		}
+
+		return theContext;
+	}
+
+	/**
+	 * Gets the first direct child element with a given local name and XML
+	 * namespace.
+	 *
+	 * @param aElement Parent element
+	 * @param aNS XML namespace of the child element
+	 * @param aLocalName Local name of the child element
+	 *
+	 * @return Matching <code>Element</code> if found; <code>null</code>
+	 * 		   otherwise.
+	 */
+	Element getElement(Element aElement, String aNS, String aLocalName) {
+		Object theEntry = this.getIndex(aElement).get(aLocalName);
+
+		if (theEntry instanceof Element) {
+			return isNS((Element) theEntry, aNS) ? (Element) theEntry : null;
+		}
+		else if (theEntry != null) {
+			List theElms = (List) theEntry;
+			for (int i = 0; i < theElms.size(); i++) {
+				Element theElm = (Element) theElms.get(i);
+				if (isNS(theElm, aNS)) {
+					return theElm;
+				}
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Adds all of the direct child elements with a given local name and XML
+	 * namespace to a <code>Vector</code> in document order.
+	 *
+	 * @param aElement Parent element
+	 * @param aNS XML namespace of the child elements
+	 * @param aLocalName Local name of the child elements
+	 * @param aElms <code>Vector</code> to add the matching elements to
+	 */
+	void getElements(Element aElement, String aNS, String aLocalName,
+					 Vector aElms) {
+		Object theEntry = this.getIndex(aElement).get(aLocalName);
+
+		if (theEntry instanceof Element) {
+			if (isNS((Element) theEntry, aNS)) {
+				aElms.add(theEntry);
+			}
+		}
+		else if (theEntry != null) {
+			List theElms = (List) theEntry;
+			for (int i = 0; i < theElms.size(); i++) {
+				Element theElm = (Element) theElms.get(i);
+				if (isNS(theElm, aNS)) {
+					aElms.add(theElm);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the index of the child elements of an element, which is built on
+	 * the first call for the element.
+	 *
+	 * @param aElement Parent element
+	 *
+	 * @return Child elements by local name
+	 */
+	private Map<String, Object> getIndex(Element aElement) {
+		Map<String, Object> theIndex = this.indexes.get(aElement);
+
+		if (theIndex == null) {
+			theIndex = new HashMap<String, Object>();
+
+			for (Node theNode = aElement.getFirstChild(); theNode != null;
+					 theNode = theNode.getNextSibling()) {
+				if (theNode.getNodeType() != Node.ELEMENT_NODE) {
+					continue;
+				}
+
+				String theLocalName = theNode.getLocalName();
+				Object theEntry = theIndex.get(theLocalName);
+
+				if (theEntry == null) {
+					theIndex.put(theLocalName, theNode);
+				}
+				else if (theEntry instanceof Element) {
+					List<Element> theElms = new ArrayList<Element>(4);
+					theElms.add((Element) theEntry);
+					theElms.add((Element) theNode);
+					theIndex.put(theLocalName, theElms);
+				}
+				else {
+					((List<Element>) theEntry).add((Element) theNode);
+				}
+			}
+
+			this.indexes.put(aElement, theIndex);
+		}
+
+		return theIndex;
+	}
+
+	/**
+	 * Is an element in an XML namespace?
+	 *
+	 * @param aElement Element to check
+	 * @param aNS XML namespace
+	 *
+	 * @return <code>true</code> if <code>aElement</code> is in
+	 * 		   <code>aNS</code>; <code>false</code> otherwise.
+	 */
+	private static boolean isNS(Element aElement, String aNS) {
+		String theNS = aElement.getNamespaceURI();
+		return (theNS != null) && theNS.equals(aNS);
+	}
+}
@@ -89,6 +89,28 @@ public abstract class EPPExtFactory {
 	public abstract EPPProtocolExtension createProtocolExtension(Element aExtensionElm)
 		throws EPPCodecException;
 
+	/**
+	 * Creates a concrete <code>EPPCodecComponent</code> extension that
+	 * implements <code>EPPStreamDecodable</code> given the local name of the
+	 * extension element, for the streaming decode of
+	 * <code>EPPCodec.decode(XMLStreamReader)</code>.  The default
+	 * implementation returns <code>null</code>, which will result in the
+	 * extension being decoded with {@link #createExtension(Element)} from a
+	 * DOM element tree.
+	 *
+	 * @param aLocalName Local name of the extension element
+	 *
+	 * @return Concrete extension that implements
+	 * 		   <code>EPPStreamDecodable</code> if available; <code>null</code>
+	 * 		   otherwise.
+	 *
+	 * @exception EPPCodecException Error creating the concrete extension
+	 */
+	public EPPCodecComponent createStreamExtension(String aLocalName)
+									 throws EPPCodecException {
+		return null;
+	}
+
 	/**
 	 * Gets the service information associated with the     concrete
 	 * <code>EPPExtFactory</code>.  The service information is used by
@@ -21,10 +21,12 @@ package com.verisign.epp.codec.gen;
 
 
 // Log4j Imports
-import java.util.Enumeration;
-import java.util.Hashtable;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.Vector;
 
@@ -51,7 +53,11 @@ import com.verisign.epp.util.EPPCatFactory;
  * Mappings.     A method is provided to retrieve the list
  * <code>EPPService</code> descriptions     of available EPP Command Mappings.
  * The list of available EPP Command Mappings can be used     in
- * <code>EPPGreeting</code> and in <code>EPPLoginCmd</code>.     <br><br>
+ * <code>EPPGreeting</code> and in <code>EPPLoginCmd</code>.     <br>
+ * <br>
+ * The factories are kept in immutable maps indexed by XML namespace URI that
+ * are replaced when a factory is added, so the lookups done on each decode
+ * do not lock.     <br><br>
  *
  * @author $Author: jim $
  * @version $Revision: 1.4 $
@@ -70,23 +76,58 @@ public class EPPFactory {
 						 EPPFactory.class.getName(),
 						 EPPCatFactory.getInstance().getFactory());
 
-	/** Hash of EPP Command Mappings indexed by XML Namespace URI. */
-	private Hashtable factories = new Hashtable();
+	/** Command type of an <code>EPPLoginCmd</code> */
+	private static final int CMD_LOGIN = 1;
+
+	/** Command type of an <code>EPPLogoutCmd</code> */
+	private static final int CMD_LOGOUT = 2;
+
+	/** Command type of an <code>EPPPollCmd</code> */
+	private static final int CMD_POLL = 3;
+
+	/**
+	 * Command types of the commands without a command mapping by local name
+	 * of the command element, used by
+	 * <code>createCommand(String, String)</code>.  The map is never
+	 * modified, so it is read without locking.
+	 */
+	private static final Map<String, Integer> COMMAND_TYPES;
+
+	static {
+		Map<String, Integer> theTypes = new HashMap<String, Integer>();
+		theTypes.put(EPPUtil.getLocalName(EPPCommand.TYPE_LOGIN), Integer.valueOf(CMD_LOGIN));
+		theTypes.put(EPPUtil.getLocalName(EPPCommand.TYPE_LOGOUT), Integer.valueOf(CMD_LOGOUT));
+		theTypes.put(EPPUtil.getLocalName(EPPCommand.TYPE_POLL), Integer.valueOf(CMD_POLL));
+		COMMAND_TYPES = Collections.unmodifiableMap(theTypes);
+	}
 
-	/** Hash of EPP Extension Factories indexed by XML Namespace URI. */
-	private Hashtable extFactories = new Hashtable();
+	/**
+	 * EPP Command Mappings indexed by XML Namespace URI.  The map is never
+	 * modified after it is set, so it is read without locking, and it is
+	 * replaced while holding the <code>EPPFactory</code> monitor.
+	 */
+	private volatile Map<String, EPPMapFactory> factories = Collections.emptyMap();
+
+	/**
+	 * EPP Extension Factories indexed by XML Namespace URI.  The map is never
+	 * modified after it is set, so it is read without locking, and it is
+	 * replaced while holding the <code>EPPFactory</code> monitor.
+	 */
+	private volatile Map<String, EPPExtFactory> extFactories = Collections.emptyMap();
 	
 	/** 
 	 * Ordered list of registered map factories based on registration order.
 	 * This is needed to maintain the order of the registered factories for 
-	 * pre-loading the XML schemas.
+	 * pre-loading the XML schemas.  Guarded by the <code>EPPFactory</code>
+	 * monitor.
 	 */
 	private Set factoriesSet = new LinkedHashSet();
 	
 	/** 
 	 * Ordered list of registered ext factories based on registration order.
 	 * This is needed to maintain the order of the registered ext factories for 
-	 * pre-loading the XML schemas.
+	 * pre-loading the XML schemas.  Guarded by the <code>EPPFactory</code>
+	 * monitor.
 	 */
 	private Set extFactoriesSet = new LinkedHashSet();
 	
@@ -127,20 +168,27 @@ public class EPPFactory {
 	 */
 	public EPPCommand createCommand(String aCommandType, String aOp)
 							 throws EPPCodecException {
-		String commandTypeLocalName = EPPUtil.getLocalName(aCommandType);
-		
-		if (commandTypeLocalName.equals(EPPUtil.getLocalName(EPPCommand.TYPE_LOGIN))) {
-			return new EPPLoginCmd();
-		}
-		else if (commandTypeLocalName.equals(EPPUtil.getLocalName(EPPCommand.TYPE_LOGOUT))) {
-			return new EPPLogoutCmd();
-		}
-		else if (commandTypeLocalName.equals(EPPUtil.getLocalName(EPPCommand.TYPE_POLL))) {
-			return new EPPPollCmd();
+		Integer theType = COMMAND_TYPES.get(aCommandType);
+
+		// Prefixed command type?
+		if ((theType == null) && (aCommandType != null)
+				&& (aCommandType.indexOf(':') != -1)) {
+			theType = COMMAND_TYPES.get(EPPUtil.getLocalName(aCommandType));
 		}
-		else {
-			throw new EPPCodecException("Invalid command type " + commandTypeLocalName
-										+ " in EPPFactory.createCommand");
+
+		switch ((theType == null) ? 0 : theType.intValue()) {
+			case CMD_LOGIN:
+				return new EPPLoginCmd();
+
+			case CMD_LOGOUT:
+				return new EPPLogoutCmd();
+
+			case CMD_POLL:
+				return new EPPPollCmd();
+
+			default:
+				throw new EPPCodecException("Invalid command type " + aCommandType
+											+ " in EPPFactory.createCommand");
 		}
 	}
 
@@ -163,7 +211,7 @@ public class EPPFactory {
 							 throws EPPCodecException {
 		String		  nsUri = aMapElement.getNamespaceURI();
 
-		EPPMapFactory target = (EPPMapFactory) factories.get(nsUri);
+		EPPMapFactory target = this.factories.get(nsUri);
 
 		if (target == null) {
 			throw new EPPCodecException("Unable to find factory for namespace "
@@ -191,7 +239,7 @@ public class EPPFactory {
 	public EPPResponse createResponse(Element aMapElement)
 							   throws EPPCodecException {
 		EPPMapFactory target =
-			(EPPMapFactory) factories.get(aMapElement.getNamespaceURI());
+			this.factories.get(aMapElement.getNamespaceURI());
 
 		if (target == null) {
 			throw new EPPCodecException("Unable to find factory for namespace "
@@ -201,6 +249,35 @@ public class EPPFactory {
 		return target.createResponse(aMapElement);
 	}
 
+	/**
+	 * creates a concrete <code>EPPResponse</code> that supports streaming
+	 * given the XML namespace URI and local name of the response data
+	 * element.  The namespace URI is used to determine the concrete
+	 * <code>EPPMapFactory</code> to call
+	 * <code>EPPMapFactory.createStreamResponse(String)</code> on.
+	 *
+	 * @param aNS XML namespace URI of the response data element
+	 * @param aLocalName Local name of the response data element
+	 *
+	 * @return Concrete <code>EPPResponse</code> that supports streaming if
+	 * 		   available; <code>null</code> if the response must be decoded
+	 * 		   with <code>createResponse(Element)</code>.
+	 *
+	 * @exception EPPCodecException Unable to find the
+	 * 			  <code>EPPMapFactory</code> for <code>aNS</code>.
+	 */
+	public EPPResponse createStreamResponse(String aNS, String aLocalName)
+									 throws EPPCodecException {
+		EPPMapFactory target = this.factories.get(aNS);
+
+		if (target == null) {
+			throw new EPPCodecException("Unable to find factory for namespace "
+										+ aNS);
+		}
+
+		return target.createStreamResponse(aLocalName);
+	}
+
 	/**
 	 * creates a concrete <code>EPPCommand</code> given a DOM Command Mapping
 	 * Element.  The DOM Command     Mapping Element must have an XML
@@ -221,7 +298,7 @@ public class EPPFactory {
 									  throws EPPCodecException {
 		String		  nsUri = aExtensionElm.getNamespaceURI();
 
-		EPPExtFactory target = (EPPExtFactory) extFactories.get(nsUri);
+		EPPExtFactory target = this.extFactories.get(nsUri);
 
 		if (target == null) {
 			throw new EPPCodecException("Unable to find extension factory for namespace "
@@ -231,6 +308,36 @@ public class EPPFactory {
 		return target.createExtension(aExtensionElm);
 	}
 
+	/**
+	 * creates a concrete extension that implements
+	 * <code>EPPStreamDecodable</code> given the XML namespace URI and local
+	 * name of the extension element.  The namespace URI is used to determine
+	 * the concrete <code>EPPExtFactory</code> to call
+	 * <code>EPPExtFactory.createStreamExtension(String)</code> on.
+	 *
+	 * @param aNS XML namespace URI of the extension element
+	 * @param aLocalName Local name of the extension element
+	 *
+	 * @return Concrete extension that supports streaming if available;
+	 * 		   <code>null</code> if the extension must be decoded with
+	 * 		   <code>createExtension(Element)</code>.
+	 *
+	 * @exception EPPCodecException Unable to find the
+	 * 			  <code>EPPExtFactory</code> for <code>aNS</code>.
+	 */
+	public EPPCodecComponent createStreamExtension(String aNS,
+												   String aLocalName)
+											throws EPPCodecException {
+		EPPExtFactory target = this.extFactories.get(aNS);
+
+		if (target == null) {
+			throw new EPPCodecException("Unable to find extension factory for namespace "
+										+ aNS);
+		}
+
+		return target.createStreamExtension(aLocalName);
+	}
+
 	/**
 	 * creates a concrete <code>EPPProtocolExtension</code> given a DOM
 	 * protocol extension Element. The extension element must have an XML
@@ -249,7 +356,7 @@ public class EPPFactory {
 												 throws EPPCodecException {
 		String		  nsUri = aExtensionElm.getNamespaceURI();
 
-		EPPExtFactory target = (EPPExtFactory) extFactories.get(nsUri);
+		EPPExtFactory target = this.extFactories.get(nsUri);
 
 		if (target == null) {
 			throw new EPPCodecException("Unable to find extension factory for namespace "
@@ -271,11 +378,10 @@ public class EPPFactory {
 	public Vector getServices() {
 		Vector	    retServices = new Vector();
 
-		Enumeration factoryElms = factories.elements();
+		Iterator<EPPMapFactory> factoryElms = this.factories.values().iterator();
 
-		while (factoryElms.hasMoreElements()) {
-			EPPMapFactory currFactory =
-				(EPPMapFactory) factoryElms.nextElement();
+		while (factoryElms.hasNext()) {
+			EPPMapFactory currFactory = factoryElms.next();
 
 			retServices.addElement(currFactory.getService());
 		}
@@ -295,11 +401,10 @@ public class EPPFactory {
 	public Vector getExtensions() {
 		Vector	    retServices = new Vector();
 
-		Enumeration factoryElms = extFactories.elements();
+		Iterator<EPPExtFactory> factoryElms = this.extFactories.values().iterator();
 
-		while (factoryElms.hasMoreElements()) {
-			EPPExtFactory currFactory =
-				(EPPExtFactory) factoryElms.nextElement();
+		while (factoryElms.hasNext()) {
+			EPPExtFactory currFactory = factoryElms.next();
 
 			retServices.addElement(currFactory.getService());
 		}
@@ -320,7 +425,7 @@ public class EPPFactory {
 	 * 		   <code>false</code> otherwise.
 	 */
 	public boolean hasService(String aNamespace) {
-		return factories.containsKey(aNamespace);
+		return this.factories.containsKey(aNamespace);
 	}
 
 	/**
@@ -336,7 +441,7 @@ public class EPPFactory {
 	 * 		   <code>false</code> otherwise.
 	 */
 	public boolean hasExtension(String aNamespace) {
-		return extFactories.containsKey(aNamespace);
+		return this.extFactories.containsKey(aNamespace);
 	}
 
 	/**
@@ -356,24 +461,26 @@ public class EPPFactory {
 	 *
 	 * @exception EPPCodecException Error initializing <code>EPPFactory</code>
 	 */
-	public void init(Vector someFactories) throws EPPCodecException {
+	public synchronized void init(Vector someFactories) throws EPPCodecException {
 		cat.debug("init(Vector): enter");
 
 		EPPService    currService     = null;
 		EPPMapFactory currFactory     = null;
 		String		  currFactoryName = null;
 
-		factories = new Hashtable();
+		this.factories = Collections.emptyMap();
 
 		// For each concrete EPPMapFactory
 		for (int i = 0; i < someFactories.size(); i++) {
 			currFactoryName = (String) someFactories.elementAt(i);
-			cat.debug("init(Vector): Add Map Factory <" + currFactoryName + ">");
+			if (cat.isDebugEnabled()) {
+				cat.debug("init(Vector): Add Map Factory <" + currFactoryName + ">");
+			}
 			addMapFactory(currFactoryName);
 		}
 
 		// end for each factory
-		extFactories = new Hashtable();
+		this.extFactories = Collections.emptyMap();
 
 		cat.debug("init(Vector): exit");
 	}
@@ -401,7 +508,7 @@ public class EPPFactory {
 	 *
 	 * @exception EPPCodecException Error initializing <code>EPPFactory</code>
 	 */
-	public void init(Vector someFactories, Vector someExtFactories)
+	public synchronized void init(Vector someFactories, Vector someExtFactories)
 			  throws EPPCodecException {
 		cat.debug("init(Vector, Vector): enter");
 
@@ -415,8 +522,10 @@ public class EPPFactory {
 		// For each concrete EPPExtFactory
 		for (int i = 0; i < someExtFactories.size(); i++) {
 			currFactoryName = (String) someExtFactories.elementAt(i);
-			cat.debug("init(Vector, Vector): Add Ext Factory <"
-					  + currFactoryName + ">");
+			if (cat.isDebugEnabled()) {
+				cat.debug("init(Vector, Vector): Add Ext Factory <"
+						  + currFactoryName + ">");
+			}
 			addExtFactory(currFactoryName);
 		}
 
@@ -434,7 +543,7 @@ public class EPPFactory {
 	 * @exception EPPCodecException Error add <code>EPPMapFactory</code> to
 	 * 			  <code>EPPFactory</code>.
 	 */
-	public void addMapFactory(String aMapFactory) throws EPPCodecException {
+	public synchronized void addMapFactory(String aMapFactory) throws EPPCodecException {
 		cat.debug("addMapFactory(String): enter");
 
 		try {
@@ -442,7 +551,7 @@ public class EPPFactory {
 			if (!mapFactoryExists(aMapFactory)) {
 				cat.info("addMapFactory(String): Loading <" + aMapFactory + ">");
 
-				// Instantiate EPPMapFactory and add to factories Hashtable.
+				// Instantiate EPPMapFactory and add to the factories map.
 				Class factoryClass = Class.forName(aMapFactory);
 
 				if (!EPPMapFactory.class.isAssignableFrom((factoryClass))) {
@@ -464,7 +573,10 @@ public class EPPFactory {
 						 + "> with Namespace <" + theService.getNamespaceURI()
 						 + ">");
 
-				factories.put(theService.getNamespaceURI(), theFactory);
+				Map<String, EPPMapFactory> theFactories =
+					new LinkedHashMap<String, EPPMapFactory>(this.factories);
+				theFactories.put(theService.getNamespaceURI(), theFactory);
+				this.factories = Collections.unmodifiableMap(theFactories);
 				
 				this.factoriesSet.add(theFactory);
 			}
@@ -495,7 +607,7 @@ public class EPPFactory {
 	 * @exception EPPCodecException Error add <code>EPPExtFactory</code> to
 	 * 			  <code>EPPFactory</code>.
 	 */
-	public void addExtFactory(String aExtFactory) throws EPPCodecException {
+	public synchronized void addExtFactory(String aExtFactory) throws EPPCodecException {
 		cat.debug("addExtFactory(String): enter");
 
 		try {
@@ -503,7 +615,7 @@ public class EPPFactory {
 			if (!extFactoryExists(aExtFactory)) {
 				cat.info("addExtFactory(String): Loading <" + aExtFactory + ">");
 
-				// Instantiate EPPExtFactory and add to factories Hashtable.
+				// Instantiate EPPExtFactory and add to the factories map.
 				Class factoryClass = Class.forName(aExtFactory);
 
 				if (!EPPExtFactory.class.isAssignableFrom((factoryClass))) {
@@ -525,7 +637,10 @@ public class EPPFactory {
 						 + "> with Namespace <" + theService.getNamespaceURI()
 						 + ">");
 
-				extFactories.put(theService.getNamespaceURI(), theFactory);
+				Map<String, EPPExtFactory> theFactories =
+					new LinkedHashMap<String, EPPExtFactory>(this.extFactories);
+				theFactories.put(theService.getNamespaceURI(), theFactory);
+				this.extFactories = Collections.unmodifiableMap(theFactories);
 				
 				this.extFactoriesSet.add(theFactory);
 			}
@@ -563,7 +678,7 @@ public class EPPFactory {
 	 * <li><code>epp-1.0.xsd</code>
 	 * </ul>
 	 */
-	public Set getXmlSchemas() {
+	public synchronized Set getXmlSchemas() {
 		cat.debug("getXmlSchemas(): enter");
 		
 		Set theSchemas = new LinkedHashSet();
@@ -580,7 +695,9 @@ public class EPPFactory {
 			EPPMapFactory currFactory =
 				(EPPMapFactory) theFactoryIter.next();
 			
-			cat.debug("getXmlSchemas(): Loading EPP XML schemas from " + currFactory.getClass().getName());
+			if (cat.isDebugEnabled()) {
+				cat.debug("getXmlSchemas(): Loading EPP XML schemas from " + currFactory.getClass().getName());
+			}
 		
 			
 			if (currFactory.getXmlSchemas() != null) {
@@ -595,7 +712,9 @@ public class EPPFactory {
 			EPPExtFactory currFactory =
 				(EPPExtFactory) theExtFactoryIter.next();
 			
-			cat.debug("getXmlSchemas(): Loading EPP XML schemas from " + currFactory.getClass().getName());
+			if (cat.isDebugEnabled()) {
+				cat.debug("getXmlSchemas(): Loading EPP XML schemas from " + currFactory.getClass().getName());
+			}
 			
 			if (currFactory.getXmlSchemas() != null) {
 				theSchemas.addAll(currFactory.getXmlSchemas());
@@ -621,10 +740,10 @@ public class EPPFactory {
 	 * 		   <code>false</code> otherwise.
 	 */
 	boolean mapFactoryExists(String aMapFactory) {
-		Enumeration enumeration = factories.elements();
+		Iterator<EPPMapFactory> theIter = this.factories.values().iterator();
 
-		while (enumeration.hasMoreElements()) {
-			if (enumeration.nextElement().getClass().getName().equals(aMapFactory)) {
+		while (theIter.hasNext()) {
+			if (theIter.next().getClass().getName().equals(aMapFactory)) {
 				return true;
 			}
 		}
@@ -643,10 +762,10 @@ public class EPPFactory {
 	 * 		   <code>false</code> otherwise.
 	 */
 	boolean extFactoryExists(String aExtFactory) {
-		Enumeration enumeration = extFactories.elements();
+		Iterator<EPPExtFactory> theIter = this.extFactories.values().iterator();
 
-		while (enumeration.hasMoreElements()) {
-			if (enumeration.nextElement().getClass().getName().equals(aExtFactory)) {
+		while (theIter.hasNext()) {
+			if (theIter.next().getClass().getName().equals(aExtFactory)) {
 				return true;
 			}
 		}
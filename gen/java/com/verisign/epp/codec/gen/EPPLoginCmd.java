@@ -782,8 +782,10 @@ public class EPPLoginCmd extends EPPCommand {
 			!EPPUtil.vectorSubset(
 									  services,
 										  greetingServices.getObjectServices())) {
-			cat.debug("services mismatch " + services + " not in "
-					  + greetingServices.getObjectServices());
+			if (cat.isDebugEnabled()) {
+				cat.debug("services mismatch " + services + " not in "
+						  + greetingServices.getObjectServices());
+			}
 
 			return false;
 		}
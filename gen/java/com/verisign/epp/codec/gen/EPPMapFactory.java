@@ -116,6 +116,31 @@ public abstract class EPPMapFactory {
 	public abstract EPPResponse createResponse(Element aMapElement)
 										throws EPPCodecException;
 
+	/**
+	 * Creates a concrete <code>EPPResponse</code> that supports the streaming
+	 * decode of <code>EPPCodec.decode(XMLStreamReader)</code> given the local
+	 * name of the response data element.  The returned response must
+	 * override <code>EPPResponse.doDecode(XMLStreamReader)</code>.  The
+	 * default implementation returns <code>null</code>, which will result in
+	 * the response data element being decoded with
+	 * {@link #createResponse(Element)} from a DOM element tree, so only the
+	 * concrete <code>EPPMapFactory</code> classes with ported responses need
+	 * to override this method.
+	 *
+	 * @param aLocalName Local name of the response data element.  For example
+	 * 		  &quot;infData&quot;.
+	 *
+	 * @return Concrete <code>EPPResponse</code> that supports streaming if
+	 * 		   available; <code>null</code> otherwise.
+	 *
+	 * @exception EPPCodecException Error creating the concrete
+	 * 			  <code>EPPResponse</code>
+	 */
+	public EPPResponse createStreamResponse(String aLocalName)
+									 throws EPPCodecException {
+		return null;
+	}
+
 	/**
 	 * Abstract method that gets the service information associated with the
 	 * concrete <code>EPPMapFactory</code>.  The service information is used
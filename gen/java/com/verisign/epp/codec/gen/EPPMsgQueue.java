@@ -29,6 +29,9 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 import org.w3c.dom.Text;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 import com.verisign.epp.util.EPPCatFactory;
 
 
@@ -71,7 +74,7 @@ import com.verisign.epp.util.EPPCatFactory;
  * </li>
  * </ul>
  */
-public class EPPMsgQueue implements EPPCodecComponent {
+public class EPPMsgQueue implements EPPCodecComponent, EPPStreamDecodable {
 	/** The default language of the reason "en". */
 	public static final String DEFAULT_LANG = "en";
 
@@ -410,46 +413,99 @@ public class EPPMsgQueue implements EPPCodecComponent {
 		Element theMsgElm = EPPUtil.getElementByTagNameNS(aElement, EPPCodec.NS, ELM_MSG);
 		
 		if (theMsgElm != null) {
-			
-			NodeList theMsgNodes = theMsgElm.getChildNodes();
-			
-			// Is it mixed XML content?
-			if (theMsgNodes.getLength() > 1 || 
-					(theMsgNodes.getLength() == 1 && theMsgNodes.item(0).getNodeType() != Node.TEXT_NODE)) {
-				this.msg = null;
-				
-				// Clear empty Text Nodes
-				Node theCurrNode = theMsgNodes.item(0);
-				while (theCurrNode != null) {
-					Node theNextNode = theCurrNode.getNextSibling();
-					if (theCurrNode.getNodeType() == Node.TEXT_NODE && 
-							theCurrNode.getNodeValue().trim().length() == 0) {
-						theCurrNode.getParentNode().removeChild(theCurrNode);
-					}
-					theCurrNode = theNextNode;
-				}
-				this.msgNodeList = theMsgNodes;
+			this.decodeMsg(theMsgElm);
+		}
+		else {
+			this.msg	  = null;
+			this.msgNodeList = null;
+			this.lang  = DEFAULT_LANG;
+		}
+	}
+
+	// End EPPMsgQueue.decode(Element)
+
+	/**
+	 * decode <code>EPPMsgQueue</code> with an <code>XMLStreamReader</code>.
+	 * The &lt;msg&gt; element, which can contain mixed XML content, is
+	 * decoded from a DOM element tree.
+	 *
+	 * @param aReader Reader positioned on the &lt;msgQ&gt; element
+	 *
+	 * @exception EPPDecodeException Error decoding the &lt;msgQ&gt; element
+	 * @exception XMLStreamException Error reading from <code>aReader</code>
+	 */
+	public void decode(XMLStreamReader aReader)
+				throws EPPDecodeException, XMLStreamException {
+		// Count 
+		this.count     = new Long(EPPStreamUtil.getAttribute(aReader, ATTR_COUNT));
+
+		// Id
+		this.id     = EPPStreamUtil.getAttribute(aReader, ATTR_ID);
+
+		this.qDate = null;
+		this.msg	  = null;
+		this.msgNodeList = null;
+		this.lang  = DEFAULT_LANG;
+
+		while (EPPStreamUtil.nextChild(aReader)) {
+			// QDate
+			if (EPPStreamUtil.isElement(aReader, EPPCodec.NS, ELM_QDATE)) {
+				this.qDate =
+					EPPUtil.decodeTimeInstant(EPPStreamUtil.getText(aReader));
 			}
-			else if (theMsgNodes.getLength() == 1 && theMsgNodes.item(0).getNodeType() == Node.TEXT_NODE) {
-				this.msgNodeList = null;
-				this.msg = ((Text) theMsgNodes.item(0)).getNodeValue();	
+
+			// Msg
+			else if (EPPStreamUtil.isElement(aReader, EPPCodec.NS, ELM_MSG)) {
+				this.decodeMsg(EPPStreamUtil.toElement(aReader));
 			}
 			else {
-				this.msg = "";
-				this.msgNodeList = null;
+				EPPStreamUtil.skipElement(aReader);
 			}
+		}
+	}
+
+	// End EPPMsgQueue.decode(XMLStreamReader)
+
+	/**
+	 * decode the &lt;msg&gt; element, which is either a text message or mixed
+	 * XML content.
+	 *
+	 * @param aMsgElm &lt;msg&gt; element
+	 */
+	private void decodeMsg(Element aMsgElm) {
+		NodeList theMsgNodes = aMsgElm.getChildNodes();
+		
+		// Is it mixed XML content?
+		if (theMsgNodes.getLength() > 1 || 
+				(theMsgNodes.getLength() == 1 && theMsgNodes.item(0).getNodeType() != Node.TEXT_NODE)) {
+			this.msg = null;
 			
-			// Lang
-			this.setLang(theMsgElm.getAttribute(ATTR_LANG));
+			// Clear empty Text Nodes
+			Node theCurrNode = theMsgNodes.item(0);
+			while (theCurrNode != null) {
+				Node theNextNode = theCurrNode.getNextSibling();
+				if (theCurrNode.getNodeType() == Node.TEXT_NODE && 
+						theCurrNode.getNodeValue().trim().length() == 0) {
+					theCurrNode.getParentNode().removeChild(theCurrNode);
+				}
+				theCurrNode = theNextNode;
+			}
+			this.msgNodeList = theMsgNodes;
+		}
+		else if (theMsgNodes.getLength() == 1 && theMsgNodes.item(0).getNodeType() == Node.TEXT_NODE) {
+			this.msgNodeList = null;
+			this.msg = ((Text) theMsgNodes.item(0)).getNodeValue();	
 		}
 		else {
-			this.msg	  = null;
+			this.msg = "";
 			this.msgNodeList = null;
-			this.lang  = DEFAULT_LANG;
 		}
+		
+		// Lang
+		this.setLang(aMsgElm.getAttribute(ATTR_LANG));
 	}
 
-	// End EPPMsgQueue.decode(Element)
+	// End EPPMsgQueue.decodeMsg(Element)
 
 	/**
 	 * implements a deep <code>EPPMsgQueue</code> compare.
@@ -30,6 +30,9 @@ import java.util.Iterator;
 import java.util.Optional;
 import java.util.Vector;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 //----------------------------------------------
 //
 // imports...
@@ -63,7 +66,7 @@ import java.util.Vector;
  * <code>encode</code> or <code>decode</code>,     which in turn will call
  * <code>doEncode</code> or <code>doDecode</code>, respectively.
  */
-public class EPPResponse implements EPPMessage {
+public class EPPResponse implements EPPMessage, EPPStreamEncodable {
 	/** Transfer status constant - clientApproved */
 	public static final String TRANSFER_CLIENT_APPROVED = "clientApproved";
 
@@ -95,13 +98,13 @@ public class EPPResponse implements EPPMessage {
 	 * XML tag name response extension data, which is defined by
 	 * <code>EPPResponse</code> derived classes.
 	 */
-	final static String ELM_RESPONSE_DATA = "resData";
+	protected final static String ELM_RESPONSE_DATA = "resData";
 
 	/** XML tag name for the "qDate" child element to the &lt;msgQ&gt; element */
 	final static String ELM_MESSAGE_QUEUE_QDATE = "qDate";
 
 	/** XML tag name for unspecified extension element. */
-	private static final String ELM_EXTENSION = "extension";
+	static final String ELM_EXTENSION = "extension";
 
 	/** Message Queue count attribute */
 	private static final String ATTR_COUNT = "count";
@@ -742,6 +745,43 @@ public class EPPResponse implements EPPMessage {
 		return root;
 	} // End EPPResponse.encode(Document)
 
+	/**
+	 * encode <code>EPPResponse</code> directly to an
+	 * <code>EPPXMLWriter</code> with the same elements as
+	 * <code>encode(Document)</code>.  The response data is written with
+	 * <code>doEncode(EPPXMLWriter)</code>, which uses
+	 * <code>doEncode(Document)</code> unless it is overridden.
+	 *
+	 * @param aWriter Writer to write the &ltresponse&gt element to
+	 *
+	 * @exception EPPEncodeException Error encoding the response
+	 */
+	public void encode(EPPXMLWriter aWriter) throws EPPEncodeException {
+		// <response>
+		aWriter.writeStartElement(EPPCodec.NS, ELM_NAME);
+
+		// Results
+		aWriter.writeCompVector(results);
+
+		// Message Queue
+		aWriter.writeComp(msgQueue);
+
+		// Response Mapping
+		doEncode(aWriter);
+
+		// Extension Element
+		if (extensions != null) {
+			aWriter.writeStartElement(EPPCodec.NS, ELM_EXTENSION);
+			aWriter.writeCompVector(extensions);
+			aWriter.writeEndElement();
+		}
+
+		// Transaction ID
+		aWriter.writeComp(transId);
+
+		aWriter.writeEndElement();
+	} // End EPPResponse.encode(EPPXMLWriter)
+
 	/**
 	 * decode <code>EPPResponse</code> from a DOM element tree.  The "response"
 	 * element needs to be the value of the <code>aElement</code> argument.
@@ -941,6 +981,30 @@ public class EPPResponse implements EPPMessage {
 		return null;
 	} // End EPPResponse.doEncode(Document)
 
+	/**
+	 * Writes the &ltresData&gt element with the attributes of the concrete
+	 * <code>EPPResponse</code> to an <code>EPPXMLWriter</code>, which is
+	 * called by <code>encode(EPPXMLWriter)</code>.  The default
+	 * implementation writes the DOM element tree of
+	 * <code>doEncode(Document)</code> in a &ltresData&gt element, and
+	 * nothing when <code>doEncode(Document)</code> returns <code>null</code>,
+	 * so the derived classes that support streaming should override this
+	 * method.
+	 *
+	 * @param aWriter Writer to write the &ltresData&gt element to
+	 *
+	 * @exception EPPEncodeException Error encoding the response data
+	 */
+	protected void doEncode(EPPXMLWriter aWriter) throws EPPEncodeException {
+		Element theMapping = doEncode(aWriter.getDocument());
+
+		if (theMapping != null) {
+			aWriter.writeStartElement(EPPCodec.NS, ELM_RESPONSE_DATA);
+			aWriter.writeElement(theMapping);
+			aWriter.writeEndElement();
+		}
+	} // End EPPResponse.doEncode(EPPXMLWriter)
+
 	/**
 	 * Decodes the attributes of the concrete <code>EPPResponse</code> and must
 	 * be overridden by <code>EPPResponse</code> derived classes.  The default
@@ -957,6 +1021,28 @@ public class EPPResponse implements EPPMessage {
 		// Do nothing since EPPReponse can be concrete.
 	} // End EPPResponse.doDecode(Element)
 
+	/**
+	 * Decodes the attributes of the concrete <code>EPPResponse</code> from
+	 * the response data element with an <code>XMLStreamReader</code>, which
+	 * is called by <code>EPPCodec.decode(XMLStreamReader)</code> for the
+	 * responses created with
+	 * <code>EPPMapFactory.createStreamResponse(String)</code>.  The default
+	 * implementation builds a DOM element tree of the response data element
+	 * and calls <code>doDecode(Element)</code>, so the derived classes that
+	 * support streaming should override this method.
+	 *
+	 * @param aReader Reader positioned on the <code>START_ELEMENT</code> event
+	 * 		  of the response data element and left on the matching
+	 * 		  <code>END_ELEMENT</code> event.
+	 *
+	 * @exception EPPDecodeException Error decoding the response data element
+	 * @exception XMLStreamException Error reading from <code>aReader</code>
+	 */
+	protected void doDecode(XMLStreamReader aReader)
+					 throws EPPDecodeException, XMLStreamException {
+		doDecode(EPPStreamUtil.toElement(aReader));
+	} // End EPPResponse.doDecode(XMLStreamReader)
+
 	public Document getDocument() {
 		return document;
 	}
@@ -41,6 +41,9 @@ import java.util.Iterator;
 // Java Core Imports
 import java.util.Vector;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 import com.verisign.epp.util.EPPCatFactory;
 
 
@@ -75,7 +78,8 @@ import com.verisign.epp.util.EPPCatFactory;
  * </li>
  * </ul>
  */
-public class EPPResult implements EPPCodecComponent {
+public class EPPResult implements EPPCodecComponent, EPPStreamDecodable,
+		EPPStreamEncodable {
 	/** The default language of the result message "en". */
 	public static final String DEFAULT_LANG = "en";
 
@@ -860,6 +864,58 @@ public class EPPResult implements EPPCodecComponent {
 
 	// End EPPResult.decode(Element)
 
+	/**
+	 * decode <code>EPPResult</code> with an <code>XMLStreamReader</code>.  The
+	 * &ltvalue&gt and &ltextValue&gt elements, which can contain any XML, are
+	 * decoded from a DOM element tree.
+	 *
+	 * @param aReader Reader positioned on the &ltresult&gt element
+	 *
+	 * @exception EPPDecodeException Error decoding the &ltresult&gt element
+	 * @exception XMLStreamException Error reading from <code>aReader</code>
+	 */
+	public void decode(XMLStreamReader aReader)
+				throws EPPDecodeException, XMLStreamException {
+		// Code
+		code = Integer.parseInt(EPPStreamUtil.getAttribute(aReader, ATTR_CODE));
+
+		message = null;
+		this.values = null;
+		this.extValues = null;
+
+		while (EPPStreamUtil.nextChild(aReader)) {
+			// Message
+			if (EPPStreamUtil.isElement(aReader, EPPCodec.NS, ELM_MSG)) {
+				setLang(EPPStreamUtil.getAttribute(aReader, ATTR_LANG));
+				message = EPPStreamUtil.getText(aReader);
+			}
+
+			// Values
+			else if (EPPStreamUtil.isElement(aReader, EPPCodec.NS, EPPValue.ELM_NAME)) {
+				this.values =
+					EPPStreamUtil.addComp(aReader, this.values, EPPValue.class);
+			}
+
+			// ExtValues
+			else if (EPPStreamUtil.isElement(aReader, EPPCodec.NS, EPPExtValue.ELM_NAME)) {
+				this.extValues =
+					EPPStreamUtil.addComp(
+										  aReader, this.extValues,
+										  EPPExtValue.class);
+			}
+			else {
+				EPPStreamUtil.skipElement(aReader);
+			}
+		}
+
+		if (message == null) {
+			throw new EPPDecodeException("Required EPPResult element "
+										 + ELM_MSG + " not found");
+		}
+	}
+
+	// End EPPResult.decode(XMLStreamReader)
+
 	/**
 	 * encode <code>EPPResult</code> into a DOM element tree. The result     is
 	 * created and the attribute nodes are     appended as children.
@@ -901,6 +957,41 @@ public class EPPResult implements EPPCodecComponent {
 
 	// End EPPResult.encode(Document)
 
+	/**
+	 * encode <code>EPPResult</code> directly to an <code>EPPXMLWriter</code>
+	 * with the same elements as <code>encode(Document)</code>.
+	 *
+	 * @param aWriter Writer to write the &ltresult&gt element to
+	 *
+	 * @exception EPPEncodeException Error encoding the result
+	 */
+	public void encode(EPPXMLWriter aWriter) throws EPPEncodeException {
+		// Code
+		aWriter.writeStartElement(EPPCodec.NS, ELM_NAME);
+		aWriter.writeAttribute(ATTR_CODE, code + "");
+
+		// Message
+		aWriter.writeStartElement(EPPCodec.NS, ELM_MSG);
+
+		// Lang
+		if (!lang.equals(DEFAULT_LANG)) {
+			aWriter.writeAttribute(ATTR_LANG, lang);
+		}
+
+		aWriter.writeCharacters(message);
+		aWriter.writeEndElement();
+
+		// Values
+		aWriter.writeCompVector(this.values);
+
+		// ExtValues
+		aWriter.writeCompVector(this.extValues);
+
+		aWriter.writeEndElement();
+	}
+
+	// End EPPResult.encode(EPPXMLWriter)
+
 	/**
 	 * implements a deep <code>EPPResult</code> compare.
 	 *
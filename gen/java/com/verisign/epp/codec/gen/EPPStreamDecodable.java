@@ -0,0 +1,59 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.codec.gen;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+
+/**
+ * Streaming counterpart of <code>EPPCodecComponent.decode(Element)</code>
+ * that is implemented by the <code>EPPCodecComponent</code> classes that can
+ * be decoded directly from a StAX <code>XMLStreamReader</code> without
+ * building a DOM element tree.  The streaming decode is used by
+ * <code>EPPCodec.decode(XMLStreamReader)</code>, and any component that does
+ * not implement <code>EPPStreamDecodable</code> is decoded by building a DOM
+ * element tree of only that component with
+ * {@link EPPStreamUtil#toElement(XMLStreamReader)} and calling
+ * <code>decode(Element)</code>.  <br>
+ * <br>
+ * The concrete <code>EPPResponse</code> and extension classes that support
+ * streaming are registered by overriding
+ * {@link EPPMapFactory#createStreamResponse(String)} and
+ * {@link EPPExtFactory#createStreamExtension(String)}.
+ *
+ * @see com.verisign.epp.codec.gen.EPPStreamUtil
+ */
+public interface EPPStreamDecodable {
+	/**
+	 * decode the instance attributes from an <code>XMLStreamReader</code>.
+	 * The reader is positioned on the <code>START_ELEMENT</code> event of the
+	 * root element of the instance and must be left on the matching
+	 * <code>END_ELEMENT</code> event, so that the caller can continue with
+	 * the next sibling element.
+	 *
+	 * @param aReader Reader positioned on the root element of the instance
+	 *
+	 * @exception EPPDecodeException Error decoding the elements
+	 * @exception XMLStreamException Error reading from <code>aReader</code>
+	 */
+	void decode(XMLStreamReader aReader)
+		 throws EPPDecodeException, XMLStreamException;
+}
@@ -0,0 +1,49 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.codec.gen;
+
+
+/**
+ * Streaming counterpart of <code>EPPCodecComponent.encode(Document)</code>
+ * that is implemented by the <code>EPPCodecComponent</code> classes that can
+ * be encoded directly to an {@link EPPXMLWriter} without building a DOM
+ * element tree.  The streaming encode is used by
+ * <code>EPPCodec.encode(EPPMessage, EPPXMLWriter)</code>, and any component
+ * that does not implement <code>EPPStreamEncodable</code> is encoded with
+ * <code>encode(Document)</code> and the resulting DOM element tree is
+ * written with {@link EPPXMLWriter#writeElement(org.w3c.dom.Element)}.  Both
+ * paths produce the same bytes as serializing the DOM Document of
+ * <code>EPPCodec.encode(EPPMessage)</code>, so a component can be ported to
+ * <code>EPPStreamEncodable</code> without any change in the packets.
+ *
+ * @see com.verisign.epp.codec.gen.EPPXMLWriter
+ */
+public interface EPPStreamEncodable {
+	/**
+	 * encode the instance directly to an <code>EPPXMLWriter</code>.  The
+	 * complete root element of the instance must be written, so that the
+	 * writer is at the same element depth on exit as on entry.
+	 *
+	 * @param aWriter Writer to write the root element of the instance to
+	 *
+	 * @exception EPPEncodeException Error encoding the instance
+	 */
+	void encode(EPPXMLWriter aWriter) throws EPPEncodeException;
+}
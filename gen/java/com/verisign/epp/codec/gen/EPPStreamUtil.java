@@ -0,0 +1,519 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.codec.gen;
+
+import java.io.ByteArrayInputStream;
+import java.util.Vector;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.xerces.dom.DocumentImpl;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+
+/**
+ * Provides a set of utility static methods for the streaming decode of EPP
+ * packets with a StAX <code>XMLStreamReader</code>.  The methods follow the
+ * convention of {@link EPPStreamDecodable}, where the reader is positioned on
+ * the <code>START_ELEMENT</code> event of an element on entry and is left on
+ * the matching <code>END_ELEMENT</code> event on exit.  The child elements of
+ * an element are iterated with {@link #nextChild(XMLStreamReader)}:<br>
+ * <br>
+ * <pre>
+ * while (EPPStreamUtil.nextChild(aReader)) {
+ * 	if (aReader.getLocalName().equals("name")) {
+ * 		this.name = EPPStreamUtil.getText(aReader);
+ * 	}
+ * 	else {
+ * 		EPPStreamUtil.skipElement(aReader);
+ * 	}
+ * }
+ * </pre>
+ *
+ * @see com.verisign.epp.codec.gen.EPPStreamDecodable
+ */
+public class EPPStreamUtil {
+	/**
+	 * StAX input factory used to create the readers.  The factory is
+	 * configured once and is thread safe for creating readers.
+	 */
+	private static XMLInputFactory inputFactory;
+
+	static {
+		inputFactory = XMLInputFactory.newInstance();
+		inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+		inputFactory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+		inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+		inputFactory.setProperty(
+								 XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES,
+								 Boolean.FALSE);
+	}
+
+	/**
+	 * Creates an <code>XMLStreamReader</code> for an EPP packet.  The
+	 * character encoding is detected from the XML declaration of the packet.
+	 *
+	 * @param aPacket EPP packet without the network header
+	 *
+	 * @return Reader positioned on the <code>START_DOCUMENT</code> event
+	 *
+	 * @exception EPPDecodeException Error creating the reader
+	 */
+	public static XMLStreamReader createReader(byte[] aPacket)
+										throws EPPDecodeException {
+		return createReader(aPacket, 0, aPacket.length);
+	}
+
+	/**
+	 * Creates an <code>XMLStreamReader</code> for an EPP packet contained in
+	 * a region of a buffer, which is read directly from the buffer.
+	 *
+	 * @param aBuffer Buffer containing the EPP packet
+	 * @param aOffset Offset of the EPP packet in <code>aBuffer</code>
+	 * @param aLength Length of the EPP packet in bytes
+	 *
+	 * @return Reader positioned on the <code>START_DOCUMENT</code> event
+	 *
+	 * @exception EPPDecodeException Error creating the reader
+	 */
+	public static XMLStreamReader createReader(byte[] aBuffer, int aOffset, int aLength)
+										throws EPPDecodeException {
+		try {
+			return inputFactory.createXMLStreamReader(new ByteArrayInputStream(aBuffer, aOffset, aLength));
+		}
+		 catch (XMLStreamException ex) {
+			throw new EPPDecodeException("EPPStreamUtil.createReader(): Error creating reader: "
+										 + ex.getMessage());
+		}
+	}
+
+	/**
+	 * Moves the reader to the next child element of the current element.
+	 * The reader must be positioned on the <code>START_ELEMENT</code> event
+	 * of the parent element or on the <code>END_ELEMENT</code> event of the
+	 * previous child element.  Text, comments, and processing instructions
+	 * between the child elements are skipped.
+	 *
+	 * @param aReader Reader to move
+	 *
+	 * @return <code>true</code> if the reader is positioned on the
+	 * 		   <code>START_ELEMENT</code> event of the next child element;
+	 * 		   <code>false</code> if the reader is positioned on the
+	 * 		   <code>END_ELEMENT</code> event of the parent element.
+	 *
+	 * @exception XMLStreamException Error reading from <code>aReader</code>
+	 */
+	public static boolean nextChild(XMLStreamReader aReader)
+							 throws XMLStreamException {
+		while (aReader.hasNext()) {
+			int theEvent = aReader.next();
+
+			if (theEvent == XMLStreamConstants.START_ELEMENT) {
+				return true;
+			}
+			else if (theEvent == XMLStreamConstants.END_ELEMENT) {
+				return false;
+			}
+		}
+
+		throw new XMLStreamException("EPPStreamUtil.nextChild(): Unexpected end of document");
+	}
+
+	/**
+	 * Is the current element the element with the XML namespace and tag
+	 * name?  The tag name can include a namespace prefix like the
+	 * <code>ELM_</code> constants of the EPP Codec classes (e.g.
+	 * &quot;domain:name&quot;), which is ignored, since only the local name is
+	 * compared.  No objects are created by the comparison.
+	 *
+	 * @param aReader Reader positioned on a <code>START_ELEMENT</code> event
+	 * @param aNS XML namespace URI of the element
+	 * @param aTagName Tag name of the element including an optional
+	 * 		  namespace prefix
+	 *
+	 * @return <code>true</code> if the current element matches;
+	 * 		   <code>false</code> otherwise.
+	 */
+	public static boolean isElement(XMLStreamReader aReader, String aNS,
+									String aTagName) {
+		String theLocalName = aReader.getLocalName();
+		int    theOffset = aTagName.length() - theLocalName.length();
+
+		if (
+			(theOffset < 0)
+				|| ((theOffset > 0) && (aTagName.charAt(theOffset - 1) != ':'))
+				|| !aTagName.endsWith(theLocalName)) {
+			return false;
+		}
+
+		return aNS.equals(aReader.getNamespaceURI());
+	}
+
+	/**
+	 * Moves the reader past the current element and all of its descendants.
+	 *
+	 * @param aReader Reader positioned on the <code>START_ELEMENT</code> event
+	 * 		  of the element to skip and left on the matching
+	 * 		  <code>END_ELEMENT</code> event.
+	 *
+	 * @exception XMLStreamException Error reading from <code>aReader</code>
+	 */
+	public static void skipElement(XMLStreamReader aReader)
+							throws XMLStreamException {
+		int theDepth = 1;
+
+		while (theDepth > 0) {
+			int theEvent = aReader.next();
+
+			if (theEvent == XMLStreamConstants.START_ELEMENT) {
+				theDepth++;
+			}
+			else if (theEvent == XMLStreamConstants.END_ELEMENT) {
+				theDepth--;
+			}
+		}
+	}
+
+	/**
+	 * Gets the text of the current element, which must not contain any child
+	 * elements.  An empty element results in an empty <code>String</code>
+	 * like <code>EPPUtil.decodeString</code>.
+	 *
+	 * @param aReader Reader positioned on the <code>START_ELEMENT</code> event
+	 * 		  of the element and left on the matching <code>END_ELEMENT</code>
+	 * 		  event.
+	 *
+	 * @return Text of the element
+	 *
+	 * @exception XMLStreamException Error reading from <code>aReader</code> or
+	 * 			  the element contains a child element
+	 */
+	public static String getText(XMLStreamReader aReader)
+						  throws XMLStreamException {
+		return aReader.getElementText();
+	}
+
+	/**
+	 * Gets the value of an attribute of the current element by local name.
+	 * An empty <code>String</code> is returned when the attribute is not
+	 * defined like <code>Element.getAttribute(String)</code>.
+	 *
+	 * @param aReader Reader positioned on a <code>START_ELEMENT</code> event
+	 * @param aName Local name of the attribute
+	 *
+	 * @return Attribute value if defined; empty <code>String</code> otherwise
+	 */
+	public static String getAttribute(XMLStreamReader aReader, String aName) {
+		String theValue = aReader.getAttributeValue(null, aName);
+
+		if (theValue == null) {
+			return "";
+		}
+
+		return theValue;
+	}
+
+	/**
+	 * Gets the qualified name of the current element, which is the tag name
+	 * including the prefix like <code>Element.getTagName()</code>.
+	 *
+	 * @param aReader Reader positioned on a <code>START_ELEMENT</code> event
+	 *
+	 * @return Qualified name of the current element
+	 */
+	public static String getTagName(XMLStreamReader aReader) {
+		String thePrefix = aReader.getPrefix();
+
+		if ((thePrefix == null) || (thePrefix.length() == 0)) {
+			return aReader.getLocalName();
+		}
+
+		return thePrefix + ":" + aReader.getLocalName();
+	}
+
+	/**
+	 * Decode a <code>EPPCodecComponent</code> from the current element.  If
+	 * <code>aClass</code> implements <code>EPPStreamDecodable</code> the
+	 * component is decoded directly from the reader; otherwise a DOM element
+	 * tree of the current element is built and passed to
+	 * <code>decode(Element)</code>.
+	 *
+	 * @param aReader Reader positioned on the <code>START_ELEMENT</code> event
+	 * 		  of the component and left on the matching
+	 * 		  <code>END_ELEMENT</code> event.
+	 * @param aClass Class to instantiate.  This must be a class that
+	 * 		  implements <code>EPPCodecComponent</code>.
+	 *
+	 * @return Decoded instance of <code>aClass</code>
+	 *
+	 * @exception EPPDecodeException Error decoding the component
+	 * @exception XMLStreamException Error reading from <code>aReader</code>
+	 */
+	public static EPPCodecComponent decodeComp(XMLStreamReader aReader,
+											   Class aClass)
+										throws EPPDecodeException, 
+											   XMLStreamException {
+		EPPCodecComponent retVal = null;
+
+		try {
+			retVal = (EPPCodecComponent) aClass.newInstance();
+		}
+		 catch (IllegalAccessException e) {
+			throw new EPPDecodeException("EPPStreamUtil.decodeComp(), IllegalAccessException: "
+										 + e);
+		}
+		 catch (InstantiationException e) {
+			throw new EPPDecodeException("EPPStreamUtil.decodeComp(), InstantiationException: "
+										 + e);
+		}
+
+		decodeComp(aReader, retVal);
+
+		return retVal;
+	}
+
+	/**
+	 * Decode an already created <code>EPPCodecComponent</code> from the
+	 * current element, using <code>EPPStreamDecodable</code> if supported
+	 * and a DOM element tree of the current element otherwise.
+	 *
+	 * @param aReader Reader positioned on the <code>START_ELEMENT</code> event
+	 * 		  of the component and left on the matching
+	 * 		  <code>END_ELEMENT</code> event.
+	 * @param aComp Component to decode
+	 *
+	 * @exception EPPDecodeException Error decoding the component
+	 * @exception XMLStreamException Error reading from <code>aReader</code>
+	 */
+	public static void decodeComp(XMLStreamReader aReader,
+								  EPPCodecComponent aComp)
+						   throws EPPDecodeException, XMLStreamException {
+		if (aComp instanceof EPPStreamDecodable) {
+			((EPPStreamDecodable) aComp).decode(aReader);
+		}
+		else {
+			aComp.decode(toElement(aReader));
+		}
+	}
+
+	/**
+	 * Decode the current element as a <code>EPPCodecComponent</code> and add
+	 * it to a <code>Vector</code>, which is created if <code>null</code>.
+	 *
+	 * @param aReader Reader positioned on the <code>START_ELEMENT</code> event
+	 * 		  of the component and left on the matching
+	 * 		  <code>END_ELEMENT</code> event.
+	 * @param aVector <code>Vector</code> to add to or <code>null</code>
+	 * @param aClass Class to instantiate.  This must be a class that
+	 * 		  implements <code>EPPCodecComponent</code>.
+	 *
+	 * @return <code>aVector</code> or the created <code>Vector</code>
+	 *
+	 * @exception EPPDecodeException Error decoding the component
+	 * @exception XMLStreamException Error reading from <code>aReader</code>
+	 */
+	public static Vector addComp(XMLStreamReader aReader, Vector aVector,
+								 Class aClass)
+						  throws EPPDecodeException, XMLStreamException {
+		if (aVector == null) {
+			aVector = new Vector();
+		}
+
+		aVector.addElement(decodeComp(aReader, aClass));
+
+		return aVector;
+	}
+
+	/**
+	 * Builds a DOM element tree of the current element, which is used to
+	 * fall back to <code>decode(Element)</code> for the components that do
+	 * not support streaming.  The element is the document element of a new
+	 * DOM <code>Document</code>.
+	 *
+	 * @param aReader Reader positioned on the <code>START_ELEMENT</code> event
+	 * 		  of the element and left on the matching <code>END_ELEMENT</code>
+	 * 		  event.
+	 *
+	 * @return DOM element tree of the current element
+	 *
+	 * @exception XMLStreamException Error reading from <code>aReader</code>
+	 */
+	public static Element toElement(XMLStreamReader aReader)
+							 throws XMLStreamException {
+		return toElement(aReader, new DocumentImpl());
+	}
+
+	/**
+	 * Builds a DOM element tree of the current element and appends it to a
+	 * parent DOM node.
+	 *
+	 * @param aReader Reader positioned on the <code>START_ELEMENT</code> event
+	 * 		  of the element and left on the matching <code>END_ELEMENT</code>
+	 * 		  event.
+	 * @param aParent Parent DOM <code>Document</code> or <code>Element</code>
+	 *
+	 * @return DOM element tree of the current element
+	 *
+	 * @exception XMLStreamException Error reading from <code>aReader</code>
+	 */
+	public static Element toElement(XMLStreamReader aReader, Node aParent)
+							 throws XMLStreamException {
+		Document theDoc;
+
+		if (aParent instanceof Document) {
+			theDoc = (Document) aParent;
+		}
+		else {
+			theDoc = aParent.getOwnerDocument();
+		}
+
+		Element theRoot = createElement(aReader, theDoc);
+
+		// Declare the namespace of the root element, which could be declared
+		// on an ancestor element that is not part of the tree.
+		String thePrefix = aReader.getPrefix();
+		String theAttr =
+			((thePrefix == null) || (thePrefix.length() == 0))
+			? XMLConstants.XMLNS_ATTRIBUTE
+			: (XMLConstants.XMLNS_ATTRIBUTE + ":" + thePrefix);
+
+		if (
+			(emptyToNull(aReader.getNamespaceURI()) != null)
+				&& !theRoot.hasAttribute(theAttr)) {
+			theRoot.setAttributeNS(
+								   XMLConstants.XMLNS_ATTRIBUTE_NS_URI, theAttr,
+								   aReader.getNamespaceURI());
+		}
+
+		aParent.appendChild(theRoot);
+
+		Node theCurr = theRoot;
+
+		while (theCurr != aParent) {
+			switch (aReader.next()) {
+				case XMLStreamConstants.START_ELEMENT:
+
+					Element theElm = createElement(aReader, theDoc);
+					theCurr.appendChild(theElm);
+					theCurr = theElm;
+
+					break;
+
+				case XMLStreamConstants.END_ELEMENT:
+					theCurr = theCurr.getParentNode();
+
+					break;
+
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.SPACE:
+					theCurr.appendChild(theDoc.createTextNode(aReader.getText()));
+
+					break;
+
+				case XMLStreamConstants.CDATA:
+					theCurr.appendChild(theDoc.createCDATASection(aReader.getText()));
+
+					break;
+
+				default:
+
+					// Comments and processing instructions are not needed
+					// by the decode methods.
+					break;
+			}
+		}
+
+		return theRoot;
+	}
+
+	/**
+	 * Creates a DOM element, without children, for the current element
+	 * including its attributes and namespace declarations.
+	 *
+	 * @param aReader Reader positioned on a <code>START_ELEMENT</code> event
+	 * @param aDocument DOM document used as a factory of DOM objects
+	 *
+	 * @return Created DOM element
+	 */
+	public static Element createElement(XMLStreamReader aReader,
+										Document aDocument) {
+		Element theElm =
+			aDocument.createElementNS(
+									  emptyToNull(aReader.getNamespaceURI()),
+									  getTagName(aReader));
+
+		// Namespace declarations
+		for (int i = 0; i < aReader.getNamespaceCount(); i++) {
+			String thePrefix = aReader.getNamespacePrefix(i);
+
+			if ((thePrefix == null) || (thePrefix.length() == 0)) {
+				theElm.setAttributeNS(
+									  XMLConstants.XMLNS_ATTRIBUTE_NS_URI,
+									  XMLConstants.XMLNS_ATTRIBUTE,
+									  aReader.getNamespaceURI(i));
+			}
+			else {
+				theElm.setAttributeNS(
+									  XMLConstants.XMLNS_ATTRIBUTE_NS_URI,
+									  XMLConstants.XMLNS_ATTRIBUTE + ":"
+									  + thePrefix, aReader.getNamespaceURI(i));
+			}
+		}
+
+		// Attributes
+		for (int i = 0; i < aReader.getAttributeCount(); i++) {
+			String thePrefix = aReader.getAttributePrefix(i);
+			String theName = aReader.getAttributeLocalName(i);
+
+			if ((thePrefix != null) && (thePrefix.length() > 0)) {
+				theName = thePrefix + ":" + theName;
+			}
+
+			theElm.setAttributeNS(
+								  emptyToNull(aReader.getAttributeNamespace(i)),
+								  theName, aReader.getAttributeValue(i));
+		}
+
+		return theElm;
+	}
+
+	/**
+	 * Converts an empty namespace URI, which is returned by some StAX
+	 * implementations for no namespace, to <code>null</code> as expected by
+	 * DOM.
+	 *
+	 * @param aNS Namespace URI
+	 *
+	 * @return <code>aNS</code> or <code>null</code> if empty
+	 */
+	private static String emptyToNull(String aNS) {
+		if ((aNS == null) || (aNS.length() == 0)) {
+			return null;
+		}
+
+		return aNS;
+	}
+}
@@ -29,6 +29,9 @@ import org.apache.log4j.Logger;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 import com.verisign.epp.util.EPPCatFactory;
 
 /**
@@ -54,7 +57,8 @@ import com.verisign.epp.util.EPPCatFactory;
  * @author $Author: jim $
  * @version $Revision: 1.4 $
  */
-public class EPPTransId implements EPPCodecComponent {
+public class EPPTransId implements EPPCodecComponent, EPPStreamDecodable,
+		EPPStreamEncodable {
 	/** Minimum transaction id length. */
 	public final static int MIN_TRANSID_LEN = 3;
 
@@ -248,6 +252,55 @@ public class EPPTransId implements EPPCodecComponent {
 	 */
 	public Element encode(Document aDocument) throws EPPEncodeException {
 		// Check pre-conditions
+		this.validate();
+
+		Element root = aDocument.createElementNS(this.rootNS, this.rootName);
+
+		// Client Transaction Id
+		EPPUtil.encodeString(aDocument, root, clientTransId, EPPCodec.NS,
+				ELM_CLIENT_TRANSID);
+
+		// Server Transaction Id
+		EPPUtil.encodeString(aDocument, root, serverTransId, EPPCodec.NS,
+				ELM_SERVER_TRANSID);
+
+		return root;
+	}
+
+	/**
+	 * encode <code>EPPTransId</code> directly to an <code>EPPXMLWriter</code>
+	 * with the same elements as <code>encode(Document)</code>.
+	 * 
+	 * @param aWriter
+	 *            Writer to write the root element to
+	 * 
+	 * @exception EPPEncodeException
+	 *                Error encoding the transaction identifier.
+	 */
+	public void encode(EPPXMLWriter aWriter) throws EPPEncodeException {
+		// Check pre-conditions
+		this.validate();
+
+		aWriter.writeStartElement(this.rootNS, this.rootName);
+
+		// Client Transaction Id
+		aWriter.writeString(EPPCodec.NS, ELM_CLIENT_TRANSID, clientTransId);
+
+		// Server Transaction Id
+		aWriter.writeString(EPPCodec.NS, ELM_SERVER_TRANSID, serverTransId);
+
+		aWriter.writeEndElement();
+	}
+
+	/**
+	 * Validates the required attributes and the lengths of the transaction
+	 * identifiers prior to encoding.
+	 * 
+	 * @exception EPPEncodeException
+	 *                A required attribute is missing or a transaction
+	 *                identifier length is out of range.
+	 */
+	private void validate() throws EPPEncodeException {
 		if (serverTransId == null) {
 			throw new EPPEncodeException(
 					"EPPTransId required attribute \"server tranaction id\" is null.");
@@ -271,18 +324,6 @@ public class EPPTransId implements EPPCodecComponent {
 							+ "is out of range, must be between "
 							+ MIN_TRANSID_LEN + " and " + MAX_TRANSID_LEN);
 		}
-
-		Element root = aDocument.createElementNS(this.rootNS, this.rootName);
-
-		// Client Transaction Id
-		EPPUtil.encodeString(aDocument, root, clientTransId, EPPCodec.NS,
-				ELM_CLIENT_TRANSID);
-
-		// Server Transaction Id
-		EPPUtil.encodeString(aDocument, root, serverTransId, EPPCodec.NS,
-				ELM_SERVER_TRANSID);
-
-		return root;
 	}
 
 	/**
@@ -308,6 +349,41 @@ public class EPPTransId implements EPPCodecComponent {
 				ELM_SERVER_TRANSID);
 	}
 
+	/**
+	 * decode <code>EPPTransId</code> with an <code>XMLStreamReader</code>.
+	 * 
+	 * @param aReader
+	 *            Reader positioned on the root element of the transaction id
+	 * 
+	 * @exception EPPDecodeException
+	 *                Error decoding the element
+	 * @exception XMLStreamException
+	 *                Error reading from <code>aReader</code>
+	 */
+	public void decode(XMLStreamReader aReader) throws EPPDecodeException,
+			XMLStreamException {
+		this.setRootName(aReader.getNamespaceURI(), EPPStreamUtil
+				.getTagName(aReader));
+
+		clientTransId = null;
+		serverTransId = null;
+
+		while (EPPStreamUtil.nextChild(aReader)) {
+			// Client Transaction Id
+			if (EPPStreamUtil.isElement(aReader, EPPCodec.NS, ELM_CLIENT_TRANSID)) {
+				clientTransId = EPPStreamUtil.getText(aReader);
+			}
+
+			// Server Transaction Id
+			else if (EPPStreamUtil.isElement(aReader, EPPCodec.NS, ELM_SERVER_TRANSID)) {
+				serverTransId = EPPStreamUtil.getText(aReader);
+			}
+			else {
+				EPPStreamUtil.skipElement(aReader);
+			}
+		}
+	}
+
 	/**
 	 * implements a deep <code>EPPTransId</code> compare.
 	 * 
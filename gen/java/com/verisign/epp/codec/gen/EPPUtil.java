@@ -25,7 +25,6 @@ import org.apache.log4j.Logger;
 import org.apache.xerces.dom.DocumentImpl;
 import org.w3c.dom.*;
 
-import javax.xml.bind.DatatypeConverter;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerFactory;
@@ -35,9 +34,9 @@ import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
-import java.text.ParsePosition;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Provides a set of utility static methods for use by the EPP Codec classes.
@@ -67,6 +66,16 @@ public class EPPUtil {
 	private static DecimalFormatSymbols decimalFormatSymbols = new DecimalFormatSymbols(
 			Locale.US);
 
+	/** Maximum number of local names cached in {@link #localNames} */
+	private static final int MAX_LOCAL_NAMES = 4096;
+
+	/**
+	 * Local names by qualified name, used by
+	 * {@link #getElementByTagNameNS(Element, String, String)} and
+	 * {@link #getElementsByTagNameNS(Element, String, String)}.
+	 */
+	private static Map<String, String> localNames = new ConcurrentHashMap<String, String>();
+
     /**
      * Gets the XML Schema <code>timeDate</code> format used 
      * in {@link #encodeTimeInstant(Date) and #encodeTimeInstant(Document, Element,
@@ -93,6 +102,7 @@ public class EPPUtil {
 	 */
 	public static void setTimeInstantFormat(String aTimeInstantFormat) {
 		timeInstantFormat = aTimeInstantFormat;
+		EPPDateTimeCodec.setTimeInstantFormat(aTimeInstantFormat);
 	}
 	
 	
@@ -480,20 +490,7 @@ public class EPPUtil {
 	 * @return Java Date object.
 	 */
 	public static Date decodeDate(String aDateValue) {
-		
-		SimpleDateFormat formatter = new SimpleDateFormat(DATE_FORMAT);
-
-		// Set to UTC with no time element
-		Calendar theCal = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
-		theCal.set(Calendar.HOUR_OF_DAY, 0);
-		theCal.set(Calendar.MINUTE, 0);
-		theCal.set(Calendar.SECOND, 0);
-		theCal.set(Calendar.MILLISECOND, 0);
-		formatter.setCalendar(theCal);
-
-		Date theDate = formatter.parse(aDateValue, new ParsePosition(0));
-		
-		return theDate;
+		return EPPDateTimeCodec.decodeDate(aDateValue);
 	}
 
 	/**
@@ -688,7 +685,7 @@ public class EPPUtil {
 		Date theDate = null;
 		
 		try {
-			theDate = DatatypeConverter.parseDateTime(aTimeInstant).getTime();
+			theDate = EPPDateTimeCodec.decodeTimeInstant(aTimeInstant);
 		}
 		catch (IllegalArgumentException ex) {
 			cat.error("Exception decoding dataTime: " + ex);
@@ -954,11 +951,7 @@ public class EPPUtil {
 	 * @return Encoded XML Schema date data type string.
 	 */
 	public static String encodeDate(Date aDate) {
-		TimeZone utcTimeZone = TimeZone.getTimeZone("UTC");
-		SimpleDateFormat formatter = new SimpleDateFormat(DATE_FORMAT);
-		formatter.setTimeZone(utcTimeZone);
-
-		return formatter.format(aDate);
+		return EPPDateTimeCodec.encodeDate(aDate);
 	}
 
 	// End EPPUtil.encodeBoolean(Document, Element, Boolean, String, String)
@@ -1132,11 +1125,7 @@ public class EPPUtil {
 	 * @return Encoded XML Schema timeInstant data type string.
 	 */
 	public static String encodeTimeInstant(Date aDate) {
-		TimeZone utcTimeZone = TimeZone.getTimeZone("UTC");
-		SimpleDateFormat formatter = new SimpleDateFormat(timeInstantFormat);
-		formatter.setTimeZone(utcTimeZone);
-
-		return formatter.format(aDate);
+		return EPPDateTimeCodec.encodeTimeInstant(aDate);
 	}
 
 	// End EPPUtil.encodeTimeInstance(Document, Element, Date, String, String)
@@ -1309,7 +1298,9 @@ public class EPPUtil {
 
 	/**
 	 * Gets the first direct child element with a given tag name and XML
-	 * namespace.
+	 * namespace.  While decoding a message with <code>EPPCodec</code>, the
+	 * children of <code>aElement</code> are indexed on the first lookup and
+	 * the following lookups use the index.
 	 * 
 	 * @param aNS
 	 *            XML namespace of the elements. For example, for domain element
@@ -1324,7 +1315,12 @@ public class EPPUtil {
 
 		Element retElm = null;
 
-		aTagName = EPPUtil.getLocalName(aTagName);
+		aTagName = EPPUtil.getCachedLocalName(aTagName);
+
+		EPPDecodeContext theContext = EPPDecodeContext.getCurrent();
+		if (theContext != null) {
+			return theContext.getElement(aElement, aNS, aTagName);
+		}
 
 		NodeList theNodes = aElement.getChildNodes();
 
@@ -1362,7 +1358,13 @@ public class EPPUtil {
 			String aTagName) {
 		Vector retVal = new Vector();
 
-		aTagName = EPPUtil.getLocalName(aTagName);
+		aTagName = EPPUtil.getCachedLocalName(aTagName);
+
+		EPPDecodeContext theContext = EPPDecodeContext.getCurrent();
+		if (theContext != null) {
+			theContext.getElements(aElement, aNS, aTagName, retVal);
+			return retVal;
+		}
 
 		NodeList theNodes = aElement.getChildNodes();
 
@@ -1400,6 +1402,33 @@ public class EPPUtil {
 		return aQualifiedName;
 	}
 
+	/**
+	 * Gets the local name given the qualified element name, where the local
+	 * names of the qualified names are cached, since the element lookups
+	 * are done with a small set of constant qualified names.
+	 * 
+	 * @param aQualifiedName
+	 *            Qualified name of the element like <code>domain:name</code>.
+	 * @return Localname of the qualified name
+	 */
+	private static String getCachedLocalName(String aQualifiedName) {
+		if (aQualifiedName.indexOf(':') == -1) {
+			return aQualifiedName;
+		}
+
+		String theLocalName = localNames.get(aQualifiedName);
+
+		if (theLocalName == null) {
+			theLocalName = getLocalName(aQualifiedName);
+
+			if (localNames.size() < MAX_LOCAL_NAMES) {
+				localNames.put(aQualifiedName, theLocalName);
+			}
+		}
+
+		return theLocalName;
+	}
+
 	/**
 	 * Gets the namespace prefix given a qualified name. If no prefix is found,
 	 * empty string is returned.
@@ -0,0 +1,867 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.codec.gen;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.Vector;
+
+import org.apache.xerces.dom.DocumentImpl;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+
+/**
+ * Writes an EPP packet as UTF-8 bytes directly to a growable byte buffer,
+ * without building a DOM Document and serializing it with a
+ * <code>Transformer</code>.  The bytes written are identical to the
+ * serialization of the equivalent DOM Document by
+ * <code>EPPXMLByteArray.encode(Document)</code>, which includes:<br>
+ * <br>
+ * <ul>
+ * <li>The XML declaration <code>&lt;?xml version="1.0"
+ * encoding="UTF-8"?&gt;</code> without a trailing line separator.
+ * <li>The attributes of an element are written ordered by name, like in a
+ * DOM <code>NamedNodeMap</code>, with the namespace declarations first,
+ * followed by the other attributes, and by the declaration of the element
+ * namespace when it is not already in scope.
+ * <li>Namespace declarations that are already in scope are not repeated.
+ * <li>Elements without content are written as empty-element tags.
+ * <li>Character data and attribute values are escaped with the same
+ * entity and character references.
+ * </ul>
+ * <br>
+ * An element is started with <code>writeStartElement</code>, which is the
+ * equivalent of <code>Document.createElementNS</code>, followed by the calls
+ * to <code>writeAttribute</code>, which are the equivalent of
+ * <code>Element.setAttribute</code> and <code>Element.setAttributeNS</code>,
+ * the content of the element, and <code>writeEndElement</code>.  Components
+ * that do not implement {@link EPPStreamEncodable} are written with
+ * {@link #writeComp(EPPCodecComponent)} by encoding them to a DOM element
+ * tree of the scratch Document returned by {@link #getDocument()}.<br>
+ * <br>
+ * An <code>EPPXMLWriter</code> is not thread safe, but it can be reused for
+ * multiple packets with {@link #reset()}.
+ *
+ * @see com.verisign.epp.codec.gen.EPPStreamEncodable
+ */
+public class EPPXMLWriter {
+	/** XML declaration written by {@link #writeStartDocument()}. */
+	private static final byte[] XML_DECLARATION =
+		toAscii("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+
+	/** Default initial size of the buffer in bytes. */
+	private static final int DEFAULT_SIZE = 4096;
+
+	/** Line separator written for a line feed in character data. */
+	private static final byte[] LINE_SEPARATOR =
+		toAscii(System.getProperty("line.separator", "\n"));
+
+	/** Prefix of the namespace declaration attributes. */
+	private static final String XMLNS = "xmlns";
+
+	/** Buffer of the bytes written. */
+	private byte[] buffer;
+
+	/** Number of bytes written to <code>buffer</code>. */
+	private int count = 0;
+
+	/** Names of the open elements, indexed by element depth. */
+	private String[] elements = new String[16];
+
+	/** Number of open elements. */
+	private int depth = 0;
+
+	/** Is the start tag of the current element still open for attributes? */
+	private boolean startTagOpen = false;
+
+	/** Namespace URI of the element of the open start tag. */
+	private String startTagNS;
+
+	/**
+	 * Is the open start tag of an element with a namespace URI or local
+	 * name, like an element created with <code>createElementNS</code>?
+	 */
+	private boolean startTagNSAware;
+
+	/**
+	 * Attributes of the open start tag as triplets of name, namespace URI,
+	 * and value.
+	 */
+	private ArrayList<String> attributes = new ArrayList<String>();
+
+	/**
+	 * Attributes written with the open start tag as pairs of name and value,
+	 * in the order written.
+	 */
+	private ArrayList<String> outAttributes = new ArrayList<String>();
+
+	/**
+	 * Namespace mappings in scope as triplets of prefix, namespace URI, and
+	 * element depth of the declaration.
+	 */
+	private ArrayList<Object> namespaces = new ArrayList<Object>();
+
+	/** Scratch Document used to encode the components with DOM. */
+	private Document document = null;
+
+	/**
+	 * Creates an <code>EPPXMLWriter</code> with the default initial buffer
+	 * size.
+	 */
+	public EPPXMLWriter() {
+		this(DEFAULT_SIZE);
+	}
+
+	/**
+	 * Creates an <code>EPPXMLWriter</code> with an initial buffer size.
+	 *
+	 * @param aSize Initial size of the buffer in bytes
+	 */
+	public EPPXMLWriter(int aSize) {
+		this.buffer = new byte[aSize > 0 ? aSize : DEFAULT_SIZE];
+	}
+
+	/**
+	 * Resets the writer, so that it can be used to write another packet.
+	 * The buffer is kept.
+	 */
+	public void reset() {
+		this.count = 0;
+		this.depth = 0;
+		this.startTagOpen = false;
+		this.attributes.clear();
+		this.outAttributes.clear();
+		this.namespaces.clear();
+		this.document = null;
+	}
+
+	/**
+	 * Gets the scratch Document used to encode the components that do not
+	 * implement <code>EPPStreamEncodable</code>.  The elements created from
+	 * the Document can be written with {@link #writeElement(Element)}.
+	 *
+	 * @return Scratch DOM Document
+	 */
+	public Document getDocument() {
+		if (this.document == null) {
+			this.document = new DocumentImpl();
+		}
+
+		return this.document;
+	}
+
+	/**
+	 * Writes the XML declaration.
+	 */
+	public void writeStartDocument() {
+		this.write(XML_DECLARATION, 0, XML_DECLARATION.length);
+	}
+
+	/**
+	 * Starts an element, which is the equivalent of
+	 * <code>Document.createElementNS(aNS, aName)</code>.  The attributes of
+	 * the element can be written until content is written for the element.
+	 *
+	 * @param aNS Namespace URI of the element or <code>null</code>
+	 * @param aName Qualified name of the element
+	 *
+	 * @exception EPPEncodeException Error closing the start tag of the parent
+	 * 			  element
+	 */
+	public void writeStartElement(String aNS, String aName)
+		throws EPPEncodeException {
+		this.closeStartTag();
+
+		if (this.depth == this.elements.length) {
+			String[] theElements = new String[this.depth * 2];
+			System.arraycopy(this.elements, 0, theElements, 0, this.depth);
+			this.elements = theElements;
+		}
+
+		this.elements[this.depth++] = aName;
+		this.startTagOpen = true;
+		this.startTagNS = aNS;
+		this.startTagNSAware = true;
+
+		this.write('<');
+		this.writeAscii(aName);
+	}
+
+	/**
+	 * Writes an attribute of the current element, which is the equivalent of
+	 * <code>Element.setAttribute(aName, aValue)</code>.  Namespace
+	 * declarations are written with a name of <code>xmlns:</code> followed
+	 * by the prefix.
+	 *
+	 * @param aName Name of the attribute
+	 * @param aValue Value of the attribute
+	 *
+	 * @exception EPPEncodeException There is no start tag open
+	 */
+	public void writeAttribute(String aName, String aValue)
+		throws EPPEncodeException {
+		this.writeAttribute(null, aName, aValue);
+	}
+
+	/**
+	 * Writes a namespace qualified attribute of the current element, which
+	 * is the equivalent of
+	 * <code>Element.setAttributeNS(aNS, aName, aValue)</code>.
+	 *
+	 * @param aNS Namespace URI of the attribute or <code>null</code>
+	 * @param aName Qualified name of the attribute
+	 * @param aValue Value of the attribute
+	 *
+	 * @exception EPPEncodeException There is no start tag open
+	 */
+	public void writeAttribute(String aNS, String aName, String aValue)
+		throws EPPEncodeException {
+		if (!this.startTagOpen) {
+			throw new EPPEncodeException("EPPXMLWriter.writeAttribute(): No start tag open for attribute "
+										 + aName);
+		}
+
+		// Insert ordered by name, replacing the value of an existing attribute
+		int i = 0;
+		for (; i < this.attributes.size(); i += 3) {
+			int theCompare = aName.compareTo(this.attributes.get(i));
+			if (theCompare == 0) {
+				this.attributes.set(i + 1, aNS);
+				this.attributes.set(i + 2, aValue);
+				return;
+			}
+			else if (theCompare < 0) {
+				break;
+			}
+		}
+
+		this.attributes.add(i, aValue);
+		this.attributes.add(i, aNS);
+		this.attributes.add(i, aName);
+	}
+
+	/**
+	 * Writes character data, which is the equivalent of appending a
+	 * <code>Text</code> node to the current element.
+	 *
+	 * @param aText Character data to write.  Nothing is written for
+	 * 		  <code>null</code> or an empty <code>String</code>.
+	 *
+	 * @exception EPPEncodeException Error closing the start tag
+	 */
+	public void writeCharacters(String aText) throws EPPEncodeException {
+		if ((aText == null) || (aText.length() == 0)) {
+			return;
+		}
+
+		this.closeStartTag();
+		this.writeEscaped(aText, false);
+	}
+
+	/**
+	 * Ends the current element.
+	 *
+	 * @exception EPPEncodeException There is no open element
+	 */
+	public void writeEndElement() throws EPPEncodeException {
+		if (this.depth == 0) {
+			throw new EPPEncodeException("EPPXMLWriter.writeEndElement(): No open element");
+		}
+
+		if (this.startTagOpen) {
+			this.closeStartTag();
+
+			// Replace the '>' with the empty-element tag
+			this.count--;
+			this.write('/');
+			this.write('>');
+		}
+		else {
+			this.write('<');
+			this.write('/');
+			this.writeAscii(this.elements[this.depth - 1]);
+			this.write('>');
+		}
+
+		this.depth--;
+		this.popNamespaces();
+	}
+
+	/**
+	 * Writes an element with character data, which is the equivalent of
+	 * <code>EPPUtil.encodeString</code>.  Nothing is written if
+	 * <code>aText</code> is <code>null</code>.
+	 *
+	 * @param aNS Namespace URI of the element
+	 * @param aName Qualified name of the element
+	 * @param aText Character data of the element
+	 *
+	 * @exception EPPEncodeException Error writing the element
+	 */
+	public void writeString(String aNS, String aName, String aText)
+		throws EPPEncodeException {
+		if (aText != null) {
+			this.writeStartElement(aNS, aName);
+			this.writeCharacters(aText);
+			this.writeEndElement();
+		}
+	}
+
+	/**
+	 * Writes an <code>EPPCodecComponent</code>, which is the equivalent of
+	 * <code>EPPUtil.encodeComp</code>.  Components that implement
+	 * <code>EPPStreamEncodable</code> are written directly, and the other
+	 * components are encoded with <code>encode(Document)</code> using the
+	 * scratch Document and written with {@link #writeElement(Element)}.
+	 *
+	 * @param aComp Component to write.  Nothing is written for
+	 * 		  <code>null</code>.
+	 *
+	 * @exception EPPEncodeException Error encoding the component
+	 */
+	public void writeComp(EPPCodecComponent aComp) throws EPPEncodeException {
+		if (aComp == null) {
+			return;
+		}
+
+		if (aComp instanceof EPPStreamEncodable) {
+			((EPPStreamEncodable) aComp).encode(this);
+		}
+		else {
+			this.writeElement(aComp.encode(this.getDocument()));
+		}
+	}
+
+	/**
+	 * Writes a <code>Vector</code> of <code>EPPCodecComponent</code>
+	 * instances, which is the equivalent of
+	 * <code>EPPUtil.encodeCompVector</code>.
+	 *
+	 * @param aVector <code>Vector</code> of <code>EPPCodecComponent</code>
+	 * 		  instances.  Nothing is written for <code>null</code>.
+	 *
+	 * @exception EPPEncodeException Error encoding a component
+	 */
+	public void writeCompVector(Vector aVector) throws EPPEncodeException {
+		if (aVector != null) {
+			Enumeration theElms = aVector.elements();
+
+			while (theElms.hasMoreElements()) {
+				this.writeComp((EPPCodecComponent) theElms.nextElement());
+			}
+		}
+	}
+
+	/**
+	 * Writes a DOM element tree, which is used for the components that do
+	 * not implement <code>EPPStreamEncodable</code>.  Elements, attributes,
+	 * text, CDATA sections, and comments are written.
+	 *
+	 * @param aElement Root element of the tree to write
+	 *
+	 * @exception EPPEncodeException Error writing the element tree
+	 */
+	public void writeElement(Element aElement) throws EPPEncodeException {
+		this.writeStartElement(aElement.getNamespaceURI(), aElement.getNodeName());
+		this.startTagNSAware = (aElement.getLocalName() != null);
+
+		NamedNodeMap theAttrs = aElement.getAttributes();
+		for (int i = 0; i < theAttrs.getLength(); i++) {
+			Attr theAttr = (Attr) theAttrs.item(i);
+			this.writeAttribute(theAttr.getNamespaceURI(), theAttr.getNodeName(),
+								theAttr.getNodeValue());
+		}
+
+		for (Node theChild = aElement.getFirstChild(); theChild != null;
+			 theChild = theChild.getNextSibling()) {
+			switch (theChild.getNodeType()) {
+				case Node.ELEMENT_NODE:
+					this.writeElement((Element) theChild);
+					break;
+				case Node.TEXT_NODE:
+					this.writeCharacters(theChild.getNodeValue());
+					break;
+				case Node.CDATA_SECTION_NODE:
+					this.writeCData(theChild.getNodeValue());
+					break;
+				case Node.COMMENT_NODE:
+					this.closeStartTag();
+					this.writeAscii("<!--");
+					this.writeUTF8(theChild.getNodeValue());
+					this.writeAscii("-->");
+					break;
+				default:
+					throw new EPPEncodeException("EPPXMLWriter.writeElement(): Unsupported node type "
+												 + theChild.getNodeType() + " in element "
+												 + aElement.getNodeName());
+			}
+		}
+
+		this.writeEndElement();
+	}
+
+	/**
+	 * Gets the number of bytes written.
+	 *
+	 * @return Number of bytes written to the buffer
+	 */
+	public int size() {
+		return this.count;
+	}
+
+	/**
+	 * Gets the internal buffer of the writer, which contains the packet in
+	 * the first {@link #size()} bytes.  The buffer is only valid until the
+	 * next write.
+	 *
+	 * @return Internal buffer
+	 */
+	public byte[] getBuffer() {
+		return this.buffer;
+	}
+
+	/**
+	 * Gets a copy of the bytes written.
+	 *
+	 * @return Bytes written
+	 */
+	public byte[] toByteArray() {
+		byte[] theBytes = new byte[this.count];
+		System.arraycopy(this.buffer, 0, theBytes, 0, this.count);
+		return theBytes;
+	}
+
+	/**
+	 * Writes the bytes written to an <code>OutputStream</code>.
+	 *
+	 * @param aOutput Stream to write to
+	 *
+	 * @exception IOException Error writing to <code>aOutput</code>
+	 */
+	public void writeTo(OutputStream aOutput) throws IOException {
+		aOutput.write(this.buffer, 0, this.count);
+	}
+
+	/**
+	 * Gets the bytes written as a <code>String</code>.
+	 *
+	 * @return Bytes written decoded as UTF-8
+	 */
+	public String toString() {
+		try {
+			return new String(this.buffer, 0, this.count, "UTF-8");
+		}
+		catch (UnsupportedEncodingException ex) {
+			return new String(this.buffer, 0, this.count);
+		}
+	}
+
+	/**
+	 * Closes the open start tag by writing the namespace declarations and
+	 * the attributes of the element.  The namespace declarations in the
+	 * attributes are written first, then the other attributes with any
+	 * namespace declaration required for their prefix, and finally the
+	 * declaration of the element namespace, where declarations already in
+	 * scope are skipped.
+	 *
+	 * @exception EPPEncodeException Error writing the start tag
+	 */
+	private void closeStartTag() throws EPPEncodeException {
+		if (!this.startTagOpen) {
+			return;
+		}
+
+		this.startTagOpen = false;
+
+		ArrayList<String> theAttrs = this.attributes;
+
+		// Namespace declarations
+		for (int i = 0; i < theAttrs.size(); i += 3) {
+			String theName = theAttrs.get(i);
+			if (theName.startsWith(XMLNS)) {
+				int theColon = theName.lastIndexOf(':');
+				this.declareNamespace(theColon > 0 ? theName.substring(theColon + 1) : "",
+									  theAttrs.get(i + 2));
+			}
+		}
+
+		// Other attributes
+		int theGenPrefix = 0;
+		for (int i = 0; i < theAttrs.size(); i += 3) {
+			String theName = theAttrs.get(i);
+			if (!theName.startsWith(XMLNS)) {
+				String theNS = theAttrs.get(i + 1);
+				if ((theNS != null) && (theNS.length() != 0)) {
+					int theColon = theName.lastIndexOf(':');
+					String thePrefix = theColon > 0 ? theName.substring(0, theColon)
+						: "ns" + (theGenPrefix++);
+					this.declareNamespace(thePrefix, theNS);
+					theName = thePrefix + ":" + theName.substring(theColon + 1);
+				}
+				else {
+					int theColon = theName.indexOf(':');
+					if ((theColon > 0) &&
+						"".equals(this.lookupNamespace(theName.substring(0, theColon)))) {
+						theName = theName.substring(theName.lastIndexOf(':') + 1);
+					}
+				}
+
+				this.addOutAttribute(theName, theAttrs.get(i + 2));
+			}
+		}
+
+		// Element namespace
+		String theElement = this.elements[this.depth - 1];
+		if (this.startTagNS != null) {
+			int theColon = theElement.lastIndexOf(':');
+			this.declareNamespace(theColon > 0 ? theElement.substring(0, theColon) : "",
+								  this.startTagNS);
+		}
+		else if (this.startTagNSAware) {
+			this.declareNamespace("", "");
+		}
+
+		for (int i = 0; i < this.outAttributes.size(); i += 2) {
+			this.write(' ');
+			this.writeAscii(this.outAttributes.get(i));
+			this.write('=');
+			this.write('"');
+			this.writeEscaped(this.outAttributes.get(i + 1), true);
+			this.write('"');
+		}
+
+		this.write('>');
+
+		theAttrs.clear();
+		this.outAttributes.clear();
+	}
+
+	/**
+	 * Declares a namespace prefix for the current element, which adds the
+	 * namespace declaration attribute unless the prefix is already mapped
+	 * to the namespace URI in scope.  Prefixes that start with
+	 * <code>xml</code> can not be declared.
+	 *
+	 * @param aPrefix Namespace prefix or <code>""</code> for the default
+	 * 		  namespace
+	 * @param aNS Namespace URI
+	 */
+	private void declareNamespace(String aPrefix, String aNS) {
+		if (aPrefix.startsWith("xml")) {
+			return;
+		}
+
+		if (aNS == null) {
+			aNS = "";
+		}
+
+		String theCurrNS = this.lookupNamespace(aPrefix);
+		if ((theCurrNS == null && aPrefix.length() == 0 && aNS.length() == 0)
+			|| aNS.equals(theCurrNS)) {
+			return;
+		}
+
+		this.namespaces.add(aPrefix);
+		this.namespaces.add(aNS);
+		this.namespaces.add(Integer.valueOf(this.depth));
+
+		if (aPrefix.length() == 0) {
+			this.addOutAttribute(XMLNS, aNS);
+		}
+		else if (aNS.length() != 0) {
+			this.addOutAttribute(XMLNS + ":" + aPrefix, aNS);
+		}
+	}
+
+	/**
+	 * Gets the namespace URI mapped to a prefix in scope.
+	 *
+	 * @param aPrefix Namespace prefix
+	 *
+	 * @return Namespace URI or <code>null</code> if the prefix is not mapped
+	 */
+	private String lookupNamespace(String aPrefix) {
+		for (int i = this.namespaces.size() - 3; i >= 0; i -= 3) {
+			if (aPrefix.equals(this.namespaces.get(i))) {
+				return (String) this.namespaces.get(i + 1);
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Removes the namespace mappings declared by the elements deeper than
+	 * the current element depth.
+	 */
+	private void popNamespaces() {
+		int theSize = this.namespaces.size();
+		while ((theSize > 0)
+			   && ((Integer) this.namespaces.get(theSize - 1)).intValue() > this.depth) {
+			theSize -= 3;
+			this.namespaces.remove(theSize + 2);
+			this.namespaces.remove(theSize + 1);
+			this.namespaces.remove(theSize);
+		}
+	}
+
+	/**
+	 * Adds an attribute to write with the start tag, replacing the value of
+	 * an attribute with the same name.
+	 *
+	 * @param aName Name of the attribute
+	 * @param aValue Value of the attribute
+	 */
+	private void addOutAttribute(String aName, String aValue) {
+		for (int i = 0; i < this.outAttributes.size(); i += 2) {
+			if (aName.equals(this.outAttributes.get(i))) {
+				this.outAttributes.set(i + 1, aValue);
+				return;
+			}
+		}
+
+		this.outAttributes.add(aName);
+		this.outAttributes.add(aValue);
+	}
+
+	/**
+	 * Writes a CDATA section, where an embedded <code>]]&gt;</code> is split
+	 * across two sections.
+	 *
+	 * @param aText Content of the CDATA section
+	 *
+	 * @exception EPPEncodeException Error closing the start tag
+	 */
+	private void writeCData(String aText) throws EPPEncodeException {
+		if ((aText == null) || (aText.length() == 0)) {
+			return;
+		}
+
+		this.closeStartTag();
+		this.writeAscii("<![CDATA[");
+		int theStart = 0;
+		int theEnd;
+		while ((theEnd = aText.indexOf("]]>", theStart)) >= 0) {
+			this.writeUTF8(aText.substring(theStart, theEnd + 2));
+			this.writeAscii("]]><![CDATA[");
+			theStart = theEnd + 2;
+		}
+		this.writeUTF8(aText.substring(theStart));
+		this.writeAscii("]]>");
+	}
+
+	/**
+	 * Writes escaped character data or an attribute value.
+	 *
+	 * @param aText Text to write
+	 * @param aAttribute Is <code>aText</code> an attribute value?  Quotes,
+	 * 		  tabs and line feeds are only escaped in attribute values, a line
+	 * 		  feed in character data is written as the line separator, and the
+	 * 		  C1 control characters are only escaped in character data.
+	 */
+	private void writeEscaped(String aText, boolean aAttribute) {
+		int theLen = aText.length();
+		this.ensureCapacity(theLen);
+
+		for (int i = 0; i < theLen; i++) {
+			char theChar = aText.charAt(i);
+
+			if ((theChar >= 0x20) && (theChar < 0x7F)) {
+				switch (theChar) {
+					case '&':
+						this.writeAscii("&amp;");
+						break;
+					case '<':
+						this.writeAscii("&lt;");
+						break;
+					case '>':
+						this.writeAscii("&gt;");
+						break;
+					case '"':
+						if (aAttribute) {
+							this.writeAscii("&quot;");
+						}
+						else {
+							this.write(theChar);
+						}
+						break;
+					default:
+						if (this.count == this.buffer.length) {
+							this.ensureCapacity(1);
+						}
+						this.buffer[this.count++] = (byte) theChar;
+				}
+			}
+			else if (theChar == '\n' && !aAttribute) {
+				this.write(LINE_SEPARATOR, 0, LINE_SEPARATOR.length);
+			}
+			else if (theChar == '\t' && !aAttribute) {
+				this.write(theChar);
+			}
+			else if ((theChar < 0x20)
+					 || (!aAttribute && (theChar >= 0x7F) && (theChar <= 0x9F))) {
+				this.writeCharRef(theChar);
+			}
+			else if (Character.isHighSurrogate(theChar) && (i + 1 < theLen)
+					 && Character.isLowSurrogate(aText.charAt(i + 1))) {
+				this.writeCharRef(Character.toCodePoint(theChar, aText.charAt(++i)));
+			}
+			else {
+				this.writeUTF8(theChar);
+			}
+		}
+	}
+
+	/**
+	 * Writes a decimal character reference.
+	 *
+	 * @param aCodePoint Unicode code point to reference
+	 */
+	private void writeCharRef(int aCodePoint) {
+		this.write('&');
+		this.write('#');
+		this.writeAscii(Integer.toString(aCodePoint));
+		this.write(';');
+	}
+
+	/**
+	 * Writes a <code>String</code> encoded as UTF-8 without escaping.
+	 *
+	 * @param aText Text to write
+	 */
+	private void writeUTF8(String aText) {
+		int theLen = aText.length();
+		for (int i = 0; i < theLen; i++) {
+			char theChar = aText.charAt(i);
+			if (Character.isHighSurrogate(theChar) && (i + 1 < theLen)
+				&& Character.isLowSurrogate(aText.charAt(i + 1))) {
+				int theCodePoint = Character.toCodePoint(theChar, aText.charAt(++i));
+				this.write(0xF0 | (theCodePoint >> 18));
+				this.write(0x80 | ((theCodePoint >> 12) & 0x3F));
+				this.write(0x80 | ((theCodePoint >> 6) & 0x3F));
+				this.write(0x80 | (theCodePoint & 0x3F));
+			}
+			else {
+				this.writeUTF8(theChar);
+			}
+		}
+	}
+
+	/**
+	 * Writes a character of the Basic Multilingual Plane encoded as UTF-8.
+	 *
+	 * @param aChar Character to write
+	 */
+	private void writeUTF8(char aChar) {
+		if (aChar < 0x80) {
+			this.write(aChar);
+		}
+		else if (aChar < 0x800) {
+			this.write(0xC0 | (aChar >> 6));
+			this.write(0x80 | (aChar & 0x3F));
+		}
+		else {
+			this.write(0xE0 | (aChar >> 12));
+			this.write(0x80 | ((aChar >> 6) & 0x3F));
+			this.write(0x80 | (aChar & 0x3F));
+		}
+	}
+
+	/**
+	 * Writes a name, which is encoded as UTF-8 for the names with non-ASCII
+	 * characters.
+	 *
+	 * @param aText Text to write
+	 */
+	private void writeAscii(String aText) {
+		int theLen = aText.length();
+		this.ensureCapacity(theLen);
+		for (int i = 0; i < theLen; i++) {
+			char theChar = aText.charAt(i);
+			if (theChar < 0x80) {
+				this.buffer[this.count++] = (byte) theChar;
+			}
+			else {
+				this.writeUTF8(aText.substring(i));
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Writes a single byte.
+	 *
+	 * @param aByte Byte to write in the low order 8 bits
+	 */
+	private void write(int aByte) {
+		if (this.count == this.buffer.length) {
+			this.ensureCapacity(1);
+		}
+		this.buffer[this.count++] = (byte) aByte;
+	}
+
+	/**
+	 * Writes bytes.
+	 *
+	 * @param aBytes Bytes to write
+	 * @param aOffset Offset of the first byte in <code>aBytes</code>
+	 * @param aLen Number of bytes to write
+	 */
+	private void write(byte[] aBytes, int aOffset, int aLen) {
+		this.ensureCapacity(aLen);
+		System.arraycopy(aBytes, aOffset, this.buffer, this.count, aLen);
+		this.count += aLen;
+	}
+
+	/**
+	 * Grows the buffer to hold at least <code>aLen</code> more bytes.
+	 *
+	 * @param aLen Number of bytes to be written
+	 */
+	private void ensureCapacity(int aLen) {
+		if (this.count + aLen > this.buffer.length) {
+			byte[] theBuffer = new byte[Math.max(this.buffer.length * 2, this.count + aLen)];
+			System.arraycopy(this.buffer, 0, theBuffer, 0, this.count);
+			this.buffer = theBuffer;
+		}
+	}
+
+	/**
+	 * Converts an ASCII <code>String</code> to bytes.
+	 *
+	 * @param aText ASCII text
+	 *
+	 * @return Bytes of <code>aText</code>
+	 */
+	private static byte[] toAscii(String aText) {
+		byte[] theBytes = new byte[aText.length()];
+		for (int i = 0; i < theBytes.length; i++) {
+			theBytes[i] = (byte) aText.charAt(i);
+		}
+		return theBytes;
+	}
+}
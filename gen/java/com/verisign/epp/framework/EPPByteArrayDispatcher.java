@@ -121,7 +121,9 @@ public class EPPByteArrayDispatcher {
 		/** Send the event to the appropriate handler */
 		EPPMessage message = event.getMessage();
 		String namespace = message.getNamespace();
-		LOG.debug( "Sending event for Namespace " + namespace );
+		if (LOG.isDebugEnabled()) {
+			LOG.debug( "Sending event for Namespace " + namespace );
+		}
 
 		EPPEventHandler handler = (EPPEventHandler) this.eventHandlers
 				.get( namespace );
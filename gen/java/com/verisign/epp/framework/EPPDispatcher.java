@@ -28,16 +28,54 @@ import java.io.InputStream;
 
 // Java Core Imports
 import java.io.OutputStream;
-import java.util.Hashtable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
 
 // EPP Imports
 import com.verisign.epp.codec.gen.*;
+import com.verisign.epp.metrics.EPPMetrics;
+import com.verisign.epp.metrics.EPPMetricsFactory;
 import com.verisign.epp.util.EPPCatFactory;
+import com.verisign.epp.util.Environment;
 
 
 /**
  * A Singleton class that delegates message assembly to an EPPAssembler then
  * routes messages to the appropriate EPPEventHandler.     <br><br>
+ * By default the handler is run on the thread that calls
+ * <code>processMessage</code>.  Worker pools can be added with
+ * {@link #initWorkerPools()} or
+ * {@link #addWorkerPool(String, String[], int, int, long)} to run the
+ * handlers of a set of namespaces or command types on a bounded number of
+ * threads with a bounded queue.  A command whose pool queue is full, or whose
+ * handler is not started by a worker thread within the pool timeout, gets a
+ * <code>EPPResult.COMMAND_FAILED</code> response, so that a slow handler
+ * does not hold up the other namespaces or let the latency grow without
+ * bound.  The worker pools are defined with the following properties:<br>
+ * <br><ul>
+ * <li><code>EPP.Dispatcher.pools</code> - Space or comma separated list of
+ * pool names.
+ * <li><code>EPP.Dispatcher.&lt;pool&gt;.namespaces</code> - (required) Space or
+ * comma separated list of the namespaces (i.e.
+ * <code>urn:ietf:params:xml:ns:domain-1.0</code>) or command types (i.e.
+ * <code>urn:ietf:params:xml:ns:domain-1.0#check</code>) handled by the pool,
+ * where a command type takes precedence over its namespace.
+ * <li><code>EPP.Dispatcher.&lt;pool&gt;.threads</code> - (optional) Number of
+ * worker threads.  Default is <code>4</code>.
+ * <li><code>EPP.Dispatcher.&lt;pool&gt;.queueSize</code> - (optional) Maximum number
+ * of commands waiting for a worker thread.  Default is <code>64</code>.
+ * <li><code>EPP.Dispatcher.&lt;pool&gt;.timeout</code> - (optional) Time in
+ * milliseconds for a queued command to be started by a worker thread.  A
+ * started handler is always waited for.  Default is <code>30000</code>.
+ * </ul>
  *
  * @author $Author: jim $
  * @version $Revision: 1.3 $
@@ -55,11 +93,30 @@ public class EPPDispatcher {
 						 EPPDispatcher.class.getName(),
 						 EPPCatFactory.getInstance().getFactory());
 
+	/** Default number of worker threads of a pool */
+	public static final int DEFAULT_POOL_THREADS = 4;
+
+	/** Default maximum number of commands waiting for a worker thread */
+	public static final int DEFAULT_POOL_QUEUE_SIZE = 64;
+
+	/** Default time in milliseconds for a command to be handled by a pool */
+	public static final long DEFAULT_POOL_TIMEOUT = 30 * 1000; // 30 seconds
+
+	/** Worker pool property prefix */
+	private static final String PROP_PREFIX = "EPP.Dispatcher";
+
 	/**
-	 * eventHandlers is a Hashtable where the key is a string that defines the
+	 * eventHandlers is a Map where the key is a string that defines the
 	 * Namespace and value is the EPPEventHandler defined for that Namespace.
 	 */
-	private Hashtable eventHandlers;
+	private Map eventHandlers;
+
+	/**
+	 * Worker pools by namespace or command type
+	 * (&quot;&lt;namespace&gt;#&lt;type&gt;&quot;).  Empty if all of the handlers
+	 * are run on the calling thread.
+	 */
+	private Map<String, EPPDispatcherPool> workerPools = new ConcurrentHashMap<String, EPPDispatcherPool>();
 
 	/**
 	 * theAssembler makes Message-to-Stream/Stream-to-Message transformation
@@ -74,7 +131,7 @@ public class EPPDispatcher {
 	 * Creates the EPPDispatcher.
 	 */
 	private EPPDispatcher() {
-		eventHandlers = new Hashtable();
+		eventHandlers = new ConcurrentHashMap();
 	}
 
 	/**
@@ -162,19 +219,45 @@ public class EPPDispatcher {
 		/** Send the event to the appropriate handler */
 		EPPMessage message   = event.getMessage();
 		String     namespace = message.getNamespace();
-		cat.debug("Sending event for Namespace " + namespace);
+		if (cat.isDebugEnabled()) {
+			cat.debug("Sending event for Namespace " + namespace);
+		}
 
 		EPPEventHandler handler =
 			(EPPEventHandler) eventHandlers.get(namespace);
 
+		EPPMetrics theMetrics = EPPMetricsFactory.getInstance().getMetrics();
+
 		if (handler == null) {
+			theMetrics.increment(EPPMetrics.DISPATCHER_NO_HANDLER, namespace, 1);
 			cat.error("processMessage(InputStream, OutputStream, Object): Handler not found for Namespace "
 					  + namespace);
 			throw new EPPEventException("Handler not found for Namespace "
 										+ namespace);
 		}
 
-		EPPEventResponse eventResponse = handler.handleEvent(event, aData);
+		long theStart = System.nanoTime();
+		EPPEventResponse eventResponse;
+		try {
+			EPPDispatcherPool thePool = this.getWorkerPool(message);
+
+			if (thePool == null) {
+				eventResponse = handler.handleEvent(event, aData);
+			}
+			else {
+				try {
+					eventResponse = thePool.handleEvent(handler, event, aData);
+				}
+				 catch (RejectedExecutionException ex) {
+					theMetrics.increment(EPPMetrics.DISPATCHER_REJECTED, thePool.getName(), 1);
+					cat.warn("processMessage(InputStream, OutputStream, Object): Rejected: " + ex.getMessage());
+					eventResponse = this.createBusyResponse(message, ex.getMessage());
+				}
+			}
+		}
+		finally {
+			theMetrics.recordTime(EPPMetrics.DISPATCHER_HANDLER, namespace, System.nanoTime() - theStart);
+		}
 
 		if ((eventResponse != null) && (eventResponse.getResponse() != null)) {
 			cat.debug("processMessage(InputStream, OutputStream, Object): Sending response to Assembler");
@@ -196,6 +279,133 @@ public class EPPDispatcher {
 		eventHandlers.put(aHandler.getNamespace(), aHandler);
 	}
 
+	/**
+	 * Adds the worker pools defined by the <code>EPP.Dispatcher</code>
+	 * properties.
+	 *
+	 * @exception EPPEventException Error in the worker pool properties
+	 */
+	public void initWorkerPools() throws EPPEventException {
+		String theValue = Environment.getOption(PROP_PREFIX + ".pools");
+		if (theValue == null) {
+			return;
+		}
+
+		StringTokenizer thePools = new StringTokenizer(theValue, " \t,");
+		while (thePools.hasMoreTokens()) {
+			String thePool = thePools.nextToken();
+
+			theValue = Environment.getOption(PROP_PREFIX + "." + thePool + ".namespaces");
+			if (theValue == null) {
+				throw new EPPEventException("namespaces not defined for dispatcher pool " + thePool);
+			}
+			List theKeys = new ArrayList();
+			StringTokenizer theTokens = new StringTokenizer(theValue, " \t,");
+			while (theTokens.hasMoreTokens()) {
+				theKeys.add(theTokens.nextToken());
+			}
+
+			try {
+				this.addWorkerPool(thePool, (String[]) theKeys.toArray(new String[theKeys.size()]),
+						Integer.parseInt(Environment.getProperty(PROP_PREFIX + "." + thePool + ".threads",
+								"" + DEFAULT_POOL_THREADS).trim()),
+						Integer.parseInt(Environment.getProperty(PROP_PREFIX + "." + thePool + ".queueSize",
+								"" + DEFAULT_POOL_QUEUE_SIZE).trim()),
+						Long.parseLong(Environment.getProperty(PROP_PREFIX + "." + thePool + ".timeout",
+								"" + DEFAULT_POOL_TIMEOUT).trim()));
+			}
+			 catch (NumberFormatException ex) {
+				throw new EPPEventException("Invalid property of dispatcher pool " + thePool + ": " + ex);
+			}
+		}
+	}
+
+	/**
+	 * Adds a worker pool that runs the handlers of a set of namespaces or
+	 * command types.
+	 *
+	 * @param aName Name of the pool
+	 * @param aKeys Namespaces (i.e. <code>urn:ietf:params:xml:ns:domain-1.0</code>)
+	 *        or command types (i.e. <code>urn:ietf:params:xml:ns:domain-1.0#check</code>)
+	 *        of the pool
+	 * @param aThreads Number of worker threads
+	 * @param aQueueSize Maximum number of commands waiting for a worker thread
+	 * @param aTimeout Time in milliseconds for a queued command to be
+	 *        started by a worker thread
+	 */
+	public void addWorkerPool(String aName, String[] aKeys, int aThreads, int aQueueSize, long aTimeout) {
+		EPPDispatcherPool thePool = new EPPDispatcherPool(aName, aThreads, aQueueSize, aTimeout);
+
+		for (int i = 0; i < aKeys.length; i++) {
+			this.workerPools.put(aKeys[i], thePool);
+		}
+
+		cat.info("addWorkerPool(): Pool " + aName + " with " + aThreads + " threads, queue size "
+				 + aQueueSize + ", and timeout " + aTimeout + " ms for " + Arrays.asList(aKeys));
+	}
+
+	/**
+	 * Removes the worker pools and stops their threads once the queued
+	 * commands are handled, so that all of the handlers are run on the
+	 * calling thread.
+	 */
+	public void shutdownWorkerPools() {
+		Set thePools = new HashSet(this.workerPools.values());
+		this.workerPools.clear();
+
+		for (Iterator theIter = thePools.iterator(); theIter.hasNext();) {
+			((EPPDispatcherPool) theIter.next()).shutdown();
+		}
+	}
+
+	/**
+	 * Gets the worker pool of a message by the command type and then by the
+	 * namespace.
+	 *
+	 * @param aMessage Message to handle
+	 *
+	 * @return Worker pool of the message or <code>null</code> to run the
+	 *         handler on the calling thread
+	 */
+	private EPPDispatcherPool getWorkerPool(EPPMessage aMessage) {
+		if (this.workerPools.isEmpty()) {
+			return null;
+		}
+
+		String theNamespace = aMessage.getNamespace();
+
+		if (aMessage instanceof EPPCommand) {
+			EPPDispatcherPool thePool = this.workerPools.get(theNamespace + "#"
+					+ ((EPPCommand) aMessage).getType());
+			if (thePool != null) {
+				return thePool;
+			}
+		}
+
+		return this.workerPools.get(theNamespace);
+	}
+
+	/**
+	 * Creates the <code>EPPResult.COMMAND_FAILED</code> response of a message
+	 * rejected by a worker pool.
+	 *
+	 * @param aMessage Rejected message
+	 * @param aReason Reason the message was rejected
+	 *
+	 * @return Error response
+	 */
+	private EPPEventResponse createBusyResponse(EPPMessage aMessage, String aReason) {
+		String theClientTransId = null;
+		if (aMessage instanceof EPPCommand) {
+			theClientTransId = ((EPPCommand) aMessage).getTransId();
+		}
+
+		EPPResult theResult = new EPPResult(EPPResult.COMMAND_FAILED);
+		theResult.addExtValueReason("Server busy, " + aReason);
+
+		return new EPPEventResponse(new EPPResponse(new EPPTransId(theClientTransId, "svrBusy"), theResult));
+	}
+
 	/**
 	 * Registers a <code>EPPConnectionHandler</code> for notification of
 	 * connection events
@@ -0,0 +1,203 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.framework;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.verisign.epp.metrics.EPPMetrics;
+import com.verisign.epp.metrics.EPPMetricsFactory;
+import com.verisign.epp.metrics.EPPMetricsGauge;
+
+/**
+ * Bounded worker pool of <code>EPPDispatcher</code> that runs the event
+ * handlers of a set of namespaces or command types.  The events wait in a
+ * queue of a fixed size for a worker thread, and an event is rejected when
+ * the queue is full or when no worker thread starts the handler within the
+ * timeout, so that a slow handler does not hold up the other namespaces and
+ * the latency of the pool is bounded.  Once a handler is started, its result
+ * is always waited for, since the command can not be undone after it has
+ * changed the state of the server.
+ */
+class EPPDispatcherPool {
+
+	/** Name of the pool */
+	private String name;
+
+	/** Worker threads of the pool */
+	private ThreadPoolExecutor workers;
+
+	/** Time in milliseconds to wait for a worker thread to start a handler */
+	private long timeout;
+
+	/**
+	 * Creates a pool and starts its worker threads.
+	 *
+	 * @param aName Name of the pool
+	 * @param aThreads Number of worker threads
+	 * @param aQueueSize Maximum number of events waiting for a worker thread
+	 * @param aTimeout Time in milliseconds to wait for a worker thread to
+	 *        start a handler
+	 */
+	EPPDispatcherPool(final String aName, int aThreads, int aQueueSize, long aTimeout) {
+		this.name = aName;
+		this.timeout = aTimeout;
+		this.workers = new ThreadPoolExecutor(aThreads, aThreads, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<Runnable>(Math.max(1, aQueueSize)), new ThreadFactory() {
+					private AtomicInteger count = new AtomicInteger();
+
+					public Thread newThread(Runnable aTask) {
+						Thread theThread = new Thread(aTask, "EPPDispatcher-" + aName + "-"
+													  + this.count.getAndIncrement());
+						theThread.setDaemon(true);
+						return theThread;
+					}
+				});
+
+		EPPMetricsFactory.getInstance().getMetrics().registerGauge(EPPMetrics.DISPATCHER_QUEUED, aName,
+				new EPPMetricsGauge() {
+
+					public long getValue() {
+						return getQueued();
+					}
+				});
+	}
+
+	/**
+	 * Runs an event handler on a worker thread and waits for it to
+	 * complete.  The event is abandoned if no worker thread has started the
+	 * handler within the timeout, while a started handler is waited for
+	 * until it completes.
+	 *
+	 * @param aHandler Handler of the event
+	 * @param aEvent Event to handle
+	 * @param aData Data passed to the handler
+	 *
+	 * @return Response of the handler
+	 *
+	 * @exception EPPEventException Error thrown by the handler
+	 * @exception RejectedExecutionException The queue is full, or the handler
+	 *            was not started within the timeout or before the wait was
+	 *            interrupted
+	 */
+	EPPEventResponse handleEvent(final EPPEventHandler aHandler, final EPPEvent aEvent, final Object aData)
+			throws EPPEventException {
+
+		// Claimed by the worker thread that starts the handler or by the
+		// session thread that abandons the event
+		final AtomicBoolean theClaimed = new AtomicBoolean();
+
+		Future<EPPEventResponse> theFuture = this.workers.submit(new Callable<EPPEventResponse>() {
+
+			public EPPEventResponse call() throws Exception {
+				if (!theClaimed.compareAndSet(false, true)) {
+					return null;
+				}
+				return aHandler.handleEvent(aEvent, aData);
+			}
+		});
+
+		boolean isInterrupted = false;
+		try {
+			try {
+				return theFuture.get(this.timeout, TimeUnit.MILLISECONDS);
+			}
+			catch (TimeoutException ex) {
+				if (theClaimed.compareAndSet(false, true)) {
+					this.workers.remove((Runnable) theFuture);
+					throw new RejectedExecutionException("Handler of pool " + this.name + " not started in "
+							+ this.timeout + " ms");
+				}
+			}
+			catch (InterruptedException ex) {
+				isInterrupted = true;
+				if (theClaimed.compareAndSet(false, true)) {
+					this.workers.remove((Runnable) theFuture);
+					throw new RejectedExecutionException("Interrupted waiting for handler of pool " + this.name);
+				}
+			}
+
+			// The handler is started, so wait for its result
+			for (;;) {
+				try {
+					return theFuture.get();
+				}
+				catch (InterruptedException ex) {
+					isInterrupted = true;
+				}
+			}
+		}
+		catch (ExecutionException ex) {
+			if (ex.getCause() instanceof EPPEventException) {
+				throw (EPPEventException) ex.getCause();
+			}
+			if (ex.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) ex.getCause();
+			}
+			if (ex.getCause() instanceof Error) {
+				throw (Error) ex.getCause();
+			}
+			throw new EPPEventException("Handler of pool " + this.name + " failed: " + ex.getCause());
+		}
+		finally {
+			if (isInterrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Gets the name of the pool.
+	 *
+	 * @return Pool name
+	 */
+	String getName() {
+		return this.name;
+	}
+
+	/**
+	 * Gets the number of events waiting for a worker thread.
+	 *
+	 * @return Number of queued events
+	 */
+	int getQueued() {
+		return this.workers.getQueue().size();
+	}
+
+	/**
+	 * Stops the worker threads once the queued events are handled.
+	 */
+	void shutdown() {
+		EPPMetricsFactory.getInstance().getMetrics().unregisterGauge(EPPMetrics.DISPATCHER_QUEUED, this.name);
+		this.workers.shutdown();
+	}
+
+}
+
+// End class EPPDispatcherPool
@@ -0,0 +1,214 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.framework;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import com.verisign.epp.codec.gen.EPPResponse;
+
+/**
+ * Is a unit test of the <code>EPPDispatcherPool</code> class used by
+ * <code>EPPDispatcher</code> to run the handlers on bounded worker pools.
+ */
+public class EPPDispatcherPoolTst extends TestCase {
+
+	/**
+	 * Handler that blocks until released.
+	 */
+	private static class BlockingHandler implements EPPEventHandler {
+
+		/** Counted down when a handler is started */
+		CountDownLatch started = new CountDownLatch(1);
+
+		/** Number of handlers started */
+		AtomicInteger calls = new AtomicInteger();
+
+		/** Released to complete the handlers */
+		CountDownLatch release = new CountDownLatch(1);
+
+		/**
+		 * Waits for the release and returns an empty response.
+		 *
+		 * @param aEvent Not used
+		 * @param aData Not used
+		 *
+		 * @return Empty response
+		 */
+		public EPPEventResponse handleEvent(EPPEvent aEvent, Object aData) throws EPPEventException {
+			this.calls.incrementAndGet();
+			this.started.countDown();
+			try {
+				this.release.await(10, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException ex) {
+				throw new EPPEventException("Interrupted");
+			}
+			return new EPPEventResponse(new EPPResponse());
+		}
+
+		/**
+		 * Gets the namespace of the handler.
+		 *
+		 * @return Test namespace
+		 */
+		public String getNamespace() {
+			return "urn:test";
+		}
+	}
+
+	/**
+	 * Allocates an <code>EPPDispatcherPoolTst</code> with a logical name.
+	 *
+	 * @param name Logical name of the test
+	 */
+	public EPPDispatcherPoolTst(String name) {
+		super(name);
+	}
+
+	/**
+	 * Test rejecting an event when the queue of the pool is full.
+	 */
+	public void testQueueFull() throws Exception {
+		final EPPDispatcherPool thePool = new EPPDispatcherPool("testQueueFull", 1, 1, 10000);
+		final BlockingHandler theHandler = new BlockingHandler();
+		final EPPEvent theEvent = new EPPEvent(new EPPResponse());
+
+		// One event running and one queued
+		Thread[] theThreads = new Thread[2];
+		final int[] theCompleted = new int[1];
+		for (int i = 0; i < theThreads.length; i++) {
+			theThreads[i] = new Thread() {
+
+				public void run() {
+					try {
+						thePool.handleEvent(theHandler, theEvent, null);
+						synchronized (theCompleted) {
+							theCompleted[0]++;
+						}
+					}
+					catch (Exception ex) {
+						ex.printStackTrace();
+					}
+				}
+			};
+			theThreads[i].start();
+			if (i == 0) {
+				Assert.assertTrue(theHandler.started.await(10, TimeUnit.SECONDS));
+			}
+		}
+
+		// Wait for the second event to be queued
+		long theEnd = System.currentTimeMillis() + 10000;
+		while (thePool.getQueued() < 1 && System.currentTimeMillis() < theEnd) {
+			Thread.sleep(10);
+		}
+
+		try {
+			thePool.handleEvent(theHandler, theEvent, null);
+			Assert.fail("Event accepted with the queue full");
+		}
+		catch (RejectedExecutionException ex) {
+			// Expected
+		}
+
+		theHandler.release.countDown();
+		for (int i = 0; i < theThreads.length; i++) {
+			theThreads[i].join(10000);
+		}
+		Assert.assertEquals(2, theCompleted[0]);
+
+		thePool.shutdown();
+	}
+
+	/**
+	 * Test rejecting an event that is not started within the timeout, while
+	 * the result of a started handler is waited for beyond the timeout.
+	 */
+	public void testTimeout() throws Exception {
+		final EPPDispatcherPool thePool = new EPPDispatcherPool("testTimeout", 1, 1, 100);
+		final BlockingHandler theHandler = new BlockingHandler();
+		final EPPEventResponse[] theResponse = new EPPEventResponse[1];
+
+		// Started handler that runs past the timeout
+		Thread theThread = new Thread() {
+
+			public void run() {
+				try {
+					theResponse[0] = thePool.handleEvent(theHandler, new EPPEvent(new EPPResponse()), null);
+				}
+				catch (Exception ex) {
+					ex.printStackTrace();
+				}
+			}
+		};
+		theThread.start();
+		Assert.assertTrue(theHandler.started.await(10, TimeUnit.SECONDS));
+
+		// Queued event that is not started within the timeout
+		try {
+			thePool.handleEvent(theHandler, new EPPEvent(new EPPResponse()), null);
+			Assert.fail("Event not timed out");
+		}
+		catch (RejectedExecutionException ex) {
+			// Expected
+		}
+
+		Thread.sleep(200);
+		theHandler.release.countDown();
+		theThread.join(10000);
+		Assert.assertNotNull("Started handler not waited for", theResponse[0]);
+
+		// The abandoned event is not handled
+		Assert.assertNotNull(thePool.handleEvent(theHandler, new EPPEvent(new EPPResponse()), null));
+		Assert.assertEquals(2, theHandler.calls.get());
+
+		thePool.shutdown();
+	}
+
+	/**
+	 * JUNIT <code>suite</code> static method, which returns the tests
+	 * associated with <code>EPPDispatcherPoolTst</code>.
+	 *
+	 * @return Tests to run
+	 */
+	public static Test suite() {
+		return new TestSuite(EPPDispatcherPoolTst.class);
+	}
+
+	/**
+	 * Unit test main, which runs the tests.
+	 *
+	 * @param args Not used
+	 */
+	public static void main(String[] args) {
+		junit.textui.TestRunner.run(EPPDispatcherPoolTst.suite());
+	}
+
+}
+
+// End class EPPDispatcherPoolTst
@@ -0,0 +1,809 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.framework;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+import org.apache.log4j.Logger;
+
+import com.verisign.epp.util.EPPCatFactory;
+import com.verisign.epp.util.Environment;
+
+/**
+ * Persistent <code>EPPPollDataSource</code> with a FIFO queue per recipient,
+ * which stores the messages in an append-only journal of memory-mapped
+ * segment files.  The recipient is the <code>aRecp</code> parameter
+ * converted to a <code>String</code>, like the client identifier of the
+ * session, where <code>null</code> is the default recipient.  The messages
+ * of the default recipient, which are put by handlers that do not set a
+ * recipient, are polled by every recipient once its own queue is empty.  The
+ * message identifiers are increasing numbers across the recipients and
+ * restarts.<br>
+ * <br>
+ * Only an index entry of each message is held in memory, with the message
+ * data being read from the journal by {@link #get(Object, Object)}, so the
+ * data must be <code>Serializable</code>.  A message is acknowledged by
+ * message identifier with {@link #delete(Object, String, Object)} in
+ * constant time, and the number of messages of a recipient is exact for the
+ * <code>EPPMsgQueue</code> of the responses.<br>
+ * <br>
+ * The journal is replayed when the data source is created, so the messages
+ * that were not acknowledged are restored after a restart.  A new segment is
+ * started when the current segment is full, and the oldest segments are
+ * deleted once all of their messages are acknowledged.  The journal is
+ * written through the memory mapping, which survives a crash of the process;
+ * the segments are only forced to disk on every write when <code>sync</code>
+ * is set.<br>
+ * <br>
+ * The data source is configured with the following properties when created
+ * with the default constructor (i.e. <code>EPP.PollDataSource</code>):<br>
+ * <br><ul>
+ * <li><code>EPP.PollDataSource.journalDir</code> - (optional) Directory of the
+ * journal segment files.  Default is <code>poll-journal</code>.
+ * <li><code>EPP.PollDataSource.segmentSize</code> - (optional) Size in bytes of
+ * a journal segment.  Default is 64 MB.
+ * <li><code>EPP.PollDataSource.sync</code> - (optional) Force the journal to disk
+ * on every write?  Default is <code>false</code>.
+ * </ul>
+ */
+public class EPPJournalPollDataSource implements EPPPollDataSource {
+
+	/** Default directory of the journal segment files */
+	public static final String DEFAULT_JOURNAL_DIR = "poll-journal";
+
+	/** Default size in bytes of a journal segment */
+	public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+	/** Property prefix of the data source */
+	private static final String PROP_PREFIX = "EPP.PollDataSource";
+
+	/** Journal record of a put message */
+	private static final byte TYPE_PUT = 1;
+
+	/**
+	 * Journal record of an acknowledged message, which includes the last
+	 * message identifier, so that it is restored when the segments with the
+	 * put records are deleted.
+	 */
+	private static final byte TYPE_ACK = 2;
+
+	/**
+	 * Size of the journal record header, which is the payload length, the
+	 * CRC32 of the payload, and the record type.
+	 */
+	private static final int HEADER_SIZE = 9;
+
+	/** File name prefix of the journal segments */
+	private static final String SEGMENT_PREFIX = "poll-";
+
+	/** File name suffix of the journal segments */
+	private static final String SEGMENT_SUFFIX = ".journal";
+
+	/** Recipient key of the <code>null</code> recipient */
+	private static final String DEFAULT_RECIPIENT = "";
+
+	/** Log4j category for logging */
+	private static Logger cat = Logger.getLogger(EPPJournalPollDataSource.class.getName(), EPPCatFactory
+			.getInstance().getFactory());
+
+	/**
+	 * Journal segment file that is mapped in memory.
+	 */
+	private static class Segment {
+
+		/** Sequence number of the segment */
+		long number;
+
+		/** Segment file */
+		File file;
+
+		/** Channel of the segment file */
+		FileChannel channel;
+
+		/**
+		 * Mapped segment, whose position is never changed so that the readers
+		 * can duplicate it.
+		 */
+		MappedByteBuffer buffer;
+
+		/** Duplicate of <code>buffer</code> used to append the records */
+		ByteBuffer writeBuffer;
+
+		/** Position of the next record */
+		int position;
+
+		/** Number of messages of the segment that are not acknowledged */
+		int live;
+	}
+
+	/**
+	 * Index entry of a message in a recipient queue.
+	 */
+	private static class Message {
+
+		/** Message identifier */
+		long msgId;
+
+		/** Kind of the message */
+		String kind;
+
+		/** Time the message was queued */
+		long qDate;
+
+		/** Segment of the put record */
+		Segment segment;
+
+		/** Position of the put record payload in the segment */
+		int offset;
+
+		/** Length of the put record payload */
+		int length;
+	}
+
+	/**
+	 * FIFO queue of the messages of a recipient, which is synchronized on
+	 * the queue.
+	 */
+	private static class Queue {
+
+		/** Messages by message identifier in the order that they were put */
+		LinkedHashMap<Long, Message> messages = new LinkedHashMap<Long, Message>();
+	}
+
+	/** Directory of the journal segment files */
+	private File journalDir;
+
+	/** Size in bytes of a journal segment */
+	private int segmentSize;
+
+	/** Force the journal to disk on every write? */
+	private boolean sync;
+
+	/** Queues by recipient key */
+	private ConcurrentHashMap<String, Queue> queues = new ConcurrentHashMap<String, Queue>();
+
+	/**
+	 * Journal segments from the oldest to the current segment.  The journal
+	 * is synchronized on the list, which is locked after a queue.
+	 */
+	private LinkedList<Segment> segments = new LinkedList<Segment>();
+
+	/** Last message identifier.  Guarded by <code>segments</code>. */
+	private long lastMsgId = 0;
+
+	/**
+	 * Creates the data source with the <code>EPP.PollDataSource</code>
+	 * properties and replays the journal.
+	 *
+	 * @exception EPPPollQueueException Error reading the journal
+	 */
+	public EPPJournalPollDataSource() throws EPPPollQueueException {
+		this(new File(Environment.getProperty(PROP_PREFIX + ".journalDir", DEFAULT_JOURNAL_DIR).trim()),
+				getIntProperty("segmentSize", DEFAULT_SEGMENT_SIZE),
+				Boolean.valueOf(Environment.getProperty(PROP_PREFIX + ".sync", "false").trim()).booleanValue());
+	}
+
+	/**
+	 * Creates the data source with a journal directory and replays the
+	 * journal.
+	 *
+	 * @param aJournalDir Directory of the journal segment files, which is
+	 *        created if it does not exist
+	 * @param aSegmentSize Size in bytes of a journal segment
+	 * @param aSync Force the journal to disk on every write?
+	 *
+	 * @exception EPPPollQueueException Error reading the journal
+	 */
+	public EPPJournalPollDataSource(File aJournalDir, int aSegmentSize, boolean aSync)
+			throws EPPPollQueueException {
+		this.journalDir = aJournalDir;
+		this.segmentSize = aSegmentSize;
+		this.sync = aSync;
+
+		if (!this.journalDir.isDirectory() && !this.journalDir.mkdirs()) {
+			throw new EPPPollQueueException("Unable to create journal directory " + this.journalDir);
+		}
+
+		try {
+			this.replay();
+		}
+		catch (IOException ex) {
+			cat.error("EPPJournalPollDataSource(): Error replaying journal " + this.journalDir + ": " + ex);
+			this.close();
+			throw new EPPPollQueueException("Error replaying journal " + this.journalDir + ": " + ex);
+		}
+	}
+
+	/**
+	 * Gets the first message of the recipient queue, or the first message of
+	 * the default recipient queue if the recipient queue is empty.
+	 *
+	 * @param aRecp Recipient of the message, where <code>null</code> is the
+	 *        default recipient.
+	 * @param aContextData Not used.
+	 *
+	 * @return First message with the number of messages in the queue set
+	 *         as the size
+	 *
+	 * @exception EPPPollQueueException <code>TYPE_QUEUE_EMPTY</code> if there
+	 *            is no message or error reading the message
+	 */
+	public EPPPollDataRecord get(Object aRecp, Object aContextData) throws EPPPollQueueException {
+		EPPPollDataRecord theRecord = this.getFirst(getRecipientKey(aRecp));
+
+		if (theRecord == null && aRecp != null) {
+			theRecord = this.getFirst(DEFAULT_RECIPIENT);
+		}
+		if (theRecord == null) {
+			throw new EPPPollQueueException(EPPPollQueueException.TYPE_QUEUE_EMPTY,
+					"EPPJournalPollDataSource.get(), Empty queue");
+		}
+
+		return theRecord;
+	}
+
+	/**
+	 * Puts a message at the end of the recipient queue after writing it to
+	 * the journal.
+	 *
+	 * @param aRecp Recipient of the message, where <code>null</code> is the
+	 *        default recipient.
+	 * @param aKind Kind of the message
+	 * @param aData <code>Serializable</code> message data
+	 * @param aContextData Not used.
+	 *
+	 * @exception EPPPollQueueException Error writing the message to the journal
+	 */
+	public void put(Object aRecp, String aKind, Object aData, Object aContextData) throws EPPPollQueueException {
+		String theRecipient = getRecipientKey(aRecp);
+
+		byte[] theData;
+		try {
+			ByteArrayOutputStream theBytes = new ByteArrayOutputStream();
+			ObjectOutputStream theStream = new ObjectOutputStream(theBytes);
+			theStream.writeObject(aData);
+			theStream.close();
+			theData = theBytes.toByteArray();
+		}
+		catch (IOException ex) {
+			cat.error("put(): Error serializing message data " + aData + ": " + ex);
+			throw new EPPPollQueueException("Error serializing message data: " + ex);
+		}
+
+		Queue theQueue = this.getQueue(theRecipient);
+		synchronized (theQueue) {
+			Message theMessage = new Message();
+			theMessage.kind = aKind;
+			theMessage.qDate = System.currentTimeMillis();
+
+			synchronized (this.segments) {
+				theMessage.msgId = ++this.lastMsgId;
+
+				try {
+					ByteArrayOutputStream theBytes = new ByteArrayOutputStream(theData.length + 64);
+					DataOutputStream thePayload = new DataOutputStream(theBytes);
+					thePayload.writeLong(theMessage.msgId);
+					thePayload.writeLong(theMessage.qDate);
+					thePayload.writeUTF(theRecipient);
+					thePayload.writeUTF(aKind);
+					thePayload.writeInt(theData.length);
+					thePayload.write(theData);
+					thePayload.close();
+
+					this.append(TYPE_PUT, theBytes.toByteArray(), theMessage);
+				}
+				catch (IOException ex) {
+					cat.error("put(): Error writing message " + theMessage.msgId + " to journal: " + ex);
+					throw new EPPPollQueueException("Error writing message to journal: " + ex);
+				}
+			}
+
+			theQueue.messages.put(new Long(theMessage.msgId), theMessage);
+		}
+	}
+
+	/**
+	 * Deletes an acknowledged message from the recipient queue, or from the
+	 * default recipient queue, and writes the acknowledgement to the journal.
+	 *
+	 * @param aRecp Recipient of the message, where <code>null</code> is the
+	 *        default recipient.
+	 * @param aMsgId Identifier of the message to delete
+	 * @param aContextData Not used.
+	 *
+	 * @return Number of messages left in the queue of the message
+	 *
+	 * @exception EPPPollQueueException <code>TYPE_MSGID_NOT_FOUND</code> if the
+	 *            message is not in the recipient queue or error writing the
+	 *            journal
+	 */
+	public int delete(Object aRecp, String aMsgId, Object aContextData) throws EPPPollQueueException {
+		String theRecipient = getRecipientKey(aRecp);
+		Queue theQueue = this.queues.get(theRecipient);
+
+		// Message of the default recipient?
+		if (aRecp != null && (theQueue == null || !this.contains(theQueue, aMsgId))) {
+			theRecipient = DEFAULT_RECIPIENT;
+			theQueue = this.queues.get(theRecipient);
+		}
+
+		Long theMsgId = null;
+		try {
+			theMsgId = Long.valueOf(aMsgId);
+		}
+		catch (NumberFormatException ex) {
+			// Not a message identifier of the data source
+		}
+
+		if (theQueue == null || theMsgId == null) {
+			throw new EPPPollQueueException(EPPPollQueueException.TYPE_MSGID_NOT_FOUND, "Message " + aMsgId
+					+ " not found");
+		}
+
+		synchronized (theQueue) {
+			Message theMessage = theQueue.messages.remove(theMsgId);
+			if (theMessage == null) {
+				throw new EPPPollQueueException(EPPPollQueueException.TYPE_MSGID_NOT_FOUND, "Message " + aMsgId
+						+ " not found");
+			}
+
+			synchronized (this.segments) {
+				try {
+					ByteArrayOutputStream theBytes = new ByteArrayOutputStream(theRecipient.length() + 24);
+					DataOutputStream thePayload = new DataOutputStream(theBytes);
+					thePayload.writeUTF(theRecipient);
+					thePayload.writeLong(theMessage.msgId);
+					thePayload.writeLong(this.lastMsgId);
+					thePayload.close();
+
+					this.append(TYPE_ACK, theBytes.toByteArray(), null);
+				}
+				catch (IOException ex) {
+					theQueue.messages.put(theMsgId, theMessage);
+					cat.error("delete(): Error writing ack of message " + aMsgId + " to journal: " + ex);
+					throw new EPPPollQueueException("Error writing ack to journal: " + ex);
+				}
+
+				theMessage.segment.live--;
+				this.reclaim();
+			}
+
+			return theQueue.messages.size();
+		}
+	}
+
+	/**
+	 * Gets the number of messages in a recipient queue.
+	 *
+	 * @param aRecp Recipient, where <code>null</code> is the default recipient.
+	 *
+	 * @return Number of messages
+	 */
+	public int size(Object aRecp) {
+		Queue theQueue = this.queues.get(getRecipientKey(aRecp));
+		if (theQueue == null) {
+			return 0;
+		}
+
+		synchronized (theQueue) {
+			return theQueue.messages.size();
+		}
+	}
+
+	/**
+	 * Gets the number of journal segment files.
+	 *
+	 * @return Number of segments
+	 */
+	public int getSegmentCount() {
+		synchronized (this.segments) {
+			return this.segments.size();
+		}
+	}
+
+	/**
+	 * Forces the journal to disk and closes the segment files.  The data
+	 * source can not be used after it is closed.
+	 */
+	public void close() {
+		synchronized (this.segments) {
+			for (Iterator<Segment> theIter = this.segments.iterator(); theIter.hasNext();) {
+				Segment theSegment = theIter.next();
+				try {
+					theSegment.buffer.force();
+					theSegment.channel.close();
+				}
+				catch (IOException ex) {
+					cat.warn("close(): Error closing segment " + theSegment.file + ": " + ex);
+				}
+			}
+			this.segments.clear();
+		}
+	}
+
+	/**
+	 * Replays the journal segments to restore the queues, and opens the
+	 * last segment as the current segment.
+	 *
+	 * @exception IOException Error reading the journal
+	 */
+	private void replay() throws IOException {
+		File[] theFiles = this.journalDir.listFiles(new FilenameFilter() {
+
+			public boolean accept(File aDir, String aName) {
+				return aName.startsWith(SEGMENT_PREFIX) && aName.endsWith(SEGMENT_SUFFIX);
+			}
+		});
+
+		long[] theNumbers = new long[theFiles.length];
+		for (int i = 0; i < theFiles.length; i++) {
+			String theName = theFiles[i].getName();
+			theNumbers[i] = Long.parseLong(theName.substring(SEGMENT_PREFIX.length(), theName.length()
+					- SEGMENT_SUFFIX.length()));
+		}
+		Arrays.sort(theNumbers);
+
+		long theMessages = 0;
+		for (int i = 0; i < theNumbers.length; i++) {
+			Segment theSegment = this.openSegment(theNumbers[i], 0);
+			this.segments.add(theSegment);
+			theMessages += this.replaySegment(theSegment);
+		}
+
+		if (this.segments.isEmpty()) {
+			this.segments.add(this.openSegment(0, this.segmentSize));
+		}
+
+		this.reclaim();
+
+		cat.info("replay(): Replayed " + theNumbers.length + " segments of " + this.journalDir + " with "
+				+ theMessages + " records, last message id " + this.lastMsgId);
+	}
+
+	/**
+	 * Replays the records of a segment up to the first empty or invalid
+	 * record, which is where the next record of the segment is appended.
+	 *
+	 * @param aSegment Segment to replay
+	 *
+	 * @return Number of records replayed
+	 *
+	 * @exception IOException Error reading a record
+	 */
+	private long replaySegment(Segment aSegment) throws IOException {
+		ByteBuffer theBuffer = aSegment.buffer.duplicate();
+		CRC32 theCrc = new CRC32();
+		long theRecords = 0;
+
+		int thePos = 0;
+		while (thePos + HEADER_SIZE <= theBuffer.capacity()) {
+			int theLength = theBuffer.getInt(thePos);
+			if (theLength <= 0 || thePos + HEADER_SIZE + theLength > theBuffer.capacity()) {
+				break;
+			}
+
+			byte[] thePayload = new byte[theLength];
+			theBuffer.position(thePos + HEADER_SIZE);
+			theBuffer.get(thePayload);
+			theCrc.reset();
+			theCrc.update(thePayload);
+			if ((int) theCrc.getValue() != theBuffer.getInt(thePos + 4)) {
+				cat.warn("replaySegment(): Invalid record at " + thePos + " of " + aSegment.file
+						+ ", ignoring the rest of the segment");
+				break;
+			}
+
+			DataInputStream theStream = new DataInputStream(new ByteArrayInputStream(thePayload));
+			byte theType = theBuffer.get(thePos + 8);
+			if (theType == TYPE_PUT) {
+				Message theMessage = new Message();
+				theMessage.msgId = theStream.readLong();
+				theMessage.qDate = theStream.readLong();
+				String theRecipient = theStream.readUTF();
+				theMessage.kind = theStream.readUTF().intern();
+				theMessage.segment = aSegment;
+				theMessage.offset = thePos + HEADER_SIZE;
+				theMessage.length = theLength;
+
+				this.getQueue(theRecipient).messages.put(new Long(theMessage.msgId), theMessage);
+				aSegment.live++;
+				this.lastMsgId = Math.max(this.lastMsgId, theMessage.msgId);
+			}
+			else if (theType == TYPE_ACK) {
+				Queue theQueue = this.queues.get(theStream.readUTF());
+				Message theMessage = theQueue == null ? null : theQueue.messages.remove(new Long(theStream
+						.readLong()));
+				if (theMessage != null) {
+					theMessage.segment.live--;
+				}
+				this.lastMsgId = Math.max(this.lastMsgId, theStream.readLong());
+			}
+
+			theRecords++;
+			thePos += HEADER_SIZE + theLength;
+		}
+
+		aSegment.position = thePos;
+		return theRecords;
+	}
+
+	/**
+	 * Appends a record to the current segment, where a new segment is
+	 * started if the record does not fit.  Must be called with the
+	 * <code>segments</code> lock.
+	 *
+	 * @param aType Record type
+	 * @param aPayload Record payload
+	 * @param aMessage Message of a put record to set the segment and offset
+	 *        of, or <code>null</code>.
+	 *
+	 * @exception IOException Error starting a new segment
+	 */
+	private void append(byte aType, byte[] aPayload, Message aMessage) throws IOException {
+		int theSize = HEADER_SIZE + aPayload.length;
+
+		Segment theSegment = this.segments.getLast();
+		if (theSegment.position + theSize > theSegment.buffer.capacity()) {
+			theSegment.buffer.force();
+			theSegment = this.openSegment(theSegment.number + 1, Math.max(this.segmentSize, theSize));
+			this.segments.add(theSegment);
+		}
+
+		CRC32 theCrc = new CRC32();
+		theCrc.update(aPayload);
+
+		// Write the length last, so that a partial record is not replayed
+		int thePos = theSegment.position;
+		ByteBuffer theBuffer = theSegment.writeBuffer;
+		theBuffer.position(thePos + HEADER_SIZE);
+		theBuffer.put(aPayload);
+		theBuffer.putInt(thePos + 4, (int) theCrc.getValue());
+		theBuffer.put(thePos + 8, aType);
+		theBuffer.putInt(thePos, aPayload.length);
+		theSegment.position += theSize;
+
+		if (this.sync) {
+			theSegment.buffer.force();
+		}
+
+		if (aMessage != null) {
+			aMessage.segment = theSegment;
+			aMessage.offset = thePos + HEADER_SIZE;
+			aMessage.length = aPayload.length;
+			theSegment.live++;
+		}
+	}
+
+	/**
+	 * Deletes the oldest segments that have no messages left, excluding the
+	 * current segment.  The segments are deleted in order, so that the
+	 * acknowledgements of the messages in the older segments are kept.  Must
+	 * be called with the <code>segments</code> lock.
+	 */
+	private void reclaim() {
+		while (this.segments.size() > 1 && this.segments.getFirst().live == 0) {
+			Segment theSegment = this.segments.removeFirst();
+			try {
+				theSegment.channel.close();
+			}
+			catch (IOException ex) {
+				cat.warn("reclaim(): Error closing segment " + theSegment.file + ": " + ex);
+			}
+
+			if (!theSegment.file.delete()) {
+				cat.warn("reclaim(): Unable to delete segment " + theSegment.file);
+			}
+			else if (cat.isDebugEnabled()) {
+				cat.debug("reclaim(): Deleted segment " + theSegment.file);
+			}
+		}
+	}
+
+	/**
+	 * Opens and maps a segment file.
+	 *
+	 * @param aNumber Sequence number of the segment
+	 * @param aSize Size of a new segment file or <code>0</code> to map an
+	 *        existing file
+	 *
+	 * @return Mapped segment
+	 *
+	 * @exception IOException Error opening the segment file
+	 */
+	private Segment openSegment(long aNumber, int aSize) throws IOException {
+		Segment theSegment = new Segment();
+		theSegment.number = aNumber;
+		theSegment.file = new File(this.journalDir, SEGMENT_PREFIX + String.format("%016d", new Long(aNumber))
+				+ SEGMENT_SUFFIX);
+
+		RandomAccessFile theFile = new RandomAccessFile(theSegment.file, "rw");
+		try {
+			if (aSize > 0) {
+				theFile.setLength(aSize);
+			}
+			theSegment.channel = theFile.getChannel();
+			theSegment.buffer = theSegment.channel.map(FileChannel.MapMode.READ_WRITE, 0, theFile.length());
+		}
+		catch (IOException ex) {
+			theFile.close();
+			throw ex;
+		}
+		theSegment.writeBuffer = theSegment.buffer.duplicate();
+
+		return theSegment;
+	}
+
+	/**
+	 * Reads the data of a message from the journal.  Must be called with the
+	 * lock of the message queue, so that the segment is not deleted.
+	 *
+	 * @param aMessage Message to read
+	 *
+	 * @return Deserialized message data
+	 *
+	 * @exception EPPPollQueueException Error reading the data
+	 */
+	private Object readData(Message aMessage) throws EPPPollQueueException {
+		byte[] thePayload = new byte[aMessage.length];
+		ByteBuffer theBuffer = aMessage.segment.buffer.duplicate();
+		theBuffer.position(aMessage.offset);
+		theBuffer.get(thePayload);
+
+		try {
+			DataInputStream theStream = new DataInputStream(new ByteArrayInputStream(thePayload));
+			theStream.readLong(); // msgId
+			theStream.readLong(); // qDate
+			theStream.readUTF(); // recipient
+			theStream.readUTF(); // kind
+			theStream.readInt(); // data length
+
+			return new ObjectInputStream(theStream).readObject();
+		}
+		catch (Exception ex) {
+			cat.error("readData(): Error reading message " + aMessage.msgId + ": " + ex);
+			throw new EPPPollQueueException("Error reading message " + aMessage.msgId + ": " + ex);
+		}
+	}
+
+	/**
+	 * Gets the first message of a recipient queue.
+	 *
+	 * @param aRecipient Recipient key
+	 *
+	 * @return First message or <code>null</code> if the queue is empty
+	 *
+	 * @exception EPPPollQueueException Error reading the message
+	 */
+	private EPPPollDataRecord getFirst(String aRecipient) throws EPPPollQueueException {
+		Queue theQueue = this.queues.get(aRecipient);
+		if (theQueue == null) {
+			return null;
+		}
+
+		synchronized (theQueue) {
+			Iterator<Message> theIter = theQueue.messages.values().iterator();
+			if (!theIter.hasNext()) {
+				return null;
+			}
+			Message theMessage = theIter.next();
+
+			return new EPPPollDataRecord(theMessage.kind, this.readData(theMessage), Long
+					.toString(theMessage.msgId), new Date(theMessage.qDate), theQueue.messages.size());
+		}
+	}
+
+	/**
+	 * Is a message in a recipient queue?
+	 *
+	 * @param aQueue Recipient queue
+	 * @param aMsgId Message identifier
+	 *
+	 * @return <code>true</code> if the message is in the queue;
+	 *         <code>false</code> otherwise.
+	 */
+	private boolean contains(Queue aQueue, String aMsgId) {
+		try {
+			Long theMsgId = Long.valueOf(aMsgId);
+			synchronized (aQueue) {
+				return aQueue.messages.containsKey(theMsgId);
+			}
+		}
+		catch (NumberFormatException ex) {
+			return false;
+		}
+	}
+
+	/**
+	 * Gets the queue of a recipient, which is created if it does not exist.
+	 *
+	 * @param aRecipient Recipient key
+	 *
+	 * @return Recipient queue
+	 */
+	private Queue getQueue(String aRecipient) {
+		Queue theQueue = this.queues.get(aRecipient);
+		if (theQueue == null) {
+			Queue theNewQueue = new Queue();
+			theQueue = this.queues.putIfAbsent(aRecipient, theNewQueue);
+			if (theQueue == null) {
+				theQueue = theNewQueue;
+			}
+		}
+		return theQueue;
+	}
+
+	/**
+	 * Gets the queue key of a recipient.
+	 *
+	 * @param aRecp Recipient or <code>null</code> for the default recipient
+	 *
+	 * @return Recipient key
+	 */
+	private static String getRecipientKey(Object aRecp) {
+		return aRecp == null ? DEFAULT_RECIPIENT : aRecp.toString();
+	}
+
+	/**
+	 * Gets an integer property of the data source.
+	 *
+	 * @param aProperty Property name without the <code>EPP.PollDataSource.</code> prefix
+	 * @param aDefault Default value if the property is not defined
+	 *
+	 * @return Property value
+	 */
+	private static int getIntProperty(String aProperty, int aDefault) {
+		String theValue = Environment.getOption(PROP_PREFIX + "." + aProperty);
+		if (theValue == null || theValue.length() == 0) {
+			return aDefault;
+		}
+
+		try {
+			return Integer.parseInt(theValue);
+		}
+		catch (NumberFormatException ex) {
+			cat.error("getIntProperty(): Invalid " + PROP_PREFIX + "." + aProperty + " value " + theValue
+					+ ", using " + aDefault);
+			return aDefault;
+		}
+	}
+
+}
+
+// End class EPPJournalPollDataSource
@@ -0,0 +1,282 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.framework;
+
+import java.io.File;
+import java.util.Arrays;
+
+import junit.framework.Assert;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import com.verisign.epp.codec.gen.EPPResponse;
+import com.verisign.epp.codec.gen.EPPTransId;
+
+/**
+ * Is a unit test of the <code>EPPJournalPollDataSource</code> class, which
+ * uses a journal in a temporary directory.
+ */
+public class EPPJournalPollDataSourceTst extends TestCase {
+
+	/** Journal directory of the test */
+	private File journalDir;
+
+	/**
+	 * Allocates an <code>EPPJournalPollDataSourceTst</code> with a logical
+	 * name.
+	 *
+	 * @param name Logical name of the test
+	 */
+	public EPPJournalPollDataSourceTst(String name) {
+		super(name);
+	}
+
+	/**
+	 * Test the recipient queues, where the messages are returned in order per
+	 * recipient and acknowledged by message identifier, and the messages of
+	 * the default recipient are returned once a recipient queue is empty.
+	 */
+	public void testQueues() throws Exception {
+		EPPJournalPollDataSource theSource = new EPPJournalPollDataSource(this.journalDir, 4096, false);
+
+		theSource.put("ClientA", "kind", this.createMessage("A1"), null);
+		theSource.put("ClientB", "kind", this.createMessage("B1"), null);
+		theSource.put("ClientA", "kind", this.createMessage("A2"), null);
+		theSource.put(null, "kind", this.createMessage("D1"), null);
+
+		EPPPollDataRecord theRecord = theSource.get("ClientA", null);
+		Assert.assertEquals("A1", this.getClientTransId(theRecord));
+		Assert.assertEquals(2, theRecord.getSize());
+		Assert.assertEquals("kind", theRecord.getKind());
+		String theFirstA = theRecord.getMsgId();
+
+		Assert.assertEquals("B1", this.getClientTransId(theSource.get("ClientB", null)));
+		Assert.assertEquals("D1", this.getClientTransId(theSource.get(null, null)));
+
+		// Message of another recipient
+		try {
+			theSource.delete("ClientB", theFirstA, null);
+			Assert.fail("Message of another recipient deleted");
+		}
+		catch (EPPPollQueueException ex) {
+			Assert.assertEquals(EPPPollQueueException.TYPE_MSGID_NOT_FOUND, ex.getType());
+		}
+
+		Assert.assertEquals(1, theSource.delete("ClientA", theFirstA, null));
+		Assert.assertEquals("A2", this.getClientTransId(theSource.get("ClientA", null)));
+		Assert.assertEquals(1, theSource.get("ClientA", null).getSize());
+
+		// Acknowledge again
+		try {
+			theSource.delete("ClientA", theFirstA, null);
+			Assert.fail("Message deleted twice");
+		}
+		catch (EPPPollQueueException ex) {
+			Assert.assertEquals(EPPPollQueueException.TYPE_MSGID_NOT_FOUND, ex.getType());
+		}
+
+		Assert.assertEquals(0, theSource.delete("ClientA", theSource.get("ClientA", null).getMsgId(), null));
+
+		// Message of the default recipient once the recipient queue is empty
+		theRecord = theSource.get("ClientA", null);
+		Assert.assertEquals("D1", this.getClientTransId(theRecord));
+		Assert.assertEquals(0, theSource.delete("ClientA", theRecord.getMsgId(), null));
+		Assert.assertEquals(0, theSource.size(null));
+		try {
+			theSource.get("ClientA", null);
+			Assert.fail("Message returned from empty queue");
+		}
+		catch (EPPPollQueueException ex) {
+			Assert.assertEquals(EPPPollQueueException.TYPE_QUEUE_EMPTY, ex.getType());
+		}
+
+		theSource.close();
+	}
+
+	/**
+	 * Test restoring the messages that were not acknowledged from the journal.
+	 */
+	public void testRestart() throws Exception {
+		EPPJournalPollDataSource theSource = new EPPJournalPollDataSource(this.journalDir, 4096, false);
+
+		for (int i = 0; i < 10; i++) {
+			theSource.put("ClientA", "kind", this.createMessage("A" + i), null);
+		}
+		for (int i = 0; i < 4; i++) {
+			theSource.delete("ClientA", theSource.get("ClientA", null).getMsgId(), null);
+		}
+		String theLastMsgId = theSource.get("ClientA", null).getMsgId();
+		theSource.close();
+
+		theSource = new EPPJournalPollDataSource(this.journalDir, 4096, false);
+		Assert.assertEquals(6, theSource.size("ClientA"));
+		EPPPollDataRecord theRecord = theSource.get("ClientA", null);
+		Assert.assertEquals("A4", this.getClientTransId(theRecord));
+		Assert.assertEquals(theLastMsgId, theRecord.getMsgId());
+
+		// New message identifiers continue after the restored ones
+		theSource.put("ClientA", "kind", this.createMessage("A10"), null);
+		for (int i = 4; i <= 10; i++) {
+			theRecord = theSource.get("ClientA", null);
+			Assert.assertEquals("A" + i, this.getClientTransId(theRecord));
+			theSource.delete("ClientA", theRecord.getMsgId(), null);
+		}
+		Assert.assertEquals(0, theSource.size("ClientA"));
+		theSource.close();
+
+		theSource = new EPPJournalPollDataSource(this.journalDir, 4096, false);
+		Assert.assertEquals(0, theSource.size("ClientA"));
+		theSource.close();
+	}
+
+	/**
+	 * Test starting new segments when a segment is full and deleting the
+	 * segments once all of their messages are acknowledged.
+	 */
+	public void testSegments() throws Exception {
+		EPPJournalPollDataSource theSource = new EPPJournalPollDataSource(this.journalDir, 4096, false);
+
+		for (int i = 0; i < 100; i++) {
+			theSource.put("ClientA", "kind", this.createMessage("A" + i), null);
+		}
+		int theSegments = theSource.getSegmentCount();
+		Assert.assertTrue("No new segments started", theSegments > 1);
+
+		for (int i = 0; i < 50; i++) {
+			theSource.delete("ClientA", theSource.get("ClientA", null).getMsgId(), null);
+		}
+		Assert.assertTrue("No segments deleted", theSource.getSegmentCount() < theSegments);
+		theSource.close();
+
+		theSource = new EPPJournalPollDataSource(this.journalDir, 4096, false);
+		Assert.assertEquals(50, theSource.size("ClientA"));
+		while (theSource.size("ClientA") > 0) {
+			theSource.delete("ClientA", theSource.get("ClientA", null).getMsgId(), null);
+		}
+		Assert.assertEquals(1, theSource.getSegmentCount());
+		theSource.close();
+	}
+
+	/**
+	 * Test restoring the last message identifier when the only segment left
+	 * holds acknowledgements, so that the message identifiers are not reused
+	 * after a restart.
+	 */
+	public void testAckOnlySegment() throws Exception {
+		EPPJournalPollDataSource theSource = new EPPJournalPollDataSource(this.journalDir, 4096, false);
+
+		// The acks of the messages fill the last segment of the puts
+		for (int i = 0; i < 150; i++) {
+			theSource.put("ClientA", "kind", this.createMessage("A" + i), null);
+		}
+		String thePutSegment = this.getLastSegment();
+		String theLastMsgId = null;
+		while (theSource.size("ClientA") > 0) {
+			theLastMsgId = theSource.get("ClientA", null).getMsgId();
+			theSource.delete("ClientA", theLastMsgId, null);
+		}
+		Assert.assertEquals(1, theSource.getSegmentCount());
+		Assert.assertTrue("No segment started by an ack", this.getLastSegment().compareTo(thePutSegment) > 0);
+		theSource.close();
+
+		theSource = new EPPJournalPollDataSource(this.journalDir, 4096, false);
+		theSource.put("ClientA", "kind", this.createMessage("A"), null);
+		long theMsgId = Long.parseLong(theSource.get("ClientA", null).getMsgId());
+		Assert.assertTrue("Message identifier " + theMsgId + " reused", theMsgId > Long.parseLong(theLastMsgId));
+		theSource.close();
+	}
+
+	/**
+	 * Gets the file name of the last journal segment.
+	 *
+	 * @return Segment file name
+	 */
+	private String getLastSegment() {
+		String[] theNames = this.journalDir.list();
+		Arrays.sort(theNames);
+		return theNames[theNames.length - 1];
+	}
+
+	/**
+	 * Creates a poll message with a client transaction identifier.
+	 *
+	 * @param aClientTransId Client transaction identifier of the message
+	 *
+	 * @return Poll message
+	 */
+	private EPPResponse createMessage(String aClientTransId) {
+		return new EPPResponse(new EPPTransId(aClientTransId, "54321-XYZ"));
+	}
+
+	/**
+	 * Gets the client transaction identifier of a poll message.
+	 *
+	 * @param aRecord Poll message record
+	 *
+	 * @return Client transaction identifier
+	 */
+	private String getClientTransId(EPPPollDataRecord aRecord) {
+		return ((EPPResponse) aRecord.getData()).getTransId().getClientTransId();
+	}
+
+	/**
+	 * JUNIT <code>setUp</code> method, which creates the journal directory.
+	 */
+	protected void setUp() {
+		this.journalDir = new File(System.getProperty("java.io.tmpdir"), "EPPJournalPollDataSourceTst-"
+				+ System.nanoTime());
+	}
+
+	/**
+	 * JUNIT <code>tearDown</code>, which deletes the journal directory.
+	 */
+	protected void tearDown() {
+		File[] theFiles = this.journalDir.listFiles();
+		if (theFiles != null) {
+			for (int i = 0; i < theFiles.length; i++) {
+				theFiles[i].delete();
+			}
+		}
+		this.journalDir.delete();
+	}
+
+	/**
+	 * JUNIT <code>suite</code> static method, which returns the tests
+	 * associated with <code>EPPJournalPollDataSourceTst</code>.
+	 *
+	 * @return Tests to run
+	 */
+	public static Test suite() {
+		return new TestSuite(EPPJournalPollDataSourceTst.class);
+	}
+
+	/**
+	 * Unit test main, which runs the tests.
+	 *
+	 * @param args Not used
+	 */
+	public static void main(String[] args) {
+		junit.textui.TestRunner.run(EPPJournalPollDataSourceTst.suite());
+	}
+
+}
+
+// End class EPPJournalPollDataSourceTst
@@ -28,9 +28,6 @@ import java.io.OutputStream;
 import org.apache.log4j.Logger;
 import org.w3c.dom.Document;
 
-import com.codestudio.util.GenericPool;
-import com.codestudio.util.GenericPoolManager;
-import com.codestudio.util.GenericPoolMetaData;
 import com.verisign.epp.codec.gen.EPPCodec;
 import com.verisign.epp.codec.gen.EPPComponentNotFoundException;
 import com.verisign.epp.codec.gen.EPPDecodeException;
@@ -40,6 +37,8 @@ import com.verisign.epp.exception.EPPException;
 import com.verisign.epp.serverstub.SessionData;
 import com.verisign.epp.util.EPPCatFactory;
 import com.verisign.epp.util.EPPEnv;
+import com.verisign.epp.util.EPPObjectPool;
+import com.verisign.epp.util.EPPPacketBuffer;
 import com.verisign.epp.util.EPPSchemaCachingParser;
 import com.verisign.epp.util.EPPTransformer;
 import com.verisign.epp.util.EPPXMLStream;
@@ -107,9 +106,7 @@ public class EPPXMLAssembler implements EPPAssembler {
 			Document domDocument = codec.encode(response);
 
 			/** Now, serialize the DOM Document through the output stream */
-			EPPXMLStream xmlStream = new EPPXMLStream(
-					EPPSchemaCachingParser.POOL,
-					EPPTransformer.POOL);
+			EPPXMLStream xmlStream = getXMLStream(aData);
 			xmlStream.write(domDocument, aOutputStream);
 		}
 		catch (EPPEncodeException e) {
@@ -152,23 +149,23 @@ public class EPPXMLAssembler implements EPPAssembler {
 		 * First, take an XML input stream and convert it to a DOM Document
 		 */
 		try {
-			/** Declare an instance of the EPPXMLStream class */
-			EPPXMLStream xmlStream = new EPPXMLStream(
-					EPPSchemaCachingParser.POOL,
-					EPPTransformer.POOL);
+			/** Get the EPPXMLStream of the session */
+			EPPXMLStream xmlStream = getXMLStream(aData);
 
 			/**
 			 * Take the DOM Document and convert it to an EPPMessage using the
-			 * EPPCodec
+			 * EPPCodec.  The packet is parsed directly from the read buffer of
+			 * the EPPXMLStream.
 			 */
-			byte[] thePacket = xmlStream.readPacket(aStream);
+			EPPPacketBuffer thePacket = xmlStream.readPacketBuffer(aStream);
 			Document domDocument = xmlStream.decodePacket(thePacket);
 			message = codec.decode(domDocument);
 			
-			// Store the original XML packet in the session data for future use.
+			// Store a copy of the original XML packet in the session data for 
+			// future use, since the read buffer is reused for the next packet.
 			if ((aData != null) && (aData instanceof SessionData)) {
 				SessionData sessionData = (SessionData) aData;
-				sessionData.setAttribute("PACKET", thePacket);
+				sessionData.setAttribute("PACKET", thePacket.toPacketArray());
 			}
 		}
 		catch (EPPComponentNotFoundException e) {
@@ -218,70 +215,87 @@ public class EPPXMLAssembler implements EPPAssembler {
 	}
 
 	/**
-	 * Initialize the XML parser pool, with the name EPPXMLParser.POOL and with
-	 * the "com.verisign.epp.util.EPPXMLParser" as the object type. The
-	 * remaining configuration settings are retrieved from the
-	 * EPPEnv.getServerParser methods. If there is any error initializing the
-	 * pool, and error diagnostic is logged, and the program with stop with a
-	 * call to <code>System.exit(1)</code>, since this represents a fatal
-	 * error. The <code>EPPEnv</code> settings referenced include:<br>
+	 * Gets the <code>EPPXMLStream</code> to use for the session, which is
+	 * created on the first use and kept in the <code>SessionData</code>, so
+	 * that the packet buffers are reused for the life of the connection.  A
+	 * new <code>EPPXMLStream</code> is created when <code>aData</code> is
+	 * not a <code>SessionData</code>.
+	 * 
+	 * @param aData
+	 *            Session data passed to the assembler
+	 * 
+	 * @return <code>EPPXMLStream</code> to use
+	 */
+	private EPPXMLStream getXMLStream(Object aData) {
+		if (aData instanceof SessionData) {
+			SessionData sessionData = (SessionData) aData;
+
+			if (sessionData.getXMLStream() == null) {
+				sessionData.setXMLStream(new EPPXMLStream(
+						EPPSchemaCachingParser.POOL, EPPTransformer.POOL));
+			}
+
+			return sessionData.getXMLStream();
+		}
+		else {
+			return new EPPXMLStream(EPPSchemaCachingParser.POOL,
+					EPPTransformer.POOL);
+		}
+	}
+
+	/**
+	 * Initialize the XML parser pool, with the name
+	 * <code>EPPSchemaCachingParser.POOL</code> and with the
+	 * "com.verisign.epp.util.EPPSchemaCachingParser" as the object type, and
+	 * the XML transformer pool, with the name <code>EPPTransformer.POOL</code>
+	 * and with the "com.verisign.epp.util.EPPTransformer" as the object type.
+	 * Both pools are <code>EPPObjectPool</code> instances, which keep a
+	 * parser and a transformer per thread and do not lock on checkout.  The
+	 * configuration settings are retrieved from the EPPEnv.getServerParser
+	 * methods.  If there is any error initializing the pools, an error
+	 * diagnostic is logged, and the program will stop with a call to
+	 * <code>System.exit(1)</code>, since this represents a fatal error.  The
+	 * <code>EPPEnv</code> settings referenced include:<br>
 	 * <br>
 	 * 
 	 * <ul>
-	 * <li> getServerParserInitObjs() </li>
-	 * <li> getServerParserMinSize </li>
-	 * <li> getServerParserMaxSize() </li>
-	 * <li> getServerParserMaxSoft() </li>
-	 * <li> getServerParserObjTimeout() </li>
-	 * <li> getServerParserUserTimeout() </li>
-	 * <li> getServerParserSkimmerFreq() </li>
-	 * <li> getServerParserShrinkBy() </li>
-	 * <li> getServerParserLogFile() </li>
-	 * <li> getServerParserDebug() </li>
+	 * <li> getServerParserInitObjs() - Initial objects of each pool</li>
+	 * <li> getServerParserMinSize() - Minimum idle objects kept by the idle
+	 * trimming</li>
+	 * <li> getServerParserMaxSize() - Maximum idle objects shared by the
+	 * threads</li>
+	 * <li> getServerParserObjTimeout() - Idle time in seconds before an idle
+	 * object is trimmed</li>
 	 * </ul>
+	 * 
+	 * The other PoolMan settings are not used by <code>EPPObjectPool</code>.
 	 */
 	private void initParserPool() {
 		// Pool does not exist?
 		if (!_parserInitialized) {
-			// Create parser pool
-			GenericPoolMetaData parserMeta = new GenericPoolMetaData();
-
-			parserMeta.setName( EPPSchemaCachingParser.POOL );
-			parserMeta.setObjectType( "com.verisign.epp.util.EPPSchemaCachingParser" );
-			parserMeta.setInitialObjects( EPPEnv.getServerParserInitObjs() );
-			parserMeta.setMinimumSize( EPPEnv.getServerParserMinSize() );
-			parserMeta.setMaximumSize( EPPEnv.getServerParserMaxSize() );
-			parserMeta.setMaximumSoft( EPPEnv.getServerParserMaxSoft() );
-			parserMeta.setObjectTimeout( EPPEnv.getServerParserObjTimeout() );
-			parserMeta.setUserTimeout( EPPEnv.getServerParserUserTimeout() );
-			parserMeta.setSkimmerFrequency( EPPEnv.getServerParserSkimmerFreq() );
-			parserMeta.setShrinkBy( EPPEnv.getServerParserShrinkBy() );
-			parserMeta.setLogFile( EPPEnv.getServerParserLogFile() );
-			parserMeta.setDebugging( EPPEnv.getServerParserDebug() );
+			try {
+				// Create parser pool
+				EPPObjectPool.addPool(new EPPObjectPool<EPPSchemaCachingParser>(
+						EPPSchemaCachingParser.POOL,
+						"com.verisign.epp.util.EPPSchemaCachingParser",
+						EPPEnv.getServerParserInitObjs(),
+						EPPEnv.getServerParserMinSize(),
+						EPPEnv.getServerParserMaxSize(),
+						EPPEnv.getServerParserObjTimeout() * 1000L));
 
-			GenericPool parserPool = new GenericPool( parserMeta );
-			GenericPoolManager.getInstance().addPool( EPPSchemaCachingParser.POOL,
-					parserPool );
-			
-			// Create transformer pool
-			GenericPoolMetaData transformerMeta = new GenericPoolMetaData();
-
-			transformerMeta.setName( EPPTransformer.POOL );
-			transformerMeta.setObjectType( "com.verisign.epp.util.EPPTransformer" );
-			transformerMeta.setInitialObjects( EPPEnv.getServerParserInitObjs() );
-			transformerMeta.setMinimumSize( EPPEnv.getServerParserMinSize() );
-			transformerMeta.setMaximumSize( EPPEnv.getServerParserMaxSize() );
-			transformerMeta.setMaximumSoft( EPPEnv.getServerParserMaxSoft() );
-			transformerMeta.setObjectTimeout( EPPEnv.getServerParserObjTimeout() );
-			transformerMeta.setUserTimeout( EPPEnv.getServerParserUserTimeout() );
-			transformerMeta.setSkimmerFrequency( EPPEnv.getServerParserSkimmerFreq() );
-			transformerMeta.setShrinkBy( EPPEnv.getServerParserShrinkBy() );
-			transformerMeta.setLogFile( EPPEnv.getServerParserLogFile() );
-			transformerMeta.setDebugging( EPPEnv.getServerParserDebug() );
-
-			GenericPool transformerPool = new GenericPool( transformerMeta );
-			GenericPoolManager.getInstance().addPool( EPPTransformer.POOL,
-					transformerPool );
+				// Create transformer pool
+				EPPObjectPool.addPool(new EPPObjectPool<EPPTransformer>(
+						EPPTransformer.POOL,
+						"com.verisign.epp.util.EPPTransformer",
+						EPPEnv.getServerParserInitObjs(),
+						EPPEnv.getServerParserMinSize(),
+						EPPEnv.getServerParserMaxSize(),
+						EPPEnv.getServerParserObjTimeout() * 1000L));
+			}
+			catch (EPPException ex) {
+				cat.fatal("initParserPool(): Error initializing the pools: " + ex);
+				System.exit(1);
+			}
 
 			_parserInitialized = true;
 		}
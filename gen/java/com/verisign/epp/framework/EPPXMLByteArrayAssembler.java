@@ -26,9 +26,6 @@ import java.io.InterruptedIOException;
 import org.apache.log4j.Logger;
 import org.w3c.dom.Document;
 
-import com.codestudio.util.GenericPool;
-import com.codestudio.util.GenericPoolManager;
-import com.codestudio.util.GenericPoolMetaData;
 import com.verisign.epp.codec.gen.EPPCodec;
 import com.verisign.epp.codec.gen.EPPComponentNotFoundException;
 import com.verisign.epp.codec.gen.EPPDecodeException;
@@ -37,6 +34,7 @@ import com.verisign.epp.codec.gen.EPPMessage;
 import com.verisign.epp.exception.EPPException;
 import com.verisign.epp.util.EPPCatFactory;
 import com.verisign.epp.util.EPPEnv;
+import com.verisign.epp.util.EPPObjectPool;
 import com.verisign.epp.util.EPPSchemaCachingParser;
 import com.verisign.epp.util.EPPTransformer;
 import com.verisign.epp.util.EPPXMLByteArray;
@@ -96,76 +94,58 @@ public class EPPXMLByteArrayAssembler implements EPPByteArrayAssembler {
 	}
 
 	/**
-	 * Initialize the XML parser pool, with the name EPPXMLParser.POOL and with
-	 * the "com.verisign.epp.util.EPPXMLParser" as the object type. The
-	 * remaining configuration settings are retrieved from the
-	 * EPPEnv.getServerParser methods. If there is any error initializing the
-	 * pool, and error diagnostic is logged, and the program with stop with a
-	 * call to <code>System.exit(1)</code>, since this represents a fatal error.
-	 * The <code>EPPEnv</code> settings referenced include:<br>
+	 * Initialize the XML parser pool, with the name
+	 * <code>EPPSchemaCachingParser.POOL</code> and with the
+	 * "com.verisign.epp.util.EPPSchemaCachingParser" as the object type, and
+	 * the XML transformer pool, with the name <code>EPPTransformer.POOL</code>
+	 * and with the "com.verisign.epp.util.EPPTransformer" as the object type.
+	 * Both pools are <code>EPPObjectPool</code> instances, which keep a
+	 * parser and a transformer per thread and do not lock on checkout.  The
+	 * configuration settings are retrieved from the EPPEnv.getServerParser
+	 * methods.  If there is any error initializing the pools, an error
+	 * diagnostic is logged, and the program will stop with a call to
+	 * <code>System.exit(1)</code>, since this represents a fatal error.  The
+	 * <code>EPPEnv</code> settings referenced include:<br>
 	 * <br>
+	 * 
 	 * <ul>
-	 * <li>getServerParserInitObjs()</li>
-	 * <li>getServerParserMinSize</li>
-	 * <li>getServerParserMaxSize()</li>
-	 * <li>getServerParserMaxSoft()</li>
-	 * <li>getServerParserObjTimeout()</li>
-	 * <li>getServerParserUserTimeout()</li>
-	 * <li>getServerParserSkimmerFreq()</li>
-	 * <li>getServerParserShrinkBy()</li>
-	 * <li>getServerParserLogFile()</li>
-	 * <li>getServerParserDebug()</li>
+	 * <li> getServerParserInitObjs() - Initial objects of each pool</li>
+	 * <li> getServerParserMinSize() - Minimum idle objects kept by the idle
+	 * trimming</li>
+	 * <li> getServerParserMaxSize() - Maximum idle objects shared by the
+	 * threads</li>
+	 * <li> getServerParserObjTimeout() - Idle time in seconds before an idle
+	 * object is trimmed</li>
 	 * </ul>
+	 * 
+	 * The other PoolMan settings are not used by <code>EPPObjectPool</code>.
 	 */
 	private void initParserPool() {
 		// Pool does not exist?
 		if (!_parserInitialized) {
-			LOG.debug("EPPXMLByteArray.initParserPool(): Creating parser pool");
-			
-			// Create parser pool
-			GenericPoolMetaData parserMeta = new GenericPoolMetaData();
-
-			parserMeta.setName(EPPSchemaCachingParser.POOL);
-			parserMeta
-					.setObjectType("com.verisign.epp.util.EPPSchemaCachingParser");
-			parserMeta.setInitialObjects(EPPEnv.getServerParserInitObjs());
-			parserMeta.setMinimumSize(EPPEnv.getServerParserMinSize());
-			parserMeta.setMaximumSize(EPPEnv.getServerParserMaxSize());
-			parserMeta.setMaximumSoft(EPPEnv.getServerParserMaxSoft());
-			parserMeta.setObjectTimeout(EPPEnv.getServerParserObjTimeout());
-			parserMeta.setUserTimeout(EPPEnv.getServerParserUserTimeout());
-			parserMeta.setSkimmerFrequency(EPPEnv.getServerParserSkimmerFreq());
-			parserMeta.setShrinkBy(EPPEnv.getServerParserShrinkBy());
-			parserMeta.setLogFile(EPPEnv.getServerParserLogFile());
-			parserMeta.setDebugging(EPPEnv.getServerParserDebug());
-
-			GenericPool parserPool = new GenericPool(parserMeta);
-			GenericPoolManager.getInstance().addPool(
-					EPPSchemaCachingParser.POOL, parserPool);
-
-			// Create transformer pool
-			LOG.debug("EPPXMLByteArray.initParserPool(): Creating transformer pool");
-			GenericPoolMetaData transformerMeta = new GenericPoolMetaData();
-
-			transformerMeta.setName(EPPTransformer.POOL);
-			transformerMeta
-					.setObjectType("com.verisign.epp.util.EPPTransformer");
-			transformerMeta.setInitialObjects(EPPEnv.getServerParserInitObjs());
-			transformerMeta.setMinimumSize(EPPEnv.getServerParserMinSize());
-			transformerMeta.setMaximumSize(EPPEnv.getServerParserMaxSize());
-			transformerMeta.setMaximumSoft(EPPEnv.getServerParserMaxSoft());
-			transformerMeta
-					.setObjectTimeout(EPPEnv.getServerParserObjTimeout());
-			transformerMeta.setUserTimeout(EPPEnv.getServerParserUserTimeout());
-			transformerMeta.setSkimmerFrequency(EPPEnv
-					.getServerParserSkimmerFreq());
-			transformerMeta.setShrinkBy(EPPEnv.getServerParserShrinkBy());
-			transformerMeta.setLogFile(EPPEnv.getServerParserLogFile());
-			transformerMeta.setDebugging(EPPEnv.getServerParserDebug());
-
-			GenericPool transformerPool = new GenericPool(transformerMeta);
-			GenericPoolManager.getInstance().addPool(EPPTransformer.POOL,
-					transformerPool);
+			try {
+				// Create parser pool
+				EPPObjectPool.addPool(new EPPObjectPool<EPPSchemaCachingParser>(
+						EPPSchemaCachingParser.POOL,
+						"com.verisign.epp.util.EPPSchemaCachingParser",
+						EPPEnv.getServerParserInitObjs(),
+						EPPEnv.getServerParserMinSize(),
+						EPPEnv.getServerParserMaxSize(),
+						EPPEnv.getServerParserObjTimeout() * 1000L));
+
+				// Create transformer pool
+				EPPObjectPool.addPool(new EPPObjectPool<EPPTransformer>(
+						EPPTransformer.POOL,
+						"com.verisign.epp.util.EPPTransformer",
+						EPPEnv.getServerParserInitObjs(),
+						EPPEnv.getServerParserMinSize(),
+						EPPEnv.getServerParserMaxSize(),
+						EPPEnv.getServerParserObjTimeout() * 1000L));
+			}
+			catch (EPPException ex) {
+				LOG.fatal("initParserPool(): Error initializing the pools: " + ex);
+				System.exit(1);
+			}
 
 			_parserInitialized = true;
 		}
@@ -283,7 +263,9 @@ public class EPPXMLByteArrayAssembler implements EPPByteArrayAssembler {
 		}
 
 		// add the header bytes
-		LOG.debug("EPP Packet Header = " + (responseBytes.length + 4));
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("EPP Packet Header = " + (responseBytes.length + 4));
+		}
 		byte[] eppPacketHeader = toBytes(responseBytes.length + 4);
 		byte[] eppPacket = new byte[responseBytes.length + 4];
 		System.arraycopy(eppPacketHeader, 0, eppPacket, 0, 4);
@@ -31,14 +31,14 @@ import org.apache.log4j.Logger;
 import org.apache.log4j.PatternLayout;
 import org.apache.log4j.xml.DOMConfigurator;
 
-import com.codestudio.util.GenericPool;
-import com.codestudio.util.GenericPoolManager;
-import com.codestudio.util.GenericPoolMetaData;
 import com.verisign.epp.codec.gen.EPPCodec;
 import com.verisign.epp.codec.gen.EPPCodecException;
+import com.verisign.epp.exception.EPPException;
+import com.verisign.epp.metrics.EPPMetricsFactory;
 import com.verisign.epp.util.EPPEnv;
 import com.verisign.epp.util.EPPEnvException;
 import com.verisign.epp.util.EPPEnvSingle;
+import com.verisign.epp.util.EPPObjectPool;
 import com.verisign.epp.util.EPPSchemaCachingParser;
 import com.verisign.epp.util.EPPTransformer;
 
@@ -231,95 +231,68 @@ public class EPPApplication {
 										  + e);
 		}
 		 
+		// Initialize the metrics with the configured implementation
+		EPPMetricsFactory.getInstance().init();
+		 
 		// Initialize the Parser Pool
 		initParserPool();
 		 
 	}
 
 	/**
-	 * Initialize the XML parser pool, with the name EPPXMLParser.POOL and with
-	 * the "com.verisign.epp.util.EPPXMLParser" as the object type. The
-	 * remaining configuration settings are retrieved from the
-	 * EPPEnv.getClientParser methods.  If there is any error initializing the
-	 * pool, and error diagnostic is logged, and the program with stop with a
-	 * call to <code>System.exit(1)</code>, since this represents a fatal
-	 * error.  The <code>EPPEnv</code> settings referenced include:<br><br>
-	 *
+	 * Initialize the XML parser pool, with the name
+	 * <code>EPPSchemaCachingParser.POOL</code> and with the
+	 * "com.verisign.epp.util.EPPSchemaCachingParser" as the object type, and
+	 * the XML transformer pool, with the name <code>EPPTransformer.POOL</code>
+	 * and with the "com.verisign.epp.util.EPPTransformer" as the object type.
+	 * Both pools are <code>EPPObjectPool</code> instances, which keep a
+	 * parser and a transformer per thread and do not lock on checkout.  The
+	 * configuration settings are retrieved from the EPPEnv.getClientParser
+	 * methods.  If there is any error initializing the pools, an
+	 * <code>EPPCommandException</code> is thrown.  The <code>EPPEnv</code>
+	 * settings referenced include:<br>
+	 * <br>
+	 * 
 	 * <ul>
-	 * <li>
-	 * getClientParserInitObjs()
-	 * </li>
-	 * <li>
-	 * getClientParserMinSize
-	 * </li>
-	 * <li>
-	 * getClientParserMaxSize()
-	 * </li>
-	 * <li>
-	 * getClientParserMaxSoft()
-	 * </li>
-	 * <li>
-	 * getClientParserObjTimeout()
-	 * </li>
-	 * <li>
-	 * getClientParserUserTimeout()
-	 * </li>
-	 * <li>
-	 * getClientParserSkimmerFreq()
-	 * </li>
-	 * <li>
-	 * getClientParserShrinkBy()
-	 * </li>
-	 * <li>
-	 * getClientParserLogFile()
-	 * </li>
-	 * <li>
-	 * getClientParserDebug()
-	 * </li>
+	 * <li> getClientParserInitObjs() - Initial objects of each pool</li>
+	 * <li> getClientParserMinSize() - Minimum idle objects kept by the idle
+	 * trimming</li>
+	 * <li> getClientParserMaxSize() - Maximum idle objects shared by the
+	 * threads</li>
+	 * <li> getClientParserObjTimeout() - Idle time in seconds before an idle
+	 * object is trimmed</li>
 	 * </ul>
+	 * 
+	 * The other PoolMan settings are not used by <code>EPPObjectPool</code>.
+	 *
+	 * @exception EPPCommandException Error initializing the pools
 	 */
-	private void initParserPool() {
+	private void initParserPool() throws EPPCommandException {
 		// Pool does not exist?
 		if (!_parserInitialized) {
-			// Create parser pool
-			GenericPoolMetaData parserMeta = new GenericPoolMetaData();
-
-			parserMeta.setName( EPPSchemaCachingParser.POOL );
-			parserMeta.setObjectType( "com.verisign.epp.util.EPPSchemaCachingParser" );
-			parserMeta.setInitialObjects( EPPEnv.getClientParserInitObjs() );
-			parserMeta.setMinimumSize( EPPEnv.getClientParserMinSize() );
-			parserMeta.setMaximumSize( EPPEnv.getClientParserMaxSize() );
-			parserMeta.setMaximumSoft( EPPEnv.getClientParserMaxSoft() );
-			parserMeta.setObjectTimeout( EPPEnv.getClientParserObjTimeout() );
-			parserMeta.setUserTimeout( EPPEnv.getClientParserUserTimeout() );
-			parserMeta.setSkimmerFrequency( EPPEnv.getClientParserSkimmerFreq() );
-			parserMeta.setShrinkBy( EPPEnv.getClientParserShrinkBy() );
-			parserMeta.setLogFile( EPPEnv.getClientParserLogFile() );
-			parserMeta.setDebugging( EPPEnv.getClientParserDebug() );
-
-			GenericPool parserPool = new GenericPool( parserMeta );
-			GenericPoolManager.getInstance().addPool( EPPSchemaCachingParser.POOL,
-					parserPool );
-			
-			// Create transformer pool
-			GenericPoolMetaData transformerMeta = new GenericPoolMetaData();
-
-			transformerMeta.setName( EPPTransformer.POOL );
-			transformerMeta.setObjectType( "com.verisign.epp.util.EPPTransformer" );
-			transformerMeta.setInitialObjects( EPPEnv.getClientParserInitObjs() );
-			transformerMeta.setMinimumSize( EPPEnv.getClientParserMinSize() );
-			transformerMeta.setMaximumSize( EPPEnv.getClientParserMaxSize() );
-			transformerMeta.setMaximumSoft( EPPEnv.getClientParserMaxSoft() );
-			transformerMeta.setObjectTimeout( EPPEnv.getClientParserObjTimeout() );
-			transformerMeta.setUserTimeout( EPPEnv.getClientParserUserTimeout() );
-			transformerMeta.setSkimmerFrequency( EPPEnv.getClientParserSkimmerFreq() );
-			transformerMeta.setShrinkBy( EPPEnv.getClientParserShrinkBy() );
-			transformerMeta.setLogFile( EPPEnv.getClientParserLogFile() );
-			transformerMeta.setDebugging( EPPEnv.getClientParserDebug() );
-
-			GenericPool transformerPool = new GenericPool( transformerMeta );
-			GenericPoolManager.getInstance().addPool( EPPTransformer.POOL,
-					transformerPool );
+			try {
+				// Create parser pool
+				EPPObjectPool.addPool(new EPPObjectPool<EPPSchemaCachingParser>(
+						EPPSchemaCachingParser.POOL,
+						"com.verisign.epp.util.EPPSchemaCachingParser",
+						EPPEnv.getClientParserInitObjs(),
+						EPPEnv.getClientParserMinSize(),
+						EPPEnv.getClientParserMaxSize(),
+						EPPEnv.getClientParserObjTimeout() * 1000L));
+
+				// Create transformer pool
+				EPPObjectPool.addPool(new EPPObjectPool<EPPTransformer>(
+						EPPTransformer.POOL,
+						"com.verisign.epp.util.EPPTransformer",
+						EPPEnv.getClientParserInitObjs(),
+						EPPEnv.getClientParserMinSize(),
+						EPPEnv.getClientParserMaxSize(),
+						EPPEnv.getClientParserObjTimeout() * 1000L));
+			}
+			catch (EPPException ex) {
+				throw new EPPCommandException("EPPApplication.initParserPool(): Error initializing the pools: "
+											  + ex.getMessage());
+			}
 
 			_parserInitialized = true;
 		}
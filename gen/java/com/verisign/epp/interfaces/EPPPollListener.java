@@ -0,0 +1,58 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.interfaces;
+
+import com.verisign.epp.codec.gen.EPPResponse;
+
+/**
+ * Consumer of the poll messages drained by
+ * {@link EPPSession#drainPoll(EPPPollListener, int)}.  The listener is
+ * called on the thread that drains the poll queue, so the queue is drained
+ * no faster than the listener handles the messages.
+ */
+public interface EPPPollListener {
+
+	/**
+	 * Handles a poll message before it is acknowledged.
+	 *
+	 * @param aMessage Poll message response, including the
+	 *        <code>EPPMsgQueue</code> with the message identifier
+	 *
+	 * @return <code>true</code> to acknowledge the message and continue
+	 *         draining; <code>false</code> to stop draining without
+	 *         acknowledging the message.
+	 *
+	 * @exception EPPCommandException Error handling the message, which stops
+	 *            draining without acknowledging the message
+	 */
+	boolean handleMessage(EPPResponse aMessage) throws EPPCommandException;
+
+	/**
+	 * Called once the server has confirmed the acknowledgement of a message,
+	 * so that the message identifier can be recorded as a checkpoint.  The
+	 * messages are acknowledged in the order that they were handled.
+	 *
+	 * @param aMsgID Identifier of the acknowledged message
+	 */
+	void acknowledged(String aMsgID);
+
+}
+
+// End interface EPPPollListener
@@ -25,6 +25,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.apache.log4j.Logger;
 import org.w3c.dom.Document;
@@ -41,12 +47,19 @@ import com.verisign.epp.codec.gen.EPPLogoutCmd;
 import com.verisign.epp.codec.gen.EPPPollCmd;
 import com.verisign.epp.codec.gen.EPPResponse;
 import com.verisign.epp.codec.gen.EPPService;
+import com.verisign.epp.codec.gen.EPPStreamUtil;
+import com.verisign.epp.codec.gen.EPPXMLWriter;
 import com.verisign.epp.exception.EPPException;
+import com.verisign.epp.metrics.EPPMetrics;
+import com.verisign.epp.metrics.EPPMetricsFactory;
+import com.verisign.epp.metrics.EPPNullMetrics;
 import com.verisign.epp.transport.EPPClientCon;
 import com.verisign.epp.transport.EPPConException;
 import com.verisign.epp.transport.EPPConFactorySingle;
 import com.verisign.epp.transport.client.EPPSSLContext;
 import com.verisign.epp.util.EPPCatFactory;
+import com.verisign.epp.util.EPPEnv;
+import com.verisign.epp.util.EPPPacketBuffer;
 import com.verisign.epp.util.EPPSchemaCachingParser;
 import com.verisign.epp.util.EPPXMLStream;
 
@@ -98,6 +111,13 @@ public class EPPSession {
 						 EPPSession.class.getName(),
 						 EPPCatFactory.getInstance().getFactory());
 
+	/** 
+	 * Metric tags of the commands by command class, so that the tags are 
+	 * only built once per command class and result code. 
+	 */
+	private static final ConcurrentHashMap<Class, CommandTags> commandTags = 
+		new ConcurrentHashMap<Class, CommandTags>();
+
 	/**
 	 * Synchronous mode constant in processing commands/responses, where 
 	 * for each command sent the <code>EPPSession</code> will immediately 
@@ -114,6 +134,19 @@ public class EPPSession {
 	 */
 	public static final int MODE_ASYNC = 1;
 	
+	/**
+	 * Pipelined mode constant in processing commands/responses, where 
+	 * commands can be sent by multiple threads without waiting for the 
+	 * responses of the previously sent commands.  The responses are read 
+	 * by a reader thread and are matched to the commands by client 
+	 * transaction identifier.  Use {@link #processDocumentAsync(EPPCommand)} 
+	 * to get a <code>CompletableFuture</code> for the response, or 
+	 * {@link #processDocument(EPPCommand)} to send a command through the 
+	 * pipeline and wait for its response.  The mode can be set with the 
+	 * {@link #setMode(int)} method.
+	 */
+	public static final int MODE_PIPELINED = 2;
+	
 	
 	/** EPP Codec used to encode and decode EPP messages */
 	protected EPPCodec myCodec = EPPCodec.getInstance();
@@ -157,6 +190,23 @@ public class EPPSession {
 	/** Used to read and write XML packets from/to streams. */
 	protected EPPXMLStream myXMLStream = null;
 
+	/**
+	 * Decode the responses with <code>EPPCodec.decodeResponse(XMLStreamReader)</code>
+	 * instead of from a DOM Document?  This is enabled with the
+	 * <code>EPP.StreamingDecode</code> property when XML schema validation
+	 * is disabled.
+	 */
+	protected boolean streamingDecode =
+		EPPEnv.getStreamingDecode() && !EPPEnv.getValidating();
+
+	/**
+	 * Encode the commands with 
+	 * <code>EPPCodec.encode(EPPMessage, EPPXMLWriter)</code> instead of to a 
+	 * DOM Document?  This is enabled with the <code>EPP.StreamingEncode</code> 
+	 * property.
+	 */
+	protected boolean streamingEncode = EPPEnv.getStreamingEncode();
+
 	/** Poll Operation Command */
 	protected String myPollOp = null;
 
@@ -179,6 +229,12 @@ public class EPPSession {
 	 */
 	private int mode = MODE_SYNC;  
 
+	/**
+	 * Command pipeline used in <code>MODE_PIPELINED</code>.  Created when 
+	 * the mode is set to <code>MODE_PIPELINED</code>.
+	 */
+	private volatile EPPSessionPipeline pipeline = null;
+
 	/**
 	 * Construct and initialize a new instance of EPPSession using the 
 	 * host name and port number defined in <code>EPPEnv</code>.
@@ -472,7 +528,9 @@ public class EPPSession {
 		 */
 		try {
 			myGreeting = myCodec.decodeGreeting(myDoc);
-			cat.debug("the greeting received is [" + myGreeting + "]");
+			if (cat.isDebugEnabled()) {
+				cat.debug("the greeting received is [" + myGreeting + "]");
+			}
 		}
 		 catch (EPPDecodeException myException) {
 			cat.error("login(): Exception decoding greeting: " + myException);
@@ -554,7 +612,9 @@ public class EPPSession {
 		 */
 		try {
 			myResponse = myCodec.decodeResponse(myDoc);
-			cat.debug("the response is [" + myResponse + "]");
+			if (cat.isDebugEnabled()) {
+				cat.debug("the response is [" + myResponse + "]");
+			}
 		}
 		 catch (EPPDecodeException myException) {
 			cat.error("login(): Exception decoding login response: " + myException);
@@ -609,6 +669,8 @@ public class EPPSession {
 	public EPPGreeting hello() throws EPPCommandException {
 		cat.debug("hello(): enter");
 		
+		this.checkNoPendingCommands("hello()");
+		
 		Document    myDoc	   = null;
 		EPPHello    myHello    = null;
 		EPPGreeting myGreeting = null;
@@ -644,7 +706,9 @@ public class EPPSession {
 		 */
 		try {
 			myGreeting = myCodec.decodeGreeting(myDoc);
-			cat.debug("hello greeting response = [" + myGreeting + "]");
+			if (cat.isDebugEnabled()) {
+				cat.debug("hello greeting response = [" + myGreeting + "]");
+			}
 		}
 		 catch (EPPDecodeException myException) {
 			cat.error("hello(): Exception decoding greeting: " + myException);
@@ -681,6 +745,94 @@ public class EPPSession {
 		return processDocument(myCommand, EPPResponse.class);
 	}
 
+	/**
+	 * Drains the poll queue by passing each message to a listener and
+	 * acknowledging it, until the queue is empty, the listener stops, or
+	 * <code>aMaxMessages</code> messages are acknowledged.  The
+	 * acknowledgement of a message is pipelined with the request of the next
+	 * message, so that draining takes one round trip per message instead of
+	 * two.  The session is put in {@link #MODE_PIPELINED} while draining and
+	 * its previous mode is restored.<br>
+	 * <br>
+	 * At most one message is read ahead of the listener, so the listener
+	 * controls the pace of the drain.  The listener is notified of each
+	 * message identifier once the server has confirmed its acknowledgement,
+	 * which can be used as a checkpoint to resume draining.
+	 *
+	 * @param aListener Listener that handles the messages
+	 * @param aMaxMessages Maximum number of messages to acknowledge, or
+	 *        <code>0</code> for no limit
+	 *
+	 * @return Number of messages acknowledged
+	 *
+	 * @exception EPPCommandException Error sending a poll command, error
+	 *            response from the server, or error thrown by the listener
+	 */
+	public int drainPoll(EPPPollListener aListener, int aMaxMessages) throws EPPCommandException {
+		cat.debug("drainPoll(): enter");
+
+		if (!this.isModeSupported(MODE_PIPELINED)) {
+			throw new EPPCommandException("EPPSession.drainPoll: MODE_PIPELINED not supported");
+		}
+		int thePrevMode = this.setMode(MODE_PIPELINED);
+		if (this.mode != MODE_PIPELINED) {
+			throw new EPPCommandException("EPPSession.drainPoll: Unable to set MODE_PIPELINED");
+		}
+
+		int theAcked = 0;
+		CompletableFuture<EPPResponse> theRequest = null;
+		try {
+			theRequest = this.processDocumentAsync(new EPPPollCmd(null, OP_REQ), EPPResponse.class);
+
+			while (theRequest != null) {
+				EPPResponse theMessage = this.waitForResponse(theRequest);
+				theRequest = null;
+
+				// No more messages?
+				if (theMessage.getMsgQueue() == null || theMessage.getMsgQueue().getId() == null) {
+					break;
+				}
+
+				if (!aListener.handleMessage(theMessage)) {
+					cat.debug("drainPoll(): Stopped by the listener");
+					break;
+				}
+
+				// Send the ack and the next request without waiting in between
+				String theMsgID = theMessage.getMsgQueue().getId();
+				EPPPollCmd theAckCmd = new EPPPollCmd(null, OP_ACK);
+				theAckCmd.setMsgID(theMsgID);
+				CompletableFuture<EPPResponse> theAck = this.processDocumentAsync(theAckCmd, EPPResponse.class);
+
+				if (aMaxMessages <= 0 || theAcked + 1 < aMaxMessages) {
+					theRequest = this.processDocumentAsync(new EPPPollCmd(null, OP_REQ), EPPResponse.class);
+				}
+
+				this.waitForResponse(theAck);
+				theAcked++;
+				aListener.acknowledged(theMsgID);
+			}
+		}
+		finally {
+			// Wait for a request read ahead of a failed ack
+			if (theRequest != null) {
+				try {
+					this.waitForResponse(theRequest);
+				}
+				catch (EPPCommandException ex) {
+					// Already failing on the ack
+				}
+			}
+
+			this.setMode(thePrevMode);
+		}
+
+		if (cat.isDebugEnabled()) {
+			cat.debug("drainPoll(): exit, acknowledged " + theAcked + " messages");
+		}
+		return theAcked;
+	}
+
 	/**
 	 * logout from the session.
 	 *
@@ -689,6 +841,8 @@ public class EPPSession {
 	protected void logout() throws EPPCommandException {
 		cat.debug("logout(): enter");
 		
+		this.checkNoPendingCommands("logout()");
+		
 		Document     myDoc     = null;
 		EPPLogoutCmd myCommand = null;
 
@@ -832,6 +986,32 @@ public class EPPSession {
 		return myDoc;
 	}
 
+	/**
+	 * Gets an EPP packet from the session input stream without parsing it,
+	 * which is used for the streaming decode of the responses.  The packet
+	 * is read into the read buffer of the session <code>EPPXMLStream</code>,
+	 * so it is only valid until the next packet is read.
+	 *
+	 * @return Buffer containing the EPP packet read from stream
+	 *
+	 * @exception EPPCommandException Error reading packet from stream
+	 */
+	EPPPacketBuffer recPacket() throws EPPCommandException {
+		try {
+			return myXMLStream.readPacketBuffer(myInputStream);
+		}
+		 catch (EPPException myException) {
+			cat.error("recPacket(): Exception reading from stream: " + myException);
+			throw new EPPCommandException("EPPCommand.recPacket : "
+										  + myException.getMessage());
+		}
+		 catch (IOException myException) {
+			cat.error("recPacket(): Exception reading from stream: " + myException);
+			throw new EPPCommandException("EPPCommand.recPacket : "
+										  + myException.getMessage());
+		}
+	}
+
 	/**
 	 * Sends an EPP DOM Document to the session output stream.
 	 *
@@ -852,6 +1032,25 @@ public class EPPSession {
 										  + myException.getMessage());
 		}
 	}
+
+	/**
+	 * Sends an EPP packet encoded with an <code>EPPXMLWriter</code> to the 
+	 * session output stream.
+	 *
+	 * @param aPacket Writer containing the encoded packet
+	 *
+	 * @exception EPPCommandException Error writing packet to stream
+	 */
+	void sendPacket(EPPXMLWriter aPacket) throws EPPCommandException {
+		try {
+			myXMLStream.write(aPacket, myOutputStream);
+		}
+		 catch (EPPException myException) {
+			cat.error("sendPacket(): Exception writing to stream: " + myException);
+			throw new EPPCommandException("EPPSession.sendPacket() : "
+										  + myException.getMessage());
+		}
+	}
 	
 	
 	/**
@@ -890,6 +1089,35 @@ public class EPPSession {
 		// Reset response to null 
 		this.myResponse = null;
 		
+		// Decode the packet directly to <code>EPPResponse</code> instance?
+		if (this.streamingDecode) {
+			EPPPacketBuffer thePacket = recPacket();
+			XMLStreamReader theReader = null;
+
+			try {
+				theReader = EPPStreamUtil.createReader(thePacket.getBuffer(),
+													   EPPPacketBuffer.HEADER_SIZE,
+													   thePacket.getPacketLength());
+				myResponse = myCodec.decodeResponse(theReader);
+			}
+			 catch (EPPDecodeException myException) {
+				throw new EPPCommandException("EPPSession.readResponse: On Response "
+											  + myException.getMessage());
+			}
+			 finally {
+				if (theReader != null) {
+					try {
+						theReader.close();
+					}
+					 catch (XMLStreamException ex) {
+						// Ignore, since the packet is in memory
+					}
+				}
+			}
+
+			return this.myResponse;
+		}
+
 		Document    theDoc	   = null;
 		
 		// Read response from server and parse the XML to DOM Document
@@ -931,19 +1159,166 @@ public class EPPSession {
 	 */
 	public EPPResponse processDocument(EPPCommand aCommand, Class aExpectedResponse)
 								throws EPPCommandException {
-		Document    theDoc;
-
-		// Encode aCommand to DOM Document (theDoc)
+		long theStart = System.nanoTime();
+		EPPResponse theResponse = null;
 		try {
-			theDoc = myCodec.encode(aCommand);
+			theResponse = this.sendCommand(aCommand, aExpectedResponse);
+			return theResponse;
 		}
-		 catch (Exception myException) {
-			throw new EPPCommandException("EPPSession.processDocument: On Command "
-										  + myException.getMessage());
+		catch (EPPCommandException ex) {
+			theResponse = ex.getResponse();
+			throw ex;
+		}
+		finally {
+			long theNanos = System.nanoTime() - theStart;
+			this.recordCommand(aCommand, theResponse, theNanos);
+			this.commandCompleted(aCommand, theResponse, theNanos);
 		}
+	}
+	
+	
+	/**
+	 * Called after each command processed by 
+	 * {@link #processDocument(EPPCommand, Class)}, which can be overridden by 
+	 * a derived class to observe the latency and result of the commands.  The 
+	 * default implementation does nothing.
+	 * 
+	 * @param aCommand Processed command
+	 * @param aResponse Response of the command or <code>null</code> if no 
+	 * response was received (i.e. connection error or {@link #MODE_ASYNC})
+	 * @param aNanos Latency of the command in nanoseconds
+	 */
+	protected void commandCompleted(EPPCommand aCommand, EPPResponse aResponse, long aNanos) {
+		// Nothing by default
+	}
+	
+	
+	/**
+	 * Records the latency and result of a command processed by 
+	 * {@link #processDocument(EPPCommand, Class)} in the metrics (see 
+	 * {@link EPPMetrics#SESSION_COMMAND} and {@link EPPMetrics#SESSION_RESULT}).
+	 * 
+	 * @param aCommand Processed command
+	 * @param aResponse Response of the command or <code>null</code> if no 
+	 * response was received (i.e. connection error or {@link #MODE_ASYNC})
+	 * @param aNanos Latency of the command in nanoseconds
+	 */
+	private void recordCommand(EPPCommand aCommand, EPPResponse aResponse, long aNanos) {
+		EPPMetrics theMetrics = EPPMetricsFactory.getInstance().getMetrics();
+		if (theMetrics instanceof EPPNullMetrics) {
+			return;
+		}
+		
+		CommandTags theTags = commandTags.get(aCommand.getClass());
+		if (theTags == null) {
+			theTags = new CommandTags(aCommand.getClass());
+			CommandTags theOther = commandTags.putIfAbsent(aCommand.getClass(), theTags);
+			if (theOther != null) {
+				theTags = theOther;
+			}
+		}
+		
+		theMetrics.recordTime(EPPMetrics.SESSION_COMMAND, theTags.type, aNanos);
+		
+		String theTag;
+		if ((aResponse != null) && (aResponse.getResult() != null)) {
+			theTag = theTags.getResultTag(aResponse.getResult().getCode());
+		}
+		else if (this.mode == MODE_ASYNC) {
+			theTag = theTags.asyncTag;
+		}
+		else {
+			theTag = theTags.errorTag;
+		}
+		theMetrics.increment(EPPMetrics.SESSION_RESULT, theTag, 1);
+	}
+	
+	
+	/**
+	 * Metric tags of a command class used by 
+	 * {@link EPPSession#recordCommand(EPPCommand, EPPResponse, long)}, which 
+	 * are built once so that recording a command does not concatenate them.
+	 */
+	private static class CommandTags {
+		
+		/** Command class name, which is the tag of the latency */
+		final String type;
+		
+		/** Result tag of a command sent in {@link EPPSession#MODE_ASYNC} */
+		final String asyncTag;
+		
+		/** Result tag of a command without a response */
+		final String errorTag;
+		
+		/** Result tags by result code */
+		final ConcurrentHashMap<Integer, String> resultTags = 
+			new ConcurrentHashMap<Integer, String>();
+		
+		/**
+		 * Creates the tags of a command class.
+		 * 
+		 * @param aCommandClass Command class
+		 */
+		CommandTags(Class aCommandClass) {
+			this.type = aCommandClass.getName();
+			this.asyncTag = this.type + ".async";
+			this.errorTag = this.type + ".error";
+		}
+		
+		/**
+		 * Gets the result tag of a result code, which is added the first 
+		 * time the result code is seen.
+		 * 
+		 * @param aCode Result code
+		 * 
+		 * @return Result tag in the form 
+		 * &quot;&lt;command class&gt;.&lt;result code&gt;&quot;
+		 */
+		String getResultTag(int aCode) {
+			Integer theCode = Integer.valueOf(aCode);
+			String theTag = this.resultTags.get(theCode);
+			if (theTag == null) {
+				theTag = this.type + "." + aCode;
+				this.resultTags.putIfAbsent(theCode, theTag);
+			}
+			return theTag;
+		}
+	}
+	
+	
+	/**
+	 * Sends a command and reads the response for 
+	 * {@link #processDocument(EPPCommand, Class)} based on the session mode.
+	 *
+	 * @param aCommand Command to write to output stream
+	 * @param aExpectedResponse Expected type of <code>EPPResponse</code> or 
+	 * <code>null</code> for any type
+	 *
+	 * @return Response associated with passed in command if mode is {@link #MODE_SYNC} 
+	 * or {@link #MODE_PIPELINED}; <code>null</code> otherwise.
+	 *
+	 * @exception EPPCommandException error processing the command
+	 */
+	private EPPResponse sendCommand(EPPCommand aCommand, Class aExpectedResponse)
+								throws EPPCommandException {
+		// Pipelined mode?
+		if (this.mode == MODE_PIPELINED) {
+			// Send the command through the pipeline and wait for the response.
+			return this.waitForResponse(this.processDocumentAsync(aCommand, aExpectedResponse));
+		}
+		
+		Document theDoc = null;
+		if (this.streamingEncode) {
+			// Encode aCommand directly to the packet and send it to server
+			this.sendPacket(this.encodeCommandPacket(aCommand));
+		}
+		else {
+			// Encode aCommand to DOM Document (theDoc)
+			theDoc = this.encodeCommand(aCommand);
 
-		// Send command to server
-		this.sendDocument(theDoc);
+			// Send command to server
+			this.sendDocument(theDoc);
+		}
 		
 		// Asynchronous mode? 
 		if (this.mode == MODE_ASYNC) {
@@ -974,6 +1349,189 @@ public class EPPSession {
 		return theResponse;
 	}
 	
+	
+	/**
+	 * Sends an <code>EPPCommand</code> instance through the command pipeline 
+	 * without waiting for the response.  The session must be in 
+	 * {@link #MODE_PIPELINED}.  This method can be called by multiple threads 
+	 * concurrently.  If the command does not have a client transaction 
+	 * identifier, a generated one will be set, since the client transaction 
+	 * identifier is used to match the response to the command.
+	 *
+	 * @param aCommand Command to write to output stream
+	 *
+	 * @return Future that is completed with the response associated with 
+	 * passed in command, or completed exceptionally with an 
+	 * <code>EPPCommandException</code> that can include a server specified 
+	 * error response.
+	 *
+	 * @exception EPPCommandException The session is not in <code>MODE_PIPELINED</code> 
+	 * or there was an error encoding or sending the command.
+	 */
+	public CompletableFuture<EPPResponse> processDocumentAsync(EPPCommand aCommand) 
+								throws EPPCommandException {
+		return this.processDocumentAsync(aCommand, null);
+	}
+	
+	
+	/**
+	 * Sends an <code>EPPCommand</code> instance through the command pipeline 
+	 * without waiting for the response, where the response must be of the 
+	 * specified type.  The session must be in {@link #MODE_PIPELINED}.  This 
+	 * method can be called by multiple threads concurrently.
+	 *
+	 * @param aCommand Command to write to output stream
+	 * @param aExpectedResponse Expected type of <code>EPPResponse</code>.  If 
+	 * <code>aExpectedResponse</code> is non-<code>null</code> and the response 
+	 * is not of the specified type, than the future will be completed with 
+	 * an <code>EPPCommandException</code>.  
+	 *
+	 * @return Future that is completed with the response associated with 
+	 * passed in command, or completed exceptionally with an 
+	 * <code>EPPCommandException</code> that can include a server specified 
+	 * error response.
+	 *
+	 * @exception EPPCommandException The session is not in <code>MODE_PIPELINED</code> 
+	 * or there was an error encoding or sending the command.
+	 */
+	public CompletableFuture<EPPResponse> processDocumentAsync(EPPCommand aCommand, Class aExpectedResponse) 
+								throws EPPCommandException {
+		EPPSessionPipeline thePipeline = this.pipeline;
+		
+		if (this.mode != MODE_PIPELINED || thePipeline == null) {
+			throw new EPPCommandException("EPPSession.processDocumentAsync: Session is not in MODE_PIPELINED");
+		}
+		
+		return thePipeline.submit(aCommand, aExpectedResponse);
+	}
+	
+	
+	/**
+	 * Gets the number of commands sent through the command pipeline that 
+	 * are waiting for their response.
+	 * 
+	 * @return Number of outstanding commands in {@link #MODE_PIPELINED}; 
+	 * <code>0</code> otherwise.
+	 */
+	public int getPendingCount() {
+		EPPSessionPipeline thePipeline = this.pipeline;
+		
+		if (thePipeline == null) {
+			return 0;
+		}
+		
+		return thePipeline.getPendingCount();
+	}
+	
+	
+	/**
+	 * Waits for the response of a command sent through the command pipeline.
+	 * 
+	 * @param aFuture Future returned by <code>processDocumentAsync</code>
+	 * 
+	 * @return Response associated with the command
+	 * 
+	 * @throws EPPCommandException Exception the future was completed with or 
+	 * the wait was interrupted.
+	 */
+	protected EPPResponse waitForResponse(CompletableFuture<EPPResponse> aFuture) 
+								throws EPPCommandException {
+		try {
+			this.myResponse = aFuture.get();
+			return this.myResponse;
+		}
+		catch (ExecutionException ex) {
+			if (ex.getCause() instanceof EPPCommandException) {
+				EPPCommandException theException = (EPPCommandException) ex.getCause();
+				if (theException.hasResponse()) {
+					this.myResponse = theException.getResponse();
+				}
+				throw theException;
+			}
+			throw new EPPCommandException("EPPSession.waitForResponse: " + ex.getCause());
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new EPPCommandException("EPPSession.waitForResponse: Interrupted waiting for response");
+		}
+	}
+	
+	
+	/**
+	 * Encodes an <code>EPPCommand</code> instance to a DOM Document. 
+	 * 
+	 * @param aCommand Command to encode
+	 * 
+	 * @return Encoded DOM Document
+	 * 
+	 * @throws EPPCommandException Error encoding the command
+	 */
+	Document encodeCommand(EPPCommand aCommand) throws EPPCommandException {
+		try {
+			return myCodec.encode(aCommand);
+		}
+		 catch (Exception myException) {
+			throw new EPPCommandException("EPPSession.processDocument: On Command "
+										  + myException.getMessage());
+		}
+	}
+	
+	
+	/**
+	 * Encodes an <code>EPPCommand</code> instance directly to an EPP packet
+	 * with an <code>EPPXMLWriter</code>, which is used in place of 
+	 * <code>encodeCommand(EPPCommand)</code> when <code>EPP.StreamingEncode</code> 
+	 * is enabled.
+	 * 
+	 * @param aCommand Command to encode
+	 * 
+	 * @return Writer containing the encoded packet
+	 * 
+	 * @throws EPPCommandException Error encoding the command
+	 */
+	EPPXMLWriter encodeCommandPacket(EPPCommand aCommand) throws EPPCommandException {
+		EPPXMLWriter theWriter = new EPPXMLWriter();
+		try {
+			myCodec.encode(aCommand, theWriter);
+		}
+		 catch (Exception myException) {
+			throw new EPPCommandException("EPPSession.processDocument: On Command "
+										  + myException.getMessage());
+		}
+
+		return theWriter;
+	}
+	
+	
+	/**
+	 * Is the streaming encode of the commands with 
+	 * <code>encodeCommandPacket(EPPCommand)</code> enabled?
+	 * 
+	 * @return <code>true</code> if the commands are encoded with an 
+	 * <code>EPPXMLWriter</code>; <code>false</code> if they are encoded to a 
+	 * DOM Document.
+	 */
+	boolean isStreamingEncode() {
+		return this.streamingEncode;
+	}
+	
+	
+	/**
+	 * Ensures that there are no commands waiting for a response in the 
+	 * command pipeline, which is required for the operations that read 
+	 * directly from the connection.
+	 * 
+	 * @param aOperation Operation name used in the exception 
+	 * 
+	 * @throws EPPCommandException There are outstanding pipelined commands
+	 */
+	private void checkNoPendingCommands(String aOperation) throws EPPCommandException {
+		if (this.getPendingCount() > 0) {
+			throw new EPPCommandException("EPPSession." + aOperation + ": " + this.getPendingCount() 
+					+ " pipelined commands are waiting for a response");
+		}
+	}
+	
 
 	/**
 	 * Ends a session by logging out from the server and closing the connection
@@ -1006,6 +1564,12 @@ public class EPPSession {
 	public void endConnection() throws EPPCommandException {
 		cat.debug("endConnection(): enter");
 
+		// Fail the commands waiting for a response
+		if (this.pipeline != null) {
+			this.pipeline.fail(new EPPCommandException("EPPSession.endConnection(): Connection closed"));
+			this.pipeline = null;
+		}
+
 		try {
 			if (myInputStream != null) {
 				myInputStream.close();
@@ -1524,9 +2088,9 @@ public class EPPSession {
 
 	/**
 	 * Gets the command/response processing mode, which should be 
-	 * either {@link #MODE_SYNC} or {@link #MODE_ASYNC}.
+	 * either {@link #MODE_SYNC}, {@link #MODE_ASYNC}, or {@link #MODE_PIPELINED}.
 	 * 
-	 * @return {@link #MODE_SYNC} or {@link #MODE_ASYNC}
+	 * @return {@link #MODE_SYNC}, {@link #MODE_ASYNC}, or {@link #MODE_PIPELINED}
 	 */
 	public int getMode() {
 		return this.mode;
@@ -1535,16 +2099,38 @@ public class EPPSession {
 
 	/**
 	 * Sets the command/response processing mode to either 
-	 * {@link #MODE_SYNC} or {@link #MODE_ASYNC}.
+	 * {@link #MODE_SYNC}, {@link #MODE_ASYNC}, or {@link #MODE_PIPELINED}.  
+	 * The mode can not be changed from {@link #MODE_PIPELINED} while there 
+	 * are commands waiting for a response.
 	 * 
-	 * @param aMode {@link #MODE_SYNC} or {@link #MODE_ASYNC}
+	 * @param aMode {@link #MODE_SYNC}, {@link #MODE_ASYNC}, or {@link #MODE_PIPELINED}
 	 * 
 	 * @return Previous mode
 	 */
 	public int setMode(int aMode) {
+		// Pipelined commands waiting for a response?
+		if (this.mode == MODE_PIPELINED && aMode != MODE_PIPELINED 
+				&& this.getPendingCount() > 0) {
+			cat.error("EPPSession.setMode(): Mode " + aMode
+					+ " can not be set with " + this.getPendingCount() 
+					+ " pipelined commands outstanding, current mode " 
+					+ this.mode + " unchanged");
+			return this.mode;
+		}
+		
 		// Is specified mode supported?
 		if (isModeSupported(aMode)) {
 			int thePrevMode = this.mode;
+			
+			if (aMode == MODE_PIPELINED) {
+				if (this.pipeline == null) {
+					this.pipeline = new EPPSessionPipeline(this);
+				}
+			}
+			else {
+				this.pipeline = null;
+			}
+			
 			this.mode = aMode;
 			return thePrevMode;
 		}
@@ -1557,16 +2143,17 @@ public class EPPSession {
 	}
 	
 	/**
-	 * Does the session support the specified mode {@link #MODE_SYNC} or {@link #MODE_ASYNC}?
+	 * Does the session support the specified mode {@link #MODE_SYNC}, {@link #MODE_ASYNC}, 
+	 * or {@link #MODE_PIPELINED}?
 	 * A derived class of <code>EPPSession</code> could support a subset of the modes, so 
 	 * this method is provide to provide the client with the ability to check whether a 
 	 * mode is supported.
 	 * 
-	 * @param aMode {@link #MODE_SYNC} or {@link #MODE_ASYNC}
+	 * @param aMode {@link #MODE_SYNC}, {@link #MODE_ASYNC}, or {@link #MODE_PIPELINED}
 	 * @return <code>true</code> if supported; <code>false</code> otherwise.
 	 */
 	public boolean isModeSupported(int aMode) {
-		if (aMode == MODE_SYNC || aMode == MODE_ASYNC) {
+		if (aMode == MODE_SYNC || aMode == MODE_ASYNC || aMode == MODE_PIPELINED) {
 			return true;
 		}
 		else {
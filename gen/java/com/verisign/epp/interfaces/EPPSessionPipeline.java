@@ -0,0 +1,358 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.interfaces;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.log4j.Logger;
+import org.w3c.dom.Document;
+
+import com.verisign.epp.codec.gen.EPPCommand;
+import com.verisign.epp.codec.gen.EPPResponse;
+import com.verisign.epp.codec.gen.EPPXMLWriter;
+import com.verisign.epp.util.EPPCatFactory;
+import com.verisign.epp.util.EPPThreadModel;
+
+/**
+ * Command pipeline used by <code>EPPSession</code> when it is in
+ * {@link EPPSession#MODE_PIPELINED}.  Any number of threads can submit
+ * commands through the pipeline, where each command is written to the
+ * connection immediately and a <code>CompletableFuture</code> is returned
+ * for the response.  A single reader thread is started on demand when there
+ * are outstanding commands, reads the responses from the connection, and
+ * completes the futures by matching the response client transaction
+ * identifier to the command client transaction identifier.  The reader
+ * thread exits as soon as there are no outstanding commands, so an idle
+ * pipeline does not hold a thread.<br>
+ * <br>
+ * Commands without a client transaction identifier are assigned a
+ * generated one, since the client transaction identifier is the key used
+ * to match the responses.  If a response does not include a known client
+ * transaction identifier (i.e. the server could not parse the command), the
+ * response is matched to the oldest outstanding command, since an EPP
+ * server processes the commands of a session in the order received.
+ */
+class EPPSessionPipeline implements Runnable {
+
+	/** Log4j category for logging */
+	private static Logger cat =
+		Logger.getLogger(
+						 EPPSessionPipeline.class.getName(),
+						 EPPCatFactory.getInstance().getFactory());
+
+	/**
+	 * A command that was sent and that is waiting on its response.
+	 */
+	private static class PendingCommand {
+
+		/** Command sent */
+		EPPCommand command;
+
+		/**
+		 * Encoded command, set in the response like in synchronous mode, or
+		 * <code>null</code> with the streaming encode
+		 */
+		Document document;
+
+		/** Expected type of response or <code>null</code> for any type */
+		Class expectedResponse;
+
+		/** Future completed with the response */
+		CompletableFuture<EPPResponse> future = new CompletableFuture<EPPResponse>();
+
+		/**
+		 * Creates a <code>PendingCommand</code>.
+		 *
+		 * @param aCommand Command sent
+		 * @param aDocument Encoded command
+		 * @param aExpectedResponse Expected response type or <code>null</code>
+		 */
+		PendingCommand(EPPCommand aCommand, Document aDocument, Class aExpectedResponse) {
+			this.command = aCommand;
+			this.document = aDocument;
+			this.expectedResponse = aExpectedResponse;
+		}
+	}
+
+	/** Session that owns the pipeline */
+	private EPPSession session;
+
+	/**
+	 * Outstanding commands by client transaction identifier in the order
+	 * sent.  Guarded by <code>pendingLock</code>.
+	 */
+	private LinkedHashMap<String, PendingCommand> pending = new LinkedHashMap<String, PendingCommand>();
+
+	/** Lock guarding <code>pending</code>, <code>readerActive</code> and <code>failure</code>. */
+	private Object pendingLock = new Object();
+
+	/**
+	 * Lock serializing the writes to the connection, so that the order of
+	 * <code>pending</code> matches the order the commands were sent.  A
+	 * <code>ReentrantLock</code> is used instead of a monitor since the lock
+	 * is held during socket I/O, which would pin a virtual thread to its
+	 * carrier thread.
+	 */
+	private ReentrantLock writeLock = new ReentrantLock();
+
+	/** Is the reader thread running? */
+	private boolean readerActive = false;
+
+	/**
+	 * Fatal error of the connection.  Once set, all subsequent commands
+	 * will fail with this exception.
+	 */
+	private EPPCommandException failure = null;
+
+	/** Sequence used to generate client transaction identifiers */
+	private long transIdSeq = 0;
+
+	/** Prefix of the generated client transaction identifiers */
+	private String transIdPrefix;
+
+	/**
+	 * Creates a pipeline for a session.
+	 *
+	 * @param aSession Session that owns the pipeline
+	 */
+	EPPSessionPipeline(EPPSession aSession) {
+		this.session = aSession;
+		this.transIdPrefix = "PIPE-" + Integer.toHexString(System.identityHashCode(aSession)) + "-";
+	}
+
+	/**
+	 * Encodes and sends a command to the server and returns the future that
+	 * will be completed with the response.
+	 *
+	 * @param aCommand Command to send.  If the command has no client transaction
+	 * identifier, a generated one is set.
+	 * @param aExpectedResponse Expected type of <code>EPPResponse</code> or
+	 * <code>null</code> for any type.
+	 *
+	 * @return Future completed with the response or with an
+	 * <code>EPPCommandException</code>
+	 *
+	 * @throws EPPCommandException Error encoding or sending the command
+	 */
+	CompletableFuture<EPPResponse> submit(EPPCommand aCommand, Class aExpectedResponse)
+		throws EPPCommandException {
+
+		String theTransId;
+		synchronized (this.pendingLock) {
+			if (this.failure != null) {
+				throw this.failure;
+			}
+
+			theTransId = aCommand.getTransId();
+			if (theTransId == null) {
+				theTransId = this.transIdPrefix + (++this.transIdSeq);
+				aCommand.setTransId(theTransId);
+			}
+		}
+
+		Document theDoc = null;
+		EPPXMLWriter thePacket = null;
+		if (this.session.isStreamingEncode()) {
+			thePacket = this.session.encodeCommandPacket(aCommand);
+		}
+		else {
+			theDoc = this.session.encodeCommand(aCommand);
+		}
+		PendingCommand thePending = new PendingCommand(aCommand, theDoc, aExpectedResponse);
+
+		boolean startReader = false;
+		this.writeLock.lock();
+		try {
+			synchronized (this.pendingLock) {
+				if (this.failure != null) {
+					throw this.failure;
+				}
+				if (this.pending.containsKey(theTransId)) {
+					throw new EPPCommandException("EPPSessionPipeline.submit(): Command with client trans id "
+							+ theTransId + " already outstanding");
+				}
+				this.pending.put(theTransId, thePending);
+				if (!this.readerActive) {
+					this.readerActive = true;
+					startReader = true;
+				}
+			}
+
+			try {
+				if (thePacket != null) {
+					this.session.sendPacket(thePacket);
+				}
+				else {
+					this.session.sendDocument(theDoc);
+				}
+			}
+			catch (EPPCommandException ex) {
+				cat.error("submit(): Error sending command " + theTransId + ": " + ex);
+				this.fail(ex);
+				throw ex;
+			}
+		}
+		finally {
+			this.writeLock.unlock();
+		}
+
+		if (startReader) {
+			EPPThreadModel.start(this, "EPPSessionPipeline-" + this.transIdPrefix, true);
+		}
+
+		return thePending.future;
+	}
+
+	/**
+	 * Reads the responses from the session while there are outstanding
+	 * commands.
+	 */
+	public void run() {
+		cat.debug("run(): enter");
+
+		for (;;) {
+			EPPResponse theResponse;
+			try {
+				theResponse = this.session.readResponse();
+			}
+			catch (EPPCommandException ex) {
+				cat.error("run(): Error reading response, failing outstanding commands: " + ex);
+				this.fail(ex);
+				synchronized (this.pendingLock) {
+					this.readerActive = false;
+				}
+				break;
+			}
+
+			PendingCommand thePending = null;
+			synchronized (this.pendingLock) {
+				String theTransId = null;
+				if (theResponse.getTransId() != null) {
+					theTransId = theResponse.getTransId().getClientTransId();
+				}
+
+				if (theTransId != null) {
+					thePending = this.pending.remove(theTransId);
+				}
+
+				// Response without a known client transaction id is matched
+				// to the oldest outstanding command.
+				if (thePending == null && !this.pending.isEmpty()) {
+					Iterator<PendingCommand> theIter = this.pending.values().iterator();
+					thePending = theIter.next();
+					theIter.remove();
+					cat.warn("run(): Response with unknown client trans id " + theTransId
+							+ " matched to oldest command " + thePending.command.getTransId());
+				}
+			}
+
+			if (thePending == null) {
+				cat.error("run(): Received response with no outstanding command: " + theResponse);
+			}
+			else {
+				this.complete(thePending, theResponse);
+			}
+
+			synchronized (this.pendingLock) {
+				if (this.pending.isEmpty() || this.failure != null) {
+					this.readerActive = false;
+					break;
+				}
+			}
+		}
+
+		cat.debug("run(): exit");
+	}
+
+	/**
+	 * Completes the future of a command with the response, by applying the
+	 * same checks as the synchronous mode of <code>EPPSession</code>.
+	 *
+	 * @param aPending Outstanding command
+	 * @param aResponse Response read for the command
+	 */
+	private void complete(PendingCommand aPending, EPPResponse aResponse) {
+		aResponse.setDocument(aPending.document);
+
+		if (!aResponse.isSuccess()) {
+			aPending.future.completeExceptionally(new EPPCommandException(
+					"EPPSession.processDocument() : Error in response from Server", aResponse));
+			return;
+		}
+
+		if ((aPending.expectedResponse != null) && !aPending.expectedResponse.isInstance(aResponse)) {
+			aPending.future.completeExceptionally(new EPPCommandException("Unexpected response type of "
+					  + aResponse.getClass().getName()
+					  + ", expecting "
+					  + aPending.expectedResponse));
+			return;
+		}
+
+		try {
+			this.session.validateClientTransId(aPending.command, aResponse);
+		}
+		catch (EPPCommandException ex) {
+			aPending.future.completeExceptionally(ex);
+			return;
+		}
+
+		aPending.future.complete(aResponse);
+	}
+
+	/**
+	 * Fails the pipeline, which completes all outstanding commands
+	 * exceptionally and causes all subsequent commands to fail.
+	 *
+	 * @param aException Cause of the failure
+	 */
+	void fail(EPPCommandException aException) {
+		List<PendingCommand> theFailed;
+		synchronized (this.pendingLock) {
+			if (this.failure == null) {
+				this.failure = aException;
+			}
+			theFailed = new ArrayList<PendingCommand>(this.pending.values());
+			this.pending.clear();
+		}
+
+		for (PendingCommand thePending : theFailed) {
+			thePending.future.completeExceptionally(aException);
+		}
+	}
+
+	/**
+	 * Gets the number of outstanding commands.
+	 *
+	 * @return Number of commands sent without a response received
+	 */
+	int getPendingCount() {
+		synchronized (this.pendingLock) {
+			return this.pending.size();
+		}
+	}
+
+}
+
+// End class EPPSessionPipeline
@@ -26,8 +26,11 @@ import junit.framework.Test;
 import junit.framework.TestCase;
 import junit.framework.TestSuite;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.apache.log4j.Logger;
 
+import com.verisign.epp.codec.gen.EPPPollCmd;
 import com.verisign.epp.codec.gen.EPPResponse;
 import com.verisign.epp.util.EPPCatFactory;
 import com.verisign.epp.util.Environment;
@@ -99,6 +102,8 @@ public class EPPSessionTst extends TestCase {
 		doHello();
 		doPoll();
 		doAsyncPoll();
+		doPipelinedPoll();
+		doDrainPoll();
 		endSession();
 	}
 
@@ -234,6 +239,91 @@ public class EPPSessionTst extends TestCase {
 		printEnd("doAsyncPoll");
 	}
 	
+	/**
+	 * Unit test sending multiple poll commands in <code>MODE_PIPELINED</code>, 
+	 * where the responses are matched to the commands by client transaction 
+	 * identifier.
+	 */
+	private void doPipelinedPoll() {
+		printStart("doPipelinedPoll");
+
+		if (!session.isModeSupported(EPPSession.MODE_PIPELINED)) {
+			System.out.println("doPipelinedPoll: Session " + session.getClass().getName() + " does not support MODE_PIPELINED, skipping test");
+			printEnd("doPipelinedPoll (skipped)");
+			return;
+		}
+		int previousSessionMode = session.setMode(EPPSession.MODE_PIPELINED);
+		
+		try {
+			int theNumCommands = 10;
+			String[] theClientTransIds = new String[theNumCommands];
+			CompletableFuture[] theFutures = new CompletableFuture[theNumCommands];
+			
+			// Send all of the commands before reading any of the responses
+			for (int i = 0; i < theNumCommands; i++) {
+				theClientTransIds[i] = "PIPE-CMD-" + i + "-" + System.currentTimeMillis();
+				theFutures[i] = session.processDocumentAsync(new EPPPollCmd(theClientTransIds[i], EPPPollCmd.OP_REQ));
+			}
+			
+			for (int i = 0; i < theNumCommands; i++) {
+				EPPResponse theResponse = session.waitForResponse(theFutures[i]);
+				
+				Assert.assertEquals("doPipelinedPoll: clientTransId's don't Match (command and response)", theClientTransIds[i], theResponse.getTransId().getClientTransId());
+			}
+			
+			// Command without a client transaction identifier
+			EPPResponse theResponse = session.processDocument(new EPPPollCmd(null, EPPPollCmd.OP_REQ));
+			Assert.assertNotNull("doPipelinedPoll: generated clientTransId not set", theResponse.getTransId().getClientTransId());
+			
+			Assert.assertEquals("doPipelinedPoll: commands outstanding", 0, session.getPendingCount());
+		}
+		 catch (EPPCommandException e) {
+			handleException(e);
+		}
+		finally {		
+			session.setMode(previousSessionMode);
+		}
+
+		printEnd("doPipelinedPoll");
+	}
+	
+	
+	/**
+	 * Unit test of draining the poll queue with <code>drainPoll</code>, where 
+	 * the session mode must be restored after draining.
+	 */
+	private void doDrainPoll() {
+		printStart("doDrainPoll");
+
+		final int[] theHandled = new int[1];
+		final int[] theAcked = new int[1];
+		int theMode = session.getMode();
+		
+		try {
+			int theCount = session.drainPoll(new EPPPollListener() {
+				
+				public boolean handleMessage(EPPResponse aMessage) {
+					theHandled[0]++;
+					return true;
+				}
+				
+				public void acknowledged(String aMsgID) {
+					theAcked[0]++;
+				}
+			}, 0);
+			
+			System.out.println("doDrainPoll: Acknowledged " + theCount + " messages");
+			Assert.assertEquals("doDrainPoll: handled != acknowledged", theHandled[0], theAcked[0]);
+			Assert.assertEquals(theCount, theAcked[0]);
+			Assert.assertEquals("doDrainPoll: mode not restored", theMode, session.getMode());
+		}
+		 catch (EPPCommandException e) {
+			handleException(e);
+		}
+
+		printEnd("doDrainPoll");
+	}
+	
 	
 	/**
 	 * Unit test of <code>EPPSession.endSession</code>.  The session with the
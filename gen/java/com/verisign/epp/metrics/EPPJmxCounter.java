@@ -0,0 +1,60 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counter of {@link EPPJmxMetrics}, which uses a <code>LongAdder</code> so
+ * that concurrent increments do not contend.
+ */
+public class EPPJmxCounter implements EPPJmxCounterMBean {
+
+	/** Counter value */
+	private LongAdder count = new LongAdder();
+
+	/**
+	 * Adds a value to the counter.
+	 *
+	 * @param aDelta Value to add
+	 */
+	public void add(long aDelta) {
+		this.count.add(aDelta);
+	}
+
+	/**
+	 * Gets the counter value.
+	 *
+	 * @return Sum of the increments since the creation or reset
+	 */
+	public long getCount() {
+		return this.count.sum();
+	}
+
+	/**
+	 * Resets the counter.
+	 */
+	public void reset() {
+		this.count.reset();
+	}
+
+}
+
+// End class EPPJmxCounter
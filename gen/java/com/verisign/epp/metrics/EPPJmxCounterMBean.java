@@ -0,0 +1,41 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.metrics;
+
+/**
+ * JMX management interface of {@link EPPJmxCounter}.
+ */
+public interface EPPJmxCounterMBean {
+
+	/**
+	 * Gets the counter value.
+	 *
+	 * @return Sum of the increments since the creation or reset
+	 */
+	public long getCount();
+
+	/**
+	 * Resets the counter.
+	 */
+	public void reset();
+
+}
+
+// End interface EPPJmxCounterMBean
@@ -0,0 +1,353 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.log4j.Logger;
+
+import com.verisign.epp.util.EPPCatFactory;
+
+/**
+ * Default <code>EPPMetrics</code> implementation, which registers each
+ * metric as a JMX MBean in the platform MBean server on first use.  The
+ * MBeans are named
+ * <code>com.verisign.epp:type=&lt;Timer|Counter|Gauge&gt;,name=&lt;name&gt;[,tag=&lt;tag&gt;]</code>,
+ * where a tag that is a class name is shortened to the simple class name.
+ * The timers report the count, total, mean, maximum, and percentiles of the
+ * latencies (see {@link EPPJmxTimer}), and the timers and counters can be
+ * reset with the <code>reset</code> operation.<br>
+ * <br>
+ * Recording to an existing metric is a lookup in two
+ * <code>ConcurrentHashMap</code> instances and a few atomic increments, so
+ * the metrics can be left on in production.
+ */
+public class EPPJmxMetrics implements EPPMetrics {
+
+	/** Log4j category for logging */
+	private static Logger cat = Logger.getLogger(EPPJmxMetrics.class
+			.getName(), EPPCatFactory.getInstance().getFactory());
+
+	/** JMX domain of the MBeans */
+	public static final String DOMAIN = "com.verisign.epp";
+
+	/** Key used for a <code>null</code> tag */
+	private static final String NO_TAG = "";
+
+	/** MBean server the MBeans are registered in */
+	private MBeanServer server;
+
+	/** Timers by name and tag */
+	private ConcurrentHashMap<String, ConcurrentHashMap<String, EPPJmxTimer>> timers = new ConcurrentHashMap<String, ConcurrentHashMap<String, EPPJmxTimer>>();
+
+	/** Counters by name and tag */
+	private ConcurrentHashMap<String, ConcurrentHashMap<String, EPPJmxCounter>> counters = new ConcurrentHashMap<String, ConcurrentHashMap<String, EPPJmxCounter>>();
+
+	/** Registered MBean names of the metrics */
+	private ConcurrentHashMap<ObjectName, Object> registered = new ConcurrentHashMap<ObjectName, Object>();
+
+	/**
+	 * Creates the metrics with the platform MBean server.
+	 */
+	public EPPJmxMetrics() {
+		this(ManagementFactory.getPlatformMBeanServer());
+	}
+
+	/**
+	 * Creates the metrics with a specific MBean server.
+	 *
+	 * @param aServer MBean server to register the MBeans in
+	 */
+	public EPPJmxMetrics(MBeanServer aServer) {
+		this.server = aServer;
+	}
+
+	/**
+	 * Increments a counter, which is created and registered on first use.
+	 *
+	 * @param aName Metric name
+	 * @param aTag Metric tag or <code>null</code> for no tag
+	 * @param aDelta Value to add to the counter
+	 */
+	public void increment(String aName, String aTag, long aDelta) {
+		this.getCounter(aName, aTag).add(aDelta);
+	}
+
+	/**
+	 * Records a latency in a timer, which is created and registered on first
+	 * use.
+	 *
+	 * @param aName Metric name
+	 * @param aTag Metric tag or <code>null</code> for no tag
+	 * @param aNanos Latency in nanoseconds
+	 */
+	public void recordTime(String aName, String aTag, long aNanos) {
+		this.getTimer(aName, aTag).record(aNanos);
+	}
+
+	/**
+	 * Registers a gauge MBean, which replaces a gauge MBean registered with
+	 * the same name and tag.
+	 *
+	 * @param aName Metric name
+	 * @param aTag Metric tag or <code>null</code> for no tag
+	 * @param aGauge Gauge to sample
+	 */
+	public void registerGauge(String aName, String aTag, EPPMetricsGauge aGauge) {
+		ObjectName theName = createName("Gauge", aName, aTag);
+		if (theName == null) {
+			return;
+		}
+
+		synchronized (this.registered) {
+			this.unregister(theName);
+			this.register(theName, new EPPJmxGauge(aGauge));
+		}
+	}
+
+	/**
+	 * Unregisters a gauge MBean.
+	 *
+	 * @param aName Metric name
+	 * @param aTag Metric tag or <code>null</code> for no tag
+	 */
+	public void unregisterGauge(String aName, String aTag) {
+		ObjectName theName = createName("Gauge", aName, aTag);
+		if (theName == null) {
+			return;
+		}
+
+		synchronized (this.registered) {
+			this.unregister(theName);
+		}
+	}
+
+	/**
+	 * Unregisters all of the MBeans.  The metrics recorded after the close
+	 * are kept but no longer registered.
+	 */
+	public void close() {
+		synchronized (this.registered) {
+			Iterator<ObjectName> theIter = this.registered.keySet().iterator();
+			while (theIter.hasNext()) {
+				ObjectName theName = theIter.next();
+				try {
+					if (this.server.isRegistered(theName)) {
+						this.server.unregisterMBean(theName);
+					}
+				}
+				catch (JMException ex) {
+					cat.warn("close(): Error unregistering MBean " + theName + ": " + ex);
+				}
+				theIter.remove();
+			}
+		}
+	}
+
+	/**
+	 * Gets a timer, which is created and registered if it does not exist.
+	 *
+	 * @param aName Metric name
+	 * @param aTag Metric tag or <code>null</code> for no tag
+	 *
+	 * @return Timer of the name and tag
+	 */
+	public EPPJmxTimer getTimer(String aName, String aTag) {
+		String theTag = (aTag == null ? NO_TAG : aTag);
+
+		ConcurrentHashMap<String, EPPJmxTimer> theTimers = this.timers.get(aName);
+		if (theTimers != null) {
+			EPPJmxTimer theTimer = theTimers.get(theTag);
+			if (theTimer != null) {
+				return theTimer;
+			}
+		}
+
+		synchronized (this.registered) {
+			theTimers = this.timers.get(aName);
+			if (theTimers == null) {
+				theTimers = new ConcurrentHashMap<String, EPPJmxTimer>();
+				this.timers.put(aName, theTimers);
+			}
+
+			EPPJmxTimer theTimer = theTimers.get(theTag);
+			if (theTimer == null) {
+				theTimer = new EPPJmxTimer();
+				theTimers.put(theTag, theTimer);
+				this.register(createName("Timer", aName, aTag), theTimer);
+			}
+			return theTimer;
+		}
+	}
+
+	/**
+	 * Gets a counter, which is created and registered if it does not exist.
+	 *
+	 * @param aName Metric name
+	 * @param aTag Metric tag or <code>null</code> for no tag
+	 *
+	 * @return Counter of the name and tag
+	 */
+	public EPPJmxCounter getCounter(String aName, String aTag) {
+		String theTag = (aTag == null ? NO_TAG : aTag);
+
+		ConcurrentHashMap<String, EPPJmxCounter> theCounters = this.counters.get(aName);
+		if (theCounters != null) {
+			EPPJmxCounter theCounter = theCounters.get(theTag);
+			if (theCounter != null) {
+				return theCounter;
+			}
+		}
+
+		synchronized (this.registered) {
+			theCounters = this.counters.get(aName);
+			if (theCounters == null) {
+				theCounters = new ConcurrentHashMap<String, EPPJmxCounter>();
+				this.counters.put(aName, theCounters);
+			}
+
+			EPPJmxCounter theCounter = theCounters.get(theTag);
+			if (theCounter == null) {
+				theCounter = new EPPJmxCounter();
+				theCounters.put(theTag, theCounter);
+				this.register(createName("Counter", aName, aTag), theCounter);
+			}
+			return theCounter;
+		}
+	}
+
+	/**
+	 * Creates the MBean name of a metric.
+	 *
+	 * @param aType MBean type (<code>Timer</code>, <code>Counter</code>, or
+	 * <code>Gauge</code>)
+	 * @param aName Metric name
+	 * @param aTag Metric tag or <code>null</code> for no tag
+	 *
+	 * @return MBean name or <code>null</code> if the name is not valid
+	 */
+	static ObjectName createName(String aType, String aName, String aTag) {
+		StringBuilder theName = new StringBuilder(DOMAIN);
+		theName.append(":type=").append(aType);
+		theName.append(",name=").append(ObjectName.quote(aName));
+		if (aTag != null) {
+			theName.append(",tag=").append(ObjectName.quote(shortenTag(aTag)));
+		}
+
+		try {
+			return new ObjectName(theName.toString());
+		}
+		catch (JMException ex) {
+			cat.warn("createName(): Invalid MBean name " + theName + ": " + ex);
+			return null;
+		}
+	}
+
+	/**
+	 * Shortens a tag that starts with a fully qualified class name, like
+	 * <code>com.verisign.epp.codec.domain.EPPDomainCheckCmd.1000</code>, to
+	 * start with the simple class name, like
+	 * <code>EPPDomainCheckCmd.1000</code>.
+	 *
+	 * @param aTag Metric tag
+	 *
+	 * @return Shortened tag
+	 */
+	static String shortenTag(String aTag) {
+		int theStart = 0;
+		int theDot = aTag.indexOf('.');
+		while ((theDot != -1) && (theDot > theStart)
+				&& Character.isLowerCase(aTag.charAt(theStart))) {
+			theStart = theDot + 1;
+			theDot = aTag.indexOf('.', theStart);
+		}
+
+		// Not a package prefix followed by a class name?
+		if ((theStart == 0) || (theStart >= aTag.length())
+				|| !Character.isUpperCase(aTag.charAt(theStart))) {
+			return aTag;
+		}
+		return aTag.substring(theStart);
+	}
+
+	/**
+	 * Registers an MBean.  Errors are logged, since the metrics must not
+	 * affect the processing.
+	 *
+	 * @param aName MBean name or <code>null</code> to skip the registration
+	 * @param aMBean MBean to register
+	 */
+	private void register(ObjectName aName, Object aMBean) {
+		if (aName == null) {
+			return;
+		}
+
+		try {
+			if (this.server.isRegistered(aName)) {
+				this.server.unregisterMBean(aName);
+			}
+			this.server.registerMBean(aMBean, aName);
+			this.registered.put(aName, aMBean);
+		}
+		catch (JMException ex) {
+			cat.warn("register(): Error registering MBean " + aName + ": " + ex);
+		}
+	}
+
+	/**
+	 * Unregisters an MBean registered by this instance.
+	 *
+	 * @param aName MBean name
+	 */
+	private void unregister(ObjectName aName) {
+		if (this.registered.remove(aName) == null) {
+			return;
+		}
+
+		try {
+			if (this.server.isRegistered(aName)) {
+				this.server.unregisterMBean(aName);
+			}
+		}
+		catch (JMException ex) {
+			cat.warn("unregister(): Error unregistering MBean " + aName + ": " + ex);
+		}
+	}
+
+	/**
+	 * Gets the registered MBeans.
+	 *
+	 * @return Map of the MBean names to the MBeans
+	 */
+	public Map<ObjectName, Object> getMBeans() {
+		return new HashMap<ObjectName, Object>(this.registered);
+	}
+
+}
+
+// End class EPPJmxMetrics
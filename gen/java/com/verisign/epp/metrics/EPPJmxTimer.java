@@ -0,0 +1,244 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency timer of {@link EPPJmxMetrics} with a fixed size log-linear
+ * histogram.  Each power of two of nanoseconds is split into
+ * <code>SUB_BUCKETS</code> linear buckets, so a percentile is reported with
+ * a relative error of at most 12.5% while recording a latency is a few
+ * atomic increments with no allocation or lock.
+ */
+public class EPPJmxTimer implements EPPJmxTimerMBean {
+
+	/** Number of bits of the linear sub-buckets */
+	private static final int SUB_BUCKET_BITS = 3;
+
+	/** Number of linear sub-buckets per power of two */
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/** Number of buckets to cover all positive <code>long</code> values */
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	/** Number of samples */
+	private LongAdder count = new LongAdder();
+
+	/** Sum of the samples in nanoseconds */
+	private LongAdder total = new LongAdder();
+
+	/** Maximum sample in nanoseconds */
+	private AtomicLong max = new AtomicLong();
+
+	/** Histogram bucket counts */
+	private AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+	/**
+	 * Records a latency.
+	 *
+	 * @param aNanos Latency in nanoseconds.  A negative latency is recorded
+	 * as <code>0</code>.
+	 */
+	public void record(long aNanos) {
+		long theNanos = Math.max(aNanos, 0);
+
+		this.count.increment();
+		this.total.add(theNanos);
+		this.buckets.incrementAndGet(bucketIndex(theNanos));
+
+		long theMax = this.max.get();
+		while ((theNanos > theMax) && !this.max.compareAndSet(theMax, theNanos)) {
+			theMax = this.max.get();
+		}
+	}
+
+	/**
+	 * Gets the bucket index of a value.
+	 *
+	 * @param aValue Non-negative value
+	 *
+	 * @return Bucket index
+	 */
+	static int bucketIndex(long aValue) {
+		if (aValue < SUB_BUCKETS) {
+			return (int) aValue;
+		}
+		int theExp = 63 - Long.numberOfLeadingZeros(aValue);
+		int theSub = (int) ((aValue >>> (theExp - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+		return ((theExp - SUB_BUCKET_BITS + 1) * SUB_BUCKETS) + theSub;
+	}
+
+	/**
+	 * Gets the highest value of a bucket.
+	 *
+	 * @param aIndex Bucket index
+	 *
+	 * @return Highest value that maps to the bucket
+	 */
+	static long bucketHighestValue(int aIndex) {
+		if (aIndex < SUB_BUCKETS) {
+			return aIndex;
+		}
+		int theExp = (aIndex / SUB_BUCKETS) + SUB_BUCKET_BITS - 1;
+		int theSub = aIndex % SUB_BUCKETS;
+		long theWidth = 1L << (theExp - SUB_BUCKET_BITS);
+		return ((SUB_BUCKETS + theSub) * theWidth) + theWidth - 1;
+	}
+
+	/**
+	 * Gets the latency at a percentile.
+	 *
+	 * @param aPercentile Percentile between <code>0</code> and <code>100</code>
+	 *
+	 * @return Latency in nanoseconds, which is the highest value of the
+	 * bucket of the percentile limited to the maximum, or <code>0</code> if
+	 * there are no samples
+	 */
+	public long getPercentileNanos(double aPercentile) {
+		long[] theCounts = new long[BUCKETS];
+		long theTotal = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			theCounts[i] = this.buckets.get(i);
+			theTotal += theCounts[i];
+		}
+		if (theTotal == 0) {
+			return 0;
+		}
+
+		long theRank = (long) Math.ceil((Math.min(Math.max(aPercentile, 0.0), 100.0) / 100.0) * theTotal);
+		theRank = Math.max(theRank, 1);
+
+		long theCumulative = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			theCumulative += theCounts[i];
+			if (theCumulative >= theRank) {
+				return Math.min(bucketHighestValue(i), this.max.get());
+			}
+		}
+		return this.max.get();
+	}
+
+	/**
+	 * Converts nanoseconds to microseconds.
+	 *
+	 * @param aNanos Nanoseconds
+	 *
+	 * @return Microseconds
+	 */
+	private static double toMicros(double aNanos) {
+		return aNanos / TimeUnit.MICROSECONDS.toNanos(1);
+	}
+
+	/**
+	 * Gets the number of recorded latencies.
+	 *
+	 * @return Number of samples
+	 */
+	public long getCount() {
+		return this.count.sum();
+	}
+
+	/**
+	 * Gets the sum of the recorded latencies.
+	 *
+	 * @return Total time in milliseconds
+	 */
+	public double getTotalMillis() {
+		return this.total.sum() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+	/**
+	 * Gets the mean latency.
+	 *
+	 * @return Mean in microseconds or <code>0</code> if there are no samples
+	 */
+	public double getMeanMicros() {
+		long theCount = this.count.sum();
+		if (theCount == 0) {
+			return 0;
+		}
+		return toMicros(this.total.sum() / (double) theCount);
+	}
+
+	/**
+	 * Gets the maximum latency.
+	 *
+	 * @return Maximum in microseconds
+	 */
+	public double getMaxMicros() {
+		return toMicros(this.max.get());
+	}
+
+	/**
+	 * Gets the median latency.
+	 *
+	 * @return 50th percentile in microseconds
+	 */
+	public double getP50Micros() {
+		return toMicros(this.getPercentileNanos(50.0));
+	}
+
+	/**
+	 * Gets the 90th percentile latency.
+	 *
+	 * @return 90th percentile in microseconds
+	 */
+	public double getP90Micros() {
+		return toMicros(this.getPercentileNanos(90.0));
+	}
+
+	/**
+	 * Gets the 99th percentile latency.
+	 *
+	 * @return 99th percentile in microseconds
+	 */
+	public double getP99Micros() {
+		return toMicros(this.getPercentileNanos(99.0));
+	}
+
+	/**
+	 * Gets the 99.9th percentile latency.
+	 *
+	 * @return 99.9th percentile in microseconds
+	 */
+	public double getP999Micros() {
+		return toMicros(this.getPercentileNanos(99.9));
+	}
+
+	/**
+	 * Resets the timer.  Latencies recorded concurrently with the reset can
+	 * be partially included.
+	 */
+	public void reset() {
+		this.count.reset();
+		this.total.reset();
+		this.max.set(0);
+		for (int i = 0; i < BUCKETS; i++) {
+			this.buckets.set(i, 0);
+		}
+	}
+
+}
+
+// End class EPPJmxTimer
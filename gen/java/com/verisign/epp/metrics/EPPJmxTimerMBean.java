@@ -0,0 +1,90 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.metrics;
+
+/**
+ * JMX management interface of {@link EPPJmxTimer}.
+ */
+public interface EPPJmxTimerMBean {
+
+	/**
+	 * Gets the number of recorded latencies.
+	 *
+	 * @return Number of samples
+	 */
+	public long getCount();
+
+	/**
+	 * Gets the sum of the recorded latencies.
+	 *
+	 * @return Total time in milliseconds
+	 */
+	public double getTotalMillis();
+
+	/**
+	 * Gets the mean latency.
+	 *
+	 * @return Mean in microseconds or <code>0</code> if there are no samples
+	 */
+	public double getMeanMicros();
+
+	/**
+	 * Gets the maximum latency.
+	 *
+	 * @return Maximum in microseconds
+	 */
+	public double getMaxMicros();
+
+	/**
+	 * Gets the median latency.
+	 *
+	 * @return 50th percentile in microseconds
+	 */
+	public double getP50Micros();
+
+	/**
+	 * Gets the 90th percentile latency.
+	 *
+	 * @return 90th percentile in microseconds
+	 */
+	public double getP90Micros();
+
+	/**
+	 * Gets the 99th percentile latency.
+	 *
+	 * @return 99th percentile in microseconds
+	 */
+	public double getP99Micros();
+
+	/**
+	 * Gets the 99.9th percentile latency.
+	 *
+	 * @return 99.9th percentile in microseconds
+	 */
+	public double getP999Micros();
+
+	/**
+	 * Resets the timer.
+	 */
+	public void reset();
+
+}
+
+// End interface EPPJmxTimerMBean
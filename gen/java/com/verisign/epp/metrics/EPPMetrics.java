@@ -0,0 +1,203 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.metrics;
+
+/**
+ * Service provider interface (SPI) of the SDK metrics.  The SDK records the
+ * counters, latencies, and gauges of the sessions, session pools, XML
+ * stream, object pools, and server dispatcher through the
+ * <code>EPPMetrics</code> instance returned by
+ * {@link EPPMetricsFactory#getMetrics()}.  The implementation is selected
+ * with the <code>EPP.MetricsClassName</code> configuration property, where
+ * the default implementation, {@link EPPJmxMetrics}, exposes the metrics as
+ * JMX MBeans and {@link EPPNullMetrics} disables the metrics.  A custom
+ * implementation must have a public default constructor.<br>
+ * <br>
+ * Each metric is identified by a name, defined by the constants of this
+ * interface, and an optional tag (i.e. the command class, the pool name, or
+ * the namespace).  The record methods are called on the hot paths of the
+ * SDK by any number of threads, so an implementation must be thread-safe
+ * and must not block.
+ */
+public interface EPPMetrics {
+
+	/**
+	 * Timer of <code>EPPSession.processDocument</code> from the encode of the
+	 * command to the validation of the response, tagged with the command
+	 * class name.
+	 */
+	public static final String SESSION_COMMAND = "session.command";
+
+	/**
+	 * Counter of the <code>EPPSession.processDocument</code> results, tagged
+	 * with the command class name and the result code separated by a
+	 * <code>'.'</code>, like <code>EPPDomainCheckCmd.1000</code>. The result
+	 * code is <code>error</code> if no response was received.
+	 */
+	public static final String SESSION_RESULT = "session.result";
+
+	/**
+	 * Timer of reading an EPP packet from the stream, which includes waiting
+	 * for the peer.  On the client it is the response time of the server and
+	 * the network.
+	 */
+	public static final String XML_READ = "xml.read";
+
+	/** Counter of the bytes read from the stream, including the header */
+	public static final String XML_READ_BYTES = "xml.read.bytes";
+
+	/** Timer of parsing an EPP packet to a DOM <code>Document</code> */
+	public static final String XML_PARSE = "xml.parse";
+
+	/** Timer of serializing a DOM <code>Document</code> to an EPP packet */
+	public static final String XML_SERIALIZE = "xml.serialize";
+
+	/** Timer of writing an EPP packet to the stream */
+	public static final String XML_WRITE = "xml.write";
+
+	/** Counter of the bytes written to the stream, including the header */
+	public static final String XML_WRITE_BYTES = "xml.write.bytes";
+
+	/**
+	 * Timer of checking out a parser or transformer from an
+	 * <code>EPPObjectPool</code>, tagged with the pool name.
+	 */
+	public static final String OBJECT_POOL_BORROW = "pool.object.borrow";
+
+	/**
+	 * Counter of the objects created by an <code>EPPObjectPool</code>, tagged
+	 * with the pool name.
+	 */
+	public static final String OBJECT_POOL_CREATED = "pool.object.created";
+
+	/**
+	 * Timer of borrowing a session from a session pool, which includes waiting
+	 * for an available session, tagged with the system name.
+	 */
+	public static final String SESSION_POOL_BORROW = "pool.session.borrow";
+
+	/** Counter of failures to borrow a session, tagged with the system name */
+	public static final String SESSION_POOL_BORROW_FAILED = "pool.session.borrowFailed";
+
+	/** Gauge of the active (borrowed) sessions, tagged with the system name */
+	public static final String SESSION_POOL_ACTIVE = "pool.session.active";
+
+	/** Gauge of the idle sessions, tagged with the system name */
+	public static final String SESSION_POOL_IDLE = "pool.session.idle";
+
+	/** Counter of the sessions created by a session pool */
+	public static final String SESSION_POOL_CREATED = "pool.session.created";
+
+	/**
+	 * Counter of the sessions evicted from a session pool, tagged with the
+	 * reason (<code>absoluteTimeout</code>, <code>keepAliveFailed</code>, or
+	 * <code>refreshed</code>).
+	 */
+	public static final String SESSION_POOL_EVICTED = "pool.session.evicted";
+
+	/**
+	 * Gauge of the command latency average in microseconds of a system of an
+	 * <code>EPPSessionRouter</code>, tagged with the route and system names
+	 * separated by a <code>'.'</code>.
+	 */
+	public static final String ROUTE_LATENCY = "pool.route.latency";
+
+	/**
+	 * Gauge of the command error rate average in per mille of a system of an
+	 * <code>EPPSessionRouter</code>, tagged like <code>ROUTE_LATENCY</code>.
+	 */
+	public static final String ROUTE_ERROR_RATE = "pool.route.errorRate";
+
+	/**
+	 * Counter of the circuits opened by an <code>EPPSessionRouter</code>,
+	 * tagged like <code>ROUTE_LATENCY</code>.
+	 */
+	public static final String ROUTE_CIRCUIT_OPEN = "pool.route.circuitOpen";
+
+	/**
+	 * Timer of the server event handlers called by
+	 * <code>EPPDispatcher</code>, tagged with the handler namespace.
+	 */
+	public static final String DISPATCHER_HANDLER = "dispatcher.handler";
+
+	/**
+	 * Counter of the messages with no registered handler in
+	 * <code>EPPDispatcher</code>, tagged with the namespace.
+	 */
+	public static final String DISPATCHER_NO_HANDLER = "dispatcher.noHandler";
+
+	/**
+	 * Counter of the commands rejected by an <code>EPPDispatcher</code> worker
+	 * pool because the queue was full or the handler timed out, tagged with
+	 * the pool name.
+	 */
+	public static final String DISPATCHER_REJECTED = "dispatcher.rejected";
+
+	/**
+	 * Gauge of the commands waiting for a worker thread of an
+	 * <code>EPPDispatcher</code> worker pool, tagged with the pool name.
+	 */
+	public static final String DISPATCHER_QUEUED = "dispatcher.queued";
+
+	/**
+	 * Increments a counter.
+	 *
+	 * @param aName Metric name
+	 * @param aTag Metric tag or <code>null</code> for no tag
+	 * @param aDelta Value to add to the counter
+	 */
+	public void increment(String aName, String aTag, long aDelta);
+
+	/**
+	 * Records a latency in a timer.
+	 *
+	 * @param aName Metric name
+	 * @param aTag Metric tag or <code>null</code> for no tag
+	 * @param aNanos Latency in nanoseconds
+	 */
+	public void recordTime(String aName, String aTag, long aNanos);
+
+	/**
+	 * Registers a gauge that is sampled by the implementation.  A gauge
+	 * registered with the same name and tag replaces the previous one.
+	 *
+	 * @param aName Metric name
+	 * @param aTag Metric tag or <code>null</code> for no tag
+	 * @param aGauge Gauge to sample
+	 */
+	public void registerGauge(String aName, String aTag, EPPMetricsGauge aGauge);
+
+	/**
+	 * Unregisters a gauge.
+	 *
+	 * @param aName Metric name
+	 * @param aTag Metric tag or <code>null</code> for no tag
+	 */
+	public void unregisterGauge(String aName, String aTag);
+
+	/**
+	 * Releases the resources of the implementation, which is called when it
+	 * is replaced by another implementation.
+	 */
+	public void close();
+
+}
+
+// End interface EPPMetrics
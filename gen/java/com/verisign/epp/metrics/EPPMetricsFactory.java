@@ -0,0 +1,145 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.metrics;
+
+import org.apache.log4j.Logger;
+
+import com.verisign.epp.util.EPPCatFactory;
+import com.verisign.epp.util.EPPEnv;
+
+/**
+ * Singleton that holds the <code>EPPMetrics</code> implementation used by
+ * the SDK.  The implementation is created from the
+ * <code>EPP.MetricsClassName</code> configuration property (see
+ * {@link EPPEnv#getMetricsClassName()}) on the first call to
+ * {@link #getMetrics()}, and is re-created by {@link #init()}, which is
+ * called by <code>EPPApplication</code> and the stub server once the
+ * configuration is loaded.  The default implementation is
+ * {@link EPPJmxMetrics}.<br>
+ * <br>
+ * The metrics are recorded with:<br>
+ * <br>
+ * <code>EPPMetricsFactory.getInstance().getMetrics().recordTime(EPPMetrics.XML_PARSE, null, theNanos);</code>
+ */
+public class EPPMetricsFactory {
+
+	/** Log4j category for logging */
+	private static Logger cat = Logger.getLogger(EPPMetricsFactory.class
+			.getName(), EPPCatFactory.getInstance().getFactory());
+
+	/** Default <code>EPPMetrics</code> implementation class name */
+	public static final String DEFAULT_METRICS = "com.verisign.epp.metrics.EPPJmxMetrics";
+
+	/** The one and only instance */
+	private static EPPMetricsFactory instance = new EPPMetricsFactory();
+
+	/** Current implementation or <code>null</code> if not initialized */
+	private volatile EPPMetrics metrics = null;
+
+	/**
+	 * Singleton constructor.
+	 */
+	private EPPMetricsFactory() {
+	}
+
+	/**
+	 * Gets the <i>Singleton Design Pattern</i> instance.
+	 *
+	 * @return The one and only instance
+	 */
+	public static EPPMetricsFactory getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Gets the metrics implementation, which is created on the first call if
+	 * {@link #init()} was not called.
+	 *
+	 * @return Metrics implementation
+	 */
+	public EPPMetrics getMetrics() {
+		EPPMetrics theMetrics = this.metrics;
+		if (theMetrics == null) {
+			synchronized (this) {
+				if (this.metrics == null) {
+					this.init();
+				}
+				theMetrics = this.metrics;
+			}
+		}
+		return theMetrics;
+	}
+
+	/**
+	 * Creates the metrics implementation defined by
+	 * <code>EPP.MetricsClassName</code>.  The current implementation is kept
+	 * if it is of the configured class, so the metrics recorded so far are not
+	 * lost, or else it is closed and replaced.  If the configured class can
+	 * not be created, an error is logged and the metrics are disabled with
+	 * <code>EPPNullMetrics</code>.
+	 */
+	public synchronized void init() {
+		String theClassName = EPPEnv.getMetricsClassName();
+		if (theClassName == null) {
+			theClassName = DEFAULT_METRICS;
+		}
+
+		if ((this.metrics != null) && this.metrics.getClass().getName().equals(theClassName)) {
+			return;
+		}
+
+		EPPMetrics theMetrics;
+		try {
+			theMetrics = (EPPMetrics) Class.forName(theClassName).newInstance();
+		}
+		catch (Exception ex) {
+			cat.error("init(): Error creating metrics class " + theClassName + ", disabling metrics: " + ex);
+			theMetrics = new EPPNullMetrics();
+		}
+
+		this.setMetrics(theMetrics);
+	}
+
+	/**
+	 * Sets the metrics implementation, which closes the current
+	 * implementation.
+	 *
+	 * @param aMetrics Metrics implementation to use
+	 */
+	public synchronized void setMetrics(EPPMetrics aMetrics) {
+		if (aMetrics == null) {
+			throw new IllegalArgumentException("EPPMetricsFactory.setMetrics(): null metrics");
+		}
+
+		EPPMetrics theOld = this.metrics;
+		this.metrics = aMetrics;
+
+		if ((theOld != null) && (theOld != aMetrics)) {
+			theOld.close();
+		}
+
+		if (cat.isInfoEnabled()) {
+			cat.info("setMetrics(): Using metrics class " + aMetrics.getClass().getName());
+		}
+	}
+
+}
+
+// End class EPPMetricsFactory
@@ -0,0 +1,39 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.metrics;
+
+/**
+ * Gauge registered with {@link EPPMetrics#registerGauge(String, String, EPPMetricsGauge)}
+ * that is sampled by the metrics implementation, like the number of active
+ * sessions of a session pool.
+ */
+public interface EPPMetricsGauge {
+
+	/**
+	 * Gets the current value of the gauge.  The method can be called by any
+	 * thread and must not block.
+	 *
+	 * @return Current value
+	 */
+	public long getValue();
+
+}
+
+// End interface EPPMetricsGauge
@@ -0,0 +1,353 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.metrics;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Properties;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import junit.framework.Assert;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.apache.commons.pool.impl.GenericObjectPool;
+
+import com.verisign.epp.codec.gen.EPPCodecTst;
+import com.verisign.epp.codec.gen.EPPLoginCmd;
+import com.verisign.epp.codec.gen.EPPPollCmd;
+import com.verisign.epp.codec.gen.EPPResponse;
+import com.verisign.epp.interfaces.EPPApplicationSingle;
+import com.verisign.epp.interfaces.EPPSession;
+import com.verisign.epp.pool.EPPSessionPool;
+import com.verisign.epp.pool.EPPSessionPoolableFactory;
+import com.verisign.epp.serverstub.Server;
+import com.verisign.epp.util.EPPXMLStream;
+
+/**
+ * Is a unit test of the metrics SPI with the default JMX implementation,
+ * <code>EPPJmxMetrics</code>.  The session, session pool, and dispatcher
+ * metrics are checked against a stub server that is run in the test JVM
+ * with the plain transport on a free port, so the test does not require
+ * an external server.  The configuration is read from the
+ * <code>EPP.ConfigFile</code> system property, with a default of
+ * <code>epp.config</code>.
+ */
+public class EPPMetricsTst extends TestCase {
+
+	/** Name of the EPP configuration file */
+	private static String configFileName = "epp.config";
+
+	/** Port of the stub server run by the test */
+	private static int serverPort;
+
+	/**
+	 * Allocates an <code>EPPMetricsTst</code> with a logical name.
+	 *
+	 * @param name Logical name of the test
+	 */
+	public EPPMetricsTst(String name) {
+		super(name);
+	}
+
+	/**
+	 * Unit test of the metrics recorded by <code>EPPXMLStream</code> and of the
+	 * <code>EPPJmxMetrics</code> MBeans.  A login command is round tripped
+	 * through the stream, and the timers and counters are checked through the
+	 * MBean attributes.  The gauges, the timer percentiles, and the shortening
+	 * of the class name tags are also checked.
+	 */
+	public void testJmxMetrics() {
+		EPPCodecTst.printStart("testJmxMetrics");
+
+		MBeanServer theServer = MBeanServerFactory.newMBeanServer();
+		EPPJmxMetrics theMetrics = new EPPJmxMetrics(theServer);
+		EPPMetrics thePrevious = EPPMetricsFactory.getInstance().getMetrics();
+		EPPMetricsFactory.getInstance().setMetrics(theMetrics);
+
+		EPPLoginCmd theCommand = EPPCodecTst.createLoginCmd();
+
+		final int iterations = 10;
+		try {
+			EPPXMLStream theStream = new EPPXMLStream();
+			for (int i = 0; i < iterations; i++) {
+				EPPCodecTst.roundTrip(theStream, theCommand);
+			}
+
+			String[] theTimers = { EPPMetrics.XML_SERIALIZE, EPPMetrics.XML_WRITE, EPPMetrics.XML_READ,
+					EPPMetrics.XML_PARSE };
+			for (int i = 0; i < theTimers.length; i++) {
+				ObjectName theName = new ObjectName(
+						"com.verisign.epp:type=Timer,name=\"" + theTimers[i] + "\"");
+				Assert.assertEquals("Count of " + theTimers[i], new Long(iterations),
+						theServer.getAttribute(theName, "Count"));
+				Assert.assertTrue("Max of " + theTimers[i] + " > 0",
+						((Double) theServer.getAttribute(theName, "MaxMicros")).doubleValue() > 0);
+			}
+
+			long theWritten = theMetrics.getCounter(EPPMetrics.XML_WRITE_BYTES, null).getCount();
+			Assert.assertTrue("Bytes written > 0", theWritten > 0);
+			Assert.assertEquals("Bytes read equal bytes written", theWritten,
+					theMetrics.getCounter(EPPMetrics.XML_READ_BYTES, null).getCount());
+
+			// Gauge is sampled when read and removed when unregistered
+			ObjectName theGaugeName = new ObjectName(
+					"com.verisign.epp:type=Gauge,name=\"" + EPPMetrics.SESSION_POOL_IDLE + "\",tag=\"test\"");
+			theMetrics.registerGauge(EPPMetrics.SESSION_POOL_IDLE, "test", new EPPMetricsGauge() {
+
+				public long getValue() {
+					return 7;
+				}
+			});
+			Assert.assertEquals(new Long(7), theServer.getAttribute(theGaugeName, "Value"));
+			theMetrics.unregisterGauge(EPPMetrics.SESSION_POOL_IDLE, "test");
+			Assert.assertFalse("Gauge unregistered", theServer.isRegistered(theGaugeName));
+
+			// Class name tag is shortened in the MBean name
+			theMetrics.increment(EPPMetrics.SESSION_RESULT, EPPLoginCmd.class.getName() + ".1000", 1);
+			Assert.assertTrue("Shortened tag", theServer.isRegistered(new ObjectName(
+					"com.verisign.epp:type=Counter,name=\"" + EPPMetrics.SESSION_RESULT
+					+ "\",tag=\"EPPLoginCmd.1000\"")));
+
+			// Percentiles are within the 12.5% bucket error
+			EPPJmxTimer theTimer = theMetrics.getTimer("test.timer", null);
+			for (long theValue = 1; theValue <= 100000; theValue++) {
+				theTimer.record(theValue * 1000);
+			}
+			double[] thePercentiles = { 50.0, 90.0, 99.0, 99.9 };
+			for (int i = 0; i < thePercentiles.length; i++) {
+				double theExpected = thePercentiles[i] * 1000 * 1000;
+				double theActual = theTimer.getPercentileNanos(thePercentiles[i]);
+				Assert.assertTrue("Percentile " + thePercentiles[i] + " = " + theActual + ", expected "
+						+ theExpected, (theActual >= theExpected) && (theActual <= theExpected * 1.125));
+			}
+			Assert.assertEquals(100000.0, theTimer.getMaxMicros(), 0.0);
+			Assert.assertEquals(50000.5, theTimer.getMeanMicros(), 0.001);
+
+			theTimer.reset();
+			Assert.assertEquals(0, theTimer.getCount());
+			Assert.assertEquals(0, theTimer.getPercentileNanos(50.0));
+
+			// Closing unregisters all of the MBeans
+			theMetrics.close();
+			Assert.assertTrue("MBeans unregistered", theServer.queryNames(
+					new ObjectName("com.verisign.epp:*"), null).isEmpty());
+		}
+		catch (Exception ex) {
+			ex.printStackTrace();
+			Assert.fail("testJmxMetrics(): Exception " + ex);
+		}
+		finally {
+			EPPMetricsFactory.getInstance().setMetrics(thePrevious);
+		}
+
+		EPPCodecTst.printEnd("testJmxMetrics");
+	}
+
+	/**
+	 * Unit test of the metrics recorded by <code>EPPSession</code>,
+	 * <code>EPPSessionPool</code>, and <code>EPPDispatcher</code>.  A session
+	 * sends a poll request to the stub server, and a session is borrowed from
+	 * and returned to a session pool.  The command latency and result
+	 * (<code>SESSION_COMMAND</code> and <code>SESSION_RESULT</code>), the
+	 * pool borrow time and created sessions, and the server handler time are
+	 * checked.
+	 */
+	public void testSessionMetrics() {
+		EPPCodecTst.printStart("testSessionMetrics");
+
+		MBeanServer theServer = MBeanServerFactory.newMBeanServer();
+		EPPJmxMetrics theMetrics = new EPPJmxMetrics(theServer);
+		EPPMetrics thePrevious = EPPMetricsFactory.getInstance().getMetrics();
+		EPPMetricsFactory.getInstance().setMetrics(theMetrics);
+
+		try {
+			// Session command and result
+			EPPSession theSession = new EPPSession();
+			theSession.setClientID("ClientX");
+			theSession.setPassword("foo-BAR2");
+			theSession.setTransId("ABC-12345-XYZ");
+			theSession.initSession();
+
+			theSession.setPollOp(EPPSession.OP_REQ);
+			EPPResponse theResponse = theSession.sendPoll();
+			theSession.endSession();
+
+			String theType = EPPPollCmd.class.getName();
+			Assert.assertEquals("Poll latency count", 1,
+					theMetrics.getTimer(EPPMetrics.SESSION_COMMAND, theType).getCount());
+			Assert.assertEquals("Poll result count", 1, theMetrics.getCounter(EPPMetrics.SESSION_RESULT,
+					theType + "." + theResponse.getResult().getCode()).getCount());
+
+			// Handler time of the stub server
+			Assert.assertFalse("Dispatcher handler timers", theServer.queryNames(
+					new ObjectName("com.verisign.epp:type=Timer,name=\"" + EPPMetrics.DISPATCHER_HANDLER
+					+ "\",*"), null).isEmpty());
+
+			// Session pool borrow and created sessions
+			GenericObjectPool.Config theConfig = new GenericObjectPool.Config();
+			theConfig.maxActive = 1;
+			theConfig.maxIdle = 1;
+			theConfig.minIdle = 0;
+			theConfig.maxWait = 10000;
+			theConfig.whenExhaustedAction = GenericObjectPool.WHEN_EXHAUSTED_BLOCK;
+			theConfig.timeBetweenEvictionRunsMillis = -1;
+
+			EPPSessionPoolableFactory theFactory =
+				new EPPSessionPoolableFactory("ClientX", "foo-BAR2", 600000, 600000);
+			theFactory.setServerName("localhost");
+			theFactory.setServerPort(Integer.valueOf(serverPort));
+
+			EPPSessionPool thePool = EPPSessionPool.getInstance();
+			thePool.init(theFactory, theConfig);
+			try {
+				thePool.returnObject(thePool.borrowObject());
+				thePool.returnObject(thePool.borrowObject());
+			}
+			finally {
+				thePool.close();
+			}
+
+			Assert.assertEquals("Pool borrow count", 2,
+					theMetrics.getTimer(EPPMetrics.SESSION_POOL_BORROW, EPPSessionPool.DEFAULT).getCount());
+			Assert.assertEquals("Pool created count", 1,
+					theMetrics.getCounter(EPPMetrics.SESSION_POOL_CREATED, null).getCount());
+		}
+		catch (Exception ex) {
+			ex.printStackTrace();
+			Assert.fail("testSessionMetrics(): Exception " + ex);
+		}
+		finally {
+			EPPMetricsFactory.getInstance().setMetrics(thePrevious);
+			theMetrics.close();
+		}
+
+		EPPCodecTst.printEnd("testSessionMetrics");
+	}
+
+	/**
+	 * JUNIT <code>suite</code> static method, which returns the tests
+	 * associated with <code>EPPMetricsTst</code>.  The configuration file is
+	 * copied to a temporary file with the plain client and server transports
+	 * on a free port, the EPP application is initialized with it, and the
+	 * stub server is started.
+	 *
+	 * @return Tests of <code>EPPMetricsTst</code>
+	 */
+	public static Test suite() {
+		TestSuite suite = new TestSuite(EPPMetricsTst.class);
+
+		String theConfigFileName = System.getProperty("EPP.ConfigFile");
+		if (theConfigFileName != null) {
+			configFileName = theConfigFileName;
+		}
+
+		try {
+			ServerSocket theSocket = new ServerSocket(0);
+			serverPort = theSocket.getLocalPort();
+			theSocket.close();
+
+			Properties theProps = new Properties();
+			InputStream theIn = new FileInputStream(configFileName);
+			try {
+				theProps.load(theIn);
+			}
+			finally {
+				theIn.close();
+			}
+			theProps.setProperty("EPP.ClientSocketName",
+					"com.verisign.epp.transport.client.EPPPlainClientSocket");
+			theProps.setProperty("EPP.ServerSocketName",
+					"com.verisign.epp.transport.server.EPPPlainServer");
+			theProps.setProperty("EPP.ServerPort", Integer.toString(serverPort));
+
+			final File theConfigFile = File.createTempFile("EPPMetricsTst", ".config");
+			theConfigFile.deleteOnExit();
+			OutputStream theOut = new FileOutputStream(theConfigFile);
+			try {
+				theProps.store(theOut, "EPPMetricsTst configuration");
+			}
+			finally {
+				theOut.close();
+			}
+
+			EPPApplicationSingle.getInstance().initialize(theConfigFile.getPath());
+
+			// The stub server runs until the test JVM exits
+			Thread theServerThread = new Thread("EPPMetricsTst.Server") {
+
+				public void run() {
+					new Server(theConfigFile.getPath());
+				}
+			};
+			theServerThread.setDaemon(true);
+			theServerThread.start();
+
+			waitForServer();
+		}
+		catch (Exception ex) {
+			ex.printStackTrace();
+			Assert.fail("Error starting the stub server: " + ex);
+		}
+
+		return suite;
+	}
+
+	/**
+	 * Waits up to 10 seconds for the stub server to accept connections.  The
+	 * greeting is read, so that the server has written it before the tests
+	 * start to count the metrics.
+	 *
+	 * @throws Exception The server did not start
+	 */
+	private static void waitForServer() throws Exception {
+		long theEnd = System.currentTimeMillis() + 10000;
+		while (true) {
+			try {
+				Socket theSocket = new Socket("localhost", serverPort);
+				try {
+					DataInputStream theIn = new DataInputStream(theSocket.getInputStream());
+					theIn.readFully(new byte[theIn.readInt() - 4]);
+				}
+				finally {
+					theSocket.close();
+				}
+				return;
+			}
+			catch (java.io.IOException ex) {
+				if (System.currentTimeMillis() > theEnd) {
+					throw ex;
+				}
+				Thread.sleep(100);
+			}
+		}
+	}
+
+} // End class EPPMetricsTst
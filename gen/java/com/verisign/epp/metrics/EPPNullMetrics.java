@@ -0,0 +1,81 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.metrics;
+
+/**
+ * <code>EPPMetrics</code> implementation that discards all of the metrics,
+ * which is selected by setting <code>EPP.MetricsClassName</code> to
+ * <code>com.verisign.epp.metrics.EPPNullMetrics</code>.
+ */
+public class EPPNullMetrics implements EPPMetrics {
+
+	/**
+	 * Discards the counter increment.
+	 *
+	 * @param aName Metric name
+	 * @param aTag Metric tag
+	 * @param aDelta Value to add to the counter
+	 */
+	public void increment(String aName, String aTag, long aDelta) {
+		// Discard
+	}
+
+	/**
+	 * Discards the latency.
+	 *
+	 * @param aName Metric name
+	 * @param aTag Metric tag
+	 * @param aNanos Latency in nanoseconds
+	 */
+	public void recordTime(String aName, String aTag, long aNanos) {
+		// Discard
+	}
+
+	/**
+	 * Ignores the gauge.
+	 *
+	 * @param aName Metric name
+	 * @param aTag Metric tag
+	 * @param aGauge Gauge to sample
+	 */
+	public void registerGauge(String aName, String aTag, EPPMetricsGauge aGauge) {
+		// Ignore
+	}
+
+	/**
+	 * Ignores the unregister of the gauge.
+	 *
+	 * @param aName Metric name
+	 * @param aTag Metric tag
+	 */
+	public void unregisterGauge(String aName, String aTag) {
+		// Ignore
+	}
+
+	/**
+	 * Nothing to release.
+	 */
+	public void close() {
+		// Nothing to release
+	}
+
+}
+
+// End class EPPNullMetrics
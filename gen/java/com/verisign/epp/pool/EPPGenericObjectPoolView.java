@@ -0,0 +1,162 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.pool;
+
+import org.apache.commons.pool.impl.GenericObjectPool;
+
+/**
+ * <code>GenericObjectPool</code> view of an <code>EPPSessionObjectPool</code>
+ * that is returned by the deprecated <code>getGenericObjectPool</code>
+ * methods of <code>EPPSessionPool</code> and <code>EPPSystemSessionPool</code>.
+ * The pool operations and counts are delegated to the
+ * <code>EPPSessionObjectPool</code>.  The configuration getters return the
+ * configuration the pool was created with, but the setters do not
+ * reconfigure the <code>EPPSessionObjectPool</code>.  The view does not
+ * start an evictor thread of its own.
+ */
+class EPPGenericObjectPoolView extends GenericObjectPool {
+
+	/** Pool the operations are delegated to */
+	private EPPSessionObjectPool pool;
+
+	/** Time between eviction runs of the pool in milliseconds */
+	private long timeBetweenEvictionRunsMillis;
+
+	/**
+	 * Creates a view of an <code>EPPSessionObjectPool</code>.
+	 *
+	 * @param aPool Pool the operations are delegated to
+	 */
+	EPPGenericObjectPoolView(EPPSessionObjectPool aPool) {
+		super(aPool.getFactory(), getViewConfig(aPool));
+		this.pool = aPool;
+		this.timeBetweenEvictionRunsMillis = aPool.getConfig().timeBetweenEvictionRunsMillis;
+	}
+
+	/**
+	 * Gets the configuration of the pool with the evictor disabled, since the
+	 * <code>EPPSessionObjectPool</code> runs its own evictor.
+	 *
+	 * @param aPool Pool the operations are delegated to
+	 *
+	 * @return Configuration used to create the view
+	 */
+	private static GenericObjectPool.Config getViewConfig(EPPSessionObjectPool aPool) {
+		GenericObjectPool.Config theConfig = aPool.getConfig();
+		theConfig.timeBetweenEvictionRunsMillis = -1;
+		return theConfig;
+	}
+
+	/**
+	 * Gets the time between eviction runs of the
+	 * <code>EPPSessionObjectPool</code>.
+	 *
+	 * @return Time between eviction runs in milliseconds
+	 */
+	public synchronized long getTimeBetweenEvictionRunsMillis() {
+		return this.timeBetweenEvictionRunsMillis;
+	}
+
+	/**
+	 * Borrows an object from the <code>EPPSessionObjectPool</code>.
+	 *
+	 * @return Borrowed object
+	 *
+	 * @exception Exception Error borrowing the object
+	 */
+	public Object borrowObject() throws Exception {
+		return this.pool.borrowObject();
+	}
+
+	/**
+	 * Returns an object to the <code>EPPSessionObjectPool</code>.
+	 *
+	 * @param aObject Object to return
+	 */
+	public void returnObject(Object aObject) {
+		this.pool.returnObject(aObject);
+	}
+
+	/**
+	 * Invalidates an object borrowed from the <code>EPPSessionObjectPool</code>.
+	 *
+	 * @param aObject Object to invalidate
+	 */
+	public void invalidateObject(Object aObject) {
+		this.pool.invalidateObject(aObject);
+	}
+
+	/**
+	 * Not supported, since <code>EPPSessionObjectPool</code> creates the idle
+	 * objects itself to maintain <code>minIdle</code>.
+	 *
+	 * @exception UnsupportedOperationException Always
+	 */
+	public void addObject() {
+		throw new UnsupportedOperationException(
+				"addObject is not supported by EPPSessionObjectPool");
+	}
+
+	/**
+	 * Gets the number of objects borrowed from the
+	 * <code>EPPSessionObjectPool</code>.
+	 *
+	 * @return Number of active objects
+	 */
+	public int getNumActive() {
+		return this.pool.getNumActive();
+	}
+
+	/**
+	 * Gets the number of idle objects in the <code>EPPSessionObjectPool</code>.
+	 *
+	 * @return Number of idle objects
+	 */
+	public int getNumIdle() {
+		return this.pool.getNumIdle();
+	}
+
+	/**
+	 * Destroys the idle objects of the <code>EPPSessionObjectPool</code>.
+	 */
+	public void clear() {
+		this.pool.clear();
+	}
+
+	/**
+	 * Closes the <code>EPPSessionObjectPool</code>.
+	 *
+	 * @exception Exception Error closing the view
+	 */
+	public void close() throws Exception {
+		this.pool.close();
+		super.close();
+	}
+
+	/**
+	 * Runs one eviction pass of the <code>EPPSessionObjectPool</code>.
+	 *
+	 * @exception Exception Error running the eviction pass
+	 */
+	public void evict() throws Exception {
+		this.pool.evict();
+	}
+
+}
@@ -19,8 +19,13 @@ http://www.verisign.com/nds/naming/namestore/techdocs.html
 ***********************************************************/
 package com.verisign.epp.pool;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.apache.log4j.Logger;
 
+import com.verisign.epp.codec.gen.EPPCommand;
+import com.verisign.epp.codec.gen.EPPResponse;
+import com.verisign.epp.codec.gen.EPPResult;
 import com.verisign.epp.interfaces.EPPCommandException;
 import com.verisign.epp.interfaces.EPPSession;
 import com.verisign.epp.transport.client.EPPSSLContext;
@@ -49,6 +54,22 @@ public class EPPPooledGenericSession extends EPPSession implements EPPPooledSess
 	 * Last time session was used or a keep alive was sent
 	 */
 	private long lastTouched = System.currentTimeMillis();
+	
+	/**
+	 * Number of commands processed with the session
+	 */
+	private AtomicLong commandCount = new AtomicLong();
+	
+	/**
+	 * Total latency in nanoseconds of the commands processed with the session
+	 */
+	private AtomicLong commandNanos = new AtomicLong();
+	
+	/**
+	 * Number of commands that failed with a connection error or a 
+	 * result code of 2400 or higher
+	 */
+	private AtomicLong commandErrors = new AtomicLong();
 		
 	/**
 	 * Default constructor for <code>EPPPooledGenericSession</code>.
@@ -142,4 +163,58 @@ public class EPPPooledGenericSession extends EPPSession implements EPPPooledSess
 		this.lastTouched = System.currentTimeMillis();
 	}
 	
-}
\ No newline at end of file
+	/**
+	 * Counts the command, its latency, and whether it failed with a 
+	 * connection error or a result code of <code>2400</code> or higher 
+	 * (command failed or session ending), which are errors of the server
+	 * and not of the command.
+	 * 
+	 * @param aCommand Processed command
+	 * @param aResponse Response of the command or <code>null</code> if no 
+	 * response was received
+	 * @param aNanos Latency of the command in nanoseconds
+	 */
+	protected void commandCompleted(EPPCommand aCommand, EPPResponse aResponse, long aNanos) {
+		this.commandCount.incrementAndGet();
+		this.commandNanos.addAndGet(aNanos);
+		
+		if (aResponse == null) {
+			if (this.getMode() != MODE_ASYNC) {
+				this.commandErrors.incrementAndGet();
+			}
+		}
+		else if (aResponse.getResult() != null 
+				&& aResponse.getResult().getCode() >= EPPResult.COMMAND_FAILED) {
+			this.commandErrors.incrementAndGet();
+		}
+	}
+	
+	/**
+	 * Gets the number of commands processed with the session.
+	 * 
+	 * @return Number of commands
+	 */
+	public long getCommandCount() {
+		return this.commandCount.get();
+	}
+	
+	/**
+	 * Gets the total latency of the commands processed with the session.
+	 * 
+	 * @return Total latency in nanoseconds
+	 */
+	public long getCommandNanos() {
+		return this.commandNanos.get();
+	}
+	
+	/**
+	 * Gets the number of commands that failed with a connection error or a 
+	 * result code of <code>2400</code> or higher.
+	 * 
+	 * @return Number of failed commands
+	 */
+	public long getCommandErrors() {
+		return this.commandErrors.get();
+	}
+	
+}
@@ -0,0 +1,896 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.pool;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.pool.PoolableObjectFactory;
+import org.apache.commons.pool.impl.GenericObjectPool;
+import org.apache.log4j.Logger;
+
+import com.verisign.epp.metrics.EPPMetrics;
+import com.verisign.epp.metrics.EPPMetricsFactory;
+import com.verisign.epp.util.EPPCatFactory;
+import com.verisign.epp.util.EPPThreadModel;
+
+/**
+ * Object pool used by <code>EPPSessionPool</code> and
+ * <code>EPPSystemSessionPool</code> in place of the commons-pool
+ * <code>GenericObjectPool</code>, which synchronizes borrow, return, and
+ * eviction on the pool monitor, so an eviction run that sends a keep alive
+ * stalls all of the borrowers for a full round trip to the server.  The pool
+ * uses the same <code>PoolableObjectFactory</code> contract and is configured
+ * with the same <code>GenericObjectPool.Config</code> attributes, but does
+ * not hold a lock while calling the factory:<br>
+ * <br><ul>
+ * <li>The idle objects are held in a lock-free <code>ConcurrentLinkedDeque</code>,
+ * where objects are borrowed from and returned to the head (LIFO) and the
+ * evictor takes the objects from the tail.
+ * <li>The number of active objects is limited to <code>maxActive</code> with a
+ * fair <code>Semaphore</code>, so blocked borrowers are served in order and
+ * time out after <code>maxWait</code> milliseconds.  A permit is held from the
+ * borrow until the return or invalidation of the object.
+ * <li>The evictor thread removes each idle object from the deque before calling
+ * <code>validateObject</code>, which can send a keep alive, so the object is
+ * owned by the evictor and the borrowers only see one less idle object.
+ * </ul>
+ * <br>
+ * When the factory is an <code>EPPSessionPoolableFactory</code> and the pool
+ * is created with refresh threads, the evictor does not validate the idle
+ * sessions itself, but schedules the following on the refresh threads, so
+ * that the borrowers do not wait on a keep alive or a login:<br>
+ * <br><ul>
+ * <li>A keep alive for each idle session that would pass the idle timeout
+ * before the next eviction run.
+ * <li>A replacement for each idle session that is within the refresh margin of
+ * the absolute timeout, where a new session is created and added to the idle
+ * sessions before the old session is destroyed.  At most one replacement per
+ * refresh thread is in progress, which staggers the logins of sessions that
+ * were created together.  A session that is borrowed when it is replaced is
+ * destroyed when it is returned.
+ * <li>The creation of idle sessions up to <code>minIdle</code>, which is also
+ * done when the pool is created to pre-warm it.
+ * </ul>
+ * <br>
+ * The <code>minEvictableIdleTimeMillis</code> attribute is not supported, since
+ * the session pools disable it and rely on <code>validateObject</code> for the
+ * session idle and absolute timeouts.
+ */
+public class EPPSessionObjectPool implements Runnable {
+
+	/** Log4j category for logging */
+	private static Logger log = Logger.getLogger(EPPSessionObjectPool.class
+			.getName(), EPPCatFactory.getInstance().getFactory());
+
+	/** Factory used to create, validate, and destroy the objects */
+	private PoolableObjectFactory factory;
+
+	/** Idle objects, where the head is the most recently returned object */
+	private ConcurrentLinkedDeque<Object> idle = new ConcurrentLinkedDeque<Object>();
+
+	/** Number of idle objects, since <code>ConcurrentLinkedDeque.size()</code> is not constant time */
+	private AtomicInteger numIdle = new AtomicInteger();
+
+	/** Number of borrowed objects */
+	private AtomicInteger numActive = new AtomicInteger();
+
+	/**
+	 * One permit per active object or <code>null</code> if the number of
+	 * active objects is not limited
+	 */
+	private Semaphore permits = null;
+
+	/** Maximum number of active objects; <code>0</code> or less for no limit */
+	private int maxActive;
+
+	/** Maximum number of idle objects; less than <code>0</code> for no limit */
+	private int maxIdle;
+
+	/** Minimum number of idle objects maintained by the evictor */
+	private int minIdle;
+
+	/** Maximum time to wait for an object in milliseconds; <code>0</code> or less waits forever */
+	private long maxWait;
+
+	/** Action taken when the pool is exhausted */
+	private byte whenExhaustedAction;
+
+	/** Validate the objects on borrow? */
+	private boolean testOnBorrow;
+
+	/** Validate the objects on return? */
+	private boolean testOnReturn;
+
+	/** Validate the idle objects in the evictor? */
+	private boolean testWhileIdle;
+
+	/** Number of idle objects to test per eviction run, where a negative value is a fraction */
+	private int numTestsPerEvictionRun;
+
+	/** Time between eviction runs in milliseconds; <code>0</code> or less disables the evictor */
+	private long timeBetweenEvictionRunsMillis;
+
+	/** Is the pool closed? */
+	private volatile boolean closed = false;
+
+	/** Latch used to stop the evictor thread when the pool is closed */
+	private CountDownLatch closeLatch = new CountDownLatch(1);
+
+	/** Evictor thread or <code>null</code> if the evictor is disabled */
+	private Thread evictor = null;
+
+	/**
+	 * Factory as an <code>EPPSessionPoolableFactory</code> or <code>null</code>
+	 * if the factory is not one
+	 */
+	private EPPSessionPoolableFactory sessionFactory = null;
+
+	/** Number of refresh threads */
+	private int refreshThreads;
+
+	/**
+	 * Refresh threads that keep alive, replace, and create sessions or
+	 * <code>null</code> if the evictor validates the idle objects itself
+	 */
+	private ThreadPoolExecutor refresher = null;
+
+	/** Objects with a replacement in progress */
+	private Set<Object> replacing = Collections.synchronizedSet(Collections
+			.newSetFromMap(new IdentityHashMap<Object, Boolean>()));
+
+	/** Replaced objects that were borrowed and are destroyed when returned */
+	private Set<Object> retired = Collections.synchronizedSet(Collections
+			.newSetFromMap(new IdentityHashMap<Object, Boolean>()));
+
+	/** Number of idle objects taken out of the idle objects for a keep alive */
+	private AtomicInteger numRefreshing = new AtomicInteger();
+
+	/** Is <code>ensureMinIdle()</code> running? */
+	private AtomicBoolean ensuring = new AtomicBoolean();
+
+	/** <code>GenericObjectPool</code> view created by <code>getGenericObjectPool()</code> */
+	private volatile GenericObjectPool view = null;
+
+	/**
+	 * Creates a pool with a factory and the <code>GenericObjectPool.Config</code>
+	 * attributes, and starts the evictor thread if
+	 * <code>timeBetweenEvictionRunsMillis</code> is greater than <code>0</code>.
+	 *
+	 * @param aFactory Factory used to create, validate, and destroy the objects
+	 * @param aConfig Configuration attributes of the pool
+	 */
+	public EPPSessionObjectPool(PoolableObjectFactory aFactory, GenericObjectPool.Config aConfig) {
+		this(aFactory, aConfig, 0);
+	}
+
+	/**
+	 * Creates a pool with a factory, the <code>GenericObjectPool.Config</code>
+	 * attributes, and the number of refresh threads.  The refresh threads are
+	 * only used if the factory is an <code>EPPSessionPoolableFactory</code>
+	 * and <code>timeBetweenEvictionRunsMillis</code> is greater than
+	 * <code>0</code>.
+	 *
+	 * @param aFactory Factory used to create, validate, and destroy the objects
+	 * @param aConfig Configuration attributes of the pool
+	 * @param aRefreshThreads Number of threads used to keep alive, replace, and
+	 *        create sessions in the background.  <code>0</code> validates the
+	 *        idle objects in the evictor thread.
+	 */
+	public EPPSessionObjectPool(PoolableObjectFactory aFactory, GenericObjectPool.Config aConfig,
+			int aRefreshThreads) {
+		this.factory = aFactory;
+		this.maxActive = aConfig.maxActive;
+		this.maxIdle = aConfig.maxIdle;
+		this.minIdle = aConfig.minIdle;
+		this.maxWait = aConfig.maxWait;
+		this.whenExhaustedAction = aConfig.whenExhaustedAction;
+		this.testOnBorrow = aConfig.testOnBorrow;
+		this.testOnReturn = aConfig.testOnReturn;
+		this.testWhileIdle = aConfig.testWhileIdle;
+		this.numTestsPerEvictionRun = aConfig.numTestsPerEvictionRun;
+		this.timeBetweenEvictionRunsMillis = aConfig.timeBetweenEvictionRunsMillis;
+
+		if (this.maxActive > 0 && this.whenExhaustedAction != GenericObjectPool.WHEN_EXHAUSTED_GROW) {
+			this.permits = new Semaphore(this.maxActive, true);
+		}
+
+		if (aFactory instanceof EPPSessionPoolableFactory) {
+			this.sessionFactory = (EPPSessionPoolableFactory) aFactory;
+		}
+
+		this.refreshThreads = aRefreshThreads;
+		if (this.sessionFactory != null && this.refreshThreads > 0 && this.timeBetweenEvictionRunsMillis > 0) {
+			final String theName = "EPPSessionObjectPool-refresher-"
+					+ Integer.toHexString(System.identityHashCode(this)) + "-";
+			this.refresher = new ThreadPoolExecutor(this.refreshThreads, this.refreshThreads, 60,
+					TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+						private AtomicInteger count = new AtomicInteger();
+
+						public Thread newThread(Runnable aTask) {
+							Thread theThread = new Thread(aTask, theName + this.count.getAndIncrement());
+							theThread.setDaemon(true);
+							return theThread;
+						}
+					});
+
+			// Pre-warm the pool to minIdle
+			if (this.minIdle > 0) {
+				this.refresher.execute(new Runnable() {
+
+					public void run() {
+						ensureMinIdle();
+					}
+				});
+			}
+		}
+
+		if (this.timeBetweenEvictionRunsMillis > 0) {
+			this.evictor = EPPThreadModel.start(this, "EPPSessionObjectPool-evictor-"
+					+ Integer.toHexString(System.identityHashCode(this)), true);
+		}
+	}
+
+	/**
+	 * Borrows an object from the pool, which is the most recently returned
+	 * idle object or a new object created by the factory.  If
+	 * <code>maxActive</code> objects are already borrowed, the call blocks for up
+	 * to <code>maxWait</code> milliseconds with the
+	 * <code>WHEN_EXHAUSTED_BLOCK</code> action, and fails immediately with the
+	 * <code>WHEN_EXHAUSTED_FAIL</code> action.
+	 *
+	 * @return Borrowed object
+	 *
+	 * @throws Exception Pool is closed or exhausted, or error creating the object
+	 */
+	public Object borrowObject() throws Exception {
+		if (this.closed) {
+			throw new IllegalStateException("Pool not open");
+		}
+
+		this.acquirePermit();
+
+		try {
+			for (;;) {
+				Object theObject = this.idle.pollFirst();
+				boolean isNew = false;
+
+				if (theObject != null) {
+					this.numIdle.decrementAndGet();
+				}
+				else {
+					theObject = this.factory.makeObject();
+					isNew = true;
+				}
+
+				try {
+					this.factory.activateObject(theObject);
+					if (this.testOnBorrow && !this.factory.validateObject(theObject)) {
+						throw new Exception("ValidateObject failed");
+					}
+				}
+				catch (Exception ex) {
+					this.destroy(theObject);
+					if (isNew) {
+						throw ex;
+					}
+
+					// Try the next idle object
+					continue;
+				}
+
+				this.numActive.incrementAndGet();
+				return theObject;
+			}
+		}
+		catch (Exception ex) {
+			this.releasePermit();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Returns a borrowed object to the pool.  The object is destroyed instead
+	 * if the pool is closed, if it fails validation with
+	 * <code>testOnReturn</code>, or if there are already <code>maxIdle</code>
+	 * idle objects.
+	 *
+	 * @param aObject Borrowed object
+	 */
+	public void returnObject(Object aObject) {
+		this.numActive.decrementAndGet();
+
+		try {
+			boolean isValid = true;
+			if (this.testOnReturn && !this.factory.validateObject(aObject)) {
+				isValid = false;
+			}
+			else {
+				try {
+					this.factory.passivateObject(aObject);
+				}
+				catch (Exception ex) {
+					isValid = false;
+				}
+			}
+
+			// Replaced while borrowed?
+			if (!this.retired.isEmpty() && this.retired.remove(aObject)) {
+				isValid = false;
+			}
+
+			// Expired while borrowed?
+			if (isValid && this.refresher != null && this.sessionFactory.isExpired(aObject)) {
+				EPPMetricsFactory.getInstance().getMetrics().increment(EPPMetrics.SESSION_POOL_EVICTED,
+						"absoluteTimeout", 1);
+				isValid = false;
+				if (!this.closed) {
+					this.scheduleCreate(1);
+				}
+			}
+
+			if (isValid && !this.closed && this.addIdle(aObject, true)) {
+				// Busy sessions might never be idle in an eviction run
+				if (this.refresher != null && this.sessionFactory.isRefreshDue(aObject)) {
+					this.scheduleReplace(aObject);
+				}
+				return;
+			}
+
+			this.destroy(aObject);
+		}
+		finally {
+			// Release after adding to the idle objects, so the next borrower can use it
+			this.releasePermit();
+		}
+	}
+
+	/**
+	 * Invalidates a borrowed object, which is destroyed instead of being
+	 * returned to the pool.
+	 *
+	 * @param aObject Borrowed object
+	 */
+	public void invalidateObject(Object aObject) {
+		this.numActive.decrementAndGet();
+		this.retired.remove(aObject);
+
+		try {
+			this.destroy(aObject);
+		}
+		finally {
+			this.releasePermit();
+		}
+	}
+
+	/**
+	 * Gets the number of borrowed objects.
+	 *
+	 * @return Number of active objects
+	 */
+	public int getNumActive() {
+		return this.numActive.get();
+	}
+
+	/**
+	 * Gets the number of idle objects, which does not include the idle objects
+	 * being validated by the evictor.
+	 *
+	 * @return Number of idle objects
+	 */
+	public int getNumIdle() {
+		return this.numIdle.get();
+	}
+
+	/**
+	 * Gets the factory used to create, validate, and destroy the objects.
+	 *
+	 * @return Factory of the pool
+	 */
+	PoolableObjectFactory getFactory() {
+		return this.factory;
+	}
+
+	/**
+	 * Gets a copy of the configuration attributes of the pool.
+	 *
+	 * @return Configuration attributes of the pool
+	 */
+	GenericObjectPool.Config getConfig() {
+		GenericObjectPool.Config theConfig = new GenericObjectPool.Config();
+		theConfig.maxActive = this.maxActive;
+		theConfig.maxIdle = this.maxIdle;
+		theConfig.minIdle = this.minIdle;
+		theConfig.maxWait = this.maxWait;
+		theConfig.whenExhaustedAction = this.whenExhaustedAction;
+		theConfig.testOnBorrow = this.testOnBorrow;
+		theConfig.testOnReturn = this.testOnReturn;
+		theConfig.testWhileIdle = this.testWhileIdle;
+		theConfig.numTestsPerEvictionRun = this.numTestsPerEvictionRun;
+		theConfig.timeBetweenEvictionRunsMillis = this.timeBetweenEvictionRunsMillis;
+		return theConfig;
+	}
+
+	/**
+	 * Gets a <code>GenericObjectPool</code> view of the pool for the
+	 * deprecated <code>getGenericObjectPool</code> methods.
+	 *
+	 * @return <code>GenericObjectPool</code> that delegates to the pool
+	 */
+	GenericObjectPool getGenericObjectPool() {
+		if (this.view == null) {
+			synchronized (this) {
+				if (this.view == null) {
+					this.view = new EPPGenericObjectPoolView(this);
+				}
+			}
+		}
+		return this.view;
+	}
+
+	/**
+	 * Destroys all of the idle objects.
+	 */
+	public void clear() {
+		Object theObject;
+		while ((theObject = this.idle.pollFirst()) != null) {
+			this.numIdle.decrementAndGet();
+			this.destroy(theObject);
+		}
+	}
+
+	/**
+	 * Closes the pool, by stopping the evictor and destroying all of the idle
+	 * objects.  Objects borrowed before the close are destroyed when they are
+	 * returned.
+	 */
+	public void close() {
+		this.closed = true;
+		this.closeLatch.countDown();
+		if (this.refresher != null) {
+			this.refresher.shutdown();
+		}
+		this.clear();
+	}
+
+	/**
+	 * Runs one eviction pass, which validates the idle objects from the
+	 * least recently used with <code>testWhileIdle</code>, destroys the objects
+	 * that are invalid, and creates objects to have <code>minIdle</code> idle
+	 * objects.  Each object is removed from the idle objects while it is
+	 * validated, so no lock is held while a keep alive is sent.  With refresh
+	 * threads, the keep alives and replacements are scheduled on the refresh
+	 * threads instead.
+	 */
+	public void evict() {
+		if (this.refresher != null) {
+			this.refresh();
+		}
+		else if (this.testWhileIdle) {
+			int theTests = this.getNumTests();
+
+			for (int i = 0; i < theTests && !this.closed; i++) {
+				Object theObject = this.idle.pollLast();
+				if (theObject == null) {
+					break;
+				}
+				this.numIdle.decrementAndGet();
+
+				boolean isValid;
+				try {
+					this.factory.activateObject(theObject);
+					isValid = this.factory.validateObject(theObject);
+					if (isValid) {
+						this.factory.passivateObject(theObject);
+					}
+				}
+				catch (Exception ex) {
+					log.warn("evict(): Exception validating object " + theObject, ex);
+					isValid = false;
+				}
+
+				// Validated objects go back to the head, since they were just used
+				if (!isValid || this.closed || !this.addIdle(theObject, true)) {
+					this.destroy(theObject);
+				}
+			}
+		}
+
+		this.ensureMinIdle();
+	}
+
+	/**
+	 * Runs the evictor every <code>timeBetweenEvictionRunsMillis</code>
+	 * milliseconds until the pool is closed.
+	 */
+	public void run() {
+		log.debug("run(): evictor started");
+
+		try {
+			while (!this.closeLatch.await(this.timeBetweenEvictionRunsMillis, TimeUnit.MILLISECONDS)) {
+				try {
+					this.evict();
+				}
+				catch (RuntimeException ex) {
+					log.error("run(): Exception in eviction run: " + ex);
+				}
+			}
+		}
+		catch (InterruptedException ex) {
+			// Exit the evictor
+		}
+
+		log.debug("run(): evictor stopped");
+	}
+
+	/**
+	 * Schedules the keep alives and replacements of the idle sessions on the
+	 * refresh threads, from the least recently used.  A keep alive is
+	 * scheduled if the session would pass the idle timeout before the next
+	 * eviction run.  A session past the absolute timeout is destroyed, so it is
+	 * not borrowed, and a new session is created for it on the refresh threads.
+	 */
+	private void refresh() {
+		int theExpired = 0;
+		Iterator<Object> theIter = this.idle.descendingIterator();
+
+		while (theIter.hasNext() && !this.closed) {
+			final Object theObject = theIter.next();
+
+			if (this.sessionFactory.isExpired(theObject)) {
+				if (this.removeIdle(theObject)) {
+					EPPMetricsFactory.getInstance().getMetrics().increment(EPPMetrics.SESSION_POOL_EVICTED,
+							"absoluteTimeout", 1);
+					this.destroy(theObject);
+					theExpired++;
+				}
+			}
+			else if (this.sessionFactory.isRefreshDue(theObject) && this.scheduleReplace(theObject)) {
+				continue;
+			}
+			else if (this.sessionFactory.isKeepAliveDue(theObject, this.timeBetweenEvictionRunsMillis)
+					&& !this.replacing.contains(theObject) && this.removeIdle(theObject)) {
+				this.numRefreshing.incrementAndGet();
+				this.refresher.execute(new Runnable() {
+
+					public void run() {
+						keepAlive(theObject);
+					}
+				});
+			}
+		}
+
+		if (theExpired > 0 && !this.closed) {
+			this.scheduleCreate(theExpired);
+		}
+	}
+
+	/**
+	 * Schedules the creation of idle sessions on the refresh threads, one
+	 * session per task.  The sessions being created are counted as idle
+	 * sessions by {@link #ensureMinIdle()}.
+	 *
+	 * @param aCount Number of sessions to create
+	 */
+	private void scheduleCreate(int aCount) {
+		for (int i = 0; i < aCount; i++) {
+			this.numRefreshing.incrementAndGet();
+			this.refresher.execute(new Runnable() {
+
+				public void run() {
+					try {
+						if (closed) {
+							return;
+						}
+
+						Object theObject = factory.makeObject();
+						factory.passivateObject(theObject);
+						if (closed || !addIdle(theObject, true)) {
+							destroy(theObject);
+						}
+					}
+					catch (Exception ex) {
+						log.error("scheduleCreate(): Exception creating idle session: " + ex);
+					}
+					finally {
+						numRefreshing.decrementAndGet();
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * Schedules the replacement of a session on the refresh threads, unless
+	 * it is already being replaced or a replacement is in progress on each of
+	 * the refresh threads, which staggers the replacements.
+	 *
+	 * @param aObject Session to replace
+	 *
+	 * @return <code>true</code> if the replacement is scheduled or in progress;
+	 *         <code>false</code> otherwise.
+	 */
+	private boolean scheduleReplace(final Object aObject) {
+		synchronized (this.replacing) {
+			if (this.replacing.contains(aObject)) {
+				return true;
+			}
+			if (this.replacing.size() >= this.refreshThreads) {
+				return false;
+			}
+			this.replacing.add(aObject);
+		}
+
+		this.refresher.execute(new Runnable() {
+
+			public void run() {
+				replace(aObject);
+			}
+		});
+		return true;
+	}
+
+	/**
+	 * Sends a keep alive with an idle session that was taken out of the idle
+	 * objects, and adds it back to the head of the idle objects if the keep
+	 * alive succeeded.
+	 *
+	 * @param aObject Session to keep alive
+	 */
+	private void keepAlive(Object aObject) {
+		try {
+			if (!this.closed && this.sessionFactory.keepAlive(aObject) && !this.closed
+					&& this.addIdle(aObject, true)) {
+				return;
+			}
+
+			this.destroy(aObject);
+		}
+		finally {
+			this.numRefreshing.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Replaces an idle session that is due to be refreshed, by creating a new
+	 * session, adding it to the idle objects, and destroying the old session.
+	 * If the old session was borrowed in the meantime, it is destroyed when it
+	 * is returned.  If the new session can not be created, the old session is
+	 * kept and the replacement is retried in the next eviction run.
+	 *
+	 * @param aObject Session to replace
+	 */
+	private void replace(Object aObject) {
+		try {
+			if (this.closed) {
+				return;
+			}
+
+			Object theReplacement;
+			try {
+				theReplacement = this.factory.makeObject();
+				this.factory.passivateObject(theReplacement);
+			}
+			catch (Exception ex) {
+				log.error("replace(): Exception creating replacement of " + aObject + ": " + ex);
+				return;
+			}
+
+			boolean isIdle = this.removeIdle(aObject);
+			if (!isIdle) {
+				this.retired.add(aObject);
+
+				// Returned before it was retired?
+				if (this.removeIdle(aObject)) {
+					this.retired.remove(aObject);
+					isIdle = true;
+				}
+			}
+
+			if (this.closed || !this.addIdle(theReplacement, true)) {
+				this.destroy(theReplacement);
+			}
+
+			if (log.isDebugEnabled()) {
+				log.debug("replace(): Replaced " + aObject + " with " + theReplacement + ", idle = " + isIdle);
+			}
+
+			EPPMetricsFactory.getInstance().getMetrics().increment(EPPMetrics.SESSION_POOL_EVICTED,
+					"refreshed", 1);
+
+			if (isIdle) {
+				this.destroy(aObject);
+			}
+		}
+		finally {
+			this.replacing.remove(aObject);
+		}
+	}
+
+	/**
+	 * Gets the number of idle objects to test in an eviction run based on
+	 * <code>numTestsPerEvictionRun</code>, where a negative value
+	 * <code>-n</code> tests 1/n of the idle objects (rounded up).
+	 *
+	 * @return Number of idle objects to test
+	 */
+	private int getNumTests() {
+		int theNumIdle = this.numIdle.get();
+
+		if (this.numTestsPerEvictionRun >= 0) {
+			return Math.min(this.numTestsPerEvictionRun, theNumIdle);
+		}
+		else {
+			return (int) Math.ceil(theNumIdle / Math.abs((double) this.numTestsPerEvictionRun));
+		}
+	}
+
+	/**
+	 * Creates idle objects until there are <code>minIdle</code> idle objects,
+	 * without exceeding <code>maxActive</code> active and idle objects.
+	 */
+	private void ensureMinIdle() {
+		if (!this.ensuring.compareAndSet(false, true)) {
+			return;
+		}
+
+		try {
+			this.createIdle();
+		}
+		finally {
+			this.ensuring.set(false);
+		}
+	}
+
+	/**
+	 * Creates the idle objects for {@link #ensureMinIdle()}, where the idle
+	 * objects taken out for a keep alive are counted as idle objects.
+	 */
+	private void createIdle() {
+		int theNumIdle = this.numIdle.get() + this.numRefreshing.get();
+		int theDeficit = this.minIdle - theNumIdle;
+		if (this.maxActive > 0) {
+			theDeficit = Math.min(theDeficit, this.maxActive - this.numActive.get() - theNumIdle);
+		}
+
+		for (int i = 0; i < theDeficit && !this.closed; i++) {
+			Object theObject;
+			try {
+				theObject = this.factory.makeObject();
+				this.factory.passivateObject(theObject);
+			}
+			catch (Exception ex) {
+				log.error("ensureMinIdle(): Exception creating idle object: " + ex);
+				break;
+			}
+
+			if (!this.addIdle(theObject, false)) {
+				this.destroy(theObject);
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Adds an object to the idle objects if there are less than
+	 * <code>maxIdle</code> idle objects.
+	 *
+	 * @param aObject Object to add
+	 * @param aHead Add to the head (most recently used) or the tail?
+	 *
+	 * @return <code>true</code> if the object was added; <code>false</code> otherwise.
+	 */
+	private boolean addIdle(Object aObject, boolean aHead) {
+		int theNumIdle = this.numIdle.incrementAndGet();
+		if (this.maxIdle >= 0 && theNumIdle > this.maxIdle) {
+			this.numIdle.decrementAndGet();
+			return false;
+		}
+
+		if (aHead) {
+			this.idle.offerFirst(aObject);
+		}
+		else {
+			this.idle.offerLast(aObject);
+		}
+		return true;
+	}
+
+	/**
+	 * Removes an object from the idle objects.
+	 *
+	 * @param aObject Object to remove
+	 *
+	 * @return <code>true</code> if the object was idle and is now owned by the
+	 *         caller; <code>false</code> otherwise.
+	 */
+	private boolean removeIdle(Object aObject) {
+		if (this.idle.removeFirstOccurrence(aObject)) {
+			this.numIdle.decrementAndGet();
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Destroys an object with the factory, where exceptions are logged and
+	 * ignored.
+	 *
+	 * @param aObject Object to destroy
+	 */
+	private void destroy(Object aObject) {
+		try {
+			this.factory.destroyObject(aObject);
+		}
+		catch (Exception ex) {
+			if (log.isDebugEnabled()) {
+				log.debug("destroy(): Exception destroying object " + aObject + ": " + ex);
+			}
+		}
+	}
+
+	/**
+	 * Acquires a permit to borrow an object based on
+	 * <code>whenExhaustedAction</code> and <code>maxWait</code>.
+	 *
+	 * @throws Exception Timeout or interrupt waiting for a permit
+	 */
+	private void acquirePermit() throws Exception {
+		if (this.permits == null) {
+			return;
+		}
+
+		if (this.whenExhaustedAction == GenericObjectPool.WHEN_EXHAUSTED_FAIL) {
+			if (!this.permits.tryAcquire()) {
+				throw new NoSuchElementException("Pool exhausted");
+			}
+		}
+		else if (this.maxWait <= 0) {
+			this.permits.acquire();
+		}
+		else if (!this.permits.tryAcquire(this.maxWait, TimeUnit.MILLISECONDS)) {
+			throw new NoSuchElementException("Timeout waiting for idle object");
+		}
+	}
+
+	/**
+	 * Releases a permit acquired with {@link #acquirePermit()}.
+	 */
+	private void releasePermit() {
+		if (this.permits != null) {
+			this.permits.release();
+		}
+	}
+
+}
+
+// End class EPPSessionObjectPool
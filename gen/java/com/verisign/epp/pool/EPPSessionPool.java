@@ -69,6 +69,24 @@ import com.verisign.epp.util.Environment;
  * 60 seconds.  
  * <li>EPP.SessionPool.borrowRetries - (optional) Number of retries to get/create a session
  * when calling {@link #borrowObject()}.  Default is <code>0</code>.  
+ * <li>EPP.SessionPool.refreshThreads - (optional) Number of background threads 
+ * that keep alive idle sessions before the idle timeout, replace sessions 
+ * before the absolute timeout, and create the <code>minIdle</code> sessions, 
+ * so that borrowers do not wait on a login.  <code>0</code> validates the idle 
+ * sessions in the evictor thread.  Default is <code>0</code>, so the refresh 
+ * threads are only used when configured.
+ * <li>EPP.SessionPool.refreshMargin - (optional) Time in milliseconds before the 
+ * absolute timeout that a session is replaced by a new session when 
+ * <code>refreshThreads</code> is greater than <code>0</code>.  Default is 
+ * <code>0</code>, which replaces a session only when it reaches the absolute 
+ * timeout, so it should be set with <code>refreshThreads</code> (e.g. 
+ * <code>300000</code>).
+ * <li>EPP.SessionPool.routes - (optional) Comma separated list of route names, 
+ * where a route picks one of a set of system pools for each borrow based on 
+ * the observed latency and error rate of the systems.  A route name is passed 
+ * to {@link #borrowObject(String)}, {@link #returnObject(String, EPPSession)}, 
+ * and {@link #invalidateObject(String, EPPSession)} like a system name.  The 
+ * route properties are described in {@link EPPSessionRouter}.
  * </ul>
  */
 public class EPPSessionPool  {
@@ -122,6 +140,18 @@ public class EPPSessionPool  {
 	 */
 	private static final int DEFAULT_BORROW_RETRIES = 0;
 	
+	/**
+	 * Default number of threads used to keep alive, replace, and create 
+	 * sessions in the background.
+	 */
+	private static final int DEFAULT_REFRESH_THREADS = 0;
+	
+	/**
+	 * Default time in milliseconds before the absolute timeout that a session 
+	 * is replaced.
+	 */
+	private static final long DEFAULT_REFRESH_MARGIN = 0;
+	
     
     /**
      * Session pool property prefix
@@ -140,15 +170,23 @@ public class EPPSessionPool  {
 	/**
 	 * Real pool being used.
 	 */
-	private GenericObjectPool pool = null;
+	private EPPSessionObjectPool pool = null;
+
 	
 	/**
 	 * System pools, where the system name is the key, 
-	 * and the system <code>GenericObjectPool</code> is the value.
+	 * and the <code>EPPSystemSessionPool</code> is the value.
 	 */
 	private Map systemPools = new HashMap();
 	
 	
+	/**
+	 * Routes over the system pools, where the route name is the key, 
+	 * and the <code>EPPSessionRouter</code> is the value.
+	 */
+	private Map routers = new HashMap();
+	
+	
 	/**
 	 * <i>Singleton</i> instance
 	 */
@@ -179,6 +217,19 @@ public class EPPSessionPool  {
 	 */
 	private int borrowRetries = DEFAULT_BORROW_RETRIES;
 	
+	/**
+	 * Number of threads used to keep alive, replace, and create sessions 
+	 * in the background, where <code>0</code> validates the idle sessions 
+	 * in the evictor thread.
+	 */
+	private int refreshThreads = DEFAULT_REFRESH_THREADS;
+	
+	/**
+	 * Time in milliseconds before the absolute timeout that a session 
+	 * is replaced by a new session.
+	 */
+	private long refreshMargin = DEFAULT_REFRESH_MARGIN;
+	
 	
 	/**
 	 * The client identifier used to establish a session
@@ -249,7 +300,8 @@ public class EPPSessionPool  {
 	 * @param aConfig Configuration attributes for pool
 	 */
 	public void init(EPPSessionPoolableFactory aFactory, GenericObjectPool.Config aConfig) {
-		this.pool = new GenericObjectPool(aFactory, aConfig);
+		this.pool = new EPPSessionObjectPool(aFactory, aConfig, this.refreshThreads);
+		EPPSessionPoolMetrics.registerGauges(DEFAULT, this.pool);
 		
 	}
 
@@ -265,6 +317,12 @@ public class EPPSessionPool  {
 				log.info("Initializing system session pools with systems = " + theValue);
 				this.initSystemPools(theValue);
 			}
+			
+			theValue = this.getProperty("routes");
+			if (theValue != null) {
+				log.info("Initializing session routes with routes = " + theValue);
+				this.initRouters(theValue);
+			}
 		}
 		catch (EnvException ex) {
 			throw new EPPSessionPoolException("init(): EnvException: " + ex); 
@@ -281,8 +339,17 @@ public class EPPSessionPool  {
 	public void close() {
 		log.info("close(): closing pool");
 		
+		// Unregister the routes
+		Iterator theRoutersIter = this.routers.values().iterator();
+		while (theRoutersIter.hasNext()) {
+			((EPPSessionRouter) theRoutersIter.next()).unregisterGauges();
+		}
+		this.routers.clear();
+		
 		// The default pool exists?
 		if (this.pool != null) {
+			EPPSessionPoolMetrics.unregisterGauges(DEFAULT);
+			
 			// Clear and close the current pool
 			this.pool.clear();
 			try {
@@ -333,7 +400,9 @@ public class EPPSessionPool  {
 	 * @throws EPPSessionPoolException Error initializing pools
 	 */
 	private void initSystemPools(String aPoolsProp) throws EPPSessionPoolException {	
-		log.debug("initSystemPools: enter, aPoolProp = " + aPoolsProp);
+		if (log.isDebugEnabled()) {
+			log.debug("initSystemPools: enter, aPoolProp = " + aPoolsProp);
+		}
 		StringTokenizer thePools = new StringTokenizer(aPoolsProp, ",");
 		
 		// For each system name
@@ -355,6 +424,43 @@ public class EPPSessionPool  {
 	}
 	
 	
+	/**
+	 * Initializes the session routes given the value of the routes 
+	 * property, which is a comma seperated list of route names.  Each of 
+	 * the systems of a route must be an initialized system pool. 
+	 * 
+	 * @param aRoutesProp Comma seperated list of route names
+	 * 
+	 * @throws EPPSessionPoolException Error initializing routes
+	 */
+	private void initRouters(String aRoutesProp) throws EPPSessionPoolException {
+		StringTokenizer theRoutes = new StringTokenizer(aRoutesProp, ", ");
+		
+		while (theRoutes.hasMoreTokens()) {
+			String theRoute = theRoutes.nextToken();
+			if (theRoute.equals(DEFAULT) || this.systemPools.containsKey(theRoute)) {
+				log.error("initRouters: Route " + theRoute + " conflicts with a system pool");
+				throw new EPPSessionPoolException("Route " + theRoute + " conflicts with a system pool");
+			}
+			
+			EPPSessionRouter theRouter = EPPSessionRouter.create(theRoute, this);
+			
+			Iterator theSystems = theRouter.getSystems().iterator();
+			while (theSystems.hasNext()) {
+				String theSystem = (String) theSystems.next();
+				if (theSystem.equals(DEFAULT) ? this.pool == null : !this.systemPools.containsKey(theSystem)) {
+					log.error("initRouters: System pool " + theSystem + " of route " + theRoute + " not initialized");
+					throw new EPPSessionPoolException("System pool " + theSystem + " of route " + theRoute 
+							+ " not initialized");
+				}
+			}
+			
+			theRouter.registerGauges();
+			this.routers.put(theRoute, theRouter);
+		}
+	}
+	
+	
 	/**
 	 * Initialize a single pool using configuration values defined by 
 	 * {@link com.verisign.epp.util.Environment} class.  The 
@@ -454,6 +560,25 @@ public class EPPSessionPool  {
 				this.borrowRetries = DEFAULT_BORROW_RETRIES;
 			log.info("initSinglePool(): borrow retries = " + this.borrowRetries);
 			
+			// refreshThreads
+			theValue = this.getProperty("refreshThreads");
+			if (theValue != null)
+				this.refreshThreads = Integer.parseInt(theValue);
+			else
+				this.refreshThreads = DEFAULT_REFRESH_THREADS;
+			log.info("initSinglePool(): refresh threads = " + this.refreshThreads);
+			
+			// refreshMargin
+			theValue = this.getProperty("refreshMargin");
+			if (theValue != null)
+				this.refreshMargin = Long.parseLong(theValue);
+			else
+				this.refreshMargin = DEFAULT_REFRESH_MARGIN;
+			log.info("initSinglePool(): refresh margin = " + this.refreshMargin + " ms");
+			if (this.refreshThreads > 0 && this.refreshMargin <= 0) {
+				log.warn("initSinglePool(): refresh margin is not set, so sessions are only replaced at the absolute timeout");
+			}
+			
 			
 			// maxWait
 			theValue = this.getProperty("maxWait");
@@ -521,6 +646,7 @@ public class EPPSessionPool  {
 		// Set factory required attributes
 		this.factory.setAbsoluteTimeout(this.absoluteTimeout);
 		this.factory.setIdleTimeout(this.idleTimeout);
+		this.factory.setRefreshMargin(this.refreshMargin);
 		this.factory.setClientId(this.clientId);
 		this.factory.setPassword(this.password);
 		this.factory.setServerName(this.serverName);
@@ -580,6 +706,8 @@ public class EPPSessionPool  {
 			throw new EPPSessionPoolException("EPPSessionPool: pool is null");
 		}
 		
+		long theStart = System.nanoTime();
+		
 		EPPSession theSession = null;
 		
 		// Attempt to borrow session until successful or retries have exceeded.  
@@ -588,21 +716,25 @@ public class EPPSessionPool  {
 			try {
 				theSession = (EPPSession) pool.borrowObject();
 				
-				log.debug("borrowObject(): Session = " + theSession
-						+ ", Active = " + pool.getNumActive() + ", Idle = "
-						+ pool.getNumIdle());
+				if (log.isDebugEnabled()) {
+					log.debug("borrowObject(): Session = " + theSession
+							+ ", Active = " + pool.getNumActive() + ", Idle = "
+							+ pool.getNumIdle());
+				}
 			}
 			catch (Exception ex) {
 				
 				// Number of retries exceeded?
 				if (retries >= this.borrowRetries) {
 					
+					EPPSessionPoolMetrics.borrowFailed(DEFAULT);
+
 					// Throw exception to indicate borrow failure
 					log
 							.error("borrowObject(): Final exception on borrow session after "
 									+ retries + " retries: " + ex);
 					throw new EPPSessionPoolException(
-							"EPPSessionPool: Exception " + ex);
+							"EPPSessionPool: Exception " + ex, ex);
 				}
 				else {
 					// Continue retrying
@@ -615,6 +747,8 @@ public class EPPSessionPool  {
 			
 		}
 		
+		EPPSessionPoolMetrics.borrowed(DEFAULT, theStart);
+		
 		return theSession;
 	}
 	
@@ -636,18 +770,26 @@ public class EPPSessionPool  {
 			return this.borrowObject();
 		}
 		
+		// Route?
+		EPPSessionRouter theRouter = (EPPSessionRouter) this.routers.get(aSystem);
+		if (theRouter != null) {
+			return theRouter.borrowObject();
+		}
+		
 		EPPSystemSessionPool thePool = this.getSystemSessionPool(aSystem); 
 		
 		EPPSession theSession = null;
 		try {
 			theSession = (EPPSession) thePool.borrowObject();
-			log.debug("borrowObject(" + aSystem + "): Session = " + theSession + 
-					", Active = " + thePool.getGenericObjectPool().getNumActive() + 
-					", Idle = " + thePool.getGenericObjectPool().getNumIdle());
+			if (log.isDebugEnabled()) {
+				log.debug("borrowObject(" + aSystem + "): Session = " + theSession + 
+						", Active = " + thePool.getObjectPool().getNumActive() + 
+						", Idle = " + thePool.getObjectPool().getNumIdle());
+			}
 		}
 		catch (Exception ex) {
 			log.error("borrowObject(" + aSystem + "): Caught Exception: " + ex);
-			throw new EPPSessionPoolException("EPPSessionPool: Exception " + ex);
+			throw new EPPSessionPoolException("EPPSessionPool: Exception " + ex, ex);
 		}
 		
 		return theSession;
@@ -677,8 +819,10 @@ public class EPPSessionPool  {
 		
 		try {
 			pool.invalidateObject(aSession);
-			log.debug("invalidateObject(" + aSession + "): Active = " + pool.getNumActive() + 
-					", Idle = " + pool.getNumIdle());
+			if (log.isDebugEnabled()) {
+				log.debug("invalidateObject(" + aSession + "): Active = " + pool.getNumActive() + 
+						", Idle = " + pool.getNumIdle());
+			}
 		}
 		catch (Exception ex) {
 			log.error("invalidateObject(" + aSession + "): Caught Exception: " + ex);
@@ -711,16 +855,24 @@ public class EPPSessionPool  {
 			return;
 		}
 
+		// Route?
+		EPPSessionRouter theRouter = (EPPSessionRouter) this.routers.get(aSystem);
+		if (theRouter != null) {
+			theRouter.invalidateObject(aSession);
+			return;
+		}
+
 		EPPSystemSessionPool thePool = this.getSystemSessionPool(aSystem);
 
 		try {
 			thePool.invalidateObject(aSession);
-			log
-					.debug("invalidateObject(" + aSystem + ", " + aSession
-							+ "): Active = "
-							+ thePool.getGenericObjectPool().getNumActive()
-							+ ", Idle = "
-							+ thePool.getGenericObjectPool().getNumIdle());
+			if (log.isDebugEnabled()) {
+				log.debug("invalidateObject(" + aSystem + ", " + aSession
+						+ "): Active = "
+						+ thePool.getObjectPool().getNumActive()
+						+ ", Idle = "
+						+ thePool.getObjectPool().getNumIdle());
+			}
 		}
 		catch (Exception ex) {
 			log.error("invalidateObject(" + aSystem + ", " + aSession
@@ -754,8 +906,10 @@ public class EPPSessionPool  {
 		
 		try {
 			pool.returnObject(aSession);
-			log.debug("returnObject(" + aSession + "): Active = " + pool.getNumActive() + 
-					", Idle = " + pool.getNumIdle());
+			if (log.isDebugEnabled()) {
+				log.debug("returnObject(" + aSession + "): Active = " + pool.getNumActive() + 
+						", Idle = " + pool.getNumIdle());
+			}
 		}
 		catch (Exception ex) {
 			log.error("returnObject(" + aSession + "): Caught Exception: " + ex);
@@ -789,6 +943,13 @@ public class EPPSessionPool  {
 			return;
 		}
 
+		// Route?
+		EPPSessionRouter theRouter = (EPPSessionRouter) this.routers.get(aSystem);
+		if (theRouter != null) {
+			theRouter.returnObject(aSession);
+			return;
+		}
+
 		EPPSystemSessionPool thePool = this.getSystemSessionPool(aSystem);
 
 		// Touch on return
@@ -796,12 +957,13 @@ public class EPPSessionPool  {
 
 		try {
 			thePool.returnObject(aSession);
-			log
-					.debug("returnObject(" + aSystem + ", " + aSession
-							+ "): Active = "
-							+ thePool.getGenericObjectPool().getNumActive()
-							+ ", Idle = "
-							+ thePool.getGenericObjectPool().getNumIdle());
+			if (log.isDebugEnabled()) {
+				log.debug("returnObject(" + aSystem + ", " + aSession
+						+ "): Active = "
+						+ thePool.getObjectPool().getNumActive()
+						+ ", Idle = "
+						+ thePool.getObjectPool().getNumIdle());
+			}
 		}
 		catch (Exception ex) {
 			log.error("returnObject(" + aSystem + ", " + aSession
@@ -812,13 +974,31 @@ public class EPPSessionPool  {
 	}
 	
 	
+	/**
+	 * Gets the contained <code>EPPSessionObjectPool</code>.
+	 * 
+	 * @return Contained <code>EPPSessionObjectPool</code> if defined; <code>null</code> otherwise.
+	 */
+	public EPPSessionObjectPool getObjectPool() {
+		return this.pool;
+	}
+
 	/**
 	 * Gets the contained <code>GenericObjectPool</code>.
 	 * 
 	 * @return Contained <code>GenericObjectPool</code> if defined; <code>null</code> otherwise.
+	 * 
+	 * @deprecated The pool is an <code>EPPSessionObjectPool</code>, so use
+	 *             {@link #getObjectPool()}.  The returned
+	 *             <code>GenericObjectPool</code> delegates to it, but its
+	 *             setters do not reconfigure it.
 	 */
+	@Deprecated
 	public GenericObjectPool getGenericObjectPool() {
-		return this.pool;
+		if (this.pool == null) {
+			return null;
+		}
+		return this.pool.getGenericObjectPool();
 	}
 	
 	/**
@@ -834,7 +1014,7 @@ public class EPPSessionPool  {
 		EPPSystemSessionPool theSystemPool = (EPPSystemSessionPool) this.systemPools.get(aSystem);
 		
 		if (theSystemPool == null) {
-			log.error("getGenericObjectPool(): Could not find system pool " + aSystem);
+			log.error("getObjectPool(): Could not find system pool " + aSystem);
 			throw new EPPSessionPoolException("Could not find system pool " + aSystem);			
 		}
 		
@@ -843,25 +1023,65 @@ public class EPPSessionPool  {
 	
 	
 	/**
-	 * Gets the contained <code>GenericObjectPool</code> for a system.
+	 * Gets a session route.
+	 * 
+	 * @param aRoute Route name
+	 * 
+	 * @return <code>EPPSessionRouter</code> of the route.
+	 * 
+	 * @exception EPPSessionPoolException When the route can not be found
+	 */
+	public EPPSessionRouter getRouter(String aRoute) throws EPPSessionPoolException {
+		EPPSessionRouter theRouter = (EPPSessionRouter) this.routers.get(aRoute);
+		
+		if (theRouter == null) {
+			log.error("getRouter(): Could not find route " + aRoute);
+			throw new EPPSessionPoolException("Could not find route " + aRoute);			
+		}
+		
+		return theRouter;
+	}
+	
+	
+	/**
+	 * Gets the contained <code>EPPSessionObjectPool</code> for a system.
 	 * 
 	 * @param aSystem System name for pool
 	 * 
-	 * @return Contained <code>GenericObjectPool</code>.
+	 * @return Contained <code>EPPSessionObjectPool</code>.
 	 * 
 	 * @exception EPPSessionPoolException When system pool can not be found
 	 */
-	public GenericObjectPool getGenericObjectPool(String aSystem) throws EPPSessionPoolException {
+	public EPPSessionObjectPool getObjectPool(String aSystem) throws EPPSessionPoolException {
 		
 		EPPSystemSessionPool theSystemPool = this.getSystemSessionPool(aSystem);
 				
-		if (theSystemPool.getGenericObjectPool() == null) {
-			log.error("getGenericObjectPool(): GenericObjectPool is null for system pool " + aSystem);
-			throw new EPPSessionPoolException("GenericObjectPool is null for system pool " + aSystem);			
+		if (theSystemPool.getObjectPool() == null) {
+			log.error("getObjectPool(): EPPSessionObjectPool is null for system pool " + aSystem);
+			throw new EPPSessionPoolException("EPPSessionObjectPool is null for system pool " + aSystem);			
 			
 		}
 		
-		return theSystemPool.getGenericObjectPool();
+		return theSystemPool.getObjectPool();
+	}
+
+	/**
+	 * Gets the contained <code>GenericObjectPool</code> for a system.
+	 * 
+	 * @param aSystem System name for pool
+	 * 
+	 * @return Contained <code>GenericObjectPool</code>.
+	 * 
+	 * @exception EPPSessionPoolException When system pool can not be found
+	 * 
+	 * @deprecated The pool is an <code>EPPSessionObjectPool</code>, so use
+	 *             {@link #getObjectPool(String)}.  The returned
+	 *             <code>GenericObjectPool</code> delegates to it, but its
+	 *             setters do not reconfigure it.
+	 */
+	@Deprecated
+	public GenericObjectPool getGenericObjectPool(String aSystem) throws EPPSessionPoolException {
+		return this.getObjectPool(aSystem).getGenericObjectPool();
 	}
 	
 	
@@ -883,7 +1103,7 @@ public class EPPSessionPool  {
 	}
 	
 	/**
-	 * Gets the configuration for the <code>GenericObjectPool</code>.
+	 * Gets the configuration of the <code>EPPSessionObjectPool</code>.
 	 * 
 	 * @return Returns the config.
 	 */
@@ -909,6 +1129,25 @@ public class EPPSessionPool  {
 		return idleTimeout;
 	}
 	
+	/**
+	 * Gets the number of threads used to keep alive, replace, and create 
+	 * sessions in the background.
+	 * 
+	 * @return Number of refresh threads
+	 */
+	public int getRefreshThreads() {
+		return this.refreshThreads;
+	}
+	
+	/**
+	 * Gets the time before the absolute timeout that a session is replaced.
+	 * 
+	 * @return Refresh margin in milliseconds
+	 */
+	public long getRefreshMargin() {
+		return this.refreshMargin;
+	}
+	
 	/**
 	 * Gets the password used for authentication.
 	 * 
@@ -31,4 +31,18 @@ public class EPPSessionPoolException extends Exception {
 	}
 
 	// End EPPSessionPoolException.EPPSessionPoolException(String)
+
+	/**
+	 * Constructor for <code>EPPSessionPoolException</code> with a info
+	 * <code>String</code> description and the exception that caused it, like
+	 * the <code>NoSuchElementException</code> of an exhausted pool.
+	 *
+	 * @param info text description
+	 * @param cause exception that caused the exception
+	 */
+	public EPPSessionPoolException(String info, Throwable cause) {
+		super(info, cause);
+	}
+
+	// End EPPSessionPoolException.EPPSessionPoolException(String, Throwable)
 }
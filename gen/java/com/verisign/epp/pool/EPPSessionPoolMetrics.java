@@ -0,0 +1,96 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.pool;
+
+import com.verisign.epp.metrics.EPPMetrics;
+import com.verisign.epp.metrics.EPPMetricsFactory;
+import com.verisign.epp.metrics.EPPMetricsGauge;
+
+/**
+ * Records the metrics of the session pools (<code>EPPSessionPool</code> and
+ * <code>EPPSystemSessionPool</code>), which are tagged with the system name
+ * of the pool (<code>EPPSessionPool.DEFAULT</code> for the default pool).
+ */
+class EPPSessionPoolMetrics {
+
+	/**
+	 * Utility class with only static methods.
+	 */
+	private EPPSessionPoolMetrics() {
+	}
+
+	/**
+	 * Registers the active and idle session gauges of a pool.
+	 *
+	 * @param aSystem System name of the pool
+	 * @param aPool Pool to sample
+	 */
+	static void registerGauges(String aSystem, final EPPSessionObjectPool aPool) {
+		EPPMetrics theMetrics = EPPMetricsFactory.getInstance().getMetrics();
+
+		theMetrics.registerGauge(EPPMetrics.SESSION_POOL_ACTIVE, aSystem, new EPPMetricsGauge() {
+
+			public long getValue() {
+				return aPool.getNumActive();
+			}
+		});
+		theMetrics.registerGauge(EPPMetrics.SESSION_POOL_IDLE, aSystem, new EPPMetricsGauge() {
+
+			public long getValue() {
+				return aPool.getNumIdle();
+			}
+		});
+	}
+
+	/**
+	 * Unregisters the active and idle session gauges of a pool.
+	 *
+	 * @param aSystem System name of the pool
+	 */
+	static void unregisterGauges(String aSystem) {
+		EPPMetrics theMetrics = EPPMetricsFactory.getInstance().getMetrics();
+		theMetrics.unregisterGauge(EPPMetrics.SESSION_POOL_ACTIVE, aSystem);
+		theMetrics.unregisterGauge(EPPMetrics.SESSION_POOL_IDLE, aSystem);
+	}
+
+	/**
+	 * Records a successful borrow of a session.
+	 *
+	 * @param aSystem System name of the pool
+	 * @param aStart Value of <code>System.nanoTime()</code> when the borrow
+	 * was started
+	 */
+	static void borrowed(String aSystem, long aStart) {
+		EPPMetricsFactory.getInstance().getMetrics().recordTime(EPPMetrics.SESSION_POOL_BORROW, aSystem,
+				System.nanoTime() - aStart);
+	}
+
+	/**
+	 * Records a failed borrow of a session.
+	 *
+	 * @param aSystem System name of the pool
+	 */
+	static void borrowFailed(String aSystem) {
+		EPPMetricsFactory.getInstance().getMetrics().increment(EPPMetrics.SESSION_POOL_BORROW_FAILED, aSystem, 1);
+	}
+
+}
+
+// End class EPPSessionPoolMetrics
@@ -20,11 +20,19 @@ http://www.verisign.com/nds/naming/namestore/techdocs.html
 package com.verisign.epp.pool;
 
 
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import junit.framework.Assert;
 import junit.framework.Test;
 import junit.framework.TestCase;
 import junit.framework.TestSuite;
 
+import org.apache.commons.pool.BasePoolableObjectFactory;
+import org.apache.commons.pool.PoolableObjectFactory;
+import org.apache.commons.pool.impl.GenericObjectPool;
 import org.apache.log4j.Logger;
 
 import com.verisign.epp.codec.gen.EPPResponse;
@@ -241,8 +249,8 @@ public class EPPSessionPoolTst extends TestCase {
 	public void testAbsoluteTimeout() {
 		printStart("testAbsoluteTimeout");
 		
-		System.out.println("testAbsolutionTimeout: active = " + sessionPool.getGenericObjectPool().getNumActive() + 
-				", idle = " + sessionPool.getGenericObjectPool().getNumIdle());
+		System.out.println("testAbsolutionTimeout: active = " + sessionPool.getObjectPool().getNumActive() + 
+				", idle = " + sessionPool.getObjectPool().getNumIdle());
 			
 		if (this.sessionPool.getAbsoluteTimeout() > 10000) {
 			System.out.println("testAbsolutionTimeout: Do nothing since absolute timeout of " +  
@@ -258,8 +266,8 @@ public class EPPSessionPoolTst extends TestCase {
 				// Ignore
 			}
 			
-			System.out.println("testAbsolutionTimeout: active = " + sessionPool.getGenericObjectPool().getNumActive() + 
-					", idle = " + sessionPool.getGenericObjectPool().getNumIdle());
+			System.out.println("testAbsolutionTimeout: active = " + sessionPool.getObjectPool().getNumActive() + 
+					", idle = " + sessionPool.getObjectPool().getNumIdle());
 		}
 		
 		printEnd("testAbsoluteTimeout");
@@ -268,7 +276,7 @@ public class EPPSessionPoolTst extends TestCase {
 	/**
 	 * Test that the idle timeout is working by sleeping for 1 second past 
 	 * the idle timeout.  There a log message containing the text 
-	 * &qt;is past idle timeout, sending hello&qt; for each idle session 
+	 * &qt;sending hello&qt; for each idle session 
 	 * in the pool in &qt;epp.log&qt;.  This test will only run if the 
 	 * idle timeout is lower than or equal to 10 seconds.  
 	 */
@@ -289,11 +297,259 @@ public class EPPSessionPoolTst extends TestCase {
 				// Ignore
 			}
 			
-			System.out.println("testIdleTimeout: Look for epp.log messages containing text \"is past idle timeout, sending hello\"");
+			System.out.println("testIdleTimeout: Look for epp.log messages containing text \"sending hello\"");
 		}
 		
 		printEnd("testIdleTimeout");
 	}
+
+
+	/**
+	 * Test <code>EPPSessionObjectPool</code> with a factory of plain objects, 
+	 * which includes reusing idle objects, blocking borrowers up to 
+	 * <code>maxWait</code> when <code>maxActive</code> objects are borrowed, 
+	 * limiting the idle objects to <code>maxIdle</code>, and borrowing an object 
+	 * while the evictor is blocked validating another idle object.  The 
+	 * <code>GenericObjectPool</code> view of the pool is also tested.
+	 */
+	public void testObjectPool() {
+		printStart("testObjectPool");
+
+		final CountDownLatch theValidating = new CountDownLatch(1);
+		final CountDownLatch theRelease = new CountDownLatch(1);
+		final AtomicInteger theCreated = new AtomicInteger();
+		final AtomicInteger theDestroyed = new AtomicInteger();
+
+		PoolableObjectFactory theFactory = new BasePoolableObjectFactory() {
+
+			public Object makeObject() {
+				return new Integer(theCreated.incrementAndGet());
+			}
+
+			public void destroyObject(Object aObject) {
+				theDestroyed.incrementAndGet();
+			}
+
+			public boolean validateObject(Object aObject) {
+				// Block the first validation like a slow keep alive
+				if (theValidating.getCount() > 0) {
+					theValidating.countDown();
+					try {
+						theRelease.await();
+					}
+					catch (InterruptedException ex) {
+						// Ignore
+					}
+				}
+				return true;
+			}
+		};
+
+		GenericObjectPool.Config theConfig = new GenericObjectPool.Config();
+		theConfig.maxActive = 2;
+		theConfig.maxIdle = 1;
+		theConfig.maxWait = 200;
+		theConfig.whenExhaustedAction = GenericObjectPool.WHEN_EXHAUSTED_BLOCK;
+		theConfig.testWhileIdle = true;
+		theConfig.numTestsPerEvictionRun = -1;
+		theConfig.timeBetweenEvictionRunsMillis = 0;
+
+		final EPPSessionObjectPool thePool = new EPPSessionObjectPool(theFactory, theConfig);
+
+		try {
+			// Idle object is reused
+			Object theFirst = thePool.borrowObject();
+			thePool.returnObject(theFirst);
+			assertSame(theFirst, thePool.borrowObject());
+			Object theSecond = thePool.borrowObject();
+			assertEquals(2, thePool.getNumActive());
+			assertEquals(0, thePool.getNumIdle());
+
+			// Exhausted pool times out after maxWait
+			long theStart = System.currentTimeMillis();
+			try {
+				thePool.borrowObject();
+				fail("Expected borrow timeout with an exhausted pool");
+			}
+			catch (NoSuchElementException ex) {
+				assertTrue(System.currentTimeMillis() - theStart >= 150);
+			}
+
+			// Only maxIdle objects are kept
+			thePool.returnObject(theFirst);
+			thePool.returnObject(theSecond);
+			assertEquals(0, thePool.getNumActive());
+			assertEquals(1, thePool.getNumIdle());
+			assertEquals(1, theDestroyed.get());
+
+			// Borrow while the evictor is blocked validating the idle object
+			Thread theEvictor = new Thread() {
+
+				public void run() {
+					thePool.evict();
+				}
+			};
+			theEvictor.start();
+			assertTrue(theValidating.await(5, TimeUnit.SECONDS));
+			assertEquals(0, thePool.getNumIdle());
+
+			Object theThird = thePool.borrowObject();
+			assertEquals(3, ((Integer) theThird).intValue());
+			thePool.returnObject(theThird);
+
+			theRelease.countDown();
+			theEvictor.join(5000);
+
+			// Validated object is destroyed since maxIdle is already reached
+			assertEquals(1, thePool.getNumIdle());
+			assertEquals(2, theDestroyed.get());
+
+			// GenericObjectPool view delegates to the pool
+			GenericObjectPool theView = thePool.getGenericObjectPool();
+			assertSame(theView, thePool.getGenericObjectPool());
+			assertEquals(2, theView.getMaxActive());
+			assertEquals(0, theView.getTimeBetweenEvictionRunsMillis());
+			Object theFourth = theView.borrowObject();
+			assertEquals(1, thePool.getNumActive());
+			assertEquals(1, theView.getNumActive());
+			assertEquals(0, theView.getNumIdle());
+			theView.returnObject(theFourth);
+			assertEquals(1, thePool.getNumIdle());
+
+			thePool.close();
+			assertEquals(0, thePool.getNumIdle());
+			assertEquals(3, theDestroyed.get());
+		}
+		catch (Exception ex) {
+			ex.printStackTrace();
+			fail("testObjectPool(): Unexpected Exception: " + ex);
+		}
+
+		printEnd("testObjectPool");
+	}
+
+
+	/**
+	 * Test the refresh threads of <code>EPPSessionObjectPool</code> with an 
+	 * <code>EPPSessionPoolableFactory</code> of sessions that do not connect, 
+	 * which includes pre-warming the pool to <code>minIdle</code>, sending 
+	 * keep alives before the idle timeout, and replacing the sessions before 
+	 * the absolute timeout.
+	 */
+	public void testObjectPoolRefresh() {
+		printStart("testObjectPoolRefresh");
+
+		final AtomicInteger theCreated = new AtomicInteger();
+		final AtomicInteger theDestroyed = new AtomicInteger();
+		final AtomicInteger theKeepAlives = new AtomicInteger();
+
+		EPPSessionPoolableFactory theFactory = new EPPSessionPoolableFactory("test", "test", 1500, 400) {
+
+			public Object makeObject() {
+				theCreated.incrementAndGet();
+				return new TestPooledSession();
+			}
+
+			public void destroyObject(Object aObject) {
+				theDestroyed.incrementAndGet();
+			}
+
+			public boolean keepAlive(Object aSession) {
+				theKeepAlives.incrementAndGet();
+				((EPPPooledSession) aSession).touch();
+				return true;
+			}
+		};
+		theFactory.setRefreshMargin(900);
+
+		GenericObjectPool.Config theConfig = new GenericObjectPool.Config();
+		theConfig.minIdle = 2;
+		theConfig.maxIdle = 5;
+		theConfig.maxActive = 5;
+		theConfig.maxWait = 1000;
+		theConfig.whenExhaustedAction = GenericObjectPool.WHEN_EXHAUSTED_BLOCK;
+		theConfig.timeBetweenEvictionRunsMillis = 100;
+
+		EPPSessionObjectPool thePool = new EPPSessionObjectPool(theFactory, theConfig, 1);
+
+		try {
+			// Pre-warmed to minIdle
+			assertTrue("Expected pre-warmed sessions", waitFor(theCreated, 2, 2000));
+
+			// Keep alives are sent before the 400 ms idle timeout
+			assertTrue("Expected keep alives", waitFor(theKeepAlives, 1, 2000));
+			
+			// Sessions are replaced 600 ms after being created
+			assertTrue("Expected replaced sessions", waitFor(theDestroyed, 2, 3000));
+			assertTrue(theCreated.get() >= 4);
+
+			// Borrowed sessions are never past the absolute timeout
+			for (int i = 0; i < 10; i++) {
+				TestPooledSession theSession = (TestPooledSession) thePool.borrowObject();
+				assertFalse(theFactory.isExpired(theSession));
+				thePool.returnObject(theSession);
+				Thread.sleep(100);
+			}
+
+			assertTrue(thePool.getNumIdle() <= 5);
+		}
+		catch (Exception ex) {
+			ex.printStackTrace();
+			fail("testObjectPoolRefresh(): Unexpected Exception: " + ex);
+		}
+		finally {
+			thePool.close();
+		}
+
+		printEnd("testObjectPoolRefresh");
+	}
+
+	/**
+	 * Waits for a counter to reach a minimum value.
+	 * 
+	 * @param aCounter Counter to check
+	 * @param aMin Minimum value of the counter
+	 * @param aTimeout Maximum time to wait in milliseconds
+	 * 
+	 * @return <code>true</code> if the counter reached the minimum value within 
+	 * the timeout; <code>false</code> otherwise.
+	 */
+	private boolean waitFor(AtomicInteger aCounter, int aMin, long aTimeout)
+			throws InterruptedException {
+		long theEnd = System.currentTimeMillis() + aTimeout;
+		while (aCounter.get() < aMin) {
+			if (System.currentTimeMillis() > theEnd) {
+				return false;
+			}
+			Thread.sleep(20);
+		}
+		return true;
+	}
+
+	/**
+	 * Pooled session used by <code>testObjectPoolRefresh</code>, which does 
+	 * not connect to a server.
+	 */
+	private static class TestPooledSession implements EPPPooledSession {
+
+		/** Time the session was created */
+		private long createdTime = System.currentTimeMillis();
+
+		/** Last time the session was touched */
+		private volatile long lastTouched = System.currentTimeMillis();
+
+		public long getCreatedTime() {
+			return this.createdTime;
+		}
+
+		public long getLastTouched() {
+			return this.lastTouched;
+		}
+
+		public void touch() {
+			this.lastTouched = System.currentTimeMillis();
+		}
+	}
 	
 	
 	
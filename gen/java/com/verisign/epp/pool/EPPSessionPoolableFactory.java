@@ -25,6 +25,8 @@ import org.apache.log4j.Logger;
 
 import com.verisign.epp.interfaces.EPPCommandException;
 import com.verisign.epp.interfaces.EPPSession;
+import com.verisign.epp.metrics.EPPMetrics;
+import com.verisign.epp.metrics.EPPMetricsFactory;
 import com.verisign.epp.transport.client.EPPSSLContext;
 import com.verisign.epp.util.EPPCatFactory;
 
@@ -57,6 +59,12 @@ public class EPPSessionPoolableFactory implements PoolableObjectFactory {
 	 */
 	private long idleTimeout;
 	
+	/**
+	 * Time in milliseconds before the absolute timeout that a session 
+	 * is due to be replaced by the pool refresher
+	 */
+	private long refreshMargin = 0;
+	
 	/**
 	 * Name or IP address of TCP server or URL of HTTP server.
 	 */
@@ -176,6 +184,27 @@ public class EPPSessionPoolableFactory implements PoolableObjectFactory {
 	public void setIdleTimeout(long aIdleTimeout) {
 		this.idleTimeout = aIdleTimeout;
 	}
+	
+	/**
+	 * Gets the time before the absolute timeout that a session is due 
+	 * to be replaced by the pool refresher.
+	 * 
+	 * @return Refresh margin in milliseconds
+	 */
+	public long getRefreshMargin() {
+		return this.refreshMargin;
+	}
+	
+	/**
+	 * Sets the time before the absolute timeout that a session is due 
+	 * to be replaced by the pool refresher.  The default is <code>0</code>, 
+	 * which replaces the session when it reaches the absolute timeout.
+	 * 
+	 * @param aRefreshMargin Refresh margin in milliseconds
+	 */
+	public void setRefreshMargin(long aRefreshMargin) {
+		this.refreshMargin = aRefreshMargin;
+	}
 		
 	
 
@@ -283,7 +312,9 @@ public class EPPSessionPoolableFactory implements PoolableObjectFactory {
 	 * @see org.apache.commons.pool.PoolableObjectFactory#destroyObject(java.lang.Object)
 	 */
 	public void destroyObject(Object aSession) throws Exception {
-		log.debug("destroyObject(): enter, session id = " + aSession);
+		if (log.isDebugEnabled()) {
+			log.debug("destroyObject(): enter, session id = " + aSession);
+		}
 		EPPSession theSession = (EPPSession) aSession;
 		
 		// Try to end the session gracefully
@@ -307,20 +338,26 @@ public class EPPSessionPoolableFactory implements PoolableObjectFactory {
 		
 		EPPSession theSession = this.makeSession();
 		
-		log.debug("makeObject(): Make session with id = " + theSession);
+		if (log.isDebugEnabled()) {
+			log.debug("makeObject(): Make session with id = " + theSession);
+		}
 		
 		theSession.setClientID(this.clientId);
 		theSession.setPassword(this.password);
 
-		log.debug("makeObject(): establishing session, with session class " + 
-				theSession.getClass().getName());
+		if (log.isDebugEnabled()) {
+			log.debug("makeObject(): establishing session, with session class " + 
+					theSession.getClass().getName());
+		}
 		
 		// Establish authenticated session
 		try {
 			theSession.initSession();
 			
-			log.debug("makeObject(): established session, with session class " + 
-					theSession.getClass().getName());
+			if (log.isDebugEnabled()) {
+				log.debug("makeObject(): established session, with session class " + 
+						theSession.getClass().getName());
+			}
 		}
 		catch (EPPCommandException ex) {
 			log.error("makeObject(): error initializing session " + 
@@ -337,6 +374,8 @@ public class EPPSessionPoolableFactory implements PoolableObjectFactory {
 			throw ex;
 		}
 		
+		EPPMetricsFactory.getInstance().getMetrics().increment(EPPMetrics.SESSION_POOL_CREATED, null, 1);
+		
 		log.debug("makeObject(): exit");
 		return theSession;
 	}
@@ -363,41 +402,129 @@ public class EPPSessionPoolableFactory implements PoolableObjectFactory {
 	 * @return <code>true</code> if the session is valid; <code>false</code> otherwise.
 	 */
 	public boolean validateObject(Object aSession) {
-		log.debug("validateObject(): enter, session id = " + aSession);
+		if (log.isDebugEnabled()) {
+			log.debug("validateObject(): enter, session id = " + aSession);
+		}
 		EPPSession theSession = (EPPSession) aSession;
 		EPPPooledSession thePooledSession = (EPPPooledSession) aSession;
-		long currentTime = System.currentTimeMillis();
 		boolean isValid;
 		
 		try {
 			// Is session past absolute timeout?
-			if (currentTime - thePooledSession.getCreatedTime() > 
-					this.getAbsoluteTimeout()) {
-				log.debug("validateObject(): session id = " + aSession + " is past absolute timeout");				
+			if (this.isExpired(aSession)) {
+				if (log.isDebugEnabled()) {
+					log.debug("validateObject(): session id = " + aSession + " is past absolute timeout");				
+				}
+				EPPMetricsFactory.getInstance().getMetrics().increment(EPPMetrics.SESSION_POOL_EVICTED,
+						"absoluteTimeout", 1);
 				isValid = false;
 			} // Idle timeout?
 			else if (System.currentTimeMillis() - thePooledSession.getLastTouched() > 
 					this.getIdleTimeout()) {
-				log.debug("validateObject(): session id = " + aSession + " is past idle timeout, sending hello");				
+				if (log.isDebugEnabled()) {
+					log.debug("validateObject(): session id = " + aSession + " is past idle timeout, sending hello");				
+				}
 				theSession.hello();
 				thePooledSession.touch();
 				isValid = true;
 			}
 			else {
-				log.debug("validateObject(): session id = " + aSession + " is valid");				
+				if (log.isDebugEnabled()) {
+					log.debug("validateObject(): session id = " + aSession + " is valid");				
+				}
 				isValid = true;
 			}
 			
 		}
 		catch (Exception ex) {
-			log.debug("validateObject(): session id = " + aSession + " caused Exception: " + ex);				
+			log.warn("validateObject(): session id = " + aSession + " failed keep alive", ex);
+			EPPMetricsFactory.getInstance().getMetrics().increment(EPPMetrics.SESSION_POOL_EVICTED,
+					"keepAliveFailed", 1);
 			isValid = false;
 		}
 		
-		log.debug("validateObject(): exit, isValid = " + isValid);
+		if (log.isDebugEnabled()) {
+			log.debug("validateObject(): exit, isValid = " + isValid);
+		}
 		return isValid;
 	}
 	
+	/**
+	 * Is a session past the absolute timeout?
+	 * 
+	 * @param aSession Session to check
+	 * 
+	 * @return <code>true</code> if the session is past the absolute timeout; 
+	 * <code>false</code> otherwise.
+	 */
+	public boolean isExpired(Object aSession) {
+		EPPPooledSession thePooledSession = (EPPPooledSession) aSession;
+		
+		return System.currentTimeMillis() - thePooledSession.getCreatedTime() > 
+				this.getAbsoluteTimeout();
+	}
+	
+	/**
+	 * Is a keep alive due for a session?  A keep alive is due when the 
+	 * session will pass the idle timeout within <code>aLead</code> milliseconds, 
+	 * so the pool refresher can send it before the server idle cutoff.
+	 * 
+	 * @param aSession Session to check
+	 * @param aLead Time in milliseconds before the idle timeout
+	 * 
+	 * @return <code>true</code> if a keep alive is due; <code>false</code> otherwise.
+	 */
+	public boolean isKeepAliveDue(Object aSession, long aLead) {
+		EPPPooledSession thePooledSession = (EPPPooledSession) aSession;
+		
+		return System.currentTimeMillis() - thePooledSession.getLastTouched() > 
+				this.getIdleTimeout() - aLead;
+	}
+	
+	/**
+	 * Is a session due to be replaced?  A session is due to be replaced  
+	 * <code>refreshMargin</code> milliseconds before the absolute timeout. 
+	 * 
+	 * @param aSession Session to check
+	 * 
+	 * @return <code>true</code> if the session is due to be replaced; 
+	 * <code>false</code> otherwise.
+	 */
+	public boolean isRefreshDue(Object aSession) {
+		EPPPooledSession thePooledSession = (EPPPooledSession) aSession;
+		
+		return System.currentTimeMillis() - thePooledSession.getCreatedTime() > 
+				this.getAbsoluteTimeout() - this.refreshMargin;
+	}
+	
+	/**
+	 * Sends a keep alive (hello) with a session and touches the session.  
+	 * 
+	 * @param aSession Session to keep alive
+	 * 
+	 * @return <code>true</code> if the keep alive succeeded; <code>false</code> otherwise.
+	 */
+	public boolean keepAlive(Object aSession) {
+		if (log.isDebugEnabled()) {
+			log.debug("keepAlive(): session id = " + aSession + ", sending hello");				
+		}
+		
+		try {
+			((EPPSession) aSession).hello();
+			((EPPPooledSession) aSession).touch();
+			return true;
+		}
+		catch (Exception ex) {
+			if (log.isDebugEnabled()) {
+				log.debug("keepAlive(): session id = " + aSession + " caused Exception: " + ex);				
+			}
+			EPPMetricsFactory.getInstance().getMetrics().increment(EPPMetrics.SESSION_POOL_EVICTED,
+					"keepAliveFailed", 1);
+			return false;
+		}
+	}
+	
+	
 	/**
 	 * Make an EPP session instance for pool.  This can be overridden by a 
 	 * derived class to create a custom EPP session instance (i.e. HTTP).
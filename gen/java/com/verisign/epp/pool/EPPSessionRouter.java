@@ -0,0 +1,798 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.pool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.StringTokenizer;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+
+import com.verisign.epp.interfaces.EPPSession;
+import com.verisign.epp.metrics.EPPMetrics;
+import com.verisign.epp.metrics.EPPMetricsFactory;
+import com.verisign.epp.metrics.EPPMetricsGauge;
+import com.verisign.epp.util.EPPCatFactory;
+import com.verisign.epp.util.Environment;
+
+/**
+ * Route over a set of system session pools of <code>EPPSessionPool</code>
+ * (i.e. registry front-ends or proxies), which picks a system for each
+ * borrow based on the observed command latency and error rate of the
+ * systems.  A route is used like a system pool by passing the route name
+ * to <code>EPPSessionPool.borrowObject(String)</code>,
+ * <code>returnObject(String, EPPSession)</code>, and
+ * <code>invalidateObject(String, EPPSession)</code>.<br>
+ * <br>
+ * The latency and error rate of each system are exponentially weighted
+ * moving averages (EWMA) of the commands processed with the sessions of the
+ * system, which are sampled when a session is returned.  A system is picked
+ * with the "power of two choices": two systems are picked at random and the
+ * one with the lower score is used, where the score is the latency average
+ * multiplied by the number of borrowed sessions plus one and by an error
+ * penalty.  The traffic shifts away from a system when it becomes slow,
+ * without sending all of the traffic to the fastest system.  A system that
+ * was not sampled for <code>probeInterval</code> milliseconds gets a score of
+ * <code>0</code>, so it is probed again after it recovers.<br>
+ * <br>
+ * Each system has a circuit breaker that opens when the error rate average
+ * reaches <code>errorThreshold</code> after at least <code>minSamples</code>
+ * samples, or when a session can not be borrowed from the system pool.  An
+ * open system is not used for <code>openTime</code> milliseconds, after which a
+ * single trial borrow is allowed.  The circuit is closed if the trial session
+ * is returned without errors, and is opened again otherwise.  The route fails
+ * the borrow when the circuits of all of the systems are open.<br>
+ * <br>
+ * The routes are defined with the <code>EPP.SessionPool.routes</code> property,
+ * which is a comma separated list of route names, and the following
+ * properties of each route:<br>
+ * <br><ul>
+ * <li><code>EPP.SessionPool.&lt;route&gt;.systems</code> - (required) Comma separated
+ * list of the system names of the route, where <code>default</code> is the default
+ * pool.
+ * <li><code>EPP.SessionPool.&lt;route&gt;.ewmaAlpha</code> - (optional) Weight of a new
+ * sample in the averages.  Default is <code>0.2</code>.
+ * <li><code>EPP.SessionPool.&lt;route&gt;.errorThreshold</code> - (optional) Error rate
+ * average that opens the circuit of a system.  Default is <code>0.5</code>.
+ * <li><code>EPP.SessionPool.&lt;route&gt;.minSamples</code> - (optional) Minimum number of
+ * samples of a system before its circuit is opened on the error rate.  Default
+ * is <code>10</code>.
+ * <li><code>EPP.SessionPool.&lt;route&gt;.openTime</code> - (optional) Time in milliseconds
+ * that an open system is not used.  Default is 30 seconds.
+ * <li><code>EPP.SessionPool.&lt;route&gt;.probeInterval</code> - (optional) Time in
+ * milliseconds without a sample after which a system is probed.  Default is 10
+ * seconds.
+ * </ul>
+ */
+public class EPPSessionRouter {
+
+	/** Default weight of a new sample in the averages */
+	public static final double DEFAULT_EWMA_ALPHA = 0.2;
+
+	/** Default error rate average that opens the circuit of a system */
+	public static final double DEFAULT_ERROR_THRESHOLD = 0.5;
+
+	/** Default minimum number of samples before a circuit is opened on the error rate */
+	public static final int DEFAULT_MIN_SAMPLES = 10;
+
+	/** Default time in milliseconds that an open system is not used */
+	public static final long DEFAULT_OPEN_TIME = 30 * 1000; // 30 seconds
+
+	/** Default time in milliseconds without a sample after which a system is probed */
+	public static final long DEFAULT_PROBE_INTERVAL = 10 * 1000; // 10 seconds
+
+	/** Multiplier of the error rate average in the score of a system */
+	private static final double ERROR_PENALTY = 10.0;
+
+	/** Session pool property prefix */
+	private final static String PROP_PREFIX = "EPP.SessionPool";
+
+	/** Log4j category for logging */
+	private static Logger log = Logger.getLogger(EPPSessionRouter.class.getName(), EPPCatFactory
+			.getInstance().getFactory());
+
+	/**
+	 * Statistics and circuit breaker state of a system of the route.
+	 */
+	static class Endpoint {
+
+		/** System name of the pool */
+		String system;
+
+		/** Latency average in nanoseconds.  Guarded by <code>this</code>. */
+		double latency = 0;
+
+		/** Error rate average between <code>0</code> and <code>1</code>.  Guarded by <code>this</code>. */
+		double errorRate = 0;
+
+		/** Number of samples.  Guarded by <code>this</code>. */
+		long samples = 0;
+
+		/** <code>System.nanoTime()</code> of the last sample.  Guarded by <code>this</code>. */
+		long lastSample = System.nanoTime();
+
+		/** <code>System.nanoTime()</code> when an open circuit allows a trial; <code>0</code> if closed */
+		volatile long openUntil = 0;
+
+		/** Is a trial borrow in progress for an open circuit? */
+		AtomicBoolean trial = new AtomicBoolean();
+
+		/** Number of sessions borrowed from the system through the route */
+		AtomicInteger active = new AtomicInteger();
+
+		/**
+		 * Creates an <code>Endpoint</code> for a system.
+		 *
+		 * @param aSystem System name of the pool
+		 */
+		Endpoint(String aSystem) {
+			this.system = aSystem;
+		}
+	}
+
+	/**
+	 * Session borrowed through the route with the command counters of the
+	 * session when it was borrowed.
+	 */
+	static class Lease {
+
+		/** System the session was borrowed from */
+		Endpoint endpoint;
+
+		/** Is the lease the trial of an open circuit? */
+		boolean trial;
+
+		/** <code>System.nanoTime()</code> when borrowed */
+		long start = System.nanoTime();
+
+		/** Command count of the session when borrowed */
+		long commandCount;
+
+		/** Command latency total of the session when borrowed */
+		long commandNanos;
+
+		/** Command error count of the session when borrowed */
+		long commandErrors;
+	}
+
+	/** Name of the route */
+	private String name;
+
+	/** Pool that contains the system pools */
+	private EPPSessionPool pool;
+
+	/** Systems of the route */
+	private Endpoint[] endpoints;
+
+	/** Leases of the borrowed sessions */
+	private Map<EPPSession, Lease> leases = Collections.synchronizedMap(new IdentityHashMap<EPPSession, Lease>());
+
+	/** Weight of a new sample in the averages */
+	private double ewmaAlpha = DEFAULT_EWMA_ALPHA;
+
+	/** Error rate average that opens the circuit of a system */
+	private double errorThreshold = DEFAULT_ERROR_THRESHOLD;
+
+	/** Minimum number of samples before a circuit is opened on the error rate */
+	private int minSamples = DEFAULT_MIN_SAMPLES;
+
+	/** Time in nanoseconds that an open system is not used */
+	private long openNanos = DEFAULT_OPEN_TIME * 1000000L;
+
+	/** Time in nanoseconds without a sample after which a system is probed */
+	private long probeNanos = DEFAULT_PROBE_INTERVAL * 1000000L;
+
+	/**
+	 * Creates a route over systems of a pool with the default settings.
+	 *
+	 * @param aName Name of the route
+	 * @param aPool Pool that contains the system pools
+	 * @param aSystems System names of the route
+	 */
+	public EPPSessionRouter(String aName, EPPSessionPool aPool, List<String> aSystems) {
+		this.name = aName;
+		this.pool = aPool;
+		this.endpoints = new Endpoint[aSystems.size()];
+		for (int i = 0; i < this.endpoints.length; i++) {
+			this.endpoints[i] = new Endpoint(aSystems.get(i));
+		}
+	}
+
+	/**
+	 * Creates a route with the settings defined by the
+	 * <code>EPP.SessionPool.&lt;route&gt;</code> properties.
+	 *
+	 * @param aName Name of the route
+	 * @param aPool Pool that contains the system pools
+	 *
+	 * @return Initialized route
+	 *
+	 * @throws EPPSessionPoolException Error in the route properties
+	 */
+	static EPPSessionRouter create(String aName, EPPSessionPool aPool) throws EPPSessionPoolException {
+		String theValue = getProperty(aName, "systems");
+		if (theValue == null) {
+			log.error("create(): systems not defined for route " + aName);
+			throw new EPPSessionPoolException("systems not defined for route " + aName);
+		}
+
+		List<String> theSystems = new ArrayList<String>();
+		StringTokenizer theTokens = new StringTokenizer(theValue, ", ");
+		while (theTokens.hasMoreTokens()) {
+			theSystems.add(theTokens.nextToken());
+		}
+		if (theSystems.isEmpty()) {
+			throw new EPPSessionPoolException("No systems defined for route " + aName);
+		}
+
+		EPPSessionRouter theRouter = new EPPSessionRouter(aName, aPool, theSystems);
+
+		try {
+			theValue = getProperty(aName, "ewmaAlpha");
+			if (theValue != null)
+				theRouter.setEwmaAlpha(Double.parseDouble(theValue));
+
+			theValue = getProperty(aName, "errorThreshold");
+			if (theValue != null)
+				theRouter.setErrorThreshold(Double.parseDouble(theValue));
+
+			theValue = getProperty(aName, "minSamples");
+			if (theValue != null)
+				theRouter.setMinSamples(Integer.parseInt(theValue));
+
+			theValue = getProperty(aName, "openTime");
+			if (theValue != null)
+				theRouter.setOpenTime(Long.parseLong(theValue));
+
+			theValue = getProperty(aName, "probeInterval");
+			if (theValue != null)
+				theRouter.setProbeInterval(Long.parseLong(theValue));
+		}
+		catch (NumberFormatException ex) {
+			log.error("create(): Invalid property of route " + aName + ": " + ex);
+			throw new EPPSessionPoolException("Invalid property of route " + aName + ": " + ex);
+		}
+
+		log.info("create(): Route " + aName + " with systems " + theSystems);
+
+		return theRouter;
+	}
+
+	/**
+	 * Borrows a session from the system picked for the borrow.  If the
+	 * session can not be borrowed from the system, another system is tried.
+	 * A failure to connect or login opens the circuit of the system, while an
+	 * exhausted system pool is sampled as an error, so the circuit is only
+	 * opened when the error rate average reaches <code>errorThreshold</code>.
+	 *
+	 * @return Borrowed session
+	 *
+	 * @throws EPPSessionPoolException The circuits of all of the systems are
+	 *         open or no session could be borrowed
+	 */
+	public EPPSession borrowObject() throws EPPSessionPoolException {
+		EPPSessionPoolException theFailure = null;
+
+		for (int i = 0; i < this.endpoints.length; i++) {
+			Lease theLease = this.select();
+			if (theLease == null) {
+				break;
+			}
+			Endpoint theEndpoint = theLease.endpoint;
+
+			theEndpoint.active.incrementAndGet();
+			EPPSession theSession;
+			try {
+				theSession = this.pool.borrowObject(theEndpoint.system);
+			}
+			catch (EPPSessionPoolException ex) {
+				theEndpoint.active.decrementAndGet();
+				if (isExhausted(ex)) {
+					log.warn("borrowObject(): Route " + this.name + " system " + theEndpoint.system
+							+ " exhausted: " + ex);
+					this.record(theLease, 0, 0, 1);
+				}
+				else {
+					log.warn("borrowObject(): Route " + this.name + " failed to borrow from system "
+							+ theEndpoint.system + ": " + ex);
+					this.open(theEndpoint);
+				}
+				theFailure = ex;
+				continue;
+			}
+
+			if (theSession instanceof EPPPooledGenericSession) {
+				EPPPooledGenericSession thePooledSession = (EPPPooledGenericSession) theSession;
+				theLease.commandCount = thePooledSession.getCommandCount();
+				theLease.commandNanos = thePooledSession.getCommandNanos();
+				theLease.commandErrors = thePooledSession.getCommandErrors();
+			}
+			this.leases.put(theSession, theLease);
+
+			if (log.isDebugEnabled()) {
+				log.debug("borrowObject(): Route " + this.name + " borrowed " + theSession + " from system "
+						+ theEndpoint.system);
+			}
+			return theSession;
+		}
+
+		EPPSessionPoolMetrics.borrowFailed(this.name);
+
+		if (theFailure != null) {
+			throw theFailure;
+		}
+		log.error("borrowObject(): All systems of route " + this.name + " are unavailable");
+		throw new EPPSessionPoolException("All systems of route " + this.name + " are unavailable");
+	}
+
+	/**
+	 * Returns a session borrowed through the route to its system pool, and
+	 * samples the latency and errors of the commands processed with the
+	 * session.
+	 *
+	 * @param aSession Session to return
+	 *
+	 * @throws EPPSessionPoolException Session not borrowed through the route
+	 *         or error returning the session
+	 */
+	public void returnObject(EPPSession aSession) throws EPPSessionPoolException {
+		Lease theLease = this.release(aSession);
+		this.sample(theLease, aSession, false);
+		this.pool.returnObject(theLease.endpoint.system, aSession);
+	}
+
+	/**
+	 * Invalidates a session borrowed through the route, which is sampled as
+	 * an error of its system.
+	 *
+	 * @param aSession Session to invalidate
+	 *
+	 * @throws EPPSessionPoolException Session not borrowed through the route
+	 *         or error invalidating the session
+	 */
+	public void invalidateObject(EPPSession aSession) throws EPPSessionPoolException {
+		Lease theLease = this.release(aSession);
+		this.sample(theLease, aSession, true);
+		this.pool.invalidateObject(theLease.endpoint.system, aSession);
+	}
+
+	/**
+	 * Gets the name of the route.
+	 *
+	 * @return Route name
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * Gets the system names of the route.
+	 *
+	 * @return System names
+	 */
+	public List<String> getSystems() {
+		List<String> theSystems = new ArrayList<String>();
+		for (int i = 0; i < this.endpoints.length; i++) {
+			theSystems.add(this.endpoints[i].system);
+		}
+		return theSystems;
+	}
+
+	/**
+	 * Gets the latency average of a system.
+	 *
+	 * @param aSystem System name
+	 *
+	 * @return Latency average in microseconds
+	 */
+	public long getLatencyMicros(String aSystem) {
+		Endpoint theEndpoint = this.getEndpoint(aSystem);
+		synchronized (theEndpoint) {
+			return (long) (theEndpoint.latency / 1000);
+		}
+	}
+
+	/**
+	 * Gets the error rate average of a system.
+	 *
+	 * @param aSystem System name
+	 *
+	 * @return Error rate between <code>0</code> and <code>1</code>
+	 */
+	public double getErrorRate(String aSystem) {
+		Endpoint theEndpoint = this.getEndpoint(aSystem);
+		synchronized (theEndpoint) {
+			return theEndpoint.errorRate;
+		}
+	}
+
+	/**
+	 * Is the circuit of a system open?
+	 *
+	 * @param aSystem System name
+	 *
+	 * @return <code>true</code> if the circuit is open; <code>false</code> otherwise.
+	 */
+	public boolean isOpen(String aSystem) {
+		return this.getEndpoint(aSystem).openUntil != 0;
+	}
+
+	/**
+	 * Sets the weight of a new sample in the averages.
+	 *
+	 * @param aEwmaAlpha Weight between <code>0</code> and <code>1</code>
+	 */
+	public void setEwmaAlpha(double aEwmaAlpha) {
+		this.ewmaAlpha = aEwmaAlpha;
+	}
+
+	/**
+	 * Sets the error rate average that opens the circuit of a system.
+	 *
+	 * @param aErrorThreshold Error rate between <code>0</code> and <code>1</code>
+	 */
+	public void setErrorThreshold(double aErrorThreshold) {
+		this.errorThreshold = aErrorThreshold;
+	}
+
+	/**
+	 * Sets the minimum number of samples before the circuit of a system is
+	 * opened on the error rate.
+	 *
+	 * @param aMinSamples Minimum number of samples
+	 */
+	public void setMinSamples(int aMinSamples) {
+		this.minSamples = aMinSamples;
+	}
+
+	/**
+	 * Sets the time that an open system is not used.
+	 *
+	 * @param aOpenTime Time in milliseconds
+	 */
+	public void setOpenTime(long aOpenTime) {
+		this.openNanos = aOpenTime * 1000000L;
+	}
+
+	/**
+	 * Sets the time without a sample after which a system is probed.
+	 *
+	 * @param aProbeInterval Time in milliseconds
+	 */
+	public void setProbeInterval(long aProbeInterval) {
+		this.probeNanos = aProbeInterval * 1000000L;
+	}
+
+	/**
+	 * Registers the latency and error rate gauges of the systems, which are
+	 * tagged with &quot;&lt;route&gt;.&lt;system&gt;&quot;.
+	 */
+	void registerGauges() {
+		EPPMetrics theMetrics = EPPMetricsFactory.getInstance().getMetrics();
+
+		for (int i = 0; i < this.endpoints.length; i++) {
+			final Endpoint theEndpoint = this.endpoints[i];
+			String theTag = this.name + "." + theEndpoint.system;
+
+			theMetrics.registerGauge(EPPMetrics.ROUTE_LATENCY, theTag, new EPPMetricsGauge() {
+
+				public long getValue() {
+					synchronized (theEndpoint) {
+						return (long) (theEndpoint.latency / 1000);
+					}
+				}
+			});
+			theMetrics.registerGauge(EPPMetrics.ROUTE_ERROR_RATE, theTag, new EPPMetricsGauge() {
+
+				public long getValue() {
+					synchronized (theEndpoint) {
+						return (long) (theEndpoint.errorRate * 1000);
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * Unregisters the gauges registered with {@link #registerGauges()}.
+	 */
+	void unregisterGauges() {
+		EPPMetrics theMetrics = EPPMetricsFactory.getInstance().getMetrics();
+
+		for (int i = 0; i < this.endpoints.length; i++) {
+			String theTag = this.name + "." + this.endpoints[i].system;
+			theMetrics.unregisterGauge(EPPMetrics.ROUTE_LATENCY, theTag);
+			theMetrics.unregisterGauge(EPPMetrics.ROUTE_ERROR_RATE, theTag);
+		}
+	}
+
+	/**
+	 * Picks the system for a borrow with the "power of two choices" among the
+	 * systems that are closed or allow a trial.
+	 *
+	 * @return Lease with the picked system or <code>null</code> if the circuits
+	 *         of all of the systems are open
+	 */
+	Lease select() {
+		long theNow = System.nanoTime();
+		Endpoint theFirst = null;
+		Endpoint theSecond = null;
+		int theCandidates = 0;
+
+		// Reservoir sample two of the closed systems
+		ThreadLocalRandom theRandom = ThreadLocalRandom.current();
+		for (int i = 0; i < this.endpoints.length; i++) {
+			Endpoint theEndpoint = this.endpoints[i];
+			if (theEndpoint.openUntil != 0) {
+				continue;
+			}
+
+			theCandidates++;
+			if (theCandidates == 1) {
+				theFirst = theEndpoint;
+			}
+			else if (theCandidates == 2) {
+				theSecond = theEndpoint;
+			}
+			else {
+				int theSlot = theRandom.nextInt(theCandidates);
+				if (theSlot == 0) {
+					theFirst = theEndpoint;
+				}
+				else if (theSlot == 1) {
+					theSecond = theEndpoint;
+				}
+			}
+		}
+
+		// Trial of an open system that reached its open time?
+		for (int i = 0; i < this.endpoints.length; i++) {
+			Endpoint theEndpoint = this.endpoints[i];
+			long theOpenUntil = theEndpoint.openUntil;
+			if (theOpenUntil != 0 && theNow - theOpenUntil >= 0 && theEndpoint.trial.compareAndSet(false, true)) {
+				log.info("select(): Route " + this.name + " trial of system " + theEndpoint.system);
+				Lease theLease = new Lease();
+				theLease.endpoint = theEndpoint;
+				theLease.trial = true;
+				return theLease;
+			}
+		}
+
+		if (theFirst == null) {
+			return null;
+		}
+
+		Lease theLease = new Lease();
+		if (theSecond == null || this.score(theFirst, theNow) <= this.score(theSecond, theNow)) {
+			theLease.endpoint = theFirst;
+		}
+		else {
+			theLease.endpoint = theSecond;
+		}
+		return theLease;
+	}
+
+	/**
+	 * Gets the score of a system, where the system with the lower score is
+	 * picked.
+	 *
+	 * @param aEndpoint System to score
+	 * @param aNow Current <code>System.nanoTime()</code>
+	 *
+	 * @return Score of the system
+	 */
+	private double score(Endpoint aEndpoint, long aNow) {
+		synchronized (aEndpoint) {
+			if (aNow - aEndpoint.lastSample > this.probeNanos) {
+				return 0;
+			}
+			return aEndpoint.latency * (aEndpoint.active.get() + 1)
+					* (1 + aEndpoint.errorRate * ERROR_PENALTY);
+		}
+	}
+
+	/**
+	 * Samples the commands processed with a session since it was borrowed.
+	 *
+	 * @param aLease Lease of the session
+	 * @param aSession Session returned or invalidated
+	 * @param aInvalid Is the session invalidated?
+	 */
+	private void sample(Lease aLease, EPPSession aSession, boolean aInvalid) {
+		long theCount = 1;
+		long theNanos = System.nanoTime() - aLease.start;
+		long theErrors = aInvalid ? 1 : 0;
+
+		if (aSession instanceof EPPPooledGenericSession) {
+			EPPPooledGenericSession thePooledSession = (EPPPooledGenericSession) aSession;
+			theCount = thePooledSession.getCommandCount() - aLease.commandCount;
+			theNanos = thePooledSession.getCommandNanos() - aLease.commandNanos;
+			theErrors = Math.max(theErrors, thePooledSession.getCommandErrors() - aLease.commandErrors);
+		}
+
+		this.record(aLease, theCount, theNanos, theErrors);
+	}
+
+	/**
+	 * Records a sample of a system and updates its circuit breaker.
+	 *
+	 * @param aLease Lease of the sample
+	 * @param aCount Number of commands of the sample
+	 * @param aNanos Total latency of the commands in nanoseconds
+	 * @param aErrors Number of failed commands
+	 */
+	void record(Lease aLease, long aCount, long aNanos, long aErrors) {
+		Endpoint theEndpoint = aLease.endpoint;
+
+		// Nothing to sample except an invalidated session without commands
+		if (aCount <= 0 && aErrors == 0) {
+			if (aLease.trial) {
+				theEndpoint.trial.set(false);
+			}
+			return;
+		}
+
+		boolean isOpen = false;
+		synchronized (theEndpoint) {
+			double theErrorRate = (double) Math.min(aErrors, Math.max(aCount, 1)) / Math.max(aCount, 1);
+
+			if (aCount > 0) {
+				double theLatency = (double) aNanos / aCount;
+				if (theEndpoint.samples == 0) {
+					theEndpoint.latency = theLatency;
+				}
+				else {
+					theEndpoint.latency += this.ewmaAlpha * (theLatency - theEndpoint.latency);
+				}
+			}
+			theEndpoint.errorRate += this.ewmaAlpha * (theErrorRate - theEndpoint.errorRate);
+			theEndpoint.samples++;
+			theEndpoint.lastSample = System.nanoTime();
+
+			if (aLease.trial) {
+				isOpen = aErrors > 0;
+			}
+			else {
+				isOpen = theEndpoint.samples >= this.minSamples && theEndpoint.errorRate >= this.errorThreshold;
+			}
+		}
+
+		if (isOpen) {
+			this.open(theEndpoint);
+		}
+		else if (aLease.trial) {
+			this.close(theEndpoint);
+		}
+	}
+
+	/**
+	 * Is a borrow failure caused by an exhausted system pool, which throws a
+	 * <code>NoSuchElementException</code> when no session is available
+	 * within <code>maxWait</code>?
+	 *
+	 * @param aException Borrow failure
+	 *
+	 * @return <code>true</code> if the system pool is exhausted;
+	 *         <code>false</code> otherwise.
+	 */
+	private static boolean isExhausted(EPPSessionPoolException aException) {
+		for (Throwable theCause = aException.getCause(); theCause != null; theCause = theCause.getCause()) {
+			if (theCause instanceof NoSuchElementException) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Opens the circuit of a system for <code>openTime</code>.
+	 *
+	 * @param aEndpoint System to open
+	 */
+	private void open(Endpoint aEndpoint) {
+		long theOpenUntil = System.nanoTime() + this.openNanos;
+		if (theOpenUntil == 0) {
+			theOpenUntil = 1;
+		}
+
+		if (aEndpoint.openUntil == 0) {
+			log.warn("open(): Route " + this.name + " opened circuit of system " + aEndpoint.system);
+			EPPMetricsFactory.getInstance().getMetrics().increment(EPPMetrics.ROUTE_CIRCUIT_OPEN,
+					this.name + "." + aEndpoint.system, 1);
+		}
+		aEndpoint.openUntil = theOpenUntil;
+		aEndpoint.trial.set(false);
+	}
+
+	/**
+	 * Closes the circuit of a system after a successful trial, where the
+	 * error rate average is reset.
+	 *
+	 * @param aEndpoint System to close
+	 */
+	private void close(Endpoint aEndpoint) {
+		synchronized (aEndpoint) {
+			aEndpoint.errorRate = 0;
+			aEndpoint.samples = 0;
+		}
+		aEndpoint.openUntil = 0;
+		aEndpoint.trial.set(false);
+		log.info("close(): Route " + this.name + " closed circuit of system " + aEndpoint.system);
+	}
+
+	/**
+	 * Removes the lease of a session borrowed through the route.
+	 *
+	 * @param aSession Borrowed session
+	 *
+	 * @return Lease of the session
+	 *
+	 * @throws EPPSessionPoolException Session not borrowed through the route
+	 */
+	private Lease release(EPPSession aSession) throws EPPSessionPoolException {
+		Lease theLease = this.leases.remove(aSession);
+		if (theLease == null) {
+			log.error("release(" + aSession + "): Session not borrowed through route " + this.name);
+			throw new EPPSessionPoolException("Session not borrowed through route " + this.name);
+		}
+		theLease.endpoint.active.decrementAndGet();
+		return theLease;
+	}
+
+	/**
+	 * Gets the <code>Endpoint</code> of a system.
+	 *
+	 * @param aSystem System name
+	 *
+	 * @return <code>Endpoint</code> of the system
+	 *
+	 * @throws IllegalArgumentException System not part of the route
+	 */
+	Endpoint getEndpoint(String aSystem) {
+		for (int i = 0; i < this.endpoints.length; i++) {
+			if (this.endpoints[i].system.equals(aSystem)) {
+				return this.endpoints[i];
+			}
+		}
+		throw new IllegalArgumentException("System " + aSystem + " not part of route " + this.name);
+	}
+
+	/**
+	 * Gets an environment property of a route.
+	 *
+	 * @param aRoute Route name
+	 * @param aProperty The property name without the EPP.SessionPool.&lt;route&gt;. prefix.
+	 *
+	 * @return Property value if defined; <code>null</code> otherwise.
+	 */
+	private static String getProperty(String aRoute, String aProperty) {
+		return Environment.getProperty(PROP_PREFIX + "." + aRoute + "." + aProperty);
+	}
+
+}
+
+// End class EPPSessionRouter
@@ -71,6 +71,18 @@ import com.verisign.epp.util.Environment;
  * 60 seconds.  
  * <li><code>EPP.SessionPool.&lt;system&gt;.borrowRetries</code> - (optional) Number of retries to get/create a session
  * when calling {@link #borrowObject()}.  Default is <code>0</code>.  
+ * <li><code>EPP.SessionPool.&lt;system&gt;.refreshThreads</code> - (optional) Number of background threads 
+ * that keep alive idle sessions before the idle timeout, replace sessions 
+ * before the absolute timeout, and create the <code>minIdle</code> sessions, 
+ * so that borrowers do not wait on a login.  <code>0</code> validates the idle 
+ * sessions in the evictor thread.  Default is <code>0</code>, so the refresh 
+ * threads are only used when configured.
+ * <li><code>EPP.SessionPool.&lt;system&gt;.refreshMargin</code> - (optional) Time in milliseconds before the 
+ * absolute timeout that a session is replaced by a new session when 
+ * <code>refreshThreads</code> is greater than <code>0</code>.  Default is 
+ * <code>0</code>, which replaces a session only when it reaches the absolute 
+ * timeout, so it should be set with <code>refreshThreads</code> (e.g. 
+ * <code>300000</code>).
  * <li><code>EPP.SessionPool.&lt;system&gt;.SSLProtocol</code> - (optional) SSL protocol to use.  If defined 
  * the pool will have its own SSL configuration.  The required SSL properties include 
  * <code>SSLKeyStore</code>, <code>SSLKeyFileName</code>, and <code>SSLKeyPassPhrase</code>
@@ -147,6 +159,18 @@ public class EPPSystemSessionPool  {
 	 * {@link #borrowObject()}.        
 	 */
 	private static final int DEFAULT_BORROW_RETRIES = 0;
+	
+	/**
+	 * Default number of threads used to keep alive, replace, and create 
+	 * sessions in the background.
+	 */
+	private static final int DEFAULT_REFRESH_THREADS = 0;
+	
+	/**
+	 * Default time in milliseconds before the absolute timeout that a session 
+	 * is replaced.
+	 */
+	private static final long DEFAULT_REFRESH_MARGIN = 0;
    
     
     /**
@@ -171,7 +195,8 @@ public class EPPSystemSessionPool  {
 	/**
 	 * Real pool being used.
 	 */
-	private GenericObjectPool pool = null;
+	private EPPSessionObjectPool pool = null;
+
 		
 	/**
 	 * Config used to configure the pool
@@ -198,6 +223,19 @@ public class EPPSystemSessionPool  {
 	 */
 	private int borrowRetries = DEFAULT_BORROW_RETRIES;
 	
+	/**
+	 * Number of threads used to keep alive, replace, and create sessions 
+	 * in the background, where <code>0</code> validates the idle sessions 
+	 * in the evictor thread.
+	 */
+	private int refreshThreads = DEFAULT_REFRESH_THREADS;
+	
+	/**
+	 * Time in milliseconds before the absolute timeout that a session 
+	 * is replaced by a new session.
+	 */
+	private long refreshMargin = DEFAULT_REFRESH_MARGIN;
+	
 	
 	/**
 	 * The client identifier used to establish a session
@@ -263,7 +301,8 @@ public class EPPSystemSessionPool  {
 	 * @param aConfig Configuration attributes for pool
 	 */
 	public void init(EPPSessionPoolableFactory aFactory, GenericObjectPool.Config aConfig) {
-		this.pool = new GenericObjectPool(aFactory, aConfig);
+		this.pool = new EPPSessionObjectPool(aFactory, aConfig, this.refreshThreads);
+		EPPSessionPoolMetrics.registerGauges(this.system, this.pool);
 		
 	}	
 	
@@ -380,6 +419,25 @@ public class EPPSystemSessionPool  {
 				this.borrowRetries = DEFAULT_BORROW_RETRIES;
 			log.info("init(): borrow retries = " + this.borrowRetries);
 			
+			// refreshThreads
+			theValue = this.getProperty("refreshThreads");
+			if (theValue != null)
+				this.refreshThreads = Integer.parseInt(theValue);
+			else
+				this.refreshThreads = DEFAULT_REFRESH_THREADS;
+			log.info("init(): refresh threads = " + this.refreshThreads);
+			
+			// refreshMargin
+			theValue = this.getProperty("refreshMargin");
+			if (theValue != null)
+				this.refreshMargin = Long.parseLong(theValue);
+			else
+				this.refreshMargin = DEFAULT_REFRESH_MARGIN;
+			log.info("init(): refresh margin = " + this.refreshMargin + " ms");
+			if (this.refreshThreads > 0 && this.refreshMargin <= 0) {
+				log.warn("init(): refresh margin is not set, so sessions are only replaced at the absolute timeout");
+			}
+			
 			
 			// maxWait
 			theValue = this.getProperty("maxWait");
@@ -428,6 +486,7 @@ public class EPPSystemSessionPool  {
 		// Set factory required attributes
 		this.factory.setAbsoluteTimeout(this.absoluteTimeout);
 		this.factory.setIdleTimeout(this.idleTimeout);
+		this.factory.setRefreshMargin(this.refreshMargin);
 		this.factory.setClientId(this.clientId);
 		this.factory.setPassword(this.password);
 		this.factory.setServerName(this.serverName);
@@ -519,6 +578,8 @@ public class EPPSystemSessionPool  {
 		
 		// The default pool exists?
 		if (this.pool != null) {
+			EPPSessionPoolMetrics.unregisterGauges(this.system);
+			
 			// Clear and close the current pool
 			this.pool.clear();
 			try {
@@ -550,6 +611,8 @@ public class EPPSystemSessionPool  {
 			throw new EPPSessionPoolException("EPPSystemSessionPool: pool is null");
 		}
 		
+		long theStart = System.nanoTime();
+		
 		EPPSession theSession = null;
 		
 		// Attempt to borrow session until successful or retries have exceeded.  
@@ -558,21 +621,25 @@ public class EPPSystemSessionPool  {
 			try {
 				theSession = (EPPSession) pool.borrowObject();
 				
-				log.debug("borrowObject(): Session = " + theSession
-						+ ", Active = " + pool.getNumActive() + ", Idle = "
-						+ pool.getNumIdle());
+				if (log.isDebugEnabled()) {
+					log.debug("borrowObject(): Session = " + theSession
+							+ ", Active = " + pool.getNumActive() + ", Idle = "
+							+ pool.getNumIdle());
+				}
 			}
 			catch (Exception ex) {
 				
 				// Number of retries exceeded?
 				if (retries >= this.borrowRetries) {
 					
+					EPPSessionPoolMetrics.borrowFailed(this.system);
+
 					// Throw exception to indicate borrow failure
 					log
 							.error("borrowObject(): Final exception on borrow session after "
 									+ retries + " retries: " + ex);
 					throw new EPPSessionPoolException(
-							"EPPSystemSessionPool: Exception " + ex);
+							"EPPSystemSessionPool: Exception " + ex, ex);
 				}
 				else {
 					// Continue retrying
@@ -585,6 +652,8 @@ public class EPPSystemSessionPool  {
 			
 		}
 		
+		EPPSessionPoolMetrics.borrowed(this.system, theStart);
+		
 		return theSession;
 	}
 	
@@ -600,8 +669,10 @@ public class EPPSystemSessionPool  {
 	public void invalidateObject(EPPSession aSession) throws EPPSessionPoolException {
 		try {
 			pool.invalidateObject(aSession);
-			log.debug("invalidateObject(" + aSession + "): Active = " + pool.getNumActive() + 
-					", Idle = " + pool.getNumIdle());
+			if (log.isDebugEnabled()) {
+				log.debug("invalidateObject(" + aSession + "): Active = " + pool.getNumActive() + 
+						", Idle = " + pool.getNumIdle());
+			}
 		}
 		catch (Exception ex) {
 			log.error("invalidateObject(" + aSession + "): Caught Exception: " + ex);
@@ -619,8 +690,10 @@ public class EPPSystemSessionPool  {
 	public void returnObject(EPPSession aSession) throws EPPSessionPoolException {
 		try {
 			pool.returnObject(aSession);
-			log.debug("returnObject(" + aSession + "): Active = " + pool.getNumActive() + 
-					", Idle = " + pool.getNumIdle());
+			if (log.isDebugEnabled()) {
+				log.debug("returnObject(" + aSession + "): Active = " + pool.getNumActive() + 
+						", Idle = " + pool.getNumIdle());
+			}
 		}
 		catch (Exception ex) {
 			log.error("returnObject(" + aSession + "): Caught Exception: " + ex);
@@ -629,13 +702,31 @@ public class EPPSystemSessionPool  {
 		
 	}
 	
+	/**
+	 * Gets the contained <code>EPPSessionObjectPool</code>.
+	 * 
+	 * @return Contained <code>EPPSessionObjectPool</code>
+	 */
+	public EPPSessionObjectPool getObjectPool() {
+		return this.pool;
+	}
+	
 	/**
 	 * Gets the contained <code>GenericObjectPool</code>.
 	 * 
 	 * @return Contained <code>GenericObjectPool</code>
+	 * 
+	 * @deprecated The pool is an <code>EPPSessionObjectPool</code>, so use
+	 *             {@link #getObjectPool()}.  The returned
+	 *             <code>GenericObjectPool</code> delegates to it, but its
+	 *             setters do not reconfigure it.
 	 */
+	@Deprecated
 	public GenericObjectPool getGenericObjectPool() {
-		return this.pool;
+		if (this.pool == null) {
+			return null;
+		}
+		return this.pool.getGenericObjectPool();
 	}
 	
 	/**
@@ -656,7 +747,7 @@ public class EPPSystemSessionPool  {
 	}
 	
 	/**
-	 * Gets the configuration for the <code>GenericObjectPool</code>.
+	 * Gets the configuration of the <code>EPPSessionObjectPool</code>.
 	 * 
 	 * @return Returns the config.
 	 */
@@ -682,6 +773,25 @@ public class EPPSystemSessionPool  {
 		return idleTimeout;
 	}
 	
+	/**
+	 * Gets the number of threads used to keep alive, replace, and create 
+	 * sessions in the background.
+	 * 
+	 * @return Number of refresh threads
+	 */
+	public int getRefreshThreads() {
+		return this.refreshThreads;
+	}
+	
+	/**
+	 * Gets the time before the absolute timeout that a session is replaced.
+	 * 
+	 * @return Refresh margin in milliseconds
+	 */
+	public long getRefreshMargin() {
+		return this.refreshMargin;
+	}
+	
 	/**
 	 * Gets the password used for authentication.
 	 * 
@@ -20,11 +20,14 @@ http://www.verisign.com/nds/naming/namestore/techdocs.html
 package com.verisign.epp.pool;
 
 
+import java.util.Arrays;
+
 // JUNIT Imports
 import junit.framework.Assert;
 import junit.framework.Test;
 import junit.framework.TestSuite;
 
+import org.apache.commons.pool.impl.GenericObjectPool;
 import org.apache.log4j.Logger;
 
 import com.verisign.epp.codec.gen.EPPResponse;
@@ -97,6 +100,185 @@ public class EPPSystemSessionPoolTst extends EPPSessionPoolTst {
 
 		printEnd("testTwoSystemPools");
 	}
+
+	/**
+	 * Test borrowing sessions through the route over the default and test 
+	 * system pools (<code>EPP.SessionPool.routes</code>).  A session is borrowed 
+	 * from the route, a poll request is sent, and the session is returned 
+	 * to the route, which samples the latency of the system of the session.
+	 */
+	public void testRoute() {
+		printStart("testRoute");
+
+		for (int i = 0; i < 10; i++) {
+			EPPSession theSession = this.borrowSession("route");
+			try {
+				theSession.setPollOp(EPPSession.OP_REQ);
+				theSession.sendPoll();
+				this.returnSession("route", theSession);
+			}
+			catch (EPPCommandException ex) {
+				try {
+					sessionPool.invalidateObject("route", theSession);
+				}
+				catch (EPPSessionPoolException e) {
+					// ignore
+				}
+				Assert.fail("testRoute(): poll failed: " + ex);
+			}
+		}
+
+		try {
+			EPPSessionRouter theRouter = sessionPool.getRouter("route");
+			Assert.assertTrue("No latency sampled by route",
+					theRouter.getLatencyMicros(EPPSessionPool.DEFAULT) > 0 || theRouter.getLatencyMicros("test") > 0);
+			Assert.assertFalse(theRouter.isOpen(EPPSessionPool.DEFAULT));
+			Assert.assertFalse(theRouter.isOpen("test"));
+		}
+		catch (EPPSessionPoolException ex) {
+			Assert.fail("testRoute(): " + ex);
+		}
+
+		printEnd("testRoute");
+	}
+
+	/**
+	 * Test the system selection of <code>EPPSessionRouter</code> without 
+	 * system pools, where the samples are recorded directly.  The route 
+	 * must prefer the faster system, open the circuit of a system with 
+	 * errors, and close the circuit after a successful trial.
+	 */
+	public void testRouteSelection() {
+		printStart("testRouteSelection");
+
+		EPPSessionRouter theRouter = new EPPSessionRouter("unit", null, Arrays.asList(new String[] {"fast", "slow"}));
+		theRouter.setMinSamples(3);
+		theRouter.setOpenTime(60000);
+
+		// Sample both systems
+		this.recordSamples(theRouter, "fast", 5, 1000000L, 0);
+		this.recordSamples(theRouter, "slow", 5, 50000000L, 0);
+
+		int theFastCount = 0;
+		for (int i = 0; i < 100; i++) {
+			if (theRouter.select().endpoint.system.equals("fast")) {
+				theFastCount++;
+			}
+		}
+		Assert.assertEquals("Faster system not selected", 100, theFastCount);
+
+		// Fail the fast system
+		this.recordSamples(theRouter, "fast", 5, 1000000L, 1);
+		Assert.assertTrue("Circuit of failing system not open", theRouter.isOpen("fast"));
+		Assert.assertFalse(theRouter.isOpen("slow"));
+		for (int i = 0; i < 10; i++) {
+			Assert.assertEquals("slow", theRouter.select().endpoint.system);
+		}
+
+		// Trial after the open time
+		theRouter.setOpenTime(0);
+		this.recordSamples(theRouter, "fast", 1, 1000000L, 1);
+		EPPSessionRouter.Lease theTrial = theRouter.select();
+		Assert.assertEquals("fast", theTrial.endpoint.system);
+		Assert.assertTrue(theTrial.trial);
+		Assert.assertEquals("Second trial selected", "slow", theRouter.select().endpoint.system);
+		theRouter.record(theTrial, 1, 1000000L, 0);
+		Assert.assertFalse("Circuit not closed after trial", theRouter.isOpen("fast"));
+		Assert.assertEquals(0.0, theRouter.getErrorRate("fast"), 0.0);
+
+		// All systems open
+		theRouter.setOpenTime(60000);
+		this.recordSamples(theRouter, "fast", 5, 1000000L, 1);
+		this.recordSamples(theRouter, "slow", 10, 50000000L, 1);
+		Assert.assertTrue(theRouter.isOpen("fast"));
+		Assert.assertTrue(theRouter.isOpen("slow"));
+		Assert.assertNull("System selected with all circuits open", theRouter.select());
+
+		printEnd("testRouteSelection");
+	}
+
+	/**
+	 * Test borrowing through a route when its system pool is exhausted.  The 
+	 * failed borrow is sampled as an error, so the circuit of the system 
+	 * stays closed until <code>minSamples</code> samples are reached, and 
+	 * the system is used again when the session is returned.
+	 */
+	public void testRouteExhausted() {
+		printStart("testRouteExhausted");
+
+		final EPPSystemSessionPool theSystemPool = new EPPSystemSessionPool("exhausted");
+		EPPSession theSession = null;
+		try {
+			GenericObjectPool.Config theConfig = new GenericObjectPool.Config();
+			theConfig.maxActive = 1;
+			theConfig.maxIdle = 1;
+			theConfig.minIdle = 0;
+			theConfig.maxWait = 100;
+			theConfig.whenExhaustedAction = GenericObjectPool.WHEN_EXHAUSTED_BLOCK;
+			theConfig.timeBetweenEvictionRunsMillis = -1;
+			theSystemPool.init(sessionPool.getSystemSessionPool("test").getFactory(), theConfig);
+
+			EPPSessionPool thePool = new EPPSessionPool() {
+
+				public EPPSystemSessionPool getSystemSessionPool(String aSystem) {
+					return theSystemPool;
+				}
+			};
+			EPPSessionRouter theRouter = new EPPSessionRouter("exhausted", thePool, Arrays
+					.asList(new String[] {"exhausted"}));
+			theRouter.setMinSamples(3);
+			theRouter.setOpenTime(60000);
+
+			theSession = theRouter.borrowObject();
+			try {
+				theRouter.borrowObject();
+				Assert.fail("Borrowed a session from an exhausted pool");
+			}
+			catch (EPPSessionPoolException ex) {
+				// Expected
+			}
+			Assert.assertFalse("Circuit of exhausted system open", theRouter.isOpen("exhausted"));
+			Assert.assertTrue(theRouter.getErrorRate("exhausted") > 0);
+
+			theRouter.returnObject(theSession);
+			theSession = theRouter.borrowObject();
+			theRouter.returnObject(theSession);
+			theSession = null;
+		}
+		catch (EPPSessionPoolException ex) {
+			Assert.fail("testRouteExhausted(): " + ex);
+		}
+		finally {
+			if (theSession != null) {
+				try {
+					theSystemPool.invalidateObject(theSession);
+				}
+				catch (EPPSessionPoolException ex) {
+					// ignore
+				}
+			}
+			theSystemPool.close();
+		}
+
+		printEnd("testRouteExhausted");
+	}
+
+	/**
+	 * Records samples of one command for a system of a route.
+	 *
+	 * @param aRouter Route to record the samples in
+	 * @param aSystem System of the samples
+	 * @param aCount Number of samples
+	 * @param aNanos Latency of each sample in nanoseconds
+	 * @param aErrors Errors of each sample
+	 */
+	private void recordSamples(EPPSessionRouter aRouter, String aSystem, int aCount, long aNanos, long aErrors) {
+		for (int i = 0; i < aCount; i++) {
+			EPPSessionRouter.Lease theLease = new EPPSessionRouter.Lease();
+			theLease.endpoint = aRouter.getEndpoint(aSystem);
+			aRouter.record(theLease, 1, aNanos, aErrors);
+		}
+	}
 	
 	/**
 	 * JUNIT <code>setUp</code> method
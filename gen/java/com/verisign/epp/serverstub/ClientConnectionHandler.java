@@ -40,7 +40,7 @@ import com.verisign.epp.framework.EPPAssemblerException;
 // EPP imports
 import com.verisign.epp.framework.EPPDispatcher;
 import com.verisign.epp.framework.EPPEventException;
-import com.verisign.epp.transport.ServerEventHandler;
+import com.verisign.epp.transport.ServerMessageHandler;
 import com.verisign.epp.util.EPPCatFactory;
 import com.verisign.epp.util.EPPEnv;
 
@@ -53,7 +53,7 @@ import com.verisign.epp.util.EPPEnv;
  * @author $Author: jim $
  * @version $Revision: 1.10 $
  */
-public class ClientConnectionHandler implements ServerEventHandler, Cloneable {
+public class ClientConnectionHandler implements ServerMessageHandler, Cloneable {
 	/** Log4j category for logging */
 	private static Logger cat =
 		Logger.getLogger(
@@ -118,6 +118,32 @@ public class ClientConnectionHandler implements ServerEventHandler, Cloneable {
 	public void handleConnection(
 								 InputStream newInputStream,
 								 OutputStream newOutputStream) {
+		this.handleConnectionStart(newOutputStream);
+
+		/**
+		 * Now loop and process each arriving Message on the Stream.
+		 */
+		while (bRunning) {
+			this.handleMessage(newInputStream, newOutputStream);
+		}
+
+		/**
+		 * Adding some debug log information to log closing connections
+		 */
+		if (cat.isDebugEnabled()) {
+			cat.debug("Server closed connection. Thread id is: "
+					  + Thread.currentThread().hashCode());
+		}
+	}
+
+	/**
+	 * Invoked when a new client connects to send the greeting.  Called 
+	 * directly by the event-driven servers and by 
+	 * <code>handleConnection</code>.
+	 *
+	 * @param aOutputStream The outputStream of the new connection
+	 */
+	public void handleConnectionStart(OutputStream aOutputStream) {
 		/**
 		 * Implementing Pete's handler.  Here it's as if we're a new Thread
 		 * with a connection spawned from a ServerSocket.accept() call.
@@ -125,8 +151,10 @@ public class ClientConnectionHandler implements ServerEventHandler, Cloneable {
 		/**
 		 * Adding some debug log information to log new connections
 		 */
-		cat.debug("Server accepted new connection. Thread id is: "
-				  + Thread.currentThread().hashCode());
+		if (cat.isDebugEnabled()) {
+			cat.debug("Server accepted new connection. Thread id is: "
+					  + Thread.currentThread().hashCode());
+		}
 
 		/**
 		 * The default constructor of the EPPGreeting takes care of the messy
@@ -138,7 +166,9 @@ public class ClientConnectionHandler implements ServerEventHandler, Cloneable {
 		int		    threadId = Thread.currentThread().hashCode();
 
 		greeting.setServer(EPPEnv.getGreetingServerName());
-		cat.debug("Server name = " + greeting.getServer());
+		if (cat.isDebugEnabled()) {
+			cat.debug("Server name = " + greeting.getServer());
+		}
 
 		// Set DCP
 		EPPDcp theDCP = new EPPDcp();
@@ -160,7 +190,9 @@ public class ClientConnectionHandler implements ServerEventHandler, Cloneable {
 
 		theDCP.addStatement(theStatement);
 
-		cat.debug("Adding DCP to Greeting: " + theDCP);
+		if (cat.isDebugEnabled()) {
+			cat.debug("Adding DCP to Greeting: " + theDCP);
+		}
 
 		greeting.setDcp(theDCP);
 
@@ -175,134 +207,142 @@ public class ClientConnectionHandler implements ServerEventHandler, Cloneable {
 		 * First, call processConnection to send the greeting.
 		 */
 		theDispatcher.processConnection(
-										newInputStream, newOutputStream,
+										null, aOutputStream,
 										thisSession);
+	}
 
-		/**
-		 * Now loop and process each arriving Message on the Stream.
-		 */
-		while (bRunning) {
-			try {
-				theDispatcher.processMessage(
-											 newInputStream, newOutputStream,
-											 thisSession);
-				SessionCommandCount++;
-				this.resetIdleTimeOut();
-
-				/**
-				 * If a logout has occurred we should not bRunning. Ha!
-				 */
-				bRunning = !thisSession.hasLogoutOccured();
+	/**
+	 * Processes one message from the client and sends the response or an 
+	 * error response.  Called directly by the event-driven servers for each 
+	 * complete message and by <code>handleConnection</code> in a loop.
+	 *
+	 * @param aInputStream The inputStream to read the message from
+	 * @param aOutputStream The outputStream to send the response on
+	 *
+	 * @return <code>true</code> if the session should keep accepting 
+	 * 		   commands; <code>false</code> otherwise.
+	 */
+	public boolean handleMessage(
+								 InputStream aInputStream,
+								 OutputStream aOutputStream) {
+		EPPDispatcher theDispatcher = EPPDispatcher.getInstance();
+
+		try {
+			theDispatcher.processMessage(
+										 aInputStream, aOutputStream,
+										 thisSession);
+			SessionCommandCount++;
+			this.resetIdleTimeOut();
+
+			/**
+			 * If a logout has occurred we should not bRunning. Ha!
+			 */
+			bRunning = !thisSession.hasLogoutOccured();
+		}
+		 catch (EPPEventException e) {
+			/**
+			 * Something bad happened. Return an error response with as
+			 * much info as possible
+			 */
+			cat.error("EPP Event Exception", e);
+
+			sendErrorResponse(
+							  EPPResult.COMMAND_FAILED,
+							  "Internal Server Error, "
+							  + "EPP Event Exception" + e.getMessage(),
+							  aOutputStream, thisSession);
+		}
+		 catch (EPPAssemblerException ex) {
+			/**
+			 * Something went wrong the assembly of the EPP Message.
+			 * Attempt to find out what it was and return the appropriate
+			 * response if possible...
+			 */
+			if (ex.equals(EPPAssemblerException.FATAL)) {
+				cat.fatal(
+						  "Fatal EPPAssemblerException caught "
+						  + "stopping client thread", ex);
+
+				sendErrorResponse(
+								  EPPResult.COMMAND_FAILED,
+								  "Internal Server Error,"
+								  + " EPPAssemblerException: "
+								  + ex.getMessage(), aOutputStream,
+								  thisSession);
+
+				bRunning = false;
+			}
+
+			// Command Syntax Error? 2001
+			else if (ex.equals(EPPAssemblerException.XML)) {
+				cat.error("EPPAssemblerException.XML, sending "
+						  + "COMMAND_SYNTAX_ERROR response to client");
+
+				sendErrorResponse(
+								  EPPResult.COMMAND_SYNTAX_ERROR,
+								  "XML Schema Validation Error, "
+								  + ex.getMessage(), aOutputStream,
+								  thisSession);
+			}
+
+			// Command Syntax Error? 2001
+			else if (ex.equals(EPPAssemblerException.MISSINGPARAMETER)) {
+				cat.error("EPPAssemblerException.MISSINGPARAMETER,"
+						  + " sending MISSINGPARAMETER response to client");
+
+				sendErrorResponse(
+								  EPPResult.MISSING_PARAMETER,
+								  "Command processing error, , "
+								  + ex.getMessage(), aOutputStream,
+								  thisSession);
 			}
-			 catch (EPPEventException e) {
-				/**
-				 * Something bad happened. Return an error response with as
-				 * much info as possible
-				 */
-				cat.error("EPP Event Exception", e);
+			else if (ex.equals(EPPAssemblerException.COMMANDNOTFOUND)) {
+				cat.error("EPPAssemblerException.COMMANDNOTFOUND,"
+						  + " sending UNIMPLEMENTED_COMMAND response to client");
+
+				sendErrorResponse(
+								  EPPResult.UNIMPLEMENTED_COMMAND,
+								  "Command not found, "
+								  + ex.getMessage(), aOutputStream,
+								  thisSession);
+			}
+			else if (ex.equals(EPPAssemblerException.EXTENSIONNOTFOUND)) {
+				cat.error("EPPAssemblerException.EXTENSIONNOTFOUND,"
+						  + " sending UNIMPLEMENTED_EXTENSION response to client");
+
+				sendErrorResponse(
+								  EPPResult.UNIMPLEMENTED_EXTENSION,
+								  "Extension not found, "
+								  + ex.getMessage(), aOutputStream,
+								  thisSession);
+			}
+			// Client closed the connection?
+			else if (ex.equals(EPPAssemblerException.CLOSECON)) {
+				cat.error("EPPAssemblerException.CLOSECON caught, "
+						  + "stopping thread");
+				bRunning = false;
+			}
+
+			// Interrupted IO?
+			else if (ex.equals(EPPAssemblerException.INTRUPTEDIO)) {
+				cat.debug("EPPAssemblerException.INTRUPTEDIO caught, "
+						  + "no command received");
+			}
+
+			// Who knows what happened?  Send the old Internal Server Error.
+			else {
+				cat.error("Unknown EPPAssemblerException type");
 
 				sendErrorResponse(
 								  EPPResult.COMMAND_FAILED,
 								  "Internal Server Error, "
-								  + "EPP Event Exception" + e.getMessage(),
-								  newOutputStream, thisSession);
-			}
-			 catch (EPPAssemblerException ex) {
-				/**
-				 * Something went wrong the assembly of the EPP Message.
-				 * Attempt to find out what it was and return the appropriate
-				 * response if possible...
-				 */
-				if (ex.equals(EPPAssemblerException.FATAL)) {
-					cat.fatal(
-							  "Fatal EPPAssemblerException caught "
-							  + "stopping client thread", ex);
-
-					sendErrorResponse(
-									  EPPResult.COMMAND_FAILED,
-									  "Internal Server Error,"
-									  + " EPPAssemblerException: "
-									  + ex.getMessage(), newOutputStream,
-									  thisSession);
-
-					bRunning = false;
-				}
-
-				// Command Syntax Error? 2001
-				else if (ex.equals(EPPAssemblerException.XML)) {
-					cat.error("EPPAssemblerException.XML, sending "
-							  + "COMMAND_SYNTAX_ERROR response to client");
-
-					sendErrorResponse(
-									  EPPResult.COMMAND_SYNTAX_ERROR,
-									  "XML Schema Validation Error, "
-									  + ex.getMessage(), newOutputStream,
-									  thisSession);
-				}
-
-				// Command Syntax Error? 2001
-				else if (ex.equals(EPPAssemblerException.MISSINGPARAMETER)) {
-					cat.error("EPPAssemblerException.MISSINGPARAMETER,"
-							  + " sending MISSINGPARAMETER response to client");
-
-					sendErrorResponse(
-									  EPPResult.MISSING_PARAMETER,
-									  "Command processing error, , "
-									  + ex.getMessage(), newOutputStream,
-									  thisSession);
-				}
-				else if (ex.equals(EPPAssemblerException.COMMANDNOTFOUND)) {
-					cat.error("EPPAssemblerException.COMMANDNOTFOUND,"
-							  + " sending UNIMPLEMENTED_COMMAND response to client");
-
-					sendErrorResponse(
-									  EPPResult.UNIMPLEMENTED_COMMAND,
-									  "Command not found, "
-									  + ex.getMessage(), newOutputStream,
-									  thisSession);
-				}
-				else if (ex.equals(EPPAssemblerException.EXTENSIONNOTFOUND)) {
-					cat.error("EPPAssemblerException.EXTENSIONNOTFOUND,"
-							  + " sending UNIMPLEMENTED_EXTENSION response to client");
-
-					sendErrorResponse(
-									  EPPResult.UNIMPLEMENTED_EXTENSION,
-									  "Extension not found, "
-									  + ex.getMessage(), newOutputStream,
-									  thisSession);
-				}
-				// Client closed the connection?
-				else if (ex.equals(EPPAssemblerException.CLOSECON)) {
-					cat.error("EPPAssemblerException.CLOSECON caught, "
-							  + "stopping thread");
-					bRunning = false;
-				}
-
-				// Interrupted IO?
-				else if (ex.equals(EPPAssemblerException.INTRUPTEDIO)) {
-					cat.debug("EPPAssemblerException.INTRUPTEDIO caught, "
-							  + "no command received");
-				}
-
-				// Who knows what happened?  Send the old Internal Server Error.
-				else {
-					cat.error("Unknown EPPAssemblerException type");
-
-					sendErrorResponse(
-									  EPPResult.COMMAND_FAILED,
-									  "Internal Server Error, "
-									  + "Unknown EPPAssemblerException"
-									  + ex.getMessage(), newOutputStream,
-									  thisSession);
-				}
+								  + "Unknown EPPAssemblerException"
+								  + ex.getMessage(), aOutputStream,
+								  thisSession);
 			}
 		}
 
-		/**
-		 * Adding some debug log information to log closing connections
-		 */
-		cat.debug("Server closed connection. Thread id is: "
-				  + Thread.currentThread().hashCode());
+		return bRunning;
 	}
 
 	/**
@@ -319,8 +359,10 @@ public class ClientConnectionHandler implements ServerEventHandler, Cloneable {
 		cat.debug("<<<<<<<<<<<<<<<<<<<<<<  Enter sendErrorResponse()"
 				  + ">>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>>");
 
-		cat.debug("Sending error response to client, code = " + aCode
-				  + ", description = " + aDescription);
+		if (cat.isDebugEnabled()) {
+			cat.debug("Sending error response to client, code = " + aCode
+					  + ", description = " + aDescription);
+		}
 
 		// Create the result
 		EPPResult theResult = new EPPResult(aCode);
@@ -184,10 +184,11 @@ public class GenHandler extends EPPGenHandler {
 			cat.debug("doPoll: Poll request received");
 
 			try {
-				// The server stub does not use a recipient, thus null
-				theResponse = theMgr.get(null, null);
+				theResponse = theMgr.get(getClientId(sessionData), null);
 				
-				cat.debug("doPoll: Got poll message [" + theResponse + "]");	
+				if (cat.isDebugEnabled()) {
+					cat.debug("doPoll: Got poll message [" + theResponse + "]");	
+				}
 			}
 			 catch (EPPPollQueueException ex) {
 			 	EPPResult theResult;
@@ -209,7 +210,9 @@ public class GenHandler extends EPPGenHandler {
 		// ACK
 		else if (theMessage.getOp().equals(EPPPollCmd.OP_ACK)) {
 			String msgId = theMessage.getMsgID();
-			cat.debug("doPoll: Poll ack received for message " + msgId);
+			if (cat.isDebugEnabled()) {
+				cat.debug("doPoll: Poll ack received for message " + msgId);
+			}
 			
 			// Close session test?
 			if (msgId.equals("CLOSE-SESSION-TEST")) {
@@ -218,8 +221,7 @@ public class GenHandler extends EPPGenHandler {
 			}
 
 			try {
-				// The server stub does not use a recipient, thus null
-				theResponse = theMgr.delete(null, msgId, null);
+				theResponse = theMgr.delete(getClientId(sessionData), msgId, null);
 			}
 			 catch (EPPPollQueueException ex) {
 				cat.error("doPoll: Error deleting message " + msgId);
@@ -270,4 +272,20 @@ public class GenHandler extends EPPGenHandler {
 
 		return new EPPEventResponse(greeting);
 	}
+
+	/**
+	 * Gets the identifier of the logged in client, which is the recipient of
+	 * the poll messages of the session.
+	 *
+	 * @param aSessionData Data of the session
+	 *
+	 * @return Client identifier or <code>null</code> if not logged in
+	 */
+	private static String getClientId(SessionData aSessionData) {
+		if (aSessionData.getLoginCmd() == null) {
+			return null;
+		}
+		return aSessionData.getLoginCmd().getClientId();
+	}
 }
+
@@ -0,0 +1,1643 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.serverstub;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.log4j.Logger;
+
+import com.verisign.epp.codec.gen.EPPCommand;
+import com.verisign.epp.codec.gen.EPPResponse;
+import com.verisign.epp.codec.gen.EPPResult;
+import com.verisign.epp.util.EPPCatFactory;
+
+/**
+ * In-memory registry of domains, hosts, and contacts that is used by the
+ * <code>Registry</code> event handlers of the Stub Server
+ * (<code>RegistryDomainHandler</code>, <code>RegistryHostHandler</code>, and
+ * <code>RegistryContactHandler</code>), so that the commands of a client see
+ * the objects created by earlier commands.  The <code>Registry</code>
+ * enforces the rules of RFC 5731, 5732, and 5733 that matter to a client:
+ * <ul>
+ * <li>Object uniqueness, where domain and host names are case insensitive.</li>
+ * <li>Sponsorship, where only the sponsoring client can update, renew, or
+ * delete an object.</li>
+ * <li>Linkage, where a domain can only reference existing hosts and contacts,
+ * a referenced host or contact cannot be deleted, a domain with subordinate
+ * hosts cannot be deleted, and a host in a domain of the
+ * <code>Registry</code> is sponsored by the client of the domain.</li>
+ * <li>Statuses, where the <code>Prohibited</code> statuses and a pending
+ * transfer reject the matching commands.</li>
+ * <li>Transfers, with the request, approve, reject, cancel, and query
+ * operations, where a request requires the authorization information of
+ * the object.</li>
+ * </ul>
+ * <br>
+ * The objects are stored in a <code>ConcurrentHashMap</code> per object
+ * type, so checks and info commands do not lock.  A stored object is never
+ * modified, but is replaced by a modified copy.  The commands that modify
+ * objects lock the objects that they read and modify with a striped set of
+ * locks, which are always acquired in the same order.  A command that
+ * derives the objects to lock from the state of an object retries when the
+ * object was replaced before the locks were acquired.<br>
+ * <br>
+ * The state is only held in memory, unless a <code>RegistryJournal</code> is
+ * opened on the <code>Registry</code>, which persists the changes in a
+ * snapshot and a write-ahead log.
+ */
+public class Registry {
+
+	/** Number of lock stripes, which must be a power of two */
+	private static final int LOCK_STRIPES = 1024;
+
+	/** Maximum period in months of a domain registration */
+	private static final int MAX_PERIOD = 120;
+
+	/** Time in milliseconds for the sponsoring client to act on a transfer */
+	private static final long TRANSFER_ACTION_TIME = 5L * 24 * 60 * 60 * 1000;
+
+	/** Bits of the client statuses */
+	private static final int CLIENT_STATUSES = RegistryObject.CLIENT_DELETE_PROHIBITED | RegistryObject.CLIENT_HOLD
+			| RegistryObject.CLIENT_RENEW_PROHIBITED | RegistryObject.CLIENT_TRANSFER_PROHIBITED
+			| RegistryObject.CLIENT_UPDATE_PROHIBITED;
+
+	/** Lock type of a domain */
+	private static final int DOMAIN = 1;
+
+	/** Lock type of a host */
+	private static final int HOST = 2;
+
+	/** Lock type of a contact */
+	private static final int CONTACT = 3;
+
+	/** UTC time zone of the expiration dates */
+	private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+	/** Log4j category for logging */
+	private static Logger cat = Logger.getLogger(Registry.class.getName(), EPPCatFactory.getInstance().getFactory());
+
+	/** Singleton instance */
+	private static Registry instance = new Registry();
+
+	/** Domains by lower case name */
+	private final ConcurrentHashMap<String, RegistryDomain> domains = new ConcurrentHashMap<String, RegistryDomain>(
+			1024, 0.75f, 64);
+
+	/** Hosts by lower case name */
+	private final ConcurrentHashMap<String, RegistryHost> hosts = new ConcurrentHashMap<String, RegistryHost>(1024,
+			0.75f, 64);
+
+	/** Contacts by identifier */
+	private final ConcurrentHashMap<String, RegistryContact> contacts = new ConcurrentHashMap<String, RegistryContact>(
+			1024, 0.75f, 64);
+
+	/** Lock stripes of the commands that modify objects */
+	private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+	/** Sequence of the repository object identifiers */
+	private final AtomicLong roidSequence = new AtomicLong();
+
+	/** Journal of the changes or <code>null</code> if the changes are not persisted */
+	private volatile RegistryJournal journal;
+
+	/**
+	 * Set of lock stripes that are locked in increasing order and unlocked in
+	 * decreasing order.
+	 */
+	private class LockSet {
+
+		/** Stripe indexes */
+		private int[] stripes = new int[8];
+
+		/** Number of stripe indexes */
+		private int size;
+
+		/**
+		 * Adds the lock stripe of an object.
+		 *
+		 * @param aType <code>DOMAIN</code>, <code>HOST</code>, or
+		 *        <code>CONTACT</code>
+		 * @param aKey Key of the object, where <code>null</code> is ignored
+		 */
+		void add(int aType, String aKey) {
+			if (aKey == null) {
+				return;
+			}
+			int theHash = aKey.hashCode() * 31 + aType;
+			theHash ^= (theHash >>> 16);
+
+			if (this.size == this.stripes.length) {
+				this.stripes = Arrays.copyOf(this.stripes, this.size * 2);
+			}
+			this.stripes[this.size++] = theHash & (LOCK_STRIPES - 1);
+		}
+
+		/**
+		 * Adds the lock stripes of a set of objects.
+		 *
+		 * @param aType <code>DOMAIN</code>, <code>HOST</code>, or
+		 *        <code>CONTACT</code>
+		 * @param aKeys Keys of the objects
+		 */
+		void addAll(int aType, Collection<String> aKeys) {
+			for (String theKey : aKeys) {
+				this.add(aType, theKey);
+			}
+		}
+
+		/**
+		 * Locks the stripes in increasing order.
+		 */
+		void lock() {
+			Arrays.sort(this.stripes, 0, this.size);
+
+			int theCount = 0;
+			for (int i = 0; i < this.size; i++) {
+				if (theCount == 0 || this.stripes[theCount - 1] != this.stripes[i]) {
+					this.stripes[theCount++] = this.stripes[i];
+				}
+			}
+			this.size = theCount;
+
+			for (int i = 0; i < this.size; i++) {
+				Registry.this.locks[this.stripes[i]].lock();
+			}
+		}
+
+		/**
+		 * Commits the changes of the command to the journal and unlocks the
+		 * stripes in decreasing order.
+		 */
+		void unlock() {
+			RegistryJournal theJournal = Registry.this.journal;
+			if (theJournal != null) {
+				theJournal.commit();
+			}
+
+			for (int i = this.size - 1; i >= 0; i--) {
+				Registry.this.locks[this.stripes[i]].unlock();
+			}
+		}
+
+	}
+
+	/**
+	 * Constructs an empty <code>Registry</code>.  The Stub Server uses the
+	 * <code>Registry</code> returned by {@link #getInstance()}.
+	 */
+	public Registry() {
+		for (int i = 0; i < LOCK_STRIPES; i++) {
+			this.locks[i] = new ReentrantLock();
+		}
+	}
+
+	/**
+	 * Gets the <code>Registry</code> of the Stub Server.
+	 *
+	 * @return Singleton instance
+	 */
+	public static Registry getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Converts a domain or host name to its key, which is the name in lower
+	 * case.
+	 *
+	 * @param aName Domain or host name
+	 *
+	 * @return Key or <code>null</code> if <code>aName</code> is
+	 *         <code>null</code>
+	 */
+	static String toKey(String aName) {
+		return aName == null ? null : aName.toLowerCase(Locale.ENGLISH);
+	}
+
+	/**
+	 * Converts a list of client statuses to a bit set.
+	 *
+	 * @param aStatuses Status names, like <code>clientHold</code>
+	 *
+	 * @return Bit set of the statuses
+	 *
+	 * @exception RegistryException With <code>EPPResult.PARAM_VALUE_POLICY_ERROR</code>
+	 *            if a status is not a client status
+	 */
+	public static int getClientStatusBits(Collection<String> aStatuses) throws RegistryException {
+		int theBits = 0;
+
+		for (String theStatus : aStatuses) {
+			int theBit = RegistryObject.getStatusBit(theStatus);
+			if ((theBit & CLIENT_STATUSES) == 0) {
+				throw new RegistryException(EPPResult.PARAM_VALUE_POLICY_ERROR, "Status " + theStatus
+						+ " cannot be set by the client");
+			}
+			theBits |= theBit;
+		}
+
+		return theBits;
+	}
+
+	/**
+	 * Gets the number of domains.
+	 *
+	 * @return Number of domains
+	 */
+	public int getDomainCount() {
+		return this.domains.size();
+	}
+
+	/**
+	 * Gets the number of hosts.
+	 *
+	 * @return Number of hosts
+	 */
+	public int getHostCount() {
+		return this.hosts.size();
+	}
+
+	/**
+	 * Gets the number of contacts.
+	 *
+	 * @return Number of contacts
+	 */
+	public int getContactCount() {
+		return this.contacts.size();
+	}
+
+	/**
+	 * Removes all of the objects, which must not be called while other
+	 * commands are processed.
+	 */
+	public void clear() {
+		this.domains.clear();
+		this.hosts.clear();
+		this.contacts.clear();
+
+		RegistryJournal theJournal = this.journal;
+		if (theJournal != null) {
+			theJournal.logClear();
+		}
+	}
+
+	/**
+	 * Sets the journal that persists the changes, which is set by
+	 * <code>RegistryJournal.open()</code> once the stored state is loaded.
+	 *
+	 * @param aJournal Journal or <code>null</code> to not persist the changes
+	 */
+	void setJournal(RegistryJournal aJournal) {
+		this.journal = aJournal;
+	}
+
+	/**
+	 * Gets the domains for the <code>RegistryJournal</code>.
+	 *
+	 * @return Map of the domains by key
+	 */
+	ConcurrentHashMap<String, RegistryDomain> getDomainMap() {
+		return this.domains;
+	}
+
+	/**
+	 * Gets the hosts for the <code>RegistryJournal</code>.
+	 *
+	 * @return Map of the hosts by key
+	 */
+	ConcurrentHashMap<String, RegistryHost> getHostMap() {
+		return this.hosts;
+	}
+
+	/**
+	 * Gets the contacts for the <code>RegistryJournal</code>.
+	 *
+	 * @return Map of the contacts by key
+	 */
+	ConcurrentHashMap<String, RegistryContact> getContactMap() {
+		return this.contacts;
+	}
+
+	/**
+	 * Gets the last number of the repository object identifiers.
+	 *
+	 * @return Last number used in a repository object identifier
+	 */
+	long getRoidSequence() {
+		return this.roidSequence.get();
+	}
+
+	/**
+	 * Restores the sequence of the repository object identifiers, so that the
+	 * identifiers of the restored objects are not reused.
+	 *
+	 * @param aRoid Restored repository object identifier, like
+	 *        <code>D12-STUB</code>
+	 */
+	void restoreRoid(String aRoid) {
+		int theEnd = aRoid == null ? -1 : aRoid.indexOf('-');
+		if (theEnd > 1) {
+			try {
+				this.restoreRoidSequence(Long.parseLong(aRoid.substring(1, theEnd)));
+			}
+			catch (NumberFormatException ex) {
+				// Not created by the Registry
+			}
+		}
+	}
+
+	/**
+	 * Restores the sequence of the repository object identifiers.
+	 *
+	 * @param aSequence Number of a repository object identifier that must not
+	 *        be reused
+	 */
+	void restoreRoidSequence(long aSequence) {
+		for (;;) {
+			long theSequence = this.roidSequence.get();
+			if (theSequence >= aSequence || this.roidSequence.compareAndSet(theSequence, aSequence)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Is a domain name available for create?
+	 *
+	 * @param aName Domain name
+	 *
+	 * @return <code>true</code> if the domain does not exist;
+	 *         <code>false</code> otherwise.
+	 */
+	public boolean isDomainAvailable(String aName) {
+		return !this.domains.containsKey(toKey(aName));
+	}
+
+	/**
+	 * Gets a copy of a domain, where the authorization information is only
+	 * set for the sponsoring client or when <code>aAuthInfo</code> matches.
+	 *
+	 * @param aClientId Identifier of the client
+	 * @param aName Domain name
+	 * @param aAuthInfo Authorization information of the command or
+	 *        <code>null</code>
+	 *
+	 * @return Copy of the domain
+	 *
+	 * @exception RegistryException With <code>EPPResult.OBJECT_DOES_NOT_EXIST</code>
+	 */
+	public RegistryDomain getDomain(String aClientId, String aName, String aAuthInfo) throws RegistryException {
+		RegistryDomain theDomain = (RegistryDomain) getObject(this.domains, toKey(aName), "Domain").clone();
+		hideAuthInfo(theDomain, aClientId, aAuthInfo);
+
+		return theDomain;
+	}
+
+	/**
+	 * Creates a domain, which is sponsored by the client.
+	 *
+	 * @param aClientId Identifier of the client
+	 * @param aDomain Name, name servers, registrant, contacts, and
+	 *        authorization information of the domain
+	 * @param aPeriod Registration period in months
+	 *
+	 * @return Copy of the created domain
+	 *
+	 * @exception RegistryException If the domain exists, a name server or
+	 *            contact does not exist, or the period is out of range
+	 */
+	public RegistryDomain createDomain(String aClientId, RegistryDomain aDomain, int aPeriod) throws RegistryException {
+		checkPeriod(aPeriod);
+
+		RegistryDomain theDomain = (RegistryDomain) aDomain.clone();
+		String theName = checkKey(theDomain.getName(), "Domain name");
+		Set<String> theContactIds = getContactIds(theDomain);
+		checkDuplicates(theDomain.getServers(), "Name server");
+
+		LockSet theLocks = new LockSet();
+		theLocks.add(DOMAIN, theName);
+		theLocks.addAll(HOST, theDomain.getServers());
+		theLocks.addAll(CONTACT, theContactIds);
+		theLocks.lock();
+		try {
+			if (this.domains.containsKey(theName)) {
+				throw new RegistryException(EPPResult.OBJECT_EXISTS, "Domain " + theName + " exists");
+			}
+			for (String theServer : theDomain.getServers()) {
+				getObject(this.hosts, theServer, "Host");
+			}
+			for (String theContactId : theContactIds) {
+				getObject(this.contacts, theContactId, "Contact");
+			}
+
+			long theNow = System.currentTimeMillis();
+			this.initObject(theDomain, "D", aClientId, theNow);
+			theDomain.getHosts().clear();
+			theDomain.setExpirationDate(new Date(addMonths(theNow, aPeriod)));
+			theDomain.setTransferPeriod(0);
+
+			this.link(this.hosts, theDomain.getServers(), 1);
+			this.link(this.contacts, theContactIds, 1);
+			this.store(this.domains, theName, theDomain);
+
+			if (cat.isDebugEnabled()) {
+				cat.debug("createDomain(): Created " + theName + " for " + aClientId);
+			}
+
+			return (RegistryDomain) theDomain.clone();
+		}
+		finally {
+			theLocks.unlock();
+		}
+	}
+
+	/**
+	 * Deletes a domain, which unlinks its name servers and contacts.
+	 *
+	 * @param aClientId Identifier of the client
+	 * @param aName Domain name
+	 *
+	 * @exception RegistryException If the domain does not exist, is not
+	 *            sponsored by the client, has a status that prohibits delete,
+	 *            or has subordinate hosts
+	 */
+	public void deleteDomain(String aClientId, String aName) throws RegistryException {
+		String theName = checkKey(toKey(aName), "Domain name");
+
+		for (;;) {
+			RegistryDomain theDomain = getObject(this.domains, theName, "Domain");
+			Set<String> theContactIds = getContactIds(theDomain);
+
+			LockSet theLocks = new LockSet();
+			theLocks.add(DOMAIN, theName);
+			theLocks.addAll(HOST, theDomain.getServers());
+			theLocks.addAll(CONTACT, theContactIds);
+			theLocks.lock();
+			try {
+				if (this.domains.get(theName) != theDomain) {
+					continue;
+				}
+				checkSponsor(theDomain, aClientId);
+				checkStatus(theDomain, RegistryObject.CLIENT_DELETE_PROHIBITED
+						| RegistryObject.SERVER_DELETE_PROHIBITED, "delete");
+				if (!theDomain.getHosts().isEmpty()) {
+					throw new RegistryException(EPPResult.ASSOC_PROHIBITS_OP, "Domain " + theName
+							+ " has subordinate hosts " + theDomain.getHosts());
+				}
+
+				this.discard(this.domains, theName);
+				this.link(this.hosts, theDomain.getServers(), -1);
+				this.link(this.contacts, theContactIds, -1);
+
+				if (cat.isDebugEnabled()) {
+					cat.debug("deleteDomain(): Deleted " + theName + " for " + aClientId);
+				}
+
+				return;
+			}
+			finally {
+				theLocks.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Renews a domain.
+	 *
+	 * @param aClientId Identifier of the client
+	 * @param aName Domain name
+	 * @param aCurExpDate Current expiration date of the domain, which must
+	 *        match the day of the expiration date
+	 * @param aPeriod Renewal period in months
+	 *
+	 * @return Copy of the renewed domain
+	 *
+	 * @exception RegistryException If the domain does not exist, is not
+	 *            sponsored by the client, has a status that prohibits renew,
+	 *            the current expiration date does not match, or the new
+	 *            expiration date is out of range
+	 */
+	public RegistryDomain renewDomain(String aClientId, String aName, Date aCurExpDate, int aPeriod)
+			throws RegistryException {
+		String theName = checkKey(toKey(aName), "Domain name");
+		checkPeriod(aPeriod);
+
+		LockSet theLocks = new LockSet();
+		theLocks.add(DOMAIN, theName);
+		theLocks.lock();
+		try {
+			RegistryDomain theDomain = getObject(this.domains, theName, "Domain");
+			checkSponsor(theDomain, aClientId);
+			checkStatus(theDomain, RegistryObject.CLIENT_RENEW_PROHIBITED | RegistryObject.SERVER_RENEW_PROHIBITED,
+					"renew");
+
+			long theExpiration = theDomain.getExpirationDate().getTime();
+			if (aCurExpDate == null || toDay(aCurExpDate.getTime()) != toDay(theExpiration)) {
+				throw new RegistryException(EPPResult.PARAM_VALUE_POLICY_ERROR, "Current expiration date "
+						+ aCurExpDate + " does not match " + theDomain.getExpirationDate());
+			}
+			theExpiration = addMonths(theExpiration, aPeriod);
+			if (theExpiration > addMonths(System.currentTimeMillis(), MAX_PERIOD)) {
+				throw new RegistryException(EPPResult.PARAM_VALUE_POLICY_ERROR, "Expiration date of " + theName
+						+ " would exceed " + (MAX_PERIOD / 12) + " years");
+			}
+
+			RegistryDomain theCopy = (RegistryDomain) theDomain.clone();
+			theCopy.setExpirationDate(new Date(theExpiration));
+			this.store(this.domains, theName, theCopy);
+
+			return (RegistryDomain) theCopy.clone();
+		}
+		finally {
+			theLocks.unlock();
+		}
+	}
+
+	/**
+	 * Updates a domain with the attributes to add, remove, and change, like
+	 * the <code>add</code>, <code>rem</code>, and <code>chg</code> elements of
+	 * the update command.
+	 *
+	 * @param aClientId Identifier of the client
+	 * @param aName Domain name
+	 * @param aAdd Name servers, contacts, and status bits to add, or
+	 *        <code>null</code>
+	 * @param aRemove Name servers, contacts, and status bits to remove, or
+	 *        <code>null</code>
+	 * @param aChange Registrant and authorization information to change,
+	 *        where <code>null</code> attributes are not changed, or
+	 *        <code>null</code>
+	 *
+	 * @exception RegistryException If the domain does not exist, is not
+	 *            sponsored by the client, has a status that prohibits update,
+	 *            a name server or contact does not exist, or an attribute to
+	 *            add exists or to remove does not exist
+	 */
+	public void updateDomain(String aClientId, String aName, RegistryDomain aAdd, RegistryDomain aRemove,
+			RegistryDomain aChange) throws RegistryException {
+		String theName = checkKey(toKey(aName), "Domain name");
+		RegistryDomain theAdd = aAdd != null ? aAdd : new RegistryDomain();
+		RegistryDomain theRemove = aRemove != null ? aRemove : new RegistryDomain();
+		RegistryDomain theChange = aChange != null ? aChange : new RegistryDomain();
+
+		for (;;) {
+			RegistryDomain theDomain = getObject(this.domains, theName, "Domain");
+
+			LockSet theLocks = new LockSet();
+			theLocks.add(DOMAIN, theName);
+			theLocks.addAll(HOST, theAdd.getServers());
+			theLocks.addAll(HOST, theRemove.getServers());
+			theLocks.addAll(CONTACT, getContactIds(theAdd));
+			theLocks.addAll(CONTACT, getContactIds(theRemove));
+			theLocks.add(CONTACT, theChange.getRegistrant());
+			theLocks.add(CONTACT, theDomain.getRegistrant());
+			theLocks.lock();
+			try {
+				if (this.domains.get(theName) != theDomain) {
+					continue;
+				}
+				checkSponsor(theDomain, aClientId);
+				checkUpdateStatus(theDomain, theAdd.getStatusBits(), theRemove.getStatusBits());
+
+				RegistryDomain theCopy = (RegistryDomain) theDomain.clone();
+
+				for (String theServer : theRemove.getServers()) {
+					if (!theCopy.getServers().remove(theServer)) {
+						throw new RegistryException(EPPResult.PARAM_VALUE_POLICY_ERROR, "Host " + theServer
+								+ " is not a name server of " + theName);
+					}
+				}
+				for (String theServer : theAdd.getServers()) {
+					getObject(this.hosts, theServer, "Host");
+					if (theCopy.getServers().contains(theServer)) {
+						throw new RegistryException(EPPResult.PARAM_VALUE_POLICY_ERROR, "Host " + theServer
+								+ " is already a name server of " + theName);
+					}
+					theCopy.getServers().add(theServer);
+				}
+
+				for (RegistryDomain.Contact theContact : theRemove.getContacts()) {
+					if (!theCopy.getContacts().remove(theContact)) {
+						throw new RegistryException(EPPResult.PARAM_VALUE_POLICY_ERROR, "Contact "
+								+ theContact.getId() + " is not a " + theContact.getType() + " contact of "
+								+ theName);
+					}
+				}
+				for (RegistryDomain.Contact theContact : theAdd.getContacts()) {
+					getObject(this.contacts, theContact.getId(), "Contact");
+					if (theCopy.getContacts().contains(theContact)) {
+						throw new RegistryException(EPPResult.PARAM_VALUE_POLICY_ERROR, "Contact "
+								+ theContact.getId() + " is already a " + theContact.getType() + " contact of "
+								+ theName);
+					}
+					theCopy.getContacts().add(theContact);
+				}
+
+				theCopy.setStatusBits((theCopy.getStatusBits() & ~theRemove.getStatusBits()) | theAdd.getStatusBits());
+
+				if (theChange.getRegistrant() != null) {
+					getObject(this.contacts, theChange.getRegistrant(), "Contact");
+					theCopy.setRegistrant(theChange.getRegistrant());
+				}
+				if (theChange.getAuthInfo() != null) {
+					theCopy.setAuthInfo(theChange.getAuthInfo());
+				}
+
+				// Relink the name servers and contacts that changed
+				Set<String> theOldServers = new HashSet<String>(theDomain.getServers());
+				Set<String> theNewServers = new HashSet<String>(theCopy.getServers());
+				Set<String> theOldContactIds = getContactIds(theDomain);
+				Set<String> theNewContactIds = getContactIds(theCopy);
+				this.link(this.hosts, difference(theOldServers, theNewServers), -1);
+				this.link(this.hosts, difference(theNewServers, theOldServers), 1);
+				this.link(this.contacts, difference(theOldContactIds, theNewContactIds), -1);
+				this.link(this.contacts, difference(theNewContactIds, theOldContactIds), 1);
+
+				theCopy.setUpdatedBy(aClientId);
+				theCopy.setUpdatedDate(new Date());
+				this.store(this.domains, theName, theCopy);
+
+				return;
+			}
+			finally {
+				theLocks.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Executes a transfer operation on a domain.  The subordinate hosts of the
+	 * domain are transferred with the domain when the transfer is approved.
+	 *
+	 * @param aClientId Identifier of the client
+	 * @param aOp Transfer operation, one of the <code>EPPCommand.OP</code>
+	 *        constants
+	 * @param aName Domain name
+	 * @param aAuthInfo Authorization information of the command or
+	 *        <code>null</code>
+	 * @param aPeriod Number of months to add to the expiration date when a
+	 *        requested transfer is approved
+	 *
+	 * @return Copy of the domain with the transfer attributes
+	 *
+	 * @exception RegistryException If the transfer operation is not allowed
+	 */
+	public RegistryDomain transferDomain(String aClientId, String aOp, String aName, String aAuthInfo, int aPeriod)
+			throws RegistryException {
+		String theName = checkKey(toKey(aName), "Domain name");
+		if (EPPCommand.OP_REQUEST.equals(aOp)) {
+			checkPeriod(aPeriod);
+		}
+
+		for (;;) {
+			RegistryDomain theDomain = getObject(this.domains, theName, "Domain");
+
+			LockSet theLocks = new LockSet();
+			theLocks.add(DOMAIN, theName);
+			theLocks.addAll(HOST, theDomain.getHosts());
+			theLocks.lock();
+			try {
+				if (this.domains.get(theName) != theDomain) {
+					continue;
+				}
+
+				RegistryDomain theCopy = (RegistryDomain) theDomain.clone();
+				boolean theApproved = transfer(theCopy, aClientId, aOp, aAuthInfo);
+
+				if (EPPCommand.OP_REQUEST.equals(aOp)) {
+					theCopy.setTransferPeriod(aPeriod);
+				}
+				else if (theApproved) {
+					theCopy.setExpirationDate(new Date(addMonths(theCopy.getExpirationDate().getTime(), theCopy
+							.getTransferPeriod())));
+					for (String theHostName : theCopy.getHosts()) {
+						RegistryHost theHost = (RegistryHost) this.hosts.get(theHostName).clone();
+						theHost.setClientId(theCopy.getClientId());
+						theHost.setTransferDate(theCopy.getTransferDate());
+						this.store(this.hosts, theHostName, theHost);
+					}
+				}
+
+				if (!EPPCommand.OP_QUERY.equals(aOp)) {
+					this.store(this.domains, theName, theCopy);
+				}
+
+				RegistryDomain theResult = (RegistryDomain) theCopy.clone();
+				hideAuthInfo(theResult, aClientId, aAuthInfo);
+
+				return theResult;
+			}
+			finally {
+				theLocks.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Is a host name available for create?
+	 *
+	 * @param aName Host name
+	 *
+	 * @return <code>true</code> if the host does not exist;
+	 *         <code>false</code> otherwise.
+	 */
+	public boolean isHostAvailable(String aName) {
+		return !this.hosts.containsKey(toKey(aName));
+	}
+
+	/**
+	 * Gets a copy of a host.
+	 *
+	 * @param aName Host name
+	 *
+	 * @return Copy of the host
+	 *
+	 * @exception RegistryException With <code>EPPResult.OBJECT_DOES_NOT_EXIST</code>
+	 */
+	public RegistryHost getHost(String aName) throws RegistryException {
+		return (RegistryHost) getObject(this.hosts, toKey(aName), "Host").clone();
+	}
+
+	/**
+	 * Creates a host.  A host in a domain of the <code>Registry</code> must
+	 * be created by the sponsoring client of the domain, and a host outside of
+	 * the domains of the <code>Registry</code> cannot have IP addresses.
+	 *
+	 * @param aClientId Identifier of the client
+	 * @param aHost Name and IP addresses of the host
+	 *
+	 * @return Copy of the created host
+	 *
+	 * @exception RegistryException If the host exists, or violates the
+	 *            superordinate domain rules
+	 */
+	public RegistryHost createHost(String aClientId, RegistryHost aHost) throws RegistryException {
+		RegistryHost theHost = (RegistryHost) aHost.clone();
+		String theName = checkKey(theHost.getName(), "Host name");
+		checkDuplicates(theHost.getAddresses(), "Address");
+
+		LockSet theLocks = new LockSet();
+		theLocks.add(HOST, theName);
+		theLocks.addAll(DOMAIN, getParentNames(theName));
+		theLocks.lock();
+		try {
+			if (this.hosts.containsKey(theName)) {
+				throw new RegistryException(EPPResult.OBJECT_EXISTS, "Host " + theName + " exists");
+			}
+			RegistryDomain theDomain = this.findSuperordinate(theName, aClientId);
+			checkExternalAddresses(theHost, theDomain);
+
+			this.initObject(theHost, "H", aClientId, System.currentTimeMillis());
+			theHost.setSuperordinate(theDomain == null ? null : theDomain.getName());
+			this.store(this.hosts, theName, theHost);
+			this.addSubordinate(theDomain, theName);
+
+			return (RegistryHost) theHost.clone();
+		}
+		finally {
+			theLocks.unlock();
+		}
+	}
+
+	/**
+	 * Deletes a host that is not linked to a domain.
+	 *
+	 * @param aClientId Identifier of the client
+	 * @param aName Host name
+	 *
+	 * @exception RegistryException If the host does not exist, is not
+	 *            sponsored by the client, has a status that prohibits delete,
+	 *            or is linked to a domain
+	 */
+	public void deleteHost(String aClientId, String aName) throws RegistryException {
+		String theName = checkKey(toKey(aName), "Host name");
+
+		for (;;) {
+			RegistryHost theHost = getObject(this.hosts, theName, "Host");
+
+			LockSet theLocks = new LockSet();
+			theLocks.add(HOST, theName);
+			theLocks.add(DOMAIN, theHost.getSuperordinate());
+			theLocks.lock();
+			try {
+				if (this.hosts.get(theName) != theHost) {
+					continue;
+				}
+				checkSponsor(theHost, aClientId);
+				checkStatus(theHost, RegistryObject.CLIENT_DELETE_PROHIBITED | RegistryObject.SERVER_DELETE_PROHIBITED,
+						"delete");
+				if (theHost.getLinkCount() > 0) {
+					throw new RegistryException(EPPResult.ASSOC_PROHIBITS_OP, "Host " + theName
+							+ " is a name server of " + theHost.getLinkCount() + " domains");
+				}
+
+				this.discard(this.hosts, theName);
+				this.removeSubordinate(theHost.getSuperordinate(), theName);
+
+				return;
+			}
+			finally {
+				theLocks.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Updates a host with the attributes to add, remove, and change, like the
+	 * <code>add</code>, <code>rem</code>, and <code>chg</code> elements of the
+	 * update command.  A host that is linked to a domain cannot be renamed.
+	 *
+	 * @param aClientId Identifier of the client
+	 * @param aName Host name
+	 * @param aAdd IP addresses and status bits to add, or <code>null</code>
+	 * @param aRemove IP addresses and status bits to remove, or
+	 *        <code>null</code>
+	 * @param aChange New host name, or <code>null</code>
+	 *
+	 * @exception RegistryException If the host does not exist, is not
+	 *            sponsored by the client, has a status that prohibits update,
+	 *            or the update violates the uniqueness, linkage, or
+	 *            superordinate domain rules
+	 */
+	public void updateHost(String aClientId, String aName, RegistryHost aAdd, RegistryHost aRemove,
+			RegistryHost aChange) throws RegistryException {
+		String theName = checkKey(toKey(aName), "Host name");
+		RegistryHost theAdd = aAdd != null ? aAdd : new RegistryHost();
+		RegistryHost theRemove = aRemove != null ? aRemove : new RegistryHost();
+		String theNewName = aChange != null ? aChange.getName() : null;
+		if (theName.equals(theNewName)) {
+			theNewName = null;
+		}
+
+		for (;;) {
+			RegistryHost theHost = getObject(this.hosts, theName, "Host");
+
+			LockSet theLocks = new LockSet();
+			theLocks.add(HOST, theName);
+			theLocks.add(DOMAIN, theHost.getSuperordinate());
+			if (theNewName != null) {
+				theLocks.add(HOST, theNewName);
+				theLocks.addAll(DOMAIN, getParentNames(theNewName));
+			}
+			theLocks.lock();
+			try {
+				if (this.hosts.get(theName) != theHost) {
+					continue;
+				}
+				checkSponsor(theHost, aClientId);
+				checkUpdateStatus(theHost, theAdd.getStatusBits(), theRemove.getStatusBits());
+
+				RegistryHost theCopy = (RegistryHost) theHost.clone();
+
+				for (String theAddress : theRemove.getAddresses()) {
+					if (!theCopy.getAddresses().remove(theAddress)) {
+						throw new RegistryException(EPPResult.PARAM_VALUE_POLICY_ERROR, "Address " + theAddress
+								+ " is not an address of " + theName);
+					}
+				}
+				for (String theAddress : theAdd.getAddresses()) {
+					if (theCopy.getAddresses().contains(theAddress)) {
+						throw new RegistryException(EPPResult.PARAM_VALUE_POLICY_ERROR, "Address " + theAddress
+								+ " is already an address of " + theName);
+					}
+					theCopy.getAddresses().add(theAddress);
+				}
+
+				theCopy.setStatusBits((theCopy.getStatusBits() & ~theRemove.getStatusBits()) | theAdd.getStatusBits());
+
+				RegistryDomain theDomain = null;
+				if (theNewName != null) {
+					if (theHost.getLinkCount() > 0) {
+						throw new RegistryException(EPPResult.ASSOC_PROHIBITS_OP, "Host " + theName
+								+ " is a name server of " + theHost.getLinkCount() + " domains");
+					}
+					if (this.hosts.containsKey(theNewName)) {
+						throw new RegistryException(EPPResult.OBJECT_EXISTS, "Host " + theNewName + " exists");
+					}
+					theDomain = this.findSuperordinate(theNewName, aClientId);
+					theCopy.setName(theNewName);
+					theCopy.setSuperordinate(theDomain == null ? null : theDomain.getName());
+				}
+				else if (theHost.getSuperordinate() != null) {
+					theDomain = this.domains.get(theHost.getSuperordinate());
+				}
+				checkExternalAddresses(theCopy, theDomain);
+
+				theCopy.setUpdatedBy(aClientId);
+				theCopy.setUpdatedDate(new Date());
+				if (theNewName != null) {
+					this.discard(this.hosts, theName);
+					this.removeSubordinate(theHost.getSuperordinate(), theName);
+					this.addSubordinate(theDomain, theNewName);
+				}
+				this.store(this.hosts, theCopy.getName(), theCopy);
+
+				return;
+			}
+			finally {
+				theLocks.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Is a contact identifier available for create?
+	 *
+	 * @param aId Contact identifier
+	 *
+	 * @return <code>true</code> if the contact does not exist;
+	 *         <code>false</code> otherwise.
+	 */
+	public boolean isContactAvailable(String aId) {
+		return aId != null && !this.contacts.containsKey(aId);
+	}
+
+	/**
+	 * Gets a copy of a contact, where the authorization information is only
+	 * set for the sponsoring client or when <code>aAuthInfo</code> matches.
+	 *
+	 * @param aClientId Identifier of the client
+	 * @param aId Contact identifier
+	 * @param aAuthInfo Authorization information of the command or
+	 *        <code>null</code>
+	 *
+	 * @return Copy of the contact
+	 *
+	 * @exception RegistryException With <code>EPPResult.OBJECT_DOES_NOT_EXIST</code>
+	 */
+	public RegistryContact getContact(String aClientId, String aId, String aAuthInfo) throws RegistryException {
+		RegistryContact theContact = (RegistryContact) getObject(this.contacts, aId, "Contact").clone();
+		hideAuthInfo(theContact, aClientId, aAuthInfo);
+
+		return theContact;
+	}
+
+	/**
+	 * Creates a contact, which is sponsored by the client.
+	 *
+	 * @param aClientId Identifier of the client
+	 * @param aContact Contact to create
+	 *
+	 * @return Copy of the created contact
+	 *
+	 * @exception RegistryException With <code>EPPResult.OBJECT_EXISTS</code>
+	 */
+	public RegistryContact createContact(String aClientId, RegistryContact aContact) throws RegistryException {
+		RegistryContact theContact = (RegistryContact) aContact.clone();
+		String theId = checkKey(theContact.getId(), "Contact identifier");
+
+		LockSet theLocks = new LockSet();
+		theLocks.add(CONTACT, theId);
+		theLocks.lock();
+		try {
+			if (this.contacts.containsKey(theId)) {
+				throw new RegistryException(EPPResult.OBJECT_EXISTS, "Contact " + theId + " exists");
+			}
+			this.initObject(theContact, "C", aClientId, System.currentTimeMillis());
+			this.store(this.contacts, theId, theContact);
+
+			return (RegistryContact) theContact.clone();
+		}
+		finally {
+			theLocks.unlock();
+		}
+	}
+
+	/**
+	 * Deletes a contact that is not linked to a domain.
+	 *
+	 * @param aClientId Identifier of the client
+	 * @param aId Contact identifier
+	 *
+	 * @exception RegistryException If the contact does not exist, is not
+	 *            sponsored by the client, has a status that prohibits delete,
+	 *            or is linked to a domain
+	 */
+	public void deleteContact(String aClientId, String aId) throws RegistryException {
+		String theId = checkKey(aId, "Contact identifier");
+
+		LockSet theLocks = new LockSet();
+		theLocks.add(CONTACT, theId);
+		theLocks.lock();
+		try {
+			RegistryContact theContact = getObject(this.contacts, theId, "Contact");
+			checkSponsor(theContact, aClientId);
+			checkStatus(theContact, RegistryObject.CLIENT_DELETE_PROHIBITED | RegistryObject.SERVER_DELETE_PROHIBITED,
+					"delete");
+			if (theContact.getLinkCount() > 0) {
+				throw new RegistryException(EPPResult.ASSOC_PROHIBITS_OP, "Contact " + theId + " is a contact of "
+						+ theContact.getLinkCount() + " domains");
+			}
+
+			this.discard(this.contacts, theId);
+		}
+		finally {
+			theLocks.unlock();
+		}
+	}
+
+	/**
+	 * Updates a contact with the status bits to add and remove, and the
+	 * attributes to change.
+	 *
+	 * @param aClientId Identifier of the client
+	 * @param aId Contact identifier
+	 * @param aAdd Status bits to add, or <code>null</code>
+	 * @param aRemove Status bits to remove, or <code>null</code>
+	 * @param aChange Attributes to change, where the postal information
+	 *        replaces the postal information of the same type and
+	 *        <code>null</code> attributes are not changed, or
+	 *        <code>null</code>
+	 *
+	 * @exception RegistryException If the contact does not exist, is not
+	 *            sponsored by the client, or has a status that prohibits
+	 *            update
+	 */
+	public void updateContact(String aClientId, String aId, RegistryContact aAdd, RegistryContact aRemove,
+			RegistryContact aChange) throws RegistryException {
+		String theId = checkKey(aId, "Contact identifier");
+		int theAddBits = aAdd != null ? aAdd.getStatusBits() : 0;
+		int theRemoveBits = aRemove != null ? aRemove.getStatusBits() : 0;
+
+		LockSet theLocks = new LockSet();
+		theLocks.add(CONTACT, theId);
+		theLocks.lock();
+		try {
+			RegistryContact theContact = getObject(this.contacts, theId, "Contact");
+			checkSponsor(theContact, aClientId);
+			checkUpdateStatus(theContact, theAddBits, theRemoveBits);
+
+			RegistryContact theCopy = (RegistryContact) theContact.clone();
+			theCopy.setStatusBits((theCopy.getStatusBits() & ~theRemoveBits) | theAddBits);
+
+			if (aChange != null) {
+				for (RegistryContact.PostalInfo thePostalInfo : aChange.getPostalInfo()) {
+					for (int i = 0; i < theCopy.getPostalInfo().size(); i++) {
+						if (theCopy.getPostalInfo().get(i).getType().equals(thePostalInfo.getType())) {
+							theCopy.getPostalInfo().remove(i);
+							break;
+						}
+					}
+					theCopy.getPostalInfo().add(thePostalInfo);
+				}
+				if (aChange.getVoice() != null) {
+					theCopy.setVoice(aChange.getVoice());
+					theCopy.setVoiceExt(aChange.getVoiceExt());
+				}
+				if (aChange.getFax() != null) {
+					theCopy.setFax(aChange.getFax());
+					theCopy.setFaxExt(aChange.getFaxExt());
+				}
+				if (aChange.getEmail() != null) {
+					theCopy.setEmail(aChange.getEmail());
+				}
+				if (aChange.getAuthInfo() != null) {
+					theCopy.setAuthInfo(aChange.getAuthInfo());
+				}
+			}
+
+			theCopy.setUpdatedBy(aClientId);
+			theCopy.setUpdatedDate(new Date());
+			this.store(this.contacts, theId, theCopy);
+		}
+		finally {
+			theLocks.unlock();
+		}
+	}
+
+	/**
+	 * Executes a transfer operation on a contact.
+	 *
+	 * @param aClientId Identifier of the client
+	 * @param aOp Transfer operation, one of the <code>EPPCommand.OP</code>
+	 *        constants
+	 * @param aId Contact identifier
+	 * @param aAuthInfo Authorization information of the command or
+	 *        <code>null</code>
+	 *
+	 * @return Copy of the contact with the transfer attributes
+	 *
+	 * @exception RegistryException If the transfer operation is not allowed
+	 */
+	public RegistryContact transferContact(String aClientId, String aOp, String aId, String aAuthInfo)
+			throws RegistryException {
+		String theId = checkKey(aId, "Contact identifier");
+
+		LockSet theLocks = new LockSet();
+		theLocks.add(CONTACT, theId);
+		theLocks.lock();
+		try {
+			RegistryContact theCopy = (RegistryContact) getObject(this.contacts, theId, "Contact").clone();
+			transfer(theCopy, aClientId, aOp, aAuthInfo);
+
+			if (!EPPCommand.OP_QUERY.equals(aOp)) {
+				this.store(this.contacts, theId, theCopy);
+			}
+
+			RegistryContact theResult = (RegistryContact) theCopy.clone();
+			hideAuthInfo(theResult, aClientId, aAuthInfo);
+
+			return theResult;
+		}
+		finally {
+			theLocks.unlock();
+		}
+	}
+
+	/**
+	 * Applies a transfer operation to the copy of an object.
+	 *
+	 * @param aCopy Copy of the object to modify
+	 * @param aClientId Identifier of the client
+	 * @param aOp Transfer operation, one of the <code>EPPCommand.OP</code>
+	 *        constants
+	 * @param aAuthInfo Authorization information of the command or
+	 *        <code>null</code>
+	 *
+	 * @return <code>true</code> if the transfer was approved;
+	 *         <code>false</code> otherwise.
+	 *
+	 * @exception RegistryException If the transfer operation is not allowed
+	 */
+	private static boolean transfer(RegistryObject aCopy, String aClientId, String aOp, String aAuthInfo)
+			throws RegistryException {
+		long theNow = System.currentTimeMillis();
+
+		if (EPPCommand.OP_REQUEST.equals(aOp)) {
+			if (aCopy.isTransferPending()) {
+				throw new RegistryException(EPPResult.OBJECT_PENDING_TRANSFER, aCopy.getKey()
+						+ " has a pending transfer");
+			}
+			if (aCopy.getClientId().equals(aClientId)) {
+				throw new RegistryException(EPPResult.NOT_TRANSFERABLE, aCopy.getKey()
+						+ " is already sponsored by " + aClientId);
+			}
+			if (aCopy.hasStatus(RegistryObject.CLIENT_TRANSFER_PROHIBITED | RegistryObject.SERVER_TRANSFER_PROHIBITED)) {
+				throw new RegistryException(EPPResult.STATUS_PROHIBITS_OP, "Status of " + aCopy.getKey()
+						+ " prohibits transfer");
+			}
+			if (aAuthInfo == null || !aAuthInfo.equals(aCopy.getAuthInfo())) {
+				throw new RegistryException(EPPResult.INVALID_AUTHORIZATION_INFO,
+						"Invalid authorization information for " + aCopy.getKey());
+			}
+			aCopy.setTransferStatus(EPPResponse.TRANSFER_PENDING);
+			aCopy.setRequestClient(aClientId);
+			aCopy.setRequestDate(new Date(theNow));
+			aCopy.setActionClient(aCopy.getClientId());
+			aCopy.setActionDate(new Date(theNow + TRANSFER_ACTION_TIME));
+
+			return false;
+		}
+		else if (EPPCommand.OP_QUERY.equals(aOp)) {
+			if (aCopy.getTransferStatus() == null) {
+				throw new RegistryException(EPPResult.OBJECT_NOT_PENDING_TRANSFER, aCopy.getKey()
+						+ " was never requested for transfer");
+			}
+			if (!aClientId.equals(aCopy.getClientId()) && !aClientId.equals(aCopy.getRequestClient())
+					&& (aAuthInfo == null || !aAuthInfo.equals(aCopy.getAuthInfo()))) {
+				throw new RegistryException(EPPResult.AUTHORIZATION_ERROR, "Transfer of " + aCopy.getKey()
+						+ " is not visible to " + aClientId);
+			}
+
+			return false;
+		}
+		else if (EPPCommand.OP_APPROVE.equals(aOp) || EPPCommand.OP_REJECT.equals(aOp)
+				|| EPPCommand.OP_CANCEL.equals(aOp)) {
+			if (!aCopy.isTransferPending()) {
+				throw new RegistryException(EPPResult.OBJECT_NOT_PENDING_TRANSFER, aCopy.getKey()
+						+ " has no pending transfer");
+			}
+			String theActor = EPPCommand.OP_CANCEL.equals(aOp) ? aCopy.getRequestClient() : aCopy.getClientId();
+			if (!aClientId.equals(theActor)) {
+				throw new RegistryException(EPPResult.AUTHORIZATION_ERROR, aClientId + " cannot " + aOp
+						+ " the transfer of " + aCopy.getKey());
+			}
+			aCopy.setActionClient(aClientId);
+			aCopy.setActionDate(new Date(theNow));
+
+			if (EPPCommand.OP_APPROVE.equals(aOp)) {
+				aCopy.setTransferStatus(EPPResponse.TRANSFER_CLIENT_APPROVED);
+				aCopy.setClientId(aCopy.getRequestClient());
+				aCopy.setTransferDate(new Date(theNow));
+
+				return true;
+			}
+			aCopy.setTransferStatus(EPPCommand.OP_REJECT.equals(aOp) ? EPPResponse.TRANSFER_CLIENT_REJECTED
+					: EPPResponse.TRANSFER_CLIENT_CANCELLED);
+
+			return false;
+		}
+		else {
+			throw new RegistryException(EPPResult.PARAM_VALUE_POLICY_ERROR, "Unknown transfer operation " + aOp);
+		}
+	}
+
+	/**
+	 * Sets the attributes of a new object that are set by the
+	 * <code>Registry</code>.
+	 *
+	 * @param aObject New object
+	 * @param aRoidPrefix Prefix of the ROID
+	 * @param aClientId Identifier of the creating client
+	 * @param aNow Creation time in milliseconds
+	 */
+	private void initObject(RegistryObject aObject, String aRoidPrefix, String aClientId, long aNow) {
+		aObject.setRoid(aRoidPrefix + this.roidSequence.incrementAndGet() + "-STUB");
+		aObject.setClientId(aClientId);
+		aObject.setCreatedBy(aClientId);
+		aObject.setCreatedDate(new Date(aNow));
+		aObject.setUpdatedBy(null);
+		aObject.setUpdatedDate(null);
+		aObject.setTransferDate(null);
+		aObject.setStatusBits(0);
+		aObject.setTransferStatus(null);
+		aObject.setRequestClient(null);
+		aObject.setRequestDate(null);
+		aObject.setActionClient(null);
+		aObject.setActionDate(null);
+		aObject.setLinkCount(0);
+	}
+
+	/**
+	 * Finds the superordinate domain of a host name, which is the longest
+	 * parent domain of the <code>Registry</code>.  The parent domains must be
+	 * locked.
+	 *
+	 * @param aHostName Host name in lower case
+	 * @param aClientId Identifier of the client, which must sponsor the
+	 *        superordinate domain
+	 *
+	 * @return Superordinate domain or <code>null</code> for an external host
+	 *
+	 * @exception RegistryException With <code>EPPResult.AUTHORIZATION_ERROR</code>
+	 *            if the superordinate domain is sponsored by another client
+	 */
+	private RegistryDomain findSuperordinate(String aHostName, String aClientId) throws RegistryException {
+		for (String theParent : getParentNames(aHostName)) {
+			RegistryDomain theDomain = this.domains.get(theParent);
+			if (theDomain != null) {
+				if (!theDomain.getClientId().equals(aClientId)) {
+					throw new RegistryException(EPPResult.AUTHORIZATION_ERROR, "Superordinate domain " + theParent
+							+ " of " + aHostName + " is not sponsored by " + aClientId);
+				}
+
+				return theDomain;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Adds a subordinate host to a locked domain.
+	 *
+	 * @param aDomain Superordinate domain or <code>null</code>
+	 * @param aHostName Host name in lower case
+	 */
+	private void addSubordinate(RegistryDomain aDomain, String aHostName) {
+		if (aDomain != null) {
+			RegistryDomain theCopy = (RegistryDomain) this.domains.get(aDomain.getName()).clone();
+			theCopy.getHosts().add(aHostName);
+			this.store(this.domains, theCopy.getName(), theCopy);
+		}
+	}
+
+	/**
+	 * Removes a subordinate host from a locked domain.
+	 *
+	 * @param aDomainName Superordinate domain name or <code>null</code>
+	 * @param aHostName Host name in lower case
+	 */
+	private void removeSubordinate(String aDomainName, String aHostName) {
+		if (aDomainName != null) {
+			RegistryDomain theCopy = (RegistryDomain) this.domains.get(aDomainName).clone();
+			theCopy.getHosts().remove(aHostName);
+			this.store(this.domains, aDomainName, theCopy);
+		}
+	}
+
+	/**
+	 * Stores a locked object and adds it to the journal.  The changes of a
+	 * command are appended to the journal after they are stored, when the
+	 * <code>LockSet</code> is unlocked, so a snapshot started after the
+	 * journal record of an object includes the object or a later version.
+	 *
+	 * @param aObjects Map of the objects
+	 * @param aKey Key of the object
+	 * @param aObject Object to store, which must not be modified afterwards
+	 */
+	private <T extends RegistryObject> void store(ConcurrentHashMap<String, T> aObjects, String aKey, T aObject) {
+		aObjects.put(aKey, aObject);
+
+		RegistryJournal theJournal = this.journal;
+		if (theJournal != null) {
+			theJournal.logPut(aObject);
+		}
+	}
+
+	/**
+	 * Removes a locked object and adds the removal to the journal.
+	 *
+	 * @param aObjects Map of the objects
+	 * @param aKey Key of the object
+	 */
+	private <T extends RegistryObject> void discard(ConcurrentHashMap<String, T> aObjects, String aKey) {
+		T theObject = aObjects.remove(aKey);
+
+		RegistryJournal theJournal = this.journal;
+		if (theJournal != null && theObject != null) {
+			theJournal.logRemove(theObject);
+		}
+	}
+
+	/**
+	 * Adds a delta to the link count of locked objects.
+	 *
+	 * @param aObjects Map of the objects
+	 * @param aKeys Keys of the objects
+	 * @param aDelta Delta to add
+	 */
+	@SuppressWarnings("unchecked")
+	private <T extends RegistryObject> void link(ConcurrentHashMap<String, T> aObjects,
+			Collection<String> aKeys, int aDelta) {
+		for (String theKey : aKeys) {
+			T theCopy = (T) aObjects.get(theKey).clone();
+			theCopy.setLinkCount(theCopy.getLinkCount() + aDelta);
+			this.store(aObjects, theKey, theCopy);
+		}
+	}
+
+	/**
+	 * Gets an object that must exist.
+	 *
+	 * @param aObjects Map of the objects
+	 * @param aKey Key of the object
+	 * @param aType Type of the object for the error description
+	 *
+	 * @return Stored object, which must not be modified
+	 *
+	 * @exception RegistryException With <code>EPPResult.OBJECT_DOES_NOT_EXIST</code>
+	 */
+	private static <T extends RegistryObject> T getObject(ConcurrentHashMap<String, T> aObjects, String aKey,
+			String aType) throws RegistryException {
+		T theObject = aKey == null ? null : aObjects.get(aKey);
+		if (theObject == null) {
+			throw new RegistryException(EPPResult.OBJECT_DOES_NOT_EXIST, aType + " " + aKey + " does not exist");
+		}
+
+		return theObject;
+	}
+
+	/**
+	 * Checks that a key is set.
+	 *
+	 * @param aKey Key of an object
+	 * @param aDescription Description of the key for the error description
+	 *
+	 * @return <code>aKey</code>
+	 *
+	 * @exception RegistryException With <code>EPPResult.MISSING_PARAMETER</code>
+	 */
+	private static String checkKey(String aKey, String aDescription) throws RegistryException {
+		if (aKey == null || aKey.length() == 0) {
+			throw new RegistryException(EPPResult.MISSING_PARAMETER, aDescription + " is missing");
+		}
+
+		return aKey;
+	}
+
+	/**
+	 * Checks that an object is sponsored by the client.
+	 *
+	 * @param aObject Object to check
+	 * @param aClientId Identifier of the client
+	 *
+	 * @exception RegistryException With <code>EPPResult.AUTHORIZATION_ERROR</code>
+	 */
+	private static void checkSponsor(RegistryObject aObject, String aClientId) throws RegistryException {
+		if (!aObject.getClientId().equals(aClientId)) {
+			throw new RegistryException(EPPResult.AUTHORIZATION_ERROR, aObject.getKey() + " is not sponsored by "
+					+ aClientId);
+		}
+	}
+
+	/**
+	 * Checks that the statuses of an object and a pending transfer do not
+	 * prohibit an operation.
+	 *
+	 * @param aObject Object to check
+	 * @param aStatusBits Status bits that prohibit the operation
+	 * @param aOp Operation for the error description
+	 *
+	 * @exception RegistryException With <code>EPPResult.STATUS_PROHIBITS_OP</code>
+	 */
+	private static void checkStatus(RegistryObject aObject, int aStatusBits, String aOp) throws RegistryException {
+		if (aObject.hasStatus(aStatusBits) || aObject.isTransferPending()) {
+			throw new RegistryException(EPPResult.STATUS_PROHIBITS_OP, "Status of " + aObject.getKey()
+					+ " prohibits " + aOp);
+		}
+	}
+
+	/**
+	 * Checks the statuses of an update, where <code>clientUpdateProhibited</code>
+	 * can be removed by the update, and the statuses to add must not be set
+	 * and the statuses to remove must be set.
+	 *
+	 * @param aObject Object to update
+	 * @param aAddBits Status bits to add
+	 * @param aRemoveBits Status bits to remove
+	 *
+	 * @exception RegistryException If the update is not allowed
+	 */
+	private static void checkUpdateStatus(RegistryObject aObject, int aAddBits, int aRemoveBits)
+			throws RegistryException {
+		int theBits = RegistryObject.SERVER_UPDATE_PROHIBITED;
+		if ((aRemoveBits & RegistryObject.CLIENT_UPDATE_PROHIBITED) == 0) {
+			theBits |= RegistryObject.CLIENT_UPDATE_PROHIBITED;
+		}
+		checkStatus(aObject, theBits, "update");
+
+		if (((aAddBits | aRemoveBits) & ~CLIENT_STATUSES) != 0) {
+			throw new RegistryException(EPPResult.PARAM_VALUE_POLICY_ERROR, "Only client statuses can be updated");
+		}
+		if ((aObject.getStatusBits() & aAddBits) != 0 || (aObject.getStatusBits() & aRemoveBits) != aRemoveBits) {
+			throw new RegistryException(EPPResult.PARAM_VALUE_POLICY_ERROR, "Statuses to add are set or statuses to "
+					+ "remove are not set on " + aObject.getKey());
+		}
+	}
+
+	/**
+	 * Checks that a host outside of the domains of the <code>Registry</code>
+	 * has no IP addresses.
+	 *
+	 * @param aHost Host to check
+	 * @param aSuperordinate Superordinate domain or <code>null</code>
+	 *
+	 * @exception RegistryException With <code>EPPResult.PARAM_VALUE_POLICY_ERROR</code>
+	 */
+	private static void checkExternalAddresses(RegistryHost aHost, RegistryDomain aSuperordinate)
+			throws RegistryException {
+		if (aSuperordinate == null && !aHost.getAddresses().isEmpty()) {
+			throw new RegistryException(EPPResult.PARAM_VALUE_POLICY_ERROR, "External host " + aHost.getName()
+					+ " cannot have addresses");
+		}
+	}
+
+	/**
+	 * Checks that a list has no duplicate values.
+	 *
+	 * @param aValues Values to check
+	 * @param aDescription Description of the values for the error description
+	 *
+	 * @exception RegistryException With <code>EPPResult.PARAM_VALUE_POLICY_ERROR</code>
+	 */
+	private static void checkDuplicates(List<String> aValues, String aDescription) throws RegistryException {
+		if (new HashSet<String>(aValues).size() != aValues.size()) {
+			throw new RegistryException(EPPResult.PARAM_VALUE_POLICY_ERROR, aDescription + " is duplicated in "
+					+ aValues);
+		}
+	}
+
+	/**
+	 * Checks a registration period.
+	 *
+	 * @param aPeriod Period in months
+	 *
+	 * @exception RegistryException With <code>EPPResult.PARAM_OUT_OF_RANGE</code>
+	 */
+	private static void checkPeriod(int aPeriod) throws RegistryException {
+		if (aPeriod < 1 || aPeriod > MAX_PERIOD) {
+			throw new RegistryException(EPPResult.PARAM_OUT_OF_RANGE, "Period of " + aPeriod
+					+ " months is out of range");
+		}
+	}
+
+	/**
+	 * Clears the authorization information of an object when the client is
+	 * not the sponsoring client and does not provide it.
+	 *
+	 * @param aObject Copy of the object
+	 * @param aClientId Identifier of the client
+	 * @param aAuthInfo Authorization information of the command or
+	 *        <code>null</code>
+	 */
+	private static void hideAuthInfo(RegistryObject aObject, String aClientId, String aAuthInfo) {
+		if (!aObject.getClientId().equals(aClientId)
+				&& (aAuthInfo == null || !aAuthInfo.equals(aObject.getAuthInfo()))) {
+			aObject.setAuthInfo(null);
+		}
+	}
+
+	/**
+	 * Gets the identifiers of the registrant and contacts of a domain.
+	 *
+	 * @param aDomain Domain
+	 *
+	 * @return Set of contact identifiers
+	 */
+	private static Set<String> getContactIds(RegistryDomain aDomain) {
+		Set<String> theIds = new LinkedHashSet<String>();
+		if (aDomain.getRegistrant() != null) {
+			theIds.add(aDomain.getRegistrant());
+		}
+		for (RegistryDomain.Contact theContact : aDomain.getContacts()) {
+			theIds.add(theContact.getId());
+		}
+
+		return theIds;
+	}
+
+	/**
+	 * Gets the parent domain names of a host name, from the longest to the
+	 * shortest.
+	 *
+	 * @param aHostName Host name in lower case
+	 *
+	 * @return List of parent domain names
+	 */
+	private static List<String> getParentNames(String aHostName) {
+		List<String> theParents = new ArrayList<String>();
+
+		for (int theDot = aHostName.indexOf('.'); theDot != -1; theDot = aHostName.indexOf('.', theDot + 1)) {
+			if (theDot + 1 < aHostName.length()) {
+				theParents.add(aHostName.substring(theDot + 1));
+			}
+		}
+
+		return theParents;
+	}
+
+	/**
+	 * Gets the values of a set that are not in another set.
+	 *
+	 * @param aSet Set of values
+	 * @param aOther Values to exclude
+	 *
+	 * @return Values of <code>aSet</code> that are not in <code>aOther</code>
+	 */
+	private static Set<String> difference(Set<String> aSet, Set<String> aOther) {
+		Set<String> theResult = new HashSet<String>(aSet);
+		theResult.removeAll(aOther);
+
+		return theResult;
+	}
+
+	/**
+	 * Adds months to a time in UTC.
+	 *
+	 * @param aMillis Time in milliseconds
+	 * @param aMonths Number of months
+	 *
+	 * @return Time in milliseconds
+	 */
+	private static long addMonths(long aMillis, int aMonths) {
+		Calendar theCal = Calendar.getInstance(UTC);
+		theCal.setTimeInMillis(aMillis);
+		theCal.add(Calendar.MONTH, aMonths);
+
+		return theCal.getTimeInMillis();
+	}
+
+	/**
+	 * Gets the UTC day of a time.
+	 *
+	 * @param aMillis Time in milliseconds
+	 *
+	 * @return Number of days since the epoch
+	 */
+	private static long toDay(long aMillis) {
+		return Math.floorDiv(aMillis, 24L * 60 * 60 * 1000);
+	}
+
+}
+
+// End class Registry
@@ -0,0 +1,345 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.serverstub;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Contact stored in the <code>Registry</code>.
+ */
+public class RegistryContact extends RegistryObject {
+
+	/**
+	 * Postal information of a contact, with a <code>loc</code> or
+	 * <code>int</code> type.  A <code>PostalInfo</code> is immutable.
+	 */
+	public static class PostalInfo {
+
+		/** Type, <code>loc</code> or <code>int</code> */
+		private String type;
+
+		/** Name of the individual or role */
+		private String name;
+
+		/** Organization or <code>null</code> */
+		private String org;
+
+		/** Street lines */
+		private List<String> streets;
+
+		/** City */
+		private String city;
+
+		/** State or province or <code>null</code> */
+		private String stateProvince;
+
+		/** Postal code or <code>null</code> */
+		private String postalCode;
+
+		/** Country code */
+		private String countryCode;
+
+		/**
+		 * Constructs a <code>PostalInfo</code> with all of the attributes.
+		 *
+		 * @param aType Type, <code>loc</code> or <code>int</code>
+		 * @param aName Name of the individual or role
+		 * @param aOrg Organization or <code>null</code>
+		 * @param aStreets Street lines or <code>null</code>
+		 * @param aCity City
+		 * @param aStateProvince State or province or <code>null</code>
+		 * @param aPostalCode Postal code or <code>null</code>
+		 * @param aCountryCode Country code
+		 */
+		public PostalInfo(String aType, String aName, String aOrg, List<String> aStreets, String aCity,
+				String aStateProvince, String aPostalCode, String aCountryCode) {
+			this.type = aType;
+			this.name = aName;
+			this.org = aOrg;
+			this.streets = aStreets == null ? Collections.<String> emptyList() : Collections
+					.unmodifiableList(new ArrayList<String>(aStreets));
+			this.city = aCity;
+			this.stateProvince = aStateProvince;
+			this.postalCode = aPostalCode;
+			this.countryCode = aCountryCode;
+		}
+
+		/**
+		 * Gets the type.
+		 *
+		 * @return <code>loc</code> or <code>int</code>
+		 */
+		public String getType() {
+			return this.type;
+		}
+
+		/**
+		 * Gets the name of the individual or role.
+		 *
+		 * @return Name
+		 */
+		public String getName() {
+			return this.name;
+		}
+
+		/**
+		 * Gets the organization.
+		 *
+		 * @return Organization or <code>null</code>
+		 */
+		public String getOrg() {
+			return this.org;
+		}
+
+		/**
+		 * Gets the street lines.
+		 *
+		 * @return Unmodifiable list of street lines
+		 */
+		public List<String> getStreets() {
+			return this.streets;
+		}
+
+		/**
+		 * Gets the city.
+		 *
+		 * @return City
+		 */
+		public String getCity() {
+			return this.city;
+		}
+
+		/**
+		 * Gets the state or province.
+		 *
+		 * @return State or province or <code>null</code>
+		 */
+		public String getStateProvince() {
+			return this.stateProvince;
+		}
+
+		/**
+		 * Gets the postal code.
+		 *
+		 * @return Postal code or <code>null</code>
+		 */
+		public String getPostalCode() {
+			return this.postalCode;
+		}
+
+		/**
+		 * Gets the country code.
+		 *
+		 * @return Country code
+		 */
+		public String getCountryCode() {
+			return this.countryCode;
+		}
+
+	}
+
+	/** Contact identifier */
+	private String id;
+
+	/** Postal information */
+	private List<PostalInfo> postalInfo = new ArrayList<PostalInfo>();
+
+	/** Voice telephone number or <code>null</code> */
+	private String voice;
+
+	/** Voice telephone extension or <code>null</code> */
+	private String voiceExt;
+
+	/** Fax telephone number or <code>null</code> */
+	private String fax;
+
+	/** Fax telephone extension or <code>null</code> */
+	private String faxExt;
+
+	/** Email address */
+	private String email;
+
+	/**
+	 * Constructs an empty <code>RegistryContact</code>.
+	 */
+	public RegistryContact() {
+	}
+
+	/**
+	 * Constructs a <code>RegistryContact</code> with an identifier.
+	 *
+	 * @param aId Contact identifier
+	 */
+	public RegistryContact(String aId) {
+		this.id = aId;
+	}
+
+	/**
+	 * Gets the key of the contact in the <code>Registry</code>.
+	 *
+	 * @return Contact identifier
+	 */
+	public String getKey() {
+		return this.id;
+	}
+
+	/**
+	 * Gets the contact identifier.
+	 *
+	 * @return Contact identifier
+	 */
+	public String getId() {
+		return this.id;
+	}
+
+	/**
+	 * Sets the contact identifier.
+	 *
+	 * @param aId Contact identifier
+	 */
+	public void setId(String aId) {
+		this.id = aId;
+	}
+
+	/**
+	 * Gets the postal information.
+	 *
+	 * @return List of <code>PostalInfo</code> instances
+	 */
+	public List<PostalInfo> getPostalInfo() {
+		return this.postalInfo;
+	}
+
+	/**
+	 * Sets the postal information.
+	 *
+	 * @param aPostalInfo List of <code>PostalInfo</code> instances
+	 */
+	public void setPostalInfo(List<PostalInfo> aPostalInfo) {
+		this.postalInfo = new ArrayList<PostalInfo>(aPostalInfo);
+	}
+
+	/**
+	 * Gets the voice telephone number.
+	 *
+	 * @return Voice telephone number or <code>null</code>
+	 */
+	public String getVoice() {
+		return this.voice;
+	}
+
+	/**
+	 * Sets the voice telephone number.
+	 *
+	 * @param aVoice Voice telephone number
+	 */
+	public void setVoice(String aVoice) {
+		this.voice = aVoice;
+	}
+
+	/**
+	 * Gets the voice telephone extension.
+	 *
+	 * @return Voice telephone extension or <code>null</code>
+	 */
+	public String getVoiceExt() {
+		return this.voiceExt;
+	}
+
+	/**
+	 * Sets the voice telephone extension.
+	 *
+	 * @param aVoiceExt Voice telephone extension
+	 */
+	public void setVoiceExt(String aVoiceExt) {
+		this.voiceExt = aVoiceExt;
+	}
+
+	/**
+	 * Gets the fax telephone number.
+	 *
+	 * @return Fax telephone number or <code>null</code>
+	 */
+	public String getFax() {
+		return this.fax;
+	}
+
+	/**
+	 * Sets the fax telephone number.
+	 *
+	 * @param aFax Fax telephone number
+	 */
+	public void setFax(String aFax) {
+		this.fax = aFax;
+	}
+
+	/**
+	 * Gets the fax telephone extension.
+	 *
+	 * @return Fax telephone extension or <code>null</code>
+	 */
+	public String getFaxExt() {
+		return this.faxExt;
+	}
+
+	/**
+	 * Sets the fax telephone extension.
+	 *
+	 * @param aFaxExt Fax telephone extension
+	 */
+	public void setFaxExt(String aFaxExt) {
+		this.faxExt = aFaxExt;
+	}
+
+	/**
+	 * Gets the email address.
+	 *
+	 * @return Email address
+	 */
+	public String getEmail() {
+		return this.email;
+	}
+
+	/**
+	 * Sets the email address.
+	 *
+	 * @param aEmail Email address
+	 */
+	public void setEmail(String aEmail) {
+		this.email = aEmail;
+	}
+
+	/**
+	 * Creates a copy of the contact.
+	 *
+	 * @return Copy of the contact
+	 */
+	public Object clone() {
+		RegistryContact theClone = (RegistryContact) super.clone();
+		theClone.postalInfo = new ArrayList<PostalInfo>(this.postalInfo);
+
+		return theClone;
+	}
+
+}
+
+// End class RegistryContact
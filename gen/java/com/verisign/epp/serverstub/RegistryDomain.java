@@ -0,0 +1,295 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.serverstub;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Domain stored in the <code>Registry</code>.  The name servers are
+ * referenced by host name and must be hosts of the <code>Registry</code>,
+ * and the subordinate hosts are the hosts of the <code>Registry</code> that
+ * are in the domain.
+ */
+public class RegistryDomain extends RegistryObject {
+
+	/**
+	 * Contact of a domain with a contact type, like <code>admin</code>.
+	 */
+	public static class Contact {
+
+		/** Contact identifier */
+		private String id;
+
+		/** Contact type */
+		private String type;
+
+		/**
+		 * Constructs a <code>Contact</code> with a contact identifier and type.
+		 *
+		 * @param aId Contact identifier
+		 * @param aType Contact type, like <code>admin</code>
+		 */
+		public Contact(String aId, String aType) {
+			this.id = aId;
+			this.type = aType;
+		}
+
+		/**
+		 * Gets the contact identifier.
+		 *
+		 * @return Contact identifier
+		 */
+		public String getId() {
+			return this.id;
+		}
+
+		/**
+		 * Gets the contact type.
+		 *
+		 * @return Contact type, like <code>admin</code>
+		 */
+		public String getType() {
+			return this.type;
+		}
+
+		/**
+		 * Compares the contact identifier and type.
+		 *
+		 * @param aObject Object to compare with
+		 *
+		 * @return <code>true</code> if equal; <code>false</code> otherwise.
+		 */
+		public boolean equals(Object aObject) {
+			if (!(aObject instanceof Contact)) {
+				return false;
+			}
+			Contact theContact = (Contact) aObject;
+
+			return this.id.equals(theContact.id) && this.type.equals(theContact.type);
+		}
+
+		/**
+		 * Gets the hash code of the contact identifier and type.
+		 *
+		 * @return Hash code
+		 */
+		public int hashCode() {
+			return this.id.hashCode() * 31 + this.type.hashCode();
+		}
+
+	}
+
+	/** Domain name in lower case */
+	private String name;
+
+	/** Registrant contact identifier */
+	private String registrant;
+
+	/** Contacts of the domain */
+	private List<Contact> contacts = new ArrayList<Contact>();
+
+	/** Name server host names in lower case */
+	private List<String> servers = new ArrayList<String>();
+
+	/** Subordinate host names in lower case */
+	private List<String> hosts = new ArrayList<String>();
+
+	/** Expiration time in milliseconds */
+	private long expirationDate;
+
+	/** Number of months to add to the expiration of a pending transfer */
+	private int transferPeriod;
+
+	/**
+	 * Constructs an empty <code>RegistryDomain</code>.
+	 */
+	public RegistryDomain() {
+	}
+
+	/**
+	 * Constructs a <code>RegistryDomain</code> with a name.
+	 *
+	 * @param aName Domain name
+	 */
+	public RegistryDomain(String aName) {
+		this.setName(aName);
+	}
+
+	/**
+	 * Gets the key of the domain in the <code>Registry</code>.
+	 *
+	 * @return Domain name in lower case
+	 */
+	public String getKey() {
+		return this.name;
+	}
+
+	/**
+	 * Gets the domain name.
+	 *
+	 * @return Domain name in lower case
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * Sets the domain name, which is converted to lower case.
+	 *
+	 * @param aName Domain name
+	 */
+	public void setName(String aName) {
+		this.name = Registry.toKey(aName);
+	}
+
+	/**
+	 * Gets the registrant contact identifier.
+	 *
+	 * @return Registrant or <code>null</code> if not set
+	 */
+	public String getRegistrant() {
+		return this.registrant;
+	}
+
+	/**
+	 * Sets the registrant contact identifier.
+	 *
+	 * @param aRegistrant Registrant
+	 */
+	public void setRegistrant(String aRegistrant) {
+		this.registrant = aRegistrant;
+	}
+
+	/**
+	 * Gets the contacts of the domain.
+	 *
+	 * @return List of <code>Contact</code> instances
+	 */
+	public List<Contact> getContacts() {
+		return this.contacts;
+	}
+
+	/**
+	 * Adds a contact to the domain.
+	 *
+	 * @param aId Contact identifier
+	 * @param aType Contact type, like <code>admin</code>
+	 */
+	public void addContact(String aId, String aType) {
+		this.contacts.add(new Contact(aId, aType));
+	}
+
+	/**
+	 * Gets the name servers of the domain.
+	 *
+	 * @return List of host names in lower case
+	 */
+	public List<String> getServers() {
+		return this.servers;
+	}
+
+	/**
+	 * Adds a name server to the domain.
+	 *
+	 * @param aHostName Host name of the name server
+	 */
+	public void addServer(String aHostName) {
+		this.servers.add(Registry.toKey(aHostName));
+	}
+
+	/**
+	 * Gets the subordinate hosts of the domain, which are maintained by the
+	 * <code>Registry</code>.
+	 *
+	 * @return List of host names in lower case
+	 */
+	public List<String> getHosts() {
+		return this.hosts;
+	}
+
+	/**
+	 * Gets the expiration date.
+	 *
+	 * @return Expiration date
+	 */
+	public Date getExpirationDate() {
+		return toDate(this.expirationDate);
+	}
+
+	/**
+	 * Sets the expiration date.
+	 *
+	 * @param aDate Expiration date
+	 */
+	public void setExpirationDate(Date aDate) {
+		this.expirationDate = toMillis(aDate);
+	}
+
+	/**
+	 * Gets the number of months to add to the expiration of the domain when a
+	 * pending transfer is approved.
+	 *
+	 * @return Number of months
+	 */
+	public int getTransferPeriod() {
+		return this.transferPeriod;
+	}
+
+	/**
+	 * Sets the number of months to add to the expiration of the domain when a
+	 * pending transfer is approved.
+	 *
+	 * @param aTransferPeriod Number of months
+	 */
+	public void setTransferPeriod(int aTransferPeriod) {
+		this.transferPeriod = aTransferPeriod;
+	}
+
+	/**
+	 * Adds the <code>inactive</code> status when the domain has no name
+	 * servers.
+	 *
+	 * @param aStatuses Statuses to add to
+	 */
+	protected void addDerivedStatuses(List<String> aStatuses) {
+		if (this.servers.isEmpty()) {
+			aStatuses.add(STATUS_INACTIVE);
+		}
+	}
+
+	/**
+	 * Creates a copy of the domain.
+	 *
+	 * @return Copy of the domain
+	 */
+	public Object clone() {
+		RegistryDomain theClone = (RegistryDomain) super.clone();
+		theClone.contacts = new ArrayList<Contact>(this.contacts);
+		theClone.servers = new ArrayList<String>(this.servers);
+		theClone.hosts = new ArrayList<String>(this.hosts);
+
+		return theClone;
+	}
+
+}
+
+// End class RegistryDomain
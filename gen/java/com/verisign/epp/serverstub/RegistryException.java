@@ -0,0 +1,57 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.serverstub;
+
+import com.verisign.epp.exception.EPPException;
+
+/**
+ * Exception of a <code>Registry</code> operation that is rejected by the
+ * registry rules, which includes the EPP result code (one of the
+ * <code>EPPResult</code> constants) that the handler returns to the client.
+ */
+public class RegistryException extends EPPException {
+
+	/** EPP result code of the error */
+	private int code;
+
+	/**
+	 * Constructs a <code>RegistryException</code> with an EPP result code and
+	 * a description.
+	 *
+	 * @param aCode EPP result code, like <code>EPPResult.OBJECT_EXISTS</code>
+	 * @param aInfo Description of the error
+	 */
+	public RegistryException(int aCode, String aInfo) {
+		super(aInfo);
+		this.code = aCode;
+	}
+
+	/**
+	 * Gets the EPP result code of the error.
+	 *
+	 * @return One of the <code>EPPResult</code> constants
+	 */
+	public int getCode() {
+		return this.code;
+	}
+
+}
+
+// End class RegistryException
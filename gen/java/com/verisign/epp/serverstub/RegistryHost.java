@@ -0,0 +1,139 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.serverstub;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Host stored in the <code>Registry</code>.  A host in a domain of the
+ * <code>Registry</code> is an internal host that is sponsored by the client
+ * of the superordinate domain, and the other hosts are external hosts
+ * without IP addresses.
+ */
+public class RegistryHost extends RegistryObject {
+
+	/** Host name in lower case */
+	private String name;
+
+	/** IPv4 and IPv6 addresses */
+	private List<String> addresses = new ArrayList<String>();
+
+	/**
+	 * Name of the superordinate domain, or <code>null</code> for an external
+	 * host
+	 */
+	private String superordinate;
+
+	/**
+	 * Constructs an empty <code>RegistryHost</code>.
+	 */
+	public RegistryHost() {
+	}
+
+	/**
+	 * Constructs a <code>RegistryHost</code> with a name.
+	 *
+	 * @param aName Host name
+	 */
+	public RegistryHost(String aName) {
+		this.setName(aName);
+	}
+
+	/**
+	 * Gets the key of the host in the <code>Registry</code>.
+	 *
+	 * @return Host name in lower case
+	 */
+	public String getKey() {
+		return this.name;
+	}
+
+	/**
+	 * Gets the host name.
+	 *
+	 * @return Host name in lower case
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * Sets the host name, which is converted to lower case.
+	 *
+	 * @param aName Host name
+	 */
+	public void setName(String aName) {
+		this.name = Registry.toKey(aName);
+	}
+
+	/**
+	 * Gets the IP addresses of the host.
+	 *
+	 * @return List of IPv4 and IPv6 addresses
+	 */
+	public List<String> getAddresses() {
+		return this.addresses;
+	}
+
+	/**
+	 * Adds an IP address to the host.
+	 *
+	 * @param aAddress IPv4 or IPv6 address
+	 */
+	public void addAddress(String aAddress) {
+		this.addresses.add(aAddress);
+	}
+
+	/**
+	 * Gets the name of the superordinate domain, which is set by the
+	 * <code>Registry</code>.
+	 *
+	 * @return Domain name or <code>null</code> for an external host
+	 */
+	public String getSuperordinate() {
+		return this.superordinate;
+	}
+
+	/**
+	 * Sets the name of the superordinate domain.
+	 *
+	 * @param aSuperordinate Domain name or <code>null</code> for an external
+	 *        host
+	 */
+	void setSuperordinate(String aSuperordinate) {
+		this.superordinate = aSuperordinate;
+	}
+
+	/**
+	 * Creates a copy of the host.
+	 *
+	 * @return Copy of the host
+	 */
+	public Object clone() {
+		RegistryHost theClone = (RegistryHost) super.clone();
+		theClone.addresses = new ArrayList<String>(this.addresses);
+
+		return theClone;
+	}
+
+}
+
+// End class RegistryHost
@@ -0,0 +1,1653 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.serverstub;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+import org.apache.log4j.Logger;
+
+import com.verisign.epp.util.EPPCatFactory;
+import com.verisign.epp.util.Environment;
+
+/**
+ * Persists the domains, hosts, and contacts of a <code>Registry</code> in a
+ * binary snapshot and an append-only write-ahead log, so that the state of
+ * the Stub Server survives a restart.  Every object that the
+ * <code>Registry</code> stores or removes is appended to the log as a
+ * record with the complete object, so replaying a record is idempotent and
+ * does not depend on the rules of the <code>Registry</code> commands.<br>
+ * <br>
+ * A compaction starts a new log file and writes a snapshot of the
+ * <code>Registry</code> while the commands are processed, after which the
+ * older log files and snapshots are deleted.  The compaction is run in the
+ * background when the log files since the last snapshot exceed the
+ * compaction size, or with {@link #compact()}.  The snapshot is split in
+ * sections that store the repeated strings, like client identifiers and
+ * host names, once per section.  {@link #open()} loads the sections of the
+ * last snapshot in parallel and replays the log files after it.
+ * A log record that is incomplete or fails the CRC check, like the last
+ * record of a crash, is truncated with the rest of the log file.  The log
+ * records are written to the file without buffering, which survives a crash
+ * of the process; the log is only forced to disk on every write when
+ * <code>sync</code> is set.  When a record can not be written, the log file
+ * is truncated to the end of the last complete record and the journal stops
+ * persisting the changes, so the journal keeps the state before the failed
+ * change until the Stub Server is restarted.<br>
+ * <br>
+ * A snapshot can be generated without the Stub Server with
+ * {@link #main(String[])}, so that a test can start from a large set of
+ * domains without creating them with EPP commands.<br>
+ * <br>
+ * The journal is configured with the following properties when created
+ * with the default constructor (i.e. <code>EPP.Registry.journalDir</code>
+ * set for the Stub Server):<br>
+ * <br><ul>
+ * <li><code>EPP.Registry.journalDir</code> - (optional) Directory of the
+ * snapshot and log files.  Default is <code>registry-journal</code>.
+ * <li><code>EPP.Registry.compactSize</code> - (optional) Size in bytes of the
+ * log files that starts a compaction.  Default is 256 MB.
+ * <li><code>EPP.Registry.sync</code> - (optional) Force the log to disk on
+ * every write?  Default is <code>false</code>.
+ * </ul>
+ */
+public class RegistryJournal {
+
+	/** Default directory of the snapshot and log files */
+	public static final String DEFAULT_JOURNAL_DIR = "registry-journal";
+
+	/** Default size in bytes of the log files that starts a compaction */
+	public static final long DEFAULT_COMPACT_SIZE = 256L * 1024 * 1024;
+
+	/** Property prefix of the journal */
+	private static final String PROP_PREFIX = "EPP.Registry";
+
+	/** First integer of a snapshot */
+	private static final int SNAPSHOT_MAGIC = 0x45505052;
+
+	/** Format version of a snapshot */
+	private static final int SNAPSHOT_VERSION = 1;
+
+	/** Snapshot record of the end of the objects */
+	private static final byte TYPE_END = 0;
+
+	/** Record of a stored domain */
+	private static final byte TYPE_DOMAIN = 1;
+
+	/** Record of a stored host */
+	private static final byte TYPE_HOST = 2;
+
+	/** Record of a stored contact */
+	private static final byte TYPE_CONTACT = 3;
+
+	/** Log record of a removed domain */
+	private static final byte TYPE_REMOVE_DOMAIN = 4;
+
+	/** Log record of a removed host */
+	private static final byte TYPE_REMOVE_HOST = 5;
+
+	/** Log record of a removed contact */
+	private static final byte TYPE_REMOVE_CONTACT = 6;
+
+	/** Log record of the removal of all of the objects */
+	private static final byte TYPE_CLEAR = 7;
+
+	/**
+	 * Size of the log record header, which is the payload length and the
+	 * CRC32 of the payload.  The payload is the changes of a command, where
+	 * a change is the record type followed by the object or key.
+	 */
+	private static final int HEADER_SIZE = 8;
+
+	/** Number of objects in a snapshot section */
+	private static final int SECTION_OBJECTS = 64 * 1024;
+
+	/** Maximum number of strings that a snapshot section stores once */
+	private static final int MAX_SHARED_STRINGS = 64 * 1024;
+
+	/**
+	 * Encoding of the strings, which is given by name since the
+	 * <code>String</code> methods cache the encoder and decoder of a name
+	 */
+	private static final String UTF8 = "UTF-8";
+
+	/** File name prefix of the snapshots */
+	private static final String SNAPSHOT_PREFIX = "snapshot-";
+
+	/** File name suffix of the snapshots */
+	private static final String SNAPSHOT_SUFFIX = ".dat";
+
+	/** File name prefix of the log files */
+	private static final String LOG_PREFIX = "wal-";
+
+	/** File name suffix of the log files */
+	private static final String LOG_SUFFIX = ".log";
+
+	/** File name suffix of a snapshot that is being written */
+	private static final String TEMP_SUFFIX = ".tmp";
+
+	/** Number of contacts and hosts created by {@link #main(String[])} */
+	private static final int PRELOAD_OBJECTS = 1000;
+
+	/** Log4j category for logging */
+	private static Logger cat = Logger.getLogger(RegistryJournal.class.getName(), EPPCatFactory.getInstance()
+			.getFactory());
+
+	/**
+	 * Writes the objects of the snapshots and log records.  The strings
+	 * written with {@link #writeSharedString(String)} are written once and
+	 * then referenced by index when the encoder shares the strings.
+	 */
+	private static class Encoder {
+
+		/** Stream to write to */
+		private final DataOutputStream out;
+
+		/** Index of the shared strings or <code>null</code> if not shared */
+		private final Map<String, Integer> strings;
+
+		/**
+		 * Creates an encoder.
+		 *
+		 * @param aOut Stream to write to
+		 * @param aShared Write the shared strings once?
+		 */
+		Encoder(DataOutputStream aOut, boolean aShared) {
+			this.out = aOut;
+			this.strings = aShared ? new HashMap<String, Integer>() : null;
+		}
+
+		/**
+		 * Writes a non-negative integer in one to five bytes.
+		 *
+		 * @param aValue Integer to write
+		 *
+		 * @exception IOException Error writing the integer
+		 */
+		void writeInt(int aValue) throws IOException {
+			while ((aValue & ~0x7F) != 0) {
+				this.out.writeByte((aValue & 0x7F) | 0x80);
+				aValue >>>= 7;
+			}
+			this.out.writeByte(aValue);
+		}
+
+		/**
+		 * Writes a date as the time in milliseconds.
+		 *
+		 * @param aDate Date or <code>null</code>
+		 *
+		 * @exception IOException Error writing the date
+		 */
+		void writeDate(Date aDate) throws IOException {
+			this.out.writeLong(RegistryObject.toMillis(aDate));
+		}
+
+		/**
+		 * Writes a string as <code>0</code> for <code>null</code>, or the
+		 * length of the UTF-8 encoding plus <code>1</code> followed by the
+		 * encoding.
+		 *
+		 * @param aValue String or <code>null</code>
+		 *
+		 * @exception IOException Error writing the string
+		 */
+		void writeString(String aValue) throws IOException {
+			if (aValue == null) {
+				this.writeInt(0);
+			}
+			else {
+				// Most strings are ASCII, which is copied without the encoder
+				byte[] theBytes = new byte[aValue.length()];
+				for (int i = 0; i < theBytes.length; i++) {
+					char theChar = aValue.charAt(i);
+					if (theChar >= 0x80) {
+						theBytes = aValue.getBytes(UTF8);
+						break;
+					}
+					theBytes[i] = (byte) theChar;
+				}
+
+				this.writeInt(theBytes.length + 1);
+				this.out.write(theBytes);
+			}
+		}
+
+		/**
+		 * Writes a string that is likely repeated, as <code>0</code> for
+		 * <code>null</code>, <code>1</code> followed by the string for a new
+		 * string, or the index of the string plus <code>2</code>.
+		 *
+		 * @param aValue String or <code>null</code>
+		 *
+		 * @exception IOException Error writing the string
+		 */
+		void writeSharedString(String aValue) throws IOException {
+			if (aValue == null) {
+				this.writeInt(0);
+				return;
+			}
+
+			Integer theIndex = this.strings == null ? null : this.strings.get(aValue);
+			if (theIndex != null) {
+				this.writeInt(theIndex.intValue() + 2);
+				return;
+			}
+
+			this.writeInt(1);
+			this.writeString(aValue);
+			if (this.strings != null && this.strings.size() < MAX_SHARED_STRINGS) {
+				this.strings.put(aValue, Integer.valueOf(this.strings.size()));
+			}
+		}
+
+		/**
+		 * Writes a list of strings.
+		 *
+		 * @param aValues Strings to write
+		 * @param aShared Write the strings with
+		 *        {@link #writeSharedString(String)}?
+		 *
+		 * @exception IOException Error writing the strings
+		 */
+		void writeStrings(List<String> aValues, boolean aShared) throws IOException {
+			this.writeInt(aValues.size());
+			for (String theValue : aValues) {
+				if (aShared) {
+					this.writeSharedString(theValue);
+				}
+				else {
+					this.writeString(theValue);
+				}
+			}
+		}
+
+		/**
+		 * Writes the attributes that are common to the objects.
+		 *
+		 * @param aObject Object to write
+		 *
+		 * @exception IOException Error writing the object
+		 */
+		void writeObject(RegistryObject aObject) throws IOException {
+			this.writeString(aObject.getRoid());
+			this.writeSharedString(aObject.getClientId());
+			this.writeSharedString(aObject.getCreatedBy());
+			this.writeDate(aObject.getCreatedDate());
+			this.writeSharedString(aObject.getUpdatedBy());
+			this.writeDate(aObject.getUpdatedDate());
+			this.writeDate(aObject.getTransferDate());
+			this.writeSharedString(aObject.getAuthInfo());
+			this.writeInt(aObject.getStatusBits());
+			this.writeSharedString(aObject.getTransferStatus());
+			this.writeSharedString(aObject.getRequestClient());
+			this.writeDate(aObject.getRequestDate());
+			this.writeSharedString(aObject.getActionClient());
+			this.writeDate(aObject.getActionDate());
+			this.writeInt(aObject.getLinkCount());
+		}
+
+		/**
+		 * Writes a domain.
+		 *
+		 * @param aDomain Domain to write
+		 *
+		 * @exception IOException Error writing the domain
+		 */
+		void writeDomain(RegistryDomain aDomain) throws IOException {
+			this.writeObject(aDomain);
+			this.writeString(aDomain.getName());
+			this.writeSharedString(aDomain.getRegistrant());
+			this.writeInt(aDomain.getContacts().size());
+			for (RegistryDomain.Contact theContact : aDomain.getContacts()) {
+				this.writeSharedString(theContact.getId());
+				this.writeSharedString(theContact.getType());
+			}
+			this.writeStrings(aDomain.getServers(), true);
+			this.writeStrings(aDomain.getHosts(), false);
+			this.writeDate(aDomain.getExpirationDate());
+			this.writeInt(aDomain.getTransferPeriod());
+		}
+
+		/**
+		 * Writes a host.
+		 *
+		 * @param aHost Host to write
+		 *
+		 * @exception IOException Error writing the host
+		 */
+		void writeHost(RegistryHost aHost) throws IOException {
+			this.writeObject(aHost);
+			this.writeString(aHost.getName());
+			this.writeStrings(aHost.getAddresses(), false);
+			this.writeSharedString(aHost.getSuperordinate());
+		}
+
+		/**
+		 * Writes a contact.
+		 *
+		 * @param aContact Contact to write
+		 *
+		 * @exception IOException Error writing the contact
+		 */
+		void writeContact(RegistryContact aContact) throws IOException {
+			this.writeObject(aContact);
+			this.writeString(aContact.getId());
+			this.writeInt(aContact.getPostalInfo().size());
+			for (RegistryContact.PostalInfo theInfo : aContact.getPostalInfo()) {
+				this.writeSharedString(theInfo.getType());
+				this.writeString(theInfo.getName());
+				this.writeString(theInfo.getOrg());
+				this.writeStrings(theInfo.getStreets(), false);
+				this.writeString(theInfo.getCity());
+				this.writeSharedString(theInfo.getStateProvince());
+				this.writeString(theInfo.getPostalCode());
+				this.writeSharedString(theInfo.getCountryCode());
+			}
+			this.writeString(aContact.getVoice());
+			this.writeString(aContact.getVoiceExt());
+			this.writeString(aContact.getFax());
+			this.writeString(aContact.getFaxExt());
+			this.writeString(aContact.getEmail());
+		}
+
+	}
+
+	/**
+	 * Reads the objects written by an <code>Encoder</code> from a buffer,
+	 * where the <code>Decoder</code> shares the strings when the
+	 * <code>Encoder</code> did.  The shared strings are the same
+	 * <code>String</code> instance in the read objects.  A truncated buffer
+	 * throws a <code>BufferUnderflowException</code>.
+	 */
+	private static class Decoder {
+
+		/** Buffer to read from */
+		private final ByteBuffer in;
+
+		/** Shared strings by index or <code>null</code> if not shared */
+		private final List<String> strings;
+
+		/**
+		 * Creates a decoder.
+		 *
+		 * @param aIn Buffer to read from, which must be backed by an array
+		 * @param aShared Were the shared strings written once?
+		 */
+		Decoder(ByteBuffer aIn, boolean aShared) {
+			this.in = aIn;
+			this.strings = aShared ? new ArrayList<String>() : null;
+		}
+
+		/**
+		 * Reads an integer written by <code>Encoder.writeInt(int)</code>.
+		 *
+		 * @return Integer read
+		 *
+		 * @exception IOException Error reading the integer
+		 */
+		int readInt() throws IOException {
+			int theValue = 0;
+			for (int theShift = 0; theShift < 32; theShift += 7) {
+				int theByte = this.in.get() & 0xFF;
+				theValue |= (theByte & 0x7F) << theShift;
+				if ((theByte & 0x80) == 0) {
+					return theValue;
+				}
+			}
+			throw new IOException("Invalid integer encoding");
+		}
+
+		/**
+		 * Reads a date.
+		 *
+		 * @return Date or <code>null</code>
+		 *
+		 * @exception IOException Error reading the date
+		 */
+		Date readDate() throws IOException {
+			return RegistryObject.toDate(this.in.getLong());
+		}
+
+		/**
+		 * Reads a string.
+		 *
+		 * @return String or <code>null</code>
+		 *
+		 * @exception IOException Error reading the string
+		 */
+		String readString() throws IOException {
+			int theLength = this.readInt() - 1;
+			if (theLength < 0) {
+				return null;
+			}
+			if (theLength > this.in.remaining()) {
+				throw new BufferUnderflowException();
+			}
+
+			byte[] theArray = this.in.array();
+			int theStart = this.in.arrayOffset() + this.in.position();
+			this.in.position(this.in.position() + theLength);
+
+			// Most strings are ASCII, which is copied without the decoder
+			char[] theChars = new char[theLength];
+			for (int i = 0; i < theLength; i++) {
+				byte theByte = theArray[theStart + i];
+				if (theByte < 0) {
+					return new String(theArray, theStart, theLength, UTF8);
+				}
+				theChars[i] = (char) theByte;
+			}
+
+			return new String(theChars);
+		}
+
+		/**
+		 * Reads a string written by
+		 * <code>Encoder.writeSharedString(String)</code>.
+		 *
+		 * @return String or <code>null</code>
+		 *
+		 * @exception IOException Error reading the string
+		 */
+		String readSharedString() throws IOException {
+			int theTag = this.readInt();
+			if (theTag == 0) {
+				return null;
+			}
+			if (theTag > 1) {
+				if (this.strings == null || theTag - 2 >= this.strings.size()) {
+					throw new IOException("Invalid string index " + (theTag - 2));
+				}
+				return this.strings.get(theTag - 2);
+			}
+
+			String theValue = this.readString();
+			if (this.strings != null && this.strings.size() < MAX_SHARED_STRINGS) {
+				this.strings.add(theValue);
+			}
+
+			return theValue;
+		}
+
+		/**
+		 * Reads a list of strings.
+		 *
+		 * @param aValues List to add the strings to
+		 * @param aShared Read the strings with {@link #readSharedString()}?
+		 *
+		 * @exception IOException Error reading the strings
+		 */
+		void readStrings(List<String> aValues, boolean aShared) throws IOException {
+			for (int i = this.readInt(); i > 0; i--) {
+				aValues.add(aShared ? this.readSharedString() : this.readString());
+			}
+		}
+
+		/**
+		 * Reads the attributes that are common to the objects.
+		 *
+		 * @param aObject Object to set the attributes of
+		 *
+		 * @exception IOException Error reading the object
+		 */
+		void readObject(RegistryObject aObject) throws IOException {
+			aObject.setRoid(this.readString());
+			aObject.setClientId(this.readSharedString());
+			aObject.setCreatedBy(this.readSharedString());
+			aObject.setCreatedDate(this.readDate());
+			aObject.setUpdatedBy(this.readSharedString());
+			aObject.setUpdatedDate(this.readDate());
+			aObject.setTransferDate(this.readDate());
+			aObject.setAuthInfo(this.readSharedString());
+			aObject.setStatusBits(this.readInt());
+			aObject.setTransferStatus(this.readSharedString());
+			aObject.setRequestClient(this.readSharedString());
+			aObject.setRequestDate(this.readDate());
+			aObject.setActionClient(this.readSharedString());
+			aObject.setActionDate(this.readDate());
+			aObject.setLinkCount(this.readInt());
+		}
+
+		/**
+		 * Reads a domain.
+		 *
+		 * @return Domain read
+		 *
+		 * @exception IOException Error reading the domain
+		 */
+		RegistryDomain readDomain() throws IOException {
+			RegistryDomain theDomain = new RegistryDomain();
+			this.readObject(theDomain);
+			theDomain.setName(this.readString());
+			theDomain.setRegistrant(this.readSharedString());
+			for (int i = this.readInt(); i > 0; i--) {
+				theDomain.getContacts().add(
+						new RegistryDomain.Contact(this.readSharedString(), this.readSharedString()));
+			}
+			this.readStrings(theDomain.getServers(), true);
+			this.readStrings(theDomain.getHosts(), false);
+			theDomain.setExpirationDate(this.readDate());
+			theDomain.setTransferPeriod(this.readInt());
+
+			return theDomain;
+		}
+
+		/**
+		 * Reads a host.
+		 *
+		 * @return Host read
+		 *
+		 * @exception IOException Error reading the host
+		 */
+		RegistryHost readHost() throws IOException {
+			RegistryHost theHost = new RegistryHost();
+			this.readObject(theHost);
+			theHost.setName(this.readString());
+			this.readStrings(theHost.getAddresses(), false);
+			theHost.setSuperordinate(this.readSharedString());
+
+			return theHost;
+		}
+
+		/**
+		 * Reads a contact.
+		 *
+		 * @return Contact read
+		 *
+		 * @exception IOException Error reading the contact
+		 */
+		RegistryContact readContact() throws IOException {
+			RegistryContact theContact = new RegistryContact();
+			this.readObject(theContact);
+			theContact.setId(this.readString());
+			for (int i = this.readInt(); i > 0; i--) {
+				String theType = this.readSharedString();
+				String theName = this.readString();
+				String theOrg = this.readString();
+				List<String> theStreets = new ArrayList<String>();
+				this.readStrings(theStreets, false);
+				theContact.getPostalInfo().add(
+						new RegistryContact.PostalInfo(theType, theName, theOrg, theStreets, this.readString(), this
+								.readSharedString(), this.readString(), this.readSharedString()));
+			}
+			theContact.setVoice(this.readString());
+			theContact.setVoiceExt(this.readString());
+			theContact.setFax(this.readString());
+			theContact.setFaxExt(this.readString());
+			theContact.setEmail(this.readString());
+
+			return theContact;
+		}
+
+	}
+
+	/**
+	 * Log record of the changes of the current command of a thread.
+	 */
+	private static class Batch {
+
+		/** Header and changes of the record */
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+
+		/** Stream of <code>bytes</code> */
+		final DataOutputStream out = new DataOutputStream(this.bytes);
+
+		/** Encoder of the changes */
+		final Encoder encoder = new Encoder(this.out, false);
+
+		/**
+		 * Creates an empty record.
+		 */
+		Batch() {
+			this.reset();
+		}
+
+		/**
+		 * Removes the changes, which leaves the room for the header.
+		 */
+		void reset() {
+			this.bytes.reset();
+			this.bytes.write(new byte[HEADER_SIZE], 0, HEADER_SIZE);
+		}
+
+	}
+
+	/** Registry that is persisted */
+	private final Registry registry;
+
+	/** Directory of the snapshot and log files */
+	private final File journalDir;
+
+	/** Force the log to disk on every write? */
+	private final boolean sync;
+
+	/** Size in bytes of the log files that starts a compaction */
+	private final long compactSize;
+
+	/** Serializes the compactions */
+	private final Object compactLock = new Object();
+
+	/** Changes of the current command of each thread */
+	private final ThreadLocal<Batch> batches = new ThreadLocal<Batch>() {
+
+		protected Batch initialValue() {
+			return new Batch();
+		}
+	};
+
+	/** Generation of the current log file.  Guarded by <code>this</code>. */
+	private long generation;
+
+	/**
+	 * Stream of the current log file or <code>null</code> if the journal is
+	 * not open.  Guarded by <code>this</code>.
+	 */
+	private FileOutputStream logStream;
+
+	/**
+	 * Size in bytes of the log files since the last snapshot.  Guarded by
+	 * <code>this</code>.
+	 */
+	private long logSize;
+
+	/**
+	 * Size in bytes of the complete records of the current log file.
+	 * Guarded by <code>this</code>.
+	 */
+	private long logOffset;
+
+	/** Is a compaction requested?  Guarded by <code>this</code>. */
+	private boolean compactRequested;
+
+	/** Is the journal closed?  Guarded by <code>this</code>. */
+	private boolean closed;
+
+	/** Thread that runs the background compactions */
+	private Thread compactor;
+
+	/**
+	 * Creates the journal of the <code>Registry</code> of the Stub Server
+	 * with the <code>EPP.Registry</code> properties.
+	 */
+	public RegistryJournal() {
+		this(Registry.getInstance(), new File(Environment.getProperty(PROP_PREFIX + ".journalDir",
+				DEFAULT_JOURNAL_DIR).trim()), Boolean.valueOf(
+				Environment.getProperty(PROP_PREFIX + ".sync", "false").trim()).booleanValue(), getLongProperty(
+				"compactSize", DEFAULT_COMPACT_SIZE));
+	}
+
+	/**
+	 * Creates the journal of a <code>Registry</code>, which is loaded and
+	 * starts to persist the changes with {@link #open()}.
+	 *
+	 * @param aRegistry Registry to persist
+	 * @param aJournalDir Directory of the snapshot and log files, which is
+	 *        created if it does not exist
+	 * @param aSync Force the log to disk on every write?
+	 * @param aCompactSize Size in bytes of the log files that starts a
+	 *        compaction
+	 */
+	public RegistryJournal(Registry aRegistry, File aJournalDir, boolean aSync, long aCompactSize) {
+		this.registry = aRegistry;
+		this.journalDir = aJournalDir;
+		this.sync = aSync;
+		this.compactSize = aCompactSize;
+	}
+
+	/**
+	 * Loads the last snapshot and replays the log files into the
+	 * <code>Registry</code>, which should be empty, and persists the
+	 * following changes of the <code>Registry</code> in a new log file.
+	 *
+	 * @exception IOException Error reading the snapshot or the log files
+	 */
+	public void open() throws IOException {
+		if (!this.journalDir.isDirectory() && !this.journalDir.mkdirs()) {
+			throw new IOException("Unable to create journal directory " + this.journalDir);
+		}
+
+		long theStart = System.currentTimeMillis();
+
+		File[] theTempFiles = this.journalDir.listFiles(new FilenameFilter() {
+
+			public boolean accept(File aDir, String aName) {
+				return aName.endsWith(TEMP_SUFFIX);
+			}
+		});
+		for (File theFile : theTempFiles) {
+			theFile.delete();
+		}
+
+		long[] theSnapshots = this.getGenerations(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+		long theSnapshot = theSnapshots.length == 0 ? 0 : theSnapshots[theSnapshots.length - 1];
+		long theObjects = 0;
+		if (theSnapshot > 0) {
+			theObjects = this.loadSnapshot(this.getFile(SNAPSHOT_PREFIX, theSnapshot, SNAPSHOT_SUFFIX));
+		}
+
+		long theLast = theSnapshot;
+		long theRecords = 0;
+		long theSize = 0;
+		for (long theLog : this.getGenerations(LOG_PREFIX, LOG_SUFFIX)) {
+			if (theLog >= theSnapshot) {
+				File theFile = this.getFile(LOG_PREFIX, theLog, LOG_SUFFIX);
+				theRecords += this.replayLog(theFile);
+				theSize += theFile.length();
+				theLast = theLog;
+
+				// Do not keep the empty log of every restart
+				if (theFile.length() == 0) {
+					theFile.delete();
+				}
+			}
+		}
+
+		this.reclaim(theSnapshot);
+
+		synchronized (this) {
+			this.generation = theLast + 1;
+			this.logStream = new FileOutputStream(this.getFile(LOG_PREFIX, this.generation, LOG_SUFFIX));
+			this.logSize = theSize;
+			this.logOffset = 0;
+			this.closed = false;
+			this.compactRequested = theSize >= this.compactSize;
+		}
+		this.registry.setJournal(this);
+
+		this.compactor = new Thread(new Runnable() {
+
+			public void run() {
+				RegistryJournal.this.runCompactor();
+			}
+		}, "RegistryJournal-compactor");
+		this.compactor.setDaemon(true);
+		this.compactor.start();
+
+		cat.info("open(): Loaded " + theObjects + " objects and " + theRecords + " log records of "
+				+ this.journalDir + " in " + (System.currentTimeMillis() - theStart) + " ms");
+	}
+
+	/**
+	 * Writes a snapshot of the <code>Registry</code> and deletes the log
+	 * files and snapshots that are older than the snapshot.  The commands
+	 * are processed during the compaction, where the changes are appended
+	 * to a new log file that is replayed after the snapshot.
+	 *
+	 * @exception IOException Error writing the snapshot
+	 */
+	public void compact() throws IOException {
+		synchronized (this.compactLock) {
+			long theStart = System.currentTimeMillis();
+
+			long theGeneration;
+			synchronized (this) {
+				if (this.logStream == null) {
+					throw new IOException("Journal " + this.journalDir + " is not open");
+				}
+
+				FileOutputStream theLogStream = new FileOutputStream(this.getFile(LOG_PREFIX, this.generation + 1,
+						LOG_SUFFIX));
+				try {
+					this.logStream.close();
+				}
+				catch (IOException ex) {
+					cat.error("compact(): Error closing log " + this.generation + " of " + this.journalDir + ": "
+							+ ex);
+				}
+				this.logStream = theLogStream;
+				this.generation++;
+				this.logSize = 0;
+				this.logOffset = 0;
+				theGeneration = this.generation;
+			}
+
+			File theSnapshot = this.getFile(SNAPSHOT_PREFIX, theGeneration, SNAPSHOT_SUFFIX);
+			File theTempFile = new File(this.journalDir, theSnapshot.getName() + TEMP_SUFFIX);
+			long theObjects;
+			try {
+				theObjects = this.writeSnapshot(theTempFile);
+			}
+			catch (IOException ex) {
+				theTempFile.delete();
+				throw ex;
+			}
+			if (!theTempFile.renameTo(theSnapshot)) {
+				theTempFile.delete();
+				throw new IOException("Unable to rename " + theTempFile + " to " + theSnapshot);
+			}
+
+			this.reclaim(theGeneration);
+
+			cat.info("compact(): Wrote " + theSnapshot + " with " + theObjects + " objects in "
+					+ (System.currentTimeMillis() - theStart) + " ms");
+		}
+	}
+
+	/**
+	 * Stops persisting the changes of the <code>Registry</code>, after
+	 * waiting for a running compaction, and closes the log file.
+	 */
+	public void close() {
+		this.registry.setJournal(null);
+
+		synchronized (this) {
+			this.closed = true;
+			this.notifyAll();
+		}
+
+		if (this.compactor != null) {
+			try {
+				this.compactor.join();
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			this.compactor = null;
+		}
+
+		synchronized (this) {
+			if (this.logStream != null) {
+				try {
+					this.logStream.close();
+				}
+				catch (IOException ex) {
+					cat.error("close(): Error closing log " + this.generation + " of " + this.journalDir + ": " + ex);
+				}
+				this.logStream = null;
+			}
+		}
+	}
+
+	/**
+	 * Gets the size in bytes of the log files since the last snapshot.
+	 *
+	 * @return Size in bytes
+	 */
+	public synchronized long getLogSize() {
+		return this.logSize;
+	}
+
+	/**
+	 * Adds a stored object to the log record of the current command of the
+	 * thread, which is appended by {@link #commit()}.
+	 *
+	 * @param aObject Object that is stored
+	 */
+	void logPut(RegistryObject aObject) {
+		Batch theBatch = this.batches.get();
+
+		try {
+			if (aObject instanceof RegistryDomain) {
+				theBatch.out.writeByte(TYPE_DOMAIN);
+				theBatch.encoder.writeDomain((RegistryDomain) aObject);
+			}
+			else if (aObject instanceof RegistryHost) {
+				theBatch.out.writeByte(TYPE_HOST);
+				theBatch.encoder.writeHost((RegistryHost) aObject);
+			}
+			else {
+				theBatch.out.writeByte(TYPE_CONTACT);
+				theBatch.encoder.writeContact((RegistryContact) aObject);
+			}
+		}
+		catch (IOException ex) {
+			// Not thrown by a ByteArrayOutputStream
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	/**
+	 * Adds a removed object to the log record of the current command of the
+	 * thread, which is appended by {@link #commit()}.
+	 *
+	 * @param aObject Object that is removed
+	 */
+	void logRemove(RegistryObject aObject) {
+		Batch theBatch = this.batches.get();
+
+		byte theType = TYPE_REMOVE_CONTACT;
+		if (aObject instanceof RegistryDomain) {
+			theType = TYPE_REMOVE_DOMAIN;
+		}
+		else if (aObject instanceof RegistryHost) {
+			theType = TYPE_REMOVE_HOST;
+		}
+
+		try {
+			theBatch.out.writeByte(theType);
+			theBatch.encoder.writeString(aObject.getKey());
+		}
+		catch (IOException ex) {
+			// Not thrown by a ByteArrayOutputStream
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	/**
+	 * Appends the removal of all of the objects to the log.
+	 */
+	void logClear() {
+		this.batches.get().bytes.write(TYPE_CLEAR);
+		this.commit();
+	}
+
+	/**
+	 * Appends the changes of the current command of the thread to the log as
+	 * one record, so a command is replayed completely or not at all.  The
+	 * <code>Registry</code> commits while the changed objects are still
+	 * locked.
+	 */
+	void commit() {
+		Batch theBatch = this.batches.get();
+		if (theBatch.bytes.size() > HEADER_SIZE) {
+			byte[] theRecord = theBatch.bytes.toByteArray();
+			theBatch.reset();
+			this.append(theRecord);
+		}
+	}
+
+	/**
+	 * Appends a record to the current log file and requests a compaction
+	 * when the log files exceed the compaction size.  The change is already
+	 * made in the <code>Registry</code>, so an error writing the record is
+	 * logged and the journal is stopped with {@link #abandonLog()}, which
+	 * keeps a partial record from being followed by the later records.
+	 *
+	 * @param aRecord Record with room for the header followed by the payload
+	 */
+	private void append(byte[] aRecord) {
+		CRC32 theCrc = new CRC32();
+		theCrc.update(aRecord, HEADER_SIZE, aRecord.length - HEADER_SIZE);
+		ByteBuffer.wrap(aRecord).putInt(aRecord.length - HEADER_SIZE).putInt((int) theCrc.getValue());
+
+		synchronized (this) {
+			if (this.logStream == null) {
+				return;
+			}
+
+			try {
+				this.logStream.write(aRecord);
+				if (this.sync) {
+					this.logStream.getChannel().force(false);
+				}
+			}
+			catch (IOException ex) {
+				cat.error("append(): Error writing log " + this.generation + " of " + this.journalDir
+						+ ", journal stopped: " + ex);
+				this.abandonLog();
+				return;
+			}
+
+			this.logOffset += aRecord.length;
+			this.logSize += aRecord.length;
+			if (this.logSize >= this.compactSize && !this.compactRequested) {
+				this.compactRequested = true;
+				this.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Stops persisting the changes after an error writing the current log
+	 * file, by truncating the log file to the last complete record and
+	 * closing it.  Called with the lock of <code>this</code> held.
+	 */
+	private void abandonLog() {
+		try {
+			this.logStream.close();
+		}
+		catch (IOException ex) {
+			cat.error("abandonLog(): Error closing log " + this.generation + " of " + this.journalDir + ": " + ex);
+		}
+		this.logStream = null;
+
+		File theFile = this.getFile(LOG_PREFIX, this.generation, LOG_SUFFIX);
+		try {
+			RandomAccessFile theLog = new RandomAccessFile(theFile, "rw");
+			try {
+				theLog.setLength(this.logOffset);
+			}
+			finally {
+				theLog.close();
+			}
+		}
+		catch (IOException ex) {
+			cat.error("abandonLog(): Error truncating " + theFile + " to " + this.logOffset + " bytes: " + ex);
+		}
+	}
+
+	/**
+	 * Runs the compactions that are requested by {@link #append(byte[])}
+	 * until the journal is closed.
+	 */
+	private void runCompactor() {
+		for (;;) {
+			synchronized (this) {
+				while (!this.compactRequested && !this.closed) {
+					try {
+						this.wait();
+					}
+					catch (InterruptedException ex) {
+						return;
+					}
+				}
+				if (this.closed) {
+					return;
+				}
+			}
+
+			try {
+				this.compact();
+			}
+			catch (IOException ex) {
+				cat.error("runCompactor(): Error compacting " + this.journalDir + ": " + ex);
+			}
+			finally {
+				synchronized (this) {
+					this.compactRequested = false;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes a snapshot of the <code>Registry</code>, which is the snapshot
+	 * header (magic and version), the sections, and the trailer.  A section
+	 * is the length of its content followed by the object records and an
+	 * end record, so that the sections can be loaded in parallel.  The
+	 * trailer is a zero length followed by the number of the last
+	 * repository object identifier, which is read after the objects so it
+	 * covers every object of the snapshot.
+	 *
+	 * @param aFile Snapshot file to write
+	 *
+	 * @return Number of objects written
+	 *
+	 * @exception IOException Error writing the snapshot
+	 */
+	private long writeSnapshot(File aFile) throws IOException {
+		FileOutputStream theFile = new FileOutputStream(aFile);
+		try {
+			DataOutputStream theOut = new DataOutputStream(theFile);
+			theOut.writeInt(SNAPSHOT_MAGIC);
+			theOut.writeInt(SNAPSHOT_VERSION);
+
+			Section theSection = new Section(theOut);
+			for (RegistryContact theContact : this.registry.getContactMap().values()) {
+				theSection.next(TYPE_CONTACT).writeContact(theContact);
+			}
+			for (RegistryHost theHost : this.registry.getHostMap().values()) {
+				theSection.next(TYPE_HOST).writeHost(theHost);
+			}
+			for (RegistryDomain theDomain : this.registry.getDomainMap().values()) {
+				theSection.next(TYPE_DOMAIN).writeDomain(theDomain);
+			}
+			theSection.flush();
+
+			theOut.writeLong(0);
+			theOut.writeLong(this.registry.getRoidSequence());
+			theFile.getChannel().force(true);
+
+			return theSection.objects;
+		}
+		finally {
+			theFile.close();
+		}
+	}
+
+	/**
+	 * Section of a snapshot that is being written, which is encoded in memory
+	 * until it has <code>SECTION_OBJECTS</code> objects.
+	 */
+	private static class Section {
+
+		/** Stream of the snapshot file */
+		private final DataOutputStream out;
+
+		/** Content of the current section */
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024 * 1024);
+
+		/** Stream of <code>bytes</code> */
+		private final DataOutputStream bytesOut = new DataOutputStream(this.bytes);
+
+		/** Encoder of the current section */
+		private Encoder encoder;
+
+		/** Number of objects in the current section */
+		private int sectionObjects;
+
+		/** Number of objects in the snapshot */
+		long objects;
+
+		/**
+		 * Creates the section writer of a snapshot.
+		 *
+		 * @param aOut Stream of the snapshot file
+		 */
+		Section(DataOutputStream aOut) {
+			this.out = aOut;
+		}
+
+		/**
+		 * Starts the record of the next object, which writes the current
+		 * section when it is full.
+		 *
+		 * @param aType Record type of the object
+		 *
+		 * @return Encoder to write the object with
+		 *
+		 * @exception IOException Error writing the section
+		 */
+		Encoder next(byte aType) throws IOException {
+			if (this.sectionObjects == SECTION_OBJECTS) {
+				this.flush();
+			}
+			if (this.encoder == null) {
+				this.encoder = new Encoder(this.bytesOut, true);
+			}
+
+			this.bytesOut.writeByte(aType);
+			this.sectionObjects++;
+			this.objects++;
+
+			return this.encoder;
+		}
+
+		/**
+		 * Writes the current section with its length, if it has objects.
+		 *
+		 * @exception IOException Error writing the section
+		 */
+		void flush() throws IOException {
+			if (this.sectionObjects == 0) {
+				return;
+			}
+
+			this.bytesOut.writeByte(TYPE_END);
+			this.out.writeLong(this.bytes.size());
+			this.bytes.writeTo(this.out);
+
+			this.bytes.reset();
+			this.encoder = null;
+			this.sectionObjects = 0;
+		}
+
+	}
+
+	/**
+	 * Loads the objects of a snapshot into the <code>Registry</code>, where
+	 * the sections are loaded in parallel by a thread per processor.
+	 *
+	 * @param aFile Snapshot file to load
+	 *
+	 * @return Number of objects loaded
+	 *
+	 * @exception IOException Error reading the snapshot
+	 */
+	private long loadSnapshot(final File aFile) throws IOException {
+		FileInputStream theFile = new FileInputStream(aFile);
+		try {
+			final FileChannel theChannel = theFile.getChannel();
+
+			ByteBuffer theHeader = ByteBuffer.allocate(16);
+			readFully(theChannel, theHeader, 0, aFile);
+			if (theHeader.getInt(0) != SNAPSHOT_MAGIC || theHeader.getInt(4) != SNAPSHOT_VERSION) {
+				throw new IOException("Invalid snapshot " + aFile);
+			}
+
+			List<Callable<Long>> theSections = new ArrayList<Callable<Long>>();
+			long thePos = 8;
+			for (;;) {
+				theHeader.clear().limit(8);
+				readFully(theChannel, theHeader, thePos, aFile);
+				final long theLength = theHeader.getLong(0);
+				if (theLength == 0) {
+					theHeader.clear().limit(8);
+					readFully(theChannel, theHeader, thePos + 8, aFile);
+					this.registry.restoreRoidSequence(theHeader.getLong(0));
+					break;
+				}
+				if (theLength < 0 || theLength > Integer.MAX_VALUE) {
+					throw new IOException("Invalid section length " + theLength + " at " + thePos + " of " + aFile);
+				}
+
+				final long theSectionPos = thePos + 8;
+				theSections.add(new Callable<Long>() {
+
+					public Long call() throws IOException {
+						ByteBuffer theBuffer = ByteBuffer.allocate((int) theLength);
+						readFully(theChannel, theBuffer, theSectionPos, aFile);
+						theBuffer.flip();
+						return Long.valueOf(RegistryJournal.this.loadSection(theBuffer, aFile));
+					}
+				});
+				thePos = theSectionPos + theLength;
+			}
+
+			int theThreads = Math.max(1, Math.min(theSections.size(), Runtime.getRuntime().availableProcessors()));
+			ExecutorService theExecutor = Executors.newFixedThreadPool(theThreads);
+			try {
+				long theObjects = 0;
+				for (Future<Long> theResult : theExecutor.invokeAll(theSections)) {
+					theObjects += theResult.get().longValue();
+				}
+				return theObjects;
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted loading snapshot " + aFile);
+			}
+			catch (ExecutionException ex) {
+				if (ex.getCause() instanceof IOException) {
+					throw (IOException) ex.getCause();
+				}
+				throw new IOException("Error loading snapshot " + aFile + ": " + ex.getCause());
+			}
+			finally {
+				theExecutor.shutdown();
+			}
+		}
+		finally {
+			theFile.close();
+		}
+	}
+
+	/**
+	 * Loads the objects of a snapshot section into the <code>Registry</code>.
+	 *
+	 * @param aSection Content of the section
+	 * @param aFile Snapshot file for the error description
+	 *
+	 * @return Number of objects loaded
+	 *
+	 * @exception IOException Invalid section
+	 */
+	private long loadSection(ByteBuffer aSection, File aFile) throws IOException {
+		Decoder theDecoder = new Decoder(aSection, true);
+		long theObjects = 0;
+
+		try {
+			for (;;) {
+				byte theType = aSection.get();
+				switch (theType) {
+					case TYPE_DOMAIN:
+						RegistryDomain theDomain = theDecoder.readDomain();
+						this.registry.getDomainMap().put(theDomain.getKey(), theDomain);
+						break;
+					case TYPE_HOST:
+						RegistryHost theHost = theDecoder.readHost();
+						this.registry.getHostMap().put(theHost.getKey(), theHost);
+						break;
+					case TYPE_CONTACT:
+						RegistryContact theContact = theDecoder.readContact();
+						this.registry.getContactMap().put(theContact.getKey(), theContact);
+						break;
+					case TYPE_END:
+						return theObjects;
+					default:
+						throw new IOException("Invalid record type " + theType + " in " + aFile);
+				}
+				theObjects++;
+			}
+		}
+		catch (BufferUnderflowException ex) {
+			throw new IOException("Truncated section in " + aFile);
+		}
+	}
+
+	/**
+	 * Reads from a file channel until a buffer is full.
+	 *
+	 * @param aChannel Channel of the file
+	 * @param aBuffer Buffer to fill
+	 * @param aPos Position in the file to read from
+	 * @param aFile File for the error description
+	 *
+	 * @exception IOException Error reading or end of the file
+	 */
+	private static void readFully(FileChannel aChannel, ByteBuffer aBuffer, long aPos, File aFile)
+			throws IOException {
+		while (aBuffer.hasRemaining()) {
+			int theCount = aChannel.read(aBuffer, aPos);
+			if (theCount < 0) {
+				throw new IOException("Truncated snapshot " + aFile);
+			}
+			aPos += theCount;
+		}
+	}
+
+	/**
+	 * Replays the records of a log file up to the end of the file or the
+	 * first invalid record, where the log file is truncated.
+	 *
+	 * @param aFile Log file to replay
+	 *
+	 * @return Number of records replayed
+	 *
+	 * @exception IOException Error reading a record
+	 */
+	private long replayLog(File aFile) throws IOException {
+		long theRecords = 0;
+		int thePos = 0;
+		CRC32 theCrc = new CRC32();
+
+		ByteBuffer theBuffer;
+		FileInputStream theFile = new FileInputStream(aFile);
+		try {
+			long theLength = theFile.getChannel().size();
+			if (theLength > Integer.MAX_VALUE) {
+				throw new IOException("Log " + aFile + " is too large");
+			}
+			theBuffer = ByteBuffer.allocate((int) theLength);
+			readFully(theFile.getChannel(), theBuffer, 0, aFile);
+			theBuffer.flip();
+		}
+		finally {
+			theFile.close();
+		}
+
+		while (thePos + HEADER_SIZE <= theBuffer.limit()) {
+			int theSize = theBuffer.getInt(thePos);
+			if (theSize < 0 || theSize > theBuffer.limit() - thePos - HEADER_SIZE) {
+				break;
+			}
+
+			theCrc.reset();
+			theCrc.update(theBuffer.array(), thePos + HEADER_SIZE, theSize);
+			if ((int) theCrc.getValue() != theBuffer.getInt(thePos + 4)) {
+				break;
+			}
+
+			theBuffer.limit(thePos + HEADER_SIZE + theSize).position(thePos + HEADER_SIZE);
+			try {
+				this.replayRecord(theBuffer.slice());
+			}
+			catch (BufferUnderflowException ex) {
+				throw new IOException("Truncated record at " + thePos + " of " + aFile);
+			}
+			theBuffer.limit(theBuffer.capacity());
+
+			thePos += HEADER_SIZE + theSize;
+			theRecords++;
+		}
+
+		if (thePos < theBuffer.capacity()) {
+			cat.warn("replayLog(): Invalid record at " + thePos + " of " + aFile + ", truncating the log");
+
+			RandomAccessFile theRandomFile = new RandomAccessFile(aFile, "rw");
+			try {
+				theRandomFile.setLength(thePos);
+			}
+			finally {
+				theRandomFile.close();
+			}
+		}
+
+		return theRecords;
+	}
+
+	/**
+	 * Applies the changes of a log record to the <code>Registry</code>.
+	 *
+	 * @param aPayload Record payload
+	 *
+	 * @exception IOException Invalid record
+	 */
+	private void replayRecord(ByteBuffer aPayload) throws IOException {
+		Decoder theDecoder = new Decoder(aPayload, false);
+
+		while (aPayload.hasRemaining()) {
+			this.replayChange(aPayload.get(), theDecoder);
+		}
+	}
+
+	/**
+	 * Applies a change of a log record to the <code>Registry</code>.
+	 *
+	 * @param aType Record type of the change
+	 * @param aDecoder Decoder of the change
+	 *
+	 * @exception IOException Invalid change
+	 */
+	private void replayChange(byte aType, Decoder aDecoder) throws IOException {
+		switch (aType) {
+			case TYPE_DOMAIN:
+				RegistryDomain theDomain = aDecoder.readDomain();
+				this.registry.getDomainMap().put(theDomain.getKey(), theDomain);
+				this.registry.restoreRoid(theDomain.getRoid());
+				break;
+			case TYPE_HOST:
+				RegistryHost theHost = aDecoder.readHost();
+				this.registry.getHostMap().put(theHost.getKey(), theHost);
+				this.registry.restoreRoid(theHost.getRoid());
+				break;
+			case TYPE_CONTACT:
+				RegistryContact theContact = aDecoder.readContact();
+				this.registry.getContactMap().put(theContact.getKey(), theContact);
+				this.registry.restoreRoid(theContact.getRoid());
+				break;
+			case TYPE_REMOVE_DOMAIN:
+				this.registry.getDomainMap().remove(aDecoder.readString());
+				break;
+			case TYPE_REMOVE_HOST:
+				this.registry.getHostMap().remove(aDecoder.readString());
+				break;
+			case TYPE_REMOVE_CONTACT:
+				this.registry.getContactMap().remove(aDecoder.readString());
+				break;
+			case TYPE_CLEAR:
+				this.registry.getDomainMap().clear();
+				this.registry.getHostMap().clear();
+				this.registry.getContactMap().clear();
+				break;
+			default:
+				throw new IOException("Invalid log record type " + aType);
+		}
+	}
+
+	/**
+	 * Deletes the snapshots and log files that are older than a generation.
+	 *
+	 * @param aGeneration Generation of the last snapshot
+	 */
+	private void reclaim(long aGeneration) {
+		for (long theSnapshot : this.getGenerations(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+			if (theSnapshot < aGeneration) {
+				this.getFile(SNAPSHOT_PREFIX, theSnapshot, SNAPSHOT_SUFFIX).delete();
+			}
+		}
+		for (long theLog : this.getGenerations(LOG_PREFIX, LOG_SUFFIX)) {
+			if (theLog < aGeneration) {
+				this.getFile(LOG_PREFIX, theLog, LOG_SUFFIX).delete();
+			}
+		}
+	}
+
+	/**
+	 * Gets the generations of the snapshots or log files in increasing order.
+	 *
+	 * @param aPrefix File name prefix
+	 * @param aSuffix File name suffix
+	 *
+	 * @return Generations of the files
+	 */
+	private long[] getGenerations(final String aPrefix, final String aSuffix) {
+		File[] theFiles = this.journalDir.listFiles(new FilenameFilter() {
+
+			public boolean accept(File aDir, String aName) {
+				return aName.startsWith(aPrefix) && aName.endsWith(aSuffix);
+			}
+		});
+
+		long[] theGenerations = new long[theFiles == null ? 0 : theFiles.length];
+		for (int i = 0; i < theGenerations.length; i++) {
+			String theName = theFiles[i].getName();
+			theGenerations[i] = Long.parseLong(theName.substring(aPrefix.length(), theName.length()
+					- aSuffix.length()));
+		}
+		Arrays.sort(theGenerations);
+
+		return theGenerations;
+	}
+
+	/**
+	 * Gets a snapshot or log file.
+	 *
+	 * @param aPrefix File name prefix
+	 * @param aGeneration Generation of the file
+	 * @param aSuffix File name suffix
+	 *
+	 * @return File in the journal directory
+	 */
+	private File getFile(String aPrefix, long aGeneration, String aSuffix) {
+		return new File(this.journalDir, aPrefix + aGeneration + aSuffix);
+	}
+
+	/**
+	 * Gets a long property of the journal.
+	 *
+	 * @param aProperty Property name without the <code>EPP.Registry.</code> prefix
+	 * @param aDefault Default value if the property is not defined
+	 *
+	 * @return Property value
+	 */
+	private static long getLongProperty(String aProperty, long aDefault) {
+		String theValue = Environment.getOption(PROP_PREFIX + "." + aProperty);
+		if (theValue == null || theValue.length() == 0) {
+			return aDefault;
+		}
+
+		try {
+			return Long.parseLong(theValue);
+		}
+		catch (NumberFormatException ex) {
+			cat.error("getLongProperty(): Invalid " + PROP_PREFIX + "." + aProperty + " value " + theValue
+					+ ", using " + aDefault);
+			return aDefault;
+		}
+	}
+
+	/**
+	 * Creates contacts, hosts, and domains in a <code>Registry</code> for
+	 * the tests that need a large number of objects.  The contacts are
+	 * <code>PRELOAD&lt;n&gt;</code> and the hosts are
+	 * <code>ns&lt;n&gt;.preload.net</code>, with 1000 of each, and the domains
+	 * are <code>preload&lt;n&gt;.com</code> with a registrant, an admin and a
+	 * tech contact, and two name servers.  The authorization information of
+	 * the objects is <code>2fooBAR</code>.
+	 *
+	 * @param aRegistry Registry to create the objects in
+	 * @param aClientId Identifier of the sponsoring client
+	 * @param aDomains Number of domains to create
+	 *
+	 * @exception RegistryException Error creating an object, like an
+	 *            existing object
+	 */
+	public static void preload(Registry aRegistry, String aClientId, int aDomains) throws RegistryException {
+		for (int i = 0; i < PRELOAD_OBJECTS; i++) {
+			RegistryContact theContact = new RegistryContact("PRELOAD" + i);
+			theContact.getPostalInfo().add(
+					new RegistryContact.PostalInfo("int", "Preload Contact " + i, null, Arrays
+							.asList("21355 Ridgetop Circle"), "Dulles", "VA", "20166", "US"));
+			theContact.setVoice("+1.7035555555");
+			theContact.setEmail("preload" + i + "@preload.net");
+			theContact.setAuthInfo("2fooBAR");
+			aRegistry.createContact(aClientId, theContact);
+
+			aRegistry.createHost(aClientId, new RegistryHost("ns" + i + ".preload.net"));
+		}
+
+		for (int i = 0; i < aDomains; i++) {
+			String theContactId = "PRELOAD" + (i % PRELOAD_OBJECTS);
+
+			RegistryDomain theDomain = new RegistryDomain("preload" + i + ".com");
+			theDomain.setRegistrant(theContactId);
+			theDomain.addContact(theContactId, "admin");
+			theDomain.addContact(theContactId, "tech");
+			theDomain.addServer("ns" + (i % PRELOAD_OBJECTS) + ".preload.net");
+			theDomain.addServer("ns" + ((i + 1) % PRELOAD_OBJECTS) + ".preload.net");
+			theDomain.setAuthInfo("2fooBAR");
+			aRegistry.createDomain(aClientId, theDomain, 12);
+		}
+	}
+
+	/**
+	 * Writes a snapshot with the objects of {@link #preload(Registry, String, int)}
+	 * to an empty journal directory, which the Stub Server loads with the
+	 * <code>EPP.Registry.journalDir</code> property.  The arguments are the
+	 * journal directory, the number of domains, and optionally the client
+	 * identifier, which defaults to <code>ClientX</code>.
+	 *
+	 * @param aArgs Command line arguments
+	 *
+	 * @exception Exception Error creating the objects or writing the snapshot
+	 */
+	public static void main(String[] aArgs) throws Exception {
+		if (aArgs.length < 2 || aArgs.length > 3) {
+			System.err.println("Usage: java " + RegistryJournal.class.getName()
+					+ " <journalDir> <domains> [<clientId>]");
+			System.exit(1);
+		}
+
+		File theJournalDir = new File(aArgs[0]);
+		String[] theFiles = theJournalDir.list();
+		if (theFiles != null && theFiles.length > 0) {
+			System.err.println("Journal directory " + theJournalDir + " is not empty");
+			System.exit(1);
+		}
+
+		long theStart = System.currentTimeMillis();
+		Registry theRegistry = new Registry();
+		preload(theRegistry, aArgs.length == 3 ? aArgs[2] : "ClientX", Integer.parseInt(aArgs[1]));
+
+		RegistryJournal theJournal = new RegistryJournal(theRegistry, theJournalDir, false, DEFAULT_COMPACT_SIZE);
+		theJournal.open();
+		theJournal.compact();
+		theJournal.close();
+
+		System.out.println("Wrote " + theRegistry.getDomainCount() + " domains to " + theJournalDir + " in "
+				+ (System.currentTimeMillis() - theStart) + " ms");
+	}
+
+}
+
+// End class RegistryJournal
@@ -0,0 +1,390 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.serverstub;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import com.verisign.epp.codec.gen.EPPCommand;
+
+/**
+ * Is a unit test of the <code>RegistryJournal</code> class, which checks that
+ * a <code>Registry</code> loaded from the journal has the same state as the
+ * <code>Registry</code> that wrote the journal.
+ */
+public class RegistryJournalTst extends TestCase {
+
+	/** Journal directory of the test */
+	private File journalDir;
+
+	/**
+	 * Allocates a <code>RegistryJournalTst</code> with a logical name.
+	 *
+	 * @param name Logical name of the test
+	 */
+	public RegistryJournalTst(String name) {
+		super(name);
+	}
+
+	/**
+	 * Test the replay of the log records of the <code>Registry</code>
+	 * commands.
+	 */
+	public void testReplay() throws Exception {
+		Registry theRegistry = new Registry();
+		RegistryJournal theJournal = new RegistryJournal(theRegistry, this.journalDir, false,
+				RegistryJournal.DEFAULT_COMPACT_SIZE);
+		theJournal.open();
+
+		RegistryContact theContact = new RegistryContact("sh8013");
+		theContact.getPostalInfo().add(
+				new RegistryContact.PostalInfo("int", "J\u00f6hn Doe", "Example Inc.", Arrays.asList(
+						"123 Example Dr.", "Suite 100"), "Dulles", "VA", "20166-6503", "US"));
+		theContact.setVoice("+1.7035555555");
+		theContact.setEmail("jdoe@example.com");
+		theContact.setAuthInfo("2fooBAR");
+		theRegistry.createContact("ClientA", theContact);
+		theRegistry.createContact("ClientA", new RegistryContact("sh8014"));
+		theRegistry.createHost("ClientA", new RegistryHost("ns1.example.net"));
+
+		RegistryDomain theDomain = new RegistryDomain("example.com");
+		theDomain.setRegistrant("sh8013");
+		theDomain.addContact("sh8014", "admin");
+		theDomain.addServer("ns1.example.net");
+		theDomain.setAuthInfo("2fooBAR");
+		theRegistry.createDomain("ClientA", theDomain, 24);
+
+		RegistryHost theHost = new RegistryHost("ns1.example.com");
+		theHost.addAddress("192.0.2.1");
+		theHost.addAddress("2001:db8::1");
+		theRegistry.createHost("ClientA", theHost);
+
+		RegistryDomain theAdd = new RegistryDomain();
+		theAdd.addServer("ns1.example.com");
+		theAdd.setStatusBits(RegistryObject.CLIENT_HOLD);
+		theRegistry.updateDomain("ClientA", "example.com", theAdd, null, null);
+		theRegistry.renewDomain("ClientA", "example.com", theRegistry.getDomain("ClientA", "example.com", null)
+				.getExpirationDate(), 12);
+		theRegistry.transferDomain("ClientB", EPPCommand.OP_REQUEST, "example.com", "2fooBAR", 12);
+		theRegistry.transferDomain("ClientA", EPPCommand.OP_APPROVE, "example.com", null, 0);
+
+		theRegistry.createHost("ClientA", new RegistryHost("ns2.example.net"));
+		RegistryHost theChange = new RegistryHost("ns3.example.net");
+		theRegistry.updateHost("ClientA", "ns2.example.net", null, null, theChange);
+
+		theRegistry.createDomain("ClientA", new RegistryDomain("deleted.com"), 12);
+		theRegistry.deleteDomain("ClientA", "deleted.com");
+
+		Map<String, String> theState = getState(theRegistry);
+		theJournal.close();
+
+		Registry theLoaded = this.open(theState);
+		RegistryContact theNew = theLoaded.createContact("ClientA", new RegistryContact("sh8015"));
+		Assert.assertFalse(theState.toString().contains(theNew.getRoid() + "|"));
+	}
+
+	/**
+	 * Test loading a snapshot and the log records after the snapshot.
+	 */
+	public void testCompact() throws Exception {
+		Registry theRegistry = new Registry();
+		RegistryJournal.preload(theRegistry, "ClientA", 1000);
+		RegistryJournal theJournal = new RegistryJournal(theRegistry, this.journalDir, false,
+				RegistryJournal.DEFAULT_COMPACT_SIZE);
+		theJournal.open();
+		theJournal.compact();
+		Assert.assertEquals(0, theJournal.getLogSize());
+
+		for (int i = 0; i < 100; i++) {
+			theRegistry.deleteDomain("ClientA", "preload" + i + ".com");
+			RegistryDomain theDomain = new RegistryDomain("new" + i + ".com");
+			theDomain.addServer("ns" + i + ".preload.net");
+			theRegistry.createDomain("ClientA", theDomain, 12);
+		}
+		Map<String, String> theState = getState(theRegistry);
+		theJournal.close();
+
+		Assert.assertEquals(1, this.countFiles("snapshot-"));
+		this.open(theState);
+	}
+
+	/**
+	 * Test background compactions while commands are processed by several
+	 * threads.
+	 */
+	public void testConcurrentCompact() throws Exception {
+		final Registry theRegistry = new Registry();
+		RegistryJournal.preload(theRegistry, "ClientA", 0);
+		RegistryJournal theJournal = new RegistryJournal(theRegistry, this.journalDir, false, 64 * 1024);
+		theJournal.open();
+
+		final int theDomains = 500;
+		final AtomicInteger theErrors = new AtomicInteger();
+		Thread[] theThreads = new Thread[4];
+		for (int i = 0; i < theThreads.length; i++) {
+			final int theThread = i;
+			theThreads[i] = new Thread() {
+
+				public void run() {
+					try {
+						for (int j = 0; j < theDomains; j++) {
+							RegistryDomain theDomain = new RegistryDomain("domain" + theThread + "-" + j + ".com");
+							theDomain.setRegistrant("PRELOAD" + (j % 10));
+							theDomain.addServer("ns" + (j % 10) + ".preload.net");
+							theRegistry.createDomain("ClientA", theDomain, 12);
+							if (j % 2 == 1) {
+								theRegistry.deleteDomain("ClientA", "domain" + theThread + "-" + (j - 1) + ".com");
+							}
+						}
+					}
+					catch (RegistryException ex) {
+						ex.printStackTrace();
+						theErrors.incrementAndGet();
+					}
+				}
+			};
+			theThreads[i].start();
+		}
+		for (int i = 0; i < theThreads.length; i++) {
+			theThreads[i].join();
+		}
+		Assert.assertEquals(0, theErrors.get());
+
+		Map<String, String> theState = getState(theRegistry);
+		theJournal.close();
+
+		Assert.assertEquals("Snapshots", 1, this.countFiles("snapshot-"));
+		Registry theLoaded = this.open(theState);
+		Assert.assertEquals(theThreads.length * theDomains / 2, theLoaded.getDomainCount());
+	}
+
+	/**
+	 * Test the truncation of an invalid record at the end of the log.
+	 */
+	public void testTruncatedLog() throws Exception {
+		Registry theRegistry = new Registry();
+		RegistryJournal theJournal = new RegistryJournal(theRegistry, this.journalDir, false,
+				RegistryJournal.DEFAULT_COMPACT_SIZE);
+		theJournal.open();
+		theRegistry.createHost("ClientA", new RegistryHost("ns1.example.net"));
+		RegistryDomain theDomain = new RegistryDomain("example.com");
+		theDomain.addServer("ns1.example.net");
+		theRegistry.createDomain("ClientA", theDomain, 12);
+		Map<String, String> theState = getState(theRegistry);
+		theJournal.close();
+
+		File theLog = new File(this.journalDir, "wal-1.log");
+		long theLength = theLog.length();
+		FileOutputStream theOut = new FileOutputStream(theLog, true);
+		theOut.write(new byte[] {0, 0, 0, 20, 1, 2, 3, 4, 1, 2, 3});
+		theOut.close();
+
+		this.open(theState);
+		Assert.assertEquals(theLength, theLog.length());
+	}
+
+	/**
+	 * Test that an error writing a record truncates the partial record and
+	 * stops the journal, so the later changes are not appended after it.
+	 */
+	public void testWriteError() throws Exception {
+		Registry theRegistry = new Registry();
+		RegistryJournal theJournal = new RegistryJournal(theRegistry, this.journalDir, false,
+				RegistryJournal.DEFAULT_COMPACT_SIZE);
+		theJournal.open();
+		theRegistry.createHost("ClientA", new RegistryHost("ns1.example.net"));
+		Map<String, String> theState = getState(theRegistry);
+
+		File theLog = new File(this.journalDir, "wal-1.log");
+		long theLength = theLog.length();
+
+		// Fail the next write with a partial record in the log
+		Field theField = RegistryJournal.class.getDeclaredField("logStream");
+		theField.setAccessible(true);
+		((FileOutputStream) theField.get(theJournal)).close();
+		FileOutputStream theOut = new FileOutputStream(theLog, true);
+		theOut.write(new byte[] {0, 0, 0, 20, 1, 2, 3, 4, 1, 2, 3});
+		theOut.close();
+
+		theRegistry.createHost("ClientA", new RegistryHost("ns2.example.net"));
+		Assert.assertEquals(theLength, theLog.length());
+		theRegistry.createHost("ClientA", new RegistryHost("ns3.example.net"));
+		Assert.assertEquals(theLength, theLog.length());
+		theJournal.close();
+
+		this.open(theState);
+	}
+
+	/**
+	 * Opens the journal directory in a new <code>Registry</code>, and checks
+	 * the state of the <code>Registry</code>.
+	 *
+	 * @param aState Expected state
+	 *
+	 * @return Loaded <code>Registry</code>
+	 *
+	 * @exception Exception Error opening the journal
+	 */
+	private Registry open(Map<String, String> aState) throws Exception {
+		Registry theRegistry = new Registry();
+		RegistryJournal theJournal = new RegistryJournal(theRegistry, this.journalDir, false,
+				RegistryJournal.DEFAULT_COMPACT_SIZE);
+		theJournal.open();
+		theJournal.close();
+		Assert.assertEquals(aState, getState(theRegistry));
+
+		return theRegistry;
+	}
+
+	/**
+	 * Counts the files of the journal directory with a prefix.
+	 *
+	 * @param aPrefix File name prefix
+	 *
+	 * @return Number of files
+	 */
+	private int countFiles(String aPrefix) {
+		int theCount = 0;
+		for (String theName : this.journalDir.list()) {
+			if (theName.startsWith(aPrefix)) {
+				theCount++;
+			}
+		}
+		return theCount;
+	}
+
+	/**
+	 * Gets the state of a <code>Registry</code> as a description of every
+	 * attribute of the objects by object key.
+	 *
+	 * @param aRegistry Registry to describe
+	 *
+	 * @return Description of the objects
+	 */
+	private static Map<String, String> getState(Registry aRegistry) {
+		Map<String, String> theState = new TreeMap<String, String>();
+
+		for (RegistryDomain theDomain : aRegistry.getDomainMap().values()) {
+			StringBuilder theBuf = describe(theDomain);
+			theBuf.append(theDomain.getName()).append('|').append(theDomain.getRegistrant()).append('|');
+			for (RegistryDomain.Contact theContact : theDomain.getContacts()) {
+				theBuf.append(theContact.getId()).append(':').append(theContact.getType()).append(',');
+			}
+			theBuf.append('|').append(theDomain.getServers()).append('|').append(theDomain.getHosts()).append('|')
+					.append(theDomain.getExpirationDate()).append('|').append(theDomain.getTransferPeriod());
+			theState.put("domain " + theDomain.getKey(), theBuf.toString());
+		}
+		for (RegistryHost theHost : aRegistry.getHostMap().values()) {
+			StringBuilder theBuf = describe(theHost);
+			theBuf.append(theHost.getName()).append('|').append(theHost.getAddresses()).append('|').append(
+					theHost.getSuperordinate());
+			theState.put("host " + theHost.getKey(), theBuf.toString());
+		}
+		for (RegistryContact theContact : aRegistry.getContactMap().values()) {
+			StringBuilder theBuf = describe(theContact);
+			theBuf.append(theContact.getId()).append('|');
+			for (RegistryContact.PostalInfo theInfo : theContact.getPostalInfo()) {
+				theBuf.append(theInfo.getType()).append(':').append(theInfo.getName()).append(':').append(
+						theInfo.getOrg()).append(':').append(theInfo.getStreets()).append(':').append(
+						theInfo.getCity()).append(':').append(theInfo.getStateProvince()).append(':').append(
+						theInfo.getPostalCode()).append(':').append(theInfo.getCountryCode()).append(',');
+			}
+			theBuf.append('|').append(theContact.getVoice()).append('|').append(theContact.getVoiceExt()).append(
+					'|').append(theContact.getFax()).append('|').append(theContact.getFaxExt()).append('|').append(
+					theContact.getEmail());
+			theState.put("contact " + theContact.getKey(), theBuf.toString());
+		}
+
+		return theState;
+	}
+
+	/**
+	 * Describes the attributes that are common to the objects.
+	 *
+	 * @param aObject Object to describe
+	 *
+	 * @return Description of the attributes
+	 */
+	private static StringBuilder describe(RegistryObject aObject) {
+		StringBuilder theBuf = new StringBuilder();
+		theBuf.append(aObject.getRoid()).append('|').append(aObject.getClientId()).append('|').append(
+				aObject.getCreatedBy()).append('|').append(aObject.getCreatedDate()).append('|').append(
+				aObject.getUpdatedBy()).append('|').append(aObject.getUpdatedDate()).append('|').append(
+				aObject.getTransferDate()).append('|').append(aObject.getAuthInfo()).append('|').append(
+				aObject.getStatusBits()).append('|').append(aObject.getTransferStatus()).append('|').append(
+				aObject.getRequestClient()).append('|').append(aObject.getRequestDate()).append('|').append(
+				aObject.getActionClient()).append('|').append(aObject.getActionDate()).append('|').append(
+				aObject.getLinkCount()).append('|');
+
+		return theBuf;
+	}
+
+	/**
+	 * JUNIT <code>setUp</code> method, which sets the journal directory.
+	 */
+	protected void setUp() {
+		this.journalDir = new File(System.getProperty("java.io.tmpdir"), "RegistryJournalTst-" + System.nanoTime());
+	}
+
+	/**
+	 * JUNIT <code>tearDown</code>, which deletes the journal directory.
+	 */
+	protected void tearDown() {
+		File[] theFiles = this.journalDir.listFiles();
+		if (theFiles != null) {
+			for (int i = 0; i < theFiles.length; i++) {
+				theFiles[i].delete();
+			}
+		}
+		this.journalDir.delete();
+	}
+
+	/**
+	 * JUNIT <code>suite</code> static method, which returns the tests
+	 * associated with <code>RegistryJournalTst</code>.
+	 *
+	 * @return Tests to run
+	 */
+	public static Test suite() {
+		return new TestSuite(RegistryJournalTst.class);
+	}
+
+	/**
+	 * Unit test main, which runs the tests.
+	 *
+	 * @param args Not used
+	 */
+	public static void main(String[] args) {
+		junit.textui.TestRunner.run(RegistryJournalTst.suite());
+	}
+
+}
+
+// End class RegistryJournalTst
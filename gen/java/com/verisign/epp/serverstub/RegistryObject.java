@@ -0,0 +1,557 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.serverstub;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Base class of the objects stored in the <code>Registry</code>, with the
+ * attributes that are common to domains, hosts, and contacts.  The objects
+ * are copied on write by the <code>Registry</code>, so an object returned by
+ * the <code>Registry</code> is a private copy of the stored state, and an
+ * object passed to the <code>Registry</code> is copied before it is stored.<br>
+ * <br>
+ * The client and server statuses are stored as a bit set of the status bit
+ * constants, like <code>CLIENT_HOLD</code>, while the <code>ok</code>,
+ * <code>linked</code>, <code>inactive</code>, and
+ * <code>pendingTransfer</code> statuses are derived from the state of the
+ * object by {@link #getStatuses()}.
+ */
+public abstract class RegistryObject implements Cloneable {
+
+	/** Status of an object with no other status */
+	public static final String STATUS_OK = "ok";
+
+	/** Status of a host or contact that is referenced by a domain */
+	public static final String STATUS_LINKED = "linked";
+
+	/** Status of a domain without name servers */
+	public static final String STATUS_INACTIVE = "inactive";
+
+	/** Status of an object with a pending transfer request */
+	public static final String STATUS_PENDING_TRANSFER = "pendingTransfer";
+
+	/** Prefix of the statuses that can be set by the sponsoring client */
+	public static final String CLIENT_STATUS_PREFIX = "client";
+
+	/** Statuses that are stored in the bit set, indexed by bit */
+	private static final String[] STATUSES = {"clientDeleteProhibited", "clientHold", "clientRenewProhibited",
+			"clientTransferProhibited", "clientUpdateProhibited", "serverDeleteProhibited", "serverHold",
+			"serverRenewProhibited", "serverTransferProhibited", "serverUpdateProhibited"};
+
+	/** Bit of the <code>clientDeleteProhibited</code> status */
+	public static final int CLIENT_DELETE_PROHIBITED = 1 << 0;
+
+	/** Bit of the <code>clientHold</code> status */
+	public static final int CLIENT_HOLD = 1 << 1;
+
+	/** Bit of the <code>clientRenewProhibited</code> status */
+	public static final int CLIENT_RENEW_PROHIBITED = 1 << 2;
+
+	/** Bit of the <code>clientTransferProhibited</code> status */
+	public static final int CLIENT_TRANSFER_PROHIBITED = 1 << 3;
+
+	/** Bit of the <code>clientUpdateProhibited</code> status */
+	public static final int CLIENT_UPDATE_PROHIBITED = 1 << 4;
+
+	/** Bit of the <code>serverDeleteProhibited</code> status */
+	public static final int SERVER_DELETE_PROHIBITED = 1 << 5;
+
+	/** Bit of the <code>serverHold</code> status */
+	public static final int SERVER_HOLD = 1 << 6;
+
+	/** Bit of the <code>serverRenewProhibited</code> status */
+	public static final int SERVER_RENEW_PROHIBITED = 1 << 7;
+
+	/** Bit of the <code>serverTransferProhibited</code> status */
+	public static final int SERVER_TRANSFER_PROHIBITED = 1 << 8;
+
+	/** Bit of the <code>serverUpdateProhibited</code> status */
+	public static final int SERVER_UPDATE_PROHIBITED = 1 << 9;
+
+	/** Repository object identifier */
+	private String roid;
+
+	/** Identifier of the sponsoring client */
+	private String clientId;
+
+	/** Identifier of the client that created the object */
+	private String createdBy;
+
+	/** Creation time in milliseconds */
+	private long createdDate;
+
+	/** Identifier of the client that last updated the object */
+	private String updatedBy;
+
+	/** Last update time in milliseconds or <code>0</code> if never updated */
+	private long updatedDate;
+
+	/** Last transfer time in milliseconds or <code>0</code> if never transferred */
+	private long transferDate;
+
+	/** Authorization information password */
+	private String authInfo;
+
+	/** Bit set of the client and server statuses */
+	private int statusBits;
+
+	/**
+	 * Status of the last transfer request, with a
+	 * <code>EPPResponse.TRANSFER</code> value, or <code>null</code> if the
+	 * object was never requested for transfer
+	 */
+	private String transferStatus;
+
+	/** Identifier of the client that requested the last transfer */
+	private String requestClient;
+
+	/** Time in milliseconds of the last transfer request */
+	private long requestDate;
+
+	/**
+	 * Identifier of the client that must act on a pending transfer or that
+	 * acted on the last transfer
+	 */
+	private String actionClient;
+
+	/** Time in milliseconds that the last transfer was or must be acted on */
+	private long actionDate;
+
+	/** Number of domains that reference the object */
+	private int linkCount;
+
+	/**
+	 * Gets the key of the object in the <code>Registry</code>.
+	 *
+	 * @return Name of a domain or host, or identifier of a contact
+	 */
+	public abstract String getKey();
+
+	/**
+	 * Gets the repository object identifier.
+	 *
+	 * @return ROID set by the <code>Registry</code> on create
+	 */
+	public String getRoid() {
+		return this.roid;
+	}
+
+	/**
+	 * Sets the repository object identifier.
+	 *
+	 * @param aRoid ROID
+	 */
+	public void setRoid(String aRoid) {
+		this.roid = aRoid;
+	}
+
+	/**
+	 * Gets the identifier of the sponsoring client.
+	 *
+	 * @return Client identifier
+	 */
+	public String getClientId() {
+		return this.clientId;
+	}
+
+	/**
+	 * Sets the identifier of the sponsoring client.
+	 *
+	 * @param aClientId Client identifier
+	 */
+	public void setClientId(String aClientId) {
+		this.clientId = aClientId;
+	}
+
+	/**
+	 * Gets the identifier of the client that created the object.
+	 *
+	 * @return Client identifier
+	 */
+	public String getCreatedBy() {
+		return this.createdBy;
+	}
+
+	/**
+	 * Sets the identifier of the client that created the object.
+	 *
+	 * @param aCreatedBy Client identifier
+	 */
+	public void setCreatedBy(String aCreatedBy) {
+		this.createdBy = aCreatedBy;
+	}
+
+	/**
+	 * Gets the creation date.
+	 *
+	 * @return Creation date
+	 */
+	public Date getCreatedDate() {
+		return toDate(this.createdDate);
+	}
+
+	/**
+	 * Sets the creation date.
+	 *
+	 * @param aDate Creation date
+	 */
+	public void setCreatedDate(Date aDate) {
+		this.createdDate = toMillis(aDate);
+	}
+
+	/**
+	 * Gets the identifier of the client that last updated the object.
+	 *
+	 * @return Client identifier or <code>null</code> if never updated
+	 */
+	public String getUpdatedBy() {
+		return this.updatedBy;
+	}
+
+	/**
+	 * Sets the identifier of the client that last updated the object.
+	 *
+	 * @param aUpdatedBy Client identifier
+	 */
+	public void setUpdatedBy(String aUpdatedBy) {
+		this.updatedBy = aUpdatedBy;
+	}
+
+	/**
+	 * Gets the last update date.
+	 *
+	 * @return Last update date or <code>null</code> if never updated
+	 */
+	public Date getUpdatedDate() {
+		return toDate(this.updatedDate);
+	}
+
+	/**
+	 * Sets the last update date.
+	 *
+	 * @param aDate Last update date
+	 */
+	public void setUpdatedDate(Date aDate) {
+		this.updatedDate = toMillis(aDate);
+	}
+
+	/**
+	 * Gets the last transfer date.
+	 *
+	 * @return Last transfer date or <code>null</code> if never transferred
+	 */
+	public Date getTransferDate() {
+		return toDate(this.transferDate);
+	}
+
+	/**
+	 * Sets the last transfer date.
+	 *
+	 * @param aDate Last transfer date
+	 */
+	public void setTransferDate(Date aDate) {
+		this.transferDate = toMillis(aDate);
+	}
+
+	/**
+	 * Gets the authorization information password.
+	 *
+	 * @return Password or <code>null</code> if not set or not visible to the
+	 *         client
+	 */
+	public String getAuthInfo() {
+		return this.authInfo;
+	}
+
+	/**
+	 * Sets the authorization information password.
+	 *
+	 * @param aAuthInfo Password
+	 */
+	public void setAuthInfo(String aAuthInfo) {
+		this.authInfo = aAuthInfo;
+	}
+
+	/**
+	 * Gets the bit set of the client and server statuses.
+	 *
+	 * @return Bit set of the status bit constants
+	 */
+	public int getStatusBits() {
+		return this.statusBits;
+	}
+
+	/**
+	 * Sets the bit set of the client and server statuses.
+	 *
+	 * @param aStatusBits Bit set of the status bit constants
+	 */
+	public void setStatusBits(int aStatusBits) {
+		this.statusBits = aStatusBits;
+	}
+
+	/**
+	 * Is one of the statuses set?
+	 *
+	 * @param aStatusBits Bit set of the status bit constants
+	 *
+	 * @return <code>true</code> if at least one of the statuses is set;
+	 *         <code>false</code> otherwise.
+	 */
+	public boolean hasStatus(int aStatusBits) {
+		return (this.statusBits & aStatusBits) != 0;
+	}
+
+	/**
+	 * Gets the statuses of the object, which include the derived
+	 * <code>ok</code>, <code>linked</code>, <code>inactive</code>, and
+	 * <code>pendingTransfer</code> statuses.
+	 *
+	 * @return List of status names
+	 */
+	public List<String> getStatuses() {
+		List<String> theStatuses = new ArrayList<String>();
+
+		for (int i = 0; i < STATUSES.length; i++) {
+			if ((this.statusBits & (1 << i)) != 0) {
+				theStatuses.add(STATUSES[i]);
+			}
+		}
+		if (this.isTransferPending()) {
+			theStatuses.add(STATUS_PENDING_TRANSFER);
+		}
+		if (this.linkCount > 0) {
+			theStatuses.add(STATUS_LINKED);
+		}
+		this.addDerivedStatuses(theStatuses);
+		if (theStatuses.isEmpty()) {
+			theStatuses.add(STATUS_OK);
+		}
+
+		return theStatuses;
+	}
+
+	/**
+	 * Adds the statuses that are derived from the attributes of a subclass.
+	 * The default implementation adds none.
+	 *
+	 * @param aStatuses Statuses to add to
+	 */
+	protected void addDerivedStatuses(List<String> aStatuses) {
+	}
+
+	/**
+	 * Gets the bit of a client or server status.
+	 *
+	 * @param aStatus Status name, like <code>clientHold</code>
+	 *
+	 * @return Bit of the status or <code>0</code> if the status is not stored
+	 *         in the bit set
+	 */
+	public static int getStatusBit(String aStatus) {
+		for (int i = 0; i < STATUSES.length; i++) {
+			if (STATUSES[i].equals(aStatus)) {
+				return 1 << i;
+			}
+		}
+
+		return 0;
+	}
+
+	/**
+	 * Gets the status of the last transfer request.
+	 *
+	 * @return <code>EPPResponse.TRANSFER</code> value or <code>null</code> if
+	 *         never requested for transfer
+	 */
+	public String getTransferStatus() {
+		return this.transferStatus;
+	}
+
+	/**
+	 * Sets the status of the last transfer request.
+	 *
+	 * @param aTransferStatus <code>EPPResponse.TRANSFER</code> value
+	 */
+	public void setTransferStatus(String aTransferStatus) {
+		this.transferStatus = aTransferStatus;
+	}
+
+	/**
+	 * Is a transfer request pending?
+	 *
+	 * @return <code>true</code> if pending; <code>false</code> otherwise.
+	 */
+	public boolean isTransferPending() {
+		return "pending".equals(this.transferStatus);
+	}
+
+	/**
+	 * Gets the client to notify of a transfer action, which is the sponsoring
+	 * client for an action of the requesting client (request or cancel) and
+	 * the requesting client for an action of the sponsoring client (approve
+	 * or reject).
+	 *
+	 * @param aClientId Identifier of the client that did the action
+	 *
+	 * @return Identifier of the client to notify
+	 */
+	public String getTransferRecipient(String aClientId) {
+		if (aClientId.equals(this.requestClient)) {
+			return this.clientId;
+		}
+		return this.requestClient;
+	}
+
+	/**
+	 * Gets the identifier of the client that requested the last transfer.
+	 *
+	 * @return Client identifier
+	 */
+	public String getRequestClient() {
+		return this.requestClient;
+	}
+
+	/**
+	 * Sets the identifier of the client that requested the last transfer.
+	 *
+	 * @param aRequestClient Client identifier
+	 */
+	public void setRequestClient(String aRequestClient) {
+		this.requestClient = aRequestClient;
+	}
+
+	/**
+	 * Gets the date of the last transfer request.
+	 *
+	 * @return Request date
+	 */
+	public Date getRequestDate() {
+		return toDate(this.requestDate);
+	}
+
+	/**
+	 * Sets the date of the last transfer request.
+	 *
+	 * @param aDate Request date
+	 */
+	public void setRequestDate(Date aDate) {
+		this.requestDate = toMillis(aDate);
+	}
+
+	/**
+	 * Gets the identifier of the client that must act on a pending transfer,
+	 * or that acted on the last transfer.
+	 *
+	 * @return Client identifier
+	 */
+	public String getActionClient() {
+		return this.actionClient;
+	}
+
+	/**
+	 * Sets the identifier of the client that must act on a pending transfer,
+	 * or that acted on the last transfer.
+	 *
+	 * @param aActionClient Client identifier
+	 */
+	public void setActionClient(String aActionClient) {
+		this.actionClient = aActionClient;
+	}
+
+	/**
+	 * Gets the date that the last transfer was or must be acted on.
+	 *
+	 * @return Action date
+	 */
+	public Date getActionDate() {
+		return toDate(this.actionDate);
+	}
+
+	/**
+	 * Sets the date that the last transfer was or must be acted on.
+	 *
+	 * @param aDate Action date
+	 */
+	public void setActionDate(Date aDate) {
+		this.actionDate = toMillis(aDate);
+	}
+
+	/**
+	 * Gets the number of domains that reference the object.
+	 *
+	 * @return Number of referencing domains
+	 */
+	public int getLinkCount() {
+		return this.linkCount;
+	}
+
+	/**
+	 * Sets the number of domains that reference the object.
+	 *
+	 * @param aLinkCount Number of referencing domains
+	 */
+	public void setLinkCount(int aLinkCount) {
+		this.linkCount = aLinkCount;
+	}
+
+	/**
+	 * Creates a copy of the object, where the subclasses copy the mutable
+	 * attributes.
+	 *
+	 * @return Copy of the object
+	 */
+	public Object clone() {
+		try {
+			return super.clone();
+		}
+		catch (CloneNotSupportedException ex) {
+			throw new IllegalStateException("Clone of " + this.getClass().getName() + " failed");
+		}
+	}
+
+	/**
+	 * Converts a time in milliseconds to a date.
+	 *
+	 * @param aMillis Time in milliseconds, where <code>0</code> is unset
+	 *
+	 * @return Date or <code>null</code> if unset
+	 */
+	static Date toDate(long aMillis) {
+		return aMillis == 0 ? null : new Date(aMillis);
+	}
+
+	/**
+	 * Converts a date to a time in milliseconds.
+	 *
+	 * @param aDate Date or <code>null</code>
+	 *
+	 * @return Time in milliseconds, where <code>0</code> is unset
+	 */
+	static long toMillis(Date aDate) {
+		return aDate == null ? 0 : aDate.getTime();
+	}
+
+}
+
+// End class RegistryObject
@@ -0,0 +1,329 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.serverstub;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import com.verisign.epp.codec.gen.EPPCommand;
+import com.verisign.epp.codec.gen.EPPResponse;
+import com.verisign.epp.codec.gen.EPPResult;
+
+/**
+ * Is a unit test of the <code>Registry</code> class, which uses a
+ * <code>Registry</code> instance per test.
+ */
+public class RegistryTst extends TestCase {
+
+	/** Registry of the test */
+	private Registry registry;
+
+	/**
+	 * Allocates a <code>RegistryTst</code> with a logical name.
+	 *
+	 * @param name Logical name of the test
+	 */
+	public RegistryTst(String name) {
+		super(name);
+	}
+
+	/**
+	 * Test the uniqueness of the objects and the linkage of a domain to its
+	 * name servers, contacts, and subordinate hosts.
+	 */
+	public void testLinkage() throws Exception {
+		this.registry.createContact("ClientA", new RegistryContact("sh8013"));
+		this.assertCode(EPPResult.OBJECT_EXISTS, new Command() {
+
+			public void execute() throws RegistryException {
+				RegistryTst.this.registry.createContact("ClientB", new RegistryContact("sh8013"));
+			}
+		});
+		this.registry.createHost("ClientA", new RegistryHost("ns1.example.net"));
+
+		// Domain with a name server that does not exist
+		final RegistryDomain theDomain = new RegistryDomain("Example.COM");
+		theDomain.setRegistrant("sh8013");
+		theDomain.addContact("sh8013", "admin");
+		theDomain.addServer("ns2.example.net");
+		this.assertCode(EPPResult.OBJECT_DOES_NOT_EXIST, new Command() {
+
+			public void execute() throws RegistryException {
+				RegistryTst.this.registry.createDomain("ClientA", theDomain, 12);
+			}
+		});
+		Assert.assertTrue(this.registry.isDomainAvailable("example.com"));
+
+		theDomain.getServers().set(0, "ns1.example.net");
+		RegistryDomain theCreated = this.registry.createDomain("ClientA", theDomain, 12);
+		Assert.assertEquals("example.com", theCreated.getName());
+		Assert.assertFalse(this.registry.isDomainAvailable("EXAMPLE.com"));
+		Assert.assertEquals(Arrays.asList(RegistryObject.STATUS_OK), theCreated.getStatuses());
+		Assert.assertEquals(Arrays.asList(RegistryObject.STATUS_LINKED), this.registry.getHost("ns1.example.net")
+				.getStatuses());
+		Assert.assertEquals(1, this.registry.getContact("ClientA", "sh8013", null).getLinkCount());
+
+		// Linked objects cannot be deleted
+		this.assertCode(EPPResult.ASSOC_PROHIBITS_OP, new Command() {
+
+			public void execute() throws RegistryException {
+				RegistryTst.this.registry.deleteContact("ClientA", "sh8013");
+			}
+		});
+		this.assertCode(EPPResult.ASSOC_PROHIBITS_OP, new Command() {
+
+			public void execute() throws RegistryException {
+				RegistryTst.this.registry.deleteHost("ClientA", "ns1.example.net");
+			}
+		});
+
+		// Subordinate host of another client and of the sponsoring client
+		final RegistryHost theHost = new RegistryHost("ns1.example.com");
+		theHost.addAddress("192.0.2.1");
+		this.assertCode(EPPResult.AUTHORIZATION_ERROR, new Command() {
+
+			public void execute() throws RegistryException {
+				RegistryTst.this.registry.createHost("ClientB", theHost);
+			}
+		});
+		Assert.assertEquals("example.com", this.registry.createHost("ClientA", theHost).getSuperordinate());
+		Assert.assertEquals(Arrays.asList("ns1.example.com"), this.registry.getDomain("ClientA", "example.com",
+				null).getHosts());
+		this.assertCode(EPPResult.ASSOC_PROHIBITS_OP, new Command() {
+
+			public void execute() throws RegistryException {
+				RegistryTst.this.registry.deleteDomain("ClientA", "example.com");
+			}
+		});
+
+		// Replace the name server with the subordinate host
+		RegistryDomain theAdd = new RegistryDomain();
+		theAdd.addServer("ns1.example.com");
+		RegistryDomain theRemove = new RegistryDomain();
+		theRemove.addServer("ns1.example.net");
+		this.registry.updateDomain("ClientA", "example.com", theAdd, theRemove, null);
+		Assert.assertEquals(0, this.registry.getHost("ns1.example.net").getLinkCount());
+		this.registry.deleteHost("ClientA", "ns1.example.net");
+
+		theRemove = new RegistryDomain();
+		theRemove.addServer("ns1.example.com");
+		this.registry.updateDomain("ClientA", "example.com", null, theRemove, null);
+		this.registry.deleteHost("ClientA", "ns1.example.com");
+		this.registry.deleteDomain("ClientA", "example.com");
+		this.registry.deleteContact("ClientA", "sh8013");
+
+		Assert.assertEquals(0, this.registry.getDomainCount() + this.registry.getHostCount()
+				+ this.registry.getContactCount());
+	}
+
+	/**
+	 * Test the statuses that prohibit commands and a transfer that is
+	 * requested, rejected, requested again, and approved.
+	 */
+	public void testStatusAndTransfer() throws Exception {
+		RegistryDomain theDomain = new RegistryDomain("example.com");
+		theDomain.setAuthInfo("2fooBAR");
+		this.registry.createDomain("ClientA", theDomain, 12);
+
+		RegistryDomain theAdd = new RegistryDomain();
+		theAdd.setStatusBits(Registry.getClientStatusBits(Arrays.asList("clientDeleteProhibited",
+				"clientTransferProhibited")));
+		this.registry.updateDomain("ClientA", "example.com", theAdd, null, null);
+		this.assertCode(EPPResult.STATUS_PROHIBITS_OP, new Command() {
+
+			public void execute() throws RegistryException {
+				RegistryTst.this.registry.deleteDomain("ClientA", "example.com");
+			}
+		});
+		this.assertCode(EPPResult.STATUS_PROHIBITS_OP, new Command() {
+
+			public void execute() throws RegistryException {
+				RegistryTst.this.registry.transferDomain("ClientB", EPPCommand.OP_REQUEST, "example.com", "2fooBAR",
+						12);
+			}
+		});
+		this.assertCode(EPPResult.PARAM_VALUE_POLICY_ERROR, new Command() {
+
+			public void execute() throws RegistryException {
+				Registry.getClientStatusBits(Arrays.asList("serverHold"));
+			}
+		});
+		this.registry.updateDomain("ClientA", "example.com", null, theAdd, null);
+
+		// Authorization information is only visible to the sponsoring client
+		Assert.assertEquals("2fooBAR", this.registry.getDomain("ClientA", "example.com", null).getAuthInfo());
+		Assert.assertNull(this.registry.getDomain("ClientB", "example.com", null).getAuthInfo());
+
+		this.assertCode(EPPResult.INVALID_AUTHORIZATION_INFO, new Command() {
+
+			public void execute() throws RegistryException {
+				RegistryTst.this.registry.transferDomain("ClientB", EPPCommand.OP_REQUEST, "example.com", "bad", 12);
+			}
+		});
+		RegistryDomain theTransfer = this.registry.transferDomain("ClientB", EPPCommand.OP_REQUEST, "example.com",
+				"2fooBAR", 12);
+		Assert.assertEquals(EPPResponse.TRANSFER_PENDING, theTransfer.getTransferStatus());
+		Assert.assertEquals("ClientA", theTransfer.getActionClient());
+		Assert.assertEquals("ClientA", theTransfer.getTransferRecipient("ClientB"));
+		Assert.assertTrue(this.registry.getDomain("ClientA", "example.com", null).getStatuses().contains(
+				RegistryObject.STATUS_PENDING_TRANSFER));
+
+		// A pending transfer prohibits update, and only the sponsor can reject
+		this.assertCode(EPPResult.STATUS_PROHIBITS_OP, new Command() {
+
+			public void execute() throws RegistryException {
+				RegistryTst.this.registry.updateDomain("ClientA", "example.com", null, null, null);
+			}
+		});
+		this.assertCode(EPPResult.AUTHORIZATION_ERROR, new Command() {
+
+			public void execute() throws RegistryException {
+				RegistryTst.this.registry.transferDomain("ClientB", EPPCommand.OP_REJECT, "example.com", null, 0);
+			}
+		});
+		Assert.assertEquals(EPPResponse.TRANSFER_CLIENT_REJECTED, this.registry.transferDomain("ClientA",
+				EPPCommand.OP_REJECT, "example.com", null, 0).getTransferStatus());
+
+		long theExpiration = this.registry.getDomain("ClientA", "example.com", null).getExpirationDate().getTime();
+		this.registry.transferDomain("ClientB", EPPCommand.OP_REQUEST, "example.com", "2fooBAR", 12);
+		theTransfer = this.registry.transferDomain("ClientA", EPPCommand.OP_APPROVE, "example.com", null, 0);
+		Assert.assertEquals(EPPResponse.TRANSFER_CLIENT_APPROVED, theTransfer.getTransferStatus());
+		Assert.assertEquals("ClientB", theTransfer.getClientId());
+		Assert.assertEquals("ClientB", theTransfer.getTransferRecipient("ClientA"));
+		Assert.assertTrue(theTransfer.getExpirationDate().getTime() > theExpiration);
+		this.assertCode(EPPResult.OBJECT_NOT_PENDING_TRANSFER, new Command() {
+
+			public void execute() throws RegistryException {
+				RegistryTst.this.registry.transferDomain("ClientB", EPPCommand.OP_CANCEL, "example.com", null, 0);
+			}
+		});
+
+		// The new sponsor renews with the current expiration date
+		RegistryDomain theRenewed = this.registry.renewDomain("ClientB", "example.com", theTransfer
+				.getExpirationDate(), 12);
+		Assert.assertTrue(theRenewed.getExpirationDate().after(theTransfer.getExpirationDate()));
+		this.assertCode(EPPResult.PARAM_VALUE_POLICY_ERROR, new Command() {
+
+			public void execute() throws RegistryException {
+				RegistryTst.this.registry.renewDomain("ClientB", "example.com", new java.util.Date(0), 12);
+			}
+		});
+	}
+
+	/**
+	 * Test concurrent creates of the same domains, where exactly one create of
+	 * each domain succeeds, with concurrent updates of a shared name server.
+	 */
+	public void testConcurrentCreate() throws Exception {
+		final int theThreads = 16;
+		final int theDomains = 200;
+		this.registry.createHost("ClientA", new RegistryHost("ns1.example.net"));
+
+		final AtomicInteger theCreated = new AtomicInteger();
+		final AtomicInteger theExists = new AtomicInteger();
+		final AtomicInteger theErrors = new AtomicInteger();
+		final CountDownLatch theStart = new CountDownLatch(1);
+		Thread[] theWorkers = new Thread[theThreads];
+
+		for (int i = 0; i < theThreads; i++) {
+			theWorkers[i] = new Thread() {
+
+				public void run() {
+					try {
+						theStart.await();
+						for (int d = 0; d < theDomains; d++) {
+							RegistryDomain theDomain = new RegistryDomain("domain" + d + ".com");
+							theDomain.addServer("ns1.example.net");
+							try {
+								RegistryTst.this.registry.createDomain("ClientA", theDomain, 12);
+								theCreated.incrementAndGet();
+							}
+							catch (RegistryException ex) {
+								if (ex.getCode() == EPPResult.OBJECT_EXISTS) {
+									theExists.incrementAndGet();
+								}
+								else {
+									theErrors.incrementAndGet();
+								}
+							}
+						}
+					}
+					catch (InterruptedException ex) {
+						theErrors.incrementAndGet();
+					}
+				}
+			};
+			theWorkers[i].start();
+		}
+		theStart.countDown();
+		for (int i = 0; i < theThreads; i++) {
+			theWorkers[i].join();
+		}
+
+		Assert.assertEquals(0, theErrors.get());
+		Assert.assertEquals(theDomains, theCreated.get());
+		Assert.assertEquals(theDomains * (theThreads - 1), theExists.get());
+		Assert.assertEquals(theDomains, this.registry.getHost("ns1.example.net").getLinkCount());
+	}
+
+	/**
+	 * Creates the <code>Registry</code> of a test.
+	 */
+	protected void setUp() {
+		this.registry = new Registry();
+	}
+
+	/**
+	 * Command that is expected to fail.
+	 */
+	private interface Command {
+
+		/**
+		 * Executes the command.
+		 *
+		 * @exception RegistryException Error of the command
+		 */
+		void execute() throws RegistryException;
+
+	}
+
+	/**
+	 * Asserts that a command fails with a result code.
+	 *
+	 * @param aCode Expected EPP result code
+	 * @param aCommand Command to execute
+	 */
+	private void assertCode(int aCode, Command aCommand) {
+		try {
+			aCommand.execute();
+			Assert.fail("Expected result code " + aCode);
+		}
+		catch (RegistryException ex) {
+			Assert.assertEquals(ex.getMessage(), aCode, ex.getCode());
+		}
+	}
+
+}
+
+// End class RegistryTst
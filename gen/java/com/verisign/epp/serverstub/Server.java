@@ -35,6 +35,7 @@ import java.util.Vector;
 import com.verisign.epp.codec.gen.*;
 import com.verisign.epp.framework.*;
 import com.verisign.epp.interfaces.EPPCommandException;
+import com.verisign.epp.metrics.EPPMetricsFactory;
 import com.verisign.epp.transport.*;
 import com.verisign.epp.util.*;
 
@@ -84,14 +85,20 @@ public class Server {
 			// Initalize the logging facility (Log4J)
 			initializeLogging();
 
+			// Initialize the metrics with the configured implementation
+			EPPMetricsFactory.getInstance().init();
+
 			// Initialize the server connection factory
 			EPPSrvFactorySingle theFactory = EPPSrvFactorySingle.getInstance();
 
 			// Initialize the dispatcher
 			initializeDispatcher();
 
-			// Initialize the data source (in memory queue)
-			EPPPollQueueMgr.getInstance().setDataSource(new PollDataSource());
+			// Initialize the data source (in memory queue by default)
+			initializePollDataSource();
+
+			// Load the persisted stub registry (if configured)
+			initializeRegistry();
 
 			// Initialize the poll queue
 			initializePollQueue();
@@ -213,6 +220,51 @@ public class Server {
 		}
 	}
 
+	/**
+	 * Initialize the poll data source based on the EPP.PollDataSource, 
+	 * which defaults to the in memory <code>PollDataSource</code>.
+	 */
+	public void initializePollDataSource() {
+		String theClassName = EPPEnv.getPollDataSource();
+
+		if (theClassName == null) {
+			EPPPollQueueMgr.getInstance().setDataSource(new PollDataSource());
+			return;
+		}
+
+		try {
+			EPPPollQueueMgr.getInstance().setDataSource((EPPPollDataSource) Class.forName(theClassName)
+					.newInstance());
+			cat.info("Successfully loaded poll data source: " + theClassName);
+		}
+		 catch (Exception e) {
+			cat.error("Couldn't instantiate the poll data source " + theClassName, e);
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Initialize the persistence of the stub <code>Registry</code> when the
+	 * EPP.Registry.journalDir property is set, which loads the
+	 * <code>Registry</code> from the snapshot and log files of the
+	 * directory.
+	 */
+	public void initializeRegistry() {
+		String theJournalDir = Environment.getOption("EPP.Registry.journalDir");
+
+		if (theJournalDir == null || theJournalDir.length() == 0) {
+			return;
+		}
+
+		try {
+			new RegistryJournal().open();
+		}
+		 catch (IOException e) {
+			cat.error("Couldn't load the registry journal", e);
+			System.exit(1);
+		}
+	}
+
 	/**
 	 * Initialize the poll handler based on the EPP.PollHandlers,
 	 */
@@ -297,6 +349,9 @@ public class Server {
 						 + handlerClass.getName());
 			}
 
+			// Add the worker pools of the handlers if defined
+			theDispatcher.initWorkerPools();
+
 			/**
 			 * Now add the CommandResponse level extensions to the extension
 			 * factories provided if any of the command responselevel
@@ -339,6 +394,10 @@ public class Server {
 		 catch (EPPEnvException e) {
 			cat.error("Couldn't initialize the environment", e);
 			System.exit(1);
+		}
+		 catch (EPPEventException e) {
+			cat.error("Couldn't initialize the dispatcher worker pools", e);
+			System.exit(1);
 		}
 		 catch (InstantiationException e) {
 			cat.error(
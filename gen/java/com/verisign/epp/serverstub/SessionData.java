@@ -24,6 +24,7 @@ import java.util.Hashtable;
 
 import com.verisign.epp.codec.gen.EPPGreeting;
 import com.verisign.epp.codec.gen.EPPLoginCmd;
+import com.verisign.epp.util.EPPXMLStream;
 
 
 /**
@@ -50,6 +51,13 @@ public class SessionData implements Cloneable, Serializable {
 	 */
 	private EPPLoginCmd loginCmd = null; 
 
+	/**
+	 * <code>EPPXMLStream</code> used to read and write the packets of the
+	 * session, so that its packet buffers are reused across the packets of
+	 * the connection.  It is not copied by {@link #clone()} or serialized.
+	 */
+	private transient EPPXMLStream xmlStream = null;
+
 	/**
 	 * Constructs a new SessionData instance
 	 */
@@ -73,9 +81,32 @@ public class SessionData implements Cloneable, Serializable {
 			theCopy.greeting = (EPPGreeting) greeting.clone();
 		}
 
+		theCopy.xmlStream = null;
+
 		return theCopy;
 	}
 
+	/**
+	 * Gets the <code>EPPXMLStream</code> used to read and write the packets
+	 * of the session.
+	 *
+	 * @return <code>EPPXMLStream</code> of the session if set;
+	 * 		   <code>null</code> otherwise.
+	 */
+	public EPPXMLStream getXMLStream() {
+		return xmlStream;
+	}
+
+	/**
+	 * Sets the <code>EPPXMLStream</code> used to read and write the packets
+	 * of the session.
+	 *
+	 * @param aXMLStream <code>EPPXMLStream</code> of the session
+	 */
+	public void setXMLStream(EPPXMLStream aXMLStream) {
+		xmlStream = aXMLStream;
+	}
+
 	/**
 	 * Returns the logout state of this session object.
 	 *
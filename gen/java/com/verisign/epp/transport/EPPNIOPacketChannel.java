@@ -0,0 +1,503 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.transport;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLPeerUnverifiedException;
+
+import org.apache.log4j.Logger;
+
+import com.verisign.epp.util.EPPCatFactory;
+import com.verisign.epp.util.EPPXMLStream;
+
+/**
+ * Packet I/O of a non-blocking <code>SocketChannel</code>, which is shared by
+ * the client connections (<code>EPPNIOClientSocket</code>) and the server
+ * connections (<code>EPPNIOServer</code>).  The bytes read from the channel
+ * are unwrapped with the <code>SSLEngine</code> of the connection, if any,
+ * and split into EPP data units using the 4-byte length framing of RFC 5734.
+ * Each complete packet, including the network header, is passed to the
+ * {@link Listener} of the connection.  Written bytes are wrapped with the
+ * <code>SSLEngine</code> and written as far as the channel accepts them.<br>
+ * <br>
+ * The methods are not thread safe and must only be called by the
+ * <code>EPPNIOSelectorThread</code> of the connection.
+ */
+public class EPPNIOPacketChannel {
+
+	/**
+	 * Receiver of the packets and of the handshake completion of an
+	 * <code>EPPNIOPacketChannel</code>.  The methods are called by the
+	 * selector thread.
+	 */
+	public interface Listener {
+
+		/**
+		 * Called for each complete packet read from the channel.
+		 *
+		 * @param aPacket Packet, including the network header
+		 */
+		void packetRead(byte[] aPacket);
+
+		/**
+		 * Called when the connection is ready for application data, which is
+		 * at the end of each SSL handshake or by {@link #start()} without
+		 * SSL.
+		 */
+		void handshakeCompleted();
+	}
+
+	/** Log4j category for logging */
+	private static Logger cat = Logger.getLogger(EPPNIOPacketChannel.class
+			.getName(), EPPCatFactory.getInstance().getFactory());
+
+	/** Size of the EPP network header */
+	private static final int HEADER_SIZE = 4;
+
+	/** Initial size of the network buffer without SSL */
+	private static final int BUFFER_SIZE = 16384;
+
+	/** Empty buffer used to drive the SSL handshake */
+	private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+	/** Channel of the connection */
+	private SocketChannel channel;
+
+	/** SSL engine if the connection uses SSL; <code>null</code> otherwise */
+	private SSLEngine engine;
+
+	/** Receiver of the packets */
+	private Listener listener;
+
+	/** Is the SSL handshake in progress? */
+	private boolean handshaking = false;
+
+	/** Bytes read from the channel (write mode) */
+	private ByteBuffer netIn;
+
+	/** Decrypted bytes with SSL (write mode) */
+	private ByteBuffer appIn;
+
+	/** Encrypted bytes with SSL to write to the channel (read mode) */
+	private ByteBuffer netOut;
+
+	/** Header of the packet being read */
+	private ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+	/** Packet being read, including the header */
+	private byte[] packet = null;
+
+	/** Number of bytes of <code>packet</code> read */
+	private int packetPos = 0;
+
+	/**
+	 * Creates the packet I/O of a channel.
+	 *
+	 * @param aChannel Channel in non-blocking mode
+	 * @param aEngine SSL engine in client or server mode or <code>null</code>
+	 *        without SSL
+	 * @param aListener Receiver of the packets
+	 */
+	public EPPNIOPacketChannel(SocketChannel aChannel, SSLEngine aEngine, Listener aListener) {
+		this.channel = aChannel;
+		this.engine = aEngine;
+		this.listener = aListener;
+
+		if (this.engine != null) {
+			this.netIn = ByteBuffer.allocate(this.engine.getSession().getPacketBufferSize());
+			this.appIn = ByteBuffer.allocate(this.engine.getSession().getApplicationBufferSize());
+			this.netOut = ByteBuffer.allocate(this.engine.getSession().getPacketBufferSize());
+			this.netOut.flip();
+		}
+		else {
+			this.netIn = ByteBuffer.allocate(BUFFER_SIZE);
+		}
+	}
+
+	/**
+	 * Starts the SSL handshake, or calls
+	 * {@link Listener#handshakeCompleted()} without SSL.
+	 *
+	 * @throws IOException Error starting the handshake
+	 */
+	public void start() throws IOException {
+		if (this.engine != null) {
+			this.engine.beginHandshake();
+			this.handshaking = true;
+			this.doHandshake();
+		}
+		else {
+			this.listener.handshakeCompleted();
+		}
+	}
+
+	/**
+	 * Is the SSL handshake in progress?
+	 *
+	 * @return <code>true</code> during a handshake; <code>false</code>
+	 *         otherwise.
+	 */
+	public boolean isHandshaking() {
+		return this.handshaking;
+	}
+
+	/**
+	 * Are there wrapped bytes that the channel has not accepted yet?
+	 *
+	 * @return <code>true</code> if the channel must be written to;
+	 *         <code>false</code> otherwise.
+	 */
+	public boolean hasPendingOutput() {
+		return this.netOut != null && this.netOut.hasRemaining();
+	}
+
+	/**
+	 * Reads from the channel and passes the complete packets to the
+	 * listener.  Called when the channel is readable.
+	 *
+	 * @throws IOException Error reading from the channel or end of stream
+	 */
+	public void read() throws IOException {
+		int theCount = this.channel.read(this.netIn);
+
+		if (theCount < 0) {
+			if (this.engine != null) {
+				try {
+					this.engine.closeInbound();
+				}
+				catch (SSLException ex) {
+					// Expected when the peer does not send a close notify
+				}
+			}
+			throw new EOFException("Connection closed by peer");
+		}
+
+		if (this.engine == null) {
+			this.netIn.flip();
+			this.readPackets(this.netIn);
+			this.netIn.compact();
+		}
+		else {
+			this.unwrap();
+
+			if (this.handshaking) {
+				this.doHandshake();
+			}
+		}
+	}
+
+	/**
+	 * Writes the pending wrapped bytes and continues the SSL handshake.
+	 * Called when the channel is writable, before writing application data
+	 * with {@link #write(ByteBuffer)}.
+	 *
+	 * @return <code>true</code> if application data can be written;
+	 *         <code>false</code> otherwise.
+	 *
+	 * @throws IOException Error writing to the channel
+	 */
+	public boolean flush() throws IOException {
+		if (this.engine == null) {
+			return true;
+		}
+		if (!this.flushNetOut()) {
+			return false;
+		}
+		if (this.handshaking) {
+			this.doHandshake();
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Writes application data as far as the channel accepts it.
+	 *
+	 * @param aSource Bytes to write (read mode)
+	 *
+	 * @return <code>true</code> if all of the bytes were written to the
+	 *         channel; <code>false</code> if the channel must become writable
+	 *         first.
+	 *
+	 * @throws IOException Error writing to the channel
+	 */
+	public boolean write(ByteBuffer aSource) throws IOException {
+		if (this.engine == null) {
+			this.channel.write(aSource);
+			return !aSource.hasRemaining();
+		}
+
+		while (aSource.hasRemaining() && this.flushNetOut()) {
+			this.wrap(aSource);
+		}
+		return this.flushNetOut();
+	}
+
+	/**
+	 * Sends a close notify with SSL, where errors are ignored since the
+	 * channel is closed next.
+	 */
+	public void closeOutbound() {
+		if (this.engine == null) {
+			return;
+		}
+
+		try {
+			this.engine.closeOutbound();
+			this.wrap(EMPTY);
+			this.channel.write(this.netOut);
+		}
+		catch (IOException ex) {
+			// Ignore, since the channel is closed next
+		}
+	}
+
+	/**
+	 * Reads the EPP data units from the bytes read from the connection and
+	 * passes each complete packet, including the network header, to the
+	 * listener.
+	 *
+	 * @param aBuffer Bytes read from the connection (read mode)
+	 *
+	 * @throws IOException Invalid packet size
+	 */
+	private void readPackets(ByteBuffer aBuffer) throws IOException {
+		while (aBuffer.hasRemaining()) {
+			if (this.packet == null) {
+				while (this.header.hasRemaining() && aBuffer.hasRemaining()) {
+					this.header.put(aBuffer.get());
+				}
+				if (this.header.hasRemaining()) {
+					return;
+				}
+
+				int thePacketSize = this.header.getInt(0);
+				if (thePacketSize <= HEADER_SIZE || thePacketSize > EPPXMLStream.getMaxPacketSize()) {
+					throw new IOException("Invalid packet size of " + thePacketSize
+							+ " bytes, maximum is " + EPPXMLStream.getMaxPacketSize());
+				}
+
+				this.packet = new byte[thePacketSize];
+				System.arraycopy(this.header.array(), 0, this.packet, 0, HEADER_SIZE);
+				this.packetPos = HEADER_SIZE;
+				this.header.clear();
+			}
+
+			int theLength = Math.min(aBuffer.remaining(), this.packet.length - this.packetPos);
+			aBuffer.get(this.packet, this.packetPos, theLength);
+			this.packetPos += theLength;
+
+			if (this.packetPos == this.packet.length) {
+				byte[] thePacket = this.packet;
+				this.packet = null;
+				this.listener.packetRead(thePacket);
+			}
+		}
+	}
+
+	/**
+	 * Drives the SSL handshake as far as possible without blocking.  The
+	 * listener is called once the handshake completes.
+	 *
+	 * @throws IOException Error during the handshake
+	 */
+	private void doHandshake() throws IOException {
+		for (;;) {
+			switch (this.engine.getHandshakeStatus()) {
+				case NEED_TASK:
+					Runnable theTask;
+					while ((theTask = this.engine.getDelegatedTask()) != null) {
+						theTask.run();
+					}
+					break;
+
+				case NEED_WRAP:
+					this.wrap(EMPTY);
+					if (!this.flushNetOut()) {
+						return;
+					}
+					break;
+
+				case NEED_UNWRAP:
+					if (!this.unwrap()) {
+						return;
+					}
+					break;
+
+				default:
+					if (this.handshaking) {
+						this.handshaking = false;
+
+						if (cat.isDebugEnabled()) {
+							String thePeer;
+							try {
+								thePeer = this.engine.getSession().getPeerPrincipal().getName();
+							}
+							catch (SSLPeerUnverifiedException ex) {
+								thePeer = null;
+							}
+							cat.debug("doHandshake(): "
+									+ (this.engine.getUseClientMode() ? "Client" : "Server")
+									+ " SSL Handshake: Cipher = "
+									+ this.engine.getSession().getCipherSuite()
+									+ ": Protocol = " + this.engine.getSession().getProtocol()
+									+ ": Peer = " + thePeer);
+						}
+
+						this.listener.handshakeCompleted();
+					}
+					return;
+			}
+		}
+	}
+
+	/**
+	 * Unwraps the bytes read from the channel and reads the packets from the
+	 * decrypted bytes.
+	 *
+	 * @return <code>true</code> if progress was made; <code>false</code> if
+	 *         more bytes must be read from the channel.
+	 *
+	 * @throws IOException Error unwrapping the bytes
+	 */
+	private boolean unwrap() throws IOException {
+		boolean theProgress = false;
+		boolean theClosed = false;
+
+		this.netIn.flip();
+		try {
+			for (;;) {
+				SSLEngineResult theResult = this.engine.unwrap(this.netIn, this.appIn);
+
+				if (theResult.getStatus() == SSLEngineResult.Status.BUFFER_OVERFLOW) {
+					ByteBuffer theBuffer = ByteBuffer.allocate(this.appIn.capacity() * 2);
+					this.appIn.flip();
+					theBuffer.put(this.appIn);
+					this.appIn = theBuffer;
+					continue;
+				}
+				if (theResult.getStatus() == SSLEngineResult.Status.BUFFER_UNDERFLOW) {
+					if (this.netIn.limit() == this.netIn.capacity()
+							&& this.netIn.position() == 0) {
+						ByteBuffer theBuffer = ByteBuffer.allocate(this.netIn.capacity() * 2);
+						theBuffer.put(this.netIn);
+						theBuffer.flip();
+						this.netIn = theBuffer;
+					}
+					break;
+				}
+				if (theResult.getStatus() == SSLEngineResult.Status.CLOSED) {
+					// Read the packets received before the close notify first
+					theClosed = true;
+					break;
+				}
+
+				theProgress = true;
+
+				if (theResult.getHandshakeStatus() != SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING
+						&& theResult.getHandshakeStatus() != SSLEngineResult.HandshakeStatus.FINISHED
+						&& !this.handshaking) {
+					// Renegotiation or post-handshake message
+					this.handshaking = true;
+				}
+
+				if (!this.netIn.hasRemaining()
+						|| theResult.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_TASK
+						|| theResult.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_WRAP) {
+					break;
+				}
+			}
+		}
+		finally {
+			this.netIn.compact();
+		}
+
+		this.appIn.flip();
+		try {
+			this.readPackets(this.appIn);
+		}
+		finally {
+			this.appIn.compact();
+		}
+
+		if (theClosed) {
+			throw new EOFException("SSL connection closed by peer");
+		}
+
+		return theProgress;
+	}
+
+	/**
+	 * Wraps bytes into <code>netOut</code>.
+	 *
+	 * @param aSource Bytes to wrap
+	 *
+	 * @throws IOException Error wrapping the bytes
+	 */
+	private void wrap(ByteBuffer aSource) throws IOException {
+		this.netOut.compact();
+		try {
+			for (;;) {
+				SSLEngineResult theResult = this.engine.wrap(aSource, this.netOut);
+
+				if (theResult.getStatus() == SSLEngineResult.Status.BUFFER_OVERFLOW) {
+					ByteBuffer theBuffer = ByteBuffer.allocate(this.netOut.capacity() * 2);
+					this.netOut.flip();
+					theBuffer.put(this.netOut);
+					this.netOut = theBuffer;
+					continue;
+				}
+				if (theResult.getStatus() == SSLEngineResult.Status.CLOSED
+						&& !this.engine.isOutboundDone()) {
+					throw new EOFException("SSL connection closed");
+				}
+				break;
+			}
+		}
+		finally {
+			this.netOut.flip();
+		}
+	}
+
+	/**
+	 * Writes the bytes of <code>netOut</code> to the channel.
+	 *
+	 * @return <code>true</code> if all of the bytes were written;
+	 *         <code>false</code> otherwise.
+	 *
+	 * @throws IOException Error writing to the channel
+	 */
+	private boolean flushNetOut() throws IOException {
+		if (this.netOut.hasRemaining()) {
+			this.channel.write(this.netOut);
+		}
+		return !this.netOut.hasRemaining();
+	}
+
+}
+
+// End class EPPNIOPacketChannel
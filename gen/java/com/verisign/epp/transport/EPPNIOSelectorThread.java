@@ -0,0 +1,193 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.transport;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.apache.log4j.Logger;
+
+import com.verisign.epp.util.EPPCatFactory;
+
+/**
+ * Thread that runs a <code>Selector</code> loop for a set of non-blocking
+ * connections, which is shared by the client selector pool
+ * (<code>EPPNIOSelectorPool</code>) and the NIO server
+ * (<code>EPPNIOServer</code>).  Each channel is registered with the
+ * {@link Handler} of its connection as the attachment, and the ready
+ * operations are dispatched to the handler.  Work is submitted to the
+ * thread with {@link #execute(Runnable)} so that the I/O state of a
+ * connection is only accessed by the selector thread.
+ */
+public class EPPNIOSelectorThread extends Thread {
+
+	/**
+	 * Connection driven by an <code>EPPNIOSelectorThread</code>, which is
+	 * the attachment of the selection key of the channel.  The methods are
+	 * called by the selector thread.
+	 */
+	public interface Handler {
+
+		/**
+		 * Reads from the channel when the channel is readable.
+		 *
+		 * @throws IOException Error reading from the channel
+		 */
+		void handleRead() throws IOException;
+
+		/**
+		 * Writes to the channel when the channel is writable.
+		 *
+		 * @throws IOException Error writing to the channel
+		 */
+		void handleWrite() throws IOException;
+
+		/**
+		 * Closes the connection because of an error.
+		 *
+		 * @param aException Cause of closing the connection
+		 */
+		void fail(IOException aException);
+	}
+
+	/** Log4j category for logging */
+	private static Logger cat = Logger.getLogger(EPPNIOSelectorThread.class
+			.getName(), EPPCatFactory.getInstance().getFactory());
+
+	/** Selector of the thread */
+	private Selector selector;
+
+	/** Tasks to execute on the selector thread */
+	private ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+
+	/** Has the thread been asked to stop? */
+	private volatile boolean shutdown = false;
+
+	/**
+	 * Creates a daemon selector thread.
+	 *
+	 * @param aName Thread name
+	 *
+	 * @throws IOException Error opening the selector
+	 */
+	public EPPNIOSelectorThread(String aName) throws IOException {
+		super(aName);
+		this.selector = Selector.open();
+		this.setDaemon(true);
+	}
+
+	/**
+	 * Gets the <code>Selector</code> of the thread.
+	 *
+	 * @return Selector used to register channels
+	 */
+	public Selector getSelector() {
+		return this.selector;
+	}
+
+	/**
+	 * Executes a task on the selector thread.  The task is executed
+	 * directly when called from the selector thread.
+	 *
+	 * @param aTask Task to execute
+	 */
+	public void execute(Runnable aTask) {
+		if (Thread.currentThread() == this) {
+			aTask.run();
+		}
+		else {
+			this.tasks.add(aTask);
+			this.selector.wakeup();
+		}
+	}
+
+	/**
+	 * Stops the selector thread, which closes all of its connections.
+	 */
+	public void shutdown() {
+		this.shutdown = true;
+		this.selector.wakeup();
+	}
+
+	/**
+	 * Selector loop that dispatches the ready operations to the
+	 * {@link Handler} attached to the selection keys.
+	 */
+	public void run() {
+		while (!this.shutdown) {
+			try {
+				this.selector.select();
+
+				Runnable theTask;
+				while ((theTask = this.tasks.poll()) != null) {
+					theTask.run();
+				}
+
+				Iterator<SelectionKey> theKeys = this.selector.selectedKeys().iterator();
+				while (theKeys.hasNext()) {
+					SelectionKey theKey = theKeys.next();
+					theKeys.remove();
+
+					Handler theCon = (Handler) theKey.attachment();
+					try {
+						if (theKey.isValid() && theKey.isReadable()) {
+							theCon.handleRead();
+						}
+						if (theKey.isValid() && theKey.isWritable()) {
+							theCon.handleWrite();
+						}
+					}
+					catch (CancelledKeyException ex) {
+						// Connection closed
+					}
+					catch (IOException ex) {
+						theCon.fail(ex);
+					}
+					catch (RuntimeException ex) {
+						cat.error("run(): Unexpected error processing connection: " + ex, ex);
+						theCon.fail(new IOException(ex.toString()));
+					}
+				}
+			}
+			catch (Throwable ex) {
+				cat.error("run(): Unexpected error in selector loop: " + ex, ex);
+			}
+		}
+
+		// Close the remaining connections
+		for (SelectionKey theKey : this.selector.keys()) {
+			((Handler) theKey.attachment()).fail(new ClosedChannelException());
+		}
+		try {
+			this.selector.close();
+		}
+		catch (IOException ex) {
+			// Ignore
+		}
+	}
+
+}
+
+// End class EPPNIOSelectorThread
@@ -87,17 +87,19 @@ public class EPPServerThread extends Thread {
 						public void handshakeCompleted(
 								HandshakeCompletedEvent aEvent) {
 							try {
-								cat.debug("Server SSL Handshake"
-										+ ": Cipher = "
-										+ aEvent.getCipherSuite()
-										+ ": Protocol = "
-										+ aEvent.getSession().getProtocol()
-										+ ": Peer = "
-										+ aEvent.getSession()
-												.getPeerPrincipal().getName()
-										+ ": Issuer = "
-										+ aEvent.getPeerCertificateChain()[0]
-												.getIssuerDN().getName());
+								if (cat.isDebugEnabled()) {
+									cat.debug("Server SSL Handshake"
+											+ ": Cipher = "
+											+ aEvent.getCipherSuite()
+											+ ": Protocol = "
+											+ aEvent.getSession().getProtocol()
+											+ ": Peer = "
+											+ aEvent.getSession()
+													.getPeerPrincipal().getName()
+											+ ": Issuer = "
+											+ aEvent.getPeerCertificateChain()[0]
+													.getIssuerDN().getName());
+								}
 							}
 							catch (SSLPeerUnverifiedException e) {
 								// ignore
@@ -0,0 +1,56 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.transport;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Server connection handler that can process the messages of a connection
+ * one at a time, which is required by the event-driven servers
+ * (<code>EPPNIOServer</code> and <code>EPPNIOSSLServer</code>) that do not
+ * dedicate a thread to each connection.  Instead of calling
+ * {@link ServerEventHandler#handleConnection(InputStream, OutputStream)}
+ * for the life of the connection, the event-driven servers call
+ * {@link #handleConnectionStart(OutputStream)} when the connection is
+ * established and {@link #handleMessage(InputStream, OutputStream)} for
+ * each complete message received.  The handler is cloned for each
+ * connection like with the other servers.
+ */
+public interface ServerMessageHandler extends ServerEventHandler {
+	/**
+	 * Handles a new connection, which includes sending the greeting.
+	 *
+	 * @param aOutputStream Stream to write the greeting to
+	 */
+	public void handleConnectionStart(OutputStream aOutputStream);
+
+	/**
+	 * Handles one complete message received on the connection.
+	 *
+	 * @param aInputStream Stream that contains the message
+	 * @param aOutputStream Stream to write the response to
+	 *
+	 * @return <code>true</code> if the connection should keep accepting 
+	 * 		   messages; <code>false</code> if the connection should be closed 
+	 * 		   once the response is written.
+	 */
+	public boolean handleMessage(InputStream aInputStream, OutputStream aOutputStream);
+}
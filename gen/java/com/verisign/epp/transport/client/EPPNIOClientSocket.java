@@ -0,0 +1,844 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.transport.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.net.ssl.SSLEngine;
+
+import org.apache.log4j.Logger;
+
+import com.verisign.epp.transport.EPPClientCon;
+import com.verisign.epp.transport.EPPConException;
+import com.verisign.epp.transport.EPPNIOPacketChannel;
+import com.verisign.epp.transport.EPPNIOSelectorThread;
+import com.verisign.epp.util.EPPCatFactory;
+import com.verisign.epp.util.EPPEnv;
+import com.verisign.epp.util.EPPEnvException;
+
+/**
+ * Non-blocking client connection class that can be configured to connect to
+ * a server over TCP using the <code>EPP.ClientSocketName</code>
+ * configuration property.  The connection is built on a
+ * <code>SocketChannel</code> that is driven by one of the selector threads of
+ * {@link EPPNIOSelectorPool}, so no thread is parked on a socket read per
+ * connection.  The selector thread reads the EPP data units using the
+ * 4-byte length framing of RFC 5734 with {@link EPPNIOPacketChannel}, which
+ * is shared with the NIO server, and hands complete packets to
+ * the input stream of the connection, so a thread reading the input stream
+ * only wakes up when a complete packet is available.  The output stream
+ * buffers a packet until <code>flush()</code>, which queues the packet to
+ * the selector thread and waits for it to be written, so the header and the
+ * packet are always written in one write.<br>
+ * <br>
+ * {@link EPPNIOSSLClientSocket} adds SSL / TLS to the connection with an
+ * <code>SSLEngine</code>.
+ *
+ * @see EPPNIOSelectorPool
+ * @see EPPNIOSSLClientSocket
+ */
+public class EPPNIOClientSocket implements EPPClientCon {
+
+	/** Log4j category for logging */
+	private static Logger cat = Logger.getLogger(EPPNIOClientSocket.class
+			.getName(), EPPCatFactory.getInstance().getFactory());
+
+	/** Initial size of the output stream buffer */
+	private static final int BUFFER_SIZE = 16384;
+
+	/**
+	 * Maximum number of received packets queued before the connection
+	 * stops reading from the channel.
+	 */
+	private static final int MAX_QUEUED_PACKETS = 16;
+
+	/** Marker queued to the input stream when the connection is closed */
+	private static final byte[] EOF = new byte[0];
+
+	/**
+	 * Packet queued to be written by the selector thread.
+	 */
+	private static class PendingWrite {
+
+		/** Bytes to write */
+		ByteBuffer buffer;
+
+		/** Completed once the bytes are written to the channel */
+		CompletableFuture<Void> done = new CompletableFuture<Void>();
+
+		/**
+		 * Creates a <code>PendingWrite</code>.
+		 *
+		 * @param aBuffer Bytes to write
+		 */
+		PendingWrite(ByteBuffer aBuffer) {
+			this.buffer = aBuffer;
+		}
+	}
+
+	/** Host Name to connect to */
+	private String hostName = null;
+
+	/** Port to connect to */
+	private int portNumber = 0;
+
+	/** Client host to connect from that determines the route to use */
+	private String clientHostName = null;
+
+	/** Is a connection established? */
+	private volatile boolean isConnected = false;
+
+	/** Connection timeout in milliseconds. The default is 5000 milliseconds */
+	private int conTimeOut = 5000;
+
+	/** SSL context used to create the <code>SSLEngine</code> */
+	private EPPSSLContext sslContext = null;
+
+	/** Channel of the connection */
+	private SocketChannel channel = null;
+
+	/** Selector thread that drives the connection */
+	private EPPNIOSelectorThread selectorThread = null;
+
+	/**
+	 * Handler of the channel registered with the selector thread, which
+	 * calls the I/O methods of the connection without making them public
+	 */
+	private EPPNIOSelectorThread.Handler selectorHandler = new EPPNIOSelectorThread.Handler() {
+
+		public void handleRead() throws IOException {
+			EPPNIOClientSocket.this.handleRead();
+		}
+
+		public void handleWrite() throws IOException {
+			EPPNIOClientSocket.this.handleWrite();
+		}
+
+		public void fail(IOException aException) {
+			EPPNIOClientSocket.this.fail(aException);
+		}
+	};
+
+	/** Selection key of the channel */
+	private SelectionKey key = null;
+
+	/** Packet I/O of the channel, including SSL */
+	private EPPNIOPacketChannel packetChannel = null;
+
+	/** Completed when the connection is ready for application data */
+	private CompletableFuture<Void> ready = new CompletableFuture<Void>();
+
+	/** Complete packets read from the connection */
+	private LinkedBlockingQueue<byte[]> packets = new LinkedBlockingQueue<byte[]>();
+
+	/** Is reading suspended since too many packets are queued? */
+	private volatile boolean readSuspended = false;
+
+	/** Packets waiting to be written by the selector thread */
+	private ConcurrentLinkedQueue<PendingWrite> writes = new ConcurrentLinkedQueue<PendingWrite>();
+
+	/** Error that closed the connection */
+	private volatile IOException failure = null;
+
+	/** Input stream of the connection */
+	private InputStream inputStream = null;
+
+	/** Output stream of the connection */
+	private OutputStream outputStream = null;
+
+	/**
+	 * Default constructor that gets the following settings from {@link EPPEnv}:<br>
+	 * <br>
+	 * <ul>
+	 * <li><code>hostName</code> - Defined with the {@link
+	 * EPPEnv#getServerName()} method.
+	 * <li><code>portNumber</code> - Defined with the {@link
+	 * EPPEnv#getServerPort()} method.
+	 * <li><code>conTimeout</code> - Defined with the {@link
+	 * EPPEnv#getConTimeOut()} method.
+	 * <li><code>clientHostName</code> - Defined with the {@link
+	 * EPPEnv#getClientHost()} method.
+	 * </ul>
+	 *
+	 * @throws EPPConException
+	 *             If there is a problem getting the default connection
+	 *             properties from {@link EPPEnv}.
+	 */
+	public EPPNIOClientSocket() throws EPPConException {
+		try {
+			this.hostName = EPPEnv.getServerName();
+			this.portNumber = EPPEnv.getServerPort();
+			this.conTimeOut = EPPEnv.getConTimeOut();
+			this.clientHostName = EPPEnv.getClientHost();
+		}
+		catch (EPPEnvException myException) {
+			cat.error("Connection Failed Due to : " + myException.getMessage(),
+					myException);
+
+			throw new EPPConException("Connection Failed Due to : "
+					+ myException.getMessage());
+		}
+	}
+
+	/**
+	 * Does the connection use SSL?  Overridden by
+	 * {@link EPPNIOSSLClientSocket} to return <code>true</code>.
+	 *
+	 * @return <code>false</code>
+	 */
+	protected boolean isSSL() {
+		return false;
+	}
+
+	/**
+	 * Initializes a connection to the host and port defined by the server
+	 * name and the server port properties of <code>EPPEnv</code>.
+	 *
+	 * @exception EPPConException
+	 *                Error initializing the connection.
+	 */
+	public void initialize() throws EPPConException {
+		cat.debug("initialize(): enter");
+
+		if (this.isSSL()) {
+			// SSL not initialized?
+			if (this.sslContext == null) {
+				EPPSSLImpl.initialize();
+				this.sslContext = EPPSSLImpl.getEPPSSLContext();
+			}
+		}
+
+		try {
+			if (cat.isDebugEnabled()) {
+				cat.debug("initialize(): Connecting to server host = " + this.hostName
+						+ ", server port = " + this.portNumber + " from client host = "
+						+ this.clientHostName);
+			}
+
+			this.channel = SocketChannel.open();
+			if (this.clientHostName != null) {
+				this.channel.socket().bind(new InetSocketAddress(this.clientHostName, 0));
+			}
+			this.channel.socket().connect(new InetSocketAddress(this.hostName, this.portNumber),
+					this.conTimeOut);
+			this.channel.socket().setTcpNoDelay(true);
+			this.channel.configureBlocking(false);
+		}
+		catch (IOException ex) {
+			cat.error("an I/O error occurs when creating the socket. ", ex);
+			this.closeChannel();
+
+			throw new EPPConException(
+					"an I/O error occurs when creating the socket. "
+							+ ex.getMessage());
+		}
+
+		SSLEngine theEngine = null;
+
+		if (this.isSSL()) {
+			theEngine = this.sslContext.getSSLContext().createSSLEngine(this.hostName,
+					this.portNumber);
+			theEngine.setUseClientMode(true);
+
+			if (this.sslContext.hasSSLEnabledProtocols()) {
+				theEngine.setEnabledProtocols(this.sslContext.getSSLEnabledProtocols());
+			}
+			if (this.sslContext.hasSSLEnabledCipherSuites()) {
+				theEngine.setEnabledCipherSuites(this.sslContext.getSSLEnabledCipherSuites());
+			}
+		}
+
+		this.packetChannel = new EPPNIOPacketChannel(this.channel, theEngine,
+				new EPPNIOPacketChannel.Listener() {
+
+					public void packetRead(byte[] aPacket) {
+						packets.add(aPacket);
+						if (packets.size() >= MAX_QUEUED_PACKETS) {
+							readSuspended = true;
+						}
+					}
+
+					public void handshakeCompleted() {
+						ready.complete(null);
+					}
+				});
+
+		// Register with a selector thread
+		try {
+			this.selectorThread = EPPNIOSelectorPool.getInstance().nextThread();
+		}
+		catch (IOException ex) {
+			cat.error("initialize(): Error getting selector pool: " + ex, ex);
+			this.closeChannel();
+			throw new EPPConException("Error getting selector pool: " + ex.getMessage());
+		}
+
+		this.selectorThread.execute(new Runnable() {
+			public void run() {
+				try {
+					key = channel.register(selectorThread.getSelector(), SelectionKey.OP_READ,
+							selectorHandler);
+					packetChannel.start();
+					updateInterest();
+				}
+				catch (IOException ex) {
+					fail(ex);
+				}
+			}
+		});
+
+		// Wait for the connection to be ready
+		try {
+			this.ready.get(this.conTimeOut, TimeUnit.MILLISECONDS);
+		}
+		catch (ExecutionException ex) {
+			cat.error("Failed When HandShake : " + ex.getCause(), ex.getCause());
+			this.closeChannel();
+			throw new EPPConException("Failed When HandShake : " + ex.getCause().getMessage());
+		}
+		catch (TimeoutException ex) {
+			cat.error("Failed When HandShake : Timed out after " + this.conTimeOut + " ms");
+			this.fail(new SocketTimeoutException("SSL handshake timed out"));
+			throw new EPPConException("Failed When HandShake : Timed out after "
+					+ this.conTimeOut + " ms");
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			this.fail(new IOException("Interrupted during initialize"));
+			throw new EPPConException("Interrupted during initialize");
+		}
+
+		this.inputStream = new PacketInputStream();
+		this.outputStream = new PacketOutputStream();
+		this.isConnected = true;
+
+		cat.debug("initialize(): exit");
+	}
+
+	/**
+	 * Initializes a connection to a specific host and port. There remainder
+	 * of the connection settings is derived from the <code>EPPEnv</code>
+	 * properties.
+	 *
+	 * @param aHostName
+	 *            Host name or IP address of host to connect to
+	 * @param aPortNumber
+	 *            Port number to connect to
+	 * @param aSSLContext
+	 *            Optional specific SSL context to use.  Ignored if the
+	 *            connection does not use SSL.
+	 *
+	 * @exception EPPConException
+	 *                Error initializing the connection.
+	 */
+	public void initialize(String aHostName, int aPortNumber,
+			EPPSSLContext aSSLContext) throws EPPConException {
+		this.hostName = aHostName;
+		this.portNumber = aPortNumber;
+		this.sslContext = aSSLContext;
+
+		this.initialize();
+	}
+
+	/**
+	 * Initializes a connection to a specific host and port. There remainder
+	 * of the connection settings is derived from the <code>EPPEnv</code>
+	 * properties.
+	 *
+	 * @param aHostName
+	 *            Host name or IP address of host to connect to
+	 * @param aPortNumber
+	 *            Port number to connect to
+	 * @param aClientHostName
+	 *            Host name or IP address to connect from
+	 * @param aSSLContext
+	 *            Optional specific SSL context to use.  Ignored if the
+	 *            connection does not use SSL.
+	 *
+	 * @exception EPPConException
+	 *                Error initializing the connection.
+	 */
+	public void initialize(String aHostName, int aPortNumber,
+			String aClientHostName, EPPSSLContext aSSLContext)
+			throws EPPConException {
+		this.hostName = aHostName;
+		this.portNumber = aPortNumber;
+		this.clientHostName = aClientHostName;
+		this.sslContext = aSSLContext;
+
+		this.initialize();
+	}
+
+	/**
+	 * Gets the input stream of the connection, which returns the bytes of
+	 * the complete packets read by the selector thread.
+	 *
+	 * @return <code>InputStream</code> of the connection
+	 *
+	 * @exception EPPConException
+	 *                Input stream not set
+	 */
+	public InputStream getInputStream() throws EPPConException {
+		if (this.inputStream == null) {
+			cat.error("getInputStream(): No InputStream set");
+			throw new EPPConException("No InputStream set");
+		}
+
+		return this.inputStream;
+	}
+
+	/**
+	 * Gets the output stream of the connection, which writes the buffered
+	 * bytes on <code>flush()</code>.
+	 *
+	 * @return <code>OutputStream</code> of the connection
+	 *
+	 * @exception EPPConException
+	 *                Output stream not set
+	 */
+	public OutputStream getOutputStream() throws EPPConException {
+		if (this.outputStream == null) {
+			cat.error("getOutputStream(): No OutputStream set");
+			throw new EPPConException("No OutputStream set");
+		}
+
+		return this.outputStream;
+	}
+
+	/**
+	 * Gets the host name or IP address to connect to.
+	 *
+	 * @return host name or IP address to connect to
+	 */
+	protected String getHostName() {
+		return this.hostName;
+	}
+
+	/**
+	 * Gets the port number to connect to.
+	 *
+	 * @return port number to connect to
+	 */
+	protected int getPortNumber() {
+		return this.portNumber;
+	}
+
+	/**
+	 * Is the connection established?
+	 *
+	 * @return <code>true</code> if connected; <code>false</code> otherwise.
+	 */
+	protected boolean isConnected() {
+		return this.isConnected;
+	}
+
+	/**
+	 * Closing the connection.  With SSL, a close notify is sent before the
+	 * channel is closed.
+	 *
+	 * @exception EPPConException
+	 *                Error closing the connection
+	 */
+	public void close() throws EPPConException {
+		cat.debug("close(): enter");
+
+		// Return if already closed
+		if (!this.isConnected) {
+			return;
+		}
+		this.isConnected = false;
+
+		if (this.selectorThread != null) {
+			this.selectorThread.execute(new Runnable() {
+				public void run() {
+					if (failure == null) {
+						packetChannel.closeOutbound();
+					}
+					fail(new EOFException("Connection closed"));
+				}
+			});
+		}
+		else {
+			this.closeChannel();
+		}
+
+		cat.debug("close(): exit");
+	}
+
+	/**
+	 * Reads from the channel.  Called by the selector thread when the
+	 * channel is readable.
+	 *
+	 * @throws IOException Error reading from the channel
+	 */
+	void handleRead() throws IOException {
+		this.packetChannel.read();
+		this.updateInterest();
+	}
+
+	/**
+	 * Writes the queued packets to the channel.  Called by the selector
+	 * thread when the channel is writable and when a packet is queued.
+	 *
+	 * @throws IOException Error writing to the channel
+	 */
+	void handleWrite() throws IOException {
+		if (this.packetChannel.flush()) {
+			PendingWrite theWrite;
+			while ((theWrite = this.writes.peek()) != null) {
+				if (!this.packetChannel.write(theWrite.buffer)) {
+					break;
+				}
+				this.writes.poll();
+				theWrite.done.complete(null);
+			}
+		}
+
+		this.updateInterest();
+	}
+
+	/**
+	 * Closes the connection because of an error.  The input stream will
+	 * return the end of stream once the received packets are consumed, and
+	 * the queued writes fail.
+	 *
+	 * @param aException Error that closed the connection
+	 */
+	void fail(IOException aException) {
+		if (this.failure == null) {
+			this.failure = aException;
+			if (!(aException instanceof EOFException)) {
+				cat.error("fail(): Closing connection: " + aException);
+			}
+		}
+
+		this.isConnected = false;
+		this.ready.completeExceptionally(aException);
+		this.packets.add(EOF);
+
+		PendingWrite theWrite;
+		while ((theWrite = this.writes.poll()) != null) {
+			theWrite.done.completeExceptionally(aException);
+		}
+
+		if (this.key != null) {
+			this.key.cancel();
+		}
+		this.closeChannel();
+	}
+
+	/**
+	 * Closes the channel, ignoring any error.
+	 */
+	private void closeChannel() {
+		try {
+			if (this.channel != null) {
+				this.channel.close();
+			}
+		}
+		catch (IOException ex) {
+			// Ignore
+		}
+	}
+
+	/**
+	 * Updates the interest operations of the selection key based on the
+	 * state of the connection.
+	 */
+	private void updateInterest() {
+		if (this.key == null || !this.key.isValid()) {
+			return;
+		}
+
+		int theOps = 0;
+		if (!this.readSuspended) {
+			theOps |= SelectionKey.OP_READ;
+		}
+		if (this.packetChannel.hasPendingOutput()
+				|| (!this.packetChannel.isHandshaking() && !this.writes.isEmpty())) {
+			theOps |= SelectionKey.OP_WRITE;
+		}
+
+		this.key.interestOps(theOps);
+	}
+
+	/**
+	 * Resumes reading from the channel after a packet was consumed by the
+	 * input stream.
+	 */
+	private void resumeRead() {
+		this.selectorThread.execute(new Runnable() {
+			public void run() {
+				if (readSuspended && packets.size() < MAX_QUEUED_PACKETS) {
+					readSuspended = false;
+					updateInterest();
+				}
+			}
+		});
+	}
+
+	/**
+	 * Queues a packet to be written by the selector thread and waits for it
+	 * to be written to the channel.
+	 *
+	 * @param aBuffer Packet to write
+	 *
+	 * @throws IOException Error writing the packet
+	 */
+	private void write(ByteBuffer aBuffer) throws IOException {
+		if (this.failure != null) {
+			throw new IOException("Connection closed: " + this.failure.getMessage());
+		}
+
+		final PendingWrite theWrite = new PendingWrite(aBuffer);
+		this.writes.add(theWrite);
+		this.selectorThread.execute(new Runnable() {
+			public void run() {
+				try {
+					handleWrite();
+				}
+				catch (IOException ex) {
+					fail(ex);
+				}
+			}
+		});
+
+		try {
+			theWrite.done.get(this.conTimeOut, TimeUnit.MILLISECONDS);
+		}
+		catch (ExecutionException ex) {
+			throw new IOException("Error writing packet: " + ex.getCause().getMessage());
+		}
+		catch (TimeoutException ex) {
+			throw new SocketTimeoutException("Timed out writing packet after " + this.conTimeOut + " ms");
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted writing packet");
+		}
+	}
+
+	/**
+	 * Input stream that returns the bytes of the packets read by the
+	 * selector thread.  A read blocks until a packet is available or the
+	 * connection timeout expires, like the read of a <code>Socket</code> with
+	 * a socket timeout.
+	 */
+	private class PacketInputStream extends InputStream {
+
+		/** Current packet */
+		private byte[] current = null;
+
+		/** Position in the current packet */
+		private int pos = 0;
+
+		/**
+		 * Ensures that there are bytes available in the current packet.
+		 *
+		 * @return <code>false</code> at the end of stream; <code>true</code>
+		 *         otherwise.
+		 *
+		 * @throws IOException Timeout or error waiting for a packet
+		 */
+		private boolean fill() throws IOException {
+			if (this.current != null && this.pos < this.current.length) {
+				return true;
+			}
+			if (this.current == EOF) {
+				return false;
+			}
+
+			try {
+				this.current = packets.poll(conTimeOut, TimeUnit.MILLISECONDS);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted waiting for packet");
+			}
+			this.pos = 0;
+
+			if (this.current == null) {
+				throw new SocketTimeoutException("Read timed out after " + conTimeOut + " ms");
+			}
+			if (this.current == EOF) {
+				packets.add(EOF);
+				if (failure != null && !(failure instanceof EOFException)) {
+					throw new IOException("Connection closed: " + failure.getMessage());
+				}
+				return false;
+			}
+
+			if (readSuspended) {
+				resumeRead();
+			}
+
+			return true;
+		}
+
+		/**
+		 * Reads a byte.
+		 *
+		 * @return Byte read or <code>-1</code> at the end of stream
+		 *
+		 * @throws IOException Timeout or error waiting for a packet
+		 */
+		public int read() throws IOException {
+			if (!this.fill()) {
+				return -1;
+			}
+			return this.current[this.pos++] & 0xff;
+		}
+
+		/**
+		 * Reads bytes up to the end of the current packet.
+		 *
+		 * @param aBuffer Buffer to read into
+		 * @param aOffset Offset in <code>aBuffer</code>
+		 * @param aLength Maximum number of bytes to read
+		 *
+		 * @return Number of bytes read or <code>-1</code> at the end of stream
+		 *
+		 * @throws IOException Timeout or error waiting for a packet
+		 */
+		public int read(byte[] aBuffer, int aOffset, int aLength) throws IOException {
+			if (aLength == 0) {
+				return 0;
+			}
+			if (!this.fill()) {
+				return -1;
+			}
+
+			int theLength = Math.min(aLength, this.current.length - this.pos);
+			System.arraycopy(this.current, this.pos, aBuffer, aOffset, theLength);
+			this.pos += theLength;
+			return theLength;
+		}
+
+		/**
+		 * Gets the number of bytes left in the current packet.
+		 *
+		 * @return Number of bytes that can be read without blocking
+		 */
+		public int available() {
+			if (this.current == null || this.current == EOF) {
+				return 0;
+			}
+			return this.current.length - this.pos;
+		}
+
+		/**
+		 * Closes the connection.
+		 *
+		 * @throws IOException Never thrown
+		 */
+		public void close() throws IOException {
+			try {
+				EPPNIOClientSocket.this.close();
+			}
+			catch (EPPConException ex) {
+				throw new IOException(ex.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Output stream that buffers the bytes until <code>flush()</code>, which
+	 * writes the buffered bytes in one write.
+	 */
+	private class PacketOutputStream extends OutputStream {
+
+		/** Buffered bytes */
+		private ByteArrayOutputStream buffer = new ByteArrayOutputStream(BUFFER_SIZE);
+
+		/**
+		 * Buffers a byte.
+		 *
+		 * @param aByte Byte to write
+		 */
+		public void write(int aByte) {
+			this.buffer.write(aByte);
+		}
+
+		/**
+		 * Buffers bytes.
+		 *
+		 * @param aBuffer Bytes to write
+		 * @param aOffset Offset in <code>aBuffer</code>
+		 * @param aLength Number of bytes to write
+		 */
+		public void write(byte[] aBuffer, int aOffset, int aLength) {
+			this.buffer.write(aBuffer, aOffset, aLength);
+		}
+
+		/**
+		 * Writes the buffered bytes to the connection.
+		 *
+		 * @throws IOException Error writing to the connection
+		 */
+		public void flush() throws IOException {
+			if (this.buffer.size() == 0) {
+				return;
+			}
+
+			ByteBuffer theBytes = ByteBuffer.wrap(this.buffer.toByteArray());
+			this.buffer.reset();
+			EPPNIOClientSocket.this.write(theBytes);
+		}
+
+		/**
+		 * Flushes the buffered bytes and closes the connection.
+		 *
+		 * @throws IOException Error writing to the connection
+		 */
+		public void close() throws IOException {
+			try {
+				if (isConnected) {
+					this.flush();
+				}
+			}
+			finally {
+				try {
+					EPPNIOClientSocket.this.close();
+				}
+				catch (EPPConException ex) {
+					throw new IOException(ex.getMessage());
+				}
+			}
+		}
+	}
+
+}
+
+// End class EPPNIOClientSocket
@@ -0,0 +1,61 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.transport.client;
+
+import com.verisign.epp.transport.EPPConException;
+
+/**
+ * Non-blocking Secure Socket Layer client connection class that can be
+ * configured to connect to a server over SSL / TLS using the
+ * <code>EPP.ClientSocketName</code> configuration property.  The SSL / TLS
+ * records are processed with an <code>SSLEngine</code> by the selector
+ * thread of the connection, as described in {@link EPPNIOClientSocket}.  The
+ * SSL settings are passed in using the {@link EPPSSLContext} class, like
+ * with {@link EPPSSLClientSocket}.
+ *
+ * @see EPPSSLContext
+ * @see EPPNIOClientSocket
+ */
+public class EPPNIOSSLClientSocket extends EPPNIOClientSocket {
+
+	/**
+	 * Default constructor that gets the settings from <code>EPPEnv</code> as
+	 * defined in {@link EPPNIOClientSocket#EPPNIOClientSocket()}.
+	 *
+	 * @throws EPPConException
+	 *             If there is a problem getting the default connection
+	 *             properties from <code>EPPEnv</code>.
+	 */
+	public EPPNIOSSLClientSocket() throws EPPConException {
+		super();
+	}
+
+	/**
+	 * Does the connection use SSL?
+	 *
+	 * @return <code>true</code>
+	 */
+	protected boolean isSSL() {
+		return true;
+	}
+
+}
+
+// End class EPPNIOSSLClientSocket
@@ -0,0 +1,115 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.transport.client;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+
+import com.verisign.epp.transport.EPPNIOSelectorThread;
+import com.verisign.epp.util.EPPCatFactory;
+import com.verisign.epp.util.EPPEnv;
+
+/**
+ * Pool of selector threads that drive the I/O of the non-blocking client
+ * connections ({@link EPPNIOClientSocket} and {@link EPPNIOSSLClientSocket}).
+ * Each connection is assigned to one selector thread in round-robin order,
+ * and all of the reads, writes, and SSL operations of the connection are
+ * executed by that thread.  The number of selector threads is defined by
+ * the <code>EPP.NIO.SelectorThreads</code> configuration property, which
+ * defaults to <code>2</code>, so a few threads can serve hundreds of
+ * connections.
+ */
+public class EPPNIOSelectorPool {
+
+	/** Log4j category for logging */
+	private static Logger cat = Logger.getLogger(EPPNIOSelectorPool.class
+			.getName(), EPPCatFactory.getInstance().getFactory());
+
+	/** Singleton instance */
+	private static EPPNIOSelectorPool instance = null;
+
+	/** Selector threads of the pool */
+	private EPPNIOSelectorThread[] threads;
+
+	/** Index of the next selector thread to assign a connection to */
+	private AtomicInteger next = new AtomicInteger();
+
+	/**
+	 * Creates a pool with a number of selector threads.
+	 *
+	 * @param aNumThreads Number of selector threads
+	 *
+	 * @throws IOException Error opening a selector
+	 */
+	EPPNIOSelectorPool(int aNumThreads) throws IOException {
+		if (aNumThreads < 1) {
+			aNumThreads = 1;
+		}
+
+		this.threads = new EPPNIOSelectorThread[aNumThreads];
+		for (int i = 0; i < aNumThreads; i++) {
+			this.threads[i] = new EPPNIOSelectorThread("EPPNIOSelector-" + i);
+			this.threads[i].start();
+		}
+
+		cat.info("EPPNIOSelectorPool: Started " + aNumThreads + " selector threads");
+	}
+
+	/**
+	 * Gets the singleton selector pool, which is created on first use with
+	 * the number of threads defined by
+	 * {@link EPPEnv#getNIOSelectorThreads()}.
+	 *
+	 * @return Selector pool
+	 *
+	 * @throws IOException Error opening a selector
+	 */
+	public static synchronized EPPNIOSelectorPool getInstance() throws IOException {
+		if (instance == null) {
+			instance = new EPPNIOSelectorPool(EPPEnv.getNIOSelectorThreads());
+		}
+
+		return instance;
+	}
+
+	/**
+	 * Gets the selector thread to assign the next connection to.
+	 *
+	 * @return Selector thread
+	 */
+	EPPNIOSelectorThread nextThread() {
+		int theIndex = (this.next.getAndIncrement() & Integer.MAX_VALUE) % this.threads.length;
+		return this.threads[theIndex];
+	}
+
+	/**
+	 * Gets the number of selector threads in the pool.
+	 *
+	 * @return Number of selector threads
+	 */
+	public int getNumThreads() {
+		return this.threads.length;
+	}
+
+}
+
+// End class EPPNIOSelectorPool
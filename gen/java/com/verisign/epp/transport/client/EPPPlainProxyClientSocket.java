@@ -159,8 +159,10 @@ public class EPPPlainProxyClientSocket extends EPPPlainClientSocket {
 		Socket theSocket = null;
 		EPPProxyServer theCurrProxy = null;
 
-		cat.debug("initialize(): proxy server list size = "
-				+ theProxyList.size());
+		if (cat.isDebugEnabled()) {
+			cat.debug("initialize(): proxy server list size = "
+					+ theProxyList.size());
+		}
 
 		// Not connected and more proxy servers
 		while (!theConnectedToProxy && theProxyList.size() != 0) {
@@ -175,14 +177,18 @@ public class EPPPlainProxyClientSocket extends EPPPlainClientSocket {
 				theCurrProxyIndex = 0;
 			}
 
-			cat.debug("initialize(): proxy server selected index "
-					+ theCurrProxyIndex + " of " + theProxyList.size()
-					+ " servers");
+			if (cat.isDebugEnabled()) {
+				cat.debug("initialize(): proxy server selected index "
+						+ theCurrProxyIndex + " of " + theProxyList.size()
+						+ " servers");
+			}
 
 			theCurrProxy = (EPPProxyServer) theProxyList.get(theCurrProxyIndex);
 			theProxyList.remove(theCurrProxyIndex);
 
-			cat.debug("initialize(): proxy server = " + theCurrProxy);
+			if (cat.isDebugEnabled()) {
+				cat.debug("initialize(): proxy server = " + theCurrProxy);
+			}
 
 			InetSocketAddress theSocketAddress = new InetSocketAddress(
 					theCurrProxy.getServerName(), theCurrProxy.getServerPort());
@@ -193,15 +199,19 @@ public class EPPPlainProxyClientSocket extends EPPPlainClientSocket {
 
 				// Want to specify the client host?
 				if (super.getClientHostName() != null) {
-					cat.debug("initialize(): Binding to client address = "
-							+ super.getClientHostName());
+					if (cat.isDebugEnabled()) {
+						cat.debug("initialize(): Binding to client address = "
+								+ super.getClientHostName());
+					}
 					InetSocketAddress theClientSocketAddress = new InetSocketAddress(
 							super.getClientHostName(), 0);
 					theSocket.bind(theClientSocketAddress);
 				}
 
-				cat.debug("initialize(): Attempting to connect proxy server = "
-						+ theCurrProxy);
+				if (cat.isDebugEnabled()) {
+					cat.debug("initialize(): Attempting to connect proxy server = "
+							+ theCurrProxy);
+				}
 
 				theSocket.connect(theSocketAddress, super.getConTimeout());
 
@@ -214,16 +224,22 @@ public class EPPPlainProxyClientSocket extends EPPPlainClientSocket {
 
 				theLine = "CONNECT " + super.getHostName() + ":"
 						+ super.getPortNumber() + " HTTP/1.1\r\n";
-				cat.debug("Proxy Server Send [" + theLine + "]");
+				if (cat.isDebugEnabled()) {
+					cat.debug("Proxy Server Send [" + theLine + "]");
+				}
 				theStream.write(theLine.getBytes());
 
 				theLine = "Host: " + super.getHostName() + ":"
 						+ super.getPortNumber() + "\r\n";
-				cat.debug("Proxy Server Send [" + theLine + "]");
+				if (cat.isDebugEnabled()) {
+					cat.debug("Proxy Server Send [" + theLine + "]");
+				}
 				theStream.write(theLine.getBytes());
 
 				theLine = "\r\n";
-				cat.debug("Proxy Server Send [" + theLine + "]");
+				if (cat.isDebugEnabled()) {
+					cat.debug("Proxy Server Send [" + theLine + "]");
+				}
 				theStream.write(theLine.getBytes());
 
 				theStream.flush();
@@ -235,7 +251,9 @@ public class EPPPlainProxyClientSocket extends EPPPlainClientSocket {
 				int theLineNum = 1;
 				do {
 					theLine = theInputStream.readLine();
-					cat.debug("Proxy output line [" + theLine + "]");
+					if (cat.isDebugEnabled()) {
+						cat.debug("Proxy output line [" + theLine + "]");
+					}
 
 					// Validate the connection through the Proxy Server
 					if (theLineNum == 1) {
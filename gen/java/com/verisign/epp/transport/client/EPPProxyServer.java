@@ -137,7 +137,9 @@ public class EPPProxyServer {
 			// proxy server port
 			this.serverPort = Integer.parseInt(matcher.group(3));
 			
-			cat.debug("Decoding proxy server, name = " + this.serverName + ", port = " + this.serverPort);
+			if (cat.isDebugEnabled()) {
+				cat.debug("Decoding proxy server, name = " + this.serverName + ", port = " + this.serverPort);
+			}
 		}
 		else {
 			cat.error("Proxy server config item \""
@@ -170,21 +172,27 @@ public class EPPProxyServer {
 
 		List theServers = new ArrayList();
 		
-		cat.debug("decodeConfig aConfigValue = " + aConfigValue);
+		if (cat.isDebugEnabled()) {
+			cat.debug("decodeConfig aConfigValue = " + aConfigValue);
+		}
 
 		StringTokenizer theTokenizer = new StringTokenizer(aConfigValue, ",");
 
 		while (theTokenizer.hasMoreTokens()) {
 			String theConfigItem = theTokenizer.nextToken();
 
-			cat.debug("Found proxy server \"" + theConfigItem + "\"");
+			if (cat.isDebugEnabled()) {
+				cat.debug("Found proxy server \"" + theConfigItem + "\"");
+			}
 			EPPProxyServer theServer = new EPPProxyServer();
 			theServer.decodeConfigItem(theConfigItem);
 
 			theServers.add(theServer);
 		}
 		
-		cat.debug("Number of proxy servers = " + theServers.size());
+		if (cat.isDebugEnabled()) {
+			cat.debug("Number of proxy servers = " + theServers.size());
+		}
 
 		cat.debug("Ending decodeConfig");
 		return theServers;
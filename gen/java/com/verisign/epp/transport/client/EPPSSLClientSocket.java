@@ -222,17 +222,19 @@ public class EPPSSLClientSocket implements EPPClientCon {
 						public void handshakeCompleted(
 								HandshakeCompletedEvent aEvent) {
 							try {
-								cat.debug("Client SSL Handshake"
-										+ ": Cipher = "
-										+ aEvent.getCipherSuite()
-										+ ": Protocol = "
-										+ aEvent.getSession().getProtocol()
-										+ ": Peer = "
-										+ aEvent.getSession()
-												.getPeerPrincipal().getName()
-										+ ": Issuer = "
-										+ aEvent.getPeerCertificateChain()[0]
-												.getIssuerDN().getName());
+								if (cat.isDebugEnabled()) {
+									cat.debug("Client SSL Handshake"
+											+ ": Cipher = "
+											+ aEvent.getCipherSuite()
+											+ ": Protocol = "
+											+ aEvent.getSession().getProtocol()
+											+ ": Peer = "
+											+ aEvent.getSession()
+													.getPeerPrincipal().getName()
+											+ ": Issuer = "
+											+ aEvent.getPeerCertificateChain()[0]
+													.getIssuerDN().getName());
+								}
 							}
 							catch (SSLPeerUnverifiedException e) {
 								// ignore
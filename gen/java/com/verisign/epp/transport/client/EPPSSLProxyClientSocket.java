@@ -172,8 +172,10 @@ public class EPPSSLProxyClientSocket extends EPPSSLClientSocket {
 		Socket theSocket = null;
 		EPPProxyServer theCurrProxy = null;
 
-		cat.debug("initialize(): proxy server list size = "
-				+ theProxyList.size());
+		if (cat.isDebugEnabled()) {
+			cat.debug("initialize(): proxy server list size = "
+					+ theProxyList.size());
+		}
 
 		// Not connected and more proxy servers
 		while (!theConnectedToProxy && theProxyList.size() != 0) {
@@ -188,14 +190,18 @@ public class EPPSSLProxyClientSocket extends EPPSSLClientSocket {
 				theCurrProxyIndex = 0;
 			}
 
-			cat.debug("initialize(): proxy server selected index "
-					+ theCurrProxyIndex + " of " + theProxyList.size()
-					+ " servers");
+			if (cat.isDebugEnabled()) {
+				cat.debug("initialize(): proxy server selected index "
+						+ theCurrProxyIndex + " of " + theProxyList.size()
+						+ " servers");
+			}
 
 			theCurrProxy = (EPPProxyServer) theProxyList.get(theCurrProxyIndex);
 			theProxyList.remove(theCurrProxyIndex);
 
-			cat.debug("initialize(): proxy server = " + theCurrProxy);
+			if (cat.isDebugEnabled()) {
+				cat.debug("initialize(): proxy server = " + theCurrProxy);
+			}
 
 			InetSocketAddress theSocketAddress = new InetSocketAddress(
 					theCurrProxy.getServerName(), theCurrProxy.getServerPort());
@@ -206,15 +212,19 @@ public class EPPSSLProxyClientSocket extends EPPSSLClientSocket {
 
 				// Want to specify the client host?
 				if (super.getClientHostName() != null) {
-					cat.debug("initialize(): Binding to client address = "
-							+ super.getClientHostName());
+					if (cat.isDebugEnabled()) {
+						cat.debug("initialize(): Binding to client address = "
+								+ super.getClientHostName());
+					}
 					InetSocketAddress theClientSocketAddress = new InetSocketAddress(
 							super.getClientHostName(), 0);
 					theSocket.bind(theClientSocketAddress);
 				}
 
-				cat.debug("initialize(): Attempting to connect proxy server = "
-						+ theCurrProxy);
+				if (cat.isDebugEnabled()) {
+					cat.debug("initialize(): Attempting to connect proxy server = "
+							+ theCurrProxy);
+				}
 
 				theSocket.connect(theSocketAddress, super.getConTimeout());
 
@@ -227,16 +237,22 @@ public class EPPSSLProxyClientSocket extends EPPSSLClientSocket {
 
 				theLine = "CONNECT " + super.getHostName() + ":"
 						+ super.getPortNumber() + " HTTP/1.1\r\n";
-				cat.debug("Proxy Server Send [" + theLine + "]");
+				if (cat.isDebugEnabled()) {
+					cat.debug("Proxy Server Send [" + theLine + "]");
+				}
 				theStream.write(theLine.getBytes());
 
 				theLine = "Host: " + super.getHostName() + ":"
 						+ super.getPortNumber() + "\r\n";
-				cat.debug("Proxy Server Send [" + theLine + "]");
+				if (cat.isDebugEnabled()) {
+					cat.debug("Proxy Server Send [" + theLine + "]");
+				}
 				theStream.write(theLine.getBytes());
 
 				theLine = "\r\n";
-				cat.debug("Proxy Server Send [" + theLine + "]");
+				if (cat.isDebugEnabled()) {
+					cat.debug("Proxy Server Send [" + theLine + "]");
+				}
 				theStream.write(theLine.getBytes());
 
 				theStream.flush();
@@ -248,7 +264,9 @@ public class EPPSSLProxyClientSocket extends EPPSSLClientSocket {
 				int theLineNum = 1;
 				do {
 					theLine = theInputStream.readLine();
-					cat.debug("Proxy output line [" + theLine + "]");
+					if (cat.isDebugEnabled()) {
+						cat.debug("Proxy output line [" + theLine + "]");
+					}
 
 					// Validate the connection through the Proxy Server
 					if (theLineNum == 1) {
@@ -315,9 +333,11 @@ public class EPPSSLProxyClientSocket extends EPPSSLClientSocket {
 		// Set additional SSL handshake properties (enabled protocols and
 		// enabled cipher suites)
 		if (super.getSslContext().hasSSLEnabledProtocols()) {
-			cat.debug("EPPSSLClientSocket.initialize(): Enabled Protocols = ["
-					+ this.getSSLPropertyListString(super.getSslContext()
-							.getSSLEnabledProtocols()) + "]");
+			if (cat.isDebugEnabled()) {
+				cat.debug("EPPSSLClientSocket.initialize(): Enabled Protocols = ["
+						+ this.getSSLPropertyListString(super.getSslContext()
+								.getSSLEnabledProtocols()) + "]");
+			}
 			theSSLSocket.setEnabledProtocols(super.getSslContext()
 					.getSSLEnabledProtocols());
 		}
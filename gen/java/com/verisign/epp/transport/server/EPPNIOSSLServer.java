@@ -0,0 +1,111 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.transport.server;
+
+import java.net.InetSocketAddress;
+import java.nio.channels.SocketChannel;
+
+import javax.net.ssl.SSLEngine;
+
+import org.apache.log4j.Logger;
+
+import com.verisign.epp.transport.EPPConException;
+import com.verisign.epp.transport.client.EPPSSLContext;
+import com.verisign.epp.transport.client.EPPSSLImpl;
+import com.verisign.epp.util.EPPCatFactory;
+
+/**
+ * Event-driven SSL server that can be configured with the
+ * <code>EPP.ServerSocketName</code> configuration property as an
+ * alternative to {@link EPPSSLServer}.  The connections are handled like
+ * with {@link EPPNIOServer}, with SSL / TLS provided by an
+ * <code>SSLEngine</code> created from the server SSL configuration, which
+ * uses the same enabled protocols and cipher suites as
+ * <code>EPPSSLServer</code> and requires client authentication.
+ *
+ * @see EPPNIOServer
+ */
+public class EPPNIOSSLServer extends EPPNIOServer {
+
+	/** Log4j category for logging */
+	private static Logger cat = Logger.getLogger(EPPNIOSSLServer.class
+			.getName(), EPPCatFactory.getInstance().getFactory());
+
+	/** SSL context used to create the <code>SSLEngine</code> */
+	private EPPSSLContext sslContext = null;
+
+	/**
+	 * Creates the server and initializes the server SSL configuration if
+	 * not already initialized.
+	 *
+	 * @throws EPPConException Error getting the server properties or
+	 * 		   initializing the SSL configuration
+	 */
+	public EPPNIOSSLServer() throws EPPConException {
+		super();
+
+		if (!EPPSSLImpl.isInitialized()) {
+			cat.info("EPPNIOSSLServer(): Initializing server SSL configuration");
+
+			EPPSSLImpl.initialize();
+
+			cat.info("EPPNIOSSLServer(): server SSL configuration complete");
+		}
+
+		this.sslContext = EPPSSLImpl.getEPPSSLContext();
+	}
+
+	/**
+	 * Creates the server mode <code>SSLEngine</code> of an accepted
+	 * connection.
+	 *
+	 * @param aChannel Accepted channel
+	 *
+	 * @return SSL engine of the connection
+	 */
+	protected SSLEngine createSSLEngine(SocketChannel aChannel) {
+		InetSocketAddress thePeer = (InetSocketAddress) aChannel.socket().getRemoteSocketAddress();
+
+		SSLEngine theEngine;
+		if (thePeer != null) {
+			theEngine = this.sslContext.getSSLContext().createSSLEngine(thePeer.getAddress().getHostAddress(),
+					thePeer.getPort());
+		}
+		else {
+			theEngine = this.sslContext.getSSLContext().createSSLEngine();
+		}
+
+		theEngine.setUseClientMode(false);
+
+		if (this.sslContext.hasSSLEnabledProtocols()) {
+			theEngine.setEnabledProtocols(this.sslContext.getSSLEnabledProtocols());
+		}
+		if (this.sslContext.hasSSLEnabledCipherSuites()) {
+			theEngine.setEnabledCipherSuites(this.sslContext.getSSLEnabledCipherSuites());
+		}
+
+		theEngine.setNeedClientAuth(true);
+
+		return theEngine;
+	}
+
+}
+
+// End class EPPNIOSSLServer
@@ -0,0 +1,332 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.transport.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.SSLEngine;
+
+import org.apache.log4j.Logger;
+
+import com.verisign.epp.transport.EPPConException;
+import com.verisign.epp.transport.EPPNIOSelectorThread;
+import com.verisign.epp.transport.EPPServerCon;
+import com.verisign.epp.transport.ServerEventHandler;
+import com.verisign.epp.transport.ServerMessageHandler;
+import com.verisign.epp.util.EPPCatFactory;
+import com.verisign.epp.util.EPPEnv;
+import com.verisign.epp.util.EPPEnvException;
+
+/**
+ * Event-driven server that can be configured with the
+ * <code>EPP.ServerSocketName</code> configuration property as an
+ * alternative to {@link EPPPlainServer}.  Instead of creating an
+ * <code>EPPServerThread</code> per connection that blocks for the life of
+ * the session, the accepted connections are driven by a small number of
+ * selector threads (<code>EPP.NIO.SelectorThreads</code>) that read the
+ * complete EPP data units of the connections, and the complete data units
+ * are processed by a bounded pool of worker threads
+ * (<code>EPP.NIO.ServerWorkerThreads</code>) that call the
+ * <code>EPPDispatcher</code> through the
+ * {@link ServerMessageHandler#handleMessage(java.io.InputStream, java.io.OutputStream)}
+ * method of the connection handler.  The commands of a connection are
+ * processed one at a time and in order, so the connection handler does not
+ * need to be thread-safe.  The number of threads of the server does not
+ * depend on the number of connections.<br>
+ * <br>
+ * The connection handler passed to {@link #RunServer(ServerEventHandler)}
+ * must implement {@link ServerMessageHandler}, like the server stub
+ * <code>ClientConnectionHandler</code>.  {@link EPPNIOSSLServer} adds SSL /
+ * TLS to the connections with an <code>SSLEngine</code>.
+ *
+ * @see EPPNIOSSLServer
+ */
+public class EPPNIOServer implements EPPServerCon {
+
+	/** Log4j category for logging */
+	private static Logger cat = Logger.getLogger(EPPNIOServer.class
+			.getName(), EPPCatFactory.getInstance().getFactory());
+
+	/** Listening channel */
+	private ServerSocketChannel serverChannel = null;
+
+	/** Is the server accepting connections? */
+	private volatile boolean listening = true;
+
+	/** Connection handler cloned for each connection */
+	private ServerMessageHandler handler = null;
+
+	/** Port to listen on */
+	private int portNumber = 0;
+
+	/** Selector threads that drive the connections */
+	private EPPNIOSelectorThread[] selectorThreads = null;
+
+	/** Index of the next selector thread to assign a connection to */
+	private AtomicInteger nextSelector = new AtomicInteger();
+
+	/** Worker threads that process the commands */
+	private ThreadPoolExecutor workers = null;
+
+	/**
+	 * Creates the server with the port defined by
+	 * {@link EPPEnv#getServerPort()}.
+	 *
+	 * @throws EPPConException Error getting the server port
+	 */
+	public EPPNIOServer() throws EPPConException {
+		cat.debug("EPPNIOServer(): entering Constructor");
+
+		try {
+			this.portNumber = EPPEnv.getServerPort();
+		}
+		catch (EPPEnvException myException) {
+			cat.error("Connection Failed Due to : " + myException.getMessage(), myException);
+			throw new EPPConException("Connection Failed Due to : "
+									  + myException.getMessage());
+		}
+
+		if (cat.isDebugEnabled()) {
+			cat.debug("EPPNIOServer(): ServerPort = " + this.portNumber);
+		}
+		cat.debug("EPPNIOServer(): exiting Constructor");
+	}
+
+	/**
+	 * Creates the <code>SSLEngine</code> of an accepted connection.
+	 * Overridden by {@link EPPNIOSSLServer}.
+	 *
+	 * @param aChannel Accepted channel
+	 *
+	 * @return <code>null</code> since the connections do not use SSL
+	 */
+	protected SSLEngine createSSLEngine(SocketChannel aChannel) {
+		return null;
+	}
+
+	/**
+	 * Starts the selector and worker threads, and accepts connections until
+	 * the server is closed.
+	 *
+	 * @param aHandler Connection handler, which must implement
+	 * 		  <code>ServerMessageHandler</code>
+	 *
+	 * @throws EPPConException Error listening on the server port or
+	 * 		   <code>aHandler</code> is not a <code>ServerMessageHandler</code>
+	 */
+	public void RunServer(ServerEventHandler aHandler) throws EPPConException {
+		cat.debug("EPPNIOServer.RunServer(): entering Method");
+
+		if (!(aHandler instanceof ServerMessageHandler)) {
+			cat.error("EPPNIOServer.RunServer(): Handler "
+					  + (aHandler == null ? null : aHandler.getClass().getName())
+					  + " does not implement ServerMessageHandler");
+			throw new EPPConException("Handler does not implement ServerMessageHandler");
+		}
+		this.handler = (ServerMessageHandler) aHandler;
+
+		try {
+			this.serverChannel = ServerSocketChannel.open();
+			this.serverChannel.socket().setReuseAddress(true);
+			this.serverChannel.socket().bind(new InetSocketAddress(this.portNumber), 1024);
+
+			int theNumSelectors = Math.max(1, EPPEnv.getNIOSelectorThreads());
+			this.selectorThreads = new EPPNIOSelectorThread[theNumSelectors];
+			for (int i = 0; i < theNumSelectors; i++) {
+				this.selectorThreads[i] = new EPPNIOSelectorThread("EPPNIOServerSelector-" + i);
+				this.selectorThreads[i].start();
+			}
+		}
+		catch (IOException myException) {
+			cat.error("Could not Create a ServerSocket " + myException.getMessage(), myException);
+			throw new EPPConException("Could not Create a ServerSocket "
+									  + myException.getMessage());
+		}
+
+		int theNumWorkers = Math.max(1, EPPEnv.getNIOServerWorkerThreads());
+		this.workers = new ThreadPoolExecutor(theNumWorkers, theNumWorkers, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+					private AtomicInteger count = new AtomicInteger();
+
+					public Thread newThread(Runnable aTask) {
+						Thread theThread = new Thread(aTask, "EPPNIOServerWorker-"
+													  + this.count.getAndIncrement());
+						theThread.setDaemon(true);
+						return theThread;
+					}
+				});
+
+		cat.info("EPPNIOServer.RunServer(): Listening on port " + this.portNumber + " with "
+				 + this.selectorThreads.length + " selector threads and " + theNumWorkers
+				 + " worker threads");
+
+		loop();
+		close();
+
+		cat.debug("EPPNIOServer.RunServer(): Exiting Method");
+	}
+
+	/**
+	 * Accepts connections and assigns each connection to a selector thread
+	 * in round-robin order until the server is closed.
+	 *
+	 * @throws EPPConException Error accepting a connection
+	 */
+	public void loop() throws EPPConException {
+		cat.debug("EPPNIOServer.loop(): Entering Method");
+
+		while (this.listening) {
+			SocketChannel theChannel;
+			try {
+				theChannel = this.serverChannel.accept();
+			}
+			catch (IOException myException) {
+				if (!this.listening) {
+					break;
+				}
+				cat.error("I/O Error occured when wating for connection", myException);
+				throw new EPPConException("I/O Error occured when wating for connection");
+			}
+			catch (SecurityException myException) {
+				cat.error("security Manger exists and its checkListen method doesn't allow accpet operation",
+						  myException);
+				throw new EPPConException("security Manger exists and its checkListen method doesn't allow accpet operation");
+			}
+
+			try {
+				theChannel.socket().setTcpNoDelay(true);
+				theChannel.configureBlocking(false);
+
+				ServerMessageHandler theHandler = (ServerMessageHandler) this.handler.clone();
+
+				int theIndex = (this.nextSelector.getAndIncrement() & Integer.MAX_VALUE)
+							   % this.selectorThreads.length;
+
+				new EPPNIOServerConnection(theChannel, this.createSSLEngine(theChannel), theHandler,
+										   this.selectorThreads[theIndex], this.workers).register();
+			}
+			catch (CloneNotSupportedException myException) {
+				cat.error("Server Run : CloneNotSupportedException : " + myException.getMessage(),
+						  myException);
+				closeQuietly(theChannel);
+			}
+			catch (IOException myException) {
+				cat.error("Error initializing accepted connection: " + myException.getMessage(),
+						  myException);
+				closeQuietly(theChannel);
+			}
+			catch (RuntimeException myException) {
+				cat.error("Error initializing accepted connection: " + myException, myException);
+				closeQuietly(theChannel);
+			}
+		}
+
+		cat.debug("EPPNIOServer.loop(): Exiting Method");
+	}
+
+	/**
+	 * Closes the server, which stops accepting connections, closes the
+	 * connections, and stops the selector and worker threads.
+	 *
+	 * @throws EPPConException Error closing the server channel
+	 */
+	public void close() throws EPPConException {
+		cat.debug("EPPNIOServer.close(): Entering Method");
+
+		this.listening = false;
+
+		if (this.selectorThreads != null) {
+			for (int i = 0; i < this.selectorThreads.length; i++) {
+				this.selectorThreads[i].shutdown();
+			}
+		}
+
+		if (this.workers != null) {
+			this.workers.shutdown();
+		}
+
+		try {
+			if (this.serverChannel != null) {
+				this.serverChannel.close();
+			}
+		}
+		catch (IOException myException) {
+			cat.error("Close on Server socket Failed" + myException.getMessage(), myException);
+			throw new EPPConException("Close on Server socket Failed" + myException.getMessage());
+		}
+
+		cat.debug("EPPNIOServer.close(): Exiting Method");
+	}
+
+	/**
+	 * Gets the worker thread pool of the server.
+	 *
+	 * @return Worker pool or <code>null</code> if the server is not
+	 * 		   running
+	 */
+	protected ExecutorService getWorkers() {
+		return this.workers;
+	}
+
+	/**
+	 * Is the server accepting connections?
+	 *
+	 * @return <code>true</code> if listening; <code>false</code> otherwise.
+	 */
+	public boolean isListening() {
+		return this.listening;
+	}
+
+	/**
+	 * Sets whether the server is accepting connections.  Use
+	 * {@link #close()} to stop a running server.
+	 *
+	 * @param aListening <code>false</code> to stop accepting connections
+	 */
+	public void setListening(boolean aListening) {
+		this.listening = aListening;
+	}
+
+	/**
+	 * Closes a channel, ignoring any error.
+	 *
+	 * @param aChannel Channel to close
+	 */
+	private static void closeQuietly(SocketChannel aChannel) {
+		try {
+			aChannel.close();
+		}
+		catch (IOException ex) {
+			// Ignore
+		}
+	}
+
+}
+
+// End class EPPNIOServer
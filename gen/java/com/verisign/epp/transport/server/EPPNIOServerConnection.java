@@ -0,0 +1,385 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.transport.server;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.net.ssl.SSLEngine;
+
+import org.apache.log4j.Logger;
+
+import com.verisign.epp.transport.EPPNIOPacketChannel;
+import com.verisign.epp.transport.EPPNIOSelectorThread;
+import com.verisign.epp.transport.ServerMessageHandler;
+import com.verisign.epp.util.EPPCatFactory;
+
+/**
+ * Connection accepted by {@link EPPNIOServer}.  The I/O of the connection,
+ * which includes the SSL handshake and the 4-byte length framing of the
+ * EPP data units (see {@link EPPNIOPacketChannel}), is executed by the
+ * selector thread of the connection.
+ * Each complete data unit is queued and processed by a worker thread that
+ * calls the connection handler, where at most one worker processes the
+ * connection at a time so the commands are processed in order.  The
+ * response written by the handler is queued back to the selector thread.
+ * Reading from the channel is suspended while too many data units or
+ * responses are queued, so a client that sends faster than the server
+ * processes does not consume unbounded memory.
+ */
+class EPPNIOServerConnection implements Runnable, EPPNIOSelectorThread.Handler,
+		EPPNIOPacketChannel.Listener {
+
+	/** Log4j category for logging */
+	private static Logger cat = Logger.getLogger(EPPNIOServerConnection.class
+			.getName(), EPPCatFactory.getInstance().getFactory());
+
+	/** Initial size of the response buffer */
+	private static final int BUFFER_SIZE = 16384;
+
+	/**
+	 * Maximum number of received packets or responses queued before the
+	 * connection stops reading from the channel.
+	 */
+	private static final int MAX_QUEUED_PACKETS = 16;
+
+	/** Channel of the connection */
+	private SocketChannel channel;
+
+	/** Selector thread that drives the connection */
+	private EPPNIOSelectorThread selectorThread;
+
+	/** Worker pool that processes the packets */
+	private Executor workers;
+
+	/** Connection handler of the connection */
+	private ServerMessageHandler handler;
+
+	/** Selection key of the channel */
+	private SelectionKey key = null;
+
+	/** Packet I/O of the channel, including SSL */
+	private EPPNIOPacketChannel packetChannel;
+
+	/** Complete packets waiting to be processed by a worker */
+	private LinkedBlockingQueue<byte[]> packets = new LinkedBlockingQueue<byte[]>();
+
+	/** Responses waiting to be written by the selector thread */
+	private LinkedBlockingQueue<ByteBuffer> writes = new LinkedBlockingQueue<ByteBuffer>();
+
+	/** Is reading suspended since too many packets or responses are queued? */
+	private volatile boolean readSuspended = false;
+
+	/** Is the connection queued to or processed by a worker? */
+	private AtomicBoolean scheduled = new AtomicBoolean(false);
+
+	/** Has the greeting been sent? Only accessed by the worker. */
+	private boolean started = false;
+
+	/** Should the connection be closed once the queued responses are written? */
+	private volatile boolean closing = false;
+
+	/** Is the connection closed? */
+	private volatile boolean closed = false;
+
+	/** Buffer the handler writes the responses to. Only accessed by the worker. */
+	private ByteArrayOutputStream output = new ByteArrayOutputStream(BUFFER_SIZE);
+
+	/** Writes the queued responses on the selector thread */
+	private Runnable writeTask = new Runnable() {
+		public void run() {
+			try {
+				handleWrite();
+			}
+			catch (IOException ex) {
+				fail(ex);
+			}
+		}
+	};
+
+	/**
+	 * Creates a server connection.
+	 *
+	 * @param aChannel Accepted channel in non-blocking mode
+	 * @param aEngine SSL engine in server mode or <code>null</code> without SSL
+	 * @param aHandler Connection handler cloned for the connection
+	 * @param aSelectorThread Selector thread that drives the connection
+	 * @param aWorkers Worker pool that processes the packets
+	 */
+	EPPNIOServerConnection(SocketChannel aChannel, SSLEngine aEngine, ServerMessageHandler aHandler,
+			EPPNIOSelectorThread aSelectorThread, Executor aWorkers) {
+		this.channel = aChannel;
+		this.handler = aHandler;
+		this.selectorThread = aSelectorThread;
+		this.workers = aWorkers;
+		this.packetChannel = new EPPNIOPacketChannel(aChannel, aEngine, this);
+	}
+
+	/**
+	 * Registers the connection with its selector thread, which starts the
+	 * SSL handshake or sends the greeting.
+	 */
+	void register() {
+		this.selectorThread.execute(new Runnable() {
+			public void run() {
+				try {
+					key = channel.register(selectorThread.getSelector(), SelectionKey.OP_READ,
+							EPPNIOServerConnection.this);
+					packetChannel.start();
+					updateInterest();
+				}
+				catch (IOException ex) {
+					fail(ex);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Reads from the channel.  Called by the selector thread when the
+	 * channel is readable.
+	 *
+	 * @throws IOException Error reading from the channel
+	 */
+	public void handleRead() throws IOException {
+		this.packetChannel.read();
+
+		if (!this.packets.isEmpty()) {
+			this.schedule();
+		}
+
+		this.updateInterest();
+	}
+
+	/**
+	 * Writes the queued responses to the channel.  Called by the selector
+	 * thread when the channel is writable and when a response is queued.
+	 *
+	 * @throws IOException Error writing to the channel
+	 */
+	public void handleWrite() throws IOException {
+		if (this.closed) {
+			return;
+		}
+
+		if (this.packetChannel.flush()) {
+			ByteBuffer theWrite;
+			while ((theWrite = this.writes.peek()) != null) {
+				if (!this.packetChannel.write(theWrite)) {
+					break;
+				}
+				this.writes.poll();
+			}
+		}
+
+		if (this.closing && this.writes.isEmpty() && !this.packetChannel.hasPendingOutput()) {
+			this.closeGracefully();
+			return;
+		}
+
+		this.updateInterest();
+	}
+
+	/**
+	 * Processes the connection on a worker thread.  The first run sends the
+	 * greeting, and each following run processes one queued packet so that
+	 * a busy connection does not hold a worker while other connections are
+	 * waiting.
+	 */
+	public void run() {
+		try {
+			if (!this.closed && !this.closing) {
+				if (!this.started) {
+					this.started = true;
+					this.handler.handleConnectionStart(this.output);
+					this.send();
+				}
+				else {
+					byte[] thePacket = this.packets.poll();
+					if (thePacket != null) {
+						boolean theRunning =
+							this.handler.handleMessage(new ByteArrayInputStream(thePacket), this.output);
+						this.send();
+
+						if (!theRunning) {
+							this.closing = true;
+							this.selectorThread.execute(this.writeTask);
+						}
+						else if (this.readSuspended) {
+							this.selectorThread.execute(new Runnable() {
+								public void run() {
+									updateInterest();
+								}
+							});
+						}
+					}
+				}
+			}
+		}
+		catch (RuntimeException ex) {
+			cat.error("run(): Unexpected error processing connection: " + ex, ex);
+			final IOException theFailure = new IOException(ex.toString());
+			this.selectorThread.execute(new Runnable() {
+				public void run() {
+					fail(theFailure);
+				}
+			});
+		}
+		finally {
+			this.scheduled.set(false);
+		}
+
+		if (!this.packets.isEmpty() && !this.closing && !this.closed) {
+			this.schedule();
+		}
+	}
+
+	/**
+	 * Closes the connection because of an error or the end of stream.
+	 *
+	 * @param aException Cause of closing the connection
+	 */
+	public void fail(IOException aException) {
+		if (this.closed) {
+			return;
+		}
+		this.closed = true;
+
+		if (aException instanceof EOFException) {
+			if (cat.isDebugEnabled()) {
+				cat.debug("fail(): Closing connection: " + aException.getMessage());
+			}
+		}
+		else {
+			cat.error("fail(): Closing connection: " + aException);
+		}
+
+		this.packets.clear();
+		this.writes.clear();
+
+		if (this.key != null) {
+			this.key.cancel();
+		}
+
+		try {
+			this.channel.close();
+		}
+		catch (IOException ex) {
+			// Ignore
+		}
+	}
+
+	/**
+	 * Queues a packet read by the selector thread to be processed by a worker.
+	 *
+	 * @param aPacket Packet, including the network header
+	 */
+	public void packetRead(byte[] aPacket) {
+		this.packets.add(aPacket);
+	}
+
+	/**
+	 * Sends the greeting once the connection is ready.
+	 */
+	public void handshakeCompleted() {
+		if (!this.closing) {
+			this.schedule();
+		}
+	}
+
+	/**
+	 * Queues the connection to the worker pool if it is not already queued.
+	 */
+	private void schedule() {
+		if (this.scheduled.compareAndSet(false, true)) {
+			try {
+				this.workers.execute(this);
+			}
+			catch (RejectedExecutionException ex) {
+				this.scheduled.set(false);
+				this.selectorThread.execute(new Runnable() {
+					public void run() {
+						fail(new IOException("Server worker pool shut down"));
+					}
+				});
+			}
+		}
+	}
+
+	/**
+	 * Queues the bytes written by the handler to be written by the selector
+	 * thread.
+	 */
+	private void send() {
+		if (this.output.size() == 0) {
+			return;
+		}
+
+		this.writes.add(ByteBuffer.wrap(this.output.toByteArray()));
+		this.output.reset();
+		this.selectorThread.execute(this.writeTask);
+	}
+
+	/**
+	 * Closes the connection after sending a close notify with SSL.
+	 */
+	private void closeGracefully() {
+		if (!this.closed) {
+			this.packetChannel.closeOutbound();
+		}
+		this.fail(new EOFException("Connection closed by server"));
+	}
+
+	/**
+	 * Updates the interest operations of the selection key based on the
+	 * state of the connection.
+	 */
+	private void updateInterest() {
+		if (this.key == null || !this.key.isValid()) {
+			return;
+		}
+
+		this.readSuspended = this.closing || this.packets.size() >= MAX_QUEUED_PACKETS
+							 || this.writes.size() >= MAX_QUEUED_PACKETS;
+
+		int theOps = 0;
+		if (!this.readSuspended) {
+			theOps |= SelectionKey.OP_READ;
+		}
+		if (this.packetChannel.hasPendingOutput()
+				|| (!this.packetChannel.isHandshaking() && !this.writes.isEmpty())) {
+			theOps |= SelectionKey.OP_WRITE;
+		}
+
+		this.key.interestOps(theOps);
+	}
+
+}
+
+// End class EPPNIOServerConnection
@@ -34,6 +34,7 @@ import com.verisign.epp.transport.ServerEventHandler;
 import com.verisign.epp.util.EPPCatFactory;
 import com.verisign.epp.util.EPPEnv;
 import com.verisign.epp.util.EPPEnvException;
+import com.verisign.epp.util.EPPThreadModel;
 
 
 /**
@@ -93,8 +94,10 @@ public class EPPPlainServer implements EPPServerCon {
 		/**
 		 * Log Debug Message
 		 */
-		cat.debug("EPPPlainServer.EPPPlainServer(): ServerPort = "
-				  + myPortNumber);
+		if (cat.isDebugEnabled()) {
+			cat.debug("EPPPlainServer.EPPPlainServer(): ServerPort = "
+					  + myPortNumber);
+		}
 
 		/**
 		 * Log Debug Message
@@ -160,7 +163,7 @@ public class EPPPlainServer implements EPPServerCon {
 			while (listening) {
 				EPPServerThread p =
 					new EPPServerThread(myServerSocket.accept(), myHandler);
-				p.start();
+				EPPThreadModel.start(p, p.getName(), false);
 			}
 		}
 		 catch (IOException myException) {
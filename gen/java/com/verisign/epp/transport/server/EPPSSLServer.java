@@ -38,6 +38,7 @@ import com.verisign.epp.transport.client.EPPSSLImpl;
 import com.verisign.epp.util.EPPCatFactory;
 import com.verisign.epp.util.EPPEnv;
 import com.verisign.epp.util.EPPEnvException;
+import com.verisign.epp.util.EPPThreadModel;
 
 
 /**
@@ -131,7 +132,9 @@ public class EPPSSLServer implements EPPServerCon {
 									  + myException.getMessage());
 		}
 
-		cat.debug("EPPSSLServer.EPPSSLServer(): ServerPort = " + this.portNumber);
+		if (cat.isDebugEnabled()) {
+			cat.debug("EPPSSLServer.EPPSSLServer(): ServerPort = " + this.portNumber);
+		}
 		cat.debug("EPPSSLServer.EPPSSLServer(): entering Constructor");
 	}
 
@@ -217,7 +220,7 @@ public class EPPSSLServer implements EPPServerCon {
 					new EPPServerThread(
 										(Socket) serverSocket.accept(),
 										this.handler);
-				p.start();
+				EPPThreadModel.start(p, p.getName(), false);
 			}
 		}
 		 catch (IOException myException) {
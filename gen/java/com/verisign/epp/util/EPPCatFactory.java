@@ -25,6 +25,21 @@ import org.apache.log4j.spi.LoggerFactory;
 
 /**
  * Title: Description: Copyright:    Copyright (c) 2001 Company:      Verisign
+ * <br><br>
+ * Factory of the Log4J loggers used by the SDK.  Log statements in the
+ * codec, transport, and pool paths that are executed per message must not
+ * allocate when the level is disabled, so a statement whose message is
+ * built by concatenation or by calling <code>toString()</code> must be
+ * guarded with <code>isDebugEnabled()</code> or <code>isInfoEnabled()</code>,
+ * as in:<br>
+ * <pre>
+ * if (cat.isDebugEnabled()) {
+ *     cat.debug("decode(): Parser " + theBuilder + " checked out from pool");
+ * }
+ * </pre>
+ * Statements with a constant message, like <code>cat.debug("init() enter")</code>,
+ * do not need a guard since Log4J checks the level before building the
+ * logging event.
  *
  * @author Colin Lloyd
  * @version 1.0
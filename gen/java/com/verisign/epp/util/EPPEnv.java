@@ -48,6 +48,20 @@ public abstract class EPPEnv extends Environment {
 	 */
 	public static final int LOG_CUSTOM = 2;
 
+	/**
+	 * Platform thread model.  A platform thread is started per server
+	 * connection and per pipelined session reader.
+	 */
+	public static final int THREAD_MODEL_PLATFORM = 0;
+
+	/**
+	 * Virtual thread model.  A virtual thread is started per server
+	 * connection and per pipelined session reader, and the session pool
+	 * borrowers wait without holding a monitor.  Requires a Java 21 or later
+	 * runtime.
+	 */
+	public static final int THREAD_MODEL_VIRTUAL = 1;
+
 	/** Prefix for PoolMan Server */
 	public static final String POOLMAN_SERVER_PREFIX = "PoolMan.Server.";
 
@@ -369,6 +383,66 @@ public abstract class EPPEnv extends Environment {
 		return st;
 	}
 
+	/**
+	 * Gets the number of selector threads used by the non-blocking client 
+	 * connections (<code>EPPNIOClientSocket</code> and 
+	 * <code>EPPNIOSSLClientSocket</code>) as defined by the 
+	 * <code>EPP.NIO.SelectorThreads</code> property.  The default is 
+	 * <code>2</code>.
+	 *
+	 * @return Number of selector threads
+	 */
+	public static int getNIOSelectorThreads() {
+		String st = Environment.getOption("EPP.NIO.SelectorThreads");
+
+		if (st != null) {
+			try {
+				return Integer.parseInt(st.trim());
+			}
+			 catch (NumberFormatException ex) {
+				System.err.println("EPPEnv: EPP.NIO.SelectorThreads property format error: " + ex);
+			}
+		}
+
+		return 2;
+	}
+
+	/**
+	 * Gets the number of worker threads used by the non-blocking servers 
+	 * (<code>EPPNIOServer</code> and <code>EPPNIOSSLServer</code>) to 
+	 * process the commands of all of the connections as defined by the 
+	 * <code>EPP.NIO.ServerWorkerThreads</code> property.  The default is 
+	 * <code>16</code>.
+	 *
+	 * @return Number of server worker threads
+	 */
+	public static int getNIOServerWorkerThreads() {
+		String st = Environment.getOption("EPP.NIO.ServerWorkerThreads");
+
+		if (st != null) {
+			try {
+				return Integer.parseInt(st.trim());
+			}
+			 catch (NumberFormatException ex) {
+				System.err.println("EPPEnv: EPP.NIO.ServerWorkerThreads property format error: " + ex);
+			}
+		}
+
+		return 16;
+	}
+
+	/**
+	 * Gets the class name of the <code>com.verisign.epp.metrics.EPPMetrics</code> 
+	 * implementation as defined by the <code>EPP.MetricsClassName</code> 
+	 * property.
+	 *
+	 * @return Metrics class name if defined; <code>null</code> otherwise to 
+	 * 		   use the default implementation
+	 */
+	public static String getMetricsClassName() {
+		return Environment.getOption("EPP.MetricsClassName");
+	}
+
 	/**
 	 * Returns the log facility mode defined by the EPP.LogMode configuration
 	 * parameter.
@@ -396,6 +470,30 @@ public abstract class EPPEnv extends Environment {
 		}
 	}
 
+	/**
+	 * Returns the thread model defined by the EPP.ThreadModel configuration
+	 * parameter, which is either <code>platform</code> (default) or 
+	 * <code>virtual</code>.
+	 *
+	 * @return <code>THREAD_MODEL_</code> constants if valid EPP.ThreadModel 
+	 * 		   setting; -1 otherwise.
+	 */
+	public static int getThreadModel() {
+		String cfgModel = Environment.getOption("EPP.ThreadModel");
+
+		if (cfgModel == null || cfgModel.equalsIgnoreCase("platform")) {
+			return THREAD_MODEL_PLATFORM;
+		}
+
+		else if (cfgModel.equalsIgnoreCase("virtual")) {
+			return THREAD_MODEL_VIRTUAL;
+		}
+
+		else {
+			return -1;
+		}
+	}
+
 	/**
 	 * Returns the value of the EPP.LogLevel property specified in the config
 	 * file.  Either both EPP.LogLevel and EPP.LogFile need to be defined or
@@ -1269,6 +1367,24 @@ public abstract class EPPEnv extends Environment {
 		return ret;
 	}
 
+	/**
+	 * Gets the class name of the <code>com.verisign.epp.framework.EPPPollDataSource</code>
+	 * implementation used by the Stub Server as defined by the 
+	 * <code>EPP.PollDataSource</code> property.
+	 *
+	 * @return Poll data source class name if defined; <code>null</code> otherwise 
+	 * 		   to use the in memory <code>com.verisign.epp.serverstub.PollDataSource</code>
+	 */
+	public static String getPollDataSource() {
+		String theValue = Environment.getOption("EPP.PollDataSource");
+
+		if ((theValue == null) || (theValue.length() == 0)) {
+			return null;
+		}
+
+		return theValue;
+	}
+
 	/**
 	 * Gets if XML Schema Validation is enabled.  The default is
 	 * <code>false</code>, but this can be changed by setting the
@@ -1293,6 +1409,79 @@ public abstract class EPPEnv extends Environment {
 	}
 
 
+	/**
+	 * Gets if the streaming decode of the responses with a StAX
+	 * <code>XMLStreamReader</code> is enabled, which decodes the responses 
+	 * without building a DOM Document.  The streaming decode is only used 
+	 * when XML Schema Validation is disabled.  The default is 
+	 * <code>false</code>, but this can be changed by setting the
+	 * <code>EPP.StreamingDecode</code> property.
+	 *
+	 * @return <code>true</code> to enable the streaming decode;
+	 * 		   <code>false</code> otherwise.
+	 */
+	public static boolean getStreamingDecode() {
+		boolean ret = false;
+
+		try {
+			String setting = Environment.getEnv("EPP.StreamingDecode");
+
+			ret = new Boolean(setting).booleanValue();
+		}
+		 catch (EnvException myException) {
+			// Do nothing, since this setting is optional
+		}
+
+		return ret;
+	}
+
+
+	/**
+	 * Gets if the streaming encode of the commands with an 
+	 * <code>EPPXMLWriter</code> is enabled, which writes the commands 
+	 * directly to the packet bytes without building a DOM Document.  The 
+	 * packets are identical to the ones serialized from a DOM Document.
+	 * The default is <code>false</code>, but this can be changed by setting 
+	 * the <code>EPP.StreamingEncode</code> property.
+	 *
+	 * @return <code>true</code> to enable the streaming encode;
+	 * 		   <code>false</code> otherwise.
+	 */
+	public static boolean getStreamingEncode() {
+		boolean ret = false;
+
+		try {
+			String setting = Environment.getEnv("EPP.StreamingEncode");
+
+			ret = new Boolean(setting).booleanValue();
+		}
+		 catch (EnvException myException) {
+			// Do nothing, since this setting is optional
+		}
+
+		return ret;
+	}
+
+
+	/**
+	 * Gets the path of the XML schema snapshot file, which is an index of 
+	 * the target namespace of each XML schema along with a checksum of the 
+	 * XML schemas.  When the snapshot matches the XML schemas, the XML 
+	 * schemas are compiled on first use of their namespace instead of on 
+	 * creation of the first parser, which cuts the start-up time.  The 
+	 * snapshot file is written when it is missing or out of date.  The 
+	 * default is <code>null</code> to compile all of the XML schemas on 
+	 * creation of the first parser, but this can be changed by setting the 
+	 * <code>EPP.SchemaSnapshot</code> property.
+	 *
+	 * @return Path of the XML schema snapshot file if defined; 
+	 * 		   <code>null</code> otherwise.
+	 */
+	public static String getSchemaSnapshot() {
+		return Environment.getOption("EPP.SchemaSnapshot");
+	}
+
+
     /**
      * Gets if FullSchemaChecking is enabled on the Xerces Parser instance.
      *
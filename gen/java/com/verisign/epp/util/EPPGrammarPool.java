@@ -0,0 +1,820 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.log4j.Logger;
+import org.apache.xerces.impl.xs.XSDDescription;
+import org.apache.xerces.parsers.XMLGrammarPreparser;
+import org.apache.xerces.util.SymbolTable;
+import org.apache.xerces.xni.grammars.Grammar;
+import org.apache.xerces.xni.grammars.XMLGrammarDescription;
+import org.apache.xerces.xni.grammars.XMLGrammarPool;
+import org.apache.xerces.xni.parser.XMLInputSource;
+
+/**
+ * XML schema grammar pool shared by all of the
+ * <code>EPPSchemaCachingParser</code> instances of the JVM, so that each XML
+ * schema is compiled once per JVM instead of once per parser.  The grammars
+ * are kept in immutable maps that are replaced on update (copy-on-write), so
+ * the lookups done by the parsers while validating do not lock, unlike the
+ * Xerces <code>XMLGrammarPoolImpl</code>.<br>
+ * <br>
+ * The pool is locked by default, so the grammars loaded by a parser from
+ * the schema location hints of an instance document are not added to the
+ * pool.  Schemas are added explicitly with {@link #loadSchemas(Set)} and
+ * {@link #addSchema(XMLInputSource)}, which compile the schemas with a
+ * single symbol table owned by the pool.<br>
+ * <br>
+ * When <code>EPPEnv.getSchemaSnapshot()</code> is set, the pool keeps a
+ * snapshot file with the target namespace of each schema along with a
+ * checksum of the schemas.  Xerces grammars can not be serialized, so when
+ * the snapshot matches the schemas, {@link #loadSchemas(Set)} registers the
+ * schemas by namespace without compiling them, and each schema is compiled
+ * the first time a parser retrieves the grammar of its namespace.  The
+ * snapshot file is written after compiling the schemas when it is missing
+ * or does not match the schemas.
+ */
+public class EPPGrammarPool implements XMLGrammarPool {
+
+	/** Log4j category for logging */
+	private static Logger cat = Logger.getLogger(EPPGrammarPool.class
+			.getName(), EPPCatFactory.getInstance().getFactory());
+
+	/** Namespaces feature id (http://xml.org/sax/features/namespaces). */
+	private static final String NAMESPACES_FEATURE_ID = "http://xml.org/sax/features/namespaces";
+
+	/** Validation feature id (http://xml.org/sax/features/validation). */
+	private static final String VALIDATION_FEATURE_ID = "http://xml.org/sax/features/validation";
+
+	/**
+	 * Schema validation feature id
+	 * (http://apache.org/xml/features/validation/schema).
+	 */
+	private static final String SCHEMA_VALIDATION_FEATURE_ID = "http://apache.org/xml/features/validation/schema";
+
+	/**
+	 * Schema full checking feature id
+	 * (http://apache.org/xml/features/validation/schema-full-checking).
+	 */
+	private static final String SCHEMA_FULL_CHECKING_FEATURE_ID = "http://apache.org/xml/features/validation/schema-full-checking";
+
+	/** Property of the snapshot file with the checksum of the schemas */
+	private static final String SNAPSHOT_CHECKSUM = "checksum";
+
+	/**
+	 * Prefix of the properties of the snapshot file with the target
+	 * namespace of each schema, followed by the schema name
+	 */
+	private static final String SNAPSHOT_SCHEMA_PREFIX = "schema.";
+
+	/** Shared instance */
+	private static volatile EPPGrammarPool instance = null;
+
+	/**
+	 * Schema grammars by target namespace, where the no namespace grammar
+	 * uses the empty <code>String</code>.  The map is never modified after it
+	 * is set.
+	 */
+	private volatile Map<String, Grammar> grammars = Collections.emptyMap();
+
+	/** Schema grammars returned by {@link #retrieveInitialGrammarSet(String)} */
+	private volatile Grammar[] grammarSet = new Grammar[0];
+
+	/**
+	 * Names of the schemas loaded with {@link #loadSchemas(Set)}.  The set is
+	 * never modified after it is set.
+	 */
+	private volatile Set<String> loadedSchemas = Collections.emptySet();
+
+	/**
+	 * Names of the schemas registered from the snapshot that are not
+	 * compiled yet by target namespace.  The map is never modified after it
+	 * is set.
+	 */
+	private volatile Map<String, String> pending = Collections.emptyMap();
+
+	/**
+	 * Target namespace of the schemas loaded with {@link #loadSchemas(Set)}
+	 * by schema name, which is guarded by the pool monitor.
+	 */
+	private Map<String, String> schemaNamespaces = new HashMap<String, String>();
+
+	/** Is the pool locked? */
+	private volatile boolean locked = true;
+
+	/**
+	 * Symbol table used to compile the schemas, which is guarded by the pool
+	 * monitor.
+	 */
+	private SymbolTable symbolTable = new SymbolTable(
+			EPPSchemaCachingParser.BIG_PRIME);
+
+	/**
+	 * Grammar pool used while compiling a schema, which looks up the
+	 * imported schemas in the shared pool and collects the compiled grammars
+	 * so that they can be added to the shared pool once the schema is
+	 * compiled, even when the shared pool is locked.
+	 */
+	private class LoadingPool implements XMLGrammarPool {
+
+		/** Compiled grammars by target namespace */
+		Map<String, Grammar> loaded = new HashMap<String, Grammar>();
+
+		/**
+		 * No initial grammars, since the imported grammars are retrieved
+		 * with {@link #retrieveGrammar(XMLGrammarDescription)}.
+		 * 
+		 * @param aGrammarType
+		 *            Type of grammars
+		 * 
+		 * @return Empty array
+		 */
+		public Grammar[] retrieveInitialGrammarSet(String aGrammarType) {
+			return new Grammar[0];
+		}
+
+		/**
+		 * Collects the compiled schema grammars.
+		 * 
+		 * @param aGrammarType
+		 *            Type of grammars
+		 * @param aGrammars
+		 *            Compiled grammars
+		 */
+		public void cacheGrammars(String aGrammarType, Grammar[] aGrammars) {
+			if (!XMLGrammarDescription.XML_SCHEMA.equals(aGrammarType)) {
+				return;
+			}
+
+			for (int i = 0; i < aGrammars.length; i++) {
+				this.loaded.put(getKey(aGrammars[i].getGrammarDescription()),
+						aGrammars[i]);
+			}
+		}
+
+		/**
+		 * Retrieves a grammar from the shared pool or from the compiled
+		 * grammars.
+		 * 
+		 * @param aDesc
+		 *            Description of the grammar
+		 * 
+		 * @return Grammar if found; <code>null</code> otherwise.
+		 */
+		public Grammar retrieveGrammar(XMLGrammarDescription aDesc) {
+			Grammar theGrammar = EPPGrammarPool.this.retrieveGrammar(aDesc);
+			if ((theGrammar == null) && (aDesc instanceof XSDDescription)) {
+				theGrammar = this.loaded.get(getKey(aDesc));
+			}
+			return theGrammar;
+		}
+
+		/** Not used */
+		public void lockPool() {
+		}
+
+		/** Not used */
+		public void unlockPool() {
+		}
+
+		/** Not used */
+		public void clear() {
+		}
+	}
+
+	/**
+	 * Creates an empty <code>EPPGrammarPool</code>.  Use
+	 * {@link #getInstance()} to get the pool shared by the parsers.
+	 */
+	protected EPPGrammarPool() {
+	}
+
+	/**
+	 * Gets the grammar pool shared by the <code>EPPSchemaCachingParser</code>
+	 * instances.
+	 * 
+	 * @return Shared <code>EPPGrammarPool</code>
+	 */
+	public static EPPGrammarPool getInstance() {
+		EPPGrammarPool thePool = instance;
+		if (thePool == null) {
+			synchronized (EPPGrammarPool.class) {
+				thePool = instance;
+				if (thePool == null) {
+					thePool = new EPPGrammarPool();
+					instance = thePool;
+				}
+			}
+		}
+		return thePool;
+	}
+
+	/**
+	 * Loads the schemas not already loaded in the pool.  Each schema is
+	 * loaded as a resource from the schemas folder of the classpath.  When
+	 * all of the schemas are already loaded, which is the case for all of
+	 * the parsers created after the first one, no lock is taken.  When the
+	 * snapshot file defined by <code>EPPEnv.getSchemaSnapshot()</code>
+	 * matches the schemas, the schemas are compiled on first use instead.
+	 * 
+	 * @param aSchemas
+	 *            <code>Set</code> of <code>String</code> XML schema names,
+	 *            like the one returned by
+	 *            <code>EPPFactory.getXmlSchemas()</code>.
+	 * 
+	 * @throws EPPParserException
+	 *             Error compiling a schema
+	 */
+	public void loadSchemas(Set aSchemas) throws EPPParserException {
+		if (this.loadedSchemas.containsAll(aSchemas)) {
+			return;
+		}
+
+		synchronized (this) {
+			String theSnapshot = EPPEnv.getSchemaSnapshot();
+			String theChecksum = null;
+			if (theSnapshot != null) {
+				theChecksum = this.getChecksum(aSchemas);
+
+				if (this.loadSnapshot(theSnapshot, theChecksum, aSchemas)) {
+					return;
+				}
+			}
+
+			Iterator theSchemasIter = aSchemas.iterator();
+			while (theSchemasIter.hasNext()) {
+				String theSchemaName = (String) theSchemasIter.next();
+
+				if (this.loadedSchemas.contains(theSchemaName)) {
+					continue;
+				}
+
+				if (cat.isDebugEnabled()) {
+					cat.debug("loadSchemas(): Pre-loading XML schema \""
+							+ theSchemaName + "\"");
+				}
+
+				this.compileSchema(theSchemaName);
+
+				Set<String> theLoaded = new HashSet<String>(this.loadedSchemas);
+				theLoaded.add(theSchemaName);
+				this.loadedSchemas = Collections.unmodifiableSet(theLoaded);
+			}
+
+			if (theSnapshot != null) {
+				this.saveSnapshot(theSnapshot, theChecksum, aSchemas);
+			}
+		}
+	}
+
+	/**
+	 * Compiles a schema and adds its grammar, along with the grammars of
+	 * the imported schemas, to the pool.  The grammars already in the pool
+	 * are not replaced.  The schema is added even when the pool is locked.
+	 * 
+	 * @param aSchema
+	 *            Schema to compile
+	 * 
+	 * @throws EPPParserException
+	 *             Error compiling the schema
+	 */
+	public synchronized void addSchema(XMLInputSource aSchema)
+			throws EPPParserException {
+		cat.debug("addSchema(XMLInputSource) enter");
+
+		this.compile(aSchema);
+
+		cat.debug("addSchema(XMLInputSource) exit");
+	}
+
+	/**
+	 * Compiles a schema loaded as a resource from the schemas folder of the
+	 * classpath, adds it to the pool and records its target namespace.  Must
+	 * be called while holding the pool monitor.
+	 * 
+	 * @param aSchemaName
+	 *            Name of the schema
+	 * 
+	 * @throws EPPParserException
+	 *             Error compiling the schema
+	 */
+	private void compileSchema(String aSchemaName) throws EPPParserException {
+		// lookup the file name in this classes's classpath under "schemas"
+		InputStream theSchemaStream = getClass().getClassLoader()
+				.getResourceAsStream("schemas/" + aSchemaName);
+
+		Grammar theGrammar = this.compile(new XMLInputSource(aSchemaName,
+				aSchemaName, aSchemaName, theSchemaStream, null));
+
+		this.schemaNamespaces.put(aSchemaName,
+				getKey(theGrammar.getGrammarDescription()));
+	}
+
+	/**
+	 * Compiles a schema and adds its grammar, along with the grammars of
+	 * the imported schemas, to the pool.  Must be called while holding the
+	 * pool monitor.
+	 * 
+	 * @param aSchema
+	 *            Schema to compile
+	 * 
+	 * @return Grammar of the schema
+	 * 
+	 * @throws EPPParserException
+	 *             Error compiling the schema
+	 */
+	private Grammar compile(XMLInputSource aSchema) throws EPPParserException {
+
+		LoadingPool theLoadingPool = new LoadingPool();
+
+		XMLGrammarPreparser preparser = new XMLGrammarPreparser(
+				this.symbolTable);
+
+		// Register the XML Schema type as the type of grammar loader
+		// we want to use.
+		preparser.registerPreparser(XMLGrammarDescription.XML_SCHEMA, null);
+
+		// Set the loading pool, so the imported grammars are retrieved from
+		// the shared pool and the compiled grammars are collected.
+		preparser.setGrammarPool(theLoadingPool);
+
+		// Use the EPPSchemaParsingEntityResolver so that imported schemas
+		// will be resolved by looking them up in the classpath
+		preparser.setEntityResolver(new EPPSchemaParsingEntityResolver());
+
+		// Turn on Namespace awareness and schema validation in the preparser
+		preparser.setFeature(NAMESPACES_FEATURE_ID, true);
+		preparser.setFeature(VALIDATION_FEATURE_ID, true);
+		preparser.setFeature(SCHEMA_VALIDATION_FEATURE_ID, true);
+		preparser.setFeature(SCHEMA_FULL_CHECKING_FEATURE_ID, true);
+
+		cat.info("parsing schema to add it to the pool: "
+				+ aSchema.getSystemId());
+
+		Grammar theGrammar;
+		try {
+			theGrammar = preparser.preparseGrammar(
+					XMLGrammarDescription.XML_SCHEMA, aSchema);
+
+			theLoadingPool.cacheGrammars(XMLGrammarDescription.XML_SCHEMA,
+					new Grammar[] { theGrammar });
+		}
+		catch (IOException e) {
+			cat.error("Error while attempting to add schema: "
+					+ aSchema.getSystemId());
+
+			throw new EPPParserException(e);
+		}
+
+		this.putGrammars(theLoadingPool.loaded);
+
+		return theGrammar;
+	}
+
+	/**
+	 * Gets the number of schema grammars in the pool.
+	 * 
+	 * @return Number of schema grammars
+	 */
+	public int getGrammarCount() {
+		return this.grammars.size();
+	}
+
+	/**
+	 * Retrieves the schema grammars of the pool.
+	 * 
+	 * @param aGrammarType
+	 *            Type of grammars
+	 * 
+	 * @return Schema grammars for <code>XMLGrammarDescription.XML_SCHEMA</code>;
+	 *         empty array otherwise.
+	 */
+	public Grammar[] retrieveInitialGrammarSet(String aGrammarType) {
+		if (XMLGrammarDescription.XML_SCHEMA.equals(aGrammarType)) {
+			return (Grammar[]) this.grammarSet.clone();
+		}
+		return new Grammar[0];
+	}
+
+	/**
+	 * Caches grammars loaded by a parser, which is ignored when the pool is
+	 * locked.
+	 * 
+	 * @param aGrammarType
+	 *            Type of grammars
+	 * @param aGrammars
+	 *            Grammars to cache
+	 */
+	public void cacheGrammars(String aGrammarType, Grammar[] aGrammars) {
+		if (this.locked
+				|| !XMLGrammarDescription.XML_SCHEMA.equals(aGrammarType)) {
+			return;
+		}
+
+		Map<String, Grammar> theGrammars = new HashMap<String, Grammar>();
+		for (int i = 0; i < aGrammars.length; i++) {
+			theGrammars.put(getKey(aGrammars[i].getGrammarDescription()),
+					aGrammars[i]);
+		}
+
+		synchronized (this) {
+			this.putGrammars(theGrammars);
+		}
+	}
+
+	/**
+	 * Retrieves a schema grammar by target namespace without locking.  A
+	 * schema registered from the snapshot is compiled on the first retrieval
+	 * of its grammar.
+	 * 
+	 * @param aDesc
+	 *            Description of the grammar
+	 * 
+	 * @return Grammar if found; <code>null</code> otherwise.
+	 */
+	public Grammar retrieveGrammar(XMLGrammarDescription aDesc) {
+		if (!(aDesc instanceof XSDDescription)) {
+			return null;
+		}
+
+		String theKey = getKey(aDesc);
+		Grammar theGrammar = this.grammars.get(theKey);
+		if ((theGrammar == null) && !this.pending.isEmpty()) {
+			theGrammar = this.loadPending(theKey);
+		}
+		return theGrammar;
+	}
+
+	/**
+	 * Locks the pool, so the grammars loaded by the parsers are not cached.
+	 */
+	public void lockPool() {
+		this.locked = true;
+	}
+
+	/**
+	 * Unlocks the pool, so the grammars loaded by the parsers are cached.
+	 */
+	public void unlockPool() {
+		this.locked = false;
+	}
+
+	/**
+	 * Removes all of the grammars from the pool, which is ignored when the
+	 * pool is locked.
+	 */
+	public synchronized void clear() {
+		if (this.locked) {
+			return;
+		}
+
+		this.grammars = Collections.emptyMap();
+		this.grammarSet = new Grammar[0];
+		this.loadedSchemas = Collections.emptySet();
+		this.pending = Collections.emptyMap();
+		this.schemaNamespaces.clear();
+	}
+
+	/**
+	 * Compiles the schema registered from the snapshot for a target
+	 * namespace.  The schema is removed from the registered schemas even
+	 * when it fails to compile, so that it is not compiled again on each
+	 * retrieval.
+	 * 
+	 * @param aKey
+	 *            Target namespace
+	 * 
+	 * @return Grammar if found; <code>null</code> otherwise.
+	 */
+	private synchronized Grammar loadPending(String aKey) {
+		Grammar theGrammar = this.grammars.get(aKey);
+		if (theGrammar != null) {
+			return theGrammar;
+		}
+
+		String theSchemaName = this.pending.get(aKey);
+		if (theSchemaName == null) {
+			return null;
+		}
+
+		Map<String, String> thePending = new HashMap<String, String>(
+				this.pending);
+		thePending.remove(aKey);
+		this.pending = Collections.unmodifiableMap(thePending);
+
+		if (cat.isDebugEnabled()) {
+			cat.debug("loadPending(): Compiling XML schema \"" + theSchemaName
+					+ "\" on first use");
+		}
+
+		try {
+			this.compileSchema(theSchemaName);
+		}
+		catch (EPPParserException ex) {
+			cat.error("loadPending(): Error compiling XML schema \""
+					+ theSchemaName + "\": " + ex);
+			return null;
+		}
+
+		return this.grammars.get(aKey);
+	}
+
+	/**
+	 * Registers the schemas from the snapshot file without compiling them
+	 * when the snapshot matches the schemas.  Must be called while holding
+	 * the pool monitor.
+	 * 
+	 * @param aSnapshot
+	 *            Path of the snapshot file
+	 * @param aChecksum
+	 *            Checksum of the schemas
+	 * @param aSchemas
+	 *            <code>Set</code> of <code>String</code> XML schema names
+	 * 
+	 * @return <code>true</code> if the schemas are registered;
+	 *         <code>false</code> if the snapshot is missing or does not match
+	 *         the schemas.
+	 */
+	private boolean loadSnapshot(String aSnapshot, String aChecksum,
+			Set aSchemas) {
+		File theFile = new File(aSnapshot);
+		if (!theFile.isFile()) {
+			cat.info("loadSnapshot(): Schema snapshot " + aSnapshot
+					+ " not found");
+			return false;
+		}
+
+		Properties theSnapshot = new Properties();
+		InputStream theStream = null;
+		try {
+			theStream = new FileInputStream(theFile);
+			theSnapshot.load(theStream);
+		}
+		catch (IOException ex) {
+			cat.warn("loadSnapshot(): Error reading schema snapshot "
+					+ aSnapshot + ": " + ex);
+			return false;
+		}
+		finally {
+			close(theStream);
+		}
+
+		if (!aChecksum.equals(theSnapshot.getProperty(SNAPSHOT_CHECKSUM))) {
+			cat.info("loadSnapshot(): Schema snapshot " + aSnapshot
+					+ " does not match the schemas");
+			return false;
+		}
+
+		Map<String, String> thePending = new HashMap<String, String>(
+				this.pending);
+		Map<String, String> theNamespaces = new HashMap<String, String>();
+		Iterator theSchemasIter = aSchemas.iterator();
+		while (theSchemasIter.hasNext()) {
+			String theSchemaName = (String) theSchemasIter.next();
+			String theNamespace = theSnapshot
+					.getProperty(SNAPSHOT_SCHEMA_PREFIX + theSchemaName);
+
+			if (theNamespace == null) {
+				cat.info("loadSnapshot(): Schema snapshot " + aSnapshot
+						+ " is missing schema " + theSchemaName);
+				return false;
+			}
+
+			theNamespaces.put(theSchemaName, theNamespace);
+			if (!this.loadedSchemas.contains(theSchemaName)
+					&& !this.grammars.containsKey(theNamespace)) {
+				thePending.put(theNamespace, theSchemaName);
+			}
+		}
+
+		this.schemaNamespaces.putAll(theNamespaces);
+		this.pending = Collections.unmodifiableMap(thePending);
+
+		Set<String> theLoaded = new HashSet<String>(this.loadedSchemas);
+		theLoaded.addAll(theNamespaces.keySet());
+		this.loadedSchemas = Collections.unmodifiableSet(theLoaded);
+
+		cat.info("loadSnapshot(): Registered " + theNamespaces.size()
+				+ " schemas from schema snapshot " + aSnapshot);
+
+		return true;
+	}
+
+	/**
+	 * Writes the snapshot file, by writing a temporary file that replaces
+	 * the snapshot file, so that a concurrent reader never reads a partial
+	 * snapshot.  An error writing the snapshot is only logged.  Must be
+	 * called while holding the pool monitor.
+	 * 
+	 * @param aSnapshot
+	 *            Path of the snapshot file
+	 * @param aChecksum
+	 *            Checksum of the schemas
+	 * @param aSchemas
+	 *            <code>Set</code> of <code>String</code> XML schema names
+	 */
+	private void saveSnapshot(String aSnapshot, String aChecksum, Set aSchemas) {
+		Properties theSnapshot = new Properties();
+		theSnapshot.setProperty(SNAPSHOT_CHECKSUM, aChecksum);
+
+		Iterator theSchemasIter = aSchemas.iterator();
+		while (theSchemasIter.hasNext()) {
+			String theSchemaName = (String) theSchemasIter.next();
+			String theNamespace = this.schemaNamespaces.get(theSchemaName);
+
+			if (theNamespace == null) {
+				cat.warn("saveSnapshot(): Namespace of schema " + theSchemaName
+						+ " not known, schema snapshot not written");
+				return;
+			}
+			theSnapshot.setProperty(SNAPSHOT_SCHEMA_PREFIX + theSchemaName,
+					theNamespace);
+		}
+
+		File theFile = new File(aSnapshot).getAbsoluteFile();
+		File theTempFile = null;
+		OutputStream theStream = null;
+		try {
+			theTempFile = File.createTempFile(theFile.getName(), ".tmp",
+					theFile.getParentFile());
+			theStream = new FileOutputStream(theTempFile);
+			theSnapshot.store(theStream, "EPP schema snapshot");
+			theStream.close();
+			theStream = null;
+
+			if (!theTempFile.renameTo(theFile)) {
+				theFile.delete();
+				if (!theTempFile.renameTo(theFile)) {
+					throw new IOException("Unable to rename " + theTempFile
+							+ " to " + theFile);
+				}
+			}
+			theTempFile = null;
+
+			cat.info("saveSnapshot(): Wrote schema snapshot " + aSnapshot);
+		}
+		catch (IOException ex) {
+			cat.warn("saveSnapshot(): Error writing schema snapshot "
+					+ aSnapshot + ": " + ex);
+		}
+		finally {
+			close(theStream);
+			if (theTempFile != null) {
+				theTempFile.delete();
+			}
+		}
+	}
+
+	/**
+	 * Gets the checksum of the schemas, which is the SHA-256 digest of the
+	 * sorted schema names and the content of each schema.
+	 * 
+	 * @param aSchemas
+	 *            <code>Set</code> of <code>String</code> XML schema names
+	 * 
+	 * @return Hexadecimal checksum
+	 * 
+	 * @throws EPPParserException
+	 *             Error reading a schema
+	 */
+	private String getChecksum(Set aSchemas) throws EPPParserException {
+		MessageDigest theDigest;
+		try {
+			theDigest = MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new EPPParserException(ex);
+		}
+
+		byte[] theBuffer = new byte[8192];
+		Iterator theSchemasIter = new TreeSet(aSchemas).iterator();
+		while (theSchemasIter.hasNext()) {
+			String theSchemaName = (String) theSchemasIter.next();
+
+			InputStream theSchemaStream = null;
+			try {
+				theDigest.update(theSchemaName.getBytes("UTF-8"));
+				theDigest.update((byte) 0);
+
+				theSchemaStream = getClass().getClassLoader()
+						.getResourceAsStream("schemas/" + theSchemaName);
+				if (theSchemaStream != null) {
+					int theCount;
+					while ((theCount = theSchemaStream.read(theBuffer)) != -1) {
+						theDigest.update(theBuffer, 0, theCount);
+					}
+				}
+				theDigest.update((byte) 0);
+			}
+			catch (IOException ex) {
+				throw new EPPParserException(ex);
+			}
+			finally {
+				close(theSchemaStream);
+			}
+		}
+
+		byte[] theHash = theDigest.digest();
+		StringBuffer theChecksum = new StringBuffer(theHash.length * 2);
+		for (int i = 0; i < theHash.length; i++) {
+			theChecksum.append(Character.forDigit((theHash[i] >> 4) & 0xF, 16));
+			theChecksum.append(Character.forDigit(theHash[i] & 0xF, 16));
+		}
+		return theChecksum.toString();
+	}
+
+	/**
+	 * Closes a stream, ignoring any error.
+	 * 
+	 * @param aStream
+	 *            Stream to close or <code>null</code>
+	 */
+	private static void close(Closeable aStream) {
+		if (aStream != null) {
+			try {
+				aStream.close();
+			}
+			catch (IOException ex) {
+				// Ignore
+			}
+		}
+	}
+
+	/**
+	 * Adds grammars not already in the pool by replacing the grammar map.
+	 * Must be called while holding the pool monitor.
+	 * 
+	 * @param aGrammars
+	 *            Grammars by target namespace
+	 */
+	private void putGrammars(Map<String, Grammar> aGrammars) {
+		Map<String, Grammar> theGrammars = new HashMap<String, Grammar>(
+				this.grammars);
+
+		boolean theChanged = false;
+		Iterator<Map.Entry<String, Grammar>> theIter = aGrammars.entrySet()
+				.iterator();
+		while (theIter.hasNext()) {
+			Map.Entry<String, Grammar> theEntry = theIter.next();
+			if (!theGrammars.containsKey(theEntry.getKey())) {
+				theGrammars.put(theEntry.getKey(), theEntry.getValue());
+				theChanged = true;
+			}
+		}
+
+		if (theChanged) {
+			this.grammarSet = (Grammar[]) theGrammars.values().toArray(
+					new Grammar[theGrammars.size()]);
+			this.grammars = Collections.unmodifiableMap(theGrammars);
+		}
+	}
+
+	/**
+	 * Gets the key of a schema grammar, which is its target namespace.
+	 * 
+	 * @param aDesc
+	 *            Description of the grammar
+	 * 
+	 * @return Target namespace or the empty <code>String</code> for no
+	 *         namespace
+	 */
+	private static String getKey(XMLGrammarDescription aDesc) {
+		String theNamespace = ((XSDDescription) aDesc).getNamespace();
+		return (theNamespace == null) ? "" : theNamespace;
+	}
+}
@@ -0,0 +1,459 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.log4j.Logger;
+
+import com.verisign.epp.exception.EPPException;
+import com.verisign.epp.metrics.EPPMetrics;
+import com.verisign.epp.metrics.EPPMetricsFactory;
+
+/**
+ * Pool of reusable objects that are expensive to create and not thread
+ * safe, like the XML parsers (<code>EPPSchemaCachingParser</code>) and the
+ * XML transformers (<code>EPPTransformer</code>).  The pool is designed to
+ * not serialize the threads on checkout:<br>
+ * <br>
+ * <ul>
+ * <li>Thread-local slot - Each thread keeps the last object it returned in
+ * a thread-local slot, so a thread that borrows and returns an object per
+ * packet reuses the same object without any synchronization.
+ * <li>Overflow stack - Objects returned when the thread-local slot is
+ * already used are pushed on a lock-free stack, which is also where a
+ * thread with an empty slot borrows from before a new object is created.
+ * The stack holds at most <code>maxIdle</code> objects.
+ * <li>Idle trimming - When <code>idleTimeout</code> is greater than
+ * <code>0</code>, the objects idle on the stack for longer than
+ * <code>idleTimeout</code> milliseconds are discarded down to
+ * <code>minIdle</code> objects.  The trimming is done by a returning thread
+ * at most once per <code>idleTimeout</code>, so no skimmer thread is
+ * needed.
+ * </ul>
+ * <br>
+ * The pool never blocks, and a new object is created when no idle object is
+ * available.  With the <code>virtual</code> thread model (see
+ * {@link EPPThreadModel#isVirtual()}), the thread-local slots are not used,
+ * since a virtual thread is typically used for a single connection and the
+ * slots would hold an object per virtual thread.<br>
+ * <br>
+ * The pools are registered by name with {@link #addPool(EPPObjectPool)} and
+ * looked up with {@link #getPool(String)}, which does not lock.
+ */
+public class EPPObjectPool<T> {
+
+	/** Log4j category for logging */
+	private static Logger cat = Logger.getLogger(EPPObjectPool.class
+			.getName(), EPPCatFactory.getInstance().getFactory());
+
+	/** Registered pools by name */
+	private static ConcurrentHashMap<String, EPPObjectPool<?>> pools = new ConcurrentHashMap<String, EPPObjectPool<?>>();
+
+	/**
+	 * Node of the overflow stack, which is never reused after it is popped
+	 * so that the stack is not exposed to the ABA problem.
+	 */
+	private static class Node<T> {
+
+		/** Idle object */
+		final T object;
+
+		/** Time the object was returned in milliseconds */
+		final long returned;
+
+		/** Next node of the stack */
+		Node<T> next;
+
+		/**
+		 * Creates a <code>Node</code>.
+		 * 
+		 * @param aObject
+		 *            Idle object
+		 * @param aReturned
+		 *            Time the object was returned in milliseconds
+		 */
+		Node(T aObject, long aReturned) {
+			this.object = aObject;
+			this.returned = aReturned;
+		}
+	}
+
+	/** Thread-local slot holding the object of a thread. */
+	private static class Slot<T> {
+
+		/** Object of the thread or <code>null</code> if borrowed */
+		T object;
+	}
+
+	/** Name of the pool */
+	private String name;
+
+	/** Class of the pooled objects, which must have a default constructor */
+	private Class<? extends T> objectType;
+
+	/** Minimum number of idle objects kept on the stack by the trimming */
+	private int minIdle;
+
+	/** Maximum number of idle objects kept on the stack */
+	private int maxIdle;
+
+	/** Time in milliseconds before an idle object is trimmed */
+	private long idleTimeout;
+
+	/** Use the thread-local slots? */
+	private boolean threadLocal;
+
+	/** Thread-local slots */
+	private ThreadLocal<Slot<T>> slots = new ThreadLocal<Slot<T>>() {
+
+		protected Slot<T> initialValue() {
+			return new Slot<T>();
+		}
+	};
+
+	/** Top of the overflow stack */
+	private AtomicReference<Node<T>> top = new AtomicReference<Node<T>>();
+
+	/** Number of objects on the overflow stack */
+	private AtomicInteger idleCount = new AtomicInteger();
+
+	/** Time of the next trimming in milliseconds */
+	private AtomicLong nextTrim = new AtomicLong();
+
+	/**
+	 * Creates an <code>EPPObjectPool</code>.
+	 * 
+	 * @param aName
+	 *            Name of the pool
+	 * @param aObjectType
+	 *            Fully qualified class name of the pooled objects, which
+	 *            must have a default constructor
+	 * @param aInitialObjects
+	 *            Number of objects created on the stack by the constructor
+	 * @param aMinIdle
+	 *            Minimum number of idle objects kept on the stack by the
+	 *            trimming
+	 * @param aMaxIdle
+	 *            Maximum number of idle objects kept on the stack
+	 * @param aIdleTimeout
+	 *            Time in milliseconds before an idle object is trimmed, or
+	 *            <code>0</code> to disable the trimming
+	 * 
+	 * @exception EPPException
+	 *                <code>aObjectType</code> can not be loaded
+	 */
+	public EPPObjectPool(String aName, String aObjectType, int aInitialObjects,
+			int aMinIdle, int aMaxIdle, long aIdleTimeout) throws EPPException {
+		this.name = aName;
+		try {
+			this.objectType = (Class<? extends T>) Class.forName(aObjectType);
+		}
+		catch (ClassNotFoundException ex) {
+			throw new EPPException("EPPObjectPool: Object type " + aObjectType
+					+ " not found for pool " + aName);
+		}
+		this.minIdle = aMinIdle;
+		this.maxIdle = aMaxIdle;
+		this.idleTimeout = aIdleTimeout;
+		this.threadLocal = !EPPThreadModel.isVirtual();
+		this.nextTrim.set(System.currentTimeMillis() + aIdleTimeout);
+
+		for (int i = 0; i < Math.min(aInitialObjects, aMaxIdle); i++) {
+			this.push(this.makeObject(), System.currentTimeMillis());
+		}
+
+		if (cat.isDebugEnabled()) {
+			cat.debug("EPPObjectPool(): Created pool " + aName + " of "
+					+ aObjectType + " with " + this.idleCount.get()
+					+ " initial objects");
+		}
+	}
+
+	/**
+	 * Registers a pool by its name, which replaces a pool previously
+	 * registered with the same name.
+	 * 
+	 * @param aPool
+	 *            Pool to register
+	 */
+	public static void addPool(EPPObjectPool<?> aPool) {
+		pools.put(aPool.getName(), aPool);
+	}
+
+	/**
+	 * Gets a registered pool.
+	 * 
+	 * @param aName
+	 *            Name of the pool
+	 * 
+	 * @return Pool if registered; <code>null</code> otherwise.
+	 */
+	public static EPPObjectPool<?> getPool(String aName) {
+		if (aName == null) {
+			return null;
+		}
+		return pools.get(aName);
+	}
+
+	/**
+	 * Unregisters a pool.
+	 * 
+	 * @param aName
+	 *            Name of the pool
+	 * 
+	 * @return Pool removed if registered; <code>null</code> otherwise.
+	 */
+	public static EPPObjectPool<?> removePool(String aName) {
+		return pools.remove(aName);
+	}
+
+	/**
+	 * Gets the name of the pool.
+	 * 
+	 * @return Name of the pool
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * Borrows an object from the pool, which must be returned with
+	 * {@link #returnObject(Object)}.  The object of the thread-local slot is
+	 * returned first, then an idle object of the stack, and finally a new
+	 * object.  The time to check out the object is recorded in the
+	 * {@link EPPMetrics#OBJECT_POOL_BORROW} metric.
+	 * 
+	 * @return Object borrowed from the pool
+	 * 
+	 * @exception EPPException
+	 *                Error creating a new object
+	 */
+	public T borrowObject() throws EPPException {
+		long theStart = System.nanoTime();
+		try {
+			return this.checkout();
+		}
+		finally {
+			EPPMetricsFactory.getInstance().getMetrics().recordTime(
+					EPPMetrics.OBJECT_POOL_BORROW, this.name,
+					System.nanoTime() - theStart);
+		}
+	}
+
+	/**
+	 * Checks out an object for {@link #borrowObject()}.
+	 * 
+	 * @return Object of the thread-local slot, an idle object of the stack,
+	 *         or a new object
+	 * 
+	 * @exception EPPException
+	 *                Error creating a new object
+	 */
+	private T checkout() throws EPPException {
+		if (this.threadLocal) {
+			Slot<T> theSlot = this.slots.get();
+			T theObject = theSlot.object;
+			if (theObject != null) {
+				theSlot.object = null;
+				return theObject;
+			}
+		}
+
+		Node<T> theNode = this.pop();
+		if (theNode != null) {
+			return theNode.object;
+		}
+
+		return this.makeObject();
+	}
+
+	/**
+	 * Returns an object to the pool.  The object is put in the thread-local
+	 * slot if empty, or else on the stack if there are less than
+	 * <code>maxIdle</code> idle objects, or else it is discarded.
+	 * 
+	 * @param aObject
+	 *            Object previously borrowed with {@link #borrowObject()}.
+	 *            <code>null</code> is ignored.
+	 */
+	public void returnObject(T aObject) {
+		if (aObject == null) {
+			return;
+		}
+
+		if (this.threadLocal) {
+			Slot<T> theSlot = this.slots.get();
+			if (theSlot.object == null) {
+				theSlot.object = aObject;
+				return;
+			}
+		}
+
+		long theNow = System.currentTimeMillis();
+		this.push(aObject, theNow);
+
+		if (this.idleTimeout > 0) {
+			long theNextTrim = this.nextTrim.get();
+			if ((theNow >= theNextTrim)
+					&& this.nextTrim.compareAndSet(theNextTrim, theNow
+							+ this.idleTimeout)) {
+				this.trim(theNow);
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of idle objects on the stack, which does not include
+	 * the objects in the thread-local slots.
+	 * 
+	 * @return Number of idle objects on the stack
+	 */
+	public int getIdleCount() {
+		return this.idleCount.get();
+	}
+
+	/**
+	 * Discards the idle objects on the stack.  The objects in the
+	 * thread-local slots are not discarded.
+	 */
+	public void clear() {
+		Node<T> theNode = this.top.getAndSet(null);
+		while (theNode != null) {
+			this.idleCount.decrementAndGet();
+			theNode = theNode.next;
+		}
+	}
+
+	/**
+	 * Creates a new object of the pool object type.
+	 * 
+	 * @return New object
+	 * 
+	 * @exception EPPException
+	 *                Error creating the object
+	 */
+	private T makeObject() throws EPPException {
+		try {
+			T theObject = this.objectType.newInstance();
+			EPPMetricsFactory.getInstance().getMetrics().increment(
+					EPPMetrics.OBJECT_POOL_CREATED, this.name, 1);
+			return theObject;
+		}
+		catch (Exception ex) {
+			cat.error("makeObject(): Error creating " + this.objectType.getName()
+					+ " for pool " + this.name + ": " + ex);
+			throw new EPPException("EPPObjectPool.makeObject(): Error creating "
+					+ this.objectType.getName() + ": " + ex);
+		}
+	}
+
+	/**
+	 * Pushes an idle object on the stack if there are less than
+	 * <code>maxIdle</code> idle objects.
+	 * 
+	 * @param aObject
+	 *            Idle object
+	 * @param aReturned
+	 *            Time the object was returned in milliseconds
+	 */
+	private void push(T aObject, long aReturned) {
+		if (this.idleCount.incrementAndGet() > this.maxIdle) {
+			this.idleCount.decrementAndGet();
+			return;
+		}
+
+		Node<T> theNode = new Node<T>(aObject, aReturned);
+		Node<T> theTop;
+		do {
+			theTop = this.top.get();
+			theNode.next = theTop;
+		} while (!this.top.compareAndSet(theTop, theNode));
+	}
+
+	/**
+	 * Pops an idle object from the stack.
+	 * 
+	 * @return Node of the idle object if the stack is not empty;
+	 *         <code>null</code> otherwise.
+	 */
+	private Node<T> pop() {
+		Node<T> theTop;
+		do {
+			theTop = this.top.get();
+			if (theTop == null) {
+				return null;
+			}
+		} while (!this.top.compareAndSet(theTop, theTop.next));
+
+		this.idleCount.decrementAndGet();
+		return theTop;
+	}
+
+	/**
+	 * Discards the objects idle on the stack for longer than
+	 * <code>idleTimeout</code>, keeping at least <code>minIdle</code> idle
+	 * objects.  The stack is detached while it is trimmed, and the objects
+	 * kept are pushed back in new nodes.
+	 * 
+	 * @param aNow
+	 *            Current time in milliseconds
+	 */
+	private void trim(long aNow) {
+		Node<T> theNode = this.top.getAndSet(null);
+
+		int theKept = 0;
+		int theTrimmed = 0;
+		Node<T> theKeep = null;
+		while (theNode != null) {
+			Node<T> theNext = theNode.next;
+			this.idleCount.decrementAndGet();
+
+			if ((theKept < this.minIdle)
+					|| (aNow - theNode.returned < this.idleTimeout)) {
+				Node<T> theCopy = new Node<T>(theNode.object, theNode.returned);
+				theCopy.next = theKeep;
+				theKeep = theCopy;
+				theKept++;
+			}
+			else {
+				theTrimmed++;
+			}
+
+			theNode = theNext;
+		}
+
+		// Push back the oldest first to keep the most recent on top
+		while (theKeep != null) {
+			this.push(theKeep.object, theKeep.returned);
+			theKeep = theKeep.next;
+		}
+
+		if (theTrimmed > 0) {
+			if (cat.isDebugEnabled()) {
+				cat.debug("trim(): Trimmed " + theTrimmed
+						+ " idle objects from pool " + this.name);
+			}
+		}
+	}
+}
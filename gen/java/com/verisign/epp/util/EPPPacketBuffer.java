@@ -0,0 +1,285 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+
+import com.verisign.epp.exception.EPPException;
+
+/**
+ * Reusable buffer of an EPP data unit, which is the 4 byte network header
+ * that defines the total length of the data unit in network (big endian)
+ * byte order, followed by the EPP packet.  The buffer is used by
+ * <code>EPPXMLStream</code> for both reading and writing, so that the
+ * packets of a connection are read and written without allocating a new
+ * buffer per packet:<br>
+ * <br>
+ * <ul>
+ * <li>Writing - The packet is written to the buffer as an
+ * <code>OutputStream</code> after the space reserved for the header, and
+ * {@link #writeTo(OutputStream)} fills in the header and writes the header
+ * and the packet with a single write.
+ * <li>Reading - {@link #read(InputStream, int)} reads the header and the
+ * packet into the buffer, which grows as needed, and the packet can be
+ * parsed from a view of the buffer with {@link #getPacketInputStream()}
+ * instead of from a copy.
+ * </ul>
+ * <br>
+ * The buffer is not thread safe and the packet is only valid until the next
+ * read or write.
+ */
+public class EPPPacketBuffer extends OutputStream {
+
+	/** Size of the network header in bytes. */
+	public static final int HEADER_SIZE = 4;
+
+	/** Default initial size of the buffer in bytes. */
+	private static final int DEFAULT_SIZE = 4096;
+
+	/** Buffer containing the network header and the packet */
+	private byte[] buffer;
+
+	/** Number of bytes in <code>buffer</code>, including the header */
+	private int count = HEADER_SIZE;
+
+	/**
+	 * Creates an <code>EPPPacketBuffer</code> with the default initial size.
+	 */
+	public EPPPacketBuffer() {
+		this(DEFAULT_SIZE);
+	}
+
+	/**
+	 * Creates an <code>EPPPacketBuffer</code> with an initial size.
+	 * 
+	 * @param aSize
+	 *            Initial size of the buffer in bytes
+	 */
+	public EPPPacketBuffer(int aSize) {
+		this.buffer = new byte[Math.max(aSize, HEADER_SIZE + 1)];
+	}
+
+	/**
+	 * Resets the buffer to an empty packet, so that a new packet can be
+	 * written.
+	 */
+	public void reset() {
+		this.count = HEADER_SIZE;
+	}
+
+	/**
+	 * Writes a byte to the packet.
+	 * 
+	 * @param aByte
+	 *            Byte to write
+	 */
+	public void write(int aByte) {
+		this.ensureCapacity(this.count + 1);
+		this.buffer[this.count++] = (byte) aByte;
+	}
+
+	/**
+	 * Writes bytes to the packet.
+	 * 
+	 * @param aBytes
+	 *            Bytes to write
+	 * @param aOffset
+	 *            Offset of the first byte in <code>aBytes</code>
+	 * @param aLength
+	 *            Number of bytes to write
+	 */
+	public void write(byte[] aBytes, int aOffset, int aLength) {
+		this.ensureCapacity(this.count + aLength);
+		System.arraycopy(aBytes, aOffset, this.buffer, this.count, aLength);
+		this.count += aLength;
+	}
+
+	/**
+	 * Gets the internal buffer, which contains the packet at offset
+	 * {@link #HEADER_SIZE} with a length of {@link #getPacketLength()}.
+	 * 
+	 * @return Internal buffer
+	 */
+	public byte[] getBuffer() {
+		return this.buffer;
+	}
+
+	/**
+	 * Gets the length of the packet without the network header.
+	 * 
+	 * @return Packet length in bytes
+	 */
+	public int getPacketLength() {
+		return this.count - HEADER_SIZE;
+	}
+
+	/**
+	 * Gets an <code>InputStream</code> that reads the packet directly from
+	 * the buffer.
+	 * 
+	 * @return <code>InputStream</code> view of the packet
+	 */
+	public InputStream getPacketInputStream() {
+		return new ByteArrayInputStream(this.buffer, HEADER_SIZE, this.count
+				- HEADER_SIZE);
+	}
+
+	/**
+	 * Gets a copy of the packet, which remains valid after the buffer is
+	 * reused.
+	 * 
+	 * @return Copy of the packet without the network header
+	 */
+	public byte[] toPacketArray() {
+		byte[] thePacket = new byte[this.count - HEADER_SIZE];
+		System.arraycopy(this.buffer, HEADER_SIZE, thePacket, 0,
+				thePacket.length);
+		return thePacket;
+	}
+
+	/**
+	 * Fills in the network header and writes the header and the packet to
+	 * <code>aOutput</code> with a single write, so that the header and the
+	 * packet are not split in separate TCP segments or TLS records.
+	 * <code>aOutput</code> is flushed.
+	 * 
+	 * @param aOutput
+	 *            Stream to write to
+	 * 
+	 * @exception IOException
+	 *                Error writing to <code>aOutput</code>
+	 */
+	public void writeTo(OutputStream aOutput) throws IOException {
+		this.buffer[0] = (byte) (this.count >>> 24);
+		this.buffer[1] = (byte) (this.count >>> 16);
+		this.buffer[2] = (byte) (this.count >>> 8);
+		this.buffer[3] = (byte) this.count;
+
+		aOutput.write(this.buffer, 0, this.count);
+		aOutput.flush();
+	}
+
+	/**
+	 * Reads a network header and the packet it defines from
+	 * <code>aInput</code> into the buffer, replacing the current packet.
+	 * 
+	 * @param aInput
+	 *            Stream to read from
+	 * @param aMaxSize
+	 *            Maximum total length accepted in the network header
+	 * 
+	 * @return Length of the packet read without the network header
+	 * 
+	 * @exception EPPException
+	 *                The network header defines an invalid length
+	 * @exception EOFException
+	 *                End of stream before the complete packet was read
+	 * @exception IOException
+	 *                Error reading from <code>aInput</code>
+	 */
+	public int read(InputStream aInput, int aMaxSize) throws EPPException,
+			IOException {
+		this.count = 0;
+		this.readFully(aInput, HEADER_SIZE);
+
+		int theSize = ((this.buffer[0] & 0xFF) << 24)
+				| ((this.buffer[1] & 0xFF) << 16)
+				| ((this.buffer[2] & 0xFF) << 8) | (this.buffer[3] & 0xFF);
+
+		if (theSize > aMaxSize) {
+			this.count = HEADER_SIZE;
+			throw new EPPException("Packet header specifies a packet size of "
+					+ theSize + " bytes, which exceeds the maximum of "
+					+ aMaxSize + " bytes");
+		}
+
+		if (theSize < HEADER_SIZE) {
+			this.count = HEADER_SIZE;
+			throw new EPPException("Packet header specifies an invalid packet size of "
+					+ theSize + " bytes");
+		}
+
+		this.ensureCapacity(theSize);
+		this.readFully(aInput, theSize - HEADER_SIZE);
+
+		return this.count - HEADER_SIZE;
+	}
+
+	/**
+	 * Gets the packet as a <code>String</code>, which is used for logging.
+	 * 
+	 * @return Packet decoded as UTF-8
+	 */
+	public String toString() {
+		try {
+			return new String(this.buffer, HEADER_SIZE, this.count - HEADER_SIZE,
+					"UTF-8");
+		}
+		catch (UnsupportedEncodingException ex) {
+			return new String(this.buffer, HEADER_SIZE, this.count - HEADER_SIZE);
+		}
+	}
+
+	/**
+	 * Reads an exact number of bytes from <code>aInput</code> to the end of
+	 * the buffer.
+	 * 
+	 * @param aInput
+	 *            Stream to read from
+	 * @param aLength
+	 *            Number of bytes to read
+	 * 
+	 * @exception EOFException
+	 *                End of stream before <code>aLength</code> bytes were read
+	 * @exception IOException
+	 *                Error reading from <code>aInput</code>
+	 */
+	private void readFully(InputStream aInput, int aLength) throws IOException {
+		int theEnd = this.count + aLength;
+		while (this.count < theEnd) {
+			int theRead = aInput.read(this.buffer, this.count, theEnd
+					- this.count);
+			if (theRead < 0) {
+				throw new EOFException("End of stream after " + this.count
+						+ " bytes of data unit");
+			}
+			this.count += theRead;
+		}
+	}
+
+	/**
+	 * Grows the buffer to hold at least <code>aSize</code> bytes.
+	 * 
+	 * @param aSize
+	 *            Number of bytes required including the header
+	 */
+	private void ensureCapacity(int aSize) {
+		if (aSize > this.buffer.length) {
+			byte[] theBuffer = new byte[Math.max(this.buffer.length * 2, aSize)];
+			System.arraycopy(this.buffer, 0, theBuffer, 0, this.count);
+			this.buffer = theBuffer;
+		}
+	}
+}
@@ -118,8 +118,10 @@ public class EPPSchemaCachingEntityResolver implements XMLEntityResolver,
 							  throws SAXException, IOException {
 		cat.debug("resolveEntity(String aPublicId, String aSystemId) enter");
 
-		cat.info("Entity not found in grammar pool - public Id: " + aPublicId
-				 + " systemId: " + aSystemId);
+		if (cat.isInfoEnabled()) {
+			cat.info("Entity not found in grammar pool - public Id: " + aPublicId
+					 + " systemId: " + aSystemId);
+		}
 
 		File   tmpFile   = new File(aSystemId);
 		String literalId = tmpFile.getName();
@@ -186,8 +188,10 @@ public class EPPSchemaCachingEntityResolver implements XMLEntityResolver,
 
 		String literalId = aResourceIdentifier.getLiteralSystemId();
 
-		cat.info("Entity not found in grammar pool - public Id: " + publicId
-				 + " systemId: " + systemId + " literalId: " + literalId);
+		if (cat.isInfoEnabled()) {
+			cat.info("Entity not found in grammar pool - public Id: " + publicId
+					 + " systemId: " + systemId + " literalId: " + literalId);
+		}
 
 		// lookup the file name in this classes's classpath under "schemas"
 		InputStream schemaStream =
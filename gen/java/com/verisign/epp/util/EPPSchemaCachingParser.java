@@ -24,8 +24,6 @@ package com.verisign.epp.util;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Iterator;
-import java.util.Set;
 
 import javax.xml.parsers.DocumentBuilder;
 
@@ -35,12 +33,7 @@ import org.apache.xerces.impl.Constants;
 import org.apache.xerces.parsers.DOMParser;
 import org.apache.xerces.parsers.XML11Configuration;
 import org.apache.xerces.parsers.XMLGrammarCachingConfiguration;
-import org.apache.xerces.parsers.XMLGrammarPreparser;
 import org.apache.xerces.util.SymbolTable;
-import org.apache.xerces.util.XMLGrammarPoolImpl;
-import org.apache.xerces.xni.grammars.Grammar;
-import org.apache.xerces.xni.grammars.XMLGrammarDescription;
-import org.apache.xerces.xni.grammars.XMLGrammarPool;
 import org.apache.xerces.xni.parser.XMLInputSource;
 import org.w3c.dom.DOMImplementation;
 import org.w3c.dom.Document;
@@ -80,7 +73,7 @@ public class EPPSchemaCachingParser extends DocumentBuilder implements
 		EPPSchemaCacher {
 	/**
 	 * Name of the EPP XML Parser Pool managed by
-	 * <code>GenericPoolManager</code>.
+	 * <code>EPPObjectPool</code>.
 	 */
 	public static final String POOL = "EPP_XML_PARSER_POOL";
 
@@ -193,8 +186,11 @@ public class EPPSchemaCachingParser extends DocumentBuilder implements
 	 */
 	private DOMParser parserImpl = null;
 
-	/** The grammar pool instance that this parser will use */
-	private XMLGrammarPool grammarPool = new XMLGrammarPoolImpl();
+	/**
+	 * The grammar pool instance that this parser will use, which is shared
+	 * by all of the parsers of the JVM
+	 */
+	private EPPGrammarPool grammarPool = EPPGrammarPool.getInstance();
 
 	/**
 	 * Create a new instance of EPPSchemaCachingParser. Defaults are: Namespace
@@ -236,8 +232,10 @@ public class EPPSchemaCachingParser extends DocumentBuilder implements
 	private void init() throws EPPParserException {
 		cat.debug("init() enter");
 
-		cat.info("Creating parser instance with symbol table size: "
-				+ symbolTableSize);
+		if (cat.isDebugEnabled()) {
+			cat.debug("Creating parser instance with symbol table size: "
+					+ symbolTableSize);
+		}
 
 		// Explicitly providing an XMLConfiguration here
 		// prevents Xerces from going out and looking up
@@ -303,34 +301,32 @@ public class EPPSchemaCachingParser extends DocumentBuilder implements
 		}
 
 		// Pre-load the XML schemas based on the registered EPPMapFactory
-		// and EPPExtFactory instances.
-		Set theSchemas = EPPFactory.getInstance().getXmlSchemas();
-		Iterator theSchemasIter = theSchemas.iterator();
-		while (theSchemasIter.hasNext()) {
-			String theSchemaName = (String) theSchemasIter.next();
-
-			cat.debug("init(): Pre-loading XML schema \"" + theSchemaName
-					+ "\"");
-
-			// lookup the file name in this classes's classpath under "schemas"
-			InputStream theSchemaStream = getClass().getClassLoader()
-					.getResourceAsStream("schemas/" + theSchemaName);
+		// and EPPExtFactory instances.  The schemas are compiled once in the
+		// shared grammar pool, so only the first parser compiles them.
+		grammarPool.loadSchemas(EPPFactory.getInstance().getXmlSchemas());
 
-			this.addSchemaToCache(new XMLInputSource(theSchemaName,
-					theSchemaName, theSchemaName, theSchemaStream, null));
+		try {
+			parserImpl.setProperty(XMLGRAMMAR_POOL, grammarPool);
+		}
+		catch (SAXException e) {
+			cat.error("Couldn't set the grammar pool of parserImpl", e);
+			throw new EPPParserException(e);
 		}
 
 		cat.debug("init() exit");
 	}
 
 	/**
-	 * Lock the schema cache. True param locks it, false unlocks it
+	 * Lock the schema cache. True param locks it, false unlocks it.  The
+	 * schema cache is shared by all of the parsers of the JVM.
 	 * 
 	 * @param aBoolean
 	 *            True param locks it, false unlocks it
 	 */
 	public void setLockSchemaCache(boolean aBoolean) {
-		cat.debug("Setting lockSchemaCache to: " + aBoolean);
+		if (cat.isDebugEnabled()) {
+			cat.debug("Setting lockSchemaCache to: " + aBoolean);
+		}
 
 		if (aBoolean) {
 			grammarPool.lockPool();
@@ -341,84 +337,21 @@ public class EPPSchemaCachingParser extends DocumentBuilder implements
 	}
 
 	/**
-	 * Addes the XMLInputSource instance to the current cache of schemas. Only
+	 * Addes the XMLInputSource instance to the shared cache of schemas. Only
 	 * addes the schema to the cache if it isn't already in the cache.
 	 * 
 	 * @param aSchema
 	 *            The schema instance to be cached
 	 * 
 	 * @throws EPPParserException
-	 *             DOCUMENT ME!
+	 *             Error compiling the schema
 	 */
 	public void addSchemaToCache(XMLInputSource aSchema)
 			throws EPPParserException {
 		cat.debug("addSchemaToCache(XMLInputSource) enter");
 
-		// Use the XMLGrammarParser to load this schema
-		SymbolTable preparserSymTable = new SymbolTable(BIG_PRIME);
-		XMLGrammarPreparser preparser = new XMLGrammarPreparser(
-				preparserSymTable);
-
-		// Register the XML Schema type as the type of grammar loader
-		// we want to use.
-		preparser.registerPreparser(XMLGrammarDescription.XML_SCHEMA, null);
-
-		// Set the GrammarPool instance so the grammar will be added
-		preparser.setGrammarPool(grammarPool);
-
-		// Use the EPPSchemaParsingEntityResolver so that imported schemas
-		// will be resolved by looking them up in the classpath
-		preparser.setEntityResolver(new EPPSchemaParsingEntityResolver());
-
-		// Turn on Namespace awareness and schema validation in the preparser
-		preparser.setFeature(NAMESPACES_FEATURE_ID, true);
-		preparser.setFeature(VALIDATION_FEATURE_ID, true);
-		preparser.setFeature(SCHEMA_VALIDATION_FEATURE_ID, true);
-		preparser.setFeature(SCHEMA_FULL_CHECKING_FEATURE_ID, true);
-
-		cat.info("parsing schema to add it to the pool: "
-				+ aSchema.getSystemId());
-
-		boolean addToPool = true;
-
-		try {
-			Grammar grammar = preparser.preparseGrammar(
-					XMLGrammarDescription.XML_SCHEMA, aSchema);
-
-			/**
-			 * @todo Revisit how to not add schemas that are already in the pool
-			 *       - Warnings come up when with XMLGrammarCachingConfiguration
-			 */
-
-			// Check to see if the grammar is already in the grammar pool. If so
-			// then set the flag so it isn't added again. This eliminates some
-			// warning logs from Xerces.
-			// XMLGrammarDescription grammarDescription =
-			// grammar.getGrammarDescription();
-			// is this grammar already in the cache used by DOMParser
-			// GrammarPool domParsersGrammarPool =
-			// parserImpl.getProperty(XMLGRAMMAR_POOL);
-			// if (grammarPool.retrieveGrammar(grammarDescription) != null)
-			// addToPool = false;
-		}
-		catch (IOException e) {
-			cat.error("Error while attempting to add schema: "
-					+ aSchema.getSystemId());
-
-			throw new EPPParserException(e);
-		}
-
-		// Update the grammar pool that this parser uses
-		// if (addToPool) {
-		try {
-			parserImpl.setProperty(XMLGRAMMAR_POOL, grammarPool);
-		}
-		catch (SAXException e) {
-			cat.error("Couldn't reset grammar pool when new grammar detected");
-			throw new EPPParserException(e);
-		}
+		grammarPool.addSchema(aSchema);
 
-		// }
 		cat.debug("addSchemaToCache(XMLInputSource) exit");
 	}
 
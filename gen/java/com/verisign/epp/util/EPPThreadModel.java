@@ -0,0 +1,158 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Starts the threads of the SDK based on the thread model defined by the
+ * <code>EPP.ThreadModel</code> configuration property (see
+ * {@link EPPEnv#getThreadModel()}).  With the <code>virtual</code> thread
+ * model, the blocking code of the SDK (i.e. the server connection handlers
+ * and the pipelined session readers) is run on virtual threads, so a large
+ * number of concurrent sessions does not require the same number of
+ * platform threads.  The SDK is compiled for Java 8, so the virtual
+ * threads are created with reflection on <code>Thread.ofVirtual()</code>.
+ * On a runtime without virtual threads, the <code>virtual</code> thread
+ * model falls back to platform threads with a warning.
+ */
+public class EPPThreadModel {
+
+	/** Log4j category for logging */
+	private static Logger cat = Logger.getLogger(EPPThreadModel.class
+			.getName(), EPPCatFactory.getInstance().getFactory());
+
+	/** <code>Thread.ofVirtual()</code> or <code>null</code> if not supported */
+	private static final Method OF_VIRTUAL;
+
+	/** <code>Thread.Builder.name(String)</code> */
+	private static final Method BUILDER_NAME;
+
+	/** <code>Thread.Builder.start(Runnable)</code> */
+	private static final Method BUILDER_START;
+
+	/** Was the warning for the unsupported virtual thread model logged? */
+	private static volatile boolean warned = false;
+
+	static {
+		Method theOfVirtual = null;
+		Method theName = null;
+		Method theStart = null;
+
+		try {
+			Class theBuilderClass = Class.forName("java.lang.Thread$Builder");
+			theOfVirtual = Thread.class.getMethod("ofVirtual", new Class[0]);
+			theName = theBuilderClass.getMethod("name", new Class[] {String.class});
+			theStart = theBuilderClass.getMethod("start", new Class[] {Runnable.class});
+		}
+		catch (ClassNotFoundException ex) {
+			theOfVirtual = null;
+		}
+		catch (NoSuchMethodException ex) {
+			theOfVirtual = null;
+		}
+
+		OF_VIRTUAL = theOfVirtual;
+		BUILDER_NAME = theName;
+		BUILDER_START = theStart;
+	}
+
+	/**
+	 * Does the runtime support virtual threads?
+	 *
+	 * @return <code>true</code> if running on Java 21 or later;
+	 *         <code>false</code> otherwise.
+	 */
+	public static boolean isVirtualSupported() {
+		return OF_VIRTUAL != null;
+	}
+
+	/**
+	 * Should the threads be started as virtual threads?  The
+	 * <code>EPP.ThreadModel</code> property must be set to
+	 * <code>virtual</code> and the runtime must support virtual threads.
+	 *
+	 * @return <code>true</code> to use virtual threads; <code>false</code>
+	 *         otherwise.
+	 */
+	public static boolean isVirtual() {
+		if (EPPEnv.getThreadModel() != EPPEnv.THREAD_MODEL_VIRTUAL) {
+			return false;
+		}
+
+		if (!isVirtualSupported()) {
+			if (!warned) {
+				warned = true;
+				cat.warn("isVirtual(): EPP.ThreadModel = virtual is not supported by Java "
+						 + System.getProperty("java.version") + ", using platform threads");
+			}
+			return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Starts a task on a new thread of the configured thread model.  With
+	 * the platform thread model, a task that is a <code>Thread</code> is
+	 * started directly.
+	 *
+	 * @param aTask Task to run
+	 * @param aName Name of the thread
+	 * @param aDaemon Should a platform thread be a daemon thread?  Virtual
+	 *        threads are always daemon threads.
+	 *
+	 * @return Started thread
+	 */
+	public static Thread start(Runnable aTask, String aName, boolean aDaemon) {
+		if (isVirtual()) {
+			try {
+				Object theBuilder = OF_VIRTUAL.invoke(null, new Object[0]);
+				theBuilder = BUILDER_NAME.invoke(theBuilder, new Object[] {aName});
+				return (Thread) BUILDER_START.invoke(theBuilder, new Object[] {aTask});
+			}
+			catch (IllegalAccessException ex) {
+				cat.error("start(): Error starting virtual thread, using platform thread: " + ex);
+			}
+			catch (InvocationTargetException ex) {
+				cat.error("start(): Error starting virtual thread, using platform thread: "
+						  + ex.getTargetException());
+			}
+		}
+
+		Thread theThread;
+		if (aTask instanceof Thread) {
+			theThread = (Thread) aTask;
+		}
+		else {
+			theThread = new Thread(aTask, aName);
+		}
+		theThread.setDaemon(aDaemon);
+		theThread.start();
+
+		return theThread;
+	}
+
+}
+
+// End class EPPThreadModel
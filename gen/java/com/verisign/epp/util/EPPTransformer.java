@@ -34,7 +34,7 @@ import org.apache.log4j.Logger;
 
 /**
  * Wrapper class for the {@link javax.xml.transform.Transformer} class for
- * inclusion in a <code>GenericPoolManager</code>. The pool name used for
+ * inclusion in an <code>EPPObjectPool</code>. The pool name used for
  * instances to <code>EPPTransformer</code> is defined by the {@link #POOL}
  * constant. The <code>EPPTransformer</code> creates an embedded instance of
  * {@link javax.xml.transform.Transformer} that is delegated all of the method
@@ -43,7 +43,7 @@ import org.apache.log4j.Logger;
 public class EPPTransformer extends Transformer {
 	/**
 	 * Name of the EPPTransformer Pool managed by
-	 * <code>GenericPoolManager</code>.
+	 * <code>EPPObjectPool</code>.
 	 */
 	public static final String POOL = "EPP_XML_TRANSFORMER_POOL";
 
@@ -23,6 +23,7 @@ package com.verisign.epp.util;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -36,7 +37,6 @@ import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
 
-import com.codestudio.util.GenericPoolManager;
 import com.verisign.epp.exception.EPPException;
 import com.verisign.epp.framework.EPPAssemblerException;
 
@@ -62,17 +62,16 @@ public class EPPXMLByteArray {
 					.getInstance().getFactory());
 
 	/**
-	 * Pool Manager that could contain the EPP XML Parser Pool (
-	 * <code>poolName</code>). If this is <code>null</code> there will be one
-	 * XML parser created per call to <code>read</code>.
+	 * Name of the XML Parser <code>EPPObjectPool</code>. If this is
+	 * <code>null</code> or the pool is not registered, there will be one XML
+	 * parser created per call to <code>decode</code>.
 	 */
-	private GenericPoolManager manager = null;
-
-	/** Name of XML Parser Pool contained in <code>manager</code>. */
 	private String parserPoolName = null;
 
 	/**
-	 * Name of the Transformer Pool contained in <code>manager</code>.
+	 * Name of the Transformer <code>EPPObjectPool</code>. If this is
+	 * <code>null</code> or the pool is not registered, there will be one
+	 * transformer created per call to <code>encode</code>.
 	 */
 	private String transformerPoolName = null;
 
@@ -83,7 +82,6 @@ public class EPPXMLByteArray {
 	 * each call to <code>encode()</code>. .
 	 */
 	public EPPXMLByteArray() {
-		this.manager = null;
 		this.parserPoolName = null;
 		this.transformerPoolName = null;
 	}
@@ -100,7 +98,6 @@ public class EPPXMLByteArray {
 	 *            Pool name to use
 	 */
 	public EPPXMLByteArray(String aParserPoolName) {
-		this.manager = GenericPoolManager.getInstance();
 		this.parserPoolName = aParserPoolName;
 		this.transformerPoolName = EPPTransformer.POOL;
 	}
@@ -121,7 +118,6 @@ public class EPPXMLByteArray {
 	 *            Transformer pool name to use
 	 */
 	public EPPXMLByteArray(String aParserPoolName, String aTransformerPoolName) {
-		this.manager = GenericPoolManager.getInstance();
 		this.parserPoolName = aParserPoolName;
 		this.transformerPoolName = aTransformerPoolName;
 	}
@@ -130,7 +126,7 @@ public class EPPXMLByteArray {
 	 * Decodes(parses) and validates the <code>aPacket</code> parameter and
 	 * returns the associated DOM Document. The XML parser is either created per
 	 * call, or is retrieved from a parser pool when
-	 * <code>EPPXMLByteArray(GenericPoolManager)</code> is used. Use of a parser
+	 * <code>EPPXMLByteArray(String)</code> is used. Use of a parser
 	 * pool is recommended.
 	 * 
 	 * @param aPacket
@@ -146,24 +142,57 @@ public class EPPXMLByteArray {
 	 */
 	public Document decode(byte[] aPacket) throws EPPAssemblerException,
 			EPPException, IOException {
-		LOG.debug("decode(): enter");
-
 		// Validate argument
 		if (aPacket == null) {
 			throw new EPPException("decode(): BAD ARGUMENT (aPacket)");
 		}
 
+		return this.decode(aPacket, 0, aPacket.length);
+	}
+
+	/**
+	 * Decodes(parses) and validates the EPP packet contained in a region of
+	 * the <code>aBuffer</code> parameter and returns the associated DOM
+	 * Document. The packet is parsed directly from <code>aBuffer</code>
+	 * without copying it.
+	 * 
+	 * @param aBuffer
+	 *            The byte array containing the EPP packet.
+	 * @param aOffset
+	 *            Offset of the EPP packet in <code>aBuffer</code>
+	 * @param aLength
+	 *            Length of the EPP packet in bytes
+	 * @return Parsed DOM Document of packet
+	 * @exception EPPException
+	 *                Error with received packet or end of stream. It is
+	 *                recommended that the stream be closed.
+	 * @exception EPPAssemblerException
+	 *                Error parsing packet
+	 * @exception IOException
+	 *                Error reading packet from stream
+	 */
+	public Document decode(byte[] aBuffer, int aOffset, int aLength)
+			throws EPPAssemblerException, EPPException, IOException {
+		LOG.debug("decode(): enter");
+
+		// Validate argument
+		if (aBuffer == null) {
+			throw new EPPException("decode(): BAD ARGUMENT (aBuffer)");
+		}
+
 		DocumentBuilder theBuilder = null;
 		Document theDoc = null;
 
 		// Parser pool specified?
-		if (this.manager != null
-				&& (this.manager.getPool(this.parserPoolName) != null)) {
-			theBuilder = (DocumentBuilder) this.manager
-					.requestObject(this.parserPoolName);
+		EPPObjectPool<DocumentBuilder> thePool = (EPPObjectPool<DocumentBuilder>) EPPObjectPool
+				.getPool(this.parserPoolName);
+		if (thePool != null) {
+			theBuilder = thePool.borrowObject();
 			theBuilder.setErrorHandler(new EPPXMLErrorHandler());
-			LOG.debug("decode(): Parser " + theBuilder
-					+ " checked out from pool");
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("decode(): Parser " + theBuilder
+						+ " checked out from pool");
+			}
 		}
 		else {
 			// Create new parser instance.
@@ -173,21 +202,24 @@ public class EPPXMLByteArray {
 		}
 
 		if (PACKET_LOG.isDebugEnabled()) {
-			PACKET_LOG.debug("decode() : epp packet [" + new String(aPacket)
-					+ "]");
+			PACKET_LOG.debug("decode() : epp packet ["
+					+ new String(aBuffer, aOffset, aLength) + "]");
 		}
 
 		try {
 			try {
 				// Parse/validate EPP Packet and create DOM document
-				theDoc = theBuilder.parse(new ByteArrayInputStream(aPacket));
+				theDoc = theBuilder.parse(new ByteArrayInputStream(aBuffer,
+						aOffset, aLength));
 			}
 			catch (SAXParseException ex) {
 				// Error generated by parser
-				LOG.debug(aPacket + "\nline      " + ex.getLineNumber()
-						+ "\ncolumn    " + ex.getColumnNumber()
-						+ "\nuri       " + ex.getSystemId() + "\nMessage : "
-						+ ex.getMessage(), ex);
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("decode(): [SAXParseException]" + "\nline      " + ex.getLineNumber()
+							+ "\ncolumn    " + ex.getColumnNumber()
+							+ "\nuri       " + ex.getSystemId() + "\nMessage : "
+							+ ex.getMessage(), ex);
+				}
 				throw new EPPAssemblerException("[SAXParseException]"
 						+ "\nline      " + ex.getLineNumber() + "\ncolumn    "
 						+ ex.getColumnNumber() + "\nuri       "
@@ -197,19 +229,19 @@ public class EPPXMLByteArray {
 			}
 			catch (SAXException ex) {
 				// Error generated by this application
-				LOG.debug("decode(): [SAXException]" + aPacket, ex);
+				LOG.debug("decode(): [SAXException]", ex);
 				throw new EPPAssemblerException("[SAXException] " + ex,
 						EPPAssemblerException.XML);
 			}
 		}
 		finally {
 			// Check in pool object
-			if (this.manager != null
-					&& (this.manager.getPool(this.parserPoolName) != null)
-					&& theBuilder != null) {
-				this.manager.returnObject(theBuilder, this.parserPoolName);
-				LOG.debug("decode(): Parser " + theBuilder
-						+ " returned to pool");
+			if (thePool != null && theBuilder != null) {
+				thePool.returnObject(theBuilder);
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("decode(): Parser " + theBuilder
+							+ " returned to pool");
+				}
 			}
 		}
 
@@ -231,23 +263,50 @@ public class EPPXMLByteArray {
 	public byte[] encode(Document aDoc) throws EPPException {
 		LOG.debug("encode(): enter");
 
+		ByteArrayOutputStream theBuffer = new ByteArrayOutputStream();
+		this.encode(aDoc, theBuffer);
+
+		byte[] thePacket = theBuffer.toByteArray();
+		LOG.debug("encode(): exit");
+		return thePacket;
+	}
+
+	/**
+	 * Encodes(converts) a DOM Document directly to an
+	 * <code>OutputStream</code>, which avoids the intermediate
+	 * <code>byte</code> array when the caller provides its own buffer.
+	 * 
+	 * @param aDoc
+	 *            DOM Document to serialize.
+	 * @param aOutput
+	 *            Stream to serialize the DOM Document to. The stream is not
+	 *            closed.
+	 * @exception EPPException
+	 *                Error writing to stream. It is recommended that the stream
+	 *                be closed.
+	 */
+	public void encode(Document aDoc, OutputStream aOutput)
+			throws EPPException {
+		LOG.debug("encode(Document, OutputStream): enter");
+
 		if (aDoc == null) {
 			LOG.debug("encode(): aDoc == null");
 			throw new EPPException("encode(): BAD ARGUMENT (aDoc)");
 		}
 
-		// Serialize DOM Document to stream
-		ByteArrayOutputStream theBuffer = new ByteArrayOutputStream();
-
 		Transformer trans = null;
 
+		// Transformer pool specified?
+		EPPObjectPool<Transformer> thePool = (EPPObjectPool<Transformer>) EPPObjectPool
+				.getPool(this.transformerPoolName);
+
 		try {
-			if (this.manager != null
-					&& (this.manager.getPool(this.transformerPoolName) != null)) {
-				trans = (Transformer) this.manager
-						.requestObject(this.transformerPoolName);
-				LOG.debug("encode(): Transformer " + trans
-						+ " checked out from pool");
+			if (thePool != null) {
+				trans = thePool.borrowObject();
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("encode(): Transformer " + trans
+							+ " checked out from pool");
+				}
 			}
 			else {
 				TransformerFactory transFac = TransformerFactory.newInstance();
@@ -256,29 +315,28 @@ public class EPPXMLByteArray {
 			}
 
 			trans.transform(new DOMSource(aDoc.getDocumentElement()),
-					new StreamResult(theBuffer));
-			theBuffer.close();
+					new StreamResult(aOutput));
 		}
 		catch (Exception ex) {
-			LOG.debug("encode() : serialize() :" + ex.getMessage(), ex);
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("encode() : serialize() :" + ex.getMessage(), ex);
+			}
 			throw new EPPException("encode: serialize() " + ex.getMessage());
 		}
 		finally {
-			if (this.manager != null
-					&& (this.manager.getPool(this.transformerPoolName) != null)
-					&& trans != null) {
-				this.manager.returnObject(trans, this.transformerPoolName);
-				LOG.debug("encode(): Transformer " + trans
-						+ " returned to pool");
+			if (thePool != null && trans != null) {
+				thePool.returnObject(trans);
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("encode(): Transformer " + trans
+							+ " returned to pool");
+				}
 			}
 		}
 
 		if (PACKET_LOG.isDebugEnabled()) {
-			PACKET_LOG.debug("encode() : epp packet [" + theBuffer + "]");
+			PACKET_LOG.debug("encode() : epp packet [" + aOutput + "]");
 		}
-		byte[] thePacket = theBuffer.toByteArray();
-		LOG.debug("encode(): exit");
-		return thePacket;
+		LOG.debug("encode(Document, OutputStream): exit");
 	}
 
 } // End class EPPXMLByteArray
@@ -95,7 +95,7 @@ import org.apache.log4j.Priority;
 public class EPPXMLParser extends DocumentBuilder {
 
 	/**
-	 * Name of the EPP XML Parser Pool managed by <code>GenericPoolManager</code>.
+	 * Name of the EPP XML Parser Pool managed by <code>EPPObjectPool</code>.
 	 */
 	public static final String POOL = "EPP_XML_PARSER_POOL";
 
@@ -20,8 +20,6 @@ http://www.verisign.com/nds/naming/namestore/techdocs.html
 package com.verisign.epp.util;
 
 // PoolMan Imports
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -33,8 +31,11 @@ import javax.xml.parsers.DocumentBuilderFactory;
 import org.apache.log4j.Logger;
 import org.w3c.dom.Document;
 
+import com.verisign.epp.codec.gen.EPPXMLWriter;
 import com.verisign.epp.exception.EPPException;
 import com.verisign.epp.framework.EPPAssemblerException;
+import com.verisign.epp.metrics.EPPMetrics;
+import com.verisign.epp.metrics.EPPMetricsFactory;
 
 /**
  * <code>EPPXMLStream</code> is a utility class for reading and writing EPP
@@ -42,7 +43,12 @@ import com.verisign.epp.framework.EPPAssemblerException;
  * An XML parser is required when reading from the stream. There is one
  * constructor that will create an XML parser per call to
  * <code>read(InputStream)</code> and one that will use a parser pool. Use of a
- * parser pool is recommended.
+ * parser pool is recommended.<br>
+ * <br>
+ * The packets are read into and written from buffers that are reused by the
+ * <code>EPPXMLStream</code> instance, so an instance should be used for a
+ * single connection, with at most one thread reading and one thread writing
+ * at a time.
  */
 public class EPPXMLStream {
 
@@ -69,6 +75,16 @@ public class EPPXMLStream {
 	 */
 	EPPXMLByteArray byteArray;
 
+	/**
+	 * Buffer the packets are read into, which is reused across the reads.
+	 */
+	private EPPPacketBuffer readBuffer = new EPPPacketBuffer();
+
+	/**
+	 * Buffer the packets are written from, which is reused across the writes.
+	 */
+	private EPPPacketBuffer writeBuffer = new EPPPacketBuffer();
+
 	/** Log4j category for logging */
 	private static Logger cat = Logger.getLogger(EPPXMLStream.class.getName(),
 			EPPCatFactory.getInstance().getFactory());
@@ -100,6 +116,17 @@ public class EPPXMLStream {
 		cat.info("maxPacketSize = " + maxPacketSize);
 	}
 
+	/**
+	 * Gets the maximum packet size of bytes accepted, as defined by the 
+	 * &quot;EPP.MaxPacketSize&quot; configuration property or 
+	 * {@link #DEFAULT_MAX_PACKET_SIZE}.
+	 * 
+	 * @return Maximum packet size in bytes, including the network header
+	 */
+	public static int getMaxPacketSize() {
+		return maxPacketSize;
+	}
+
 	/**
 	 * Default constructor for <code>EPPXMLStream</code>. When using this
 	 * constructor, a parser instance will be created on each call to
@@ -148,13 +175,16 @@ public class EPPXMLStream {
 	}
 
 	/**
-	 * Reads an EPP packet from the stream based on a search for the End Of
-	 * Message (EOM) string (&lt;/epp&gt;).
+	 * Reads an EPP data unit from the stream into the read buffer of the
+	 * <code>EPPXMLStream</code>, which is reused across the reads, so the
+	 * returned buffer is only valid until the next read.  The packet can be
+	 * parsed directly from the buffer with
+	 * {@link EPPPacketBuffer#getPacketInputStream()} without copying it.
 	 * 
 	 * @param aStream
 	 *            Stream to read packet from
 	 * 
-	 * @return EPP packet <code>String</code>
+	 * @return Read buffer containing the EPP packet
 	 * 
 	 * @exception EPPException
 	 *                Error reading packet from stream. The stream should be
@@ -164,73 +194,91 @@ public class EPPXMLStream {
 	 * @exception IOException
 	 *                Exception from the input stream
 	 */
-	public byte[] readPacket(InputStream aStream) throws EPPException,
-			InterruptedIOException, IOException {
-		cat.debug("readPacket(): enter");
+	public EPPPacketBuffer readPacketBuffer(InputStream aStream)
+			throws EPPException, InterruptedIOException, IOException {
+		cat.debug("readPacketBuffer(): enter");
 
 		// Validate argument
 		if (aStream == null) {
-			cat.error("readPacket() : null stream passed");
+			cat.error("readPacketBuffer() : null stream passed");
 			throw new EPPException(
 					"EPPXMLStream.readPacket() : null stream passed");
 		}
 
 		// Read network header (32 bits) that defines the total length
 		// of the EPP data unit measured in octets in network (big endian)
-		// byte order.
-		DataInputStream theStream = new DataInputStream(aStream);
-		int thePacketSize = -1;
-		byte[] thePacket = null;
-
+		// byte order, followed by the packet.
+		long theStart = System.nanoTime();
 		try {
-			// Read the packet size which includes network header itself.
-			thePacketSize = theStream.readInt();
-
-			if (thePacketSize > maxPacketSize) {
-				cat.error("readPacket(InputStream): Packet header specifies a packet larger that the maximum of "
-						+ maxPacketSize + " bytes");
-				throw new EPPException(
-						"EPPXMLStream.readPacket() : Packet header exceeds the maximum of "
-								+ maxPacketSize + " bytes");
-			}
-
-			cat.debug("readPacket(): Received network header with value = "
-					+ thePacketSize);
-
-			thePacket = new byte[thePacketSize - 4];
-
-			// Read the packet
-			theStream.readFully(thePacket);
+			this.readBuffer.read(aStream, maxPacketSize);
+		}
+		catch (EPPException ex) {
+			cat.error("readPacketBuffer(InputStream): " + ex.getMessage());
+			throw new EPPException("EPPXMLStream.readPacket() : "
+					+ ex.getMessage());
 		}
 		catch (EOFException ex) {
-			cat.error("readPacket(InputStream): EOFException while attempting to read packet, size = "
-					+ thePacketSize + ", packet = [" + thePacket + "]: " + ex);
+			cat.error("readPacketBuffer(InputStream): EOFException while attempting to read packet: "
+					+ ex);
 			throw ex;
 		}
 		catch (InterruptedIOException ex) {
-			cat.debug("readPacket(InputStream): InterruptedIOException while attempting to read packet: "
-					+ ex);
+			if (cat.isDebugEnabled()) {
+				cat.debug("readPacketBuffer(InputStream): InterruptedIOException while attempting to read packet: "
+						+ ex);
+			}
 			throw ex;
 		}
 		catch (IOException ex) {
-			cat.error("readPacket(InputStream): IOException while attempting to read packet, size = "
-					+ thePacketSize + ", packet = [" + thePacket + "]: " + ex);
+			cat.error("readPacketBuffer(InputStream): IOException while attempting to read packet: "
+					+ ex);
 			throw ex;
 		}
 
-		cat.debug("readPacket(): Received packet [" + new String(thePacket)
-				+ "]");
-		cat.debug("readPacket(): exit");
+		EPPMetrics theMetrics = EPPMetricsFactory.getInstance().getMetrics();
+		theMetrics.recordTime(EPPMetrics.XML_READ, null, System.nanoTime() - theStart);
+		theMetrics.increment(EPPMetrics.XML_READ_BYTES, null, this.readBuffer.getPacketLength()
+				+ EPPPacketBuffer.HEADER_SIZE);
+
+		if (cat.isDebugEnabled()) {
+			cat.debug("readPacketBuffer(): Received packet ["
+					+ this.readBuffer + "]");
+		}
+		cat.debug("readPacketBuffer(): exit");
+
+		return this.readBuffer;
+	}
 
-		return thePacket;
+	/**
+	 * Reads an EPP packet from the stream based on the network header that
+	 * defines the total length of the EPP data unit.  The returned packet is
+	 * a copy that remains valid after subsequent reads.
+	 * 
+	 * @param aStream
+	 *            Stream to read packet from
+	 * 
+	 * @return EPP packet without the network header
+	 * 
+	 * @exception EPPException
+	 *                Error reading packet from stream. The stream should be
+	 *                closed.
+	 * @exception InterruptedIOException
+	 *                Time out reading for packet
+	 * @exception IOException
+	 *                Exception from the input stream
+	 */
+	public byte[] readPacket(InputStream aStream) throws EPPException,
+			InterruptedIOException, IOException {
+		return this.readPacketBuffer(aStream).toPacketArray();
 	}
 
 	/**
 	 * Reads an EPP packet from the <code>aStream</code> parameter,
 	 * parses/validates it, and returns the associated DOM Document. The XML
 	 * parser is either created per call, or is retrieved from a parser pool
-	 * when <code>EPPXMLStream(GenericPoolManager)</code> is used. Use of a
-	 * parser pool is recommended.
+	 * when <code>EPPXMLStream(String)</code> is used. Use of a
+	 * parser pool is recommended.  The packet is parsed directly from the
+	 * read buffer.
 	 * 
 	 * @param aStream
 	 *            Input stream to read for an EPP packet.
@@ -255,10 +303,7 @@ public class EPPXMLStream {
 					"EPPXMLStream.read() : BAD ARGUMENT (aStream)");
 		}
 
-		Document theDoc = null;
-
-		byte[] thePacket = this.readPacket(aStream);
-		theDoc = this.byteArray.decode(thePacket);
+		Document theDoc = this.decodePacket(this.readPacketBuffer(aStream));
 
 		cat.debug("read(InputStream): exit");
 
@@ -278,17 +323,46 @@ public class EPPXMLStream {
 	public Document decodePacket(byte[] aPacket) throws EPPException, IOException {
 		cat.debug("decodePacket(byte[]): enter");
 		
+		long theStart = System.nanoTime();
 		Document theDoc = this.byteArray.decode(aPacket);
+		EPPMetricsFactory.getInstance().getMetrics().recordTime(EPPMetrics.XML_PARSE, null,
+				System.nanoTime() - theStart);
 		
 		cat.debug("decodePacket(byte[]): exit");
 		
 		return theDoc;
 	}
+
+	/**
+	 * Decodes the packet contained in an <code>EPPPacketBuffer</code> into a
+	 * DOM <code>Document</code>, which is parsed directly from the buffer.
+	 * 
+	 * @param aPacket Buffer containing the packet to decode.
+	 * @return Decoded DOM <code>Document</code>
+	 * 
+	 * @throws EPPException Error decoding the packet.
+	 * @throws IOException Basic IO error decoding the packet.
+	 */
+	public Document decodePacket(EPPPacketBuffer aPacket) throws EPPException, IOException {
+		cat.debug("decodePacket(EPPPacketBuffer): enter");
+		
+		long theStart = System.nanoTime();
+		Document theDoc = this.byteArray.decode(aPacket.getBuffer(),
+				EPPPacketBuffer.HEADER_SIZE, aPacket.getPacketLength());
+		EPPMetricsFactory.getInstance().getMetrics().recordTime(EPPMetrics.XML_PARSE, null,
+				System.nanoTime() - theStart);
+		
+		cat.debug("decodePacket(EPPPacketBuffer): exit");
+		
+		return theDoc;
+	}
 	
 
 	/**
 	 * Writes a DOM Document to the output stream. The DOM Document will be
-	 * serialized to XML and written to the output stream.
+	 * serialized to XML directly into the write buffer, and the network
+	 * header and the packet are written to the output stream with a single
+	 * write.
 	 * 
 	 * @param aDoc
 	 *            DOM Document to write to stream
@@ -314,16 +388,19 @@ public class EPPXMLStream {
 			throw new EPPException("EPPXMLStream.write() : BAD ARGUMENT (aDoc)");
 		}
 
-		byte[] thePacket = this.byteArray.encode(aDoc);
+		long theStart = System.nanoTime();
+		this.writeBuffer.reset();
+		this.byteArray.encode(aDoc, this.writeBuffer);
+		EPPMetricsFactory.getInstance().getMetrics().recordTime(EPPMetrics.XML_SERIALIZE, null,
+				System.nanoTime() - theStart);
 
-		packetCat.debug("write() : Sending [" + new String(thePacket) + "]");
+		if (packetCat.isDebugEnabled()) {
+			packetCat.debug("write() : Sending [" + this.writeBuffer + "]");
+		}
 
 		// Write to stream
 		try {
-			DataOutputStream theStream = new DataOutputStream(aOutput);
-			theStream.writeInt(thePacket.length + 4);
-			aOutput.write(thePacket);
-			aOutput.flush();
+			this.writeTo(aOutput);
 		}
 		catch (IOException ex) {
 			cat.error("write(Document, InputStream) : Writing to stream :" + ex);
@@ -334,6 +411,78 @@ public class EPPXMLStream {
 		cat.debug("write(Document, InputStream): exit");
 	}
 
+	/**
+	 * Writes an EPP packet encoded with an <code>EPPXMLWriter</code> to the
+	 * output stream, which does not require the serialization of a DOM
+	 * Document.  The network header and the packet are written to the output
+	 * stream with a single write.
+	 * 
+	 * @param aPacket
+	 *            Writer containing the encoded EPP packet
+	 * @param aOutput
+	 *            Output stream to write to
+	 * 
+	 * @exception EPPException
+	 *                Error writing to stream. It is recommended that the stream
+	 *                be closed.
+	 */
+	public void write(EPPXMLWriter aPacket, OutputStream aOutput)
+			throws EPPException {
+		cat.debug("write(EPPXMLWriter, OutputStream): enter");
+
+		// Validate arguments
+		if (aOutput == null) {
+			cat.error("write(EPPXMLWriter, OutputStream): aOutput == null");
+			throw new EPPException(
+					"EPPXMLStream.write() : BAD ARGUMENT (aOutput)");
+		}
+
+		if (aPacket == null) {
+			cat.error("write(EPPXMLWriter, OutputStream): aPacket == null");
+			throw new EPPException(
+					"EPPXMLStream.write() : BAD ARGUMENT (aPacket)");
+		}
+
+		if (packetCat.isDebugEnabled()) {
+			packetCat.debug("write() : Sending [" + aPacket + "]");
+		}
+
+		// Write to stream
+		try {
+			this.writeBuffer.reset();
+			this.writeBuffer.write(aPacket.getBuffer(), 0, aPacket.size());
+			this.writeTo(aOutput);
+		}
+		catch (IOException ex) {
+			cat.error("write(EPPXMLWriter, OutputStream) : Writing to stream :"
+					+ ex);
+			throw new EPPException("EPPXMLStream.write() : Writing to stream "
+					+ ex);
+		}
+
+		cat.debug("write(EPPXMLWriter, OutputStream): exit");
+	}
+
+	/**
+	 * Writes the network header and packet of the write buffer to the output
+	 * stream, and records the time and bytes written in the metrics.
+	 * 
+	 * @param aOutput
+	 *            Output stream to write to
+	 * 
+	 * @exception IOException
+	 *                Error writing to the stream
+	 */
+	private void writeTo(OutputStream aOutput) throws IOException {
+		long theStart = System.nanoTime();
+		this.writeBuffer.writeTo(aOutput);
+
+		EPPMetrics theMetrics = EPPMetricsFactory.getInstance().getMetrics();
+		theMetrics.recordTime(EPPMetrics.XML_WRITE, null, System.nanoTime() - theStart);
+		theMetrics.increment(EPPMetrics.XML_WRITE_BYTES, null, this.writeBuffer.getPacketLength()
+				+ EPPPacketBuffer.HEADER_SIZE);
+	}
+
 }
 
 // End class EPPXMLStream
@@ -21,9 +21,6 @@ http://www.verisign.com/nds/naming/namestore/techdocs.html
 package com.verisign.epp.util;
 
 
-// PoolMan Imports
-import com.codestudio.util.*;
-
 // JUnit
 import junit.framework.*;
 
@@ -44,6 +41,7 @@ import java.util.*;
 import javax.xml.parsers.DocumentBuilder;
 
 // EPP SDK imports
+import com.verisign.epp.exception.EPPException;
 import com.verisign.epp.util.*;
 
 
@@ -163,9 +161,7 @@ public class XMLParserTst extends TestCase {
 
 		try {
 			parser =
-				(EPPSchemaCachingParser) GenericPoolManager.getInstance()
-														   .getPool(POOL_NAME)
-														   .requestObject();
+				(EPPSchemaCachingParser) getPool().borrowObject();
 
 			parser.setFeature(
 							  EPPSchemaCachingParser.VALIDATION_FEATURE_ID,
@@ -182,7 +178,7 @@ public class XMLParserTst extends TestCase {
 			Assert.fail(e.getMessage());
 		}
 		 finally {
-			GenericPoolManager.getInstance().getPool(POOL_NAME).returnObject(parser);
+			getPool().returnObject(parser);
 		}
 	}
 
@@ -242,9 +238,7 @@ public class XMLParserTst extends TestCase {
 
 		try {
 			parser =
-				(EPPSchemaCachingParser) GenericPoolManager.getInstance()
-														   .getPool(POOL_NAME)
-														   .requestObject();
+				(EPPSchemaCachingParser) getPool().borrowObject();
 
 			parser.setSymbolTableSize(1299709);
 
@@ -262,7 +256,7 @@ public class XMLParserTst extends TestCase {
 			Assert.fail(e.getMessage());
 		}
 		 finally {
-			GenericPoolManager.getInstance().getPool(POOL_NAME).returnObject(parser);
+			getPool().returnObject(parser);
 		}
 	}
 
@@ -411,25 +405,30 @@ public class XMLParserTst extends TestCase {
 	protected void tearDown() throws Exception {
 		super.tearDown();
 
-		GenericPoolManager.getInstance().removePool(POOL_NAME);
+		EPPObjectPool.removePool(POOL_NAME);
 	}
 
 	/**
 	 * DOCUMENT ME!
 	 */
 	private void initParserPool() {
-		GenericPoolMetaData meta = new GenericPoolMetaData();
-
-		meta.setName(POOL_NAME);
-		meta.setObjectType(PARSER_IMPL);
-		meta.setInitialObjects(NUM_PARSERS_IN_POOL);
-		meta.setMinimumSize(NUM_PARSERS_IN_POOL);
-		meta.setMaximumSize(NUM_PARSERS_IN_POOL);
-		meta.setUserTimeout(0);
-		meta.setDebugging(false);
-
-		GenericPool newPool = new GenericPool(meta);
-		GenericPoolManager.getInstance().addPool(POOL_NAME, newPool);
+		try {
+			EPPObjectPool.addPool(new EPPObjectPool<DocumentBuilder>(
+							POOL_NAME, PARSER_IMPL, NUM_PARSERS_IN_POOL,
+							NUM_PARSERS_IN_POOL, NUM_PARSERS_IN_POOL, 0));
+		}
+		 catch (EPPException e) {
+			Assert.fail(e.getMessage());
+		}
+	}
+
+	/**
+	 * Gets the parser pool used by this test.
+	 *
+	 * @return Parser pool named <code>POOL_NAME</code>
+	 */
+	private static EPPObjectPool<DocumentBuilder> getPool() {
+		return (EPPObjectPool<DocumentBuilder>) EPPObjectPool.getPool(POOL_NAME);
 	}
 
 	/**
@@ -475,9 +474,7 @@ public class XMLParserTst extends TestCase {
 			try {
 				// get the parser from the pool
 				parser =
-					(DocumentBuilder) GenericPoolManager.getInstance()
-														.getPool(POOL_NAME)
-														.requestObject();
+					(DocumentBuilder) getPool().borrowObject();
 
 				for (int i = 0; i < iterations; i++) {
 					InputSource inSource =
@@ -494,10 +491,12 @@ public class XMLParserTst extends TestCase {
 			}
 			 catch (java.io.IOException e) {
 				e.printStackTrace();
+			}
+			 catch (EPPException e) {
+				e.printStackTrace();
 			}
 			 finally {
-				GenericPoolManager.getInstance().getPool(POOL_NAME)
-								  .returnObject(parser);
+				getPool().returnObject(parser);
 			}
 
 			long timeAfter = System.currentTimeMillis();
@@ -0,0 +1,366 @@
+/***********************************************************
+Copyright (C) 2004 VeriSign, Inc.
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+http://www.verisign.com/nds/naming/namestore/techdocs.html
+***********************************************************/
+package com.verisign.epp.serverstub;
+
+import java.util.Enumeration;
+import java.util.Vector;
+
+import org.apache.log4j.Logger;
+
+import com.verisign.epp.codec.gen.EPPCommand;
+import com.verisign.epp.codec.gen.EPPResponse;
+import com.verisign.epp.codec.gen.EPPResult;
+import com.verisign.epp.codec.gen.EPPTransId;
+import com.verisign.epp.codec.host.EPPHostAddRemove;
+import com.verisign.epp.codec.host.EPPHostAddress;
+import com.verisign.epp.codec.host.EPPHostCheckCmd;
+import com.verisign.epp.codec.host.EPPHostCheckResp;
+import com.verisign.epp.codec.host.EPPHostCheckResult;
+import com.verisign.epp.codec.host.EPPHostCreateCmd;
+import com.verisign.epp.codec.host.EPPHostCreateResp;
+import com.verisign.epp.codec.host.EPPHostDeleteCmd;
+import com.verisign.epp.codec.host.EPPHostInfoCmd;
+import com.verisign.epp.codec.host.EPPHostInfoResp;
+import com.verisign.epp.codec.host.EPPHostStatus;
+import com.verisign.epp.codec.host.EPPHostUpdateCmd;
+import com.verisign.epp.framework.EPPEvent;
+import com.verisign.epp.framework.EPPEventResponse;
+import com.verisign.epp.framework.EPPHandleEventException;
+import com.verisign.epp.framework.EPPHostHandler;
+import com.verisign.epp.util.EPPCatFactory;
+
+/**
+ * The <code>RegistryHostHandler</code> class is a concrete implementation of
+ * the abstract <code>com.verisign.epp.framework.EPPHostHandler</code> class
+ * that executes the EPP Host Commands against the <code>Registry</code> of
+ * the Stub Server, in place of the fixed responses of
+ * <code>HostHandler</code>.  A command rejected by the <code>Registry</code>
+ * gets the result code of the <code>RegistryException</code>, with its
+ * description as the reason.<br>
+ * <br>
+ *
+ * @see com.verisign.epp.serverstub.Registry
+ * @see com.verisign.epp.serverstub.HostHandler
+ */
+public class RegistryHostHandler extends EPPHostHandler {
+
+	/** Server transaction identifier of the responses */
+	private static final String svrTransId = "54322-XYZ";
+
+	/** Log4j category for logging */
+	private static Logger cat = Logger.getLogger(RegistryHostHandler.class.getName(), EPPCatFactory.getInstance()
+			.getFactory());
+
+	/** Registry of the Stub Server */
+	private Registry registry = Registry.getInstance();
+
+	/**
+	 * Constructs an instance of <code>RegistryHostHandler</code>
+	 */
+	public RegistryHostHandler() {
+	}
+
+	/**
+	 * Checks that the client has established a session, since the
+	 * <code>Registry</code> commands are executed on behalf of the logged in
+	 * client.
+	 *
+	 * @param aEvent The <code>EPPEvent</code> that is being handled
+	 * @param aData Any data that a Server needs to send to this
+	 *        <code>EPPHostHandler</code> This is assumed to be an instance of
+	 *        SessionData here.
+	 *
+	 * @exception EPPHandleEventException Thrown if the client is not logged in
+	 */
+	protected void preHandleEvent(EPPEvent aEvent, Object aData) throws EPPHandleEventException {
+		SessionData theSessionData = (SessionData) aData;
+		EPPCommand theMessage = (EPPCommand) aEvent.getMessage();
+
+		if (!theSessionData.isLoggedIn()) {
+			EPPResponse theResponse = new EPPResponse(new EPPTransId(theMessage.getTransId(), svrTransId));
+			theResponse.setResult(EPPResult.COMMAND_FAILED_END);
+			throw new EPPHandleEventException("The client has not established a session", theResponse);
+		}
+	}
+
+	/**
+	 * Handles any common behavior that all Host commands need to execute
+	 * after they execute their command specific behavior.
+	 *
+	 * @param aEvent The <code>EPPEvent</code> that is being handled
+	 * @param aData Any data that a Server needs to send to this
+	 *        <code>EPPHostHandler</code>
+	 *
+	 * @exception EPPHandleEventException Thrown if an error condition occurs.
+	 *            It must contain an <code>EPPEventResponse</code>
+	 */
+	protected void postHandleEvent(EPPEvent aEvent, Object aData) throws EPPHandleEventException {
+	}
+
+	/**
+	 * Invoked when a Host Check command is received, where a host is
+	 * available when it does not exist in the <code>Registry</code>.
+	 *
+	 * @param aEvent The <code>EPPEvent</code> that is being handled
+	 * @param aData Any data that a Server needs to send to this
+	 *        <code>EPPHostHandler</code>
+	 *
+	 * @return EPPEventResponse The response that should be sent back to the
+	 *         client.
+	 */
+	protected EPPEventResponse doHostCheck(EPPEvent aEvent, Object aData) {
+		EPPHostCheckCmd theMessage = (EPPHostCheckCmd) aEvent.getMessage();
+
+		Vector theResults = new Vector();
+		for (Enumeration theNames = theMessage.getNames().elements(); theNames.hasMoreElements();) {
+			String theName = (String) theNames.nextElement();
+			theResults.addElement(new EPPHostCheckResult(theName, this.registry.isHostAvailable(theName)));
+		}
+
+		EPPResponse theResponse = new EPPHostCheckResp(new EPPTransId(theMessage.getTransId(), svrTransId),
+				theResults);
+		theResponse.setResult(EPPResult.SUCCESS);
+
+		return new EPPEventResponse(theResponse);
+	}
+
+	/**
+	 * Invoked when a Host Create command is received.
+	 *
+	 * @param aEvent The <code>EPPEvent</code> that is being handled
+	 * @param aData Any data that a Server needs to send to this
+	 *        <code>EPPHostHandler</code>
+	 *
+	 * @return EPPEventResponse The response that should be sent back to the
+	 *         client.
+	 */
+	protected EPPEventResponse doHostCreate(EPPEvent aEvent, Object aData) {
+		EPPHostCreateCmd theMessage = (EPPHostCreateCmd) aEvent.getMessage();
+		EPPTransId theTransId = new EPPTransId(theMessage.getTransId(), svrTransId);
+
+		try {
+			RegistryHost theHost = new RegistryHost(theMessage.getName());
+			addAddresses(theHost, theMessage.getAddresses());
+
+			theHost = this.registry.createHost(getClientId(aData), theHost);
+
+			EPPResponse theResponse = new EPPHostCreateResp(theTransId, theMessage.getName(), theHost
+					.getCreatedDate());
+			theResponse.setResult(EPPResult.SUCCESS);
+
+			return new EPPEventResponse(theResponse);
+		}
+		catch (RegistryException ex) {
+			return createErrorResponse(theTransId, ex);
+		}
+	}
+
+	/**
+	 * Invoked when a Host Delete command is received.
+	 *
+	 * @param aEvent The <code>EPPEvent</code> that is being handled
+	 * @param aData Any data that a Server needs to send to this
+	 *        <code>EPPHostHandler</code>
+	 *
+	 * @return EPPEventResponse The response that should be sent back to the
+	 *         client.
+	 */
+	protected EPPEventResponse doHostDelete(EPPEvent aEvent, Object aData) {
+		EPPHostDeleteCmd theMessage = (EPPHostDeleteCmd) aEvent.getMessage();
+		EPPTransId theTransId = new EPPTransId(theMessage.getTransId(), svrTransId);
+
+		try {
+			this.registry.deleteHost(getClientId(aData), theMessage.getName());
+
+			EPPResponse theResponse = new EPPResponse(theTransId);
+			theResponse.setResult(EPPResult.SUCCESS);
+
+			return new EPPEventResponse(theResponse);
+		}
+		catch (RegistryException ex) {
+			return createErrorResponse(theTransId, ex);
+		}
+	}
+
+	/**
+	 * Invoked when a Host Update command is received.
+	 *
+	 * @param aEvent The <code>EPPEvent</code> that is being handled
+	 * @param aData Any data that a Server needs to send to this
+	 *        <code>EPPHostHandler</code>
+	 *
+	 * @return EPPEventResponse The response that should be sent back to the
+	 *         client.
+	 */
+	protected EPPEventResponse doHostUpdate(EPPEvent aEvent, Object aData) {
+		EPPHostUpdateCmd theMessage = (EPPHostUpdateCmd) aEvent.getMessage();
+		EPPTransId theTransId = new EPPTransId(theMessage.getTransId(), svrTransId);
+
+		try {
+			RegistryHost theChange = null;
+			if (theMessage.getChange() != null && theMessage.getChange().getName() != null) {
+				theChange = new RegistryHost(theMessage.getChange().getName());
+			}
+
+			this.registry.updateHost(getClientId(aData), theMessage.getName(), toRegistryHost(theMessage.getAdd()),
+					toRegistryHost(theMessage.getRemove()), theChange);
+
+			EPPResponse theResponse = new EPPResponse(theTransId);
+			theResponse.setResult(EPPResult.SUCCESS);
+
+			return new EPPEventResponse(theResponse);
+		}
+		catch (RegistryException ex) {
+			return createErrorResponse(theTransId, ex);
+		}
+	}
+
+	/**
+	 * Invoked when a Host Info command is received.
+	 *
+	 * @param aEvent The <code>EPPEvent</code> that is being handled
+	 * @param aData Any data that a Server needs to send to this
+	 *        <code>EPPHostHandler</code>
+	 *
+	 * @return EPPEventResponse The response that should be sent back to the
+	 *         client.
+	 */
+	protected EPPEventResponse doHostInfo(EPPEvent aEvent, Object aData) {
+		EPPHostInfoCmd theMessage = (EPPHostInfoCmd) aEvent.getMessage();
+		EPPTransId theTransId = new EPPTransId(theMessage.getTransId(), svrTransId);
+
+		try {
+			RegistryHost theHost = this.registry.getHost(theMessage.getName());
+
+			Vector theStatuses = new Vector();
+			for (String theStatus : theHost.getStatuses()) {
+				theStatuses.addElement(new EPPHostStatus(theStatus));
+			}
+
+			EPPHostInfoResp theResponse = new EPPHostInfoResp();
+			theResponse.setTransId(theTransId);
+			theResponse.setName(theHost.getName());
+			theResponse.setRoid(theHost.getRoid());
+			theResponse.setStatuses(theStatuses);
+
+			if (!theHost.getAddresses().isEmpty()) {
+				Vector theAddresses = new Vector();
+				for (String theAddress : theHost.getAddresses()) {
+					theAddresses.addElement(new EPPHostAddress(theAddress, theAddress.indexOf(':') == -1
+							? EPPHostAddress.IPV4 : EPPHostAddress.IPV6));
+				}
+				theResponse.setAddresses(theAddresses);
+			}
+
+			theResponse.setClientId(theHost.getClientId());
+			theResponse.setCreatedBy(theHost.getCreatedBy());
+			theResponse.setCreatedDate(theHost.getCreatedDate());
+			theResponse.setLastUpdatedBy(theHost.getUpdatedBy());
+			theResponse.setLastUpdatedDate(theHost.getUpdatedDate());
+			theResponse.setTrDate(theHost.getTransferDate());
+
+			theResponse.setResult(EPPResult.SUCCESS);
+
+			return new EPPEventResponse(theResponse);
+		}
+		catch (RegistryException ex) {
+			return createErrorResponse(theTransId, ex);
+		}
+	}
+
+	/**
+	 * Converts the <code>add</code> or <code>rem</code> element of an update
+	 * command to a <code>RegistryHost</code>.
+	 *
+	 * @param aAddRemove Element of the update command or <code>null</code>
+	 *
+	 * @return Host with the addresses and statuses of the element, or
+	 *         <code>null</code>
+	 *
+	 * @exception RegistryException If a status is not a client status
+	 */
+	private static RegistryHost toRegistryHost(EPPHostAddRemove aAddRemove) throws RegistryException {
+		if (aAddRemove == null) {
+			return null;
+		}
+
+		RegistryHost theHost = new RegistryHost();
+		addAddresses(theHost, aAddRemove.getAddresses());
+
+		if (aAddRemove.getStatuses() != null) {
+			Vector<String> theStatuses = new Vector<String>();
+			for (Object theStatus : aAddRemove.getStatuses()) {
+				theStatuses.addElement(((EPPHostStatus) theStatus).getStatus());
+			}
+			theHost.setStatusBits(Registry.getClientStatusBits(theStatuses));
+		}
+
+		return theHost;
+	}
+
+	/**
+	 * Adds the addresses of a command to a host.
+	 *
+	 * @param aHost Host to add to
+	 * @param aAddresses <code>EPPHostAddress</code> instances or
+	 *        <code>null</code>
+	 */
+	private static void addAddresses(RegistryHost aHost, Vector aAddresses) {
+		if (aAddresses != null) {
+			for (Object theAddress : aAddresses) {
+				aHost.addAddress(((EPPHostAddress) theAddress).getName());
+			}
+		}
+	}
+
+	/**
+	 * Gets the identifier of the logged in client.
+	 *
+	 * @param aData <code>SessionData</code> of the session
+	 *
+	 * @return Client identifier
+	 */
+	private static String getClientId(Object aData) {
+		return ((SessionData) aData).getLoginCmd().getClientId();
+	}
+
+	/**
+	 * Creates the response of a command that is rejected by the
+	 * <code>Registry</code>.
+	 *
+	 * @param aTransId Transaction identifier of the response
+	 * @param aException Error of the <code>Registry</code>
+	 *
+	 * @return Response with the result code and description of the error
+	 */
+	private static EPPEventResponse createErrorResponse(EPPTransId aTransId, RegistryException aException) {
+		if (cat.isDebugEnabled()) {
+			cat.debug("createErrorResponse(): " + aException.getMessage());
+		}
+
+		EPPResult theResult = new EPPResult(aException.getCode());
+		theResult.addExtValueReason(aException.getMessage());
+
+		return new EPPEventResponse(new EPPResponse(aTransId, theResult));
+	}
+
+}
+
+// End class RegistryHostHandler
@@ -736,8 +736,10 @@ public class EPPSignedMark implements EPPCodecComponent {
 							// Check validity of certificate
 							x509Cert.checkValidity();
 
-							cat.debug( "validate(PKIXParameters): Found X509Certificate ["
-									+ x509Cert + "]" );
+							if (cat.isDebugEnabled()) {
+								cat.debug( "validate(PKIXParameters): Found X509Certificate ["
+										+ x509Cert + "]" );
+							}
 							certificates.add( x509Cert );
 						}
 					}
@@ -785,7 +787,9 @@ public class EPPSignedMark implements EPPCodecComponent {
 			valid = false;
 		}
 
-		cat.debug( "validate(PKIXParameters): exit, valid = " + valid );
+		if (cat.isDebugEnabled()) {
+			cat.debug( "validate(PKIXParameters): exit, valid = " + valid );
+		}
 		return valid;
 
 	}
@@ -813,7 +817,9 @@ public class EPPSignedMark implements EPPCodecComponent {
 			valid = false;
 		}
 
-		cat.debug( "validate(PublicKey): exit, valid = " + valid );
+		if (cat.isDebugEnabled()) {
+			cat.debug( "validate(PublicKey): exit, valid = " + valid );
+		}
 		return valid;
 	}
 
@@ -1079,7 +1085,9 @@ public class EPPSignedMark implements EPPCodecComponent {
 			valid = false;
 		}
 
-		cat.debug( "validate(Element, PublicKey): exit, valid = " + valid );
+		if (cat.isDebugEnabled()) {
+			cat.debug( "validate(Element, PublicKey): exit, valid = " + valid );
+		}
 		return valid;
 	}
 
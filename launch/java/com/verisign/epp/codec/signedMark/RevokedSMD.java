@@ -128,7 +128,9 @@ public class RevokedSMD implements java.io.Serializable, Cloneable {
 		String ret = this.id + ","
 				+ EPPUtil.encodeTimeInstant(this.revokedDate);
 
-		cat.debug("encode(): Encoded value = \"" + ret + "\"");
+		if (cat.isDebugEnabled()) {
+			cat.debug("encode(): Encoded value = \"" + ret + "\"");
+		}
 
 		cat.debug("encode(): exit");
 		return ret;
@@ -196,15 +196,19 @@ public class SMDRevocationList {
 		for (RevokedSMD currSMD : this.revokedSMDs) {
 
 			if (currSMD.getId().equals(signedMarkId)) {
-				cat.debug("isRevoked(EPPSignedMark): Signed Mark Id = "
-						+ signedMarkId + " is revoked");
+				if (cat.isDebugEnabled()) {
+					cat.debug("isRevoked(EPPSignedMark): Signed Mark Id = "
+							+ signedMarkId + " is revoked");
+				}
 				cat.debug("isRevoked(EPPSignedMark): exit");
 				return true;
 			}
 		}
 
-		cat.debug("isRevoked(EPPSignedMark): Signed Mark Id = " + signedMarkId
-				+ " is not revoked");
+		if (cat.isDebugEnabled()) {
+			cat.debug("isRevoked(EPPSignedMark): Signed Mark Id = " + signedMarkId
+					+ " is not revoked");
+		}
 		cat.debug("isRevoked(EPPSignedMark): exit");
 		return false;
 	}
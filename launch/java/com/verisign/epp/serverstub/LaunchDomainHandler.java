@@ -126,7 +126,9 @@ public class LaunchDomainHandler extends DomainHandler {
 			System.exit(1);
 		}
 
-		cat.debug("LaunchDomainHandler.LaunchDomainHandler(): Signed Mark Truststore = " + truststore);
+		if (cat.isDebugEnabled()) {
+			cat.debug("LaunchDomainHandler.LaunchDomainHandler(): Signed Mark Truststore = " + truststore);
+		}
 
 		// Load the CRL's
 		String crlsProp = Environment.getOption("EPP.SignedMark.crls");
@@ -214,7 +216,9 @@ public class LaunchDomainHandler extends DomainHandler {
 		FileInputStream trustStoreFile = new FileInputStream(aTrustStoreName);
 		trustStore.load(trustStoreFile, null);
 		trustStoreFile.close();
-		cat.debug("LaunchDomainHandler.loadPKIXParameters(String, String): truststore = " + aTrustStoreName);
+		if (cat.isDebugEnabled()) {
+			cat.debug("LaunchDomainHandler.loadPKIXParameters(String, String): truststore = " + aTrustStoreName);
+		}
 		PKIXParameters pkixParameters = new PKIXParameters(trustStore);
 
 		CertificateFactory certFactory = CertificateFactory
@@ -228,7 +232,9 @@ public class LaunchDomainHandler extends DomainHandler {
 				InputStream inStream = null;
 
 				try {
-					cat.debug("LaunchDomainHandler.loadPKIXParameters(String, String): adding CRL " + currCrl);
+					if (cat.isDebugEnabled()) {
+						cat.debug("LaunchDomainHandler.loadPKIXParameters(String, String): adding CRL " + currCrl);
+					}
 					inStream = new FileInputStream(currCrl);
 					crlContentsList.add(certFactory.generateCRL(inStream));
 				}
@@ -324,8 +330,10 @@ public class LaunchDomainHandler extends DomainHandler {
 					|| theLaunchCheck.getType().equals(
 							EPPLaunchCheck.TYPE_CLAIMS)) {
 
-				cat.debug("LaunchDomainHandler.doDomainCheck: Launch Claims Check Form for Phase = "
-						+ theLaunchCheck.getPhase());
+				if (cat.isDebugEnabled()) {
+					cat.debug("LaunchDomainHandler.doDomainCheck: Launch Claims Check Form for Phase = "
+							+ theLaunchCheck.getPhase());
+				}
 
 				// Get phase
 				String phase = theLaunchCheck.getPhase().getPhase();
@@ -389,8 +397,10 @@ public class LaunchDomainHandler extends DomainHandler {
 
 			} // Available Check Form with passed phase
 			else {
-				cat.debug("LaunchDomainHandler.doDomainCheck: Launch Availability Check Form for Phase = "
-						+ theLaunchCheck.getPhase());
+				if (cat.isDebugEnabled()) {
+					cat.debug("LaunchDomainHandler.doDomainCheck: Launch Availability Check Form for Phase = "
+							+ theLaunchCheck.getPhase());
+				}
 
 				theEventResponse = super.doDomainCheck(aEvent, aData);
 
@@ -646,19 +656,25 @@ public class LaunchDomainHandler extends DomainHandler {
 					for (EPPLaunchCodeMark codeMark : codeMarks) {
 
 						if (codeMark.hasCodeMark()) {
-							cat.debug("LaunchDomainHandler.doDomainCreate: code = ["
-									+ codeMark.getCode() + "]");
-							cat.debug("LaunchDomainHandler.doDomainCreate: mark = ["
-									+ codeMark.getMark() + "]");
+							if (cat.isDebugEnabled()) {
+								cat.debug("LaunchDomainHandler.doDomainCreate: code = ["
+										+ codeMark.getCode() + "]");
+								cat.debug("LaunchDomainHandler.doDomainCreate: mark = ["
+										+ codeMark.getMark() + "]");
+							}
 
 						}
 						else if (codeMark.hasCode()) {
-							cat.debug("LaunchDomainHandler.doDomainCreate: code = ["
-									+ codeMark.getCode() + "]");
+							if (cat.isDebugEnabled()) {
+								cat.debug("LaunchDomainHandler.doDomainCreate: code = ["
+										+ codeMark.getCode() + "]");
+							}
 						}
 						else if (codeMark.hasMark()) {
-							cat.debug("LaunchDomainHandler.doDomainCreate: mark = ["
-									+ codeMark.getMark() + "]");
+							if (cat.isDebugEnabled()) {
+								cat.debug("LaunchDomainHandler.doDomainCreate: mark = ["
+										+ codeMark.getMark() + "]");
+							}
 						}
 						else {
 							return this
@@ -704,7 +720,9 @@ public class LaunchDomainHandler extends DomainHandler {
 														
 							byte[] packet = (byte []) sessionData.getAttribute("PACKET");
 							
-							cat.debug("Command with signed mark = [" + new String(packet) + "]");
+							if (cat.isDebugEnabled()) {
+								cat.debug("Command with signed mark = [" + new String(packet) + "]");
+							}
 
 							Document theDoc = theParser
 									.parse(new ByteArrayInputStream(packet));
@@ -729,8 +747,10 @@ public class LaunchDomainHandler extends DomainHandler {
 					for (EPPSignedMark signedMark : signedMarks) {
 
 						
-						cat.debug("LaunchDomainHandler.doDomainCreate: signedMark = ["
-								+ signedMark + "]");
+						if (cat.isDebugEnabled()) {
+							cat.debug("LaunchDomainHandler.doDomainCreate: signedMark = ["
+									+ signedMark + "]");
+						}
 						
 						Document doc = new DocumentImpl();
 						String signedMarkXML;
@@ -961,14 +981,16 @@ public class LaunchDomainHandler extends DomainHandler {
 
 					EPPLaunchNotice notice = theCmdExt.getNotice();
 
-					cat.debug("LaunchDomainHandler.doDomainCreate: notice id = ["
-							+ notice.getNoticeId() + "]");
-					cat.debug("LaunchDomainHandler.doDomainCreate: notice not after date = ["
-							+ EPPUtil.encodeTimeInstant(notice
-									.getNotAfterDate()) + "]");
-					cat.debug("LaunchDomainHandler.doDomainCreate: notice accepted date = ["
-							+ EPPUtil.encodeTimeInstant(notice
-									.getAcceptedDate()) + "]");
+					if (cat.isDebugEnabled()) {
+						cat.debug("LaunchDomainHandler.doDomainCreate: notice id = ["
+								+ notice.getNoticeId() + "]");
+						cat.debug("LaunchDomainHandler.doDomainCreate: notice not after date = ["
+								+ EPPUtil.encodeTimeInstant(notice
+										.getNotAfterDate()) + "]");
+						cat.debug("LaunchDomainHandler.doDomainCreate: notice accepted date = ["
+								+ EPPUtil.encodeTimeInstant(notice
+										.getAcceptedDate()) + "]");
+					}
 				}
 
 				// Is application?
@@ -993,8 +1015,10 @@ public class LaunchDomainHandler extends DomainHandler {
 
 			}
 			else {
-				cat.debug("LaunchDomainHandler.doDomainCreate: phase = "
-						+ phase);
+				if (cat.isDebugEnabled()) {
+					cat.debug("LaunchDomainHandler.doDomainCreate: phase = "
+							+ phase);
+				}
 
 				// Is application?
 				if (isApp) {
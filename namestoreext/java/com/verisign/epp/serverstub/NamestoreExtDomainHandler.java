@@ -94,8 +94,10 @@ public class NamestoreExtDomainHandler extends DomainHandler {
 												  theResponse);
 			}
 			
-			cat.debug("NameStoreExtDomainHandler.preHandleEvent(): NameStore Extension sub-product = " + 
-					  theExt.getSubProductID());
+			if (cat.isDebugEnabled()) {
+				cat.debug("NameStoreExtDomainHandler.preHandleEvent(): NameStore Extension sub-product = " + 
+						  theExt.getSubProductID());
+			}
 		}
 	
 	
@@ -93,8 +93,10 @@ public class NamestoreExtHostHandler extends HostHandler {
 					theResponse);
 		}
 		
-		cat.debug("NamestoreExtHostHandler.preHandleEvent(): NameStore Extension sub-product = " + 
-				theExt.getSubProductID());
+		if (cat.isDebugEnabled()) {
+			cat.debug("NamestoreExtHostHandler.preHandleEvent(): NameStore Extension sub-product = " + 
+					theExt.getSubProductID());
+		}
 	}
 	
 	/**